@@ -62,6 +62,17 @@ import com.unboundid.util.ThreadSafetyLevel;
  * the contents may be written to an {@code OutputStream} or {@code ByteBuffer},
  * or copied to a byte array.  {@code ASN1Buffer} instances are not threadsafe
  * and should not be accessed concurrently by multiple threads.
+ * <BR><BR>
+ * Sequences and sets may be written in one of two ways.  If the
+ * {@link #beginSequence(byte)} or {@link #beginSet(byte)} method is used, then
+ * the length of the sequence or set will be determined and inserted after all
+ * of its elements have been added, which may require shifting the elements
+ * that have already been written if the length needs more than one byte.  If
+ * the encoded length of the value is already known, then the
+ * {@link #beginSequence(byte,int)} or {@link #beginSet(byte,int)} method may
+ * be used to write the length up front so that the elements can be written
+ * directly into their final positions.  The {@code getEncoded*Size} methods
+ * may be used to determine the encoded sizes of the elements to be added.
  */
 @Mutable()
 @ThreadSafety(level=ThreadSafetyLevel.NOT_THREADSAFE)
@@ -208,6 +219,20 @@ public final class ASN1Buffer
 
 
 
+  /**
+   * Retrieves the number of bytes that this buffer can hold without needing to
+   * grow.
+   *
+   * @return  The number of bytes that this buffer can hold without needing to
+   *          grow.
+   */
+  int capacity()
+  {
+    return buffer.capacity();
+  }
+
+
+
   /**
    * Retrieves the current length of this buffer in bytes.
    *
@@ -956,6 +981,87 @@ public final class ASN1Buffer
 
 
 
+  /**
+   * Begins adding elements to an ASN.1 sequence whose encoded value length is
+   * already known.  The length will be written immediately, and the buffer
+   * will be expanded if necessary so that it can hold the entire sequence, so
+   * elements may be written directly into their final positions without
+   * needing to be moved when the sequence is ended.
+   *
+   * @param  type         The BER type to use for the sequence.
+   * @param  valueLength  The total number of bytes in the encoded
+   *                      representations of all of the elements that will be
+   *                      added to the sequence.
+   *
+   * @return  An object that may be used to indicate when the end of the
+   *          sequence has been reached.  Once all embedded sequence elements
+   *          have been added, then the {@link ASN1BufferSequence#end} method
+   *          MUST be called to ensure that the sequence is properly encoded.
+   */
+  @NotNull()
+  public ASN1BufferSequence beginSequence(final byte type,
+                                          final int valueLength)
+  {
+    final int lengthStartPos = beginPrecomputedSequenceOrSet(type, valueLength);
+    return new ASN1BufferSequence(this, lengthStartPos, valueLength);
+  }
+
+
+
+  /**
+   * Begins adding elements to an ASN.1 set whose encoded value length is
+   * already known.  The length will be written immediately, and the buffer
+   * will be expanded if necessary so that it can hold the entire set, so
+   * elements may be written directly into their final positions without
+   * needing to be moved when the set is ended.
+   *
+   * @param  type         The BER type to use for the set.
+   * @param  valueLength  The total number of bytes in the encoded
+   *                      representations of all of the elements that will be
+   *                      added to the set.
+   *
+   * @return  An object that may be used to indicate when the end of the set has
+   *          been reached.  Once all embedded set elements have been added,
+   *          then the {@link ASN1BufferSet#end} method MUST be called to ensure
+   *          that the set is properly encoded.
+   */
+  @NotNull()
+  public ASN1BufferSet beginSet(final byte type, final int valueLength)
+  {
+    final int lengthStartPos = beginPrecomputedSequenceOrSet(type, valueLength);
+    return new ASN1BufferSet(this, lengthStartPos, valueLength);
+  }
+
+
+
+  /**
+   * Writes the type and length for a sequence or set whose encoded value length
+   * is already known, and ensures that the buffer has enough capacity to hold
+   * the value.
+   *
+   * @param  type         The BER type to use for the sequence or set.
+   * @param  valueLength  The encoded length of the sequence or set value.
+   *
+   * @return  The position in the buffer at which the length was written.
+   */
+  private int beginPrecomputedSequenceOrSet(final byte type,
+                                            final int valueLength)
+  {
+    buffer.append(type);
+
+    final int lengthStartPos = buffer.length();
+    final long requiredCapacity = (long) lengthStartPos + 5L + valueLength;
+    if (requiredCapacity <= Integer.MAX_VALUE)
+    {
+      buffer.ensureCapacity((int) requiredCapacity);
+    }
+
+    ASN1Element.encodeLengthTo(valueLength, buffer);
+    return lengthStartPos;
+  }
+
+
+
   /**
    * Ensures that the appropriate length is inserted into the internal buffer
    * after all elements in a sequence or set have been added.
@@ -1013,6 +1119,243 @@ public final class ASN1Buffer
 
 
 
+  /**
+   * Ensures that the length written for a sequence or set whose value length
+   * was provided when it was begun matches the length of the elements that were
+   * actually added.  If the lengths do not match (which would indicate that
+   * the provided length was computed incorrectly), then the length will be
+   * rewritten so that the sequence or set is still properly encoded.
+   *
+   * @param  lengthStartPos  The position at which the length was written.
+   * @param  valueStartPos   The position at which the first value was added.
+   * @param  expectedLength  The value length provided when the sequence or set
+   *                         was begun.
+   */
+  void endPrecomputedSequenceOrSet(final int lengthStartPos,
+                                   final int valueStartPos,
+                                   final int expectedLength)
+  {
+    final int actualLength = buffer.length() - valueStartPos;
+    if (actualLength == expectedLength)
+    {
+      return;
+    }
+
+    final byte[] valueBytes = new byte[actualLength];
+    System.arraycopy(buffer.getBackingArray(), valueStartPos, valueBytes, 0,
+         actualLength);
+
+    buffer.setLength(lengthStartPos);
+    ASN1Element.encodeLengthTo(actualLength, buffer);
+    buffer.append(valueBytes);
+  }
+
+
+
+  /**
+   * Retrieves the total number of bytes needed to encode an element with a
+   * value of the specified length, including the BER type and the encoded
+   * length.
+   *
+   * @param  valueLength  The number of bytes in the element value.
+   *
+   * @return  The total number of bytes needed to encode an element with a
+   *          value of the specified length.
+   */
+  public static int getEncodedElementSize(final int valueLength)
+  {
+    if ((valueLength & 0x7F) == valueLength)
+    {
+      return 2 + valueLength;
+    }
+    else if ((valueLength & 0xFF) == valueLength)
+    {
+      return 3 + valueLength;
+    }
+    else if ((valueLength & 0xFFFF) == valueLength)
+    {
+      return 4 + valueLength;
+    }
+    else if ((valueLength & 0x00FF_FFFF) == valueLength)
+    {
+      return 5 + valueLength;
+    }
+    else
+    {
+      return 6 + valueLength;
+    }
+  }
+
+
+
+  /**
+   * Retrieves the total number of bytes that will be written when the provided
+   * element is added to an ASN.1 buffer.
+   *
+   * @param  element  The element for which to make the determination.
+   *
+   * @return  The total number of bytes that will be written when the provided
+   *          element is added to an ASN.1 buffer.
+   */
+  public static int getEncodedSize(@NotNull final ASN1Element element)
+  {
+    if (element instanceof ASN1OctetString)
+    {
+      return getEncodedElementSize(
+           ((ASN1OctetString) element).getEncodedValueLength());
+    }
+    else
+    {
+      return getEncodedElementSize(element.getValueLength());
+    }
+  }
+
+
+
+  /**
+   * Retrieves the total number of bytes that will be written when an octet
+   * string element with the provided value is added to an ASN.1 buffer.
+   *
+   * @param  value  The value for the octet string element.  It may be
+   *                {@code null} if the element will not have a value.
+   *
+   * @return  The total number of bytes that will be written when an octet
+   *          string element with the provided value is added to an ASN.1
+   *          buffer.
+   */
+  public static int getEncodedOctetStringSize(@Nullable final String value)
+  {
+    if (value == null)
+    {
+      return 2;
+    }
+
+    return getEncodedElementSize(getUTF8Length(value));
+  }
+
+
+
+  /**
+   * Retrieves the total number of bytes that will be written when an octet
+   * string element with the provided value is added to an ASN.1 buffer.
+   *
+   * @param  value  The value for the octet string element.  It may be
+   *                {@code null} if the element will not have a value.
+   *
+   * @return  The total number of bytes that will be written when an octet
+   *          string element with the provided value is added to an ASN.1
+   *          buffer.
+   */
+  public static int getEncodedOctetStringSize(@Nullable final byte[] value)
+  {
+    if (value == null)
+    {
+      return 2;
+    }
+
+    return getEncodedElementSize(value.length);
+  }
+
+
+
+  /**
+   * Retrieves the total number of bytes that will be written when an integer
+   * or enumerated element with the provided value is added to an ASN.1 buffer.
+   *
+   * @param  intValue  The value for the integer or enumerated element.
+   *
+   * @return  The total number of bytes that will be written when an integer or
+   *          enumerated element with the provided value is added to an ASN.1
+   *          buffer.
+   */
+  public static int getEncodedIntegerSize(final int intValue)
+  {
+    if (intValue < 0)
+    {
+      if ((intValue & 0xFFFF_FF80) == 0xFFFF_FF80)
+      {
+        return 3;
+      }
+      else if ((intValue & 0xFFFF_8000) == 0xFFFF_8000)
+      {
+        return 4;
+      }
+      else if ((intValue & 0xFF80_0000) == 0xFF80_0000)
+      {
+        return 5;
+      }
+      else
+      {
+        return 6;
+      }
+    }
+    else
+    {
+      if ((intValue & 0x0000_007F) == intValue)
+      {
+        return 3;
+      }
+      else if ((intValue & 0x0000_7FFF) == intValue)
+      {
+        return 4;
+      }
+      else if ((intValue & 0x007F_FFFF) == intValue)
+      {
+        return 5;
+      }
+      else
+      {
+        return 6;
+      }
+    }
+  }
+
+
+
+  /**
+   * Retrieves the number of bytes in the UTF-8 representation of the provided
+   * string, without actually encoding it.  Unpaired surrogate characters will
+   * be counted as a single byte, since they will be replaced with a question
+   * mark when the string is encoded.
+   *
+   * @param  s  The string for which to make the determination.
+   *
+   * @return  The number of bytes in the UTF-8 representation of the provided
+   *          string.
+   */
+  static int getUTF8Length(@NotNull final String s)
+  {
+    final int numChars = s.length();
+    int utf8Length = numChars;
+    for (int i=0; i < numChars; i++)
+    {
+      final char c = s.charAt(i);
+      if (c <= 0x7F)
+      {
+        continue;
+      }
+      else if (c <= 0x7FF)
+      {
+        utf8Length++;
+      }
+      else if (Character.isHighSurrogate(c) && ((i+1) < numChars) &&
+           Character.isLowSurrogate(s.charAt(i+1)))
+      {
+        // The pair of characters will be encoded with four bytes.
+        utf8Length += 2;
+        i++;
+      }
+      else if (! Character.isSurrogate(c))
+      {
+        utf8Length += 2;
+      }
+    }
+
+    return utf8Length;
+  }
+
+
+
   /**
    * Writes the contents of this buffer to the provided output stream.
    *
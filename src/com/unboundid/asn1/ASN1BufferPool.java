@@ -0,0 +1,610 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.asn1;
+
+
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.unboundid.util.Mutable;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+import com.unboundid.util.Validator;
+
+
+
+/**
+ * This class provides a bounded pool of {@link ASN1Buffer} objects that may be
+ * shared by any number of threads.  It is intended as an alternative to
+ * thread-local or per-connection buffers, which would each grow to hold the
+ * largest message ever written with them and would retain that memory for as
+ * long as the thread or connection remains alive.  With a shared pool, the
+ * amount of memory retained is bounded by the size of the pool rather than by
+ * the number of threads or connections.
+ * <BR><BR>
+ * Buffers obtained from the pool with the {@link #get} method should be
+ * returned to it with the {@link #release} method when they are no longer
+ * needed.  If the pool is exhausted, then a new buffer will be created, and if
+ * the pool is already full when a buffer is released, then that buffer will
+ * simply be discarded.  Neither getting nor releasing a buffer will ever
+ * block, and no locks are used.
+ * <BR><BR>
+ * Available buffers are grouped into size classes based on their capacity,
+ * and the {@link #get} method will prefer the smallest buffers so that larger
+ * buffers are only used when they are needed.  Buffers are shrunk to the
+ * maximum buffer size when they are released.  In addition, the pool keeps
+ * track of the largest number of buffers that have been in use at the same
+ * time (the high-water mark), and it will periodically discard available
+ * buffers, starting with the largest, that exceed what was needed to satisfy
+ * that demand since the last time the pool was trimmed.
+ */
+@Mutable()
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+public final class ASN1BufferPool
+       implements Serializable
+{
+  /**
+   * The upper bounds, in bytes, for the capacities of the buffers in each size
+   * class except the last, which holds all buffers larger than that.
+   */
+  @NotNull private static final int[] SIZE_CLASS_LIMITS = { 4_096, 65_536 };
+
+
+
+  /**
+   * The number of buffers that will be released between automatic attempts to
+   * trim the pool.
+   */
+  private static final long TRIM_INTERVAL = 4_096L;
+
+
+
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = 3281590470561322048L;
+
+
+
+  // The number of buffers that are currently available in the pool.
+  @NotNull private final AtomicInteger availableCount;
+
+  // The largest number of buffers that have been in use at the same time since
+  // the pool was last trimmed.
+  @NotNull private final AtomicInteger highWaterMark;
+
+  // The number of buffers that have been obtained from the pool but not yet
+  // released.
+  @NotNull private final AtomicInteger inUseCount;
+
+  // The number of buffers that were created because none were available.
+  @NotNull private final AtomicLong createCount;
+
+  // The number of released buffers that were discarded because the pool was
+  // full.
+  @NotNull private final AtomicLong discardCount;
+
+  // The number of buffers that have been requested from the pool.
+  @NotNull private final AtomicLong getCount;
+
+  // The number of buffers that have been released to the pool.
+  @NotNull private final AtomicLong releaseCount;
+
+  // The number of requests satisfied with a buffer that was already available.
+  @NotNull private final AtomicLong reuseCount;
+
+  // The number of available buffers that were discarded by trimming the pool.
+  @NotNull private final AtomicLong trimCount;
+
+  // The slots that hold the available buffers in each size class.
+  @NotNull private final AtomicReferenceArray<ASN1Buffer>[] sizeClasses;
+
+  // The maximum number of buffers that will be retained in the pool.
+  private final int maxPooledBuffers;
+
+  // The maximum size of the buffers that will be created by this pool.
+  private final int maxBufferSize;
+
+
+
+  /**
+   * Creates a new ASN.1 buffer pool with the provided settings.
+   *
+   * @param  maxPooledBuffers  The maximum number of buffers that will be
+   *                           retained in the pool, across all size classes.
+   *                           It must be greater than zero.
+   * @param  maxBufferSize     The maximum size, in bytes, that a buffer will
+   *                           retain after being cleared.  A value that is
+   *                           less than or equal to zero indicates that no
+   *                           maximum size should be enforced.
+   */
+  public ASN1BufferPool(final int maxPooledBuffers, final int maxBufferSize)
+  {
+    Validator.ensureTrue((maxPooledBuffers > 0),
+         "ASN1BufferPool.maxPooledBuffers must be greater than zero.");
+
+    this.maxPooledBuffers = maxPooledBuffers;
+    this.maxBufferSize = maxBufferSize;
+
+    @SuppressWarnings("unchecked")
+    final AtomicReferenceArray<ASN1Buffer>[] classes =
+         (AtomicReferenceArray<ASN1Buffer>[])
+         new AtomicReferenceArray<?>[SIZE_CLASS_LIMITS.length + 1];
+    for (int i=0; i < classes.length; i++)
+    {
+      classes[i] = new AtomicReferenceArray<>(maxPooledBuffers);
+    }
+    sizeClasses = classes;
+
+    availableCount = new AtomicInteger(0);
+    highWaterMark = new AtomicInteger(0);
+    inUseCount = new AtomicInteger(0);
+    createCount = new AtomicLong(0L);
+    discardCount = new AtomicLong(0L);
+    getCount = new AtomicLong(0L);
+    releaseCount = new AtomicLong(0L);
+    reuseCount = new AtomicLong(0L);
+    trimCount = new AtomicLong(0L);
+  }
+
+
+
+  /**
+   * Retrieves an empty buffer from this pool, or creates a new buffer if none
+   * are available.  The smallest available buffer will be preferred.
+   *
+   * @return  An empty buffer that may be used by the caller.
+   */
+  @NotNull()
+  public ASN1Buffer get()
+  {
+    return get(0);
+  }
+
+
+
+  /**
+   * Retrieves an empty buffer from this pool, or creates a new buffer if none
+   * are available.  The smallest available buffer in a size class that should
+   * be able to hold the specified number of bytes without growing will be
+   * preferred, but a smaller buffer may be returned if no such buffer is
+   * available.
+   *
+   * @param  expectedSize  The number of bytes that the caller expects to write
+   *                       into the buffer.
+   *
+   * @return  An empty buffer that may be used by the caller.
+   */
+  @NotNull()
+  public ASN1Buffer get(final int expectedSize)
+  {
+    getCount.incrementAndGet();
+    final int inUse = inUseCount.incrementAndGet();
+    updateHighWaterMark(inUse);
+
+    if (availableCount.get() > 0)
+    {
+      final int preferredClass = getSizeClass(expectedSize);
+      for (int i=preferredClass; i < sizeClasses.length; i++)
+      {
+        final ASN1Buffer buffer = take(sizeClasses[i]);
+        if (buffer != null)
+        {
+          return buffer;
+        }
+      }
+
+      for (int i=preferredClass-1; i >= 0; i--)
+      {
+        final ASN1Buffer buffer = take(sizeClasses[i]);
+        if (buffer != null)
+        {
+          return buffer;
+        }
+      }
+    }
+
+    createCount.incrementAndGet();
+    return new ASN1Buffer(maxBufferSize);
+  }
+
+
+
+  /**
+   * Attempts to take an available buffer from the provided set of slots.
+   *
+   * @param  slots  The slots from which to take the buffer.
+   *
+   * @return  The buffer that was taken, or {@code null} if there were no
+   *          buffers available in the provided slots.
+   */
+  @Nullable()
+  private ASN1Buffer take(@NotNull final AtomicReferenceArray<ASN1Buffer> slots)
+  {
+    final int length = slots.length();
+    final int start = getStartSlot(length);
+    for (int i=0; i < length; i++)
+    {
+      final int slot = (start + i) % length;
+      final ASN1Buffer buffer = slots.get(slot);
+      if ((buffer != null) && slots.compareAndSet(slot, buffer, null))
+      {
+        availableCount.decrementAndGet();
+        reuseCount.incrementAndGet();
+        return buffer;
+      }
+    }
+
+    return null;
+  }
+
+
+
+  /**
+   * Clears the provided buffer and returns it to this pool so that it may be
+   * reused.  The caller must not attempt to use the buffer after it has been
+   * released.
+   *
+   * @param  buffer  The buffer to release.  It must not be {@code null}.
+   */
+  public void release(@NotNull final ASN1Buffer buffer)
+  {
+    buffer.clear();
+    inUseCount.decrementAndGet();
+
+    // Reserve space in the pool before trying to find a slot for the buffer.
+    // Because each size class has enough slots to hold every buffer the pool
+    // may retain, there will almost always be an empty slot once space is
+    // reserved.  If we miss one because of concurrent activity in the size
+    // class, then the buffer will simply be discarded.
+    boolean retained = false;
+    if (availableCount.incrementAndGet() <= maxPooledBuffers)
+    {
+      final AtomicReferenceArray<ASN1Buffer> slots =
+           sizeClasses[getSizeClass(buffer.capacity())];
+      final int length = slots.length();
+      final int start = getStartSlot(length);
+      for (int i=0; i < length; i++)
+      {
+        final int slot = (start + i) % length;
+        if (slots.compareAndSet(slot, null, buffer))
+        {
+          retained = true;
+          break;
+        }
+      }
+    }
+
+    if (! retained)
+    {
+      availableCount.decrementAndGet();
+      discardCount.incrementAndGet();
+    }
+
+    if ((releaseCount.incrementAndGet() % TRIM_INTERVAL) == 0L)
+    {
+      trim();
+    }
+  }
+
+
+
+  /**
+   * Discards available buffers that exceed the number that were needed to
+   * satisfy the largest number of buffers in use at the same time since the
+   * last time the pool was trimmed, starting with buffers in the largest size
+   * class.  The high-water mark will then be reset to the number of buffers
+   * that are currently in use.  This will be invoked automatically on a
+   * periodic basis as buffers are released, but it may also be invoked
+   * explicitly to release memory that is no longer needed.
+   */
+  public void trim()
+  {
+    final int inUse = Math.max(0, inUseCount.get());
+    final int retain = Math.max(0, (highWaterMark.getAndSet(inUse) - inUse));
+
+    for (int i=(sizeClasses.length - 1); i >= 0; i--)
+    {
+      final AtomicReferenceArray<ASN1Buffer> slots = sizeClasses[i];
+      for (int slot=0; slot < slots.length(); slot++)
+      {
+        if (availableCount.get() <= retain)
+        {
+          return;
+        }
+
+        final ASN1Buffer buffer = slots.get(slot);
+        if ((buffer != null) && slots.compareAndSet(slot, buffer, null))
+        {
+          availableCount.decrementAndGet();
+          trimCount.incrementAndGet();
+        }
+      }
+    }
+  }
+
+
+
+  /**
+   * Updates the high-water mark if the provided number of buffers in use is
+   * larger than the current value.
+   *
+   * @param  inUse  The number of buffers currently in use.
+   */
+  private void updateHighWaterMark(final int inUse)
+  {
+    while (true)
+    {
+      final int currentHighWaterMark = highWaterMark.get();
+      if ((inUse <= currentHighWaterMark) ||
+           highWaterMark.compareAndSet(currentHighWaterMark, inUse))
+      {
+        return;
+      }
+    }
+  }
+
+
+
+  /**
+   * Retrieves the index of the size class for buffers of the given size.
+   *
+   * @param  size  The buffer size for which to retrieve the size class.
+   *
+   * @return  The index of the size class for buffers of the given size.
+   */
+  private static int getSizeClass(final int size)
+  {
+    for (int i=0; i < SIZE_CLASS_LIMITS.length; i++)
+    {
+      if (size <= SIZE_CLASS_LIMITS[i])
+      {
+        return i;
+      }
+    }
+
+    return SIZE_CLASS_LIMITS.length;
+  }
+
+
+
+  /**
+   * Retrieves the slot at which the current thread should begin looking for a
+   * buffer.  Different threads will tend to start at different slots, which
+   * reduces contention when many threads are using the pool at once.
+   *
+   * @param  numSlots  The number of slots in the size class.
+   *
+   * @return  The slot at which the current thread should begin looking.
+   */
+  private static int getStartSlot(final int numSlots)
+  {
+    return (System.identityHashCode(Thread.currentThread()) & 0x7FFF_FFFF) %
+         numSlots;
+  }
+
+
+
+  /**
+   * Retrieves the maximum number of buffers that will be retained in this pool.
+   *
+   * @return  The maximum number of buffers that will be retained in this pool.
+   */
+  public int getMaxPooledBuffers()
+  {
+    return maxPooledBuffers;
+  }
+
+
+
+  /**
+   * Retrieves the maximum size, in bytes, that a buffer will retain after it
+   * has been released.
+   *
+   * @return  The maximum size, in bytes, that a buffer will retain after it has
+   *          been released, or a value less than or equal to zero if no maximum
+   *          size is enforced.
+   */
+  public int getMaxBufferSize()
+  {
+    return maxBufferSize;
+  }
+
+
+
+  /**
+   * Retrieves the number of buffers that are currently available in this pool.
+   *
+   * @return  The number of buffers that are currently available in this pool.
+   */
+  public int getAvailableBufferCount()
+  {
+    return Math.max(0, availableCount.get());
+  }
+
+
+
+  /**
+   * Retrieves the number of buffers that have been obtained from this pool but
+   * not yet released.
+   *
+   * @return  The number of buffers that have been obtained from this pool but
+   *          not yet released.
+   */
+  public int getInUseBufferCount()
+  {
+    return Math.max(0, inUseCount.get());
+  }
+
+
+
+  /**
+   * Retrieves the largest number of buffers that have been in use at the same
+   * time since this pool was last trimmed.
+   *
+   * @return  The largest number of buffers that have been in use at the same
+   *          time since this pool was last trimmed.
+   */
+  public int getHighWaterMark()
+  {
+    return highWaterMark.get();
+  }
+
+
+
+  /**
+   * Retrieves the number of times a buffer has been requested from this pool.
+   *
+   * @return  The number of times a buffer has been requested from this pool.
+   */
+  public long getBufferRequestCount()
+  {
+    return getCount.get();
+  }
+
+
+
+  /**
+   * Retrieves the number of buffer requests that were satisfied with a buffer
+   * that was already available in this pool.
+   *
+   * @return  The number of buffer requests that were satisfied with a buffer
+   *          that was already available in this pool.
+   */
+  public long getBufferReuseCount()
+  {
+    return reuseCount.get();
+  }
+
+
+
+  /**
+   * Retrieves the number of buffers that were newly created because no buffer
+   * was available in this pool.
+   *
+   * @return  The number of buffers that were newly created because no buffer
+   *          was available in this pool.
+   */
+  public long getBufferCreateCount()
+  {
+    return createCount.get();
+  }
+
+
+
+  /**
+   * Retrieves the number of buffers that have been released to this pool.
+   *
+   * @return  The number of buffers that have been released to this pool.
+   */
+  public long getBufferReleaseCount()
+  {
+    return releaseCount.get();
+  }
+
+
+
+  /**
+   * Retrieves the number of released buffers that were discarded because this
+   * pool was already full.
+   *
+   * @return  The number of released buffers that were discarded because this
+   *          pool was already full.
+   */
+  public long getBufferDiscardCount()
+  {
+    return discardCount.get();
+  }
+
+
+
+  /**
+   * Retrieves the number of available buffers that were discarded when
+   * trimming this pool.
+   *
+   * @return  The number of available buffers that were discarded when trimming
+   *          this pool.
+   */
+  public long getBufferTrimCount()
+  {
+    return trimCount.get();
+  }
+
+
+
+  /**
+   * Discards all buffers that are currently held in this pool.
+   */
+  public void clear()
+  {
+    for (final AtomicReferenceArray<ASN1Buffer> slots : sizeClasses)
+    {
+      for (int slot=0; slot < slots.length(); slot++)
+      {
+        if (slots.getAndSet(slot, null) != null)
+        {
+          availableCount.decrementAndGet();
+        }
+      }
+    }
+  }
+
+
+
+  /**
+   * Retrieves a string representation of this ASN.1 buffer pool.
+   *
+   * @return  A string representation of this ASN.1 buffer pool.
+   */
+  @Override()
+  @NotNull()
+  public String toString()
+  {
+    return "ASN1BufferPool(maxPooledBuffers=" + maxPooledBuffers +
+         ", maxBufferSize=" + maxBufferSize + ", availableBufferCount=" +
+         getAvailableBufferCount() + ", inUseBufferCount=" +
+         getInUseBufferCount() + ", highWaterMark=" + getHighWaterMark() +
+         ", requestCount=" + getCount.get() + ", reuseCount=" +
+         reuseCount.get() + ", createCount=" + createCount.get() +
+         ", discardCount=" + discardCount.get() + ", trimCount=" +
+         trimCount.get() + ')';
+  }
+}
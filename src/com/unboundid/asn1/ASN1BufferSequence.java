@@ -69,6 +69,14 @@ public final class ASN1BufferSequence
   // The ASN.1 buffer with which the sequence is associated.
   @NotNull private final ASN1Buffer buffer;
 
+  // The value length that was provided when the sequence was begun, or -1 if
+  // the length will be inserted when the sequence is ended.
+  private final int expectedValueLength;
+
+  // The position in the ASN.1 buffer at which the length was written, or -1
+  // if the length will be inserted when the sequence is ended.
+  private final int lengthStartPos;
+
   // The position in the ASN.1 buffer at which the first sequence value begins.
   private final int valueStartPos;
 
@@ -83,6 +91,30 @@ public final class ASN1BufferSequence
   {
     this.buffer = buffer;
 
+    valueStartPos = buffer.length();
+    lengthStartPos = -1;
+    expectedValueLength = -1;
+  }
+
+
+
+  /**
+   * Creates a new instance of this class for the provided ASN.1 buffer, in
+   * which the length of the sequence value has already been written.
+   *
+   * @param  buffer               The ASN.1 buffer with which this object will
+   *                              be associated.
+   * @param  lengthStartPos       The position in the buffer at which the length
+   *                              was written.
+   * @param  expectedValueLength  The value length that was written.
+   */
+  ASN1BufferSequence(@NotNull final ASN1Buffer buffer, final int lengthStartPos,
+                    final int expectedValueLength)
+  {
+    this.buffer = buffer;
+    this.lengthStartPos = lengthStartPos;
+    this.expectedValueLength = expectedValueLength;
+
     valueStartPos = buffer.length();
   }
 
@@ -94,6 +126,14 @@ public final class ASN1BufferSequence
    */
   public void end()
   {
-    buffer.endSequenceOrSet(valueStartPos);
+    if (lengthStartPos < 0)
+    {
+      buffer.endSequenceOrSet(valueStartPos);
+    }
+    else
+    {
+      buffer.endPrecomputedSequenceOrSet(lengthStartPos, valueStartPos,
+           expectedValueLength);
+    }
   }
 }
@@ -70,6 +70,14 @@ public final class ASN1BufferSet
   @NotNull
   private final ASN1Buffer buffer;
 
+  // The value length that was provided when the set was begun, or -1 if
+  // the length will be inserted when the set is ended.
+  private final int expectedValueLength;
+
+  // The position in the ASN.1 buffer at which the length was written, or -1
+  // if the length will be inserted when the set is ended.
+  private final int lengthStartPos;
+
   // The position in the ASN.1 buffer at which the first set value begins.
   private final int valueStartPos;
 
@@ -84,6 +92,30 @@ public final class ASN1BufferSet
   {
     this.buffer = buffer;
 
+    valueStartPos = buffer.length();
+    lengthStartPos = -1;
+    expectedValueLength = -1;
+  }
+
+
+
+  /**
+   * Creates a new instance of this class for the provided ASN.1 buffer, in
+   * which the length of the set value has already been written.
+   *
+   * @param  buffer               The ASN.1 buffer with which this object will
+   *                              be associated.
+   * @param  lengthStartPos       The position in the buffer at which the length
+   *                              was written.
+   * @param  expectedValueLength  The value length that was written.
+   */
+  ASN1BufferSet(@NotNull final ASN1Buffer buffer, final int lengthStartPos,
+                    final int expectedValueLength)
+  {
+    this.buffer = buffer;
+    this.lengthStartPos = lengthStartPos;
+    this.expectedValueLength = expectedValueLength;
+
     valueStartPos = buffer.length();
   }
 
@@ -95,6 +127,14 @@ public final class ASN1BufferSet
    */
   public void end()
   {
-    buffer.endSequenceOrSet(valueStartPos);
+    if (lengthStartPos < 0)
+    {
+      buffer.endSequenceOrSet(valueStartPos);
+    }
+    else
+    {
+      buffer.endPrecomputedSequenceOrSet(lengthStartPos, valueStartPos,
+           expectedValueLength);
+    }
   }
 }
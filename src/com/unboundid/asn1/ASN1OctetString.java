@@ -37,6 +37,11 @@ package com.unboundid.asn1;
 
 
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+
 import com.unboundid.util.ByteString;
 import com.unboundid.util.ByteStringBuffer;
 import com.unboundid.util.Debug;
@@ -90,6 +95,12 @@ public final class ASN1OctetString
    * read much more often than it is written, passing it through a volatile
    * variable rather than making it volatile directly can help avoid that
    * penalty when possible.
+   *
+   * The value may also be provided by an ASN1OctetStringValueSource, in which
+   * case neither valueBytes nor stringValue will be set until the value is
+   * first needed.  The valueSource variable is volatile, and it is only
+   * cleared after the value has been loaded into valueBytes, so any thread
+   * that sees a null value source will also see the loaded value.
    */
 
 
@@ -110,6 +121,10 @@ public final class ASN1OctetString
   // The string representation of the value for this element.
   @Nullable private String stringValue;
 
+  // The source from which the value should be read when it is first needed,
+  // if it has not yet been loaded.
+  @Nullable private transient volatile ASN1OctetStringValueSource valueSource;
+
 
 
   /**
@@ -320,6 +335,38 @@ public final class ASN1OctetString
 
 
 
+  /**
+   * Creates a new ASN.1 octet string element with the default BER type whose
+   * value will be read from the provided source when it is first needed.
+   * Methods that need the value as a byte array or string will load it into
+   * memory, and it will be retained for the life of this element, but the
+   * {@link #getValueInputStream} method may be used to read the value without
+   * loading it.  If a problem occurs while loading the value, then those
+   * methods will throw an {@link ASN1RuntimeException}.
+   *
+   * @param  length       The number of bytes in the value.  It must not be
+   *                      negative.
+   * @param  valueSource  The source from which the value may be read.  It
+   *                      must not be {@code null}, and it must provide exactly
+   *                      {@code length} bytes.
+   */
+  public ASN1OctetString(final int length,
+              @NotNull final ASN1OctetStringValueSource valueSource)
+  {
+    super(ASN1Constants.UNIVERSAL_OCTET_STRING_TYPE);
+
+    Validator.ensureNotNull(valueSource);
+    Validator.ensureTrue(length >= 0);
+
+    this.length      = length;
+    this.valueSource = valueSource;
+    offset           = 0;
+    valueBytes       = null;
+    stringValue      = null;
+  }
+
+
+
   /**
    * {@inheritDoc}
    */
@@ -349,11 +396,42 @@ public final class ASN1OctetString
   @Override()
   public int getValueLength()
   {
+    if (valueSource != null)
+    {
+      return length;
+    }
+
     return getValue().length;
   }
 
 
 
+  /**
+   * Retrieves the number of bytes in the encoded value for this element.  This
+   * is the same as the value returned by the {@link #getValueLength} method,
+   * but if the value was provided as a string, then the length will be
+   * computed without encoding the string to a byte array.
+   *
+   * @return  The number of bytes in the encoded value for this element.
+   */
+  int getEncodedValueLength()
+  {
+    if (valueSource != null)
+    {
+      return length;
+    }
+    else if (valueBytes == null)
+    {
+      return ASN1Buffer.getUTF8Length(stringValue);
+    }
+    else
+    {
+      return length;
+    }
+  }
+
+
+
   /**
    * {@inheritDoc}
    */
@@ -361,6 +439,8 @@ public final class ASN1OctetString
   @NotNull()
   public byte[] getValue()
   {
+    ensureValueLoaded();
+
     if (valueBytes == null)
     {
       valueBytesGuard = StaticUtils.getBytes(stringValue);
@@ -388,6 +468,7 @@ public final class ASN1OctetString
   @Override()
   public void encodeTo(@NotNull final ByteStringBuffer buffer)
   {
+    ensureValueLoaded();
     buffer.append(getType());
 
     if (valueBytes == null)
@@ -440,6 +521,8 @@ public final class ASN1OctetString
   @NotNull()
   public String stringValue()
   {
+    ensureValueLoaded();
+
     if (stringValue == null)
     {
       if (length == 0)
@@ -457,6 +540,147 @@ public final class ASN1OctetString
 
 
 
+  /**
+   * Indicates whether the value of this element is held in memory.  This will
+   * only return {@code false} for an element created with an
+   * {@link ASN1OctetStringValueSource} whose value has not yet been needed.
+   *
+   * @return  {@code true} if the value of this element is held in memory, or
+   *          {@code false} if it will be read from a value source when it is
+   *          first needed.
+   */
+  public boolean isValueLoaded()
+  {
+    return (valueSource == null);
+  }
+
+
+
+  /**
+   * Retrieves an input stream that may be used to read the value of this
+   * element.  If the value has not yet been loaded from a value source, then
+   * the stream will read directly from that source and the value will not be
+   * held in memory.  The caller is responsible for closing the stream.
+   *
+   * @return  An input stream that may be used to read the value of this
+   *          element.
+   *
+   * @throws  IOException  If a problem occurs while attempting to open the
+   *                       value source.
+   */
+  @NotNull()
+  public InputStream getValueInputStream()
+         throws IOException
+  {
+    final ASN1OctetStringValueSource source = valueSource;
+    if (source != null)
+    {
+      return source.getInputStream();
+    }
+
+    if (valueBytes == null)
+    {
+      return new ByteArrayInputStream(getValue());
+    }
+    else
+    {
+      return new ByteArrayInputStream(valueBytes, offset, length);
+    }
+  }
+
+
+
+  /**
+   * Ensures that the value of this element has been loaded from its value
+   * source, if it has one.
+   *
+   * @throws  ASN1RuntimeException  If a problem occurs while reading the value
+   *                                from its source.
+   */
+  private void ensureValueLoaded()
+          throws ASN1RuntimeException
+  {
+    if (valueSource != null)
+    {
+      loadValue();
+    }
+  }
+
+
+
+  /**
+   * Reads the value of this element from its value source and makes it
+   * available in the valueBytes array, and then notifies the source that it
+   * will no longer be used.  This will have no effect if another thread has
+   * already loaded the value.
+   *
+   * @throws  ASN1RuntimeException  If a problem occurs while reading the value
+   *                                from its source.
+   */
+  private synchronized void loadValue()
+          throws ASN1RuntimeException
+  {
+    final ASN1OctetStringValueSource source = valueSource;
+    if (source == null)
+    {
+      return;
+    }
+
+    final byte[] bytes = new byte[length];
+    try (InputStream inputStream = source.getInputStream())
+    {
+      int pos = 0;
+      while (pos < length)
+      {
+        final int bytesRead = inputStream.read(bytes, pos, (length - pos));
+        if (bytesRead < 0)
+        {
+          throw new ASN1RuntimeException(
+               ERR_OCTET_STRING_VALUE_SOURCE_TRUNCATED.get(pos, length));
+        }
+
+        pos += bytesRead;
+      }
+    }
+    catch (final IOException e)
+    {
+      Debug.debugException(e);
+      throw new ASN1RuntimeException(
+           ERR_OCTET_STRING_CANNOT_LOAD_VALUE.get(length,
+                StaticUtils.getExceptionMessage(e)),
+           e);
+    }
+
+    offset          = 0;
+    valueBytesGuard = bytes;
+    valueBytes      = valueBytesGuard;
+    valueSource     = null;
+
+    source.valueLoaded();
+  }
+
+
+
+  /**
+   * Writes the serialized representation of this element to the provided
+   * stream.  If the value has not yet been loaded from a value source, then
+   * it will be loaded first, since the value source itself is not
+   * serialized.
+   *
+   * @param  outputStream  The output stream to which the element should be
+   *                       written.
+   *
+   * @throws  IOException  If a problem occurs while writing the element.
+   */
+  private void writeObject(@NotNull final ObjectOutputStream outputStream)
+          throws IOException
+  {
+    ensureValueLoaded();
+    outputStream.defaultWriteObject();
+  }
+
+
+
   /**
    * Decodes the contents of the provided byte array as an octet string element.
    *
@@ -536,6 +760,8 @@ public final class ASN1OctetString
   @Override()
   public void appendValueTo(@NotNull final ByteStringBuffer buffer)
   {
+    ensureValueLoaded();
+
     if (valueBytes == null)
     {
       buffer.append(stringValue);
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.asn1;
+
+
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.unboundid.util.Extensible;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This interface defines a source for the value of an
+ * {@link ASN1OctetString} that has not been held in memory, for example
+ * because it was written to a file when it was read from the server.  The
+ * value will only be read from the source when it is needed.
+ */
+@Extensible()
+@ThreadSafety(level=ThreadSafetyLevel.INTERFACE_THREADSAFE)
+public interface ASN1OctetStringValueSource
+{
+  /**
+   * Retrieves an input stream that may be used to read the value.  Each call
+   * to this method must return a new input stream positioned at the beginning
+   * of the value, and the caller will be responsible for closing it.
+   *
+   * @return  An input stream that may be used to read the value.
+   *
+   * @throws  IOException  If a problem occurs while attempting to open the
+   *                       input stream.
+   */
+  @NotNull()
+  InputStream getInputStream()
+       throws IOException;
+
+
+
+  /**
+   * Indicates that the value has been read into memory by the octet string
+   * that uses this source, and that the octet string will not use this source
+   * again.  The source may release any resources associated with the value,
+   * like a file in which it was stored.  This will be called at most once.
+   */
+  void valueLoaded();
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.asn1;
+
+
+
+import com.unboundid.util.LDAPSDKRuntimeException;
+import com.unboundid.util.NotMutable;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class defines a runtime exception that can be thrown if a problem
+ * occurs while accessing the value of an ASN.1 element from a method that
+ * cannot throw a checked exception.  For example, it may be thrown if the
+ * value of an {@link ASN1OctetString} could not be read from its
+ * {@link ASN1OctetStringValueSource}.
+ */
+@NotMutable()
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+public final class ASN1RuntimeException
+       extends LDAPSDKRuntimeException
+{
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = 6206311486405613473L;
+
+
+
+  /**
+   * Creates a new ASN.1 runtime exception with the provided message.
+   *
+   * @param  message  A message explaining the problem that occurred.
+   */
+  public ASN1RuntimeException(@NotNull final String message)
+  {
+    super(message);
+  }
+
+
+
+  /**
+   * Creates a new ASN.1 runtime exception with the provided message and
+   * cause.
+   *
+   * @param  message  A message explaining the problem that occurred.
+   * @param  cause    The underlying cause for this exception.  It may be
+   *                  {@code null} if no cause is available.
+   */
+  public ASN1RuntimeException(@NotNull final String message,
+                              @Nullable final Throwable cause)
+  {
+    super(message, cause);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void toString(@NotNull final StringBuilder buffer)
+  {
+    buffer.append("ASN1RuntimeException(message='");
+    buffer.append(getMessage());
+    buffer.append('\'');
+
+    final Throwable cause = getCause();
+    if (cause != null)
+    {
+      buffer.append(", cause=");
+      buffer.append(StaticUtils.getExceptionMessage(cause));
+    }
+
+    buffer.append(')');
+  }
+}
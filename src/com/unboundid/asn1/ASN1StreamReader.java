@@ -986,6 +986,100 @@ public final class ASN1StreamReader
 
 
 
+  /**
+   * Reads the BER type and length of the next element from the input stream,
+   * without reading its value.  This must be followed by a call to either the
+   * {@link #readElementValue} or {@link #getElementValueInputStream} method
+   * (with the length returned by this method) before attempting to read
+   * anything else from this reader.  This may be used to decide how to handle
+   * the value of an element based on its size, for example to avoid holding a
+   * very large value in memory.
+   *
+   * @return  The number of bytes in the value of the element, or -1 if the end
+   *          of the input stream was reached before any data could be read.
+   *          If -1 is returned, then the input stream will have been closed.
+   *
+   * @throws  IOException  If a problem occurs while reading from the input
+   *                       stream, if the end of the input stream is reached in
+   *                       the middle of the element header, or if the element
+   *                       is larger than the maximum allowed size.
+   */
+  public int readElementHeader()
+         throws IOException
+  {
+    final int type = readType();
+    if (type < 0)
+    {
+      return -1;
+    }
+
+    final int length = readLength();
+    Debug.debugASN1Read(Level.INFO, "header", type, length, null);
+    return length;
+  }
+
+
+
+  /**
+   * Reads the value of an element whose header has just been read with the
+   * {@link #readElementHeader} method.
+   *
+   * @param  length  The number of bytes in the value, as returned by the
+   *                 {@code readElementHeader} method.
+   *
+   * @return  The value that was read.
+   *
+   * @throws  IOException  If a problem occurs while reading from the input
+   *                       stream or if the end of the input stream is reached
+   *                       before the entire value has been read.
+   */
+  @NotNull()
+  public byte[] readElementValue(final int length)
+         throws IOException
+  {
+    int valueBytesRead = 0;
+    int bytesRemaining = length;
+    final byte[] value = new byte[length];
+    while (valueBytesRead < length)
+    {
+      final int bytesRead = read(value, valueBytesRead, bytesRemaining);
+      if (bytesRead < 0)
+      {
+        throw new IOException(ERR_READ_END_BEFORE_VALUE_END.get());
+      }
+
+      valueBytesRead += bytesRead;
+      bytesRemaining -= bytesRead;
+    }
+
+    totalBytesRead += length;
+    return value;
+  }
+
+
+
+  /**
+   * Retrieves an input stream that may be used to read the value of an element
+   * whose header has just been read with the {@link #readElementHeader}
+   * method, without holding the entire value in memory.  The returned stream
+   * will not allow reading beyond the end of the value, and it must be closed
+   * (which will skip over any part of the value that has not been read) before
+   * attempting to read anything else from this reader.  Closing the returned
+   * stream will not close this reader.
+   *
+   * @param  length  The number of bytes in the value, as returned by the
+   *                 {@code readElementHeader} method.
+   *
+   * @return  An input stream that may be used to read the value.
+   */
+  @NotNull()
+  public InputStream getElementValueInputStream(final int length)
+  {
+    return new ElementValueInputStream(length);
+  }
+
+
+
   /**
    * Reads an ASN.1 octet string element from the input stream and returns the
    * value as a {@code String} using the UTF-8 encoding.
@@ -1395,4 +1489,114 @@ public final class ASN1StreamReader
     saslInputStream = new ByteArrayInputStream(unwrappedData, 0,
          unwrappedData.length);
   }
+
+
+
+  /**
+   * This class provides an input stream that may be used to read the value of
+   * a single element from this reader.
+   */
+  private final class ElementValueInputStream
+          extends InputStream
+  {
+    // The number of bytes of the value that have not yet been read.
+    private int bytesRemaining;
+
+
+
+    /**
+     * Creates a new element value input stream.
+     *
+     * @param  length  The number of bytes in the value.
+     */
+    private ElementValueInputStream(final int length)
+    {
+      bytesRemaining = length;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public int read()
+           throws IOException
+    {
+      if (bytesRemaining <= 0)
+      {
+        return -1;
+      }
+
+      final int b = ASN1StreamReader.this.read(false);
+      if (b < 0)
+      {
+        throw new IOException(ERR_READ_END_BEFORE_VALUE_END.get());
+      }
+
+      bytesRemaining--;
+      totalBytesRead++;
+      return b;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public int read(@NotNull final byte[] b, final int off, final int len)
+           throws IOException
+    {
+      if (len == 0)
+      {
+        return 0;
+      }
+
+      if (bytesRemaining <= 0)
+      {
+        return -1;
+      }
+
+      final int bytesRead = ASN1StreamReader.this.read(b, off,
+           Math.min(len, bytesRemaining));
+      if (bytesRead < 0)
+      {
+        throw new IOException(ERR_READ_END_BEFORE_VALUE_END.get());
+      }
+
+      bytesRemaining -= bytesRead;
+      totalBytesRead += bytesRead;
+      return bytesRead;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public int available()
+    {
+      return 0;
+    }
+
+
+
+    /**
+     * Skips over any part of the value that has not yet been read.  The
+     * underlying reader will not be closed.
+     *
+     * @throws  IOException  If a problem occurs while skipping the remainder
+     *                       of the value.
+     */
+    @Override()
+    public void close()
+           throws IOException
+    {
+      final int remaining = bytesRemaining;
+      bytesRemaining = 0;
+      ASN1StreamReader.this.skip(remaining);
+    }
+  }
 }
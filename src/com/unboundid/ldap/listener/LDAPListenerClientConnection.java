@@ -49,6 +49,7 @@ import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 
 import com.unboundid.asn1.ASN1Buffer;
+import com.unboundid.asn1.ASN1BufferPool;
 import com.unboundid.asn1.ASN1StreamReader;
 import com.unboundid.ldap.protocol.AddResponseProtocolOp;
 import com.unboundid.ldap.protocol.BindResponseProtocolOp;
@@ -104,8 +105,18 @@ public final class LDAPListenerClientConnection
 
 
 
-  // The buffer used to hold responses to be sent to the client.
-  @NotNull private final ASN1Buffer asn1Buffer;
+  /**
+   * A bounded pool of ASN.1 buffers used to encode responses to be sent to
+   * clients.  It is shared by all client connections so that a connection does
+   * not retain a buffer large enough to hold the largest response it has ever
+   * sent.
+   */
+  @NotNull private static final ASN1BufferPool ASN1_BUFFERS =
+       new ASN1BufferPool(
+            Math.max(16, (4 * Runtime.getRuntime().availableProcessors())),
+            1_048_576);
+
+
 
   // The ASN.1 stream reader used to read requests from the client.
   @NotNull private volatile ASN1StreamReader asn1Reader;
@@ -188,7 +199,6 @@ public final class LDAPListenerClientConnection
     this.socket           = socket;
     this.exceptionHandler = exceptionHandler;
 
-    asn1Buffer           = new ASN1Buffer();
     suppressNextResponse = new AtomicBoolean(false);
 
     intermediateResponseTransformers = new CopyOnWriteArrayList<>();
@@ -709,8 +719,7 @@ public final class LDAPListenerClientConnection
       return;
     }
 
-    asn1Buffer.clear();
-
+    final ASN1Buffer asn1Buffer = ASN1_BUFFERS.get();
     try
     {
       message.writeTo(asn1Buffer);
@@ -718,6 +727,7 @@ public final class LDAPListenerClientConnection
     catch (final LDAPRuntimeException lre)
     {
       Debug.debugException(lre);
+      ASN1_BUFFERS.release(asn1Buffer);
       lre.throwLDAPException();
     }
 
@@ -736,10 +746,7 @@ public final class LDAPListenerClientConnection
     }
     finally
     {
-      if (asn1Buffer.zeroBufferOnClear())
-      {
-        asn1Buffer.clear();
-      }
+      ASN1_BUFFERS.release(asn1Buffer);
     }
   }
 
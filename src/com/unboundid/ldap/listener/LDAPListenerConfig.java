@@ -95,6 +95,9 @@ public final class LDAPListenerConfig
   // listener.
   private boolean useTCPNoDelay;
 
+  // Indicates whether to use virtual threads for client connections.
+  private boolean useVirtualThreads;
+
   // The address on which to listen for client connections.
   @Nullable private InetAddress listenAddress;
 
@@ -155,6 +158,7 @@ public final class LDAPListenerConfig
     useLinger                = true;
     useReuseAddress          = true;
     useTCPNoDelay            = true;
+    useVirtualThreads        = false;
     lingerTimeout            = 5;
     listenAddress            = null;
     maxConnections           = 0;
@@ -698,6 +702,44 @@ public final class LDAPListenerConfig
 
 
 
+  /**
+   * Indicates whether the listener should use virtual threads rather than
+   * platform threads to process client connections.  This will only have an
+   * effect on JVMs that support virtual threads (Java 21 and later).  On other
+   * JVMs, platform threads will be used regardless of this setting.
+   *
+   * @return  {@code true} if the listener should use virtual threads to
+   *          process client connections when possible, or {@code false} if it
+   *          should use platform threads.
+   */
+  public boolean useVirtualThreads()
+  {
+    return useVirtualThreads;
+  }
+
+
+
+  /**
+   * Specifies whether the listener should use virtual threads rather than
+   * platform threads to process client connections.  This will only have an
+   * effect on JVMs that support virtual threads (Java 21 and later).
+   * <BR><BR>
+   * Note that if virtual threads are used, then the
+   * {@link LDAPListenerClientConnection} object for each client connection
+   * will not itself be started as a thread, but will instead be run by a
+   * virtual thread with the same name.
+   *
+   * @param  useVirtualThreads  Indicates whether the listener should use
+   *                            virtual threads to process client connections
+   *                            when possible.
+   */
+  public void setUseVirtualThreads(final boolean useVirtualThreads)
+  {
+    this.useVirtualThreads = useVirtualThreads;
+  }
+
+
+
 /**
    * Creates a copy of this configuration that may be altered without impacting
    * this configuration, and which will not be altered by changes to this
@@ -719,6 +761,7 @@ public final class LDAPListenerConfig
     copy.useLinger                = useLinger;
     copy.useReuseAddress          = useReuseAddress;
     copy.useTCPNoDelay            = useTCPNoDelay;
+    copy.useVirtualThreads        = useVirtualThreads;
     copy.listenAddress            = listenAddress;
     copy.lingerTimeout            = lingerTimeout;
     copy.maxConnections           = maxConnections;
@@ -814,6 +857,8 @@ public final class LDAPListenerConfig
     buffer.append(requestClientCertificate);
     buffer.append(", requireClientCertificate=");
     buffer.append(requireClientCertificate);
+    buffer.append(", useVirtualThreads=");
+    buffer.append(useVirtualThreads);
     buffer.append(')');
   }
 }
@@ -49,14 +49,19 @@ import java.util.List;
 
 import com.unboundid.asn1.ASN1Buffer;
 import com.unboundid.asn1.ASN1BufferSequence;
+import com.unboundid.asn1.ASN1Constants;
 import com.unboundid.asn1.ASN1Element;
 import com.unboundid.asn1.ASN1Integer;
+import com.unboundid.asn1.ASN1OctetString;
 import com.unboundid.asn1.ASN1Sequence;
 import com.unboundid.asn1.ASN1StreamReader;
 import com.unboundid.asn1.ASN1StreamReaderSequence;
+import com.unboundid.ldap.sdk.AddRequest;
 import com.unboundid.ldap.sdk.Control;
 import com.unboundid.ldap.sdk.InternalSDKHelper;
 import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LargeAttributeValueSink;
+import com.unboundid.ldap.sdk.ModifyRequest;
 import com.unboundid.ldap.sdk.ResultCode;
 import com.unboundid.ldap.sdk.schema.Schema;
 import com.unboundid.util.Debug;
@@ -927,7 +932,36 @@ public final class LDAPMessage
    */
   public void writeTo(@NotNull final ASN1Buffer buffer)
   {
-    final ASN1BufferSequence messageSequence = buffer.beginSequence();
+    // If we can determine the size of the encoded protocol op without encoding
+    // it, then write the message length up front so that the message can be
+    // encoded in a single pass.  This is most beneficial for the operation
+    // types that may be large (like search result entries and add and modify
+    // requests).
+    final ASN1BufferSequence messageSequence;
+    final int protocolOpSize = getEncodedProtocolOpSize(protocolOp);
+    if (protocolOpSize < 0)
+    {
+      messageSequence = buffer.beginSequence();
+    }
+    else
+    {
+      int messageLength =
+           ASN1Buffer.getEncodedIntegerSize(messageID) + protocolOpSize;
+      if (! controls.isEmpty())
+      {
+        int controlsLength = 0;
+        for (final Control c : controls)
+        {
+          controlsLength += getEncodedControlSize(c);
+        }
+
+        messageLength += ASN1Buffer.getEncodedElementSize(controlsLength);
+      }
+
+      messageSequence = buffer.beginSequence(
+           ASN1Constants.UNIVERSAL_SEQUENCE_TYPE, messageLength);
+    }
+
     buffer.addInteger(messageID);
     protocolOp.writeTo(buffer);
 
@@ -946,6 +980,78 @@ public final class LDAPMessage
 
 
 
+  /**
+   * Retrieves the number of bytes that will be written when the provided
+   * protocol op is written to an ASN.1 buffer, if that can be determined
+   * without encoding it.
+   *
+   * @param  protocolOp  The protocol op for which to make the determination.
+   *
+   * @return  The number of bytes that will be written when the provided
+   *          protocol op is written to an ASN.1 buffer, or -1 if that cannot be
+   *          determined without encoding it.
+   */
+  private static int getEncodedProtocolOpSize(
+                          @NotNull final ProtocolOp protocolOp)
+  {
+    if (protocolOp instanceof SearchResultEntryProtocolOp)
+    {
+      return ((SearchResultEntryProtocolOp) protocolOp).getEncodedSize();
+    }
+    else if (protocolOp instanceof AddRequestProtocolOp)
+    {
+      return ((AddRequestProtocolOp) protocolOp).getEncodedSize();
+    }
+    else if (protocolOp instanceof ModifyRequestProtocolOp)
+    {
+      return ((ModifyRequestProtocolOp) protocolOp).getEncodedSize();
+    }
+    else if (protocolOp instanceof AddRequest)
+    {
+      return ((AddRequest) protocolOp).getEncodedProtocolOpSize();
+    }
+    else if (protocolOp instanceof ModifyRequest)
+    {
+      return ((ModifyRequest) protocolOp).getEncodedProtocolOpSize();
+    }
+    else
+    {
+      // This will return -1 if the protocol op was not created from a request
+      // template.
+      return InternalSDKHelper.getEncodedPreparedProtocolOpSize(protocolOp);
+    }
+  }
+
+
+
+  /**
+   * Retrieves the number of bytes that will be written when the provided
+   * control is written to an ASN.1 buffer.
+   *
+   * @param  control  The control for which to make the determination.
+   *
+   * @return  The number of bytes that will be written when the provided
+   *          control is written to an ASN.1 buffer.
+   */
+  private static int getEncodedControlSize(@NotNull final Control control)
+  {
+    int length = ASN1Buffer.getEncodedOctetStringSize(control.getOID());
+    if (control.isCritical())
+    {
+      length += 3;
+    }
+
+    final ASN1OctetString value = control.getValue();
+    if (value != null)
+    {
+      length += ASN1Buffer.getEncodedSize(value);
+    }
+
+    return ASN1Buffer.getEncodedElementSize(length);
+  }
+
+
+
   /**
    * Reads an LDAP message from the provided ASN.1 stream reader.
    *
@@ -1190,6 +1296,98 @@ public final class LDAPMessage
                                   final boolean ignoreSocketTimeout,
                                   @Nullable final Schema schema)
          throws LDAPException
+  {
+    return readLDAPResponseFrom(reader, ignoreSocketTimeout, schema, false);
+  }
+
+
+
+  /**
+   * Reads {@link LDAPResponse} object from the provided ASN.1 stream reader.
+   *
+   * @param  reader               The ASN.1 stream reader from which the LDAP
+   *                              message should be read.
+   * @param  ignoreSocketTimeout  Indicates whether to ignore socket timeout
+   *                              exceptions caught during processing.  This
+   *                              should be {@code true} when the associated
+   *                              connection is operating in asynchronous mode,
+   *                              and {@code false} when operating in
+   *                              synchronous mode.  In either case, exceptions
+   *                              will not be ignored for the first read, since
+   *                              that will be handled by the connection reader.
+   * @param  schema               The schema to use to select the appropriate
+   *                              matching rule for attributes included in the
+   *                              response.
+   * @param  lazyEntryDecoding    Indicates whether the attributes of a search
+   *                              result entry should only be decoded when they
+   *                              are first accessed.  If this is {@code true},
+   *                              then the encoded attributes will still be
+   *                              validated when the entry is read.
+   *
+   * @return  The decoded LDAP message, or {@code null} if the end of the input
+   *          stream has been reached.
+   *
+   * @throws  LDAPException  If an error occurs while attempting to read or
+   *                         decode the LDAP message.
+   */
+  @Nullable()
+  public static LDAPResponse readLDAPResponseFrom(
+                                  @NotNull final ASN1StreamReader reader,
+                                  final boolean ignoreSocketTimeout,
+                                  @Nullable final Schema schema,
+                                  final boolean lazyEntryDecoding)
+         throws LDAPException
+  {
+    return readLDAPResponseFrom(reader, ignoreSocketTimeout, schema,
+         lazyEntryDecoding, null, 0);
+  }
+
+
+
+  /**
+   * Reads {@link LDAPResponse} object from the provided ASN.1 stream reader.
+   *
+   * @param  reader               The ASN.1 stream reader from which the LDAP
+   *                              message should be read.
+   * @param  ignoreSocketTimeout  Indicates whether to ignore socket timeout
+   *                              exceptions caught during processing.  This
+   *                              should be {@code true} when the associated
+   *                              connection is operating in asynchronous mode,
+   *                              and {@code false} when operating in
+   *                              synchronous mode.  In either case, exceptions
+   *                              will not be ignored for the first read, since
+   *                              that will be handled by the connection reader.
+   * @param  schema               The schema to use to select the appropriate
+   *                              matching rule for attributes included in the
+   *                              response.
+   * @param  lazyEntryDecoding    Indicates whether the attributes of a search
+   *                              result entry should only be decoded when they
+   *                              are first accessed.  This will be ignored if
+   *                              a large value sink is provided.
+   * @param  largeValueSink       The sink to which search result entry
+   *                              attribute values larger than the threshold
+   *                              should be written rather than being held in
+   *                              memory.  It may be {@code null} if all values
+   *                              should be held in memory.
+   * @param  thresholdBytes       The maximum size in bytes for an attribute
+   *                              value that will be held in memory when a
+   *                              large value sink is provided.
+   *
+   * @return  The decoded LDAP message, or {@code null} if the end of the input
+   *          stream has been reached.
+   *
+   * @throws  LDAPException  If an error occurs while attempting to read or
+   *                         decode the LDAP message.
+   */
+  @Nullable()
+  public static LDAPResponse readLDAPResponseFrom(
+                      @NotNull final ASN1StreamReader reader,
+                      final boolean ignoreSocketTimeout,
+                      @Nullable final Schema schema,
+                      final boolean lazyEntryDecoding,
+                      @Nullable final LargeAttributeValueSink largeValueSink,
+                      final int thresholdBytes)
+         throws LDAPException
   {
     final ASN1StreamReaderSequence messageSequence;
     try
@@ -1255,7 +1453,8 @@ public final class LDAPMessage
 
         case PROTOCOL_OP_TYPE_SEARCH_RESULT_ENTRY:
           return InternalSDKHelper.readSearchResultEntryFrom(messageID,
-                      messageSequence, reader, schema);
+                      messageSequence, reader, schema, lazyEntryDecoding,
+                      largeValueSink, thresholdBytes);
 
         case PROTOCOL_OP_TYPE_SEARCH_RESULT_REFERENCE:
           return InternalSDKHelper.readSearchResultReferenceFrom(messageID,
@@ -44,6 +44,7 @@ import java.util.List;
 
 import com.unboundid.asn1.ASN1Buffer;
 import com.unboundid.asn1.ASN1BufferSequence;
+import com.unboundid.asn1.ASN1Constants;
 import com.unboundid.asn1.ASN1Element;
 import com.unboundid.asn1.ASN1OctetString;
 import com.unboundid.asn1.ASN1Sequence;
@@ -277,11 +278,15 @@ public final class ModifyRequestProtocolOp
   @Override()
   public void writeTo(@NotNull final ASN1Buffer writer)
   {
-    final ASN1BufferSequence opSequence =
-         writer.beginSequence(LDAPMessage.PROTOCOL_OP_TYPE_MODIFY_REQUEST);
+    final int modificationsLength = getEncodedModificationsLength();
+    final ASN1BufferSequence opSequence = writer.beginSequence(
+         LDAPMessage.PROTOCOL_OP_TYPE_MODIFY_REQUEST,
+         ASN1Buffer.getEncodedOctetStringSize(dn) +
+              ASN1Buffer.getEncodedElementSize(modificationsLength));
     writer.addOctetString(dn);
 
-    final ASN1BufferSequence modSequence = writer.beginSequence();
+    final ASN1BufferSequence modSequence = writer.beginSequence(
+         ASN1Constants.UNIVERSAL_SEQUENCE_TYPE, modificationsLength);
     for (final Modification m : modifications)
     {
       m.writeTo(writer);
@@ -292,6 +297,43 @@ public final class ModifyRequestProtocolOp
 
 
 
+  /**
+   * Retrieves the number of bytes that will be written when this modify request
+   * protocol op is written to an ASN.1 buffer.
+   *
+   * @return  The number of bytes that will be written when this modify request
+   *          protocol op is written to an ASN.1 buffer.
+   */
+  public int getEncodedSize()
+  {
+    final int modificationsLength = getEncodedModificationsLength();
+    return ASN1Buffer.getEncodedElementSize(
+         ASN1Buffer.getEncodedOctetStringSize(dn) +
+              ASN1Buffer.getEncodedElementSize(modificationsLength));
+  }
+
+
+
+  /**
+   * Retrieves the number of bytes in the encoded value of the sequence that
+   * holds the modifications for this modify request protocol op.
+   *
+   * @return  The number of bytes in the encoded value of the sequence that
+   *          holds the modifications for this modify request protocol op.
+   */
+  private int getEncodedModificationsLength()
+  {
+    int length = 0;
+    for (final Modification m : modifications)
+    {
+      length += m.getEncodedSize();
+    }
+
+    return length;
+  }
+
+
+
   /**
    * Creates a modify request from this protocol op.
    *
@@ -44,6 +44,7 @@ import java.util.List;
 
 import com.unboundid.asn1.ASN1Buffer;
 import com.unboundid.asn1.ASN1BufferSequence;
+import com.unboundid.asn1.ASN1Constants;
 import com.unboundid.asn1.ASN1Element;
 import com.unboundid.asn1.ASN1OctetString;
 import com.unboundid.asn1.ASN1Sequence;
@@ -280,11 +281,15 @@ public final class SearchResultEntryProtocolOp
   @Override()
   public void writeTo(@NotNull final ASN1Buffer buffer)
   {
-    final ASN1BufferSequence opSequence =
-         buffer.beginSequence(LDAPMessage.PROTOCOL_OP_TYPE_SEARCH_RESULT_ENTRY);
+    final int attributesLength = getEncodedAttributesLength();
+    final ASN1BufferSequence opSequence = buffer.beginSequence(
+         LDAPMessage.PROTOCOL_OP_TYPE_SEARCH_RESULT_ENTRY,
+         ASN1Buffer.getEncodedOctetStringSize(dn) +
+              ASN1Buffer.getEncodedElementSize(attributesLength));
     buffer.addOctetString(dn);
 
-    final ASN1BufferSequence attrSequence = buffer.beginSequence();
+    final ASN1BufferSequence attrSequence = buffer.beginSequence(
+         ASN1Constants.UNIVERSAL_SEQUENCE_TYPE, attributesLength);
     for (final Attribute a : attributes)
     {
       a.writeTo(buffer);
@@ -295,6 +300,42 @@ public final class SearchResultEntryProtocolOp
 
 
 
+  /**
+   * Retrieves the number of bytes that will be written when this search result
+   * entry protocol op is written to an ASN.1 buffer.
+   *
+   * @return  The number of bytes that will be written when this search result
+   *          entry protocol op is written to an ASN.1 buffer.
+   */
+  public int getEncodedSize()
+  {
+    return ASN1Buffer.getEncodedElementSize(
+         ASN1Buffer.getEncodedOctetStringSize(dn) +
+              ASN1Buffer.getEncodedElementSize(getEncodedAttributesLength()));
+  }
+
+
+
+  /**
+   * Retrieves the number of bytes in the encoded value of the sequence that
+   * holds the attributes for this search result entry protocol op.
+   *
+   * @return  The number of bytes in the encoded value of the sequence that
+   *          holds the attributes for this search result entry protocol op.
+   */
+  private int getEncodedAttributesLength()
+  {
+    int length = 0;
+    for (final Attribute a : attributes)
+    {
+      length += a.getEncodedSize();
+    }
+
+    return length;
+  }
+
+
+
   /**
    * Creates a search result entry from this protocol op.
    *
@@ -168,12 +168,33 @@ public abstract class AbstractConnectionPool
     catch (final LDAPException le)
     {
       Debug.debugException(le);
-      releaseDefunctConnection(connection);
+      releaseDefunctConnectionAfterException(connection, exception);
     }
   }
 
 
 
+  /**
+   * Releases the provided connection as defunct after the health check has
+   * determined that it is no longer valid because of an exception caught while
+   * processing an operation on it.  By default, this is the same as calling
+   * {@link #releaseDefunctConnection(LDAPConnection)}, but pools whose
+   * connections may be shared by multiple operations can use the exception to
+   * decide how to deal with the connection.
+   *
+   * @param  connection  The defunct connection being released.
+   * @param  exception   The exception caught while processing an operation on
+   *                     the connection.
+   */
+  void releaseDefunctConnectionAfterException(
+            @NotNull final LDAPConnection connection,
+            @NotNull final LDAPException exception)
+  {
+    releaseDefunctConnection(connection);
+  }
+
+
+
   /**
    * Releases the provided connection as defunct and creates a new connection to
    * replace it, if possible, optionally connected to a different directory
@@ -459,6 +480,28 @@ public abstract class AbstractConnectionPool
 
 
 
+  /**
+   * Retrieves a connection that may be used to process a bind operation
+   * requested through the {@link #bind(BindRequest)} method.  By default, this
+   * is the same as calling {@link #getConnection()}, but connection pools that
+   * may share a connection among multiple threads can override it to provide a
+   * connection that will not be used by any other thread, since binding on a
+   * shared connection would change the authorization identity for all of the
+   * operations processed on it.
+   *
+   * @return  A connection that may be used to process a bind operation.
+   *
+   * @throws  LDAPException  If it is not possible to obtain a connection.
+   */
+  @NotNull()
+  LDAPConnection getConnectionForBind()
+         throws LDAPException
+  {
+    return getConnection();
+  }
+
+
+
   /**
    * Retrieves the directory server root DSE using a connection from this
    * connection pool.
@@ -899,7 +942,7 @@ public abstract class AbstractConnectionPool
   public final BindResult bind(@NotNull final BindRequest bindRequest)
          throws LDAPException
   {
-    final LDAPConnection conn = getConnection();
+    final LDAPConnection conn = getConnectionForBind();
 
     try
     {
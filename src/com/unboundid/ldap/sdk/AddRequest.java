@@ -43,13 +43,13 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Timer;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import com.unboundid.asn1.ASN1Buffer;
 import com.unboundid.asn1.ASN1BufferSequence;
+import com.unboundid.asn1.ASN1Constants;
 import com.unboundid.asn1.ASN1Element;
 import com.unboundid.asn1.ASN1OctetString;
 import com.unboundid.asn1.ASN1Sequence;
@@ -405,6 +405,7 @@ public final class AddRequest
   {
     Validator.ensureNotNull(dn);
 
+    clearPreparedProtocolOp();
     this.dn = dn;
   }
 
@@ -419,6 +420,7 @@ public final class AddRequest
   {
     Validator.ensureNotNull(dn);
 
+    clearPreparedProtocolOp();
     this.dn = dn.toString();
   }
 
@@ -578,6 +580,7 @@ public final class AddRequest
   {
     Validator.ensureNotNull(attributes);
 
+    clearPreparedProtocolOp();
     this.attributes.clear();
     this.attributes.addAll(Arrays.asList(attributes));
   }
@@ -594,6 +597,7 @@ public final class AddRequest
   {
     Validator.ensureNotNull(attributes);
 
+    clearPreparedProtocolOp();
     this.attributes.clear();
     this.attributes.addAll(attributes);
   }
@@ -610,6 +614,7 @@ public final class AddRequest
   {
     Validator.ensureNotNull(attribute);
 
+    clearPreparedProtocolOp();
     for (int i=0 ; i < attributes.size(); i++)
     {
       final Attribute a = attributes.get(i);
@@ -707,6 +712,7 @@ public final class AddRequest
   {
     Validator.ensureNotNull(attributeName);
 
+    clearPreparedProtocolOp();
     final Iterator<Attribute> iterator = attributes.iterator();
     while (iterator.hasNext())
     {
@@ -740,6 +746,7 @@ public final class AddRequest
   {
     Validator.ensureNotNull(name, value);
 
+    clearPreparedProtocolOp();
     int pos = -1;
     for (int i=0; i < attributes.size(); i++)
     {
@@ -796,6 +803,7 @@ public final class AddRequest
   {
     Validator.ensureNotNull(name, value);
 
+    clearPreparedProtocolOp();
     int pos = -1;
     for (int i=0; i < attributes.size(); i++)
     {
@@ -846,6 +854,7 @@ public final class AddRequest
   {
     Validator.ensureNotNull(attribute);
 
+    clearPreparedProtocolOp();
     for (int i=0; i < attributes.size(); i++)
     {
       if (attributes.get(i).getName().equalsIgnoreCase(attribute.getName()))
@@ -874,6 +883,7 @@ public final class AddRequest
   {
     Validator.ensureNotNull(name, value);
 
+    clearPreparedProtocolOp();
     for (int i=0; i < attributes.size(); i++)
     {
       if (attributes.get(i).getName().equalsIgnoreCase(name))
@@ -902,6 +912,7 @@ public final class AddRequest
   {
     Validator.ensureNotNull(name, value);
 
+    clearPreparedProtocolOp();
     for (int i=0; i < attributes.size(); i++)
     {
       if (attributes.get(i).getName().equalsIgnoreCase(name))
@@ -930,6 +941,7 @@ public final class AddRequest
   {
     Validator.ensureNotNull(name, values);
 
+    clearPreparedProtocolOp();
     for (int i=0; i < attributes.size(); i++)
     {
       if (attributes.get(i).getName().equalsIgnoreCase(name))
@@ -958,6 +970,7 @@ public final class AddRequest
   {
     Validator.ensureNotNull(name, values);
 
+    clearPreparedProtocolOp();
     for (int i=0; i < attributes.size(); i++)
     {
       if (attributes.get(i).getName().equalsIgnoreCase(name))
@@ -989,11 +1002,15 @@ public final class AddRequest
   @Override()
   public void writeTo(@NotNull final ASN1Buffer buffer)
   {
-    final ASN1BufferSequence requestSequence =
-         buffer.beginSequence(LDAPMessage.PROTOCOL_OP_TYPE_ADD_REQUEST);
+    final int attributesLength = getEncodedAttributesLength();
+    final ASN1BufferSequence requestSequence = buffer.beginSequence(
+         LDAPMessage.PROTOCOL_OP_TYPE_ADD_REQUEST,
+         ASN1Buffer.getEncodedOctetStringSize(dn) +
+              ASN1Buffer.getEncodedElementSize(attributesLength));
     buffer.addOctetString(dn);
 
-    final ASN1BufferSequence attrSequence = buffer.beginSequence();
+    final ASN1BufferSequence attrSequence = buffer.beginSequence(
+         ASN1Constants.UNIVERSAL_SEQUENCE_TYPE, attributesLength);
     for (final Attribute a : attributes)
     {
       a.writeTo(buffer);
@@ -1005,6 +1022,44 @@ public final class AddRequest
 
 
 
+  /**
+   * Retrieves the number of bytes that will be written when the protocol op
+   * for this add request is written to an ASN.1 buffer.  This is intended for
+   * internal use only.
+   *
+   * @return  The number of bytes that will be written when the protocol op for
+   *          this add request is written to an ASN.1 buffer.
+   */
+  @InternalUseOnly()
+  public int getEncodedProtocolOpSize()
+  {
+    return ASN1Buffer.getEncodedElementSize(
+         ASN1Buffer.getEncodedOctetStringSize(dn) +
+              ASN1Buffer.getEncodedElementSize(getEncodedAttributesLength()));
+  }
+
+
+
+  /**
+   * Retrieves the number of bytes in the encoded value of the sequence that
+   * holds the attributes for this add request.
+   *
+   * @return  The number of bytes in the encoded value of the sequence that
+   *          holds the attributes for this add request.
+   */
+  private int getEncodedAttributesLength()
+  {
+    int length = 0;
+    for (final Attribute a : attributes)
+    {
+      length += a.getEncodedSize();
+    }
+
+    return length;
+  }
+
+
+
   /**
    * Encodes the add request protocol op to an ASN.1 element.
    *
@@ -1127,7 +1182,8 @@ public final class AddRequest
     // Create the LDAP message.
     messageID = connection.nextMessageID();
     final LDAPMessage message =
-         new LDAPMessage(messageID,  this, getControls());
+         new LDAPMessage(messageID, getProtocolOpToSend(this),
+              getControls());
 
 
     // If the provided async result listener is {@code null}, then we'll use
@@ -1149,11 +1205,10 @@ public final class AddRequest
 
       if (timeout > 0L)
       {
-        final Timer timer = connection.getTimer();
         final AsyncTimeoutTimerTask timerTask =
              new AsyncTimeoutTimerTask(helper);
-        timer.schedule(timerTask, timeout);
-        asyncRequestID.setTimerTask(timerTask);
+        asyncRequestID.setTimeout(
+             HashedWheelTimer.getInstance().newTimeout(timerTask, timeout));
       }
     }
 
@@ -1213,7 +1268,8 @@ public final class AddRequest
     // Create the LDAP message.
     messageID = connection.nextMessageID();
     final LDAPMessage message =
-         new LDAPMessage(messageID,  this, getControls());
+         new LDAPMessage(messageID, getProtocolOpToSend(this),
+              getControls());
 
 
     // Send the request to the server.
@@ -1503,6 +1559,7 @@ public final class AddRequest
     r.setIntermediateResponseListener(getIntermediateResponseListener());
     r.setReferralDepth(getReferralDepth());
     r.setReferralConnector(getReferralConnectorInternal());
+    r.setPreparedProtocolOp(getPreparedProtocolOp());
 
     return r;
   }
@@ -1596,6 +1653,8 @@ public final class AddRequest
     }
     buffer.append('}');
 
+    appendTemplateValuesTo(buffer);
+
     final Control[] controls = getControls();
     if (controls.length > 0)
     {
@@ -0,0 +1,868 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+import com.unboundid.util.Validator;
+
+
+
+/**
+ * This class provides a bounded queue of available connections for use in an
+ * {@link LDAPConnectionPool} that favors reusing the most recently released
+ * connections, and in particular the connection most recently released by the
+ * thread requesting a connection.  This allows a pool that is larger than
+ * needed for the current load to keep working with a small set of connections
+ * whose state (for example, TLS session state and CPU caches) is likely to be
+ * warm, and it avoids the locks used by a {@code LinkedBlockingQueue} when
+ * connections are checked out and released by a large number of threads.
+ * <BR><BR>
+ * Available connections are held in a lock-free last-in, first-out stack.
+ * When a thread releases a connection, the entry for that connection is also
+ * remembered for that thread, and the next time that thread requests a
+ * connection it will first try to claim that same entry before looking at the
+ * stack.  An entry claimed in this way is left in the stack and is discarded
+ * when it is later encountered by another thread (or when enough of these
+ * entries accumulate that they are purged).  Threads that need to wait for a
+ * connection to become available are placed in a wait queue and are woken up
+ * one at a time as connections are released.
+ * <BR><BR>
+ * This class implements the methods of the {@code BlockingQueue} interface
+ * that are used by the connection pool.  Its iterator reflects the
+ * connections available at the time it was created and does not support
+ * removal.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class AffinityConnectionQueue
+      extends AbstractQueue<LDAPConnection>
+      implements BlockingQueue<LDAPConnection>
+{
+  /**
+   * The length of time in nanoseconds that a thread will sleep between
+   * attempts to add a connection to a full queue in a blocking call.
+   */
+  private static final long FULL_QUEUE_RETRY_NANOS =
+       TimeUnit.MILLISECONDS.toNanos(1L);
+
+
+
+  // Indicates whether a thread is currently purging stale entries.
+  @NotNull private final AtomicBoolean purging;
+
+  // The number of connections that are currently available.
+  @NotNull private final AtomicInteger count;
+
+  // The number of entries in the stack that have already been claimed.
+  @NotNull private final AtomicInteger staleEntries;
+
+  // The entry at the top of the stack.
+  @NotNull private final AtomicReference<Entry> head;
+
+  // The threads that are waiting for a connection to become available.
+  @NotNull private final ConcurrentLinkedQueue<Thread> waiters;
+
+  // The maximum number of connections that may be held in this queue.
+  private final int capacity;
+
+  // The entry for the connection most recently released by each thread.
+  @NotNull private final ThreadLocal<Entry> lastReleased;
+
+
+
+  /**
+   * Creates a new, empty affinity connection queue with the specified
+   * capacity.
+   *
+   * @param  capacity  The maximum number of connections that may be held in
+   *                   the queue.  It must be greater than zero.
+   */
+  AffinityConnectionQueue(final int capacity)
+  {
+    Validator.ensureTrue(capacity > 0,
+         "AffinityConnectionQueue.capacity must be greater than zero.");
+
+    this.capacity = capacity;
+
+    purging = new AtomicBoolean(false);
+    count = new AtomicInteger(0);
+    staleEntries = new AtomicInteger(0);
+    head = new AtomicReference<>();
+    waiters = new ConcurrentLinkedQueue<>();
+    lastReleased = new ThreadLocal<>();
+  }
+
+
+
+  /**
+   * Adds the provided connection to this queue if there is room for it.  The
+   * connection will be remembered as the one most recently released by the
+   * current thread.
+   *
+   * @param  connection  The connection to add.  It must not be {@code null}.
+   *
+   * @return  {@code true} if the connection was added, or {@code false} if the
+   *          queue is already full.
+   */
+  @Override()
+  public boolean offer(@NotNull final LDAPConnection connection)
+  {
+    return offer(connection, true);
+  }
+
+
+
+  /**
+   * Adds the provided connection to this queue if there is room for it,
+   * without remembering it as the connection most recently released by the
+   * current thread.  This is intended for use when returning a connection that
+   * was only examined while scanning the available connections.
+   *
+   * @param  connection  The connection to add.  It must not be {@code null}.
+   *
+   * @return  {@code true} if the connection was added, or {@code false} if the
+   *          queue is already full.
+   */
+  boolean offerWithoutAffinity(@NotNull final LDAPConnection connection)
+  {
+    return offer(connection, false);
+  }
+
+
+
+  /**
+   * Adds the provided connection to this queue if there is room for it.
+   *
+   * @param  connection      The connection to add.  It must not be
+   *                         {@code null}.
+   * @param  recordAffinity  Indicates whether the connection should be
+   *                         remembered as the one most recently released by
+   *                         the current thread.
+   *
+   * @return  {@code true} if the connection was added, or {@code false} if the
+   *          queue is already full.
+   */
+  private boolean offer(@NotNull final LDAPConnection connection,
+                        final boolean recordAffinity)
+  {
+    Validator.ensureNotNull(connection);
+
+    while (true)
+    {
+      final int c = count.get();
+      if (c >= capacity)
+      {
+        return false;
+      }
+
+      if (count.compareAndSet(c, c+1))
+      {
+        break;
+      }
+    }
+
+    final Entry entry = new Entry(connection);
+    push(entry);
+    if (recordAffinity)
+    {
+      lastReleased.set(entry);
+    }
+
+    signalWaiter();
+
+    if ((staleEntries.get() > capacity) && purging.compareAndSet(false, true))
+    {
+      try
+      {
+        purgeStaleEntries();
+      }
+      finally
+      {
+        purging.set(false);
+      }
+    }
+
+    return true;
+  }
+
+
+
+  /**
+   * Adds the provided connection to this queue, waiting up to the specified
+   * length of time for room to become available if the queue is full.
+   *
+   * @param  connection  The connection to add.  It must not be {@code null}.
+   * @param  timeout     The maximum length of time to wait.
+   * @param  unit        The time unit for the timeout.
+   *
+   * @return  {@code true} if the connection was added, or {@code false} if the
+   *          queue was still full when the timeout elapsed.
+   *
+   * @throws  InterruptedException  If the thread is interrupted while waiting.
+   */
+  @Override()
+  public boolean offer(@NotNull final LDAPConnection connection,
+                       final long timeout, @NotNull final TimeUnit unit)
+         throws InterruptedException
+  {
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (! offer(connection))
+    {
+      final long remaining = deadline - System.nanoTime();
+      if (remaining <= 0L)
+      {
+        return false;
+      }
+
+      LockSupport.parkNanos(this, Math.min(remaining, FULL_QUEUE_RETRY_NANOS));
+      if (Thread.interrupted())
+      {
+        throw new InterruptedException();
+      }
+    }
+
+    return true;
+  }
+
+
+
+  /**
+   * Adds the provided connection to this queue, waiting for room to become
+   * available if the queue is full.
+   *
+   * @param  connection  The connection to add.  It must not be {@code null}.
+   *
+   * @throws  InterruptedException  If the thread is interrupted while waiting.
+   */
+  @Override()
+  public void put(@NotNull final LDAPConnection connection)
+         throws InterruptedException
+  {
+    while (! offer(connection))
+    {
+      LockSupport.parkNanos(this, FULL_QUEUE_RETRY_NANOS);
+      if (Thread.interrupted())
+      {
+        throw new InterruptedException();
+      }
+    }
+  }
+
+
+
+  /**
+   * Retrieves and removes a connection from this queue, preferring the
+   * connection most recently released by the current thread and then the
+   * connection most recently released by any thread.
+   *
+   * @return  The connection that was removed, or {@code null} if no connection
+   *          is available.
+   */
+  @Override()
+  @Nullable()
+  public LDAPConnection poll()
+  {
+    final Entry affineEntry = lastReleased.get();
+    if (affineEntry != null)
+    {
+      lastReleased.set(null);
+
+      final LDAPConnection connection = affineEntry.claim();
+      if (connection != null)
+      {
+        // The entry is still in the stack, so it will need to be discarded
+        // when it is popped.
+        staleEntries.incrementAndGet();
+        count.decrementAndGet();
+        return connection;
+      }
+    }
+
+    while (true)
+    {
+      final Entry entry = pop();
+      if (entry == null)
+      {
+        return null;
+      }
+
+      final LDAPConnection connection = entry.claim();
+      if (connection != null)
+      {
+        count.decrementAndGet();
+        return connection;
+      }
+
+      if (entry.discard())
+      {
+        staleEntries.decrementAndGet();
+      }
+    }
+  }
+
+
+
+  /**
+   * Retrieves and removes the connection that was released the longest time
+   * ago, regardless of which thread released it.  When used in conjunction
+   * with {@link #offerWithoutAffinity}, this allows the available connections
+   * to be scanned in the same rotating order as a FIFO queue, so that a scan
+   * can stop as soon as it encounters a connection that it has already
+   * examined.
+   *
+   * @return  The connection that was removed, or {@code null} if no connection
+   *          is available.
+   */
+  @Nullable()
+  LDAPConnection pollLeastRecentlyReleased()
+  {
+    while (true)
+    {
+      Entry oldest = null;
+      for (Entry e = head.get(); e != null; e = e.next)
+      {
+        if (! e.isClaimed())
+        {
+          oldest = e;
+        }
+      }
+
+      if (oldest == null)
+      {
+        return null;
+      }
+
+      final LDAPConnection connection = oldest.claim();
+      if (connection != null)
+      {
+        // The entry is still in the stack, so it will need to be discarded
+        // when it is popped.
+        staleEntries.incrementAndGet();
+        count.decrementAndGet();
+        return connection;
+      }
+    }
+  }
+
+
+
+  /**
+   * Retrieves and removes a connection from this queue, waiting up to the
+   * specified length of time for one to become available if necessary.
+   *
+   * @param  timeout  The maximum length of time to wait.
+   * @param  unit     The time unit for the timeout.
+   *
+   * @return  The connection that was removed, or {@code null} if no connection
+   *          became available before the timeout elapsed.
+   *
+   * @throws  InterruptedException  If the thread is interrupted while waiting.
+   */
+  @Override()
+  @Nullable()
+  public LDAPConnection poll(final long timeout, @NotNull final TimeUnit unit)
+         throws InterruptedException
+  {
+    return await(unit.toNanos(timeout), true);
+  }
+
+
+
+  /**
+   * Retrieves and removes a connection from this queue, waiting as long as
+   * necessary for one to become available.
+   *
+   * @return  The connection that was removed.
+   *
+   * @throws  InterruptedException  If the thread is interrupted while waiting.
+   */
+  @Override()
+  @NotNull()
+  public LDAPConnection take()
+         throws InterruptedException
+  {
+    return await(0L, false);
+  }
+
+
+
+  /**
+   * Retrieves and removes a connection from this queue, waiting for one to
+   * become available if necessary.
+   *
+   * @param  timeoutNanos  The maximum length of time in nanoseconds to wait.
+   *                       It will be ignored if {@code timed} is
+   *                       {@code false}.
+   * @param  timed         Indicates whether the wait is limited by the
+   *                       provided timeout.
+   *
+   * @return  The connection that was removed, or {@code null} if the wait was
+   *          timed and no connection became available before the timeout
+   *          elapsed.
+   *
+   * @throws  InterruptedException  If the thread is interrupted while waiting.
+   */
+  @Nullable()
+  private LDAPConnection await(final long timeoutNanos, final boolean timed)
+          throws InterruptedException
+  {
+    LDAPConnection connection = poll();
+    if ((connection != null) || (timed && (timeoutNanos <= 0L)))
+    {
+      return connection;
+    }
+
+    final long deadline = System.nanoTime() + timeoutNanos;
+    final Thread currentThread = Thread.currentThread();
+
+    // Register as a waiter before trying again so that a connection released
+    // between the two attempts will either be seen by the second attempt or
+    // will cause this thread to be unparked.
+    waiters.add(currentThread);
+    try
+    {
+      while (true)
+      {
+        connection = poll();
+        if (connection != null)
+        {
+          return connection;
+        }
+
+        if (timed)
+        {
+          final long remaining = deadline - System.nanoTime();
+          if (remaining <= 0L)
+          {
+            return null;
+          }
+
+          LockSupport.parkNanos(this, remaining);
+        }
+        else
+        {
+          LockSupport.park(this);
+        }
+
+        if (Thread.interrupted())
+        {
+          throw new InterruptedException();
+        }
+      }
+    }
+    finally
+    {
+      waiters.remove(currentThread);
+
+      // This thread may have been woken up for a connection that it did not
+      // take, or more connections may have been released while it was
+      // waking up, so pass the signal on to the next waiter if appropriate.
+      if (count.get() > 0)
+      {
+        signalWaiter();
+      }
+    }
+  }
+
+
+
+  /**
+   * Retrieves, but does not remove, the connection that would be returned by a
+   * call to {@link #poll()} from a thread that has not recently released a
+   * connection.
+   *
+   * @return  The connection at the top of the stack, or {@code null} if no
+   *          connection is available.
+   */
+  @Override()
+  @Nullable()
+  public LDAPConnection peek()
+  {
+    for (Entry e = head.get(); e != null; e = e.next)
+    {
+      final LDAPConnection connection = e.connection;
+      if (connection != null)
+      {
+        return connection;
+      }
+    }
+
+    return null;
+  }
+
+
+
+  /**
+   * Retrieves the number of connections that are currently available.
+   *
+   * @return  The number of connections that are currently available.
+   */
+  @Override()
+  public int size()
+  {
+    return Math.max(0, count.get());
+  }
+
+
+
+  /**
+   * Retrieves the number of additional connections that may be added to this
+   * queue.
+   *
+   * @return  The number of additional connections that may be added to this
+   *          queue.
+   */
+  @Override()
+  public int remainingCapacity()
+  {
+    return Math.max(0, capacity - count.get());
+  }
+
+
+
+  /**
+   * Removes all available connections from this queue and adds them to the
+   * provided collection.
+   *
+   * @param  c  The collection to which the connections should be added.
+   *
+   * @return  The number of connections that were transferred.
+   */
+  @Override()
+  public int drainTo(@NotNull final Collection<? super LDAPConnection> c)
+  {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+
+
+  /**
+   * Removes up to the specified number of available connections from this
+   * queue and adds them to the provided collection.
+   *
+   * @param  c            The collection to which the connections should be
+   *                      added.
+   * @param  maxElements  The maximum number of connections to transfer.
+   *
+   * @return  The number of connections that were transferred.
+   */
+  @Override()
+  public int drainTo(@NotNull final Collection<? super LDAPConnection> c,
+                     final int maxElements)
+  {
+    int transferred = 0;
+    while (transferred < maxElements)
+    {
+      final LDAPConnection connection = poll();
+      if (connection == null)
+      {
+        break;
+      }
+
+      c.add(connection);
+      transferred++;
+    }
+
+    return transferred;
+  }
+
+
+
+  /**
+   * Retrieves an iterator over the connections that are available at the time
+   * this method is called.  The iterator does not support removal.
+   *
+   * @return  An iterator over the connections that are currently available.
+   */
+  @Override()
+  @NotNull()
+  public Iterator<LDAPConnection> iterator()
+  {
+    final ArrayList<LDAPConnection> connections = new ArrayList<>(capacity);
+    for (Entry e = head.get(); e != null; e = e.next)
+    {
+      final LDAPConnection connection = e.connection;
+      if (connection != null)
+      {
+        connections.add(connection);
+      }
+    }
+
+    return Collections.unmodifiableList(connections).iterator();
+  }
+
+
+
+  /**
+   * Pushes the provided entry onto the top of the stack.
+   *
+   * @param  entry  The entry to push.
+   */
+  private void push(@NotNull final Entry entry)
+  {
+    while (true)
+    {
+      final Entry h = head.get();
+      entry.next = h;
+      if (head.compareAndSet(h, entry))
+      {
+        return;
+      }
+    }
+  }
+
+
+
+  /**
+   * Pops the entry from the top of the stack.  Because entries are never
+   * pushed more than once, this is not subject to the ABA problem.  If a stale
+   * entry is unlinked by {@link #purgeStaleEntries} while this method is
+   * running, then that entry may become the top of the stack again, but it will
+   * simply be discarded when it is popped.
+   *
+   * @return  The entry that was popped, or {@code null} if the stack is empty.
+   */
+  @Nullable()
+  private Entry pop()
+  {
+    while (true)
+    {
+      final Entry h = head.get();
+      if (h == null)
+      {
+        return null;
+      }
+
+      if (head.compareAndSet(h, h.next))
+      {
+        return h;
+      }
+    }
+  }
+
+
+
+  /**
+   * Wakes up the thread that has been waiting the longest for a connection, if
+   * any.
+   */
+  private void signalWaiter()
+  {
+    final Thread waiter = waiters.peek();
+    if (waiter != null)
+    {
+      LockSupport.unpark(waiter);
+    }
+  }
+
+
+
+  /**
+   * Unlinks entries that have already been claimed from the stack.  Only the
+   * next pointer of the entry before a stale entry is updated, and only to skip
+   * over that stale entry, so every entry that has not been claimed remains
+   * reachable from the top of the stack at all times, and threads that are
+   * concurrently pushing and popping entries are not affected.  The entry at
+   * the top of the stack is left in place, since it will be discarded when it
+   * is popped.  This must only be called by one thread at a time.
+   */
+  private void purgeStaleEntries()
+  {
+    Entry predecessor = head.get();
+    if (predecessor == null)
+    {
+      return;
+    }
+
+    Entry e = predecessor.next;
+    while (e != null)
+    {
+      final Entry next = e.next;
+      if (e.isClaimed() && predecessor.casNext(e, next))
+      {
+        if (e.discard())
+        {
+          staleEntries.decrementAndGet();
+        }
+      }
+      else
+      {
+        predecessor = e;
+      }
+
+      e = next;
+    }
+  }
+
+
+
+  /**
+   * This class provides a stack entry for an available connection.  The
+   * connection is cleared when the entry is claimed so that each entry can be
+   * claimed only once.
+   */
+  private static final class Entry
+  {
+    /**
+     * The updater used to atomically claim the connection.
+     */
+    @NotNull private static final
+         AtomicReferenceFieldUpdater<Entry,LDAPConnection> CONNECTION_UPDATER =
+              AtomicReferenceFieldUpdater.newUpdater(Entry.class,
+                   LDAPConnection.class, "connection");
+
+
+
+    /**
+     * The updater used to atomically unlink the next entry.
+     */
+    @NotNull private static final
+         AtomicReferenceFieldUpdater<Entry,Entry> NEXT_UPDATER =
+              AtomicReferenceFieldUpdater.newUpdater(Entry.class,
+                   Entry.class, "next");
+
+
+
+    /**
+     * The updater used to ensure that a stale entry is only counted as
+     * discarded once.
+     */
+    @NotNull private static final AtomicIntegerFieldUpdater<Entry>
+         DISCARDED_UPDATER =
+              AtomicIntegerFieldUpdater.newUpdater(Entry.class, "discarded");
+
+
+
+    // The connection for this entry, or null if it has been claimed.
+    @Nullable private volatile LDAPConnection connection;
+
+    // The next entry in the stack.
+    @Nullable private volatile Entry next;
+
+    // Indicates whether this entry has been discarded from the stack after it
+    // was claimed.  A stale entry that was unlinked may also be popped, so this
+    // ensures that it is only counted once.
+    private volatile int discarded;
+
+
+
+    /**
+     * Creates a new entry for the provided connection.
+     *
+     * @param  connection  The connection for this entry.
+     */
+    private Entry(@NotNull final LDAPConnection connection)
+    {
+      this.connection = connection;
+    }
+
+
+
+    /**
+     * Attempts to claim the connection for this entry.
+     *
+     * @return  The connection for this entry, or {@code null} if it had
+     *          already been claimed.
+     */
+    @Nullable()
+    private LDAPConnection claim()
+    {
+      return CONNECTION_UPDATER.getAndSet(this, null);
+    }
+
+
+
+    /**
+     * Indicates whether the connection for this entry has been claimed.
+     *
+     * @return  {@code true} if the connection for this entry has been claimed,
+     *          or {@code false} if not.
+     */
+    private boolean isClaimed()
+    {
+      return (connection == null);
+    }
+
+
+
+    /**
+     * Atomically updates the next entry if it is currently the expected entry.
+     *
+     * @param  expected  The expected next entry.
+     * @param  update    The new next entry.
+     *
+     * @return  {@code true} if the next entry was updated, or {@code false} if
+     *          it was not the expected entry.
+     */
+    private boolean casNext(@NotNull final Entry expected,
+                            @Nullable final Entry update)
+    {
+      return NEXT_UPDATER.compareAndSet(this, expected, update);
+    }
+
+
+
+    /**
+     * Marks this claimed entry as discarded from the stack.
+     *
+     * @return  {@code true} if this entry had not already been discarded, or
+     *          {@code false} if it had.
+     */
+    private boolean discard()
+    {
+      return DISCARDED_UPDATER.compareAndSet(this, 0, 1);
+    }
+  }
+}
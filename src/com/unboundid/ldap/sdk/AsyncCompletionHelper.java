@@ -0,0 +1,1054 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+import com.unboundid.ldap.sdk.extensions.StartTLSExtendedRequest;
+import com.unboundid.util.Debug;
+import com.unboundid.util.InternalUseOnly;
+import com.unboundid.util.LDAPSDKThreadFactory;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.PropertyManager;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+import static com.unboundid.ldap.sdk.LDAPMessages.*;
+
+
+
+/**
+ * This class provides support for processing operations with an API based on
+ * {@code CompletionStage} objects rather than async request IDs and result
+ * listeners.  Add, compare, delete, modify, modify DN, and search operations
+ * are processed with the existing asynchronous operation support, and the
+ * returned completion stage will be completed by a thread from the completion
+ * executor defined in the connection options rather than by the thread that
+ * reads responses from the server.  Bind and extended operations (along with
+ * all operations on connections operating in synchronous mode) cannot be
+ * processed asynchronously, so they will be processed synchronously by a
+ * thread from the completion executor.  Because those operations block the
+ * thread that processes them, they will never be processed by a thread from
+ * the common {@code ForkJoinPool}.  If the common pool is configured as the
+ * completion executor, then they will be processed by the default completion
+ * executor instead, which is a shared pool with a bounded number of daemon
+ * threads.
+ * <BR><BR>
+ * The completion stage will complete normally with the same result that would
+ * have been returned by the corresponding synchronous method in the
+ * {@link LDAPConnection} class, and it will complete exceptionally with the
+ * same exception that would have been thrown by that method.
+ */
+@InternalUseOnly()
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class AsyncCompletionHelper
+{
+  /**
+   * The maximum number of threads in the default completion executor that will
+   * be used if the number of threads is not explicitly specified.
+   */
+  private static final int DEFAULT_MAX_COMPLETION_THREAD_COUNT = 16;
+
+
+
+  /**
+   * The lock that will be used to protect the creation of the default
+   * completion executor.
+   */
+  @NotNull private static final Object DEFAULT_EXECUTOR_LOCK = new Object();
+
+
+
+  /**
+   * The default completion executor.  It will be {@code null} until it is
+   * first needed.
+   */
+  @Nullable private static volatile ThreadPoolExecutor defaultExecutor = null;
+
+
+
+  /**
+   * Prevents this utility class from being instantiated.
+   */
+  private AsyncCompletionHelper()
+  {
+    // No implementation is required.
+  }
+
+
+
+  /**
+   * Processes the provided request on the given connection and returns a
+   * completion stage that will be completed when the result is available.
+   *
+   * @param  <T>            The type of result that will be provided to the
+   *                        completion stage.  It must be consistent with the
+   *                        provided operation type.
+   * @param  connection     The connection on which to process the request.
+   * @param  request        The request to be processed.
+   * @param  operationType  The operation type for the request.
+   *
+   * @return  A completion stage that will be completed when the result is
+   *          available.
+   */
+  @NotNull()
+  static <T extends LDAPResult> CompletableFuture<T> processAsync(
+              @NotNull final LDAPConnection connection,
+              @NotNull final LDAPRequest request,
+              @NotNull final OperationType operationType)
+  {
+    return processAsync(connection, request, operationType, null);
+  }
+
+
+
+  /**
+   * Processes the provided request on the given connection and returns a
+   * completion stage that will be completed when the result is available.
+   *
+   * @param  <T>               The type of result that will be provided to the
+   *                           completion stage.  It must be consistent with
+   *                           the provided operation type.
+   * @param  connection        The connection on which to process the request.
+   * @param  request           The request to be processed.
+   * @param  operationType     The operation type for the request.
+   * @param  completionAction  An optional action that will be invoked exactly
+   *                           once when the operation is no longer using the
+   *                           connection, before the completion stage is
+   *                           completed.  If the completion stage is cancelled,
+   *                           then this will be invoked after an asynchronous
+   *                           operation has been abandoned, or after an
+   *                           operation processed synchronously has actually
+   *                           finished.  It may be {@code null} if no action
+   *                           is needed.
+   *
+   * @return  A completion stage that will be completed when the result is
+   *          available.
+   */
+  @NotNull()
+  private static <T extends LDAPResult> CompletableFuture<T> processAsync(
+               @NotNull final LDAPConnection connection,
+               @NotNull final LDAPRequest request,
+               @NotNull final OperationType operationType,
+               @Nullable final BiConsumer<Object,Throwable> completionAction)
+  {
+    final Executor executor =
+         connection.getConnectionOptions().getCompletionExecutor();
+    final CompletableFuture<T> future = new CompletableFuture<>();
+
+    switch (operationType)
+    {
+      case BIND:
+      case EXTENDED:
+        execute(getBlockingExecutor(executor),
+             new SynchronousOperationTask<>(connection, request, operationType,
+                  future, completionAction));
+        return future;
+
+      default:
+        if (connection.synchronousMode())
+        {
+          execute(getBlockingExecutor(executor),
+               new SynchronousOperationTask<>(connection, request,
+                    operationType, future, completionAction));
+          return future;
+        }
+        break;
+    }
+
+    final CompletionListener<T> listener = new CompletionListener<>(executor,
+         future, operationType, request, completionAction);
+    final AsyncRequestID asyncRequestID;
+    try
+    {
+      switch (operationType)
+      {
+        case ADD:
+          asyncRequestID =
+               ((AddRequest) request).processAsync(connection, listener);
+          break;
+        case COMPARE:
+          asyncRequestID =
+               ((CompareRequest) request).processAsync(connection, listener);
+          break;
+        case DELETE:
+          asyncRequestID =
+               ((DeleteRequest) request).processAsync(connection, listener);
+          break;
+        case MODIFY:
+          asyncRequestID =
+               ((ModifyRequest) request).processAsync(connection, listener);
+          break;
+        case MODIFY_DN:
+          asyncRequestID =
+               ((ModifyDNRequest) request).processAsync(connection, listener);
+          break;
+        case SEARCH:
+          asyncRequestID =
+               ((SearchRequest) request).processAsync(connection, listener);
+          break;
+        default:
+          // This should never happen.
+          throw new LDAPException(ResultCode.LOCAL_ERROR,
+               ERR_ASYNC_COMPLETION_UNSUPPORTED_OPERATION_TYPE.get(
+                    operationType.name()));
+      }
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      final LDAPException exception = toException(le, operationType);
+      if (completionAction != null)
+      {
+        completionAction.accept(null, exception);
+      }
+
+      future.completeExceptionally(exception);
+      return future;
+    }
+
+    future.whenComplete(
+         new CancellationHandler(asyncRequestID, completionAction));
+    return future;
+  }
+
+
+
+  /**
+   * Processes the provided request using a connection checked out of the given
+   * connection pool and returns a completion stage that will be completed when
+   * the result is available.  The connection will be released back to the pool
+   * before any dependent actions are invoked.  Cancelling the returned future
+   * will abandon the operation (if it was processed asynchronously) and
+   * release the connection.  Note that unlike the synchronous methods in the
+   * connection pool, operations that fail because of a problem with the
+   * connection will not be retried.
+   *
+   * @param  <T>            The type of result that will be provided to the
+   *                        completion stage.  It must be consistent with the
+   *                        provided operation type.
+   * @param  pool           The connection pool to use to process the request.
+   * @param  request        The request to be processed.
+   * @param  operationType  The operation type for the request.
+   *
+   * @return  A completion stage that will be completed when the result is
+   *          available.
+   */
+  @NotNull()
+  static <T extends LDAPResult> CompletableFuture<T> processAsync(
+              @NotNull final AbstractConnectionPool pool,
+              @NotNull final LDAPRequest request,
+              @NotNull final OperationType operationType)
+  {
+    if ((operationType == OperationType.EXTENDED) &&
+         ((ExtendedRequest) request).getOID().equals(
+              StartTLSExtendedRequest.STARTTLS_REQUEST_OID))
+    {
+      final CompletableFuture<T> future = new CompletableFuture<>();
+      future.completeExceptionally(new LDAPException(ResultCode.NOT_SUPPORTED,
+           ERR_POOL_STARTTLS_NOT_ALLOWED.get()));
+      return future;
+    }
+
+    final LDAPConnection connection;
+    try
+    {
+      connection = pool.getConnection();
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      final CompletableFuture<T> future = new CompletableFuture<>();
+      future.completeExceptionally(toException(le, operationType));
+      return future;
+    }
+
+    return processAsync(pool, connection, request, operationType);
+  }
+
+
+
+  /**
+   * Processes the provided request on a connection that has already been
+   * checked out of the given connection pool and returns a completion stage
+   * that will be completed when the result is available.  The connection will
+   * be released back to the pool when the operation completes, before any
+   * dependent actions are invoked.  Cancelling the returned future will abandon
+   * the operation (if it was processed asynchronously) and release the
+   * connection.  If the operation is being processed synchronously, then it
+   * cannot be interrupted, and the connection will not be released until it
+   * has finished.
+   *
+   * @param  <T>            The type of result that will be provided to the
+   *                        completion stage.  It must be consistent with the
+   *                        provided operation type.
+   * @param  pool           The connection pool from which the connection was
+   *                        checked out.
+   * @param  connection     The connection on which to process the request.
+   * @param  request        The request to be processed.
+   * @param  operationType  The operation type for the request.
+   *
+   * @return  A completion stage that will be completed when the result is
+   *          available.
+   */
+  @NotNull()
+  static <T extends LDAPResult> CompletableFuture<T> processAsync(
+              @NotNull final AbstractConnectionPool pool,
+              @NotNull final LDAPConnection connection,
+              @NotNull final LDAPRequest request,
+              @NotNull final OperationType operationType)
+  {
+    return processAsync(connection, request, operationType,
+         new ConnectionReleaser(pool, connection));
+  }
+
+
+
+  /**
+   * Converts the provided exception to the type of exception that would have
+   * been thrown by the synchronous method for the given operation type.
+   *
+   * @param  le             The exception to be converted.
+   * @param  operationType  The operation type for the request.
+   *
+   * @return  The converted exception.
+   */
+  @NotNull()
+  private static LDAPException toException(@NotNull final LDAPException le,
+               @NotNull final OperationType operationType)
+  {
+    if ((operationType == OperationType.SEARCH) &&
+         (! (le instanceof LDAPSearchException)))
+    {
+      return new LDAPSearchException(le);
+    }
+    else
+    {
+      return le;
+    }
+  }
+
+
+
+  /**
+   * Retrieves the default executor that will be used to complete the
+   * completion stages returned by the CompletionStage-based asynchronous
+   * operation methods if no other executor has been configured.  It uses a
+   * bounded number of daemon threads that will exit after a period of
+   * inactivity, and tasks submitted while all of those threads are busy will
+   * wait in a queue until a thread is available.
+   *
+   * @return  The default completion executor.
+   */
+  @NotNull()
+  static Executor getDefaultCompletionExecutor()
+  {
+    ThreadPoolExecutor executor = defaultExecutor;
+    if (executor == null)
+    {
+      synchronized (DEFAULT_EXECUTOR_LOCK)
+      {
+        executor = defaultExecutor;
+        if (executor == null)
+        {
+          int numThreads = PropertyManager.getInt(
+               LDAPConnectionOptions.PROPERTY_COMPLETION_EXECUTOR_THREAD_COUNT,
+               -1);
+          if (numThreads <= 0)
+          {
+            numThreads = Math.max(1, Math.min(
+                 DEFAULT_MAX_COMPLETION_THREAD_COUNT,
+                 (2 * Runtime.getRuntime().availableProcessors())));
+          }
+
+          executor = new ThreadPoolExecutor(numThreads, numThreads, 60L,
+               TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+               new LDAPSDKThreadFactory("LDAP SDK Completion Executor", true));
+          executor.allowCoreThreadTimeOut(true);
+          defaultExecutor = executor;
+        }
+      }
+    }
+
+    return executor;
+  }
+
+
+
+  /**
+   * Retrieves the executor that should be used to run a task that will block
+   * while processing an operation.  This will be the provided completion
+   * executor unless it is the common {@code ForkJoinPool}, which should not be
+   * used for blocking tasks, in which case the default completion executor
+   * will be used instead.
+   *
+   * @param  executor  The completion executor configured for the connection.
+   *
+   * @return  The executor that should be used to run a blocking task.
+   */
+  @NotNull()
+  private static Executor getBlockingExecutor(@NotNull final Executor executor)
+  {
+    if (executor == ForkJoinPool.commonPool())
+    {
+      return getDefaultCompletionExecutor();
+    }
+    else
+    {
+      return executor;
+    }
+  }
+
+
+
+  /**
+   * Uses the provided executor to run the given task.  If the executor rejects
+   * the task, then it will be run by the current thread.
+   *
+   * @param  executor  The executor to use to run the task.
+   * @param  task      The task to be run.
+   */
+  private static void execute(@NotNull final Executor executor,
+                              @NotNull final Runnable task)
+  {
+    try
+    {
+      executor.execute(task);
+    }
+    catch (final RejectedExecutionException e)
+    {
+      Debug.debugException(e);
+      task.run();
+    }
+  }
+
+
+
+  /**
+   * This class provides an async result listener that completes a future with
+   * the result of an asynchronous operation.
+   *
+   * @param  <T>  The type of result that will be used to complete the future.
+   */
+  private static final class CompletionListener<T extends LDAPResult>
+          implements AsyncResultListener, AsyncCompareResultListener,
+                     AsyncSearchResultListener
+  {
+    /**
+     * The serial version UID for this serializable class.
+     */
+    private static final long serialVersionUID = 4307521689446235175L;
+
+
+
+    // The search result entries collected for a search request that does not
+    // have its own search result listener.
+    @Nullable private final transient List<SearchResultEntry> entries;
+
+    // The search result references collected for a search request that does
+    // not have its own search result listener.
+    @Nullable private final transient List<SearchResultReference> references;
+
+    // The future to be completed when the result is available.
+    @NotNull private final transient CompletableFuture<T> future;
+
+    // The executor that will be used to complete the future.
+    @NotNull private final transient Executor executor;
+
+    // The operation type for the associated request.
+    @NotNull private final OperationType operationType;
+
+    // An action to invoke before completing the future, if any.
+    @Nullable private final transient BiConsumer<Object,Throwable>
+         completionAction;
+
+    // The search result listener for the associated search request, if any.
+    @Nullable private final SearchResultListener searchResultListener;
+
+
+
+    /**
+     * Creates a new completion listener with the provided information.
+     *
+     * @param  executor          The executor that will be used to complete
+     *                           the future.
+     * @param  future            The future to be completed when the result
+     *                           is available.
+     * @param  operationType     The operation type for the associated
+     *                           request.
+     * @param  request           The associated request.
+     * @param  completionAction  An action to invoke before completing the
+     *                           future, if any.
+     */
+    private CompletionListener(@NotNull final Executor executor,
+                 @NotNull final CompletableFuture<T> future,
+                 @NotNull final OperationType operationType,
+                 @NotNull final LDAPRequest request,
+                 @Nullable final BiConsumer<Object,Throwable> completionAction)
+    {
+      this.executor = executor;
+      this.future = future;
+      this.operationType = operationType;
+      this.completionAction = completionAction;
+
+      if (operationType == OperationType.SEARCH)
+      {
+        searchResultListener =
+             ((SearchRequest) request).getSearchResultListener();
+      }
+      else
+      {
+        searchResultListener = null;
+      }
+
+      if ((operationType == OperationType.SEARCH) &&
+           (searchResultListener == null))
+      {
+        entries = new ArrayList<>(10);
+        references = new ArrayList<>(10);
+      }
+      else
+      {
+        entries = null;
+        references = null;
+      }
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void ldapResultReceived(@NotNull final AsyncRequestID requestID,
+                                   @NotNull final LDAPResult ldapResult)
+    {
+      switch (ldapResult.getResultCode().intValue())
+      {
+        case ResultCode.SUCCESS_INT_VALUE:
+        case ResultCode.NO_OPERATION_INT_VALUE:
+          complete(ldapResult, null);
+          break;
+
+        default:
+          complete(null, new LDAPException(ldapResult));
+          break;
+      }
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void compareResultReceived(
+                     @NotNull final AsyncRequestID requestID,
+                     @NotNull final CompareResult compareResult)
+    {
+      switch (compareResult.getResultCode().intValue())
+      {
+        case ResultCode.COMPARE_FALSE_INT_VALUE:
+        case ResultCode.COMPARE_TRUE_INT_VALUE:
+          complete(compareResult, null);
+          break;
+
+        default:
+          complete(null, new LDAPException(compareResult));
+          break;
+      }
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void searchEntryReturned(
+                     @NotNull final SearchResultEntry searchEntry)
+    {
+      if (searchResultListener == null)
+      {
+        entries.add(searchEntry);
+      }
+      else
+      {
+        searchResultListener.searchEntryReturned(searchEntry);
+      }
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void searchReferenceReturned(
+                     @NotNull final SearchResultReference searchReference)
+    {
+      if (searchResultListener == null)
+      {
+        references.add(searchReference);
+      }
+      else
+      {
+        searchResultListener.searchReferenceReturned(searchReference);
+      }
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void searchResultReceived(@NotNull final AsyncRequestID requestID,
+                                     @NotNull final SearchResult searchResult)
+    {
+      final SearchResult result;
+      if (entries == null)
+      {
+        result = searchResult;
+      }
+      else
+      {
+        final String[] referralURLs = searchResult.getReferralURLs();
+        final Control[] responseControls = searchResult.getResponseControls();
+        result = new SearchResult(searchResult.getMessageID(),
+             searchResult.getResultCode(),
+             searchResult.getDiagnosticMessage(),
+             searchResult.getMatchedDN(),
+             ((referralURLs == null) ? StaticUtils.NO_STRINGS : referralURLs),
+             entries, references, searchResult.getEntryCount(),
+             searchResult.getReferenceCount(),
+             ((responseControls == null)
+                  ? StaticUtils.NO_CONTROLS
+                  : responseControls));
+      }
+
+      if (result.getResultCode() == ResultCode.SUCCESS)
+      {
+        complete(result, null);
+      }
+      else
+      {
+        complete(null, new LDAPSearchException(result));
+      }
+    }
+
+
+
+    /**
+     * Uses the executor to complete the future with the provided result or
+     * exception.
+     *
+     * @param  result     The result with which to complete the future.  It
+     *                    must be {@code null} if an exception is provided.
+     * @param  exception  The exception with which to complete the future.  It
+     *                    must be {@code null} if a result is provided.
+     */
+    @SuppressWarnings("unchecked")
+    private void complete(@Nullable final LDAPResult result,
+                          @Nullable final LDAPException exception)
+    {
+      execute(executor, new CompletionTask<>(future, (T) result, exception,
+           completionAction));
+    }
+  }
+
+
+
+  /**
+   * This class provides a task that completes a future with a result or an
+   * exception.
+   *
+   * @param  <T>  The type of result that will be used to complete the future.
+   */
+  private static final class CompletionTask<T>
+          implements Runnable
+  {
+    // The future to be completed.
+    @NotNull private final CompletableFuture<T> future;
+
+    // An action to invoke before completing the future, if any.
+    @Nullable private final BiConsumer<Object,Throwable> completionAction;
+
+    // The exception with which to complete the future, if any.
+    @Nullable private final Throwable exception;
+
+    // The result with which to complete the future, if any.
+    @Nullable private final T result;
+
+
+
+    /**
+     * Creates a new completion task with the provided information.
+     *
+     * @param  future            The future to be completed.
+     * @param  result            The result with which to complete the future.
+     * @param  exception         The exception with which to complete the
+     *                           future.  If this is non-{@code null}, then the
+     *                           result will be ignored.
+     * @param  completionAction  An action to invoke before completing the
+     *                           future, if any.
+     */
+    private CompletionTask(@NotNull final CompletableFuture<T> future,
+                 @Nullable final T result,
+                 @Nullable final Throwable exception,
+                 @Nullable final BiConsumer<Object,Throwable> completionAction)
+    {
+      this.future = future;
+      this.result = result;
+      this.exception = exception;
+      this.completionAction = completionAction;
+    }
+
+
+
+    /**
+     * Invokes the completion action, if any, and completes the future.
+     */
+    @Override()
+    public void run()
+    {
+      if (completionAction != null)
+      {
+        completionAction.accept(result, exception);
+      }
+
+      if (exception == null)
+      {
+        future.complete(result);
+      }
+      else
+      {
+        future.completeExceptionally(exception);
+      }
+    }
+  }
+
+
+
+  /**
+   * This class provides a task that processes an operation synchronously and
+   * uses the outcome to complete a future.
+   *
+   * @param  <T>  The type of result that will be used to complete the future.
+   */
+  private static final class SynchronousOperationTask<T extends LDAPResult>
+          implements Runnable
+  {
+    // The future to be completed.
+    @NotNull private final CompletableFuture<T> future;
+
+    // The connection on which to process the operation.
+    @NotNull private final LDAPConnection connection;
+
+    // The request to be processed.
+    @NotNull private final LDAPRequest request;
+
+    // The operation type for the request.
+    @NotNull private final OperationType operationType;
+
+    // An action to invoke once the operation has finished and before
+    // completing the future, if any.
+    @Nullable private final BiConsumer<Object,Throwable> completionAction;
+
+
+
+    /**
+     * Creates a new synchronous operation task with the provided information.
+     *
+     * @param  connection        The connection on which to process the
+     *                           operation.
+     * @param  request           The request to be processed.
+     * @param  operationType     The operation type for the request.
+     * @param  future            The future to be completed.
+     * @param  completionAction  An action to invoke once the operation has
+     *                           finished and before completing the future, if
+     *                           any.
+     */
+    private SynchronousOperationTask(@NotNull final LDAPConnection connection,
+                 @NotNull final LDAPRequest request,
+                 @NotNull final OperationType operationType,
+                 @NotNull final CompletableFuture<T> future,
+                 @Nullable final BiConsumer<Object,Throwable> completionAction)
+    {
+      this.connection = connection;
+      this.request = request;
+      this.operationType = operationType;
+      this.future = future;
+      this.completionAction = completionAction;
+    }
+
+
+
+    /**
+     * Processes the operation, invokes the completion action (if any), and
+     * completes the future.  If the future has already been cancelled, then
+     * the operation will not be processed.  Because the operation cannot be
+     * interrupted once it has started, the completion action will not be
+     * invoked until the operation has finished, even if the future is
+     * cancelled while it is in progress.
+     */
+    @Override()
+    @SuppressWarnings("unchecked")
+    public void run()
+    {
+      if (future.isCancelled())
+      {
+        if (completionAction != null)
+        {
+          completionAction.accept(null, new CancellationException());
+        }
+
+        return;
+      }
+
+      LDAPResult result = null;
+      Throwable exception = null;
+      try
+      {
+        switch (operationType)
+        {
+          case ADD:
+            result = connection.add((AddRequest) request);
+            break;
+          case BIND:
+            result = connection.bind((BindRequest) request);
+            break;
+          case COMPARE:
+            result = connection.compare((CompareRequest) request);
+            break;
+          case DELETE:
+            result = connection.delete((DeleteRequest) request);
+            break;
+          case EXTENDED:
+            result = connection.processExtendedOperation(
+                 (ExtendedRequest) request);
+            break;
+          case MODIFY:
+            result = connection.modify((ModifyRequest) request);
+            break;
+          case MODIFY_DN:
+            result = connection.modifyDN((ModifyDNRequest) request);
+            break;
+          case SEARCH:
+            result = connection.search((SearchRequest) request);
+            break;
+          default:
+            // This should never happen.
+            throw new LDAPException(ResultCode.LOCAL_ERROR,
+                 ERR_ASYNC_COMPLETION_UNSUPPORTED_OPERATION_TYPE.get(
+                      operationType.name()));
+        }
+      }
+      catch (final Throwable t)
+      {
+        Debug.debugException(t);
+        exception = t;
+      }
+
+      if (completionAction != null)
+      {
+        completionAction.accept(result, exception);
+      }
+
+      if (exception == null)
+      {
+        future.complete((T) result);
+      }
+      else
+      {
+        future.completeExceptionally(exception);
+      }
+    }
+  }
+
+
+
+  /**
+   * This class provides an action that will abandon an asynchronous operation
+   * if the associated future is cancelled before the operation completes.
+   */
+  private static final class CancellationHandler
+          implements BiConsumer<Object,Throwable>
+  {
+    // The async request ID for the associated operation.
+    @NotNull private final AsyncRequestID asyncRequestID;
+
+    // An action to invoke after the operation has been abandoned, if any.
+    @Nullable private final BiConsumer<Object,Throwable> completionAction;
+
+
+
+    /**
+     * Creates a new cancellation handler for the provided operation.
+     *
+     * @param  asyncRequestID    The async request ID for the associated
+     *                           operation.
+     * @param  completionAction  An action to invoke after the operation has
+     *                           been abandoned, if any.
+     */
+    private CancellationHandler(@NotNull final AsyncRequestID asyncRequestID,
+                 @Nullable final BiConsumer<Object,Throwable> completionAction)
+    {
+      this.asyncRequestID = asyncRequestID;
+      this.completionAction = completionAction;
+    }
+
+
+
+    /**
+     * Abandons the associated operation and invokes the completion action (if
+     * any) if the future was cancelled.
+     *
+     * @param  result     The result with which the future was completed, if
+     *                    any.
+     * @param  exception  The exception with which the future was completed, if
+     *                    any.
+     */
+    @Override()
+    public void accept(@Nullable final Object result,
+                       @Nullable final Throwable exception)
+    {
+      if (exception instanceof CancellationException)
+      {
+        asyncRequestID.cancel(false);
+        if (completionAction != null)
+        {
+          completionAction.accept(null, exception);
+        }
+      }
+    }
+  }
+
+
+
+  /**
+   * This class provides an action that will release a connection back to a
+   * connection pool when an operation processed on that connection has
+   * completed.  The connection will only be released the first time the action
+   * is invoked.
+   */
+  private static final class ConnectionReleaser
+          implements BiConsumer<Object,Throwable>
+  {
+    // Indicates whether the connection has already been released.
+    @NotNull private final AtomicBoolean released;
+
+    // The connection pool to which the connection should be released.
+    @NotNull private final AbstractConnectionPool pool;
+
+    // The connection to be released.
+    @NotNull private final LDAPConnection connection;
+
+
+
+    /**
+     * Creates a new connection releaser with the provided information.
+     *
+     * @param  pool        The connection pool to which the connection should be
+     *                     released.
+     * @param  connection  The connection to be released.
+     */
+    private ConnectionReleaser(@NotNull final AbstractConnectionPool pool,
+                               @NotNull final LDAPConnection connection)
+    {
+      this.pool = pool;
+      this.connection = connection;
+
+      released = new AtomicBoolean(false);
+    }
+
+
+
+    /**
+     * Releases the connection back to the pool if it has not already been
+     * released.
+     *
+     * @param  result     The result with which the future was completed, if
+     *                    any.
+     * @param  exception  The exception with which the future was completed, if
+     *                    any.
+     */
+    @Override()
+    public void accept(@Nullable final Object result,
+                       @Nullable final Throwable exception)
+    {
+      if (! released.compareAndSet(false, true))
+      {
+        return;
+      }
+
+      Throwable t = exception;
+      if (t instanceof CompletionException)
+      {
+        t = t.getCause();
+      }
+
+      if ((t == null) || (t instanceof CancellationException))
+      {
+        pool.releaseConnection(connection);
+      }
+      else if (t instanceof LDAPException)
+      {
+        pool.releaseConnectionAfterException(connection, (LDAPException) t);
+      }
+      else
+      {
+        pool.releaseDefunctConnection(connection);
+      }
+    }
+  }
+}
@@ -38,7 +38,6 @@ package com.unboundid.ldap.sdk;
 
 
 import java.io.Serializable;
-import java.util.Timer;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
@@ -110,8 +109,8 @@ public final class AsyncRequestID
   // The connection used to process the asynchronous operation.
   @NotNull private final LDAPConnection connection;
 
-  // The timer task that will allow the associated request to be cancelled.
-  @Nullable private volatile AsyncTimeoutTimerTask timerTask;
+  // The timeout that will allow the associated request to be cancelled.
+  @Nullable private volatile HashedWheelTimer.Timeout timeoutHandle;
 
 
 
@@ -130,7 +129,7 @@ public final class AsyncRequestID
     resultQueue     = new ArrayBlockingQueue<>(1);
     cancelRequested = new AtomicBoolean(false);
     result          = new AtomicReference<>();
-    timerTask       = null;
+    timeoutHandle   = null;
   }
 
 
@@ -338,16 +337,34 @@ public final class AsyncRequestID
 
 
   /**
-   * Sets the timer task that may be used to cancel this result after a period
-   * of time.
+   * Sets the timeout that may be used to cancel this result after a period of
+   * time.
    *
-   * @param  timerTask  The timer task that may be used to cancel this result
-   *                    after a period of time.  It may be {@code null} if no
-   *                    timer task should be used.
+   * @param  timeoutHandle  The timeout that may be used to cancel this result
+   *                        after a period of time.  It may be {@code null} if
+   *                        no timeout should be used.
    */
-  void setTimerTask(@Nullable final AsyncTimeoutTimerTask timerTask)
+  void setTimeout(@Nullable final HashedWheelTimer.Timeout timeoutHandle)
   {
-    this.timerTask = timerTask;
+    this.timeoutHandle = timeoutHandle;
+    connection.setAsyncTimeoutScheduled(this, (timeoutHandle != null));
+  }
+
+
+
+  /**
+   * Cancels the timeout for the associated operation, if there is one, so that
+   * the timer will no longer retain a reference to this request.
+   */
+  void cancelTimeout()
+  {
+    final HashedWheelTimer.Timeout t = timeoutHandle;
+    if (t != null)
+    {
+      t.cancel();
+      timeoutHandle = null;
+      connection.setAsyncTimeoutScheduled(this, false);
+    }
   }
 
 
@@ -360,21 +377,8 @@ public final class AsyncRequestID
    */
   void setResult(@NotNull final LDAPResult result)
   {
+    cancelTimeout();
     resultQueue.offer(result);
-
-    final AsyncTimeoutTimerTask t = timerTask;
-    if (t != null)
-    {
-      t.cancel();
-
-      final Timer timer = connection.getTimerNullable();
-      if (timer != null)
-      {
-        timer.purge();
-      }
-
-      timerTask = null;
-    }
   }
 
 
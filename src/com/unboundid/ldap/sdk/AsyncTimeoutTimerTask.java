@@ -37,8 +37,6 @@ package com.unboundid.ldap.sdk;
 
 
 
-import java.util.TimerTask;
-
 import com.unboundid.ldap.protocol.LDAPResponse;
 import com.unboundid.util.Debug;
 import com.unboundid.util.NotNull;
@@ -49,11 +47,12 @@ import static com.unboundid.ldap.sdk.LDAPMessages.*;
 
 
 /**
- * This class provides a timer task that can be used to ensure that operation
- * timeouts for asynchronous operations are properly respected.
+ * This class provides a task that can be scheduled with the shared
+ * {@link HashedWheelTimer} to ensure that operation timeouts for asynchronous
+ * operations are properly respected.
  */
 final class AsyncTimeoutTimerTask
-      extends TimerTask
+      implements Runnable
 {
   // The async helper with which this task is associated.
   @NotNull private final CommonAsyncHelper helper;
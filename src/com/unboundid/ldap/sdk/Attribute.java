@@ -37,6 +37,7 @@ package com.unboundid.ldap.sdk;
 
 
 
+import java.io.InputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -51,9 +52,11 @@ import java.util.Set;
 import com.unboundid.asn1.ASN1Buffer;
 import com.unboundid.asn1.ASN1BufferSequence;
 import com.unboundid.asn1.ASN1BufferSet;
+import com.unboundid.asn1.ASN1Constants;
 import com.unboundid.asn1.ASN1Element;
 import com.unboundid.asn1.ASN1Exception;
 import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.asn1.ASN1OctetStringValueSource;
 import com.unboundid.asn1.ASN1Sequence;
 import com.unboundid.asn1.ASN1Set;
 import com.unboundid.asn1.ASN1StreamReader;
@@ -150,6 +153,9 @@ public final class Attribute
   // The hash code for this attribute.
   private int hashCode = -1;
 
+  // The number of bytes in the encoded value set for this attribute.
+  private int encodedValueSetLength = -1;
+
   // The matching rule that should be used for equality determinations.
   @NotNull private final MatchingRule matchingRule;
 
@@ -1460,10 +1466,15 @@ public final class Attribute
    */
   public void writeTo(@NotNull final ASN1Buffer buffer)
   {
-    final ASN1BufferSequence attrSequence = buffer.beginSequence();
+    final int valueSetLength = getEncodedValueSetLength();
+    final ASN1BufferSequence attrSequence = buffer.beginSequence(
+         ASN1Constants.UNIVERSAL_SEQUENCE_TYPE,
+         ASN1Buffer.getEncodedOctetStringSize(name) +
+              ASN1Buffer.getEncodedElementSize(valueSetLength));
     buffer.addOctetString(name);
 
-    final ASN1BufferSet valueSet = buffer.beginSet();
+    final ASN1BufferSet valueSet =
+         buffer.beginSet(ASN1Constants.UNIVERSAL_SET_TYPE, valueSetLength);
     for (final ASN1OctetString value : values)
     {
       buffer.addElement(value);
@@ -1474,6 +1485,47 @@ public final class Attribute
 
 
 
+  /**
+   * Retrieves the number of bytes that will be written when this attribute is
+   * written to an ASN.1 buffer.
+   *
+   * @return  The number of bytes that will be written when this attribute is
+   *          written to an ASN.1 buffer.
+   */
+  public int getEncodedSize()
+  {
+    return ASN1Buffer.getEncodedElementSize(
+         ASN1Buffer.getEncodedOctetStringSize(name) +
+              ASN1Buffer.getEncodedElementSize(getEncodedValueSetLength()));
+  }
+
+
+
+  /**
+   * Retrieves the number of bytes in the encoded value of the set that holds
+   * the values for this attribute.
+   *
+   * @return  The number of bytes in the encoded value of the set that holds
+   *          the values for this attribute.
+   */
+  private int getEncodedValueSetLength()
+  {
+    if (encodedValueSetLength < 0)
+    {
+      int length = 0;
+      for (final ASN1OctetString value : values)
+      {
+        length += ASN1Buffer.getEncodedSize(value);
+      }
+
+      encodedValueSetLength = length;
+    }
+
+    return encodedValueSetLength;
+  }
+
+
+
   /**
    * Encodes this attribute into a form suitable for use in the LDAP protocol.
    * It will be encoded as a sequence containing the attribute name (as an octet
@@ -1531,6 +1583,116 @@ public final class Attribute
   public static Attribute readFrom(@NotNull final ASN1StreamReader reader,
                                    @Nullable final Schema schema)
          throws LDAPException
+  {
+    return readFrom(reader, schema, null, 0);
+  }
+
+
+
+  /**
+   * Reads and decodes an attribute from the provided ASN.1 stream reader,
+   * optionally streaming large values to the provided sink rather than holding
+   * them in memory.  Any value stored in the sink will be represented in the
+   * attribute by an octet string that reads it back from the sink when it is
+   * first needed.
+   *
+   * @param  reader          The ASN.1 stream reader from which to read the
+   *                         attribute.
+   * @param  schema          The schema to use to select the appropriate
+   *                         matching rule for this attribute.  It may be
+   *                         {@code null} if the default matching rule should
+   *                         be selected.
+   * @param  largeValueSink  The sink to which values larger than the threshold
+   *                         should be written.  It may be {@code null} if all
+   *                         values should be held in memory.
+   * @param  thresholdBytes  The maximum size in bytes for a value that will be
+   *                         held in memory when a sink is provided.  Any value
+   *                         with more bytes than this will be written to the
+   *                         sink.
+   *
+   * @return  The decoded attribute.
+   *
+   * @throws  LDAPException  If a problem occurs while trying to read or decode
+   *                         the attribute.
+   */
+  @NotNull()
+  public static Attribute readFrom(@NotNull final ASN1StreamReader reader,
+                     @Nullable final Schema schema,
+                     @Nullable final LargeAttributeValueSink largeValueSink,
+                     final int thresholdBytes)
+         throws LDAPException
+  {
+    if (largeValueSink == null)
+    {
+      return readAllValuesFrom(reader, schema);
+    }
+
+    try
+    {
+      Validator.ensureNotNull(reader.beginSequence());
+      final String attrName = reader.readString();
+      Validator.ensureNotNull(attrName);
+
+      final MatchingRule matchingRule =
+           MatchingRule.selectEqualityMatchingRule(attrName, schema);
+
+      final ArrayList<ASN1OctetString> valueList = new ArrayList<>(10);
+      final ASN1StreamReaderSet valueSet = reader.beginSet();
+      while (valueSet.hasMoreElements())
+      {
+        final int valueLength = reader.readElementHeader();
+        if (valueLength <= thresholdBytes)
+        {
+          valueList.add(new ASN1OctetString(
+               reader.readElementValue(valueLength)));
+          continue;
+        }
+
+        final ASN1OctetStringValueSource valueSource;
+        try (InputStream valueInputStream =
+                  reader.getElementValueInputStream(valueLength))
+        {
+          valueSource = largeValueSink.storeValue(attrName, valueLength,
+               valueInputStream);
+        }
+
+        valueList.add(new ASN1OctetString(valueLength, valueSource));
+      }
+
+      final ASN1OctetString[] values = new ASN1OctetString[valueList.size()];
+      valueList.toArray(values);
+
+      return new Attribute(attrName, matchingRule, values);
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      throw new LDAPException(ResultCode.DECODING_ERROR,
+           ERR_ATTR_CANNOT_DECODE.get(StaticUtils.getExceptionMessage(e)), e);
+    }
+  }
+
+
+
+  /**
+   * Reads and decodes an attribute from the provided ASN.1 stream reader,
+   * holding all of its values in memory.
+   *
+   * @param  reader  The ASN.1 stream reader from which to read the attribute.
+   * @param  schema  The schema to use to select the appropriate matching rule
+   *                 for this attribute.  It may be {@code null} if the default
+   *                 matching rule should be selected.
+   *
+   * @return  The decoded attribute.
+   *
+   * @throws  LDAPException  If a problem occurs while trying to read or decode
+   *                         the attribute.
+   */
+  @NotNull()
+  private static Attribute readAllValuesFrom(
+               @NotNull final ASN1StreamReader reader,
+               @Nullable final Schema schema)
+          throws LDAPException
   {
     try
     {
@@ -0,0 +1,463 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.LDAPSDKThreadFactory;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides support for refreshing cached name service information
+ * in the background, so that callers do not need to wait for a lookup when a
+ * cached record is about to expire, or has recently expired.  It is used by
+ * both the {@link CachingNameResolver} and {@link DNSSRVRecordServerSet}
+ * classes.
+ * <BR><BR>
+ * A cached record is handled in one of three ways, based on its expiration
+ * time:
+ * <UL>
+ *   <LI>If it will not expire within the refresh-ahead window, then it will
+ *       simply be used.</LI>
+ *   <LI>If it will expire within the refresh-ahead window, or if it has
+ *       expired but not by more than the maximum staleness, then it will be
+ *       used, but a background refresh will be initiated if one is not
+ *       already in progress.</LI>
+ *   <LI>Otherwise, the caller should refresh the record itself before using
+ *       it.</LI>
+ * </UL>
+ * With a refresh-ahead window and maximum staleness of zero, all records will
+ * be refreshed synchronously once they have expired.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class BackgroundCacheRefresher
+{
+  /**
+   * The executor that will be used to perform all background refreshes.  The
+   * threads that it uses will be created as needed and will exit after they
+   * have been idle for a period of time.
+   */
+  @NotNull private static final ExecutorService EXECUTOR =
+       Executors.newCachedThreadPool(new LDAPSDKThreadFactory(
+            "Background Name Service Cache Refresh Thread", true));
+
+
+
+  /**
+   * An enum that indicates how a cached record should be handled.
+   */
+  enum CachedRecordAction
+  {
+    /**
+     * Indicates that the cached record should be used without being refreshed.
+     */
+    USE_CACHED,
+
+
+
+    /**
+     * Indicates that the cached record should be used, and that a background
+     * refresh should be initiated.
+     */
+    USE_CACHED_AND_REFRESH,
+
+
+
+    /**
+     * Indicates that the record should be refreshed before it is used.
+     */
+    REFRESH_NOW;
+  }
+
+
+
+  // The number of background refreshes that have been completed successfully.
+  @NotNull private final AtomicLong numBackgroundRefreshes;
+
+  // The number of background refreshes that have failed.
+  @NotNull private final AtomicLong numFailedBackgroundRefreshes;
+
+  // The number of times that a record was used from the cache without having
+  // expired.
+  @NotNull private final AtomicLong numCacheHits;
+
+  // The number of times that there was no usable record in the cache.
+  @NotNull private final AtomicLong numCacheMisses;
+
+  // The number of times that an expired record was used from the cache while
+  // a background refresh was in progress.
+  @NotNull private final AtomicLong numStaleCacheHits;
+
+  // The maximum length of time in nanoseconds required for a background
+  // refresh.
+  @NotNull private final AtomicLong maxRefreshDurationNanos;
+
+  // The total length of time in nanoseconds required for all background
+  // refreshes.
+  @NotNull private final AtomicLong totalRefreshDurationNanos;
+
+  // The maximum length of time in milliseconds that an expired record may be
+  // used while it is being refreshed in the background.
+  private final long maxStalenessMillis;
+
+  // The length of time in milliseconds before a record expires that it should
+  // be refreshed in the background.
+  private final long refreshAheadMillis;
+
+  // The keys for the records that are currently being refreshed in the
+  // background.
+  @NotNull private final Set<Object> refreshesInProgress;
+
+
+
+  /**
+   * Creates a new background cache refresher with the provided settings.
+   *
+   * @param  refreshAheadMillis  The length of time in milliseconds before a
+   *                             record expires that it should be refreshed in
+   *                             the background.  A value that is less than or
+   *                             equal to zero indicates that records should
+   *                             not be refreshed before they expire.
+   * @param  maxStalenessMillis  The maximum length of time in milliseconds
+   *                             after a record has expired that it may be used
+   *                             while it is being refreshed in the background.
+   *                             A value that is less than or equal to zero
+   *                             indicates that expired records should be
+   *                             refreshed before they are used.
+   */
+  BackgroundCacheRefresher(final long refreshAheadMillis,
+                           final long maxStalenessMillis)
+  {
+    this.refreshAheadMillis = Math.max(0L, refreshAheadMillis);
+    this.maxStalenessMillis = Math.max(0L, maxStalenessMillis);
+
+    numBackgroundRefreshes = new AtomicLong(0L);
+    numFailedBackgroundRefreshes = new AtomicLong(0L);
+    numCacheHits = new AtomicLong(0L);
+    numCacheMisses = new AtomicLong(0L);
+    numStaleCacheHits = new AtomicLong(0L);
+    maxRefreshDurationNanos = new AtomicLong(0L);
+    totalRefreshDurationNanos = new AtomicLong(0L);
+    refreshesInProgress = ConcurrentHashMap.newKeySet();
+  }
+
+
+
+  /**
+   * Retrieves the length of time in milliseconds before a record expires that
+   * it should be refreshed in the background.
+   *
+   * @return  The length of time in milliseconds before a record expires that
+   *          it should be refreshed in the background, or zero if records will
+   *          not be refreshed before they expire.
+   */
+  long getRefreshAheadMillis()
+  {
+    return refreshAheadMillis;
+  }
+
+
+
+  /**
+   * Retrieves the maximum length of time in milliseconds after a record has
+   * expired that it may be used while it is being refreshed in the background.
+   *
+   * @return  The maximum length of time in milliseconds after a record has
+   *          expired that it may be used while it is being refreshed in the
+   *          background, or zero if expired records will be refreshed before
+   *          they are used.
+   */
+  long getMaxStalenessMillis()
+  {
+    return maxStalenessMillis;
+  }
+
+
+
+  /**
+   * Determines how a cached record with the specified expiration time should
+   * be handled, and updates the hit and miss counts accordingly.
+   *
+   * @param  expirationTime  The time that the cached record expires.
+   *
+   * @return  The action that should be taken for the cached record.
+   */
+  @NotNull()
+  CachedRecordAction getCachedRecordAction(final long expirationTime)
+  {
+    final long currentTime = System.currentTimeMillis();
+    if (currentTime <= expirationTime)
+    {
+      numCacheHits.incrementAndGet();
+      if ((refreshAheadMillis > 0L) &&
+           (currentTime >= (expirationTime - refreshAheadMillis)))
+      {
+        return CachedRecordAction.USE_CACHED_AND_REFRESH;
+      }
+      else
+      {
+        return CachedRecordAction.USE_CACHED;
+      }
+    }
+
+    if ((maxStalenessMillis > 0L) &&
+         (currentTime <= (expirationTime + maxStalenessMillis)))
+    {
+      numStaleCacheHits.incrementAndGet();
+      return CachedRecordAction.USE_CACHED_AND_REFRESH;
+    }
+
+    numCacheMisses.incrementAndGet();
+    return CachedRecordAction.REFRESH_NOW;
+  }
+
+
+
+  /**
+   * Indicates that there was no record in the cache, so that a lookup was
+   * required.
+   */
+  void recordCacheMiss()
+  {
+    numCacheMisses.incrementAndGet();
+  }
+
+
+
+  /**
+   * Initiates a background refresh for the record with the specified key, if
+   * one is not already in progress.
+   *
+   * @param  key          The key for the record to refresh.  It must not be
+   *                      {@code null}.
+   * @param  refreshTask  The task that will be invoked to refresh the record.
+   *                      It should update the cache itself, and it should
+   *                      throw an exception if the refresh fails.
+   */
+  void refreshInBackground(@NotNull final Object key,
+                           @NotNull final Callable<?> refreshTask)
+  {
+    if (! refreshesInProgress.add(key))
+    {
+      return;
+    }
+
+    try
+    {
+      EXECUTOR.execute(new Runnable()
+      {
+        @Override()
+        public void run()
+        {
+          final long startTime = System.nanoTime();
+          try
+          {
+            refreshTask.call();
+            recordRefreshDuration(System.nanoTime() - startTime);
+            numBackgroundRefreshes.incrementAndGet();
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+            numFailedBackgroundRefreshes.incrementAndGet();
+          }
+          finally
+          {
+            refreshesInProgress.remove(key);
+          }
+        }
+      });
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      refreshesInProgress.remove(key);
+    }
+  }
+
+
+
+  /**
+   * Updates the refresh duration statistics with the provided duration.
+   *
+   * @param  durationNanos  The length of time in nanoseconds required for a
+   *                        background refresh.
+   */
+  private void recordRefreshDuration(final long durationNanos)
+  {
+    totalRefreshDurationNanos.addAndGet(durationNanos);
+    while (true)
+    {
+      final long currentMax = maxRefreshDurationNanos.get();
+      if ((durationNanos <= currentMax) ||
+           maxRefreshDurationNanos.compareAndSet(currentMax, durationNanos))
+      {
+        return;
+      }
+    }
+  }
+
+
+
+  /**
+   * Indicates whether a background refresh is currently in progress for the
+   * record with the specified key.
+   *
+   * @param  key  The key for the record.
+   *
+   * @return  {@code true} if a background refresh is in progress for the
+   *          record, or {@code false} if not.
+   */
+  boolean isRefreshInProgress(@NotNull final Object key)
+  {
+    return refreshesInProgress.contains(key);
+  }
+
+
+
+  /**
+   * Retrieves the number of times that a cached record was used without having
+   * expired.
+   *
+   * @return  The number of times that a cached record was used without having
+   *          expired.
+   */
+  long getNumCacheHits()
+  {
+    return numCacheHits.get();
+  }
+
+
+
+  /**
+   * Retrieves the number of times that an expired record was used while it was
+   * being refreshed in the background.
+   *
+   * @return  The number of times that an expired record was used while it was
+   *          being refreshed in the background.
+   */
+  long getNumStaleCacheHits()
+  {
+    return numStaleCacheHits.get();
+  }
+
+
+
+  /**
+   * Retrieves the number of times that there was no usable record in the
+   * cache, so that the caller had to wait for a lookup.
+   *
+   * @return  The number of times that there was no usable record in the cache.
+   */
+  long getNumCacheMisses()
+  {
+    return numCacheMisses.get();
+  }
+
+
+
+  /**
+   * Retrieves the number of background refreshes that have completed
+   * successfully.
+   *
+   * @return  The number of background refreshes that have completed
+   *          successfully.
+   */
+  long getNumBackgroundRefreshes()
+  {
+    return numBackgroundRefreshes.get();
+  }
+
+
+
+  /**
+   * Retrieves the number of background refreshes that have failed.
+   *
+   * @return  The number of background refreshes that have failed.
+   */
+  long getNumFailedBackgroundRefreshes()
+  {
+    return numFailedBackgroundRefreshes.get();
+  }
+
+
+
+  /**
+   * Retrieves the average length of time in milliseconds required for a
+   * successful background refresh.
+   *
+   * @return  The average length of time in milliseconds required for a
+   *          successful background refresh, or zero if there have not been
+   *          any successful background refreshes.
+   */
+  double getAverageBackgroundRefreshDurationMillis()
+  {
+    final long numRefreshes = numBackgroundRefreshes.get();
+    if (numRefreshes == 0L)
+    {
+      return 0.0d;
+    }
+
+    return (totalRefreshDurationNanos.get() / 1_000_000.0d) / numRefreshes;
+  }
+
+
+
+  /**
+   * Retrieves the maximum length of time in milliseconds required for a
+   * successful background refresh.
+   *
+   * @return  The maximum length of time in milliseconds required for a
+   *          successful background refresh, or zero if there have not been
+   *          any successful background refreshes.
+   */
+  double getMaxBackgroundRefreshDurationMillis()
+  {
+    return maxRefreshDurationNanos.get() / 1_000_000.0d;
+  }
+}
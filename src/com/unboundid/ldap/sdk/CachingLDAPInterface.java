@@ -0,0 +1,1703 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.unboundid.ldap.sdk.controls.EntryChangeNotificationControl;
+import com.unboundid.ldap.sdk.controls.PersistentSearchChangeType;
+import com.unboundid.ldap.sdk.controls.PersistentSearchRequestControl;
+import com.unboundid.ldap.sdk.schema.Schema;
+import com.unboundid.ldif.LDIFException;
+import com.unboundid.util.Debug;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+import com.unboundid.util.Validator;
+
+
+
+/**
+ * This class provides an implementation of an {@link LDAPInterface} that wraps
+ * another {@code LDAPInterface} (for example, an {@link LDAPConnection} or an
+ * {@link LDAPConnectionPool}) and caches the results of search operations so
+ * that repeated searches with the same criteria can be satisfied without
+ * sending a request to the server.  This can be useful for applications that
+ * frequently issue the same small set of searches, like retrieving a user entry
+ * by its uid, or retrieving the groups in which a user is a member.
+ * <BR><BR>
+ * Search results are cached using a key that includes the normalized base DN,
+ * the scope, the normalized filter, the requested attributes, the dereference
+ * policy, the size and time limits, the typesOnly flag, and the request
+ * controls.  Only searches that complete successfully and that do not use a
+ * {@link SearchResultListener} will be cached, and a result will not be cached
+ * if it contains more than a configurable number of entries.  The cache is
+ * bounded both in the number of results that it will hold (with the least
+ * recently used result evicted to make room for a new one) and in the length
+ * of time that each result will be retained.
+ * <BR><BR>
+ * Any add, delete, modify, or modify DN operation processed through this
+ * interface will cause all cached results that could be affected by the change
+ * to be discarded, including results of searches whose scope includes the
+ * target entry and results of searches whose base entry is at or below the
+ * target entry.  Changes made by other clients, or through the wrapped
+ * interface directly, will not be reflected until cached results expire,
+ * unless this cache is also notified of them.  This may be done with the
+ * {@link #subscribeToPersistentSearch} method, which issues a persistent search
+ * that will invalidate cached results for each changed entry, or with the
+ * listener returned by the {@link #createChangeNotificationListener} method,
+ * which may be used with a persistent search or content synchronization
+ * request created by the caller.  Cached results may also be invalidated
+ * explicitly with the {@link #invalidate} and {@link #clear} methods.
+ * <BR><BR>
+ * Note that cached search result objects are shared by all callers that
+ * receive them, and the entries that they contain are read-only.  Also note
+ * that because the results of a search may depend on the identity of the
+ * client that requested it, a single cache should only be used with
+ * connections that are all authenticated as the same user.
+ * <BR><BR>
+ * <H2>Example</H2>
+ * The following example demonstrates the process for wrapping a connection
+ * pool with a cache that will hold up to 1000 results for up to 30 seconds:
+ * <PRE>
+ * CachingLDAPInterface cache =
+ *      new CachingLDAPInterface(connectionPool, 1000, 30_000L);
+ * SearchResultEntry userEntry = cache.searchForEntry("dc=example,dc=com",
+ *      SearchScope.SUB, Filter.createEqualityFilter("uid", "jdoe"));
+ * </PRE>
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+public final class CachingLDAPInterface
+       implements LDAPInterface
+{
+  /**
+   * The default maximum number of entries that a search result may contain in
+   * order to be cached.
+   */
+  public static final int DEFAULT_MAX_ENTRIES_PER_CACHED_RESULT = 100;
+
+
+
+  // A counter that will be incremented whenever cached results are
+  // invalidated.  It is used to prevent a search that was in progress at the
+  // time of an invalidation from caching a result that may be out of date.
+  @NotNull private final AtomicLong invalidationCounter;
+
+  // The number of searches that have been satisfied from the cache.
+  @NotNull private final AtomicLong numCacheHits;
+
+  // The number of cacheable searches that could not be satisfied from the
+  // cache.
+  @NotNull private final AtomicLong numCacheMisses;
+
+  // The maximum number of entries that a search result may contain in order to
+  // be cached.
+  private volatile int maxEntriesPerCachedResult;
+
+  // The maximum number of results to hold in the cache.
+  private final int maxCachedResults;
+
+  // The wrapped interface that will be used to process all operations.
+  @NotNull private final LDAPInterface wrappedInterface;
+
+  // The length of time in nanoseconds that a result may be held in the cache.
+  private final long timeToLiveNanos;
+
+  // The cached results, in least recently used order.  All access must be
+  // synchronized on the map.
+  @NotNull private final LinkedHashMap<String,CachedSearchResult> cache;
+
+
+
+  /**
+   * Creates a new caching LDAP interface with the provided settings.
+   *
+   * @param  wrappedInterface   The interface that will be used to process all
+   *                            operations, including searches that cannot be
+   *                            satisfied from the cache.  It must not be
+   *                            {@code null}.
+   * @param  maxCachedResults   The maximum number of search results to hold
+   *                            in the cache.  It must be greater than zero.
+   * @param  timeToLiveMillis   The maximum length of time in milliseconds that
+   *                            a search result may be held in the cache.  It
+   *                            must be greater than zero.
+   */
+  public CachingLDAPInterface(@NotNull final LDAPInterface wrappedInterface,
+                              final int maxCachedResults,
+                              final long timeToLiveMillis)
+  {
+    Validator.ensureNotNullWithMessage(wrappedInterface,
+         "CachingLDAPInterface.wrappedInterface must not be null.");
+    Validator.ensureTrue((maxCachedResults > 0),
+         "CachingLDAPInterface.maxCachedResults must be greater than zero.");
+    Validator.ensureTrue((timeToLiveMillis > 0L),
+         "CachingLDAPInterface.timeToLiveMillis must be greater than zero.");
+
+    this.wrappedInterface = wrappedInterface;
+    this.maxCachedResults = maxCachedResults;
+
+    timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+    maxEntriesPerCachedResult = DEFAULT_MAX_ENTRIES_PER_CACHED_RESULT;
+    invalidationCounter = new AtomicLong(0L);
+    numCacheHits = new AtomicLong(0L);
+    numCacheMisses = new AtomicLong(0L);
+    cache = new LRUMap(maxCachedResults);
+  }
+
+
+
+  /**
+   * Retrieves the interface that will be used to process all operations,
+   * including searches that cannot be satisfied from the cache.
+   *
+   * @return  The interface that will be used to process all operations.
+   */
+  @NotNull()
+  public LDAPInterface getWrappedInterface()
+  {
+    return wrappedInterface;
+  }
+
+
+
+  /**
+   * Retrieves the maximum number of search results that may be held in the
+   * cache.
+   *
+   * @return  The maximum number of search results that may be held in the
+   *          cache.
+   */
+  public int getMaxCachedResults()
+  {
+    return maxCachedResults;
+  }
+
+
+
+  /**
+   * Retrieves the maximum length of time in milliseconds that a search result
+   * may be held in the cache.
+   *
+   * @return  The maximum length of time in milliseconds that a search result
+   *          may be held in the cache.
+   */
+  public long getTimeToLiveMillis()
+  {
+    return TimeUnit.NANOSECONDS.toMillis(timeToLiveNanos);
+  }
+
+
+
+  /**
+   * Retrieves the maximum number of entries that a search result may contain
+   * in order to be cached.
+   *
+   * @return  The maximum number of entries that a search result may contain in
+   *          order to be cached.
+   */
+  public int getMaxEntriesPerCachedResult()
+  {
+    return maxEntriesPerCachedResult;
+  }
+
+
+
+  /**
+   * Specifies the maximum number of entries that a search result may contain
+   * in order to be cached.  Results with more entries will be returned to the
+   * caller but not cached.
+   *
+   * @param  maxEntriesPerCachedResult  The maximum number of entries that a
+   *                                    search result may contain in order to
+   *                                    be cached.  A value less than zero will
+   *                                    be treated as zero, in which case only
+   *                                    results without any entries will be
+   *                                    cached.
+   */
+  public void setMaxEntriesPerCachedResult(final int maxEntriesPerCachedResult)
+  {
+    this.maxEntriesPerCachedResult = Math.max(0, maxEntriesPerCachedResult);
+  }
+
+
+
+  /**
+   * Retrieves the number of search results currently held in the cache.  This
+   * may include results that have expired but have not yet been removed.
+   *
+   * @return  The number of search results currently held in the cache.
+   */
+  public int getNumCachedResults()
+  {
+    synchronized (cache)
+    {
+      return cache.size();
+    }
+  }
+
+
+
+  /**
+   * Retrieves the number of searches that have been satisfied from the cache.
+   *
+   * @return  The number of searches that have been satisfied from the cache.
+   */
+  public long getNumCacheHits()
+  {
+    return numCacheHits.get();
+  }
+
+
+
+  /**
+   * Retrieves the number of cacheable searches that could not be satisfied
+   * from the cache and were sent to the server.  Searches that are not
+   * cacheable (for example, because they use a search result listener) will
+   * not be included in this count.
+   *
+   * @return  The number of cacheable searches that could not be satisfied from
+   *          the cache.
+   */
+  public long getNumCacheMisses()
+  {
+    return numCacheMisses.get();
+  }
+
+
+
+  /**
+   * Removes all results from the cache.
+   */
+  public void clear()
+  {
+    synchronized (cache)
+    {
+      invalidationCounter.incrementAndGet();
+      cache.clear();
+    }
+  }
+
+
+
+  /**
+   * Removes all cached results that could be affected by a change to the
+   * specified entry.  This includes the results of searches whose base and
+   * scope include the entry, as well as the results of searches whose base
+   * entry is at or below the specified entry (since those may be affected if
+   * the entry is renamed or removed).
+   *
+   * @param  dn  The DN of the entry that has been changed.  It must not be
+   *             {@code null}.  If it cannot be parsed as a valid DN, then all
+   *             results will be removed from the cache.
+   */
+  public void invalidate(@NotNull final String dn)
+  {
+    final DN parsedDN;
+    try
+    {
+      parsedDN = new DN(dn);
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      clear();
+      return;
+    }
+
+    invalidate(parsedDN);
+  }
+
+
+
+  /**
+   * Removes all cached results that could be affected by a change to the
+   * specified entry.
+   *
+   * @param  dn  The DN of the entry that has been changed.  It must not be
+   *             {@code null}.
+   */
+  private void invalidate(@NotNull final DN dn)
+  {
+    synchronized (cache)
+    {
+      invalidationCounter.incrementAndGet();
+
+      final Iterator<CachedSearchResult> iterator = cache.values().iterator();
+      while (iterator.hasNext())
+      {
+        final CachedSearchResult r = iterator.next();
+        try
+        {
+          if (r.baseDN.isDescendantOf(dn, true) ||
+               dn.matchesBaseAndScope(r.baseDN, r.scope))
+          {
+            iterator.remove();
+          }
+        }
+        catch (final LDAPException le)
+        {
+          Debug.debugException(le);
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+
+
+  /**
+   * Creates a search result listener that may be used with a persistent search
+   * or content synchronization request to invalidate cached results for each
+   * entry that the server reports as having changed.  Cached results will be
+   * invalidated for the DN of each entry returned, as well as for the previous
+   * DN of an entry that has been renamed if the entry includes an entry change
+   * notification control.  All results will be removed from the cache if the
+   * search completes, since changes will no longer be reported.
+   *
+   * @return  A search result listener that may be used to invalidate cached
+   *          results.
+   */
+  @NotNull()
+  public AsyncSearchResultListener createChangeNotificationListener()
+  {
+    return new ChangeNotificationListener();
+  }
+
+
+
+  /**
+   * Issues a persistent search request over the provided connection so that
+   * cached results will be invalidated whenever the server reports that an
+   * entry at or below the specified base DN has been added, deleted, modified,
+   * or renamed.  The server must support the persistent search request control
+   * for this to work.  The persistent search may be stopped by abandoning the
+   * request with the returned async request ID or by closing the connection.
+   *
+   * @param  connection  The connection over which to issue the persistent
+   *                     search.  It must not be {@code null}, it must be
+   *                     established, and it should not be operating in
+   *                     synchronous mode.  It should not be a connection that
+   *                     is part of a connection pool.
+   * @param  baseDN      The base DN for the persistent search.  It must not be
+   *                     {@code null}.
+   *
+   * @return  The async request ID for the persistent search.
+   *
+   * @throws  LDAPException  If a problem occurs while sending the request.
+   */
+  @NotNull()
+  public AsyncRequestID subscribeToPersistentSearch(
+              @NotNull final LDAPConnection connection,
+              @NotNull final String baseDN)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(connection, baseDN);
+
+    final SearchRequest searchRequest =
+         new SearchRequest(createChangeNotificationListener(), baseDN,
+              SearchScope.SUB, Filter.createPresenceFilter("objectClass"),
+              SearchRequest.NO_ATTRIBUTES);
+    searchRequest.addControl(new PersistentSearchRequestControl(
+         PersistentSearchChangeType.allChangeTypes(), true, true));
+
+    return connection.asyncSearch(searchRequest);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public RootDSE getRootDSE()
+         throws LDAPException
+  {
+    return wrappedInterface.getRootDSE();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public Schema getSchema()
+         throws LDAPException
+  {
+    return wrappedInterface.getSchema();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public Schema getSchema(@Nullable final String entryDN)
+         throws LDAPException
+  {
+    return wrappedInterface.getSchema(entryDN);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult add(@NotNull final String dn,
+                        @NotNull final Attribute... attributes)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(dn, attributes);
+
+    return add(new AddRequest(dn, attributes));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult add(@NotNull final String dn,
+                        @NotNull final Collection<Attribute> attributes)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(dn, attributes);
+
+    return add(new AddRequest(dn, attributes));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult add(@NotNull final Entry entry)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(entry);
+
+    return add(new AddRequest(entry));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult add(@NotNull final String... ldifLines)
+         throws LDIFException, LDAPException
+  {
+    return add(new AddRequest(ldifLines));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult add(@NotNull final AddRequest addRequest)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(addRequest);
+
+    try
+    {
+      return wrappedInterface.add(addRequest);
+    }
+    finally
+    {
+      // The DN of a request created from a template may not reflect the entry
+      // that was actually targeted, so all cached results must be discarded.
+      if (addRequest.getPreparedProtocolOp() == null)
+      {
+        invalidate(addRequest.getDN());
+      }
+      else
+      {
+        clear();
+      }
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult add(@NotNull final ReadOnlyAddRequest addRequest)
+         throws LDAPException
+  {
+    return add((AddRequest) addRequest);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public CompareResult compare(@NotNull final String dn,
+                               @NotNull final String attributeName,
+                               @NotNull final String assertionValue)
+         throws LDAPException
+  {
+    return wrappedInterface.compare(dn, attributeName, assertionValue);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public CompareResult compare(@NotNull final CompareRequest compareRequest)
+         throws LDAPException
+  {
+    return wrappedInterface.compare(compareRequest);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public CompareResult compare(
+              @NotNull final ReadOnlyCompareRequest compareRequest)
+         throws LDAPException
+  {
+    return wrappedInterface.compare(compareRequest);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult delete(@NotNull final String dn)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(dn);
+
+    return delete(new DeleteRequest(dn));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult delete(@NotNull final DeleteRequest deleteRequest)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(deleteRequest);
+
+    try
+    {
+      return wrappedInterface.delete(deleteRequest);
+    }
+    finally
+    {
+      // The DN of a request created from a template may not reflect the entry
+      // that was actually targeted, so all cached results must be discarded.
+      if (deleteRequest.getPreparedProtocolOp() == null)
+      {
+        invalidate(deleteRequest.getDN());
+      }
+      else
+      {
+        clear();
+      }
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult delete(@NotNull final ReadOnlyDeleteRequest deleteRequest)
+         throws LDAPException
+  {
+    return delete((DeleteRequest) deleteRequest);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult modify(@NotNull final String dn,
+                           @NotNull final Modification mod)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(dn, mod);
+
+    return modify(new ModifyRequest(dn, mod));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult modify(@NotNull final String dn,
+                           @NotNull final Modification... mods)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(dn, mods);
+
+    return modify(new ModifyRequest(dn, mods));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult modify(@NotNull final String dn,
+                           @NotNull final List<Modification> mods)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(dn, mods);
+
+    return modify(new ModifyRequest(dn, mods));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult modify(@NotNull final String... ldifModificationLines)
+         throws LDIFException, LDAPException
+  {
+    Validator.ensureNotNull(ldifModificationLines);
+
+    return modify(new ModifyRequest(ldifModificationLines));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult modify(@NotNull final ModifyRequest modifyRequest)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(modifyRequest);
+
+    try
+    {
+      return wrappedInterface.modify(modifyRequest);
+    }
+    finally
+    {
+      // The DN of a request created from a template may not reflect the entry
+      // that was actually targeted, so all cached results must be discarded.
+      if (modifyRequest.getPreparedProtocolOp() == null)
+      {
+        invalidate(modifyRequest.getDN());
+      }
+      else
+      {
+        clear();
+      }
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult modify(@NotNull final ReadOnlyModifyRequest modifyRequest)
+         throws LDAPException
+  {
+    return modify((ModifyRequest) modifyRequest);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult modifyDN(@NotNull final String dn,
+                             @NotNull final String newRDN,
+                             final boolean deleteOldRDN)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(dn, newRDN);
+
+    return modifyDN(new ModifyDNRequest(dn, newRDN, deleteOldRDN));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult modifyDN(@NotNull final String dn,
+                             @NotNull final String newRDN,
+                             final boolean deleteOldRDN,
+                             @Nullable final String newSuperiorDN)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(dn, newRDN);
+
+    return modifyDN(new ModifyDNRequest(dn, newRDN, deleteOldRDN,
+         newSuperiorDN));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult modifyDN(@NotNull final ModifyDNRequest modifyDNRequest)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(modifyDNRequest);
+
+    try
+    {
+      return wrappedInterface.modifyDN(modifyDNRequest);
+    }
+    finally
+    {
+      if (modifyDNRequest.getPreparedProtocolOp() != null)
+      {
+        // The DNs of a request created from a template may not reflect the
+        // entry that was actually renamed, so all cached results must be
+        // discarded.
+        clear();
+      }
+      else
+      {
+        invalidate(modifyDNRequest.getDN());
+
+        try
+        {
+          final DN currentDN = new DN(modifyDNRequest.getDN());
+          final String newSuperiorDN = modifyDNRequest.getNewSuperiorDN();
+          final DN parentDN;
+          if (newSuperiorDN == null)
+          {
+            parentDN = currentDN.getParent();
+          }
+          else
+          {
+            parentDN = new DN(newSuperiorDN);
+          }
+
+          final RDN newRDN = new RDN(modifyDNRequest.getNewRDN());
+          if (parentDN == null)
+          {
+            invalidate(new DN(newRDN));
+          }
+          else
+          {
+            invalidate(new DN(newRDN, parentDN));
+          }
+        }
+        catch (final LDAPException le)
+        {
+          Debug.debugException(le);
+          clear();
+        }
+      }
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPResult modifyDN(
+              @NotNull final ReadOnlyModifyDNRequest modifyDNRequest)
+         throws LDAPException
+  {
+    return modifyDN((ModifyDNRequest) modifyDNRequest);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public SearchResult search(@NotNull final SearchRequest searchRequest)
+         throws LDAPSearchException
+  {
+    Validator.ensureNotNull(searchRequest);
+
+    // Searches that use a search result listener cannot be cached, since the
+    // entries and references will not be included in the result.
+    if (searchRequest.getSearchResultListener() != null)
+    {
+      return wrappedInterface.search(searchRequest);
+    }
+
+    // Searches created from a request template cannot be cached, since the
+    // base DN and filter of the request will not reflect the values that are
+    // sent to the server.
+    if (searchRequest.getPreparedProtocolOp() != null)
+    {
+      return wrappedInterface.search(searchRequest);
+    }
+
+    final DN baseDN;
+    try
+    {
+      baseDN = new DN(searchRequest.getBaseDN());
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      return wrappedInterface.search(searchRequest);
+    }
+
+    final String cacheKey = getCacheKey(searchRequest, baseDN);
+    synchronized (cache)
+    {
+      final CachedSearchResult cachedResult = cache.get(cacheKey);
+      if (cachedResult != null)
+      {
+        if ((System.nanoTime() - cachedResult.cacheTimeNanos) < timeToLiveNanos)
+        {
+          numCacheHits.incrementAndGet();
+          return cachedResult.searchResult;
+        }
+
+        cache.remove(cacheKey);
+      }
+    }
+
+    numCacheMisses.incrementAndGet();
+    final long invalidationCount = invalidationCounter.get();
+    final long cacheTimeNanos = System.nanoTime();
+    final SearchResult searchResult = wrappedInterface.search(searchRequest);
+    if ((searchResult.getResultCode() == ResultCode.SUCCESS) &&
+         (searchResult.getEntryCount() <= maxEntriesPerCachedResult))
+    {
+      synchronized (cache)
+      {
+        // If any cached results were invalidated while the search was in
+        // progress, then the result may not reflect the change, so we can't
+        // cache it.
+        if (invalidationCounter.get() == invalidationCount)
+        {
+          cache.put(cacheKey, new CachedSearchResult(searchResult, baseDN,
+               searchRequest.getScope(), cacheTimeNanos));
+        }
+      }
+    }
+
+    return searchResult;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public SearchResultEntry getEntry(@NotNull final String dn)
+         throws LDAPException
+  {
+    return getEntry(dn, (String[]) null);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public SearchResultEntry getEntry(@NotNull final String dn,
+                                    @Nullable final String... attributes)
+         throws LDAPException
+  {
+    final Filter filter = Filter.createPresenceFilter("objectClass");
+
+    final SearchResult result;
+    try
+    {
+      final SearchRequest searchRequest =
+           new SearchRequest(dn, SearchScope.BASE, DereferencePolicy.NEVER, 1,
+                             0, false, filter, attributes);
+      result = search(searchRequest);
+    }
+    catch (final LDAPException le)
+    {
+      if (le.getResultCode().equals(ResultCode.NO_SUCH_OBJECT))
+      {
+        return null;
+      }
+      else
+      {
+        throw le;
+      }
+    }
+
+    if (! result.getResultCode().equals(ResultCode.SUCCESS))
+    {
+      throw new LDAPException(result);
+    }
+
+    final List<SearchResultEntry> entryList = result.getSearchEntries();
+    if (entryList.isEmpty())
+    {
+      return null;
+    }
+    else
+    {
+      return entryList.get(0);
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public SearchResult search(@NotNull final String baseDN,
+                             @NotNull final SearchScope scope,
+                             @NotNull final String filter,
+                             @Nullable final String... attributes)
+         throws LDAPSearchException
+  {
+    Validator.ensureNotNull(baseDN, filter);
+
+    try
+    {
+      return search(new SearchRequest(baseDN, scope, filter, attributes));
+    }
+    catch (final LDAPSearchException lse)
+    {
+      Debug.debugException(lse);
+      throw lse;
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      throw new LDAPSearchException(le);
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public SearchResult search(@NotNull final String baseDN,
+                             @NotNull final SearchScope scope,
+                             @NotNull final Filter filter,
+                             @Nullable final String... attributes)
+         throws LDAPSearchException
+  {
+    Validator.ensureNotNull(baseDN, filter);
+
+    return search(new SearchRequest(baseDN, scope, filter, attributes));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public SearchResult search(
+              @Nullable final SearchResultListener searchResultListener,
+              @NotNull final String baseDN, @NotNull final SearchScope scope,
+              @NotNull final String filter,
+              @Nullable final String... attributes)
+         throws LDAPSearchException
+  {
+    Validator.ensureNotNull(baseDN, filter);
+
+    try
+    {
+      return search(new SearchRequest(searchResultListener, baseDN, scope,
+                                      filter, attributes));
+    }
+    catch (final LDAPSearchException lse)
+    {
+      Debug.debugException(lse);
+      throw lse;
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      throw new LDAPSearchException(le);
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public SearchResult search(
+              @Nullable final SearchResultListener searchResultListener,
+              @NotNull final String baseDN, @NotNull final SearchScope scope,
+              @NotNull final Filter filter,
+              @Nullable final String... attributes)
+         throws LDAPSearchException
+  {
+    Validator.ensureNotNull(baseDN, filter);
+
+    try
+    {
+      return search(new SearchRequest(searchResultListener, baseDN, scope,
+                                      filter, attributes));
+    }
+    catch (final LDAPSearchException lse)
+    {
+      Debug.debugException(lse);
+      throw lse;
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public SearchResult search(@NotNull final String baseDN,
+                             @NotNull final SearchScope scope,
+                             @NotNull final DereferencePolicy derefPolicy,
+                             final int sizeLimit, final int timeLimit,
+                             final boolean typesOnly,
+                             @NotNull final String filter,
+                             @Nullable final String... attributes)
+         throws LDAPSearchException
+  {
+    Validator.ensureNotNull(baseDN, filter);
+
+    try
+    {
+      return search(new SearchRequest(baseDN, scope, derefPolicy, sizeLimit,
+                                      timeLimit, typesOnly, filter,
+                                      attributes));
+    }
+    catch (final LDAPSearchException lse)
+    {
+      Debug.debugException(lse);
+      throw lse;
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      throw new LDAPSearchException(le);
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public SearchResult search(@NotNull final String baseDN,
+                             @NotNull final SearchScope scope,
+                             @NotNull final DereferencePolicy derefPolicy,
+                             final int sizeLimit, final int timeLimit,
+                             final boolean typesOnly,
+                             @NotNull final Filter filter,
+                             @Nullable final String... attributes)
+         throws LDAPSearchException
+  {
+    Validator.ensureNotNull(baseDN, filter);
+
+    return search(new SearchRequest(baseDN, scope, derefPolicy, sizeLimit,
+                                    timeLimit, typesOnly, filter, attributes));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public SearchResult search(
+              @Nullable final SearchResultListener searchResultListener,
+              @NotNull final String baseDN,
+              @NotNull final SearchScope scope,
+              @NotNull final DereferencePolicy derefPolicy, final int sizeLimit,
+              final int timeLimit, final boolean typesOnly,
+              @NotNull final String filter,
+              @Nullable final String... attributes)
+         throws LDAPSearchException
+  {
+    Validator.ensureNotNull(baseDN, filter);
+
+    try
+    {
+      return search(new SearchRequest(searchResultListener, baseDN, scope,
+                                      derefPolicy, sizeLimit, timeLimit,
+                                      typesOnly, filter, attributes));
+    }
+    catch (final LDAPSearchException lse)
+    {
+      Debug.debugException(lse);
+      throw lse;
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      throw new LDAPSearchException(le);
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public SearchResult search(
+              @Nullable final SearchResultListener searchResultListener,
+              @NotNull final String baseDN,
+              @NotNull final SearchScope scope,
+              @NotNull final DereferencePolicy derefPolicy, final int sizeLimit,
+              final int timeLimit, final boolean typesOnly,
+              @NotNull final Filter filter,
+              @Nullable final String... attributes)
+         throws LDAPSearchException
+  {
+    Validator.ensureNotNull(baseDN, filter);
+
+    return search(new SearchRequest(searchResultListener, baseDN, scope,
+                                    derefPolicy, sizeLimit, timeLimit,
+                                    typesOnly, filter, attributes));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public SearchResult search(@NotNull final ReadOnlySearchRequest searchRequest)
+         throws LDAPSearchException
+  {
+    return search((SearchRequest) searchRequest);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public SearchResultEntry searchForEntry(@NotNull final String baseDN,
+                                          @NotNull final SearchScope scope,
+                                          @NotNull final String filter,
+                                          @Nullable final String... attributes)
+         throws LDAPSearchException
+  {
+    final SearchRequest r;
+    try
+    {
+      r = new SearchRequest(baseDN, scope, DereferencePolicy.NEVER, 1, 0, false,
+           filter, attributes);
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      throw new LDAPSearchException(le);
+    }
+
+    return searchForEntry(r);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public SearchResultEntry searchForEntry(@NotNull final String baseDN,
+                                          @NotNull final SearchScope scope,
+                                          @NotNull final Filter filter,
+                                          @Nullable final String... attributes)
+         throws LDAPSearchException
+  {
+    return searchForEntry(new SearchRequest(baseDN, scope,
+         DereferencePolicy.NEVER, 1, 0, false, filter, attributes));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public SearchResultEntry searchForEntry(@NotNull final String baseDN,
+                                @NotNull final SearchScope scope,
+                                @NotNull final DereferencePolicy derefPolicy,
+                                final int timeLimit, final boolean typesOnly,
+                                @NotNull final String filter,
+                                @Nullable final String... attributes)
+         throws LDAPSearchException
+  {
+    final SearchRequest r;
+    try
+    {
+      r = new SearchRequest(baseDN, scope, derefPolicy, 1, timeLimit, typesOnly,
+           filter, attributes);
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      throw new LDAPSearchException(le);
+    }
+
+    return searchForEntry(r);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public SearchResultEntry searchForEntry(@NotNull final String baseDN,
+                                @NotNull final SearchScope scope,
+                                @NotNull final DereferencePolicy derefPolicy,
+                                final int timeLimit, final boolean typesOnly,
+                                @NotNull final Filter filter,
+                                @Nullable final String... attributes)
+       throws LDAPSearchException
+  {
+    return searchForEntry(new SearchRequest(baseDN, scope, derefPolicy, 1,
+         timeLimit, typesOnly, filter, attributes));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public SearchResultEntry searchForEntry(
+                                @NotNull final SearchRequest searchRequest)
+         throws LDAPSearchException
+  {
+    if (searchRequest.getPreparedProtocolOp() != null)
+    {
+      return wrappedInterface.searchForEntry(searchRequest);
+    }
+
+    final SearchRequest r;
+    if ((searchRequest.getSearchResultListener() != null) ||
+        (searchRequest.getSizeLimit() != 1))
+    {
+      r = new SearchRequest(searchRequest.getBaseDN(), searchRequest.getScope(),
+           searchRequest.getDereferencePolicy(), 1,
+           searchRequest.getTimeLimitSeconds(), searchRequest.typesOnly(),
+           searchRequest.getFilter(), searchRequest.getAttributes());
+
+      r.setFollowReferrals(searchRequest.followReferralsInternal());
+      r.setReferralConnector(searchRequest.getReferralConnectorInternal());
+      r.setResponseTimeoutMillis(searchRequest.getResponseTimeoutMillis(null));
+
+      if (searchRequest.hasControl())
+      {
+        r.setControlsInternal(searchRequest.getControls());
+      }
+    }
+    else
+    {
+      r = searchRequest;
+    }
+
+    final SearchResult result;
+    try
+    {
+      result = search(r);
+    }
+    catch (final LDAPSearchException lse)
+    {
+      Debug.debugException(lse);
+
+      if (lse.getResultCode() == ResultCode.NO_SUCH_OBJECT)
+      {
+        return null;
+      }
+
+      throw lse;
+    }
+
+    if (result.getEntryCount() == 0)
+    {
+      return null;
+    }
+    else
+    {
+      return result.getSearchEntries().get(0);
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public SearchResultEntry searchForEntry(
+              @NotNull final ReadOnlySearchRequest searchRequest)
+         throws LDAPSearchException
+  {
+    return searchForEntry((SearchRequest) searchRequest);
+  }
+
+
+  /**
+   * Retrieves the key that will be used to cache the result of the provided
+   * search request.
+   *
+   * @param  searchRequest  The search request for which to obtain the key.
+   * @param  baseDN         The parsed base DN for the search request.
+   *
+   * @return  The key that will be used to cache the result of the provided
+   *          search request.
+   */
+  @NotNull()
+  private static String getCacheKey(@NotNull final SearchRequest searchRequest,
+                                    @NotNull final DN baseDN)
+  {
+    final StringBuilder buffer = new StringBuilder();
+    buffer.append(baseDN.toNormalizedString());
+    buffer.append('\u0000');
+    buffer.append(searchRequest.getScope().intValue());
+    buffer.append('\u0000');
+    buffer.append(searchRequest.getDereferencePolicy().intValue());
+    buffer.append('\u0000');
+    buffer.append(searchRequest.getSizeLimit());
+    buffer.append('\u0000');
+    buffer.append(searchRequest.getTimeLimitSeconds());
+    buffer.append('\u0000');
+    buffer.append(searchRequest.typesOnly());
+    buffer.append('\u0000');
+    searchRequest.getFilter().toNormalizedString(buffer);
+
+    final TreeSet<String> attributes = new TreeSet<>();
+    for (final String attribute : searchRequest.getAttributes())
+    {
+      attributes.add(StaticUtils.toLowerCase(attribute));
+    }
+
+    for (final String attribute : attributes)
+    {
+      buffer.append('\u0000');
+      buffer.append(attribute);
+    }
+
+    for (final Control control : searchRequest.getControls())
+    {
+      buffer.append('\u0001');
+      buffer.append(control.getOID());
+      buffer.append('\u0000');
+      buffer.append(control.isCritical());
+      if (control.hasValue())
+      {
+        buffer.append('\u0000');
+        StaticUtils.toHex(control.getValue().getValue(), buffer);
+      }
+    }
+
+    return buffer.toString();
+  }
+
+
+
+  /**
+   * This class provides a data structure that holds a cached search result
+   * along with the information needed to determine when it should be removed
+   * from the cache.
+   */
+  private static final class CachedSearchResult
+  {
+    // The parsed base DN for the search.
+    @NotNull private final DN baseDN;
+
+    // The time, as reported by System.nanoTime, that the search was sent.
+    private final long cacheTimeNanos;
+
+    // The cached search result.
+    @NotNull private final SearchResult searchResult;
+
+    // The scope for the search.
+    @NotNull private final SearchScope scope;
+
+
+
+    /**
+     * Creates a new cached search result with the provided information.
+     *
+     * @param  searchResult    The search result to cache.
+     * @param  baseDN          The parsed base DN for the search.
+     * @param  scope           The scope for the search.
+     * @param  cacheTimeNanos  The time, as reported by System.nanoTime, that
+     *                         the search was sent.
+     */
+    private CachedSearchResult(@NotNull final SearchResult searchResult,
+                               @NotNull final DN baseDN,
+                               @NotNull final SearchScope scope,
+                               final long cacheTimeNanos)
+    {
+      this.searchResult = searchResult;
+      this.baseDN = baseDN;
+      this.scope = scope;
+      this.cacheTimeNanos = cacheTimeNanos;
+    }
+  }
+
+
+
+  /**
+   * This class provides a map that will hold cached search results in least
+   * recently used order, and that will automatically remove the least recently
+   * used result when the maximum number of results is exceeded.
+   */
+  private static final class LRUMap
+          extends LinkedHashMap<String,CachedSearchResult>
+  {
+    /**
+     * The serial version UID for this serializable class.
+     */
+    private static final long serialVersionUID = 2466383417582766541L;
+
+
+
+    // The maximum number of results to hold in the map.
+    private final int maxSize;
+
+
+
+    /**
+     * Creates a new LRU map with the provided maximum size.
+     *
+     * @param  maxSize  The maximum number of results to hold in the map.
+     */
+    private LRUMap(final int maxSize)
+    {
+      super(StaticUtils.computeMapCapacity(Math.min(maxSize, 1024)), 0.75f,
+           true);
+
+      this.maxSize = maxSize;
+    }
+
+
+
+    /**
+     * Indicates whether the least recently used result should be removed from
+     * the map after a new result has been added.
+     *
+     * @param  eldest  The least recently used entry in the map.
+     *
+     * @return  {@code true} if the least recently used result should be
+     *          removed, or {@code false} if not.
+     */
+    @Override()
+    protected boolean removeEldestEntry(
+                 @NotNull final Map.Entry<String,CachedSearchResult> eldest)
+    {
+      return (size() > maxSize);
+    }
+  }
+
+
+
+  /**
+   * This class provides a search result listener that will invalidate cached
+   * results for each entry returned by a persistent search or content
+   * synchronization request.
+   */
+  private final class ChangeNotificationListener
+          implements AsyncSearchResultListener
+  {
+    /**
+     * The serial version UID for this serializable class.
+     */
+    private static final long serialVersionUID = -3389946151567473062L;
+
+
+
+    /**
+     * Invalidates cached results that may be affected by a change to the
+     * provided entry.
+     *
+     * @param  searchEntry  The search result entry that has been returned by
+     *                      the server.
+     */
+    @Override()
+    public void searchEntryReturned(
+                     @NotNull final SearchResultEntry searchEntry)
+    {
+      invalidate(searchEntry.getDN());
+
+      try
+      {
+        final EntryChangeNotificationControl ecn =
+             EntryChangeNotificationControl.get(searchEntry);
+        if ((ecn != null) && (ecn.getPreviousDN() != null))
+        {
+          invalidate(ecn.getPreviousDN());
+        }
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+        clear();
+      }
+    }
+
+
+
+    /**
+     * Indicates that the provided search result reference has been returned by
+     * the server.  References will be ignored.
+     *
+     * @param  searchReference  The search result reference that has been
+     *                          returned by the server.
+     */
+    @Override()
+    public void searchReferenceReturned(
+                     @NotNull final SearchResultReference searchReference)
+    {
+      // No action is required.
+    }
+
+
+
+    /**
+     * Removes all results from the cache, since changes will no longer be
+     * reported.
+     *
+     * @param  requestID     The async request ID of the request for which the
+     *                       response was received.
+     * @param  searchResult  The search result that has been received.
+     */
+    @Override()
+    public void searchResultReceived(@NotNull final AsyncRequestID requestID,
+                                     @NotNull final SearchResult searchResult)
+    {
+      clear();
+    }
+  }
+}
@@ -41,6 +41,7 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -59,6 +60,16 @@ import com.unboundid.util.ThreadSafetyLevel;
  * This class provides an implementation of a {@code NameResolver} that will
  * cache lookups to potentially improve performance and provide a degree of
  * resiliency against name service outages.
+ * <BR><BR>
+ * By default, a cached record will be used until it expires, and the next
+ * attempt to use it after that will wait for a new name service lookup.  The
+ * resolver may optionally be configured with a refresh-ahead window, so that a
+ * record that is about to expire will be refreshed in the background while the
+ * cached version continues to be used, and with a maximum staleness, so that a
+ * record that has expired within that period of time will still be used while
+ * it is refreshed in the background.  Either of these options can eliminate
+ * name service latency from most lookups without returning records that are
+ * arbitrarily out of date.
  */
 @ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
 public final class CachingNameResolver
@@ -94,6 +105,10 @@ public final class CachingNameResolver
   @NotNull private final Map<String,ObjectPair<Long,InetAddress[]>>
        nameToAddressMap;
 
+  // The object used to refresh cached records in the background and to keep
+  // track of cache statistics.
+  @NotNull private final BackgroundCacheRefresher refresher;
+
   // The length of time, in milliseconds, that a cached record should be
   // considered valid.
   private final long timeoutMillis;
@@ -127,8 +142,44 @@ public final class CachingNameResolver
    *                        from the name service.
    */
   public CachingNameResolver(final int timeoutMillis)
+  {
+    this(timeoutMillis, 0L, 0L);
+  }
+
+
+
+  /**
+   * Creates a new instance of this caching name resolver that will use the
+   * specified timeout, and that may refresh cached records in the background.
+   *
+   * @param  timeoutMillis       The length of time, in milliseconds, that
+   *                             cache records should be considered valid.  It
+   *                             must be greater than zero.
+   * @param  refreshAheadMillis  The length of time, in milliseconds, before a
+   *                             cached record expires that it should be
+   *                             refreshed in the background while the cached
+   *                             version continues to be used.  A value that is
+   *                             less than or equal to zero indicates that
+   *                             records should not be refreshed before they
+   *                             expire.
+   * @param  maxStalenessMillis  The maximum length of time, in milliseconds,
+   *                             after a cached record has expired that it may
+   *                             continue to be used while it is refreshed in
+   *                             the background.  A value that is less than or
+   *                             equal to zero indicates that the first attempt
+   *                             to use an expired record should wait for a
+   *                             name service lookup.  If a record has been
+   *                             expired for longer than this, then the caller
+   *                             will wait for a lookup, but the cached record
+   *                             will still be used if that lookup fails.
+   */
+  public CachingNameResolver(final int timeoutMillis,
+                             final long refreshAheadMillis,
+                             final long maxStalenessMillis)
   {
     this.timeoutMillis = timeoutMillis;
+    refresher =
+         new BackgroundCacheRefresher(refreshAheadMillis, maxStalenessMillis);
     localHostAddress = new AtomicReference<>();
     loopbackAddress = new AtomicReference<>();
     addressToNameMap = new ConcurrentHashMap<>(20);
@@ -155,6 +206,139 @@ public final class CachingNameResolver
 
 
 
+  /**
+   * Retrieves the length of time, in milliseconds, before a cached record
+   * expires that it should be refreshed in the background.
+   *
+   * @return  The length of time, in milliseconds, before a cached record
+   *          expires that it should be refreshed in the background, or zero if
+   *          records will not be refreshed before they expire.
+   */
+  public long getRefreshAheadMillis()
+  {
+    return refresher.getRefreshAheadMillis();
+  }
+
+
+
+  /**
+   * Retrieves the maximum length of time, in milliseconds, after a cached
+   * record has expired that it may continue to be used while it is refreshed
+   * in the background.
+   *
+   * @return  The maximum length of time, in milliseconds, after a cached record
+   *          has expired that it may continue to be used while it is refreshed
+   *          in the background, or zero if expired records will not be used
+   *          without first attempting a name service lookup.
+   */
+  public long getMaxStalenessMillis()
+  {
+    return refresher.getMaxStalenessMillis();
+  }
+
+
+
+  /**
+   * Retrieves the number of times that an unexpired record was retrieved from
+   * the cache of host names and IP addresses.
+   *
+   * @return  The number of times that an unexpired record was retrieved from
+   *          the cache.
+   */
+  public long getNumCacheHits()
+  {
+    return refresher.getNumCacheHits();
+  }
+
+
+
+  /**
+   * Retrieves the number of times that an expired record was retrieved from
+   * the cache of host names and IP addresses while it was being refreshed in
+   * the background.
+   *
+   * @return  The number of times that an expired record was retrieved from the
+   *          cache while it was being refreshed in the background.
+   */
+  public long getNumStaleCacheHits()
+  {
+    return refresher.getNumStaleCacheHits();
+  }
+
+
+
+  /**
+   * Retrieves the number of times that there was no usable record in the
+   * cache of host names and IP addresses, so that a caller needed to wait for a
+   * name service lookup.
+   *
+   * @return  The number of times that there was no usable record in the cache.
+   */
+  public long getNumCacheMisses()
+  {
+    return refresher.getNumCacheMisses();
+  }
+
+
+
+  /**
+   * Retrieves the number of background refreshes that have completed
+   * successfully.
+   *
+   * @return  The number of background refreshes that have completed
+   *          successfully.
+   */
+  public long getNumBackgroundRefreshes()
+  {
+    return refresher.getNumBackgroundRefreshes();
+  }
+
+
+
+  /**
+   * Retrieves the number of background refreshes that have failed.  The
+   * previously cached record will continue to be used after a failed refresh,
+   * subject to the maximum staleness.
+   *
+   * @return  The number of background refreshes that have failed.
+   */
+  public long getNumFailedBackgroundRefreshes()
+  {
+    return refresher.getNumFailedBackgroundRefreshes();
+  }
+
+
+
+  /**
+   * Retrieves the average length of time, in milliseconds, required for a
+   * successful background refresh.
+   *
+   * @return  The average length of time, in milliseconds, required for a
+   *          successful background refresh, or zero if there have not been any
+   *          successful background refreshes.
+   */
+  public double getAverageBackgroundRefreshDurationMillis()
+  {
+    return refresher.getAverageBackgroundRefreshDurationMillis();
+  }
+
+
+
+  /**
+   * Retrieves the maximum length of time, in milliseconds, required for a
+   * successful background refresh.
+   *
+   * @return  The maximum length of time, in milliseconds, required for a
+   *          successful background refresh, or zero if there have not been any
+   *          successful background refreshes.
+   */
+  public double getMaxBackgroundRefreshDurationMillis()
+  {
+    return refresher.getMaxBackgroundRefreshDurationMillis();
+  }
+
+
+
   /**
    * {@inheritDoc}
    */
@@ -241,14 +425,32 @@ public final class CachingNameResolver
          nameToAddressMap.get(lowerHost);
     if (cachedRecord == null)
     {
+      refresher.recordCacheMiss();
       return lookUpAndCache(host, lowerHost);
     }
 
 
-    // If the cached record is not expired, then return its set of addresses.
-    if (System.currentTimeMillis() <= cachedRecord.getFirst())
+    // If the cached record is not expired, or if it is within the refresh-ahead
+    // or maximum staleness windows, then return its set of addresses.  In the
+    // latter case, refresh the record in the background so that subsequent
+    // lookups will get the updated version.
+    switch (refresher.getCachedRecordAction(cachedRecord.getFirst()))
     {
-      return cachedRecord.getSecond();
+      case USE_CACHED:
+        return cachedRecord.getSecond();
+
+      case USE_CACHED_AND_REFRESH:
+        refresher.refreshInBackground(lowerHost, new Callable<Object>()
+        {
+          @Override()
+          @NotNull()
+          public Object call()
+                 throws UnknownHostException
+          {
+            return lookUpAndCache(host, lowerHost);
+          }
+        });
+        return cachedRecord.getSecond();
     }
 
 
@@ -355,14 +557,40 @@ public final class CachingNameResolver
          addressToNameMap.get(inetAddress);
     if (cachedRecord == null)
     {
+      refresher.recordCacheMiss();
       return lookUpAndCache(inetAddress, null);
     }
 
 
-    // If the cached record is not expired, then return its canonical host name.
-    if (System.currentTimeMillis() <= cachedRecord.getFirst())
+    // If the cached record is not expired, or if it is within the refresh-ahead
+    // or maximum staleness windows, then return its canonical host name.  In
+    // the latter case, refresh the record in the background so that subsequent
+    // lookups will get the updated version.
+    switch (refresher.getCachedRecordAction(cachedRecord.getFirst()))
     {
-      return cachedRecord.getSecond();
+      case USE_CACHED:
+        return cachedRecord.getSecond();
+
+      case USE_CACHED_AND_REFRESH:
+        refresher.refreshInBackground(inetAddress, new Callable<Object>()
+        {
+          @Override()
+          @NotNull()
+          public Object call()
+                 throws UnknownHostException
+          {
+            // The lookUpAndCache method doesn't throw an exception if the
+            // lookup fails, but it also won't update the cache in that case.
+            final String name = lookUpAndCache(inetAddress, null);
+            if (addressToNameMap.get(inetAddress) == cachedRecord)
+            {
+              throw new UnknownHostException(name);
+            }
+
+            return name;
+          }
+        });
+        return cachedRecord.getSecond();
     }
 
 
@@ -615,6 +843,10 @@ public final class CachingNameResolver
   {
     buffer.append("CachingNameResolver(timeoutMillis=");
     buffer.append(timeoutMillis);
+    buffer.append(", refreshAheadMillis=");
+    buffer.append(refresher.getRefreshAheadMillis());
+    buffer.append(", maxStalenessMillis=");
+    buffer.append(refresher.getMaxStalenessMillis());
     buffer.append(')');
   }
 }
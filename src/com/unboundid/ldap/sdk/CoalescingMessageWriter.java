@@ -0,0 +1,411 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a mechanism for combining the encoded messages written
+ * concurrently by multiple threads on the same connection so that they may be
+ * sent to the server with as few writes (and as few TCP segments) as possible.
+ * <BR><BR>
+ * Each thread that wants to send a message places its encoded representation
+ * in a queue and then attempts to become the writer for the connection.  The
+ * thread that succeeds drains all of the messages currently in the queue,
+ * writes them in a single batch, and flushes the output stream once before
+ * notifying the threads whose messages were included in that batch.  Any
+ * thread that does not become the writer simply waits for its message to be
+ * written on its behalf.  Each thread will not return until its own message
+ * has been written (or the attempt to write it has failed), so the caller's
+ * write timeout handling is not affected.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class CoalescingMessageWriter
+{
+  /**
+   * The maximum number of messages that will be included in a single batch.
+   */
+  private static final int MAX_MESSAGES_PER_BATCH = 256;
+
+
+
+  /**
+   * The maximum number of bytes that will be included in a single batch,
+   * unless a single message is larger than this.
+   */
+  private static final int MAX_BYTES_PER_BATCH = 65_536;
+
+
+
+  // Indicates whether a thread is currently acting as the writer.
+  @NotNull private final AtomicBoolean writerActive;
+
+  // The queue of messages waiting to be written.
+  @NotNull private final Queue<PendingWrite> queue;
+
+
+
+  /**
+   * Creates a new coalescing message writer.
+   */
+  CoalescingMessageWriter()
+  {
+    writerActive = new AtomicBoolean(false);
+    queue = new ConcurrentLinkedQueue<>();
+  }
+
+
+
+  /**
+   * Writes the provided encoded message to the given output stream, possibly
+   * combined with messages provided by other threads.  This method will not
+   * return until the message has been written and the output stream has been
+   * flushed.
+   *
+   * @param  outputStream  The output stream to which the message should be
+   *                       written.  If it is a
+   *                       {@link SocketChannelOutputStream} or an output
+   *                       stream for an {@link SSLEngineChannel}, then all of
+   *                       the messages in a batch will be written with a
+   *                       single gathering write.
+   * @param  message       The encoded message to be written.
+   *
+   * @throws  IOException  If a problem occurs while writing the message.
+   */
+  void write(@NotNull final OutputStream outputStream,
+             @NotNull final byte[] message)
+       throws IOException
+  {
+    final PendingWrite pendingWrite = new PendingWrite(outputStream, message);
+    queue.add(pendingWrite);
+
+    boolean interrupted = false;
+    while (true)
+    {
+      if (writerActive.compareAndSet(false, true))
+      {
+        try
+        {
+          writeAvailableMessages();
+        }
+        finally
+        {
+          writerActive.set(false);
+        }
+
+        // Another thread may have added a message after we last checked the
+        // queue but before we released the writer flag, and that thread may be
+        // waiting for a writer.  If so, then loop back around and try to write
+        // it.
+        if (queue.isEmpty())
+        {
+          break;
+        }
+      }
+      else if (pendingWrite.isComplete())
+      {
+        break;
+      }
+      else
+      {
+        try
+        {
+          pendingWrite.awaitCompletion();
+        }
+        catch (final InterruptedException e)
+        {
+          // The message is already in the queue and will still be written, so
+          // we'll keep waiting for that to happen, just as we would have if we
+          // had been blocked in a socket write.  We'll restore the interrupt
+          // flag before returning.
+          Debug.debugException(e);
+          interrupted = true;
+        }
+      }
+    }
+
+    if (interrupted)
+    {
+      Thread.currentThread().interrupt();
+    }
+
+    pendingWrite.throwIfFailed();
+  }
+
+
+
+  /**
+   * Writes all messages that are currently available in the queue.  This must
+   * only be called by the thread that is currently acting as the writer.
+   */
+  private void writeAvailableMessages()
+  {
+    final ArrayList<PendingWrite> batch =
+         new ArrayList<>(MAX_MESSAGES_PER_BATCH);
+    while (true)
+    {
+      batch.clear();
+
+      int batchBytes = 0;
+      OutputStream batchOutputStream = null;
+      while ((batch.size() < MAX_MESSAGES_PER_BATCH) &&
+           (batchBytes < MAX_BYTES_PER_BATCH))
+      {
+        final PendingWrite w = queue.peek();
+        if (w == null)
+        {
+          break;
+        }
+
+        // All messages in a batch must target the same output stream.  If the
+        // output stream has changed (for example, because of StartTLS), then
+        // we'll need to write the remaining messages in a separate batch.
+        if ((batchOutputStream != null) &&
+             (w.outputStream != batchOutputStream))
+        {
+          break;
+        }
+
+        queue.poll();
+        batchOutputStream = w.outputStream;
+        batchBytes += w.message.length;
+        batch.add(w);
+      }
+
+      if (batch.isEmpty())
+      {
+        return;
+      }
+
+      IOException writeException = null;
+      try
+      {
+        writeBatch(batchOutputStream, batch);
+      }
+      catch (final IOException e)
+      {
+        Debug.debugException(e);
+        writeException = e;
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+        writeException = new IOException(e);
+      }
+
+      for (final PendingWrite w : batch)
+      {
+        w.complete(writeException);
+      }
+    }
+  }
+
+
+
+  /**
+   * Writes the provided batch of messages to the given output stream.
+   *
+   * @param  outputStream  The output stream to which the messages should be
+   *                       written.
+   * @param  batch         The messages to be written.
+   *
+   * @throws  IOException  If a problem occurs while writing the messages.
+   */
+  private static void writeBatch(@NotNull final OutputStream outputStream,
+                                 @NotNull final ArrayList<PendingWrite> batch)
+          throws IOException
+  {
+    if (outputStream instanceof SocketChannelOutputStream)
+    {
+      ((SocketChannelOutputStream) outputStream).write(toBuffers(batch));
+    }
+    else if (outputStream instanceof SSLEngineChannel.TLSOutputStream)
+    {
+      // Wrapping all of the messages together allows them to be packed into
+      // as few TLS records as possible.
+      ((SSLEngineChannel.TLSOutputStream) outputStream).write(
+           toBuffers(batch));
+    }
+    else
+    {
+      for (final PendingWrite w : batch)
+      {
+        outputStream.write(w.message);
+      }
+
+      outputStream.flush();
+    }
+  }
+
+
+
+  /**
+   * Wraps the messages in the provided batch in byte buffers.
+   *
+   * @param  batch  The messages to be wrapped.
+   *
+   * @return  The byte buffers that wrap the messages in the provided batch.
+   */
+  @NotNull()
+  private static ByteBuffer[] toBuffers(
+               @NotNull final ArrayList<PendingWrite> batch)
+  {
+    final ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+    for (int i=0; i < buffers.length; i++)
+    {
+      buffers[i] = ByteBuffer.wrap(batch.get(i).message);
+    }
+
+    return buffers;
+  }
+
+
+
+  /**
+   * This class holds information about a message that is waiting to be
+   * written.
+   */
+  private static final class PendingWrite
+  {
+    // A latch that will be released when the write has completed.
+    @NotNull private final CountDownLatch completionLatch;
+
+    // The encoded message to be written.
+    @NotNull private final byte[] message;
+
+    // The exception caught while trying to write the message, if any.
+    @Nullable private volatile IOException exception;
+
+    // The output stream to which the message should be written.
+    @NotNull private final OutputStream outputStream;
+
+
+
+    /**
+     * Creates a new pending write with the provided information.
+     *
+     * @param  outputStream  The output stream to which the message should be
+     *                       written.
+     * @param  message       The encoded message to be written.
+     */
+    private PendingWrite(@NotNull final OutputStream outputStream,
+                         @NotNull final byte[] message)
+    {
+      this.outputStream = outputStream;
+      this.message = message;
+
+      completionLatch = new CountDownLatch(1);
+      exception = null;
+    }
+
+
+
+    /**
+     * Indicates whether the attempt to write this message has completed.
+     *
+     * @return  {@code true} if the attempt to write this message has completed,
+     *          or {@code false} if not.
+     */
+    private boolean isComplete()
+    {
+      return (completionLatch.getCount() == 0L);
+    }
+
+
+
+    /**
+     * Waits for the attempt to write this message to complete.
+     *
+     * @throws  InterruptedException  If the thread is interrupted while
+     *                                waiting.
+     */
+    private void awaitCompletion()
+            throws InterruptedException
+    {
+      completionLatch.await();
+    }
+
+
+
+    /**
+     * Indicates that the attempt to write this message has completed.
+     *
+     * @param  exception  The exception caught while trying to write the
+     *                    message, or {@code null} if it was written
+     *                    successfully.
+     */
+    private void complete(@Nullable final IOException exception)
+    {
+      this.exception = exception;
+      completionLatch.countDown();
+    }
+
+
+
+    /**
+     * Throws the exception caught while trying to write this message, if any.
+     *
+     * @throws  IOException  If a problem was encountered while trying to write
+     *                       this message.
+     */
+    private void throwIfFailed()
+            throws IOException
+    {
+      final IOException e = exception;
+      if (e != null)
+      {
+        throw e;
+      }
+    }
+  }
+}
@@ -39,7 +39,6 @@ package com.unboundid.ldap.sdk;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Timer;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -412,6 +411,7 @@ public final class CompareRequest
   {
     Validator.ensureNotNull(dn);
 
+    clearPreparedProtocolOp();
     this.dn = dn;
   }
 
@@ -427,6 +427,7 @@ public final class CompareRequest
   {
     Validator.ensureNotNull(dn);
 
+    clearPreparedProtocolOp();
     this.dn = dn.toString();
   }
 
@@ -455,6 +456,7 @@ public final class CompareRequest
   {
     Validator.ensureNotNull(attributeName);
 
+    clearPreparedProtocolOp();
     this.attributeName = attributeName;
   }
 
@@ -506,6 +508,7 @@ public final class CompareRequest
   {
     Validator.ensureNotNull(assertionValue);
 
+    clearPreparedProtocolOp();
     this.assertionValue = new ASN1OctetString(assertionValue);
   }
 
@@ -521,6 +524,7 @@ public final class CompareRequest
   {
     Validator.ensureNotNull(assertionValue);
 
+    clearPreparedProtocolOp();
     this.assertionValue = new ASN1OctetString(assertionValue);
   }
 
@@ -534,6 +538,7 @@ public final class CompareRequest
    */
   public void setAssertionValue(@NotNull final ASN1OctetString assertionValue)
   {
+    clearPreparedProtocolOp();
     this.assertionValue = assertionValue;
   }
 
@@ -690,7 +695,8 @@ public final class CompareRequest
   {
     // Create the LDAP message.
     messageID = connection.nextMessageID();
-    final LDAPMessage message = new LDAPMessage(messageID, this, getControls());
+    final LDAPMessage message = new LDAPMessage(messageID,
+         getProtocolOpToSend(this), getControls());
 
 
     // If the provided async result listener is {@code null}, then we'll use
@@ -713,11 +719,10 @@ public final class CompareRequest
 
       if (timeout > 0L)
       {
-        final Timer timer = connection.getTimer();
         final AsyncTimeoutTimerTask timerTask =
              new AsyncTimeoutTimerTask(compareHelper);
-        timer.schedule(timerTask, timeout);
-        asyncRequestID.setTimerTask(timerTask);
+        asyncRequestID.setTimeout(
+             HashedWheelTimer.getInstance().newTimeout(timerTask, timeout));
       }
     }
 
@@ -777,7 +782,8 @@ public final class CompareRequest
     // Create the LDAP message.
     messageID = connection.nextMessageID();
     final LDAPMessage message =
-         new LDAPMessage(messageID,  this, getControls());
+         new LDAPMessage(messageID, getProtocolOpToSend(this),
+              getControls());
 
 
     // Send the request to the server.
@@ -1107,6 +1113,7 @@ public final class CompareRequest
     r.setIntermediateResponseListener(getIntermediateResponseListener());
     r.setReferralDepth(getReferralDepth());
     r.setReferralConnector(getReferralConnectorInternal());
+    r.setPreparedProtocolOp(getPreparedProtocolOp());
 
     return r;
   }
@@ -1127,6 +1134,8 @@ public final class CompareRequest
     buffer.append(assertionValue.stringValue());
     buffer.append('\'');
 
+    appendTemplateValuesTo(buffer);
+
     final Control[] controls = getControls();
     if (controls.length > 0)
     {
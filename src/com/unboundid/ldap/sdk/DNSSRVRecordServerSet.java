@@ -41,6 +41,7 @@ import java.util.Collections;
 import java.util.Hashtable;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
 import javax.naming.Context;
 import javax.net.SocketFactory;
 
@@ -117,6 +118,12 @@ import com.unboundid.util.ThreadSafetyLevel;
  *"http://download.oracle.com/javase/6/docs/technotes/guides/jndi/jndi-dns.html"
  * > JNDI DNS service provider documentation</A> for more details on acceptable
  * formats for the provider URL.
+ * <BR><BR>
+ * By default, the first attempt to create a connection after the cached SRV
+ * records have expired will wait for them to be retrieved again.  The server
+ * set may optionally be configured with a refresh-ahead window and a maximum
+ * staleness so that records that are about to expire, or that have recently
+ * expired, will be used while they are retrieved again in the background.
  */
 @NotMutable()
 @ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
@@ -157,6 +164,10 @@ public final class DNSSRVRecordServerSet
   // The connection options to use for newly-created connections.
   @Nullable private final LDAPConnectionOptions connectionOptions;
 
+  // The object used to refresh the cached record set in the background and to
+  // keep track of cache statistics.
+  @NotNull private final BackgroundCacheRefresher refresher;
+
   // The maximum length of time in milliseconds that previously-retrieved
   // information should be considered valid.
   private final long ttlMillis;
@@ -327,6 +338,78 @@ public final class DNSSRVRecordServerSet
               @Nullable final LDAPConnectionOptions connectionOptions,
               @Nullable final BindRequest bindRequest,
               @Nullable final PostConnectProcessor postConnectProcessor)
+  {
+    this(recordName, providerURL, jndiProperties, ttlMillis, 0L, 0L,
+         socketFactory, connectionOptions, bindRequest, postConnectProcessor);
+  }
+
+
+
+  /**
+   * Creates a new instance of this server set that will use the provided
+   * settings.
+   *
+   * @param  recordName            The name of the DNS SRV record to retrieve.
+   *                               If this is {@code null}, then a default
+   *                               record name of "_ldap._tcp" will be used.
+   * @param  providerURL           The JNDI provider URL that may be used to
+   *                               specify the DNS server(s) to use.  If this is
+   *                               not specified, then a default URL of
+   *                               "dns:" will be used, which will attempt to
+   *                               determine the appropriate servers from the
+   *                               underlying system configuration.
+   * @param  jndiProperties        A set of JNDI-related properties that should
+   *                               be be used when initializing the context for
+   *                               interacting with the DNS server via JNDI.
+   *                               If this is {@code null}, then a default set
+   *                               of properties will be used.
+   * @param  ttlMillis             Specifies the maximum length of time in
+   *                               milliseconds that DNS information should be
+   *                               cached before it needs to be retrieved
+   *                               again.  A value less than or equal to zero
+   *                               will use the default TTL of one hour.
+   * @param  refreshAheadMillis    The length of time in milliseconds before the
+   *                               cached DNS information expires that it should
+   *                               be retrieved again in the background while
+   *                               the cached information continues to be used.
+   *                               A value less than or equal to zero indicates
+   *                               that the information should not be retrieved
+   *                               before it expires.
+   * @param  maxStalenessMillis    The maximum length of time in milliseconds
+   *                               after the cached DNS information has expired
+   *                               that it may continue to be used while it is
+   *                               retrieved again in the background.  A value
+   *                               less than or equal to zero indicates that
+   *                               the first attempt to create a connection
+   *                               after the information has expired should
+   *                               wait for it to be retrieved again.
+   * @param  socketFactory         The socket factory that will be used when
+   *                               creating connections.  It may be
+   *                               {@code null} if the JVM-default socket
+   *                               factory should be used.
+   * @param  connectionOptions     The set of connection options that should be
+   *                               used for the connections that are created.
+   *                               It may be {@code null} if the default
+   *                               connection options should be used.
+   * @param  bindRequest           The bind request that should be used to
+   *                               authenticate newly-established connections.
+   *                               It may be {@code null} if this server set
+   *                               should not perform any authentication.
+   * @param  postConnectProcessor  The post-connect processor that should be
+   *                               invoked on newly-established connections.  It
+   *                               may be {@code null} if this server set should
+   *                               not perform any post-connect processing.
+   */
+  public DNSSRVRecordServerSet(@Nullable final String recordName,
+              @Nullable final String providerURL,
+              @Nullable final Properties jndiProperties,
+              final long ttlMillis,
+              final long refreshAheadMillis,
+              final long maxStalenessMillis,
+              @Nullable final SocketFactory socketFactory,
+              @Nullable final LDAPConnectionOptions connectionOptions,
+              @Nullable final BindRequest bindRequest,
+              @Nullable final PostConnectProcessor postConnectProcessor)
   {
     this.socketFactory = socketFactory;
     this.connectionOptions = connectionOptions;
@@ -334,6 +417,8 @@ public final class DNSSRVRecordServerSet
     this.postConnectProcessor = postConnectProcessor;
 
     recordSet = null;
+    refresher =
+         new BackgroundCacheRefresher(refreshAheadMillis, maxStalenessMillis);
 
     if (recordName == null)
     {
@@ -445,6 +530,139 @@ public final class DNSSRVRecordServerSet
 
 
 
+  /**
+   * Retrieves the length of time in milliseconds before the cached DNS
+   * information expires that it should be retrieved again in the background.
+   *
+   * @return  The length of time in milliseconds before the cached DNS
+   *          information expires that it should be retrieved again in the
+   *          background, or zero if it will not be retrieved before it
+   *          expires.
+   */
+  public long getRefreshAheadMillis()
+  {
+    return refresher.getRefreshAheadMillis();
+  }
+
+
+
+  /**
+   * Retrieves the maximum length of time in milliseconds after the cached DNS
+   * information has expired that it may continue to be used while it is
+   * retrieved again in the background.
+   *
+   * @return  The maximum length of time in milliseconds after the cached DNS
+   *          information has expired that it may continue to be used while it
+   *          is retrieved again in the background, or zero if expired
+   *          information will not be used without first trying to retrieve it
+   *          again.
+   */
+  public long getMaxStalenessMillis()
+  {
+    return refresher.getMaxStalenessMillis();
+  }
+
+
+
+  /**
+   * Retrieves the number of times that unexpired SRV records were used from
+   * the cache.
+   *
+   * @return  The number of times that unexpired SRV records were used from the
+   *          cache.
+   */
+  public long getNumCacheHits()
+  {
+    return refresher.getNumCacheHits();
+  }
+
+
+
+  /**
+   * Retrieves the number of times that expired SRV records were used from the
+   * cache while they were being retrieved again in the background.
+   *
+   * @return  The number of times that expired SRV records were used from the
+   *          cache while they were being retrieved again in the background.
+   */
+  public long getNumStaleCacheHits()
+  {
+    return refresher.getNumStaleCacheHits();
+  }
+
+
+
+  /**
+   * Retrieves the number of times that there were no usable SRV records in the
+   * cache, so that an attempt to create a connection needed to wait for them to
+   * be retrieved.
+   *
+   * @return  The number of times that there were no usable SRV records in the
+   *          cache.
+   */
+  public long getNumCacheMisses()
+  {
+    return refresher.getNumCacheMisses();
+  }
+
+
+
+  /**
+   * Retrieves the number of background refreshes that have completed
+   * successfully.
+   *
+   * @return  The number of background refreshes that have completed
+   *          successfully.
+   */
+  public long getNumBackgroundRefreshes()
+  {
+    return refresher.getNumBackgroundRefreshes();
+  }
+
+
+
+  /**
+   * Retrieves the number of background refreshes that have failed.
+   *
+   * @return  The number of background refreshes that have failed.
+   */
+  public long getNumFailedBackgroundRefreshes()
+  {
+    return refresher.getNumFailedBackgroundRefreshes();
+  }
+
+
+
+  /**
+   * Retrieves the average length of time in milliseconds required for a
+   * successful background refresh.
+   *
+   * @return  The average length of time in milliseconds required for a
+   *          successful background refresh, or zero if there have not been any
+   *          successful background refreshes.
+   */
+  public double getAverageBackgroundRefreshDurationMillis()
+  {
+    return refresher.getAverageBackgroundRefreshDurationMillis();
+  }
+
+
+
+  /**
+   * Retrieves the maximum length of time in milliseconds required for a
+   * successful background refresh.
+   *
+   * @return  The maximum length of time in milliseconds required for a
+   *          successful background refresh, or zero if there have not been any
+   *          successful background refreshes.
+   */
+  public double getMaxBackgroundRefreshDurationMillis()
+  {
+    return refresher.getMaxBackgroundRefreshDurationMillis();
+  }
+
+
+
   /**
    * Retrieves the socket factory that will be used when creating connections,
    * if any.
@@ -520,14 +738,30 @@ public final class DNSSRVRecordServerSet
               @Nullable final LDAPConnectionPoolHealthCheck healthCheck)
          throws LDAPException
   {
-    // If there is no cached record set, or if the cached set is expired, then
-    // try to get a new one.
-    if ((recordSet == null) || recordSet.isExpired())
+    // If there is no cached record set, or if the cached set is expired by
+    // more than the maximum staleness, then try to get a new one.  If the
+    // cached set is about to expire or has only recently expired, then use it
+    // but get a new one in the background.
+    SRVRecordSet currentRecordSet = recordSet;
+    final BackgroundCacheRefresher.CachedRecordAction action;
+    if (currentRecordSet == null)
+    {
+      refresher.recordCacheMiss();
+      action = BackgroundCacheRefresher.CachedRecordAction.REFRESH_NOW;
+    }
+    else
+    {
+      action = refresher.getCachedRecordAction(
+           currentRecordSet.getExpirationTime());
+    }
+
+    if (action == BackgroundCacheRefresher.CachedRecordAction.REFRESH_NOW)
     {
       try
       {
-        recordSet = SRVRecordSet.getRecordSet(recordName, jndiProperties,
-             ttlMillis);
+        currentRecordSet = SRVRecordSet.getRecordSet(recordName,
+             jndiProperties, ttlMillis);
+        recordSet = currentRecordSet;
       }
       catch (final LDAPException le)
       {
@@ -537,19 +771,36 @@ public final class DNSSRVRecordServerSet
         // it's expired but we'll keep using it anyway because it's better than
         // nothing.  But if we don't have an existing set, then we can't
         // continue.
-        if (recordSet == null)
+        if (currentRecordSet == null)
         {
           throw le;
         }
       }
     }
+    else if (action ==
+         BackgroundCacheRefresher.CachedRecordAction.USE_CACHED_AND_REFRESH)
+    {
+      refresher.refreshInBackground(recordName, new Callable<Object>()
+      {
+        @Override()
+        @NotNull()
+        public Object call()
+               throws LDAPException
+        {
+          final SRVRecordSet newRecordSet = SRVRecordSet.getRecordSet(
+               recordName, jndiProperties, ttlMillis);
+          recordSet = newRecordSet;
+          return newRecordSet;
+        }
+      });
+    }
 
 
     // Iterate through the record set in an order based on priority and weight.
     // Take the first one that we can connect to and that satisfies the health
     // check (if any).
     LDAPException firstException = null;
-    for (final SRVRecord r : recordSet.getOrderedRecords())
+    for (final SRVRecord r : currentRecordSet.getOrderedRecords())
     {
       try
       {
@@ -589,6 +840,10 @@ public final class DNSSRVRecordServerSet
     buffer.append(providerURL);
     buffer.append("', ttlMillis=");
     buffer.append(ttlMillis);
+    buffer.append(", refreshAheadMillis=");
+    buffer.append(refresher.getRefreshAheadMillis());
+    buffer.append(", maxStalenessMillis=");
+    buffer.append(refresher.getMaxStalenessMillis());
 
     if (socketFactory != null)
     {
@@ -38,7 +38,6 @@ package com.unboundid.ldap.sdk;
 
 
 import java.util.List;
-import java.util.Timer;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -212,6 +211,7 @@ public final class DeleteRequest
   {
     Validator.ensureNotNull(dn);
 
+    clearPreparedProtocolOp();
     this.dn = dn;
   }
 
@@ -226,6 +226,7 @@ public final class DeleteRequest
   {
     Validator.ensureNotNull(dn);
 
+    clearPreparedProtocolOp();
     this.dn = dn.toString();
   }
 
@@ -360,7 +361,8 @@ public final class DeleteRequest
   {
     // Create the LDAP message.
     messageID = connection.nextMessageID();
-    final LDAPMessage message = new LDAPMessage(messageID, this, getControls());
+    final LDAPMessage message = new LDAPMessage(messageID,
+         getProtocolOpToSend(this), getControls());
 
 
     // If the provided async result listener is {@code null}, then we'll use
@@ -383,11 +385,10 @@ public final class DeleteRequest
 
       if (timeout > 0L)
       {
-        final Timer timer = connection.getTimer();
         final AsyncTimeoutTimerTask timerTask =
              new AsyncTimeoutTimerTask(helper);
-        timer.schedule(timerTask, timeout);
-        asyncRequestID.setTimerTask(timerTask);
+        asyncRequestID.setTimeout(
+             HashedWheelTimer.getInstance().newTimeout(timerTask, timeout));
       }
     }
 
@@ -447,7 +448,8 @@ public final class DeleteRequest
     // Create the LDAP message.
     messageID = connection.nextMessageID();
     final LDAPMessage message =
-         new LDAPMessage(messageID,  this, getControls());
+         new LDAPMessage(messageID, getProtocolOpToSend(this),
+              getControls());
 
 
     // Send the request to the server.
@@ -764,6 +766,7 @@ public final class DeleteRequest
     r.setIntermediateResponseListener(getIntermediateResponseListener());
     r.setReferralDepth(getReferralDepth());
     r.setReferralConnector(getReferralConnectorInternal());
+    r.setPreparedProtocolOp(getPreparedProtocolOp());
 
     return r;
   }
@@ -816,6 +819,8 @@ public final class DeleteRequest
     buffer.append(dn);
     buffer.append('\'');
 
+    appendTemplateValuesTo(buffer);
+
     final Control[] controls = getControls();
     if (controls.length > 0)
     {
@@ -421,6 +421,29 @@ public class Entry
 
 
 
+  /**
+   * Creates a new entry with the provided DN and a map of attributes that will
+   * be used directly rather than copied.
+   *
+   * @param  dn          The DN for this entry.  It must not be {@code null}.
+   * @param  schema      The schema to use for operations involving this entry.
+   *                     It may be {@code null} if no schema is available.
+   * @param  attributes  The map of attributes for this entry, keyed on the
+   *                     lowercase attribute name.  It must not be
+   *                     {@code null}.
+   */
+  Entry(@NotNull final String dn, @Nullable final Schema schema,
+        @NotNull final LinkedHashMap<String,Attribute> attributes)
+  {
+    Validator.ensureNotNull(dn, attributes);
+
+    this.dn         = dn;
+    this.schema     = schema;
+    this.attributes = attributes;
+  }
+
+
+
   /**
    * Creates a new entry from the provided LDIF representation.
    *
@@ -58,6 +58,8 @@ import com.unboundid.util.ThreadSafety;
 import com.unboundid.util.ThreadSafetyLevel;
 import com.unboundid.util.Validator;
 
+import static com.unboundid.ldap.sdk.LDAPMessages.*;
+
 
 
 /**
@@ -596,6 +598,10 @@ public final class FewestConnectionsServerSet
                postConnectProcessor, healthCheck);
           connectionCountsByServer.get(hostPort).incrementAndGet();
           associateConnectionWithThisServerSet(conn);
+          if (blacklistManager != null)
+          {
+            blacklistManager.connectionAttemptSucceeded(hostPort);
+          }
           return conn;
         }
         catch (final LDAPException le)
@@ -604,7 +610,7 @@ public final class FewestConnectionsServerSet
           lastException = le;
           if (blacklistManager != null)
           {
-            blacklistManager.addToBlacklist(hostPort, healthCheck);
+            blacklistManager.connectionAttemptFailed(hostPort, healthCheck);
           }
         }
       }
@@ -618,6 +624,13 @@ public final class FewestConnectionsServerSet
     {
       for (final ObjectPair<String,Integer> hostPort : blacklistedServers)
       {
+        // Only one probe at a time is allowed for a blacklisted server.
+        if (! blacklistManager.tryAcquireProbePermit(hostPort))
+        {
+          continue;
+        }
+
+        boolean probeSucceeded = false;
         try
         {
           final LDAPConnection c = new LDAPConnection(socketFactory,
@@ -626,6 +639,7 @@ public final class FewestConnectionsServerSet
                postConnectProcessor, healthCheck);
           associateConnectionWithThisServerSet(c);
           blacklistManager.removeFromBlacklist(hostPort);
+          probeSucceeded = true;
           return c;
         }
         catch (final LDAPException e)
@@ -633,12 +647,28 @@ public final class FewestConnectionsServerSet
           Debug.debugException(e);
           lastException = e;
         }
+        finally
+        {
+          if (! probeSucceeded)
+          {
+            blacklistManager.probeFailed(hostPort, healthCheck);
+          }
+        }
       }
     }
 
 
-    // If we've gotten here, then we've tried all servers without any success,
-    // so throw the last exception that was encountered.
+    // If we've gotten here, then we've failed to connect to any of the servers.
+    // If we didn't attempt to connect to any of them, then that's because they
+    // are all blacklisted and another thread is already probing each of them.
+    if (lastException == null)
+    {
+      throw new LDAPException(ResultCode.CONNECT_ERROR,
+           ERR_SERVER_SET_ALL_BLACKLISTED_SERVERS_BEING_PROBED.get(
+                blacklistedServers.size()));
+    }
+
+    // Otherwise, propagate the last exception to the caller.
     throw lastException;
   }
 
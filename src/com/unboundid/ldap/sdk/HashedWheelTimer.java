@@ -0,0 +1,667 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.LDAPSDKThreadFactory;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.PropertyManager;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a hashed-wheel timer that is shared by all connections
+ * in the process to enforce timeouts for asynchronous operations and for
+ * blocked writes.  Both scheduling and cancelling a timeout are constant-time
+ * operations that do not require any locking, which is important because a
+ * timeout is scheduled and then cancelled for nearly every operation, but only
+ * rarely expires.
+ * <BR><BR>
+ * Timeouts are placed in one of a fixed number of buckets based on their
+ * expiration time, and a single worker thread advances through the buckets at
+ * a fixed tick interval, expiring the timeouts that are due.  As a result,
+ * timeouts may fire up to one tick later than requested.  The tick interval
+ * for the shared timer can be configured with the
+ * {@link LDAPConnectionOptions#PROPERTY_TIMEOUT_TIMER_TICK_MILLIS} system
+ * property.  The worker thread is only running while there are outstanding
+ * timeouts.
+ * <BR><BR>
+ * Expired tasks are not normally invoked on the worker thread, since they may
+ * block (for example, while sending an abandon request or while notifying a
+ * result listener).  Instead, they are handed off to a small, fixed number of
+ * daemon threads that are created as needed and that exit after a period of
+ * inactivity.  If all of those threads are busy and the queue of pending tasks
+ * is full, then the worker thread will invoke the task itself, which delays
+ * subsequent timeouts rather than allowing the number of threads to grow
+ * without bound.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class HashedWheelTimer
+{
+  /**
+   * The default tick interval, in milliseconds.
+   */
+  static final long DEFAULT_TICK_MILLIS = 10L;
+
+
+
+  /**
+   * The number of buckets in the wheel.  This must be a power of two.
+   */
+  static final int WHEEL_SIZE = 512;
+
+
+
+  /**
+   * The maximum number of threads that will be used to invoke expired tasks.
+   */
+  static final int MAX_TASK_THREADS = 4;
+
+
+
+  /**
+   * The maximum number of expired tasks that may be waiting for a thread to
+   * invoke them before the worker thread invokes them itself.
+   */
+  static final int MAX_QUEUED_TASKS = 1_000;
+
+
+
+  /**
+   * The shared timer instance.
+   */
+  @NotNull private static final HashedWheelTimer INSTANCE =
+       new HashedWheelTimer("LDAP SDK Timeout Timer",
+            getConfiguredTickMillis());
+
+
+
+  /**
+   * The state for a timeout that has not yet expired or been cancelled.
+   */
+  private static final int STATE_PENDING = 0;
+
+
+
+  /**
+   * The state for a timeout that has been cancelled.
+   */
+  private static final int STATE_CANCELLED = 1;
+
+
+
+  /**
+   * The state for a timeout that has expired.
+   */
+  private static final int STATE_EXPIRED = 2;
+
+
+
+  // The number of timeouts that have been scheduled but not yet expired or
+  // been removed after cancellation.
+  @NotNull private final AtomicInteger activeTimeouts;
+
+  // The buckets that make up the wheel.  They must only be accessed by the
+  // worker thread.
+  @NotNull private final Bucket[] wheel;
+
+  // The tick interval, in nanoseconds.
+  private final long tickNanos;
+
+  // The time, in terms of System.nanoTime, that serves as the base for all
+  // deadlines.
+  private final long startTimeNanos;
+
+  // The number of ticks that have elapsed since the start time.  It must only
+  // be accessed by the worker thread.
+  private long tick;
+
+  // The lock used to control starting and stopping the worker thread.
+  @NotNull private final Object workerLock;
+
+  // The timeouts that have been cancelled but not yet removed from the wheel.
+  @NotNull private final Queue<Timeout> cancelledTimeouts;
+
+  // The timeouts that have been scheduled but not yet placed in the wheel.
+  @NotNull private final Queue<Timeout> newTimeouts;
+
+  // The name to use for the worker thread.
+  @NotNull private final String name;
+
+  // The worker thread, if it is running.  It must only be accessed while
+  // holding the worker lock.
+  @Nullable private Thread workerThread;
+
+  // The executor used to invoke expired tasks.
+  @NotNull private final ThreadPoolExecutor taskExecutor;
+
+
+
+  /**
+   * Creates a new hashed-wheel timer with the provided information.
+   *
+   * @param  name        The name to use for the worker thread.
+   * @param  tickMillis  The tick interval, in milliseconds.  It must be
+   *                     greater than zero.
+   */
+  HashedWheelTimer(@NotNull final String name, final long tickMillis)
+  {
+    this.name = name;
+
+    tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+    startTimeNanos = System.nanoTime();
+    activeTimeouts = new AtomicInteger(0);
+    cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    newTimeouts = new ConcurrentLinkedQueue<>();
+    workerLock = new Object();
+    workerThread = null;
+    tick = 0L;
+
+    wheel = new Bucket[WHEEL_SIZE];
+    for (int i=0; i < WHEEL_SIZE; i++)
+    {
+      wheel[i] = new Bucket();
+    }
+
+    taskExecutor = new ThreadPoolExecutor(MAX_TASK_THREADS, MAX_TASK_THREADS,
+         60L, TimeUnit.SECONDS,
+         new LinkedBlockingQueue<Runnable>(MAX_QUEUED_TASKS),
+         new LDAPSDKThreadFactory(name + " Task Thread", true),
+         new ThreadPoolExecutor.CallerRunsPolicy());
+    taskExecutor.allowCoreThreadTimeOut(true);
+  }
+
+
+
+  /**
+   * Retrieves the tick interval to use for the shared timer.
+   *
+   * @return  The tick interval to use for the shared timer.
+   */
+  private static long getConfiguredTickMillis()
+  {
+    final Long tickMillis = PropertyManager.getLong(
+         LDAPConnectionOptions.PROPERTY_TIMEOUT_TIMER_TICK_MILLIS,
+         DEFAULT_TICK_MILLIS);
+    if ((tickMillis == null) || (tickMillis <= 0L))
+    {
+      return DEFAULT_TICK_MILLIS;
+    }
+
+    return tickMillis;
+  }
+
+
+
+  /**
+   * Retrieves the timer instance that is shared by all connections.
+   *
+   * @return  The timer instance that is shared by all connections.
+   */
+  @NotNull()
+  static HashedWheelTimer getInstance()
+  {
+    return INSTANCE;
+  }
+
+
+
+  /**
+   * Retrieves the tick interval for this timer, in milliseconds.
+   *
+   * @return  The tick interval for this timer, in milliseconds.
+   */
+  long getTickMillis()
+  {
+    return TimeUnit.NANOSECONDS.toMillis(tickNanos);
+  }
+
+
+
+  /**
+   * Retrieves the number of timeouts that have been scheduled and have not yet
+   * expired or been fully cancelled.
+   *
+   * @return  The number of timeouts that have been scheduled and have not yet
+   *          expired or been fully cancelled.
+   */
+  int getActiveTimeoutCount()
+  {
+    return activeTimeouts.get();
+  }
+
+
+
+  /**
+   * Indicates whether the worker thread is currently running.  This is only
+   * intended for testing purposes.
+   *
+   * @return  {@code true} if the worker thread is currently running, or
+   *          {@code false} if not.
+   */
+  boolean isWorkerRunning()
+  {
+    synchronized (workerLock)
+    {
+      return (workerThread != null);
+    }
+  }
+
+
+
+  /**
+   * Schedules the provided task to be invoked after the specified delay unless
+   * it is cancelled first.
+   *
+   * @param  task         The task to invoke when the timeout expires.  It must
+   *                      not be {@code null}.
+   * @param  delayMillis  The delay, in milliseconds, before the task should be
+   *                      invoked.
+   *
+   * @return  A handle that may be used to cancel the timeout.
+   */
+  @NotNull()
+  Timeout newTimeout(@NotNull final Runnable task, final long delayMillis)
+  {
+    final long deadline = System.nanoTime() - startTimeNanos +
+         TimeUnit.MILLISECONDS.toNanos(Math.max(0L, delayMillis));
+    final Timeout timeout = new Timeout(this, task, deadline);
+
+    activeTimeouts.incrementAndGet();
+    newTimeouts.add(timeout);
+    ensureWorkerRunning();
+    return timeout;
+  }
+
+
+
+  /**
+   * Ensures that the worker thread is running.
+   */
+  private void ensureWorkerRunning()
+  {
+    synchronized (workerLock)
+    {
+      if (workerThread == null)
+      {
+        final Thread t = new Thread(new Runnable()
+        {
+          @Override()
+          public void run()
+          {
+            runWorker();
+          }
+        }, name);
+        t.setDaemon(true);
+        workerThread = t;
+        t.start();
+      }
+    }
+  }
+
+
+
+  /**
+   * Performs the processing for the worker thread.  The worker thread will
+   * exit when there are no more outstanding timeouts.
+   */
+  private void runWorker()
+  {
+    tick = (System.nanoTime() - startTimeNanos) / tickNanos;
+
+    while (true)
+    {
+      waitForNextTick();
+      removeCancelledTimeouts();
+      transferNewTimeouts();
+      expireTimeouts(wheel[(int) (tick & (WHEEL_SIZE - 1))]);
+      tick++;
+
+      if (activeTimeouts.get() == 0)
+      {
+        synchronized (workerLock)
+        {
+          if ((activeTimeouts.get() == 0) && newTimeouts.isEmpty())
+          {
+            workerThread = null;
+            return;
+          }
+        }
+      }
+    }
+  }
+
+
+
+  /**
+   * Waits until the end of the current tick.
+   */
+  private void waitForNextTick()
+  {
+    final long tickEndNanos = (tick + 1L) * tickNanos;
+    while (true)
+    {
+      final long sleepNanos =
+           tickEndNanos - (System.nanoTime() - startTimeNanos);
+      if (sleepNanos <= 0L)
+      {
+        return;
+      }
+
+      try
+      {
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(sleepNanos + 999_999L));
+      }
+      catch (final InterruptedException e)
+      {
+        Debug.debugException(e);
+      }
+    }
+  }
+
+
+
+  /**
+   * Removes any timeouts that have been cancelled from the wheel.
+   */
+  private void removeCancelledTimeouts()
+  {
+    while (true)
+    {
+      final Timeout timeout = cancelledTimeouts.poll();
+      if (timeout == null)
+      {
+        return;
+      }
+
+      if (timeout.bucket != null)
+      {
+        timeout.bucket.remove(timeout);
+      }
+
+      activeTimeouts.decrementAndGet();
+    }
+  }
+
+
+
+  /**
+   * Places any newly scheduled timeouts into the appropriate bucket in the
+   * wheel.
+   */
+  private void transferNewTimeouts()
+  {
+    while (true)
+    {
+      final Timeout timeout = newTimeouts.poll();
+      if (timeout == null)
+      {
+        return;
+      }
+
+      if (timeout.state.get() != STATE_PENDING)
+      {
+        // The timeout was cancelled before it could be placed in the wheel.
+        // It will be accounted for when the cancelled timeouts are processed.
+        continue;
+      }
+
+      final long expirationTick =
+           Math.max(timeout.deadlineNanos / tickNanos, tick);
+      timeout.remainingRounds = (expirationTick - tick) / WHEEL_SIZE;
+      wheel[(int) (expirationTick & (WHEEL_SIZE - 1))].add(timeout);
+    }
+  }
+
+
+
+  /**
+   * Expires all of the timeouts in the provided bucket that are due, and
+   * decrements the remaining number of rounds for the rest.
+   *
+   * @param  bucket  The bucket for the current tick.
+   */
+  private void expireTimeouts(@NotNull final Bucket bucket)
+  {
+    Timeout timeout = bucket.head;
+    while (timeout != null)
+    {
+      final Timeout next = timeout.next;
+      if (timeout.remainingRounds <= 0L)
+      {
+        bucket.remove(timeout);
+        if (timeout.state.compareAndSet(STATE_PENDING, STATE_EXPIRED))
+        {
+          activeTimeouts.decrementAndGet();
+          try
+          {
+            taskExecutor.execute(timeout.task);
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+          }
+        }
+      }
+      else
+      {
+        timeout.remainingRounds--;
+      }
+
+      timeout = next;
+    }
+  }
+
+
+
+  /**
+   * This class provides a handle for a timeout that has been scheduled with
+   * the timer.
+   */
+  @ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+  static final class Timeout
+  {
+    // The state of this timeout.
+    @NotNull private final AtomicInteger state;
+
+    // The timer with which this timeout is associated.
+    @NotNull private final HashedWheelTimer timer;
+
+    // The deadline for this timeout, relative to the timer's start time.
+    private final long deadlineNanos;
+
+    // The task to invoke when this timeout expires.
+    @NotNull private final Runnable task;
+
+    // The following fields must only be accessed by the timer's worker
+    // thread.
+    @Nullable private Bucket bucket;
+    @Nullable private Timeout next;
+    @Nullable private Timeout previous;
+    private long remainingRounds;
+
+
+
+    /**
+     * Creates a new timeout with the provided information.
+     *
+     * @param  timer          The timer with which this timeout is associated.
+     * @param  task           The task to invoke when this timeout expires.
+     * @param  deadlineNanos  The deadline for this timeout, relative to the
+     *                        timer's start time.
+     */
+    private Timeout(@NotNull final HashedWheelTimer timer,
+                    @NotNull final Runnable task, final long deadlineNanos)
+    {
+      this.timer = timer;
+      this.task = task;
+      this.deadlineNanos = deadlineNanos;
+
+      state = new AtomicInteger(STATE_PENDING);
+    }
+
+
+
+    /**
+     * Cancels this timeout so that its task will not be invoked.
+     *
+     * @return  {@code true} if this timeout was cancelled, or {@code false} if
+     *          it had already expired or been cancelled.
+     */
+    boolean cancel()
+    {
+      if (state.compareAndSet(STATE_PENDING, STATE_CANCELLED))
+      {
+        timer.cancelledTimeouts.add(this);
+        return true;
+      }
+
+      return false;
+    }
+
+
+
+    /**
+     * Indicates whether this timeout has been cancelled.
+     *
+     * @return  {@code true} if this timeout has been cancelled, or
+     *          {@code false} if not.
+     */
+    boolean isCancelled()
+    {
+      return (state.get() == STATE_CANCELLED);
+    }
+
+
+
+    /**
+     * Indicates whether this timeout has expired.
+     *
+     * @return  {@code true} if this timeout has expired, or {@code false} if
+     *          not.
+     */
+    boolean isExpired()
+    {
+      return (state.get() == STATE_EXPIRED);
+    }
+  }
+
+
+
+  /**
+   * This class provides a doubly-linked list of the timeouts in a single
+   * bucket of the wheel.  It must only be accessed by the worker thread.
+   */
+  @ThreadSafety(level=ThreadSafetyLevel.NOT_THREADSAFE)
+  private static final class Bucket
+  {
+    // The first timeout in this bucket.
+    @Nullable private Timeout head;
+
+    // The last timeout in this bucket.
+    @Nullable private Timeout tail;
+
+
+
+    /**
+     * Adds the provided timeout to this bucket.
+     *
+     * @param  timeout  The timeout to add.
+     */
+    private void add(@NotNull final Timeout timeout)
+    {
+      timeout.bucket = this;
+      if (tail == null)
+      {
+        head = timeout;
+        tail = timeout;
+      }
+      else
+      {
+        tail.next = timeout;
+        timeout.previous = tail;
+        tail = timeout;
+      }
+    }
+
+
+
+    /**
+     * Removes the provided timeout from this bucket.
+     *
+     * @param  timeout  The timeout to remove.
+     */
+    private void remove(@NotNull final Timeout timeout)
+    {
+      final Timeout next = timeout.next;
+      if (timeout.previous != null)
+      {
+        timeout.previous.next = next;
+      }
+
+      if (next != null)
+      {
+        next.previous = timeout.previous;
+      }
+
+      if (timeout == head)
+      {
+        head = next;
+      }
+
+      if (timeout == tail)
+      {
+        tail = timeout.previous;
+      }
+
+      timeout.previous = null;
+      timeout.next = null;
+      timeout.bucket = null;
+    }
+  }
+}
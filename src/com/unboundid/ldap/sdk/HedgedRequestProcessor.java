@@ -0,0 +1,599 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+import com.unboundid.util.Validator;
+
+import static com.unboundid.ldap.sdk.LDAPMessages.*;
+
+
+
+/**
+ * This class provides support for processing hedged read operations in an
+ * {@link LDAPConnectionPool}.  A hedged operation is first sent on a single
+ * connection checked out of the pool.  If it has not completed within the
+ * hedge delay, then a duplicate of the request is sent on another connection
+ * (preferably one established to a different server), and the result of
+ * whichever request completes first is returned to the caller.  If the losing
+ * request can be abandoned, then it will be.
+ * <BR><BR>
+ * The hedge delay for an operation type is the configured percentile of the
+ * response times recorded for that type of operation in the pool's
+ * statistics, but it will never be less than the configured minimum delay.
+ * The minimum delay will also be used until enough response times have been
+ * recorded to provide a meaningful percentile.  Because computing a percentile
+ * requires examining the entire response time histogram, the computed delay is
+ * cached for a short period of time.
+ * <BR><BR>
+ * A response from the server is considered to complete an operation as long
+ * as it does not indicate that the connection may no longer be usable, even if
+ * it is not a success response.  If one of the requests fails in a way that
+ * suggests a problem with its connection, then the outcome of the other
+ * request will be used instead.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class HedgedRequestProcessor
+{
+  /**
+   * The default percentile of the response time distribution that will be
+   * used as the hedge delay.
+   */
+  static final double DEFAULT_HEDGE_DELAY_PERCENTILE = 95.0d;
+
+
+
+  /**
+   * The default minimum hedge delay, in milliseconds.
+   */
+  static final long DEFAULT_MINIMUM_HEDGE_DELAY_MILLIS = 10L;
+
+
+
+  /**
+   * The minimum number of response times that must have been recorded for an
+   * operation type before the percentile will be used to determine the hedge
+   * delay.
+   */
+  static final long MINIMUM_RESPONSE_TIMES_FOR_PERCENTILE = 20L;
+
+
+
+  /**
+   * The length of time in nanoseconds that a computed hedge delay will be
+   * cached.
+   */
+  private static final long DELAY_CACHE_DURATION_NANOS =
+       TimeUnit.SECONDS.toNanos(1L);
+
+
+
+  // The cached hedge delays, in nanoseconds, indexed by the ordinal of the
+  // operation type.
+  @NotNull private final AtomicLongArray cachedDelayNanos;
+
+  // The times at which the cached hedge delays expire, as reported by
+  // System.nanoTime, indexed by the ordinal of the operation type.
+  @NotNull private final AtomicLongArray cacheExpirationNanos;
+
+  // The percentile of the response time distribution to use as the hedge
+  // delay.
+  private volatile double hedgeDelayPercentile;
+
+  // The connection pool with which this processor is associated.
+  @NotNull private final LDAPConnectionPool pool;
+
+  // The minimum hedge delay, in milliseconds.
+  private volatile long minimumHedgeDelayMillis;
+
+
+
+  /**
+   * Creates a new hedged request processor for the provided connection pool.
+   *
+   * @param  pool  The connection pool with which this processor is associated.
+   */
+  HedgedRequestProcessor(@NotNull final LDAPConnectionPool pool)
+  {
+    this.pool = pool;
+
+    hedgeDelayPercentile = DEFAULT_HEDGE_DELAY_PERCENTILE;
+    minimumHedgeDelayMillis = DEFAULT_MINIMUM_HEDGE_DELAY_MILLIS;
+
+    final int numOperationTypes = OperationType.values().length;
+    cachedDelayNanos = new AtomicLongArray(numOperationTypes);
+    cacheExpirationNanos = new AtomicLongArray(numOperationTypes);
+
+    final long now = System.nanoTime();
+    for (int i=0; i < numOperationTypes; i++)
+    {
+      cacheExpirationNanos.set(i, now);
+    }
+  }
+
+
+
+  /**
+   * Retrieves the percentile of the response time distribution that will be
+   * used as the hedge delay.
+   *
+   * @return  The percentile of the response time distribution that will be
+   *          used as the hedge delay.
+   */
+  double getHedgeDelayPercentile()
+  {
+    return hedgeDelayPercentile;
+  }
+
+
+
+  /**
+   * Specifies the percentile of the response time distribution that will be
+   * used as the hedge delay.
+   *
+   * @param  percentile  The percentile of the response time distribution that
+   *                     will be used as the hedge delay.  It must be greater
+   *                     than zero and less than or equal to 100.
+   */
+  void setHedgeDelayPercentile(final double percentile)
+  {
+    Validator.ensureTrue(((percentile > 0.0d) && (percentile <= 100.0d)),
+         "LDAPConnectionPool.hedgeDelayPercentile must be greater than zero " +
+              "and less than or equal to 100.");
+    hedgeDelayPercentile = percentile;
+    invalidateCachedDelays();
+  }
+
+
+
+  /**
+   * Retrieves the minimum hedge delay, in milliseconds.
+   *
+   * @return  The minimum hedge delay, in milliseconds.
+   */
+  long getMinimumHedgeDelayMillis()
+  {
+    return minimumHedgeDelayMillis;
+  }
+
+
+
+  /**
+   * Specifies the minimum hedge delay, in milliseconds.
+   *
+   * @param  minimumHedgeDelayMillis  The minimum hedge delay, in milliseconds.
+   *                                  A value that is less than zero will be
+   *                                  treated as zero.
+   */
+  void setMinimumHedgeDelayMillis(final long minimumHedgeDelayMillis)
+  {
+    this.minimumHedgeDelayMillis = Math.max(0L, minimumHedgeDelayMillis);
+    invalidateCachedDelays();
+  }
+
+
+
+  /**
+   * Invalidates all cached hedge delays so that they will be recomputed the
+   * next time they are needed.
+   */
+  private void invalidateCachedDelays()
+  {
+    final long now = System.nanoTime();
+    for (int i=0; i < cacheExpirationNanos.length(); i++)
+    {
+      cacheExpirationNanos.set(i, now);
+    }
+  }
+
+
+
+  /**
+   * Retrieves the hedge delay to use for the specified type of operation.
+   *
+   * @param  operationType  The type of operation for which to retrieve the
+   *                        hedge delay.
+   *
+   * @return  The hedge delay to use for the specified type of operation, in
+   *          nanoseconds.
+   */
+  long getHedgeDelayNanos(@NotNull final OperationType operationType)
+  {
+    final int index = operationType.ordinal();
+    final long now = System.nanoTime();
+    if ((now - cacheExpirationNanos.get(index)) < 0L)
+    {
+      return cachedDelayNanos.get(index);
+    }
+
+    final long minimumDelayNanos =
+         TimeUnit.MILLISECONDS.toNanos(minimumHedgeDelayMillis);
+    final LatencyHistogramSnapshot histogram =
+         pool.getConnectionPoolStatistics().getResponseTimeHistogram(
+              operationType);
+
+    final long delayNanos;
+    if (histogram.getCount() >= MINIMUM_RESPONSE_TIMES_FOR_PERCENTILE)
+    {
+      delayNanos = Math.max(minimumDelayNanos,
+           histogram.getPercentileNanos(hedgeDelayPercentile));
+    }
+    else
+    {
+      delayNanos = minimumDelayNanos;
+    }
+
+    cachedDelayNanos.set(index, delayNanos);
+    cacheExpirationNanos.set(index, (now + DELAY_CACHE_DURATION_NANOS));
+    return delayNanos;
+  }
+
+
+
+  /**
+   * Processes the provided request as a hedged operation.
+   *
+   * @param  <T>            The type of result that will be returned.  It must
+   *                        be consistent with the provided operation type.
+   * @param  request        The request to be processed.
+   * @param  operationType  The operation type for the request.  It must be one
+   *                        of {@code BIND}, {@code COMPARE}, or
+   *                        {@code SEARCH}.
+   *
+   * @return  The result of whichever request completed first.
+   *
+   * @throws  LDAPException  If the operation did not complete successfully.
+   *                         For search operations, this will be an
+   *                         {@code LDAPSearchException}.
+   */
+  @NotNull()
+  <T extends LDAPResult> T process(@NotNull final LDAPRequest request,
+                                   @NotNull final OperationType operationType)
+         throws LDAPException
+  {
+    final LDAPConnection primaryConnection;
+    try
+    {
+      primaryConnection = pool.getConnection();
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      throw toLDAPException(le, operationType);
+    }
+
+    final CompletableFuture<T> primary = AsyncCompletionHelper.processAsync(
+         pool, primaryConnection, request, operationType);
+
+
+    // Wait for the original request to complete, up to the hedge delay.
+    try
+    {
+      return primary.get(getHedgeDelayNanos(operationType),
+           TimeUnit.NANOSECONDS);
+    }
+    catch (final TimeoutException e)
+    {
+      // This is expected if the request has not completed within the hedge
+      // delay, so we'll try sending a hedged request.
+      Debug.debugException(e);
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      throw handleException(e, operationType, primary, null);
+    }
+
+
+    // Get another connection on which to send the hedged request.  If there
+    // isn't one available, then just wait for the original request.
+    final LDAPConnection hedgeConnection =
+         pool.getHedgeConnection(primaryConnection);
+    if (hedgeConnection == null)
+    {
+      try
+      {
+        return primary.get();
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+        throw handleException(e, operationType, primary, null);
+      }
+    }
+
+    final LDAPConnectionPoolStatistics poolStatistics =
+         pool.getConnectionPoolStatistics();
+    poolStatistics.incrementNumHedgedRequests();
+    final CompletableFuture<T> hedge = AsyncCompletionHelper.processAsync(pool,
+         hedgeConnection, request.duplicate(), operationType);
+
+
+    // Wait for the first response that completes the operation.
+    final CompletableFuture<Boolean> hedgeWon = new CompletableFuture<>();
+    primary.whenComplete(new ResponseHandler(hedgeWon, false, hedge));
+    hedge.whenComplete(new ResponseHandler(hedgeWon, true, primary));
+
+    final CompletableFuture<T> winner;
+    final CompletableFuture<T> loser;
+    try
+    {
+      if (hedgeWon.get())
+      {
+        poolStatistics.incrementNumHedgedRequestsWon();
+        winner = hedge;
+        loser = primary;
+      }
+      else
+      {
+        winner = primary;
+        loser = hedge;
+      }
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      throw handleException(e, operationType, primary, hedge);
+    }
+
+
+    // Bind operations cannot be abandoned, so the losing request will simply
+    // be allowed to complete and its connection will be released when it
+    // does.  Other operations will be abandoned.
+    if (operationType != OperationType.BIND)
+    {
+      loser.cancel(false);
+    }
+
+    try
+    {
+      return winner.get();
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      throw handleException(e, operationType, null, null);
+    }
+  }
+
+
+
+  /**
+   * Handles an exception caught while waiting for the outcome of a hedged
+   * operation.  If the exception indicates that the thread was interrupted,
+   * then the outstanding requests will be cancelled (unless they are bind
+   * requests) and the thread's interrupted status will be restored.
+   *
+   * @param  e              The exception that was caught.
+   * @param  operationType  The operation type for the request.
+   * @param  primary        The future for the original request, if it should
+   *                        be cancelled in the event of an interrupt.
+   * @param  hedge          The future for the hedged request, if it should
+   *                        be cancelled in the event of an interrupt.
+   *
+   * @return  The exception that should be thrown.
+   */
+  @NotNull()
+  private static LDAPException handleException(@NotNull final Exception e,
+               @NotNull final OperationType operationType,
+               @Nullable final CompletableFuture<?> primary,
+               @Nullable final CompletableFuture<?> hedge)
+  {
+    if (e instanceof InterruptedException)
+    {
+      Thread.currentThread().interrupt();
+      if (operationType != OperationType.BIND)
+      {
+        if (primary != null)
+        {
+          primary.cancel(false);
+        }
+
+        if (hedge != null)
+        {
+          hedge.cancel(false);
+        }
+      }
+
+      return toLDAPException(new LDAPException(ResultCode.LOCAL_ERROR,
+           ERR_HEDGED_REQUEST_INTERRUPTED.get(operationType.name()), e),
+           operationType);
+    }
+
+    return toLDAPException(e, operationType);
+  }
+
+
+
+  /**
+   * Converts the provided exception to the type of exception that would have
+   * been thrown by the synchronous method for the given operation type.
+   *
+   * @param  t              The exception to be converted.
+   * @param  operationType  The operation type for the request.
+   *
+   * @return  The converted exception.
+   */
+  @NotNull()
+  private static LDAPException toLDAPException(@NotNull final Throwable t,
+               @NotNull final OperationType operationType)
+  {
+    Throwable cause = t;
+    if (((t instanceof ExecutionException) ||
+         (t instanceof CompletionException)) && (t.getCause() != null))
+    {
+      cause = t.getCause();
+    }
+
+    StaticUtils.rethrowIfError(cause);
+
+    final LDAPException le;
+    if (cause instanceof LDAPException)
+    {
+      le = (LDAPException) cause;
+    }
+    else
+    {
+      le = new LDAPException(ResultCode.LOCAL_ERROR,
+           ERR_HEDGED_REQUEST_UNEXPECTED_ERROR.get(operationType.name(),
+                StaticUtils.getExceptionMessage(cause)),
+           cause);
+    }
+
+    if ((operationType == OperationType.SEARCH) &&
+         (! (le instanceof LDAPSearchException)))
+    {
+      return new LDAPSearchException(le);
+    }
+    else
+    {
+      return le;
+    }
+  }
+
+
+
+  /**
+   * Indicates whether the provided outcome of a request should be considered
+   * to complete a hedged operation.
+   *
+   * @param  exception  The exception with which the request completed, or
+   *                    {@code null} if it completed successfully.
+   *
+   * @return  {@code true} if the outcome should be considered to complete the
+   *          operation, or {@code false} if the outcome of the other request
+   *          should be used if possible.
+   */
+  static boolean completesOperation(@Nullable final Throwable exception)
+  {
+    if (exception == null)
+    {
+      return true;
+    }
+
+    Throwable cause = exception;
+    if ((exception instanceof CompletionException) &&
+         (exception.getCause() != null))
+    {
+      cause = exception.getCause();
+    }
+
+    return ((cause instanceof LDAPException) &&
+         ResultCode.isConnectionUsable(
+              ((LDAPException) cause).getResultCode()));
+  }
+
+
+
+  /**
+   * This class provides an action that will be invoked when either of the
+   * requests in a hedged operation completes, and that will determine whether
+   * that request completes the operation.
+   */
+  private static final class ResponseHandler
+          implements BiConsumer<Object,Throwable>
+  {
+    // Indicates whether this handler is associated with the hedged request.
+    private final boolean isHedge;
+
+    // The future that will be completed to indicate which request won.
+    @NotNull private final CompletableFuture<Boolean> hedgeWon;
+
+    // The future for the other request.
+    @NotNull private final CompletableFuture<?> other;
+
+
+
+    /**
+     * Creates a new response handler with the provided information.
+     *
+     * @param  hedgeWon  The future that will be completed to indicate which
+     *                   request won.
+     * @param  isHedge   Indicates whether this handler is associated with the
+     *                   hedged request.
+     * @param  other     The future for the other request.
+     */
+    private ResponseHandler(@NotNull final CompletableFuture<Boolean> hedgeWon,
+                            final boolean isHedge,
+                            @NotNull final CompletableFuture<?> other)
+    {
+      this.hedgeWon = hedgeWon;
+      this.isHedge = isHedge;
+      this.other = other;
+    }
+
+
+
+    /**
+     * Determines whether the associated request completes the operation.
+     *
+     * @param  result     The result with which the request completed, if
+     *                    any.
+     * @param  exception  The exception with which the request completed, if
+     *                    any.
+     */
+    @Override()
+    public void accept(@Nullable final Object result,
+                       @Nullable final Throwable exception)
+    {
+      if (completesOperation(exception))
+      {
+        hedgeWon.complete(isHedge);
+      }
+      else if (other.isDone())
+      {
+        // Neither request provided a usable outcome, so the outcome of the
+        // original request will be reported.
+        hedgeWon.complete(false);
+      }
+    }
+  }
+}
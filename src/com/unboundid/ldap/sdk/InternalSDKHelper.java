@@ -44,12 +44,14 @@ import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
+import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.X509TrustManager;
 
 import com.unboundid.asn1.ASN1StreamReader;
 import com.unboundid.asn1.ASN1StreamReaderSequence;
 import com.unboundid.ldap.protocol.LDAPMessage;
+import com.unboundid.ldap.protocol.ProtocolOp;
 import com.unboundid.ldap.sdk.extensions.CancelExtendedRequest;
 import com.unboundid.ldap.sdk.schema.Schema;
 import com.unboundid.ldap.sdk.unboundidds.TopologyRegistryTrustManager;
@@ -160,7 +162,7 @@ public final class InternalSDKHelper
              connection.getConnectionInternals(false);
         if (internals != null)
         {
-          internals.getSocket().setSoTimeout(soTimeout);
+          internals.setSoTimeout(soTimeout);
         }
       }
     }
@@ -196,7 +198,38 @@ public final class InternalSDKHelper
                           @NotNull final SSLSocketFactory sslSocketFactory)
          throws LDAPException
   {
-    connection.convertToTLS(sslSocketFactory);
+    connection.convertToTLS(sslSocketFactory, null);
+  }
+
+
+
+  /**
+   * Converts the provided clear-text connection to one that encrypts all
+   * communication using Transport Layer Security.  This method is intended for
+   * use as a helper for processing in the course of the StartTLS extended
+   * operation and should not be used for other purposes.
+   *
+   * @param  connection        The LDAP connection to be converted to use TLS.
+   * @param  sslSocketFactory  The SSL socket factory to use to convert an
+   *                           insecure connection into a secure connection.  It
+   *                           must not be {@code null}.
+   * @param  sslContext        The SSL context from which the SSL socket factory
+   *                           was obtained, if available.  If it is
+   *                           non-{@code null} and the connection is read by a
+   *                           shared selector thread, then it will be used to
+   *                           create an SSL engine so that TLS negotiation can
+   *                           be performed without blocking.
+   *
+   * @throws  LDAPException  If a problem occurs while converting the provided
+   *                         connection to use TLS.
+   */
+  @InternalUseOnly()
+  public static void convertToTLS(@NotNull final LDAPConnection connection,
+                          @NotNull final SSLSocketFactory sslSocketFactory,
+                          @Nullable final SSLContext sslContext)
+         throws LDAPException
+  {
+    connection.convertToTLS(sslSocketFactory, sslContext);
   }
 
 
@@ -263,6 +296,33 @@ public final class InternalSDKHelper
 
 
 
+  /**
+   * Retrieves the number of bytes that will be written when the provided
+   * protocol op is written to an ASN.1 buffer, if it is a protocol op that was
+   * created from an {@link LDAPRequestTemplate}.
+   *
+   * @param  protocolOp  The protocol op for which to make the determination.
+   *
+   * @return  The number of bytes that will be written when the provided
+   *          protocol op is written to an ASN.1 buffer, or -1 if it was not
+   *          created from a request template.
+   */
+  @InternalUseOnly()
+  public static int getEncodedPreparedProtocolOpSize(
+                         @NotNull final ProtocolOp protocolOp)
+  {
+    if (protocolOp instanceof PreparedProtocolOp)
+    {
+      return ((PreparedProtocolOp) protocolOp).getEncodedSize();
+    }
+    else
+    {
+      return -1;
+    }
+  }
+
+
+
   /**
    * Creates a new LDAP result object with the provided message ID and with the
    * protocol op and controls read from the given ASN.1 stream reader.
@@ -404,9 +464,95 @@ public final class InternalSDKHelper
                      @NotNull final ASN1StreamReader reader,
                      @Nullable final Schema schema)
          throws LDAPException
+  {
+    return readSearchResultEntryFrom(messageID, messageSequence, reader,
+         schema, false);
+  }
+
+
+
+  /**
+   * Creates a new search result entry object with the protocol op and controls
+   * read from the given ASN.1 stream reader.
+   *
+   * @param  messageID          The LDAP message ID for the LDAP message that is
+   *                            associated with this search result entry.
+   * @param  messageSequence    The ASN.1 stream reader sequence used in the
+   *                            course of reading the LDAP message elements.
+   * @param  reader             The ASN.1 stream reader from which to read the
+   *                            protocol op and controls.
+   * @param  schema             The schema to use to select the appropriate
+   *                            matching rule to use for each attribute.  It
+   *                            may be {@code null} if the default matching
+   *                            rule should always be used.
+   * @param  lazyEntryDecoding  Indicates whether the attributes of the entry
+   *                            should only be decoded when they are first
+   *                            accessed.
+   *
+   * @return  The decoded search result entry object.
+   *
+   * @throws  LDAPException  If a problem occurs while reading or decoding data
+   *                         from the ASN.1 stream reader.
+   */
+  @InternalUseOnly()
+  @NotNull()
+  public static SearchResultEntry readSearchResultEntryFrom(final int messageID,
+                     @NotNull final ASN1StreamReaderSequence messageSequence,
+                     @NotNull final ASN1StreamReader reader,
+                     @Nullable final Schema schema,
+                     final boolean lazyEntryDecoding)
+         throws LDAPException
+  {
+    return readSearchResultEntryFrom(messageID, messageSequence, reader,
+         schema, lazyEntryDecoding, null, 0);
+  }
+
+
+
+  /**
+   * Creates a new search result entry object with the protocol op and controls
+   * read from the given ASN.1 stream reader.
+   *
+   * @param  messageID          The LDAP message ID for the LDAP message that is
+   *                            associated with this search result entry.
+   * @param  messageSequence    The ASN.1 stream reader sequence used in the
+   *                            course of reading the LDAP message elements.
+   * @param  reader             The ASN.1 stream reader from which to read the
+   *                            protocol op and controls.
+   * @param  schema             The schema to use to select the appropriate
+   *                            matching rule to use for each attribute.  It
+   *                            may be {@code null} if the default matching
+   *                            rule should always be used.
+   * @param  lazyEntryDecoding  Indicates whether the attributes of the entry
+   *                            should only be decoded when they are first
+   *                            accessed.  This will be ignored if a large
+   *                            value sink is provided.
+   * @param  largeValueSink     The sink to which attribute values larger than
+   *                            the threshold should be written.  It may be
+   *                            {@code null} if all values should be held in
+   *                            memory.
+   * @param  thresholdBytes     The maximum size in bytes for an attribute
+   *                            value that will be held in memory when a sink
+   *                            is provided.
+   *
+   * @return  The decoded search result entry object.
+   *
+   * @throws  LDAPException  If a problem occurs while reading or decoding data
+   *                         from the ASN.1 stream reader.
+   */
+  @InternalUseOnly()
+  @NotNull()
+  public static SearchResultEntry readSearchResultEntryFrom(final int messageID,
+                     @NotNull final ASN1StreamReaderSequence messageSequence,
+                     @NotNull final ASN1StreamReader reader,
+                     @Nullable final Schema schema,
+                     final boolean lazyEntryDecoding,
+                     @Nullable final LargeAttributeValueSink largeValueSink,
+                     final int thresholdBytes)
+         throws LDAPException
   {
     return SearchResultEntry.readSearchEntryFrom(messageID, messageSequence,
-                                                 reader, schema);
+         reader, schema, lazyEntryDecoding, largeValueSink, thresholdBytes);
   }
 
 
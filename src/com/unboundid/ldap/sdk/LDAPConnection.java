@@ -46,12 +46,15 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import javax.net.SocketFactory;
+import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
@@ -280,6 +283,10 @@ public final class LDAPConnection
   // Indicates whether to perform a reconnect before the next write.
   @NotNull private final AtomicBoolean needsReconnect;
 
+  // The asynchronous operations processed on this connection that have
+  // timeouts scheduled with the shared timer.
+  @NotNull private final Set<AsyncRequestID> asyncRequestsWithTimeouts;
+
   // The disconnect information for this connection.
   @NotNull private final AtomicReference<DisconnectInfo> disconnectInfo;
 
@@ -358,9 +365,6 @@ public final class LDAPConnection
   // The address of the server to which a connection should be re-established.
   @Nullable private String reconnectAddress;
 
-  // A timer that may be used to enforce timeouts for asynchronous operations.
-  @Nullable private Timer timer;
-
 
 
   /**
@@ -421,6 +425,7 @@ public final class LDAPConnection
                         @Nullable final LDAPConnectionOptions connectionOptions)
   {
     needsReconnect = new AtomicBoolean(false);
+    asyncRequestsWithTimeouts = ConcurrentHashMap.newKeySet();
     disconnectInfo = new AtomicReference<>();
     lastCommunicationTime = -1L;
 
@@ -467,7 +472,6 @@ public final class LDAPConnection
     connectionName       = null;
     connectionPoolName   = null;
     cachedSchema         = null;
-    timer                = null;
     serverSet            = null;
 
     referralConnector = this.connectionOptions.getReferralConnector();
@@ -1110,11 +1114,15 @@ public final class LDAPConnection
    * @param  sslSocketFactory  The SSL socket factory to use to convert an
    *                           insecure connection into a secure connection.  It
    *                           must not be {@code null}.
+   * @param  sslContext        The SSL context from which the SSL socket factory
+   *                           was obtained, if available.  It may be
+   *                           {@code null} if no SSL context is available.
    *
    * @throws  LDAPException  If a problem occurs while converting this
    *                         connection to use TLS.
    */
-  void convertToTLS(@NotNull final SSLSocketFactory sslSocketFactory)
+  void convertToTLS(@NotNull final SSLSocketFactory sslSocketFactory,
+                    @Nullable final SSLContext sslContext)
        throws LDAPException
   {
     final LDAPConnectionInternals internals = connectionInternals;
@@ -1125,7 +1133,7 @@ public final class LDAPConnection
     }
     else
     {
-      internals.convertToTLS(sslSocketFactory);
+      internals.convertToTLS(sslSocketFactory, sslContext);
     }
   }
 
@@ -1306,7 +1314,9 @@ public final class LDAPConnection
     }
     else
     {
-      return null;
+      // If TLS was negotiated with an SSL engine rather than an SSL socket,
+      // then the session will be available from the engine.
+      return internals.getSSLEngineSession();
     }
   }
 
@@ -1776,6 +1786,16 @@ public final class LDAPConnection
   void setConnectionPool(@Nullable final AbstractConnectionPool connectionPool)
   {
     this.connectionPool = connectionPool;
+
+    if (connectionPool == null)
+    {
+      connectionStatistics.setPoolStatistics(null);
+    }
+    else
+    {
+      connectionStatistics.setPoolStatistics(
+           connectionPool.getConnectionPoolStatistics());
+    }
   }
 
 
@@ -4339,9 +4359,13 @@ public final class LDAPConnection
                                 @NotNull final SearchRequest searchRequest)
          throws LDAPSearchException
   {
+    // A request created from a template cannot be rebuilt with a different
+    // size limit without losing the values used in place of its placeholders,
+    // so it will be sent as-is unless it has a search result listener.
     final SearchRequest r;
     if ((searchRequest.getSearchResultListener() != null) ||
-        (searchRequest.getSizeLimit() != 1))
+        ((searchRequest.getSizeLimit() != 1) &&
+         (searchRequest.getPreparedProtocolOp() == null)))
     {
       r = new SearchRequest(searchRequest.getBaseDN(), searchRequest.getScope(),
            searchRequest.getDereferencePolicy(), 1,
@@ -4517,6 +4541,263 @@ public final class LDAPConnection
 
 
 
+  /**
+   * Processes the provided add request as an asynchronous operation and
+   * returns a completion stage that may be used to obtain the result.  The
+   * completion stage will be completed by a thread from the completion executor
+   * defined in the connection options rather than by the thread that reads
+   * responses from the server.
+   *
+   * @param  addRequest  The add request to be processed.  It must not be
+   *                     {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the add operation, or that will complete exceptionally
+   *          with an {@code LDAPException} if the server rejects the add
+   *          request or if a problem is encountered while sending the request
+   *          or reading the response.
+   */
+  @NotNull()
+  public CompletionStage<LDAPResult> addAsync(
+              @NotNull final AddRequest addRequest)
+  {
+    Validator.ensureNotNull(addRequest);
+
+    return AsyncCompletionHelper.processAsync(this, addRequest,
+         OperationType.ADD);
+  }
+
+
+
+  /**
+   * Processes the provided bind request and returns a completion stage that
+   * may be used to obtain the result.  Bind operations cannot be processed
+   * asynchronously, so the bind will be processed by a thread from the
+   * completion executor defined in the connection options.  No other
+   * operations should be attempted on this connection while the bind is in
+   * progress.
+   *
+   * @param  bindRequest  The bind request to be processed.  It must not be
+   *                      {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the bind operation, or that will complete exceptionally
+   *          with an {@code LDAPException} if the server rejects the bind
+   *          request or if a problem is encountered while sending the request
+   *          or reading the response.
+   */
+  @NotNull()
+  public CompletionStage<BindResult> bindAsync(
+              @NotNull final BindRequest bindRequest)
+  {
+    Validator.ensureNotNull(bindRequest);
+
+    return AsyncCompletionHelper.processAsync(this, bindRequest,
+         OperationType.BIND);
+  }
+
+
+
+  /**
+   * Processes the provided compare request as an asynchronous operation and
+   * returns a completion stage that may be used to obtain the result.  The
+   * completion stage will be completed by a thread from the completion executor
+   * defined in the connection options rather than by the thread that reads
+   * responses from the server.
+   *
+   * @param  compareRequest  The compare request to be processed.  It must not
+   *                         be {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the compare operation if the assertion was evaluated,
+   *          or that will complete exceptionally with an
+   *          {@code LDAPException} if the server could not evaluate the
+   *          assertion or if a problem is encountered while sending the
+   *          request or reading the response.
+   */
+  @NotNull()
+  public CompletionStage<CompareResult> compareAsync(
+              @NotNull final CompareRequest compareRequest)
+  {
+    Validator.ensureNotNull(compareRequest);
+
+    return AsyncCompletionHelper.processAsync(this, compareRequest,
+         OperationType.COMPARE);
+  }
+
+
+
+  /**
+   * Processes the provided delete request as an asynchronous operation and
+   * returns a completion stage that may be used to obtain the result.  The
+   * completion stage will be completed by a thread from the completion executor
+   * defined in the connection options rather than by the thread that reads
+   * responses from the server.
+   *
+   * @param  deleteRequest  The delete request to be processed.  It must not be
+   *                        {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the delete operation, or that will complete
+   *          exceptionally with an {@code LDAPException} if the server rejects
+   *          the delete request or if a problem is encountered while sending
+   *          the request or reading the response.
+   */
+  @NotNull()
+  public CompletionStage<LDAPResult> deleteAsync(
+              @NotNull final DeleteRequest deleteRequest)
+  {
+    Validator.ensureNotNull(deleteRequest);
+
+    return AsyncCompletionHelper.processAsync(this, deleteRequest,
+         OperationType.DELETE);
+  }
+
+
+
+  /**
+   * Processes the provided extended request and returns a completion stage
+   * that may be used to obtain the result.  Extended operations cannot be
+   * processed asynchronously, so the operation will be processed by a thread
+   * from the completion executor defined in the connection options.
+   *
+   * @param  extendedRequest  The extended request to be processed.  It must
+   *                          not be {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the extended operation (which may have a non-success
+   *          result code), or that will complete exceptionally with an
+   *          {@code LDAPException} if a problem is encountered while sending
+   *          the request or reading the response.
+   */
+  @NotNull()
+  public CompletionStage<ExtendedResult> processExtendedOperationAsync(
+              @NotNull final ExtendedRequest extendedRequest)
+  {
+    Validator.ensureNotNull(extendedRequest);
+
+    return AsyncCompletionHelper.processAsync(this, extendedRequest,
+         OperationType.EXTENDED);
+  }
+
+
+
+  /**
+   * Processes the provided modify request as an asynchronous operation and
+   * returns a completion stage that may be used to obtain the result.  The
+   * completion stage will be completed by a thread from the completion executor
+   * defined in the connection options rather than by the thread that reads
+   * responses from the server.
+   *
+   * @param  modifyRequest  The modify request to be processed.  It must not be
+   *                        {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the modify operation, or that will complete
+   *          exceptionally with an {@code LDAPException} if the server rejects
+   *          the modify request or if a problem is encountered while sending
+   *          the request or reading the response.
+   */
+  @NotNull()
+  public CompletionStage<LDAPResult> modifyAsync(
+              @NotNull final ModifyRequest modifyRequest)
+  {
+    Validator.ensureNotNull(modifyRequest);
+
+    return AsyncCompletionHelper.processAsync(this, modifyRequest,
+         OperationType.MODIFY);
+  }
+
+
+
+  /**
+   * Processes the provided modify DN request as an asynchronous operation and
+   * returns a completion stage that may be used to obtain the result.  The
+   * completion stage will be completed by a thread from the completion executor
+   * defined in the connection options rather than by the thread that reads
+   * responses from the server.
+   *
+   * @param  modifyDNRequest  The modify DN request to be processed.  It must
+   *                          not be {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the modify DN operation, or that will complete
+   *          exceptionally with an {@code LDAPException} if the server rejects
+   *          the modify DN request or if a problem is encountered while
+   *          sending the request or reading the response.
+   */
+  @NotNull()
+  public CompletionStage<LDAPResult> modifyDNAsync(
+              @NotNull final ModifyDNRequest modifyDNRequest)
+  {
+    Validator.ensureNotNull(modifyDNRequest);
+
+    return AsyncCompletionHelper.processAsync(this, modifyDNRequest,
+         OperationType.MODIFY_DN);
+  }
+
+
+
+  /**
+   * Processes the provided search request as an asynchronous operation and
+   * returns a completion stage that may be used to obtain the result.  The
+   * completion stage will be completed by a thread from the completion executor
+   * defined in the connection options rather than by the thread that reads
+   * responses from the server.
+   * <BR><BR>
+   * If the search request does not have a search result listener, then the
+   * entries and references returned by the server will be collected and made
+   * available through the {@code SearchResult} object.  Otherwise, they will
+   * be provided to the search result listener (by the thread that reads
+   * responses from the server) as they are received.
+   *
+   * @param  searchRequest  The search request to be processed.  It must not be
+   *                        {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the search operation, or that will complete
+   *          exceptionally with an {@code LDAPSearchException} if the search
+   *          does not complete successfully or if a problem is encountered
+   *          while sending the request or reading the response.
+   */
+  @NotNull()
+  public CompletionStage<SearchResult> searchAsync(
+              @NotNull final SearchRequest searchRequest)
+  {
+    Validator.ensureNotNull(searchRequest);
+
+    return AsyncCompletionHelper.processAsync(this, searchRequest,
+         OperationType.SEARCH);
+  }
+
+
+
+  /**
+   * Creates a publisher that may be used to stream the entries returned by the
+   * provided search request to a subscriber, with the rate at which entries
+   * are read from the server controlled by the subscriber's demand.  The
+   * search request will not be sent until the subscriber first requests
+   * entries.  See the {@link SearchEntryPublisher} class documentation for
+   * more information.
+   *
+   * @param  searchRequest  The search request to be processed.  It must not be
+   *                        {@code null}.  Its search result listener, if any,
+   *                        will be ignored.
+   *
+   * @return  A publisher that may be used to stream the entries returned by the
+   *          search to a subscriber.
+   */
+  @NotNull()
+  public SearchEntryPublisher searchPublisher(
+              @NotNull final SearchRequest searchRequest)
+  {
+    Validator.ensureNotNull(searchRequest);
+
+    return new SearchEntryPublisher(this, searchRequest);
+  }
+
+
+
   /**
    * Processes the provided generic request and returns the result.  This may
    * be useful for cases in which it is not known what type of operation the
@@ -4874,20 +5155,57 @@ public final class LDAPConnection
     cachedSchema = null;
     lastCommunicationTime = -1L;
 
-    synchronized (this)
+    // Cancel the timeouts for any outstanding asynchronous operations so that
+    // the shared timer does not retain this connection until they expire.
+    for (final AsyncRequestID asyncRequestID : asyncRequestsWithTimeouts)
     {
-      final Timer t = timer;
-      timer = null;
+      asyncRequestID.cancelTimeout();
+    }
+  }
 
-      if (t != null)
-      {
-        t.cancel();
-      }
+
+
+  /**
+   * Indicates whether a timeout has been scheduled with the shared timer for
+   * the provided asynchronous operation.
+   *
+   * @param  asyncRequestID  The async request ID for the operation.  It must
+   *                         not be {@code null}.
+   * @param  scheduled       Indicates whether a timeout is scheduled for the
+   *                         operation.  It should be {@code true} when the
+   *                         timeout is scheduled, and {@code false} when it has
+   *                         been cancelled or has expired.
+   */
+  void setAsyncTimeoutScheduled(@NotNull final AsyncRequestID asyncRequestID,
+                                final boolean scheduled)
+  {
+    if (scheduled)
+    {
+      asyncRequestsWithTimeouts.add(asyncRequestID);
+    }
+    else
+    {
+      asyncRequestsWithTimeouts.remove(asyncRequestID);
     }
   }
 
 
 
+  /**
+   * Retrieves the number of asynchronous operations processed on this
+   * connection that have timeouts scheduled with the shared timer.  This is
+   * only intended for testing purposes.
+   *
+   * @return  The number of asynchronous operations processed on this
+   *          connection that have timeouts scheduled with the shared timer.
+   */
+  int getNumAsyncTimeoutsScheduled()
+  {
+    return asyncRequestsWithTimeouts.size();
+  }
+
+
+
   /**
    * Registers the provided response acceptor with the connection reader.
    *
@@ -4938,56 +5256,6 @@ public final class LDAPConnection
 
 
 
-  /**
-   * Retrieves a timer for use with this connection, creating one if necessary.
-   *
-   * @return  A timer for use with this connection.
-   *
-   * @throws  LDAPException  If the connection has been closed.
-   */
-  @NotNull()
-  Timer getTimer()
-        throws LDAPException
-  {
-    final Timer t = getTimerNullable();
-    if (t == null)
-    {
-      throw new LDAPException(ResultCode.SERVER_DOWN,
-           ERR_CONN_NOT_ESTABLISHED.get());
-    }
-    else
-    {
-      return t;
-    }
-  }
-
-
-
-  /**
-   * Retrieves a timer for use with this connection, creating one if necessary
-   * and the connection is established.
-   *
-   * @return  A timer for use with this connection, or {@code null} if the
-   *          connection is not established.
-   */
-  @Nullable()
-  synchronized Timer getTimerNullable()
-  {
-    if (timer == null)
-    {
-      if (closeRequested || (connectionInternals == null))
-      {
-        return null;
-      }
-
-      timer = new Timer("Timer thread for " + toString(), true);
-    }
-
-    return timer;
-  }
-
-
-
   /**
    * {@inheritDoc}
    */
@@ -42,16 +42,20 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.nio.channels.SocketChannel;
 import java.util.logging.Level;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
 import javax.net.SocketFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import javax.security.sasl.SaslClient;
+import javax.security.sasl.SaslException;
 
 import com.unboundid.asn1.ASN1Buffer;
+import com.unboundid.asn1.ASN1BufferPool;
 import com.unboundid.ldap.protocol.LDAPMessage;
 import com.unboundid.util.Debug;
 import com.unboundid.util.DebugType;
@@ -59,6 +63,8 @@ import com.unboundid.util.InternalUseOnly;
 import com.unboundid.util.NotNull;
 import com.unboundid.util.Nullable;
 import com.unboundid.util.StaticUtils;
+import com.unboundid.util.SynchronizedSocketFactory;
+import com.unboundid.util.VirtualThreadSupport;
 
 import static com.unboundid.ldap.sdk.LDAPMessages.*;
 
@@ -80,10 +86,15 @@ final class LDAPConnectionInternals
 
 
   /**
-   * A set of thread-local ASN.1 buffers used to prepare messages to be written.
+   * A bounded pool of ASN.1 buffers used to prepare messages to be written.  It
+   * is shared by all connections so that the amount of memory retained for
+   * encoding messages is bounded by the size of the pool rather than by the
+   * number of threads sending requests.
    */
-  @NotNull private static final AtomicReference<ThreadLocal<ASN1Buffer>>
-       ASN1_BUFFERS = new AtomicReference<>(new ThreadLocal<ASN1Buffer>());
+  @NotNull private static final ASN1BufferPool SHARED_ASN1_BUFFERS =
+       new ASN1BufferPool(
+            Math.max(16, (4 * Runtime.getRuntime().availableProcessors())),
+            1_048_576);
 
 
 
@@ -94,6 +105,17 @@ final class LDAPConnectionInternals
   // Indicates whether to operate in synchronous mode.
   private final boolean synchronousMode;
 
+  // Indicates whether to use virtual threads.
+  private final boolean useVirtualThreads;
+
+  // The most recent SO_TIMEOUT value set on the socket, or -1 if it is not
+  // known.
+  private volatile int lastSoTimeout;
+
+  // The writer used to coalesce messages sent concurrently by multiple threads,
+  // if appropriate.
+  @Nullable private final CoalescingMessageWriter messageWriter;
+
   // The inet address to which the connection is established.
   @NotNull private final InetAddress inetAddress;
 
@@ -122,6 +144,10 @@ final class LDAPConnectionInternals
   // The address of the server to which the connection is established.
   @NotNull private final String host;
 
+  // The socket channel to use to read data with a shared selector thread, if
+  // appropriate.
+  @Nullable private final SocketChannel selectorChannel;
+
   // The write timeout handler for this connection.
   @NotNull private final WriteTimeoutHandler writeTimeoutHandler;
 
@@ -172,6 +198,17 @@ final class LDAPConnectionInternals
     connectTime     = System.currentTimeMillis();
     nextMessageID   = new AtomicInteger(0);
     synchronousMode = options.useSynchronousMode();
+    useVirtualThreads = options.useVirtualThreads();
+    lastSoTimeout   = -1;
+
+    if (options.useWriteCoalescing())
+    {
+      messageWriter = new CoalescingMessageWriter();
+    }
+    else
+    {
+      messageWriter = null;
+    }
     saslClient      = null;
     socket          = null;
 
@@ -179,14 +216,18 @@ final class LDAPConnectionInternals
 
     try
     {
+      final long connectStartTime = System.currentTimeMillis();
       final ConnectThread connectThread =
-           new ConnectThread(socketFactory, inetAddress, port, timeout);
-      connectThread.start();
+           new ConnectThread(getEffectiveSocketFactory(options, socketFactory),
+                inetAddress, port, timeout);
+      VirtualThreadSupport.start(connectThread, useVirtualThreads);
       socket = connectThread.getConnectedSocket();
 
       if (socket instanceof SSLSocket)
       {
         final SSLSocket sslSocket = (SSLSocket) socket;
+        connection.getConnectionStatistics().recordTLSHandshake(
+             sslSocket.getSession(), connectStartTime);
         options.getSSLSocketVerifier().verifySSLSocket(host, port, sslSocket);
       }
     }
@@ -235,9 +276,31 @@ final class LDAPConnectionInternals
       Debug.debug(Level.INFO, DebugType.CONNECT,
            "Setting the SO_TIMEOUT value for connection " + connection +
                 " to " + soTimeout + "ms.");
-      socket.setSoTimeout(soTimeout);
+      setSoTimeout(soTimeout);
+
+      final SocketChannel channel = socket.getChannel();
+      if (options.useSharedSelectorReaders() && (! synchronousMode) &&
+          (channel != null) && (! (socket instanceof SSLSocket)))
+      {
+        selectorChannel = channel;
+        if (messageWriter == null)
+        {
+          outputStream = new BufferedOutputStream(
+               new SocketChannelOutputStream(channel));
+        }
+        else
+        {
+          // The message writer will batch writes on its own, and it can use a
+          // gathering write if it has direct access to the channel.
+          outputStream = new SocketChannelOutputStream(channel);
+        }
+      }
+      else
+      {
+        selectorChannel = null;
+        outputStream = new BufferedOutputStream(socket.getOutputStream());
+      }
 
-      outputStream     = new BufferedOutputStream(socket.getOutputStream());
       connectionReader = new LDAPConnectionReader(connection, this);
     }
     catch (final IOException ioe)
@@ -262,16 +325,89 @@ final class LDAPConnectionInternals
 
 
 
+  /**
+   * Retrieves the socket factory that should actually be used to establish the
+   * connection.  If the connection should use a shared selector reader thread
+   * and the provided socket factory is the JVM-default factory, then a factory
+   * that creates channel-backed sockets will be used instead.
+   *
+   * @param  options        The set of options for the connection.
+   * @param  socketFactory  The socket factory that was configured for the
+   *                        connection.
+   *
+   * @return  The socket factory that should actually be used to establish the
+   *          connection.
+   */
+  @NotNull()
+  private static SocketFactory getEffectiveSocketFactory(
+               @NotNull final LDAPConnectionOptions options,
+               @NotNull final SocketFactory socketFactory)
+  {
+    if ((! options.useSharedSelectorReaders()) ||
+        options.useSynchronousMode())
+    {
+      return socketFactory;
+    }
+
+    SocketFactory f = socketFactory;
+    if (f instanceof SynchronizedSocketFactory)
+    {
+      f = ((SynchronizedSocketFactory) f).getWrappedSocketFactory();
+    }
+
+    if (f.getClass() == SocketFactory.getDefault().getClass())
+    {
+      return SocketChannelSocketFactory.getInstance();
+    }
+    else
+    {
+      return socketFactory;
+    }
+  }
+
+
+
   /**
    * Starts the connection reader for this connection internals.  This will
-   * have no effect if the connection is operating in synchronous mode.
+   * have no effect if the connection is operating in synchronous mode.  If the
+   * connection is backed by a socket channel and is configured to use shared
+   * selector reader threads, then the connection reader will be registered
+   * with one of those threads rather than being started in its own thread.
    */
   void startConnectionReader()
   {
-    if (! synchronousMode)
+    if (synchronousMode)
     {
-      connectionReader.start();
+      return;
+    }
+
+    if (selectorChannel != null)
+    {
+      try
+      {
+        connectionReader.startSharedSelectorReader(
+             SharedSelectorReaderThread.getThreadForNewConnection(),
+             selectorChannel);
+        return;
+      }
+      catch (final IOException e)
+      {
+        // We couldn't use a shared selector thread, so fall back to a
+        // dedicated reader thread.  The channel needs to be in blocking mode
+        // for that to work.
+        Debug.debugException(e);
+        try
+        {
+          selectorChannel.configureBlocking(true);
+        }
+        catch (final IOException e2)
+        {
+          Debug.debugException(e2);
+        }
+      }
     }
+
+    connectionReader.startDedicatedReaderThread();
   }
 
 
@@ -307,6 +443,27 @@ final class LDAPConnectionInternals
 
 
 
+  /**
+   * Retrieves the TLS session that was negotiated for this connection with an
+   * SSL engine rather than an SSL socket, if any.
+   *
+   * @return  The TLS session that was negotiated for this connection with an
+   *          SSL engine, or {@code null} if TLS has not been negotiated with an
+   *          SSL engine.
+   */
+  @Nullable()
+  SSLSession getSSLEngineSession()
+  {
+    if (connectionReader == null)
+    {
+      return null;
+    }
+
+    return connectionReader.getSSLEngineSession();
+  }
+
+
+
   /**
    * Retrieves the inet address to which this connection is established.
    *
@@ -369,6 +526,26 @@ final class LDAPConnectionInternals
   void setSocket(@NotNull final Socket socket)
   {
     this.socket = socket;
+    lastSoTimeout = -1;
+  }
+
+
+
+  /**
+   * Sets the SO_TIMEOUT value for the socket used to communicate with the
+   * directory server.
+   *
+   * @param  soTimeout  The SO_TIMEOUT value (in milliseconds) to use.  A value
+   *                    of zero indicates that no timeout should be enforced.
+   *
+   * @throws  IOException  If a problem occurs while setting the SO_TIMEOUT
+   *                       value.
+   */
+  void setSoTimeout(final int soTimeout)
+       throws IOException
+  {
+    socket.setSoTimeout(soTimeout);
+    lastSoTimeout = soTimeout;
   }
 
 
@@ -421,14 +598,19 @@ final class LDAPConnectionInternals
    * @param  sslSocketFactory  The SSL socket factory to use to convert an
    *                           insecure connection into a secure connection.  It
    *                           must not be {@code null}.
+   * @param  sslContext        The SSL context from which the SSL socket factory
+   *                           was obtained, if available.  It may be
+   *                           {@code null} if no SSL context is available.
    *
    * @throws  LDAPException  If a problem occurs while converting this
    *                         connection to use TLS.
    */
-  void convertToTLS(@NotNull final SSLSocketFactory sslSocketFactory)
+  void convertToTLS(@NotNull final SSLSocketFactory sslSocketFactory,
+                    @Nullable final SSLContext sslContext)
        throws LDAPException
   {
-    outputStream = connectionReader.doStartTLS(sslSocketFactory);
+    outputStream =
+         connectionReader.doStartTLS(sslSocketFactory, sslContext);
   }
 
 
@@ -558,14 +740,7 @@ final class LDAPConnectionInternals
                               ERR_CONN_NOT_ESTABLISHED.get());
     }
 
-    ASN1Buffer buffer = ASN1_BUFFERS.get().get();
-    if (buffer == null)
-    {
-      buffer = new ASN1Buffer();
-      ASN1_BUFFERS.get().set(buffer);
-    }
-
-    buffer.clear();
+    final ASN1Buffer buffer = SHARED_ASN1_BUFFERS.get();
     try
     {
       message.writeTo(buffer);
@@ -573,20 +748,26 @@ final class LDAPConnectionInternals
     catch (final LDAPRuntimeException lre)
     {
       Debug.debugException(lre);
+      SHARED_ASN1_BUFFERS.release(buffer);
       lre.throwLDAPException();
     }
 
 
     try
     {
+      // Avoid the overhead of setting the SO_TIMEOUT value if it hasn't
+      // changed since the last time it was set.
       final int soTimeout = Math.max(0, (int) sendTimeoutMillis);
-      if (Debug.debugEnabled())
+      if (soTimeout != lastSoTimeout)
       {
-        Debug.debug(Level.INFO, DebugType.CONNECT,
-             "Setting the SO_TIMEOUT value for connection " + connection +
-                  " to " + soTimeout + "ms.");
+        if (Debug.debugEnabled())
+        {
+          Debug.debug(Level.INFO, DebugType.CONNECT,
+               "Setting the SO_TIMEOUT value for connection " + connection +
+                    " to " + soTimeout + "ms.");
+        }
+        setSoTimeout(soTimeout);
       }
-      socket.setSoTimeout(soTimeout);
     }
     catch (final Exception e)
     {
@@ -594,14 +775,14 @@ final class LDAPConnectionInternals
     }
 
 
-    final Long writeID;
+    final HashedWheelTimer.Timeout writeTimeout;
     if (sendTimeoutMillis > 0)
     {
-      writeID = writeTimeoutHandler.beginWrite(sendTimeoutMillis);
+      writeTimeout = writeTimeoutHandler.beginWrite(sendTimeoutMillis);
     }
     else
     {
-      writeID = null;
+      writeTimeout = null;
     }
 
     try
@@ -639,27 +820,31 @@ final class LDAPConnectionInternals
              ERR_CONN_SEND_ERROR_NOT_ESTABLISHED.get(host, port));
       }
 
-      if (saslClient == null)
+      final SaslClient sc = saslClient;
+      if (messageWriter != null)
       {
-        buffer.writeTo(os);
+        // The message writer will take care of flushing the output stream.
+        if (sc == null)
+        {
+          messageWriter.write(os, buffer.toByteArray());
+        }
+        else
+        {
+          messageWriter.write(os, wrapWithSASLClient(sc, buffer));
+        }
       }
       else
       {
-        // We need to wrap the data that was read using the SASL client, but we
-        // also need to precede that wrapped data with four bytes that specify
-        // the number of bytes of wrapped data.
-        final byte[] clearBytes = buffer.toByteArray();
-        final byte[] saslBytes =
-             saslClient.wrap(clearBytes, 0, clearBytes.length);
-        final byte[] lengthBytes = new byte[4];
-        lengthBytes[0] = (byte) ((saslBytes.length >> 24) & 0xFF);
-        lengthBytes[1] = (byte) ((saslBytes.length >> 16) & 0xFF);
-        lengthBytes[2] = (byte) ((saslBytes.length >> 8) & 0xFF);
-        lengthBytes[3] = (byte) (saslBytes.length & 0xFF);
-        os.write(lengthBytes);
-        os.write(saslBytes);
+        if (sc == null)
+        {
+          buffer.writeTo(os);
+        }
+        else
+        {
+          os.write(wrapWithSASLClient(sc, buffer));
+        }
+        os.flush();
       }
-      os.flush();
     }
     catch (final LDAPException e)
     {
@@ -710,20 +895,49 @@ final class LDAPConnectionInternals
     }
     finally
     {
-      if (writeID != null)
+      if (writeTimeout != null)
       {
-        writeTimeoutHandler.writeCompleted(writeID);
+        writeTimeoutHandler.writeCompleted(writeTimeout);
       }
 
-      if (buffer.zeroBufferOnClear())
-      {
-        buffer.clear();
-      }
+      SHARED_ASN1_BUFFERS.release(buffer);
     }
   }
 
 
 
+  /**
+   * Wraps the contents of the provided buffer using the given SASL client.  The
+   * wrapped data will be preceded by four bytes that specify the number of
+   * bytes of wrapped data.
+   *
+   * @param  saslClient  The SASL client to use to wrap the data.
+   * @param  buffer      The buffer containing the data to be wrapped.
+   *
+   * @return  The wrapped representation of the data, preceded by its length.
+   *
+   * @throws  SaslException  If a problem occurs while wrapping the data.
+   */
+  @NotNull()
+  private static byte[] wrapWithSASLClient(
+                             @NotNull final SaslClient saslClient,
+                             @NotNull final ASN1Buffer buffer)
+          throws SaslException
+  {
+    final byte[] clearBytes = buffer.toByteArray();
+    final byte[] saslBytes = saslClient.wrap(clearBytes, 0, clearBytes.length);
+
+    final byte[] wrappedBytes = new byte[saslBytes.length + 4];
+    wrappedBytes[0] = (byte) ((saslBytes.length >> 24) & 0xFF);
+    wrappedBytes[1] = (byte) ((saslBytes.length >> 16) & 0xFF);
+    wrappedBytes[2] = (byte) ((saslBytes.length >> 8) & 0xFF);
+    wrappedBytes[3] = (byte) (saslBytes.length & 0xFF);
+    System.arraycopy(saslBytes, 0, wrappedBytes, 4, saslBytes.length);
+    return wrappedBytes;
+  }
+
+
+
   /**
    * Closes the connection associated with this connection internals.
    */
@@ -831,7 +1045,7 @@ final class LDAPConnectionInternals
          ACTIVE_CONNECTION_COUNT.decrementAndGet();
     if (remainingActiveConnections <= 0L)
     {
-      ASN1_BUFFERS.set(new ThreadLocal<ASN1Buffer>());
+      SHARED_ASN1_BUFFERS.clear();
 
       if (remainingActiveConnections < 0L)
       {
@@ -44,6 +44,7 @@ import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 
 import com.unboundid.ldap.sdk.extensions.PasswordModifyExtendedRequest;
@@ -124,6 +125,40 @@ import com.unboundid.util.ssl.TrustAllSSLSocketVerifier;
  *       connections may exhibit better performance and will not require a
  *       separate reader thread, but will not allow multiple concurrent
  *       operations to be used on the same connection.</LI>
+ *   <LI>A flag that indicates whether connections that are not operating in
+ *       synchronous mode should use a small, shared set of selector threads
+ *       to read responses from the server rather than a separate reader
+ *       thread per connection.  By default, each connection will use its own
+ *       reader thread.</LI>
+ *   <LI>A flag that indicates whether to use virtual threads (on Java
+ *       runtimes that support them) rather than platform threads for the
+ *       threads created for associated connections.  By default, platform
+ *       threads will be used.</LI>
+ *   <LI>A flag that indicates whether requests sent concurrently by multiple
+ *       threads on the same connection should be coalesced so that they can
+ *       be written to the server in a single batch.  By default, each request
+ *       will be written and flushed individually.</LI>
+ *   <LI>A flag that indicates whether the attributes of search result entries
+ *       should be decoded lazily, when they are first accessed, rather than
+ *       by the thread that reads the entry from the server.  By default,
+ *       search result entries will be fully decoded as they are read.</LI>
+ *   <LI>An optional sink to which search result entry attribute values larger
+ *       than a configurable threshold should be streamed as they are read,
+ *       rather than being held in memory, along with that threshold.  By
+ *       default, no sink will be used and all values will be held in memory,
+ *       and the threshold will be 1,048,576 bytes (1 megabyte).</LI>
+ *   <LI>A flag that indicates whether connection pools created with these
+ *       options should prefer to reuse the connection most recently released
+ *       by the requesting thread, and otherwise the most recently released
+ *       connection, using a lock-free structure rather than a first-in,
+ *       first-out queue.  By default, pools will use a first-in, first-out
+ *       queue.</LI>
+ *   <LI>The executor that will be used to complete the
+ *       {@code CompletionStage} objects returned by methods like
+ *       {@link LDAPConnection#searchAsync}, so that dependent actions are not
+ *       invoked by the thread that reads responses from the server.  By
+ *       default, a shared pool with a bounded number of daemon threads will
+ *       be used.</LI>
  *   <LI>A flag that indicates whether to use the TCP_NODELAY socket option to
  *       indicate that any data written to the socket will be sent immediately
  *       rather than delaying for a short amount of time to see if any more data
@@ -576,6 +611,204 @@ public final class LDAPConnectionOptions
 
 
 
+  /**
+   * The name of a system property that can be used to specify the initial
+   * default value for the "use shared selector readers" behavior.  If this
+   * property is set at the time that this class is loaded, then its value must
+   * be either "true" or "false".  If this property is not set, then a default
+   * value of "false" will be assumed.
+   * <BR><BR>
+   * The full name for this system property is "com.unboundid.ldap.sdk.
+   * LDAPConnectionOptions.defaultUseSharedSelectorReaders".
+   */
+  @NotNull public static final String
+       PROPERTY_DEFAULT_USE_SHARED_SELECTOR_READERS =
+            PROPERTY_PREFIX + "defaultUseSharedSelectorReaders";
+
+
+
+  /**
+   * The default value for the setting that controls whether connections that
+   * are not operating in synchronous mode should use a shared set of selector
+   * threads to read responses rather than a dedicated reader thread per
+   * connection.  If the {@link #PROPERTY_DEFAULT_USE_SHARED_SELECTOR_READERS}
+   * system property is set at the time this class is loaded, then its value
+   * will be used.  Otherwise, a default value of {@code false} will be used.
+   */
+  private static final boolean DEFAULT_USE_SHARED_SELECTOR_READERS =
+       PropertyManager.getBoolean(PROPERTY_DEFAULT_USE_SHARED_SELECTOR_READERS,
+            false);
+
+
+
+  /**
+   * The name of a system property that can be used to specify the number of
+   * selector threads that will be shared by all connections configured to use
+   * shared selector readers.  If this property is set at the time that the
+   * first such connection is established, then its value must be parseable as
+   * a positive integer.  If this property is not set, then the number of
+   * selector threads will be based on the number of available processors, up
+   * to a maximum of four.
+   * <BR><BR>
+   * The full name for this system property is "com.unboundid.ldap.sdk.
+   * LDAPConnectionOptions.sharedSelectorReaderThreadCount".
+   */
+  @NotNull public static final String
+       PROPERTY_SHARED_SELECTOR_READER_THREAD_COUNT =
+            PROPERTY_PREFIX + "sharedSelectorReaderThreadCount";
+
+
+
+  /**
+   * The name of a system property that can be used to specify the number of
+   * threads in the default executor used to complete the
+   * {@code CompletionStage} objects returned by the CompletionStage-based
+   * asynchronous operation methods.  If this property is set at the time that
+   * the default executor is first needed, then its value must be parseable as
+   * a positive integer.  If this property is not set, then the number of
+   * threads will be twice the number of available processors, up to a maximum
+   * of sixteen.
+   * <BR><BR>
+   * The full name for this system property is "com.unboundid.ldap.sdk.
+   * LDAPConnectionOptions.completionExecutorThreadCount".
+   */
+  @NotNull public static final String
+       PROPERTY_COMPLETION_EXECUTOR_THREAD_COUNT =
+            PROPERTY_PREFIX + "completionExecutorThreadCount";
+
+
+
+  /**
+   * The name of a system property that can be used to specify the initial
+   * default value for the "use virtual threads" behavior.  If this property is
+   * set at the time that this class is loaded, then its value must be either
+   * "true" or "false".  If this property is not set, then a default value of
+   * "false" will be assumed.
+   * <BR><BR>
+   * The full name for this system property is "com.unboundid.ldap.sdk.
+   * LDAPConnectionOptions.defaultUseVirtualThreads".
+   */
+  @NotNull public static final String PROPERTY_DEFAULT_USE_VIRTUAL_THREADS =
+       PROPERTY_PREFIX + "defaultUseVirtualThreads";
+
+
+
+  /**
+   * The default value for the setting that controls whether to use virtual
+   * threads rather than platform threads for associated connections.  If the
+   * {@link #PROPERTY_DEFAULT_USE_VIRTUAL_THREADS} system property is set at the
+   * time this class is loaded, then its value will be used.  Otherwise, a
+   * default value of {@code false} will be used.
+   */
+  private static final boolean DEFAULT_USE_VIRTUAL_THREADS =
+       PropertyManager.getBoolean(PROPERTY_DEFAULT_USE_VIRTUAL_THREADS, false);
+
+
+
+  /**
+   * The name of a system property that can be used to specify the initial
+   * default value for the "use write coalescing" behavior.  If this property
+   * is set at the time that this class is loaded, then its value must be either
+   * "true" or "false".  If this property is not set, then a default value of
+   * "false" will be assumed.
+   * <BR><BR>
+   * The full name for this system property is "com.unboundid.ldap.sdk.
+   * LDAPConnectionOptions.defaultUseWriteCoalescing".
+   */
+  @NotNull public static final String PROPERTY_DEFAULT_USE_WRITE_COALESCING =
+       PROPERTY_PREFIX + "defaultUseWriteCoalescing";
+
+
+
+  /**
+   * The default value for the setting that controls whether to coalesce
+   * requests sent concurrently on the same connection.  If the
+   * {@link #PROPERTY_DEFAULT_USE_WRITE_COALESCING} system property is set at
+   * the time this class is loaded, then its value will be used.  Otherwise, a
+   * default value of {@code false} will be used.
+   */
+  private static final boolean DEFAULT_USE_WRITE_COALESCING =
+       PropertyManager.getBoolean(PROPERTY_DEFAULT_USE_WRITE_COALESCING,
+            false);
+
+
+
+  /**
+   * The name of a system property that can be used to specify the initial
+   * default value for the "use pool connection affinity" behavior.  If this
+   * property is set at the time that this class is loaded, then its value must
+   * be either "true" or "false".  If this property is not set, then a default
+   * value of "false" will be assumed.
+   * <BR><BR>
+   * The full name for this system property is "com.unboundid.ldap.sdk.
+   * LDAPConnectionOptions.defaultUsePoolConnectionAffinity".
+   */
+  @NotNull public static final String
+       PROPERTY_DEFAULT_USE_POOL_CONNECTION_AFFINITY =
+            PROPERTY_PREFIX + "defaultUsePoolConnectionAffinity";
+
+
+
+  /**
+   * The default value for the setting that controls whether connection pools
+   * should prefer to reuse recently released connections.  If the
+   * {@link #PROPERTY_DEFAULT_USE_POOL_CONNECTION_AFFINITY} system property is
+   * set at the time this class is loaded, then its value will be used.
+   * Otherwise, a default value of {@code false} will be used.
+   */
+  private static final boolean DEFAULT_USE_POOL_CONNECTION_AFFINITY =
+       PropertyManager.getBoolean(PROPERTY_DEFAULT_USE_POOL_CONNECTION_AFFINITY,
+            false);
+
+
+
+  /**
+   * The name of a system property that can be used to specify the initial
+   * default value for the "use lazy search entry decoding" behavior.  If this
+   * property is set at the time that this class is loaded, then its value must
+   * be either "true" or "false".  If this property is not set, then a default
+   * value of "false" will be assumed.
+   * <BR><BR>
+   * The full name for this system property is "com.unboundid.ldap.sdk.
+   * LDAPConnectionOptions.defaultUseLazySearchEntryDecoding".
+   */
+  @NotNull public static final String
+       PROPERTY_DEFAULT_USE_LAZY_SEARCH_ENTRY_DECODING =
+       PROPERTY_PREFIX + "defaultUseLazySearchEntryDecoding";
+
+
+
+  /**
+   * The default value for the setting that controls whether to lazily decode
+   * the attributes of search result entries.  If the
+   * {@link #PROPERTY_DEFAULT_USE_LAZY_SEARCH_ENTRY_DECODING} system property is
+   * set at the time this class is loaded, then its value will be used.
+   * Otherwise, a default value of {@code false} will be used.
+   */
+  private static final boolean DEFAULT_USE_LAZY_SEARCH_ENTRY_DECODING =
+       PropertyManager.getBoolean(
+            PROPERTY_DEFAULT_USE_LAZY_SEARCH_ENTRY_DECODING, false);
+
+
+
+  /**
+   * The name of a system property that can be used to specify the tick
+   * interval, in milliseconds, for the timer that all connections share to
+   * enforce timeouts for asynchronous operations and for blocked writes.
+   * Timeouts may expire up to one tick interval later than requested, but a
+   * shorter interval causes the timer to wake up more often while timeouts are
+   * outstanding.  If this property is set at the time that the timer is first
+   * used, then its value must be a positive integer.  If this property is not
+   * set, then a tick interval of 10 milliseconds will be used.
+   * <BR><BR>
+   * The full name for this system property is "com.unboundid.ldap.sdk.
+   * LDAPConnectionOptions.timeoutTimerTickMillis".
+   */
+  @NotNull public static final String PROPERTY_TIMEOUT_TIMER_TICK_MILLIS =
+       PROPERTY_PREFIX + "timeoutTimerTickMillis";
+
+
+
   /**
    * The name of a system property that can be used to specify the initial
    * default value for the "use TCP nodelay" behavior.  If this property is set
@@ -659,6 +892,15 @@ public final class LDAPConnectionOptions
 
 
 
+  /**
+   * The default size in bytes above which search result entry attribute values
+   * will be written to the large attribute value sink, if one is configured.
+   */
+  private static final int DEFAULT_LARGE_ATTRIBUTE_VALUE_THRESHOLD_BYTES =
+       1_048_576;
+
+
+
   /**
    * The name of a system property that can be used to specify the initial
    * default value for the receive buffer size, in bytes.  If this property is
@@ -1239,6 +1481,25 @@ public final class LDAPConnectionOptions
   // Indicates whether to use SO_REUSEADDR for the underlying sockets.
   private boolean useReuseAddress;
 
+  // Indicates whether to use a shared set of selector threads rather than a
+  // dedicated reader thread for each connection.
+  private boolean useSharedSelectorReaders;
+
+  // Indicates whether to use virtual threads rather than platform threads.
+  private boolean useVirtualThreads;
+
+  // Indicates whether to coalesce requests written concurrently by multiple
+  // threads.
+  private boolean useWriteCoalescing;
+
+  // Indicates whether connection pools should prefer to reuse recently
+  // released connections.
+  private boolean usePoolConnectionAffinity;
+
+  // Indicates whether to lazily decode the attributes of search result
+  // entries.
+  private boolean useLazySearchEntryDecoding;
+
   // Indicates whether all connections in a connection pool should reference
   // the same schema.
   private boolean usePooledSchema;
@@ -1260,6 +1521,10 @@ public final class LDAPConnectionOptions
   // The connect timeout, in milliseconds.
   private int connectTimeoutMillis;
 
+  // The size in bytes above which attribute values will be written to the
+  // large attribute value sink, if one is configured.
+  private int largeAttributeValueThresholdBytes;
+
   // The linger timeout to use if SO_LINGER is to be used.
   private int lingerTimeoutSeconds;
 
@@ -1295,6 +1560,14 @@ public final class LDAPConnectionOptions
   // The name resolver that will be used to resolve host names to IP addresses.
   @NotNull private NameResolver nameResolver;
 
+  // The executor that will be used to complete the completion stages returned
+  // by the CompletionStage-based asynchronous operation methods.
+  @NotNull private Executor completionExecutor;
+
+  // The sink to which large attribute values in search result entries should
+  // be written rather than being held in memory.
+  @Nullable private LargeAttributeValueSink largeAttributeValueSink;
+
   // Tne default referral connector that should be used for associated
   // connections.
   @Nullable private ReferralConnector referralConnector;
@@ -1323,6 +1596,11 @@ public final class LDAPConnectionOptions
     useKeepAlive                   = DEFAULT_USE_KEEPALIVE;
     useLinger                      = DEFAULT_USE_LINGER;
     useReuseAddress                = DEFAULT_USE_REUSE_ADDRESS;
+    useSharedSelectorReaders       = DEFAULT_USE_SHARED_SELECTOR_READERS;
+    useVirtualThreads              = DEFAULT_USE_VIRTUAL_THREADS;
+    useWriteCoalescing             = DEFAULT_USE_WRITE_COALESCING;
+    usePoolConnectionAffinity      = DEFAULT_USE_POOL_CONNECTION_AFFINITY;
+    useLazySearchEntryDecoding     = DEFAULT_USE_LAZY_SEARCH_ENTRY_DECODING;
     usePooledSchema                = DEFAULT_USE_POOLED_SCHEMA;
     useSchema                      = DEFAULT_USE_SCHEMA;
     useSynchronousMode             = DEFAULT_USE_SYNCHRONOUS_MODE;
@@ -1330,6 +1608,8 @@ public final class LDAPConnectionOptions
     connectTimeoutMillis           = DEFAULT_CONNECT_TIMEOUT_MILLIS;
     lingerTimeoutSeconds           = DEFAULT_LINGER_TIMEOUT_SECONDS;
     maxMessageSizeBytes            = DEFAULT_MAX_MESSAGE_SIZE_BYTES;
+    largeAttributeValueThresholdBytes =
+         DEFAULT_LARGE_ATTRIBUTE_VALUE_THRESHOLD_BYTES;
     referralHopLimit               = DEFAULT_REFERRAL_HOP_LIMIT;
     pooledSchemaTimeoutMillis      = DEFAULT_POOLED_SCHEMA_TIMEOUT_MILLIS;
     responseTimeoutMillis          = DEFAULT_RESPONSE_TIMEOUT_MILLIS;
@@ -1338,6 +1618,9 @@ public final class LDAPConnectionOptions
     connectionLogger               = null;
     disconnectHandler              = null;
     referralConnector              = null;
+    completionExecutor             =
+         AsyncCompletionHelper.getDefaultCompletionExecutor();
+    largeAttributeValueSink        = null;
     sslSocketVerifier              = DEFAULT_SSL_SOCKET_VERIFIER;
     unsolicitedNotificationHandler = null;
 
@@ -1373,6 +1656,11 @@ public final class LDAPConnectionOptions
     o.useKeepAlive                    = useKeepAlive;
     o.useLinger                       = useLinger;
     o.useReuseAddress                 = useReuseAddress;
+    o.useSharedSelectorReaders        = useSharedSelectorReaders;
+    o.useVirtualThreads               = useVirtualThreads;
+    o.useWriteCoalescing              = useWriteCoalescing;
+    o.usePoolConnectionAffinity       = usePoolConnectionAffinity;
+    o.useLazySearchEntryDecoding      = useLazySearchEntryDecoding;
     o.usePooledSchema                 = usePooledSchema;
     o.useSchema                       = useSchema;
     o.useSynchronousMode              = useSynchronousMode;
@@ -1383,6 +1671,9 @@ public final class LDAPConnectionOptions
     o.pooledSchemaTimeoutMillis       = pooledSchemaTimeoutMillis;
     o.responseTimeoutMillis           = responseTimeoutMillis;
     o.referralConnector               = referralConnector;
+    o.completionExecutor              = completionExecutor;
+    o.largeAttributeValueSink         = largeAttributeValueSink;
+    o.largeAttributeValueThresholdBytes = largeAttributeValueThresholdBytes;
     o.referralHopLimit                = referralHopLimit;
     o.connectionLogger                = connectionLogger;
     o.disconnectHandler               = disconnectHandler;
@@ -2122,6 +2413,348 @@ public final class LDAPConnectionOptions
 
 
 
+  /**
+   * Indicates whether connections that are not operating in synchronous mode
+   * should use a small, shared set of selector threads to read responses from
+   * the server rather than a dedicated reader thread per connection.  Using
+   * shared selector readers can dramatically reduce the number of threads
+   * needed by applications that maintain a large number of mostly-idle
+   * connections (for example, several large connection pools).
+   * <BR><BR>
+   * Shared selector readers can only be used for connections whose sockets
+   * are backed by a {@code java.nio.channels.SocketChannel}.  If the
+   * connection is created with the JVM-default socket factory, then a
+   * channel-backed socket will automatically be used.  Connections created
+   * with any other kind of socket factory (including those that create
+   * {@code SSLSocket} instances) will fall back to using a dedicated reader
+   * thread.  If a connection is converted to use StartTLS with a
+   * {@code StartTLSExtendedRequest} that has an {@code SSLContext}, then TLS
+   * will be negotiated with an {@code SSLEngine} without blocking, and the
+   * connection will continue to use the shared selector reader.  However, if a
+   * connection needs to be converted to use StartTLS with only an
+   * {@code SSLSocketFactory}, or to use a SASL quality of protection, then it
+   * will switch to using a dedicated reader thread at that time.
+   * <BR><BR>
+   * Listeners and handlers for connections that use shared selector readers
+   * are invoked by the selector thread, so they must not block.  See
+   * {@link #setUseSharedSelectorReaders} for details.
+   * <BR><BR>
+   * Note that this connection option must be set on the connection before any
+   * attempt is made to establish the connection.  Once the connection has
+   * been established, then it will continue to use the reader mechanism that
+   * was selected at the time it was connected.
+   *
+   * @return  {@code true} if associated connections should use shared selector
+   *          readers when possible, or {@code false} if each connection should
+   *          use its own reader thread.
+   */
+  public boolean useSharedSelectorReaders()
+  {
+    return useSharedSelectorReaders;
+  }
+
+
+
+  /**
+   * Specifies whether connections that are not operating in synchronous mode
+   * should use a small, shared set of selector threads to read responses from
+   * the server rather than a dedicated reader thread per connection.
+   * <BR><BR>
+   * When a connection uses a shared selector reader, any callbacks triggered
+   * by data read from the server are invoked by the selector thread.  This
+   * includes async result listeners, search result listeners for
+   * asynchronous searches, intermediate response listeners, unsolicited
+   * notification handlers, and the disconnect handler.  Because each selector
+   * thread is shared by many connections, a callback that takes a long time
+   * to complete will delay the processing of responses on every one of those
+   * connections.  A callback must never perform a synchronous operation on a
+   * connection (including the one that triggered it), since the response to
+   * that operation may need to be read by the same selector thread, which
+   * would cause a deadlock.  Any such work should be handed off to another
+   * thread, or the CompletionStage-based asynchronous operation methods
+   * (which complete their results with the completion executor) should be
+   * used instead.
+   * <BR><BR>
+   * Note that this connection option must be set on the connection before any
+   * attempt is made to establish the connection.  Once the connection has
+   * been established, then it will continue to use the reader mechanism that
+   * was selected at the time it was connected.
+   *
+   * @param  useSharedSelectorReaders  Indicates whether associated connections
+   *                                   should use shared selector readers when
+   *                                   possible.
+   */
+  public void setUseSharedSelectorReaders(
+                   final boolean useSharedSelectorReaders)
+  {
+    this.useSharedSelectorReaders = useSharedSelectorReaders;
+  }
+
+
+
+  /**
+   * Indicates whether associated connections should use virtual threads
+   * rather than platform threads.  If this is {@code true} and the JVM supports
+   * virtual threads (Java 21 and later), then the connection reader and the
+   * thread used to establish the connection will be virtual threads.  On a JVM
+   * that does not support virtual threads, platform threads will be used
+   * regardless of this setting.
+   * <BR><BR>
+   * Note that this connection option must be set on the connection before any
+   * attempt is made to establish the connection.  Connection pools created
+   * with connections using this option will also use a virtual thread for
+   * their background health checking.
+   *
+   * @return  {@code true} if associated connections should use virtual threads
+   *          when possible, or {@code false} if they should use platform
+   *          threads.
+   */
+  public boolean useVirtualThreads()
+  {
+    return useVirtualThreads;
+  }
+
+
+
+  /**
+   * Specifies whether associated connections should use virtual threads
+   * rather than platform threads.  This will only have an effect on JVMs that
+   * support virtual threads (Java 21 and later).
+   * <BR><BR>
+   * Note that this connection option must be set on the connection before any
+   * attempt is made to establish the connection.
+   *
+   * @param  useVirtualThreads  Indicates whether associated connections should
+   *                            use virtual threads when possible.
+   */
+  public void setUseVirtualThreads(final boolean useVirtualThreads)
+  {
+    this.useVirtualThreads = useVirtualThreads;
+  }
+
+
+
+  /**
+   * Indicates whether requests sent concurrently by multiple threads on the
+   * same connection should be coalesced.  If so, then each request will be
+   * placed in a queue, and a single thread will write all of the queued
+   * requests to the server at once, with only a single flush (and, when
+   * possible, a single system call).  This can substantially increase the
+   * number of requests per second that can be sent on a connection that is
+   * shared by many threads using small requests (like simple searches or
+   * binds), at the cost of a small amount of additional overhead for each
+   * request.  It is unlikely to offer any benefit for connections that are
+   * only used by one thread at a time.
+   * <BR><BR>
+   * Each thread will still block until its own request has been written, and
+   * the response timeout will still be enforced for blocked writes.
+   * <BR><BR>
+   * Note that this connection option must be set on the connection before any
+   * attempt is made to establish the connection.
+   *
+   * @return  {@code true} if requests sent concurrently on the same connection
+   *          should be coalesced, or {@code false} if each request should be
+   *          written individually.
+   */
+  public boolean useWriteCoalescing()
+  {
+    return useWriteCoalescing;
+  }
+
+
+
+  /**
+   * Specifies whether requests sent concurrently by multiple threads on the
+   * same connection should be coalesced.
+   * <BR><BR>
+   * Note that this connection option must be set on the connection before any
+   * attempt is made to establish the connection.
+   *
+   * @param  useWriteCoalescing  Indicates whether requests sent concurrently
+   *                             by multiple threads on the same connection
+   *                             should be coalesced.
+   */
+  public void setUseWriteCoalescing(final boolean useWriteCoalescing)
+  {
+    this.useWriteCoalescing = useWriteCoalescing;
+  }
+
+
+
+  /**
+   * Indicates whether an {@link LDAPConnectionPool} created with these options
+   * should prefer to reuse recently released connections.  If so, then when a
+   * thread checks out a connection, the pool will first try to give it the
+   * connection that it most recently released, and then the connection most
+   * recently released by any thread, using lock-free structures rather than a
+   * first-in, first-out queue.  This can substantially reduce contention when
+   * a large number of threads share the pool, and it allows a pool that is
+   * larger than the current load requires to keep using a small set of warm
+   * connections rather than spreading requests across all of them.  If not,
+   * then the pool will hand out connections in the order in which they were
+   * released.
+   * <BR><BR>
+   * For a pool created from an existing connection, the options for that
+   * connection will be used.  For a pool created from a server set, the
+   * options for the first connection created for the pool will be used.  This
+   * option has no effect on connections that are not part of a pool, and
+   * changing it after a pool has been created will not affect that pool.
+   *
+   * @return  {@code true} if connection pools should prefer to reuse recently
+   *          released connections, or {@code false} if they should hand out
+   *          connections in the order in which they were released.
+   */
+  public boolean usePoolConnectionAffinity()
+  {
+    return usePoolConnectionAffinity;
+  }
+
+
+
+  /**
+   * Specifies whether an {@link LDAPConnectionPool} created with these options
+   * should prefer to reuse recently released connections.
+   * <BR><BR>
+   * Changing this option after a pool has been created will not affect that
+   * pool.
+   *
+   * @param  usePoolConnectionAffinity  Indicates whether connection pools
+   *                                    should prefer to reuse recently
+   *                                    released connections.
+   */
+  public void setUsePoolConnectionAffinity(
+                   final boolean usePoolConnectionAffinity)
+  {
+    this.usePoolConnectionAffinity = usePoolConnectionAffinity;
+  }
+
+
+
+  /**
+   * Indicates whether the attributes of search result entries returned to
+   * associated connections should be decoded lazily.  If so, then the thread
+   * that reads a search result entry from the server will only verify that
+   * the encoded attributes are well-formed, and the {@link Attribute} objects
+   * for the entry will not be created until the first time the application
+   * attempts to access them.  This can substantially reduce the processing and
+   * memory allocation performed by the connection reader when receiving large
+   * entries, particularly if the application only uses a small number of the
+   * attributes contained in those entries.
+   * <BR><BR>
+   * Search result entries that are decoded lazily behave exactly like those
+   * that are decoded as they are read.
+   *
+   * @return  {@code true} if the attributes of search result entries should be
+   *          decoded lazily, or {@code false} if they should be decoded as the
+   *          entries are read.
+   */
+  public boolean useLazySearchEntryDecoding()
+  {
+    return useLazySearchEntryDecoding;
+  }
+
+
+
+  /**
+   * Specifies whether the attributes of search result entries returned to
+   * associated connections should be decoded lazily.
+   *
+   * @param  useLazySearchEntryDecoding  Indicates whether the attributes of
+   *                                     search result entries should be
+   *                                     decoded lazily.
+   */
+  public void setUseLazySearchEntryDecoding(
+                   final boolean useLazySearchEntryDecoding)
+  {
+    this.useLazySearchEntryDecoding = useLazySearchEntryDecoding;
+  }
+
+
+
+  /**
+   * Retrieves the sink to which attribute values in search result entries
+   * should be written if they are larger than the
+   * {@link #getLargeAttributeValueThresholdBytes} threshold.  If a sink is
+   * configured, then each such value will be streamed from the server to the
+   * sink as it is read, and the corresponding attribute will contain a value
+   * that is only read back from the sink when it is needed.  The
+   * {@link com.unboundid.asn1.ASN1OctetString#getValueInputStream} method may
+   * be used to read such a value without holding it in memory.
+   * <BR><BR>
+   * Note that the maximum message size (as configured with the
+   * {@link #setMaxMessageSize} method) still applies to search result entries
+   * with values that are written to the sink, so it may need to be increased
+   * to allow very large values to be read.  Also note that lazy search entry
+   * decoding will not be used for connections with a large attribute value
+   * sink, since large values must be identified as the entry is read, and that
+   * connections that use shared selector readers hold each complete message in
+   * memory while it is being decoded, so for those connections the sink only
+   * limits how long large values remain in memory.
+   *
+   * @return  The sink to which large attribute values should be written, or
+   *          {@code null} if all attribute values should be held in memory.
+   */
+  @Nullable()
+  public LargeAttributeValueSink getLargeAttributeValueSink()
+  {
+    return largeAttributeValueSink;
+  }
+
+
+
+  /**
+   * Specifies the sink to which attribute values in search result entries
+   * should be written if they are larger than the
+   * {@link #getLargeAttributeValueThresholdBytes} threshold.
+   *
+   * @param  largeAttributeValueSink  The sink to which large attribute values
+   *                                  should be written.  It may be
+   *                                  {@code null} if all attribute values
+   *                                  should be held in memory.
+   */
+  public void setLargeAttributeValueSink(
+       @Nullable final LargeAttributeValueSink largeAttributeValueSink)
+  {
+    this.largeAttributeValueSink = largeAttributeValueSink;
+  }
+
+
+
+  /**
+   * Retrieves the size in bytes above which attribute values in search result
+   * entries will be written to the large attribute value sink.  This will have
+   * no effect if no large attribute value sink is configured.
+   *
+   * @return  The size in bytes above which attribute values in search result
+   *          entries will be written to the large attribute value sink.
+   */
+  public int getLargeAttributeValueThresholdBytes()
+  {
+    return largeAttributeValueThresholdBytes;
+  }
+
+
+
+  /**
+   * Specifies the size in bytes above which attribute values in search result
+   * entries will be written to the large attribute value sink.  This will have
+   * no effect if no large attribute value sink is configured.
+   *
+   * @param  largeAttributeValueThresholdBytes  The size in bytes above which
+   *                                            attribute values will be
+   *                                            written to the large attribute
+   *                                            value sink.  A value less than
+   *                                            zero will be treated as zero.
+   */
+  public void setLargeAttributeValueThresholdBytes(
+                   final int largeAttributeValueThresholdBytes)
+  {
+    this.largeAttributeValueThresholdBytes =
+         Math.max(0, largeAttributeValueThresholdBytes);
+  }
+
+
+
   /**
    * Indicates whether to use the TCP_NODELAY option for the underlying sockets
    * used by associated connections.
@@ -2257,6 +2890,64 @@ public final class LDAPConnectionOptions
 
 
 
+  /**
+   * Retrieves the executor that will be used to complete the
+   * {@code CompletionStage} objects returned by the CompletionStage-based
+   * asynchronous operation methods (like {@link LDAPConnection#addAsync} and
+   * {@link LDAPConnection#searchAsync}).  Any dependent actions that do not
+   * specify their own executor will be invoked by a thread from this executor
+   * rather than by the thread that reads responses from the server.  For bind
+   * and extended operations, which cannot be processed asynchronously, this
+   * executor will also be used to process the operation itself, unless it is
+   * the common {@code ForkJoinPool}.
+   *
+   * @return  The executor that will be used to complete the
+   *          {@code CompletionStage} objects returned by the
+   *          CompletionStage-based asynchronous operation methods.
+   */
+  @NotNull()
+  public Executor getCompletionExecutor()
+  {
+    return completionExecutor;
+  }
+
+
+
+  /**
+   * Specifies the executor that will be used to complete the
+   * {@code CompletionStage} objects returned by the CompletionStage-based
+   * asynchronous operation methods.
+   *
+   * @param  completionExecutor  The executor that will be used to complete the
+   *                             {@code CompletionStage} objects returned by
+   *                             the CompletionStage-based asynchronous
+   *                             operation methods.  It may be {@code null} if
+   *                             the default completion executor, which is a
+   *                             shared pool with a bounded number of daemon
+   *                             threads, should be used.  If the common
+   *                             {@code ForkJoinPool} is provided, then bind
+   *                             and extended operations, and all operations
+   *                             on connections operating in synchronous mode,
+   *                             will still be processed by the default
+   *                             completion executor so that they do not block
+   *                             threads in the common pool.
+   */
+  public void setCompletionExecutor(
+                   @Nullable final Executor completionExecutor)
+  {
+    if (completionExecutor == null)
+    {
+      this.completionExecutor =
+           AsyncCompletionHelper.getDefaultCompletionExecutor();
+    }
+    else
+    {
+      this.completionExecutor = completionExecutor;
+    }
+  }
+
+
+
   /**
    * Retrieves the maximum size in bytes for an LDAP message that a connection
    * will attempt to read from the directory server.  If it encounters an LDAP
@@ -2600,6 +3291,27 @@ public final class LDAPConnectionOptions
     buffer.append(pooledSchemaTimeoutMillis);
     buffer.append(", useSynchronousMode=");
     buffer.append(useSynchronousMode);
+    buffer.append(", useSharedSelectorReaders=");
+    buffer.append(useSharedSelectorReaders);
+    buffer.append(", useVirtualThreads=");
+    buffer.append(useVirtualThreads);
+    buffer.append(", useWriteCoalescing=");
+    buffer.append(useWriteCoalescing);
+    buffer.append(", usePoolConnectionAffinity=");
+    buffer.append(usePoolConnectionAffinity);
+    buffer.append(", useLazySearchEntryDecoding=");
+    buffer.append(useLazySearchEntryDecoding);
+
+    if (largeAttributeValueSink != null)
+    {
+      buffer.append(", largeAttributeValueSinkClass=");
+      buffer.append(largeAttributeValueSink.getClass().getName());
+      buffer.append(", largeAttributeValueThresholdBytes=");
+      buffer.append(largeAttributeValueThresholdBytes);
+    }
+
+    buffer.append(", completionExecutorClass=");
+    buffer.append(completionExecutor.getClass().getName());
     buffer.append(", useTCPNoDelay=");
     buffer.append(useTCPNoDelay);
     buffer.append(", captureConnectStackTrace=");
@@ -38,6 +38,7 @@ package com.unboundid.ldap.sdk;
 
 
 import java.net.Socket;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
@@ -45,14 +46,24 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+import com.unboundid.asn1.ASN1OctetString;
 import com.unboundid.ldap.protocol.LDAPResponse;
 import com.unboundid.ldap.sdk.schema.Schema;
+import com.unboundid.util.CryptoHelper;
 import com.unboundid.util.Debug;
+import com.unboundid.util.LDAPSDKThreadFactory;
 import com.unboundid.util.NotNull;
 import com.unboundid.util.Nullable;
 import com.unboundid.util.ObjectPair;
@@ -60,6 +71,7 @@ import com.unboundid.util.StaticUtils;
 import com.unboundid.util.ThreadSafety;
 import com.unboundid.util.ThreadSafetyLevel;
 import com.unboundid.util.Validator;
+import com.unboundid.util.VirtualThreadSupport;
 
 import static com.unboundid.ldap.sdk.LDAPMessages.*;
 
@@ -218,6 +230,29 @@ public final class LDAPConnectionPool
 
 
 
+  /**
+   * The maximum number of threads that may be used across all connection pools
+   * to examine connections in parallel with the health check thread.
+   */
+  private static final int MAX_HEALTH_CHECK_WORKER_THREADS = 16;
+
+
+
+  /**
+   * The executor that will be used to examine connections in parallel with the
+   * health check thread for all connection pools.  Idle worker threads will be
+   * allowed to exit, and tasks will be rejected rather than queued if all of
+   * the worker threads are busy.
+   */
+  @NotNull private static final ThreadPoolExecutor
+       HEALTH_CHECK_WORKER_EXECUTOR = new ThreadPoolExecutor(0,
+            MAX_HEALTH_CHECK_WORKER_THREADS, 60L, TimeUnit.SECONDS,
+            new SynchronousQueue<Runnable>(),
+            new LDAPSDKThreadFactory("Health Check Worker", true),
+            new ThreadPoolExecutor.AbortPolicy());
+
+
+
   /**
    * The name of the connection property that may be used to indicate that a
    * particular connection should have a different maximum connection age than
@@ -228,6 +263,28 @@ public final class LDAPConnectionPool
 
 
 
+  /**
+   * The name of the connection property that is used to keep track of the
+   * identity as which a connection was authenticated by the
+   * {@link #getAuthenticatedConnection} method.  If a connection has this
+   * property, then it will be re-authenticated with the pool's bind request
+   * before it is used for any other purpose.
+   */
+  @NotNull static final String ATTACHMENT_NAME_AUTHENTICATED_IDENTITY =
+       LDAPConnectionPool.class.getName() + ".authenticatedIdentity";
+
+
+
+  /**
+   * The default maximum length of time in milliseconds that a successful bind
+   * on a connection may be relied upon when reusing that connection for the
+   * same credentials, which is set to 60000 milliseconds (60 seconds).
+   */
+  public static final long
+       DEFAULT_MAX_AUTHENTICATED_CONNECTION_REUSE_AGE_MILLIS = 60_000L;
+
+
+
   // A counter used to keep track of the number of times that the pool failed to
   // replace a defunct connection.  It may also be initialized to the difference
   // between the initial and maximum number of connections that should be
@@ -250,6 +307,15 @@ public final class LDAPConnectionPool
   // back to the pool.
   private volatile boolean checkConnectionAgeOnRelease;
 
+  // Indicates whether the getAuthenticatedConnection method has ever been
+  // called, so that connections may need to have the pool's authentication
+  // identity restored when they are checked out.
+  private volatile boolean authenticatedConnectionsRequested;
+
+  // Indicates whether to prefer connections that are already authenticated as
+  // the requested identity when getting an authenticated connection.
+  private volatile boolean reuseAuthenticatedConnections;
+
   // Indicates whether health check processing for connections in synchronous
   // mode should include attempting to read with a very short timeout to attempt
   // to detect closures and unsolicited notifications in a more timely manner.
@@ -266,6 +332,10 @@ public final class LDAPConnectionPool
   // try to keep available for immediate use.
   private volatile int minConnectionGoal;
 
+  // The maximum number of threads that should be used to examine available
+  // connections during health check processing.
+  private volatile int healthCheckParallelism;
+
   // The health check implementation that should be used for this connection
   // pool.
   @NotNull private LDAPConnectionPoolHealthCheck healthCheck;
@@ -278,8 +348,10 @@ public final class LDAPConnectionPool
   @NotNull private final LDAPConnectionPoolStatistics poolStatistics;
 
   // The set of connections that are currently available for use.
-  @NotNull private final LinkedBlockingQueue<LDAPConnection>
-       availableConnections;
+  @NotNull private final BlockingQueue<LDAPConnection> availableConnections;
+
+  // The processor that will be used for hedged operations.
+  @NotNull private final HedgedRequestProcessor hedgedRequestProcessor;
 
   // The length of time in milliseconds between periodic health checks against
   // the available connections in this pool.
@@ -293,6 +365,10 @@ public final class LDAPConnectionPool
   // connection.
   private volatile long maxConnectionAge;
 
+  // The maximum length of time in milliseconds that a successful bind may be
+  // relied upon when reusing an authenticated connection.
+  private volatile long maxAuthenticatedConnectionReuseAge;
+
   // The maximum connection age that should be used for connections created to
   // replace connections that are released as defunct.
   @Nullable private volatile Long maxDefunctReplacementConnectionAge;
@@ -648,13 +724,20 @@ public final class LDAPConnectionPool
     trySynchronousReadDuringHealthCheck = true;
     healthCheckInterval       = DEFAULT_HEALTH_CHECK_INTERVAL;
     poolStatistics            = new LDAPConnectionPoolStatistics(this);
+    hedgedRequestProcessor    = new HedgedRequestProcessor(this);
     pooledSchema              = null;
     connectionPoolName        = null;
     retryOperationTypes       = new AtomicReference<>(
          Collections.unmodifiableSet(EnumSet.noneOf(OperationType.class)));
     numConnections            = maxConnections;
     minConnectionGoal         = 0;
-    availableConnections      = new LinkedBlockingQueue<>(numConnections);
+    healthCheckParallelism    = 1;
+    authenticatedConnectionsRequested = false;
+    reuseAuthenticatedConnections = false;
+    maxAuthenticatedConnectionReuseAge =
+         DEFAULT_MAX_AUTHENTICATED_CONNECTION_REUSE_AGE_MILLIS;
+    availableConnections      = createAvailableConnectionQueue(numConnections,
+         connection.getConnectionOptions());
 
     if (! connection.isConnected())
     {
@@ -769,7 +852,8 @@ public final class LDAPConnectionPool
     closed                             = false;
 
     healthCheckThread = new LDAPConnectionPoolHealthCheckThread(this);
-    healthCheckThread.start();
+    VirtualThreadSupport.start(healthCheckThread,
+         connection.getConnectionOptions().useVirtualThreads());
   }
 
 
@@ -1172,13 +1256,18 @@ public final class LDAPConnectionPool
     trySynchronousReadDuringHealthCheck = false;
     healthCheckInterval = DEFAULT_HEALTH_CHECK_INTERVAL;
     poolStatistics      = new LDAPConnectionPoolStatistics(this);
+    hedgedRequestProcessor = new HedgedRequestProcessor(this);
     pooledSchema        = null;
     connectionPoolName  = null;
     retryOperationTypes = new AtomicReference<>(
          Collections.unmodifiableSet(EnumSet.noneOf(OperationType.class)));
     minConnectionGoal   = 0;
+    healthCheckParallelism = 1;
+    authenticatedConnectionsRequested = false;
+    reuseAuthenticatedConnections = false;
+    maxAuthenticatedConnectionReuseAge =
+         DEFAULT_MAX_AUTHENTICATED_CONNECTION_REUSE_AGE_MILLIS;
     numConnections = maxConnections;
-    availableConnections = new LinkedBlockingQueue<>(numConnections);
 
     if (healthCheck == null)
     {
@@ -1233,6 +1322,17 @@ public final class LDAPConnectionPool
       }
     }
 
+    if (connList.isEmpty())
+    {
+      availableConnections = createAvailableConnectionQueue(numConnections,
+           new LDAPConnectionOptions());
+    }
+    else
+    {
+      availableConnections = createAvailableConnectionQueue(numConnections,
+           connList.get(0).getConnectionOptions());
+    }
+
     availableConnections.addAll(connList);
 
     failedReplaceCount                 =
@@ -1247,7 +1347,92 @@ public final class LDAPConnectionPool
     closed                             = false;
 
     healthCheckThread = new LDAPConnectionPoolHealthCheckThread(this);
-    healthCheckThread.start();
+    VirtualThreadSupport.start(healthCheckThread,
+         ((! connList.isEmpty()) &&
+              connList.get(0).getConnectionOptions().useVirtualThreads()));
+  }
+
+
+
+  /**
+   * Creates the queue that will be used to hold the connections that are
+   * available for use in this pool.
+   *
+   * @param  capacity  The maximum number of connections that may be held in
+   *                   the queue.
+   * @param  options   The connection options that indicate which type of
+   *                   queue should be used.
+   *
+   * @return  The queue that will be used to hold available connections.
+   */
+  @NotNull()
+  private static BlockingQueue<LDAPConnection> createAvailableConnectionQueue(
+                      final int capacity,
+                      @NotNull final LDAPConnectionOptions options)
+  {
+    if (options.usePoolConnectionAffinity())
+    {
+      return new AffinityConnectionQueue(capacity);
+    }
+    else
+    {
+      return new LinkedBlockingQueue<>(capacity);
+    }
+  }
+
+
+
+  /**
+   * Retrieves and removes an available connection for the purpose of scanning
+   * the set of available connections.  Connections will be returned in the
+   * order in which they were released, even if pool connection affinity is
+   * enabled, so that a scan that returns each connection with
+   * {@link #offerScannedConnection} will eventually cycle back around to a
+   * connection that it has already examined.
+   *
+   * @return  The connection that was removed, or {@code null} if no connection
+   *          is available.
+   */
+  @Nullable()
+  private LDAPConnection pollAvailableConnectionForScan()
+  {
+    if (availableConnections instanceof AffinityConnectionQueue)
+    {
+      return ((AffinityConnectionQueue) availableConnections).
+           pollLeastRecentlyReleased();
+    }
+    else
+    {
+      return availableConnections.poll();
+    }
+  }
+
+
+
+  /**
+   * Returns a connection that was examined while scanning the set of available
+   * connections, or a connection created to replace one that was found to be
+   * invalid during the scan.  If pool connection affinity is enabled, the
+   * connection will not be associated with the current thread.
+   *
+   * @param  connection  The connection to return to the set of available
+   *                     connections.
+   *
+   * @return  {@code true} if the connection was returned, or {@code false} if
+   *          the pool is already full.
+   */
+  private boolean offerScannedConnection(
+                       @NotNull final LDAPConnection connection)
+  {
+    if (availableConnections instanceof AffinityConnectionQueue)
+    {
+      return ((AffinityConnectionQueue) availableConnections).
+           offerWithoutAffinity(connection);
+    }
+    else
+    {
+      return availableConnections.offer(connection);
+    }
   }
 
 
@@ -1667,7 +1852,9 @@ public final class LDAPConnectionPool
                          @NotNull final BindRequest bindRequest)
          throws LDAPException
   {
-    LDAPConnection conn = getConnection();
+    // There is no need to restore the pool's authentication identity before
+    // processing the bind, since it will be restored afterward anyway.
+    LDAPConnection conn = checkOutConnection();
 
     try
     {
@@ -1781,6 +1968,34 @@ public final class LDAPConnectionPool
   @NotNull()
   public LDAPConnection getConnection()
          throws LDAPException
+  {
+    while (true)
+    {
+      final LDAPConnection conn = checkOutConnection();
+      if (restoreAuthenticationIfNecessary(conn))
+      {
+        return conn;
+      }
+    }
+  }
+
+
+
+  /**
+   * Checks out a connection from the pool without regard to the identity as
+   * which it is authenticated.  The connection may have been authenticated
+   * with the {@link #getAuthenticatedConnection} method, in which case the
+   * caller is responsible for either binding on it or restoring the pool's
+   * authentication identity before it is used.
+   *
+   * @return  A connection that was checked out of the pool.
+   *
+   * @throws  LDAPException  If no connection is available, or a problem occurs
+   *                         while creating a new connection to return.
+   */
+  @NotNull()
+  private LDAPConnection checkOutConnection()
+          throws LDAPException
   {
     if (closed)
     {
@@ -2000,7 +2215,7 @@ public final class LDAPConnectionPool
          new HashSet<>(StaticUtils.computeMapCapacity(numConnections));
     while (true)
     {
-      final LDAPConnection conn = availableConnections.poll();
+      final LDAPConnection conn = pollAvailableConnectionForScan();
       if (conn == null)
       {
         poolStatistics.incrementNumFailedCheckouts();
@@ -2013,7 +2228,7 @@ public final class LDAPConnectionPool
 
       if (examinedConnections.contains(conn))
       {
-        if (! availableConnections.offer(conn))
+        if (! offerScannedConnection(conn))
         {
           discardConnection(conn);
         }
@@ -2038,6 +2253,11 @@ public final class LDAPConnectionPool
                "Successfully checked out an existing connection to requested " +
                     "server " + host + ':' + port,
                null);
+          if (! restoreAuthenticationIfNecessary(conn))
+          {
+            return null;
+          }
+
           return conn;
         }
         catch (final LDAPException le)
@@ -2054,7 +2274,7 @@ public final class LDAPConnectionPool
         }
       }
 
-      if (availableConnections.offer(conn))
+      if (offerScannedConnection(conn))
       {
         examinedConnections.add(conn);
       }
@@ -2068,117 +2288,172 @@ public final class LDAPConnectionPool
 
 
   /**
-   * {@inheritDoc}
+   * Retrieves a connection from the pool that is authenticated with the
+   * provided bind request.  The caller must release the connection back to the
+   * pool (for example, with {@link #releaseConnection(LDAPConnection)}) when
+   * it is no longer needed, and the pool will restore its own authentication
+   * identity on the connection before it is used by any other method that
+   * does not request the same identity.
+   * <BR><BR>
+   * If the pool is configured to reuse authenticated connections (see
+   * {@link #setReuseAuthenticatedConnections}), then this method will first
+   * look for an available connection on which a simple bind with the same DN
+   * and password succeeded within the maximum reuse age, and if one is found,
+   * then it will be returned without processing another bind.  Otherwise, a
+   * connection will be checked out of the pool and the bind will be processed
+   * on it.  Only simple bind requests without controls or a password provider
+   * are eligible for reuse.  Looking for a suitable connection requires
+   * examining each available connection, so this mode is best suited to pools
+   * without a very large number of connections.
+   *
+   * @param  bindRequest  The bind request to use to authenticate the
+   *                      connection.  It must not be {@code null}.
+   *
+   * @return  A connection that is authenticated with the provided bind
+   *          request.
+   *
+   * @throws  LDAPException  If no connection is available, or if the bind
+   *                         fails.
    */
-  @Override()
-  public void releaseConnection(@NotNull final LDAPConnection connection)
+  @NotNull()
+  public LDAPConnection getAuthenticatedConnection(
+                             @NotNull final BindRequest bindRequest)
+         throws LDAPException
   {
-    if (connection == null)
-    {
-      return;
-    }
+    Validator.ensureNotNull(bindRequest);
+    authenticatedConnectionsRequested = true;
 
-    connection.setConnectionPoolName(connectionPoolName);
-    if (checkConnectionAgeOnRelease && connectionIsExpired(connection))
+    AuthenticatedIdentity identity = null;
+    if (reuseAuthenticatedConnections)
     {
-      try
+      identity = AuthenticatedIdentity.forBindRequest(bindRequest);
+      if (identity != null)
       {
-        final LDAPConnection newConnection = createConnection();
-        if (availableConnections.offer(newConnection))
-        {
-          connection.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_EXPIRED,
-               null, null);
-          connection.terminate(null);
-          poolStatistics.incrementNumConnectionsClosedExpired();
-          Debug.debugConnectionPool(Level.WARNING, this, connection,
-               "Closing a released connection because it is expired", null);
-          lastExpiredDisconnectTime = System.currentTimeMillis();
-        }
-        else
+        final LDAPConnection conn = getConnectionAuthenticatedAs(identity);
+        if (conn != null)
         {
-          newConnection.setDisconnectInfo(
-               DisconnectType.POOLED_CONNECTION_UNNEEDED, null, null);
-          newConnection.terminate(null);
-          poolStatistics.incrementNumConnectionsClosedUnneeded();
-          Debug.debugConnectionPool(Level.WARNING, this, connection,
-               "Closing a released connection because the pool is already full",
-               null);
+          poolStatistics.incrementNumAuthenticatedConnectionReuseHits();
+          return conn;
         }
       }
-      catch (final LDAPException le)
-      {
-        Debug.debugException(le);
-      }
-      return;
+
+      poolStatistics.incrementNumAuthenticatedConnectionReuseMisses();
     }
 
+    // Mark the connection before processing the bind so that the pool's
+    // authentication identity will be restored before it is used for anything
+    // else, even if the bind fails.
+    final LDAPConnection conn = checkOutConnection();
+    conn.setAttachment(ATTACHMENT_NAME_AUTHENTICATED_IDENTITY,
+         AuthenticatedIdentity.UNKNOWN);
+
     try
     {
-      healthCheck.ensureConnectionValidForRelease(connection);
-    }
-    catch (final LDAPException le)
-    {
-      releaseDefunctConnection(connection);
-      return;
-    }
+      conn.bind(bindRequest);
+      if (identity != null)
+      {
+        conn.setAttachment(ATTACHMENT_NAME_AUTHENTICATED_IDENTITY,
+             new AuthenticatedIdentity(identity, bindRequest,
+                  System.nanoTime()));
+      }
 
-    if (availableConnections.offer(connection))
-    {
-      poolStatistics.incrementNumReleasedValid();
-      Debug.debugConnectionPool(Level.INFO, this, connection,
-           "Released a connection back to the pool", null);
+      return conn;
     }
-    else
+    catch (final LDAPException le)
     {
-      // This means that the connection pool is full, which can happen if the
-      // pool was empty when a request came in to retrieve a connection and
-      // createIfNecessary was true.  In this case, we'll just close the
-      // connection since we don't need it any more.
-      connection.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_UNNEEDED,
-                                   null, null);
-      poolStatistics.incrementNumConnectionsClosedUnneeded();
-      Debug.debugConnectionPool(Level.WARNING, this, connection,
-           "Closing a released connection because the pool is already full",
-           null);
-      connection.terminate(null);
-      return;
+      Debug.debugException(le);
+      releaseConnectionAfterException(conn, le);
+      throw le;
     }
-
-    if (closed)
+    catch (final Throwable t)
     {
-      close();
+      Debug.debugException(t);
+      releaseDefunctConnection(conn);
+      StaticUtils.rethrowIfError(t);
+      throw new LDAPException(ResultCode.LOCAL_ERROR,
+           ERR_POOL_OP_EXCEPTION.get(StaticUtils.getExceptionMessage(t)), t);
     }
   }
 
 
 
   /**
-   * Indicates that the provided connection should be removed from the pool,
-   * and that no new connection should be created to take its place.  This may
-   * be used to shrink the pool if such functionality is desired.
+   * Attempts to retrieve an available connection on which a bind with the
+   * provided identity recently succeeded.  This method will not create a
+   * connection or wait for a connection to be returned to the pool.
    *
-   * @param  connection  The connection to be discarded.
+   * @param  identity  The identity for which to retrieve a connection.
+   *
+   * @return  A connection that is authenticated as the provided identity, or
+   *          {@code null} if there are no such connections available.
    */
-  public void discardConnection(@NotNull final LDAPConnection connection)
+  @Nullable()
+  private LDAPConnection getConnectionAuthenticatedAs(
+                              @NotNull final AuthenticatedIdentity identity)
   {
-    if (connection == null)
+    if (closed)
     {
-      return;
+      return null;
     }
 
-    connection.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_UNNEEDED,
-         null, null);
-    connection.terminate(null);
-    poolStatistics.incrementNumConnectionsClosedUnneeded();
-    Debug.debugConnectionPool(Level.INFO, this, connection,
-         "Discareded a connection that is no longer needed", null);
-
-    if (availableConnections.remainingCapacity() > 0)
+    final long maxAgeNanos =
+         TimeUnit.MILLISECONDS.toNanos(maxAuthenticatedConnectionReuseAge);
+    final HashSet<LDAPConnection> examinedConnections =
+         new HashSet<>(StaticUtils.computeMapCapacity(numConnections));
+    while (true)
     {
-      final int newReplaceCount = failedReplaceCount.incrementAndGet();
-      if (newReplaceCount > numConnections)
+      final LDAPConnection conn = pollAvailableConnectionForScan();
+      if (conn == null)
       {
-        failedReplaceCount.set(numConnections);
+        return null;
+      }
+
+      if (examinedConnections.contains(conn))
+      {
+        if (! offerScannedConnection(conn))
+        {
+          discardConnection(conn);
+        }
+
+        return null;
+      }
+
+      final Object attachment =
+           conn.getAttachment(ATTACHMENT_NAME_AUTHENTICATED_IDENTITY);
+      if ((attachment instanceof AuthenticatedIdentity) &&
+           ((AuthenticatedIdentity) attachment).isVerifiedFor(identity, conn,
+                maxAgeNanos))
+      {
+        try
+        {
+          healthCheck.ensureConnectionValidForCheckout(conn);
+          poolStatistics.incrementNumSuccessfulCheckoutsWithoutWaiting();
+          Debug.debugConnectionPool(Level.INFO, this, conn,
+               "Successfully checked out an existing connection that is " +
+                    "already authenticated as the requested identity",
+               null);
+          return conn;
+        }
+        catch (final LDAPException le)
+        {
+          Debug.debugException(le);
+          poolStatistics.incrementNumConnectionsClosedDefunct();
+          Debug.debugConnectionPool(Level.WARNING, this, conn,
+               "Closing an existing authenticated connection because it " +
+                    "failed the checkout health check",
+               le);
+          handleDefunctConnection(conn);
+          continue;
+        }
+      }
+
+      if (offerScannedConnection(conn))
+      {
+        examinedConnections.add(conn);
+      }
+      else
+      {
+        discardConnection(conn);
       }
     }
   }
@@ -2186,23 +2461,26 @@ public final class LDAPConnectionPool
 
 
   /**
-   * Performs a bind on the provided connection before releasing it back to the
-   * pool, so that it will be authenticated as the same user as
-   * newly-established connections.  If newly-established connections are
-   * unauthenticated, then this method will perform an anonymous simple bind to
-   * ensure that the resulting connection is unauthenticated.
+   * Ensures that the provided connection, which has been checked out of the
+   * pool, is authenticated with the pool's bind request if it had been
+   * authenticated as some other identity by the
+   * {@link #getAuthenticatedConnection} method.  If the attempt to restore the
+   * pool's authentication identity fails, then the connection will be
+   * released as defunct.
    *
-   * Releases the provided connection back to this pool.
+   * @param  connection  The connection to examine.
    *
-   * @param  connection  The connection to be released back to the pool after
-   *                     being re-authenticated.
+   * @return  {@code true} if the connection is ready for use, or {@code false}
+   *          if it was released as defunct.
    */
-  public void releaseAndReAuthenticateConnection(
-                   @NotNull final LDAPConnection connection)
+  private boolean restoreAuthenticationIfNecessary(
+                       @NotNull final LDAPConnection connection)
   {
-    if (connection == null)
+    if ((! authenticatedConnectionsRequested) ||
+         (connection.getAttachment(ATTACHMENT_NAME_AUTHENTICATED_IDENTITY) ==
+              null))
     {
-      return;
+      return true;
     }
 
     try
@@ -2225,13 +2503,339 @@ public final class LDAPConnectionPool
         bindResult = lbe.getBindResult();
       }
 
-      try
+      healthCheck.ensureConnectionValidAfterAuthentication(connection,
+           bindResult);
+      if (bindResult.getResultCode() != ResultCode.SUCCESS)
       {
-        healthCheck.ensureConnectionValidAfterAuthentication(connection,
-             bindResult);
-        if (bindResult.getResultCode() != ResultCode.SUCCESS)
-        {
-          throw new LDAPBindException(bindResult);
+        throw new LDAPBindException(bindResult);
+      }
+
+      connection.setAttachment(ATTACHMENT_NAME_AUTHENTICATED_IDENTITY, null);
+      return true;
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      Debug.debugConnectionPool(Level.WARNING, this, connection,
+           "Unable to restore the pool's authentication identity on a " +
+                "connection that had been authenticated as another identity",
+           e);
+      releaseDefunctConnection(connection);
+      return false;
+    }
+  }
+
+
+
+  /**
+   * Attempts to retrieve an available connection that may be used to send a
+   * hedged copy of a request that is already being processed on the provided
+   * connection.  A connection established to a different server will be
+   * preferred, but a different connection to the same server will be returned
+   * if there are no available connections to any other server.  Like
+   * {@link #getConnection(String,int)}, this method will only return an
+   * existing connection that is currently available, and will not create a
+   * connection or wait for a connection to be returned to the pool.
+   *
+   * @param  primaryConnection  The connection on which the original request is
+   *                            being processed.
+   *
+   * @return  A connection that may be used to send the hedged request, or
+   *          {@code null} if there are no suitable connections available.
+   */
+  @Nullable()
+  LDAPConnection getHedgeConnection(
+                      @NotNull final LDAPConnection primaryConnection)
+  {
+    if (closed)
+    {
+      return null;
+    }
+
+    final String primaryAddress = primaryConnection.getConnectedAddress();
+    final int primaryPort = primaryConnection.getConnectedPort();
+
+    LDAPConnection sameServerConnection = null;
+    final HashSet<LDAPConnection> examinedConnections =
+         new HashSet<>(StaticUtils.computeMapCapacity(numConnections));
+    while (true)
+    {
+      final LDAPConnection conn = pollAvailableConnectionForScan();
+      if (conn == null)
+      {
+        break;
+      }
+
+      if (examinedConnections.contains(conn))
+      {
+        if (! offerScannedConnection(conn))
+        {
+          discardConnection(conn);
+        }
+        break;
+      }
+
+      final boolean sameServer =
+           ((primaryPort == conn.getConnectedPort()) &&
+            String.valueOf(conn.getConnectedAddress()).equals(primaryAddress));
+      if (sameServer && (sameServerConnection == null))
+      {
+        // Hold on to this connection in case there aren't any available
+        // connections to a different server.
+        sameServerConnection = conn;
+        continue;
+      }
+
+      if (! sameServer)
+      {
+        try
+        {
+          healthCheck.ensureConnectionValidForCheckout(conn);
+          poolStatistics.incrementNumSuccessfulCheckoutsWithoutWaiting();
+          Debug.debugConnectionPool(Level.INFO, this, conn,
+               "Successfully checked out an existing connection to a " +
+                    "different server for a hedged request",
+               null);
+          if ((sameServerConnection != null) &&
+               (! offerScannedConnection(sameServerConnection)))
+          {
+            discardConnection(sameServerConnection);
+          }
+
+          if (! restoreAuthenticationIfNecessary(conn))
+          {
+            return null;
+          }
+
+          return conn;
+        }
+        catch (final LDAPException le)
+        {
+          Debug.debugException(le);
+          poolStatistics.incrementNumConnectionsClosedDefunct();
+          Debug.debugConnectionPool(Level.WARNING, this, conn,
+               "Closing an existing connection because it failed the " +
+                    "checkout health check for a hedged request",
+               le);
+          handleDefunctConnection(conn);
+          continue;
+        }
+      }
+
+      if (offerScannedConnection(conn))
+      {
+        examinedConnections.add(conn);
+      }
+      else
+      {
+        discardConnection(conn);
+      }
+    }
+
+    if (sameServerConnection == null)
+    {
+      Debug.debugConnectionPool(Level.INFO, this, null,
+           "Not sending a hedged request because no connections are " +
+                "immediately available",
+           null);
+      return null;
+    }
+
+    try
+    {
+      healthCheck.ensureConnectionValidForCheckout(sameServerConnection);
+      poolStatistics.incrementNumSuccessfulCheckoutsWithoutWaiting();
+      Debug.debugConnectionPool(Level.INFO, this, sameServerConnection,
+           "Successfully checked out an existing connection to the same " +
+                "server for a hedged request",
+           null);
+      if (! restoreAuthenticationIfNecessary(sameServerConnection))
+      {
+        return null;
+      }
+
+      return sameServerConnection;
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      poolStatistics.incrementNumConnectionsClosedDefunct();
+      Debug.debugConnectionPool(Level.WARNING, this, sameServerConnection,
+           "Closing an existing connection because it failed the checkout " +
+                "health check for a hedged request",
+           le);
+      handleDefunctConnection(sameServerConnection);
+      return null;
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void releaseConnection(@NotNull final LDAPConnection connection)
+  {
+    if (connection == null)
+    {
+      return;
+    }
+
+    connection.setConnectionPoolName(connectionPoolName);
+    if (checkConnectionAgeOnRelease && connectionIsExpired(connection))
+    {
+      try
+      {
+        final LDAPConnection newConnection = createConnection();
+        if (availableConnections.offer(newConnection))
+        {
+          connection.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_EXPIRED,
+               null, null);
+          connection.terminate(null);
+          poolStatistics.incrementNumConnectionsClosedExpired();
+          Debug.debugConnectionPool(Level.WARNING, this, connection,
+               "Closing a released connection because it is expired", null);
+          lastExpiredDisconnectTime = System.currentTimeMillis();
+        }
+        else
+        {
+          newConnection.setDisconnectInfo(
+               DisconnectType.POOLED_CONNECTION_UNNEEDED, null, null);
+          newConnection.terminate(null);
+          poolStatistics.incrementNumConnectionsClosedUnneeded();
+          Debug.debugConnectionPool(Level.WARNING, this, connection,
+               "Closing a released connection because the pool is already full",
+               null);
+        }
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+      }
+      return;
+    }
+
+    try
+    {
+      healthCheck.ensureConnectionValidForRelease(connection);
+    }
+    catch (final LDAPException le)
+    {
+      releaseDefunctConnection(connection);
+      return;
+    }
+
+    if (availableConnections.offer(connection))
+    {
+      poolStatistics.incrementNumReleasedValid();
+      Debug.debugConnectionPool(Level.INFO, this, connection,
+           "Released a connection back to the pool", null);
+    }
+    else
+    {
+      // This means that the connection pool is full, which can happen if the
+      // pool was empty when a request came in to retrieve a connection and
+      // createIfNecessary was true.  In this case, we'll just close the
+      // connection since we don't need it any more.
+      connection.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_UNNEEDED,
+                                   null, null);
+      poolStatistics.incrementNumConnectionsClosedUnneeded();
+      Debug.debugConnectionPool(Level.WARNING, this, connection,
+           "Closing a released connection because the pool is already full",
+           null);
+      connection.terminate(null);
+      return;
+    }
+
+    if (closed)
+    {
+      close();
+    }
+  }
+
+
+
+  /**
+   * Indicates that the provided connection should be removed from the pool,
+   * and that no new connection should be created to take its place.  This may
+   * be used to shrink the pool if such functionality is desired.
+   *
+   * @param  connection  The connection to be discarded.
+   */
+  public void discardConnection(@NotNull final LDAPConnection connection)
+  {
+    if (connection == null)
+    {
+      return;
+    }
+
+    connection.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_UNNEEDED,
+         null, null);
+    connection.terminate(null);
+    poolStatistics.incrementNumConnectionsClosedUnneeded();
+    Debug.debugConnectionPool(Level.INFO, this, connection,
+         "Discareded a connection that is no longer needed", null);
+
+    if (availableConnections.remainingCapacity() > 0)
+    {
+      final int newReplaceCount = failedReplaceCount.incrementAndGet();
+      if (newReplaceCount > numConnections)
+      {
+        failedReplaceCount.set(numConnections);
+      }
+    }
+  }
+
+
+
+  /**
+   * Performs a bind on the provided connection before releasing it back to the
+   * pool, so that it will be authenticated as the same user as
+   * newly-established connections.  If newly-established connections are
+   * unauthenticated, then this method will perform an anonymous simple bind to
+   * ensure that the resulting connection is unauthenticated.
+   *
+   * Releases the provided connection back to this pool.
+   *
+   * @param  connection  The connection to be released back to the pool after
+   *                     being re-authenticated.
+   */
+  public void releaseAndReAuthenticateConnection(
+                   @NotNull final LDAPConnection connection)
+  {
+    if (connection == null)
+    {
+      return;
+    }
+
+    try
+    {
+      BindResult bindResult;
+      try
+      {
+        if (bindRequest == null)
+        {
+          bindResult = connection.bind("", "");
+        }
+        else
+        {
+          bindResult = connection.bind(bindRequest.duplicate());
+        }
+      }
+      catch (final LDAPBindException lbe)
+      {
+        Debug.debugException(lbe);
+        bindResult = lbe.getBindResult();
+      }
+
+      try
+      {
+        healthCheck.ensureConnectionValidAfterAuthentication(connection,
+             bindResult);
+        if (bindResult.getResultCode() != ResultCode.SUCCESS)
+        {
+          throw new LDAPBindException(bindResult);
         }
       }
       catch (final LDAPException le)
@@ -2252,6 +2856,7 @@ public final class LDAPConnectionPool
         throw le;
       }
 
+      connection.setAttachment(ATTACHMENT_NAME_AUTHENTICATED_IDENTITY, null);
       releaseConnection(connection);
     }
     catch (final Exception e)
@@ -2296,92 +2901,509 @@ public final class LDAPConnectionPool
    *          any other purpose.
    */
   @NotNull()
-  private LDAPConnection handleDefunctConnection(
-                              @NotNull final LDAPConnection connection)
+  private LDAPConnection handleDefunctConnection(
+                              @NotNull final LDAPConnection connection)
+  {
+    connection.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_DEFUNCT, null,
+                                 null);
+    connection.setClosed();
+
+    if (closed)
+    {
+      return null;
+    }
+
+    if (createIfNecessary && (availableConnections.remainingCapacity() <= 0))
+    {
+      return null;
+    }
+
+    try
+    {
+      final LDAPConnection conn = createConnection();
+      if (maxDefunctReplacementConnectionAge != null)
+      {
+        // Only set the maximum age if there isn't one already set for the
+        // connection (i.e., because it was defined by the server set).
+        if (conn.getAttachment(ATTACHMENT_NAME_MAX_CONNECTION_AGE) == null)
+        {
+          conn.setAttachment(ATTACHMENT_NAME_MAX_CONNECTION_AGE,
+               maxDefunctReplacementConnectionAge);
+        }
+      }
+
+      if (! availableConnections.offer(conn))
+      {
+        conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_UNNEEDED,
+                               null, null);
+        conn.terminate(null);
+        return null;
+      }
+
+      return conn;
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      final int newReplaceCount = failedReplaceCount.incrementAndGet();
+      if (newReplaceCount > numConnections)
+      {
+        failedReplaceCount.set(numConnections);
+      }
+      return null;
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPConnection replaceDefunctConnection(
+                             @NotNull final LDAPConnection connection)
+         throws LDAPException
+  {
+    poolStatistics.incrementNumConnectionsClosedDefunct();
+    Debug.debugConnectionPool(Level.WARNING, this, connection,
+         "Releasing a defunct connection that is to be replaced", null);
+    connection.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_DEFUNCT, null,
+                                 null);
+    connection.setClosed();
+
+    if (closed)
+    {
+      throw new LDAPException(ResultCode.CONNECT_ERROR, ERR_POOL_CLOSED.get());
+    }
+
+    try
+    {
+      return createConnection();
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      failedReplaceCount.incrementAndGet();
+      throw le;
+    }
+  }
+
+
+
+  /**
+   * Processes the provided add request using a connection from this connection
+   * pool and returns a completion stage that may be used to obtain the result.
+   * The connection will be released back to the pool before any dependent
+   * actions are invoked.  See {@link LDAPConnection#addAsync} for details about
+   * how the operation will be processed.  Note that unlike the synchronous
+   * methods in this class, an operation that fails because of a problem with
+   * the connection will not be retried.
+   *
+   * @param  addRequest  The add request to be processed.  It must not be
+   *                     {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the add operation, or that will complete exceptionally
+   *          with an {@code LDAPException} if the operation fails.
+   */
+  @NotNull()
+  public CompletionStage<LDAPResult> addAsync(
+              @NotNull final AddRequest addRequest)
+  {
+    Validator.ensureNotNull(addRequest);
+
+    return AsyncCompletionHelper.processAsync(this, addRequest,
+         OperationType.ADD);
+  }
+
+
+
+  /**
+   * Processes the provided bind request using a connection from this connection
+   * pool and returns a completion stage that may be used to obtain the result.
+   * The connection will be released back to the pool before any dependent
+   * actions are invoked.  See {@link LDAPConnection#bindAsync} for details
+   * about how the operation will be processed.  Note that unlike the
+   * synchronous methods in this class, an operation that fails because of a
+   * problem with the connection will not be retried.
+   * <BR><BR>
+   * Note that the bind will be processed on a connection checked out of the
+   * pool, and that connection will remain authenticated as the identity from
+   * the bind request when it is released back to the pool.
+   *
+   * @param  bindRequest  The bind request to be processed.  It must not be
+   *                      {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the bind operation, or that will complete exceptionally
+   *          with an {@code LDAPException} if the operation fails.
+   */
+  @NotNull()
+  public CompletionStage<BindResult> bindAsync(
+              @NotNull final BindRequest bindRequest)
+  {
+    Validator.ensureNotNull(bindRequest);
+
+    return AsyncCompletionHelper.processAsync(this, bindRequest,
+         OperationType.BIND);
+  }
+
+
+
+  /**
+   * Processes the provided compare request using a connection from this
+   * connection pool and returns a completion stage that may be used to obtain
+   * the result.  The connection will be released back to the pool before any
+   * dependent actions are invoked.  See {@link LDAPConnection#compareAsync} for
+   * details about how the operation will be processed.  Note that unlike the
+   * synchronous methods in this class, an operation that fails because of a
+   * problem with the connection will not be retried.
+   *
+   * @param  compareRequest  The compare request to be processed.  It must not
+   *                         be {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the compare operation, or that will complete
+   *          exceptionally with an {@code LDAPException} if the operation
+   *          fails.
+   */
+  @NotNull()
+  public CompletionStage<CompareResult> compareAsync(
+              @NotNull final CompareRequest compareRequest)
+  {
+    Validator.ensureNotNull(compareRequest);
+
+    return AsyncCompletionHelper.processAsync(this, compareRequest,
+         OperationType.COMPARE);
+  }
+
+
+
+  /**
+   * Processes the provided delete request using a connection from this
+   * connection pool and returns a completion stage that may be used to obtain
+   * the result.  The connection will be released back to the pool before any
+   * dependent actions are invoked.  See {@link LDAPConnection#deleteAsync} for
+   * details about how the operation will be processed.  Note that unlike the
+   * synchronous methods in this class, an operation that fails because of a
+   * problem with the connection will not be retried.
+   *
+   * @param  deleteRequest  The delete request to be processed.  It must not be
+   *                        {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the delete operation, or that will complete
+   *          exceptionally with an {@code LDAPException} if the operation
+   *          fails.
+   */
+  @NotNull()
+  public CompletionStage<LDAPResult> deleteAsync(
+              @NotNull final DeleteRequest deleteRequest)
+  {
+    Validator.ensureNotNull(deleteRequest);
+
+    return AsyncCompletionHelper.processAsync(this, deleteRequest,
+         OperationType.DELETE);
+  }
+
+
+
+  /**
+   * Processes the provided extended request using a connection from this
+   * connection pool and returns a completion stage that may be used to obtain
+   * the result.  The connection will be released back to the pool before any
+   * dependent actions are invoked.  See {@link
+   * LDAPConnection#processExtendedOperationAsync} for details about how the
+   * operation will be processed.  Note that unlike the synchronous methods in
+   * this class, an operation that fails because of a problem with the
+   * connection will not be retried.
+   * <BR><BR>
+   * Note that the StartTLS extended operation cannot be processed with a pooled
+   * connection.
+   *
+   * @param  extendedRequest  The extended request to be processed.  It must not
+   *                          be {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the extended operation, or that will complete
+   *          exceptionally with an {@code LDAPException} if the operation
+   *          fails.
+   */
+  @NotNull()
+  public CompletionStage<ExtendedResult> processExtendedOperationAsync(
+              @NotNull final ExtendedRequest extendedRequest)
+  {
+    Validator.ensureNotNull(extendedRequest);
+
+    return AsyncCompletionHelper.processAsync(this, extendedRequest,
+         OperationType.EXTENDED);
+  }
+
+
+
+  /**
+   * Processes the provided modify request using a connection from this
+   * connection pool and returns a completion stage that may be used to obtain
+   * the result.  The connection will be released back to the pool before any
+   * dependent actions are invoked.  See {@link LDAPConnection#modifyAsync} for
+   * details about how the operation will be processed.  Note that unlike the
+   * synchronous methods in this class, an operation that fails because of a
+   * problem with the connection will not be retried.
+   *
+   * @param  modifyRequest  The modify request to be processed.  It must not be
+   *                        {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the modify operation, or that will complete
+   *          exceptionally with an {@code LDAPException} if the operation
+   *          fails.
+   */
+  @NotNull()
+  public CompletionStage<LDAPResult> modifyAsync(
+              @NotNull final ModifyRequest modifyRequest)
+  {
+    Validator.ensureNotNull(modifyRequest);
+
+    return AsyncCompletionHelper.processAsync(this, modifyRequest,
+         OperationType.MODIFY);
+  }
+
+
+
+  /**
+   * Processes the provided modify DN request using a connection from this
+   * connection pool and returns a completion stage that may be used to obtain
+   * the result.  The connection will be released back to the pool before any
+   * dependent actions are invoked.  See {@link LDAPConnection#modifyDNAsync}
+   * for details about how the operation will be processed.  Note that unlike
+   * the synchronous methods in this class, an operation that fails because of a
+   * problem with the connection will not be retried.
+   *
+   * @param  modifyDNRequest  The modify DN request to be processed.  It must
+   *                          not be {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the modify DN operation, or that will complete
+   *          exceptionally with an {@code LDAPException} if the operation
+   *          fails.
+   */
+  @NotNull()
+  public CompletionStage<LDAPResult> modifyDNAsync(
+              @NotNull final ModifyDNRequest modifyDNRequest)
+  {
+    Validator.ensureNotNull(modifyDNRequest);
+
+    return AsyncCompletionHelper.processAsync(this, modifyDNRequest,
+         OperationType.MODIFY_DN);
+  }
+
+
+
+  /**
+   * Processes the provided search request using a connection from this
+   * connection pool and returns a completion stage that may be used to obtain
+   * the result.  The connection will be released back to the pool before any
+   * dependent actions are invoked.  See {@link LDAPConnection#searchAsync} for
+   * details about how the operation will be processed.  Note that unlike the
+   * synchronous methods in this class, an operation that fails because of a
+   * problem with the connection will not be retried.
+   *
+   * @param  searchRequest  The search request to be processed.  It must not be
+   *                        {@code null}.
+   *
+   * @return  A completion stage that will complete normally with the result of
+   *          processing the search operation, or that will complete
+   *          exceptionally with an {@code LDAPSearchException} if the operation
+   *          fails.
+   */
+  @NotNull()
+  public CompletionStage<SearchResult> searchAsync(
+              @NotNull final SearchRequest searchRequest)
+  {
+    Validator.ensureNotNull(searchRequest);
+
+    return AsyncCompletionHelper.processAsync(this, searchRequest,
+         OperationType.SEARCH);
+  }
+
+
+
+  /**
+   * Processes the provided search request as a hedged operation.  The request
+   * will initially be sent on a single connection checked out of this pool.
+   * If it has not completed within the hedge delay (see
+   * {@link #getHedgeDelayPercentile} and {@link #getMinimumHedgeDelayMillis}),
+   * then a duplicate of the request will be sent on another available
+   * connection (preferably one established to a different server), the result
+   * of whichever request completes first will be returned, and the other
+   * request will be abandoned.  If there are no other connections immediately
+   * available, then the original request will simply be allowed to complete.
+   * The number of hedged requests sent, and the number of times that the hedged
+   * request completed first, are available in the pool statistics.
+   * <BR><BR>
+   * Hedging is only appropriate for requests that do not alter the content of
+   * the server, and it is most useful when the pool is configured with a
+   * {@link ServerSet} that provides connections to multiple replicas.  Note
+   * that unlike the other synchronous methods in this class, an operation that
+   * fails because of a problem with the connection will not be retried,
+   * although the result of the other request will be used if one of the
+   * requests fails in that manner.  Also note that if the search request has a
+   * search result listener, then the search will not be hedged (because that
+   * could cause the same entries to be provided to the listener more than
+   * once), but will instead be processed as if by the {@link #search}
+   * method.
+   *
+   * @param  searchRequest  The search request to be processed.  It must not be
+   *                        {@code null}.
+   *
+   * @return  The result of processing the search operation.
+   *
+   * @throws  LDAPSearchException  If the search does not complete successfully.
+   */
+  @NotNull()
+  public SearchResult hedgedSearch(@NotNull final SearchRequest searchRequest)
+         throws LDAPSearchException
   {
-    connection.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_DEFUNCT, null,
-                                 null);
-    connection.setClosed();
+    Validator.ensureNotNull(searchRequest);
 
-    if (closed)
+    if (searchRequest.getSearchResultListener() != null)
     {
-      return null;
+      return search(searchRequest);
     }
 
-    if (createIfNecessary && (availableConnections.remainingCapacity() <= 0))
+    try
     {
-      return null;
+      return hedgedRequestProcessor.process(searchRequest,
+           OperationType.SEARCH);
     }
-
-    try
+    catch (final LDAPSearchException lse)
     {
-      final LDAPConnection conn = createConnection();
-      if (maxDefunctReplacementConnectionAge != null)
-      {
-        // Only set the maximum age if there isn't one already set for the
-        // connection (i.e., because it was defined by the server set).
-        if (conn.getAttachment(ATTACHMENT_NAME_MAX_CONNECTION_AGE) == null)
-        {
-          conn.setAttachment(ATTACHMENT_NAME_MAX_CONNECTION_AGE,
-               maxDefunctReplacementConnectionAge);
-        }
-      }
-
-      if (! availableConnections.offer(conn))
-      {
-        conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_UNNEEDED,
-                               null, null);
-        conn.terminate(null);
-        return null;
-      }
-
-      return conn;
+      Debug.debugException(lse);
+      throw lse;
     }
     catch (final LDAPException le)
     {
       Debug.debugException(le);
-      final int newReplaceCount = failedReplaceCount.incrementAndGet();
-      if (newReplaceCount > numConnections)
-      {
-        failedReplaceCount.set(numConnections);
-      }
-      return null;
+      throw new LDAPSearchException(le);
     }
   }
 
 
 
   /**
-   * {@inheritDoc}
+   * Processes the provided compare request as a hedged operation.  See
+   * {@link #hedgedSearch} for details about how hedged operations are
+   * processed.
+   *
+   * @param  compareRequest  The compare request to be processed.  It must not
+   *                         be {@code null}.
+   *
+   * @return  The result of processing the compare operation.
+   *
+   * @throws  LDAPException  If the compare does not complete successfully.
    */
-  @Override()
   @NotNull()
-  public LDAPConnection replaceDefunctConnection(
-                             @NotNull final LDAPConnection connection)
+  public CompareResult hedgedCompare(
+                            @NotNull final CompareRequest compareRequest)
          throws LDAPException
   {
-    poolStatistics.incrementNumConnectionsClosedDefunct();
-    Debug.debugConnectionPool(Level.WARNING, this, connection,
-         "Releasing a defunct connection that is to be replaced", null);
-    connection.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_DEFUNCT, null,
-                                 null);
-    connection.setClosed();
+    Validator.ensureNotNull(compareRequest);
 
-    if (closed)
-    {
-      throw new LDAPException(ResultCode.CONNECT_ERROR, ERR_POOL_CLOSED.get());
-    }
+    return hedgedRequestProcessor.process(compareRequest,
+         OperationType.COMPARE);
+  }
 
-    try
-    {
-      return createConnection();
-    }
-    catch (final LDAPException le)
-    {
-      Debug.debugException(le);
-      failedReplaceCount.incrementAndGet();
-      throw le;
-    }
+
+
+  /**
+   * Processes the provided bind request as a hedged operation.  See
+   * {@link #hedgedSearch} for details about how hedged operations are
+   * processed, with the exception that because LDAP does not permit bind
+   * operations to be abandoned, the losing request will be allowed to complete
+   * before its connection is released back to the pool.
+   * <BR><BR>
+   * Note that the bind will be processed on connections checked out of the
+   * pool, and those connections will remain authenticated as the identity from
+   * the bind request when they are released back to the pool.
+   *
+   * @param  bindRequest  The bind request to be processed.  It must not be
+   *                      {@code null}.
+   *
+   * @return  The result of processing the bind operation.
+   *
+   * @throws  LDAPException  If the bind does not complete successfully.
+   */
+  @NotNull()
+  public BindResult hedgedBind(@NotNull final BindRequest bindRequest)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(bindRequest);
+
+    return hedgedRequestProcessor.process(bindRequest, OperationType.BIND);
+  }
+
+
+
+  /**
+   * Retrieves the percentile of the recorded response times for an operation
+   * type that will be used as the delay before sending a hedged request for an
+   * operation of that type.  The default value is 95, so that a hedged request
+   * will only be sent for about five percent of operations.
+   *
+   * @return  The percentile of the recorded response times that will be used
+   *          as the hedge delay.
+   */
+  public double getHedgeDelayPercentile()
+  {
+    return hedgedRequestProcessor.getHedgeDelayPercentile();
+  }
+
+
+
+  /**
+   * Specifies the percentile of the recorded response times for an operation
+   * type that will be used as the delay before sending a hedged request for an
+   * operation of that type.
+   *
+   * @param  percentile  The percentile of the recorded response times that
+   *                     will be used as the hedge delay.  It must be greater
+   *                     than zero and less than or equal to 100.
+   */
+  public void setHedgeDelayPercentile(final double percentile)
+  {
+    hedgedRequestProcessor.setHedgeDelayPercentile(percentile);
+  }
+
+
+
+  /**
+   * Retrieves the minimum length of time in milliseconds that a hedged
+   * operation will wait before sending a hedged request.  This delay will also
+   * be used until enough response times have been recorded for the operation
+   * type to provide a meaningful percentile.  The default value is 10
+   * milliseconds.
+   *
+   * @return  The minimum hedge delay, in milliseconds.
+   */
+  public long getMinimumHedgeDelayMillis()
+  {
+    return hedgedRequestProcessor.getMinimumHedgeDelayMillis();
+  }
+
+
+
+  /**
+   * Specifies the minimum length of time in milliseconds that a hedged
+   * operation will wait before sending a hedged request.
+   *
+   * @param  minimumHedgeDelayMillis  The minimum hedge delay, in milliseconds.
+   *                                  A value that is less than zero will be
+   *                                  treated as zero.
+   */
+  public void setMinimumHedgeDelayMillis(final long minimumHedgeDelayMillis)
+  {
+    hedgedRequestProcessor.setMinimumHedgeDelayMillis(minimumHedgeDelayMillis);
   }
 
 
@@ -2802,6 +3824,79 @@ public final class LDAPConnectionPool
 
 
 
+  /**
+   * Indicates whether the {@link #getAuthenticatedConnection} method should
+   * prefer to return an available connection that has recently been
+   * authenticated with the same credentials, so that it does not need to
+   * process another bind.
+   *
+   * @return  {@code true} if authenticated connections should be reused, or
+   *          {@code false} if a bind should always be processed.
+   */
+  public boolean reuseAuthenticatedConnections()
+  {
+    return reuseAuthenticatedConnections;
+  }
+
+
+
+  /**
+   * Specifies whether the {@link #getAuthenticatedConnection} method should
+   * prefer to return an available connection that has recently been
+   * authenticated with the same credentials, so that it does not need to
+   * process another bind.
+   *
+   * @param  reuseAuthenticatedConnections  Indicates whether authenticated
+   *                                        connections should be reused.
+   */
+  public void setReuseAuthenticatedConnections(
+                   final boolean reuseAuthenticatedConnections)
+  {
+    this.reuseAuthenticatedConnections = reuseAuthenticatedConnections;
+  }
+
+
+
+  /**
+   * Retrieves the maximum length of time in milliseconds after a successful
+   * bind that a connection may be returned by the
+   * {@link #getAuthenticatedConnection} method for the same credentials
+   * without processing another bind.
+   *
+   * @return  The maximum length of time in milliseconds that a successful bind
+   *          may be relied upon when reusing an authenticated connection.
+   */
+  public long getMaxAuthenticatedConnectionReuseAgeMillis()
+  {
+    return maxAuthenticatedConnectionReuseAge;
+  }
+
+
+
+  /**
+   * Specifies the maximum length of time in milliseconds after a successful
+   * bind that a connection may be returned by the
+   * {@link #getAuthenticatedConnection} method for the same credentials
+   * without processing another bind.  A shorter duration will more quickly
+   * detect changes to the user's password or account status.
+   *
+   * @param  maxAuthenticatedConnectionReuseAge  The maximum length of time in
+   *                                             milliseconds that a successful
+   *                                             bind may be relied upon.  A
+   *                                             value less than or equal to
+   *                                             zero indicates that
+   *                                             authenticated connections
+   *                                             should never be reused.
+   */
+  public void setMaxAuthenticatedConnectionReuseAgeMillis(
+                   final long maxAuthenticatedConnectionReuseAge)
+  {
+    this.maxAuthenticatedConnectionReuseAge =
+         Math.max(0L, maxAuthenticatedConnectionReuseAge);
+  }
+
+
+
   /**
    * Retrieves the minimum length of time in milliseconds that should pass
    * between connections closed because they have been established for longer
@@ -2937,6 +4032,50 @@ public final class LDAPConnectionPool
 
 
 
+  /**
+   * Retrieves the maximum number of threads that will be used to examine
+   * available connections during health check processing.  A value of one
+   * indicates that connections will be examined one at a time by the thread
+   * performing the health check.  A larger value allows connections to be
+   * examined concurrently, which can substantially reduce the time required to
+   * complete a health check pass for large pools or for health checks that
+   * need to communicate with the server.  In either case, no more than this
+   * number of connections will be taken out of circulation at any time in
+   * order to be examined.
+   *
+   * @return  The maximum number of threads that will be used to examine
+   *          available connections during health check processing.
+   */
+  public int getHealthCheckParallelism()
+  {
+    return healthCheckParallelism;
+  }
+
+
+
+  /**
+   * Specifies the maximum number of threads that will be used to examine
+   * available connections during health check processing.  Any additional
+   * threads needed will be obtained from a bounded set of worker threads that
+   * is shared by all connection pools, so fewer threads may be used if many
+   * pools are performing health checks at the same time.  Information about
+   * the length of time required to complete each pass will be available
+   * through the {@link LDAPConnectionPoolStatistics} object for the pool.
+   *
+   * @param  healthCheckParallelism  The maximum number of threads that will be
+   *                                 used to examine available connections
+   *                                 during health check processing.  A value
+   *                                 less than or equal to one indicates that
+   *                                 connections should be examined one at a
+   *                                 time.
+   */
+  public void setHealthCheckParallelism(final int healthCheckParallelism)
+  {
+    this.healthCheckParallelism = Math.max(1, healthCheckParallelism);
+  }
+
+
+
   /**
    * {@inheritDoc}
    */
@@ -3029,25 +4168,86 @@ public final class LDAPConnectionPool
     }
 
 
-    // Create a set used to hold connections that we've already examined.  If we
-    // encounter the same connection twice, then we know that we don't need to
-    // do any more work.
-    final HashSet<LDAPConnection> examinedConnections =
-         new HashSet<>(StaticUtils.computeMapCapacity(numConnections));
-    int numExamined = 0;
-    int numDefunct = 0;
-    int numExpired = 0;
+    // Examine each of the connections that are currently available.  If the
+    // pool is configured to check connections in parallel, then a number of
+    // additional threads will examine connections at the same time as this
+    // one, but no more than one connection will be out of circulation for each
+    // thread.
+    final long passStartTime = System.nanoTime();
+    final HealthCheckPass pass = new HealthCheckPass(hc, checkForExpiration);
+    final int numWorkers = Math.min(healthCheckParallelism, numConnections);
+    if (numWorkers > 1)
+    {
+      checkAvailableConnectionsInParallel(pass, numWorkers);
+    }
+    else
+    {
+      checkAvailableConnections(pass);
+    }
+
+    if (checkMinConnectionGoal)
+    {
+      try
+      {
+        final int neededConnections =
+             minConnectionGoal - availableConnections.size();
+        for (int i=0; i < neededConnections; i++)
+        {
+          final LDAPConnection conn = createConnection(hc);
+          if (! availableConnections.offer(conn))
+          {
+            conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_UNNEEDED,
+                                   null, null);
+            poolStatistics.incrementNumConnectionsClosedUnneeded();
+            Debug.debugConnectionPool(Level.INFO, this, conn,
+                 "Closing a new connection that was created during health " +
+                      "check processing in achieve the minimum connection " +
+                      "goal, but the pool had already become full after the " +
+                      "connection was created",
+                 null);
+            conn.terminate(null);
+            break;
+          }
+        }
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+      }
+    }
+
+    poolStatistics.recordHealthCheckPass(
+         (System.nanoTime() - passStartTime) / 1_000_000L);
+    return new LDAPConnectionPoolHealthCheckResult(pass.numExamined.get(),
+         pass.numExpired.get(), pass.numDefunct.get());
+  }
+
 
-    for (int i=0; i < numConnections; i++)
+
+  /**
+   * Examines available connections on behalf of the provided health check pass
+   * until all of them have been examined or the pass has been stopped.  This
+   * may be invoked concurrently by multiple threads for the same pass.
+   *
+   * @param  pass  The health check pass for which to examine connections.
+   */
+  private void checkAvailableConnections(@NotNull final HealthCheckPass pass)
+  {
+    // The set of examined connections lets us know when we've cycled back
+    // around to connections that have already been checked in this pass, in
+    // which case we know that we don't need to do any more work.
+    while ((! pass.stopped) &&
+         (pass.numPolled.getAndIncrement() < numConnections))
     {
-      LDAPConnection conn = availableConnections.poll();
+      final LDAPConnection conn = pollAvailableConnectionForScan();
       if (conn == null)
       {
         break;
       }
-      else if (examinedConnections.contains(conn))
+      else if (pass.examinedConnections.contains(conn))
       {
-        if (! availableConnections.offer(conn))
+        pass.stopped = true;
+        if (! offerScannedConnection(conn))
         {
           conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_UNNEEDED,
                                  null, null);
@@ -3060,241 +4260,267 @@ public final class LDAPConnectionPool
         break;
       }
 
-      numExamined++;
-      if (! conn.isConnected())
+      pass.numExamined.incrementAndGet();
+      checkAvailableConnection(conn, pass);
+    }
+  }
+
+
+
+  /**
+   * Examines available connections on behalf of the provided health check pass
+   * using up to the specified number of threads, including the current thread.
+   * Additional threads are obtained from an executor shared by all pools, and
+   * fewer threads may be used if that executor has no capacity available.
+   * This method will not return until all of the threads have completed.
+   *
+   * @param  pass        The health check pass for which to examine
+   *                     connections.
+   * @param  numWorkers  The total number of threads to use to examine
+   *                     connections.
+   */
+  private void checkAvailableConnectionsInParallel(
+                    @NotNull final HealthCheckPass pass, final int numWorkers)
+  {
+    final ArrayList<Future<?>> workers = new ArrayList<>(numWorkers - 1);
+    for (int i=1; i < numWorkers; i++)
+    {
+      try
       {
-        numDefunct++;
-        poolStatistics.incrementNumConnectionsClosedDefunct();
-        Debug.debugConnectionPool(Level.WARNING, this, conn,
-             "Closing a connection that was identified as not established " +
-                  "during health check processing",
-             null);
-        conn = handleDefunctConnection(conn);
-        if (conn != null)
+        workers.add(HEALTH_CHECK_WORKER_EXECUTOR.submit(pass));
+      }
+      catch (final RejectedExecutionException e)
+      {
+        // All of the shared worker threads are busy, so we'll just use the
+        // ones that we already have.
+        Debug.debugException(e);
+        break;
+      }
+    }
+
+    checkAvailableConnections(pass);
+
+    boolean interrupted = false;
+    for (final Future<?> f : workers)
+    {
+      while (true)
+      {
+        try
         {
-          examinedConnections.add(conn);
+          f.get();
+          break;
+        }
+        catch (final InterruptedException e)
+        {
+          // The workers will stop once they have finished checking the
+          // connections that they are currently examining.
+          Debug.debugException(e);
+          pass.stopped = true;
+          interrupted = true;
+        }
+        catch (final ExecutionException e)
+        {
+          Debug.debugException(e);
+          break;
         }
       }
-      else
+    }
+
+    if (interrupted)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+
+
+  /**
+   * Examines the provided connection, which has been taken out of the set of
+   * available connections, on behalf of the given health check pass.  If the
+   * connection is found to be valid, then it will be returned to the set of
+   * available connections.  Otherwise, it will be closed and an attempt will
+   * be made to replace it.
+   *
+   * @param  connection  The connection to examine.
+   * @param  pass        The health check pass with which the connection is
+   *                     being examined.
+   */
+  private void checkAvailableConnection(
+                    @NotNull final LDAPConnection connection,
+                    @NotNull final HealthCheckPass pass)
+  {
+    final LDAPConnectionPoolHealthCheck hc = pass.healthCheck;
+    final boolean checkForExpiration = pass.checkForExpiration;
+    final Set<LDAPConnection> examinedConnections = pass.examinedConnections;
+    final AtomicInteger numDefunct = pass.numDefunct;
+    final AtomicInteger numExpired = pass.numExpired;
+
+    LDAPConnection conn = connection;
+    if (! conn.isConnected())
+    {
+      numDefunct.incrementAndGet();
+      poolStatistics.incrementNumConnectionsClosedDefunct();
+      Debug.debugConnectionPool(Level.WARNING, this, conn,
+           "Closing a connection that was identified as not established " +
+                "during health check processing",
+           null);
+      conn = handleDefunctConnection(conn);
+      if (conn != null)
+      {
+        examinedConnections.add(conn);
+      }
+    }
+    else
+    {
+      if (checkForExpiration && connectionIsExpired(conn))
       {
-        if (checkForExpiration && connectionIsExpired(conn))
-        {
-          numExpired++;
+        numExpired.incrementAndGet();
 
-          try
+        try
+        {
+          final LDAPConnection newConnection = createConnection();
+          examinedConnections.add(newConnection);
+          if (offerScannedConnection(newConnection))
           {
-            final LDAPConnection newConnection = createConnection();
-            if (availableConnections.offer(newConnection))
-            {
-              examinedConnections.add(newConnection);
-              conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_EXPIRED,
-                   null, null);
-              conn.terminate(null);
-              poolStatistics.incrementNumConnectionsClosedExpired();
-              Debug.debugConnectionPool(Level.INFO, this, conn,
-                   "Closing a connection that was identified as expired " +
-                        "during health check processing",
-                   null);
-              lastExpiredDisconnectTime = System.currentTimeMillis();
-              continue;
-            }
-            else
-            {
-              newConnection.setDisconnectInfo(
-                   DisconnectType.POOLED_CONNECTION_UNNEEDED, null, null);
-              newConnection.terminate(null);
-              poolStatistics.incrementNumConnectionsClosedUnneeded();
-              Debug.debugConnectionPool(Level.INFO, this, newConnection,
-                   "Closing a newly created connection created to replace " +
-                        "an expired connection because the pool is already " +
-                        "full",
-                   null);
-            }
+            conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_EXPIRED,
+                 null, null);
+            conn.terminate(null);
+            poolStatistics.incrementNumConnectionsClosedExpired();
+            Debug.debugConnectionPool(Level.INFO, this, conn,
+                 "Closing a connection that was identified as expired " +
+                      "during health check processing",
+                 null);
+            lastExpiredDisconnectTime = System.currentTimeMillis();
+            return;
           }
-          catch (final LDAPException le)
+          else
           {
-            Debug.debugException(le);
+            newConnection.setDisconnectInfo(
+                 DisconnectType.POOLED_CONNECTION_UNNEEDED, null, null);
+            newConnection.terminate(null);
+            poolStatistics.incrementNumConnectionsClosedUnneeded();
+            Debug.debugConnectionPool(Level.INFO, this, newConnection,
+                 "Closing a newly created connection created to replace " +
+                      "an expired connection because the pool is already " +
+                      "full",
+                 null);
           }
         }
+        catch (final LDAPException le)
+        {
+          Debug.debugException(le);
+        }
+      }
 
 
-        // If the connection is operating in synchronous mode, then try to read
-        // a message on it using an extremely short timeout.  This can help
-        // detect a connection closure or unsolicited notification in a more
-        // timely manner than if we had to wait for the client code to try to
-        // use the connection.
-        if (trySynchronousReadDuringHealthCheck && conn.synchronousMode())
+      // If the connection is operating in synchronous mode, then try to read
+      // a message on it using an extremely short timeout.  This can help
+      // detect a connection closure or unsolicited notification in a more
+      // timely manner than if we had to wait for the client code to try to
+      // use the connection.
+      if (trySynchronousReadDuringHealthCheck && conn.synchronousMode())
+      {
+        int previousTimeout = Integer.MIN_VALUE;
+        Socket s = null;
+        try
         {
-          int previousTimeout = Integer.MIN_VALUE;
-          Socket s = null;
-          try
-          {
-            s = conn.getConnectionInternals(true).getSocket();
-            previousTimeout = s.getSoTimeout();
-            InternalSDKHelper.setSoTimeout(conn, 1);
+          s = conn.getConnectionInternals(true).getSocket();
+          previousTimeout = s.getSoTimeout();
+          InternalSDKHelper.setSoTimeout(conn, 1);
 
-            final LDAPResponse response = conn.readResponse(0);
-            if (response instanceof ConnectionClosedResponse)
-            {
-              numDefunct++;
-              conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_DEFUNCT,
-                   ERR_POOL_HEALTH_CHECK_CONN_CLOSED.get(), null);
-              poolStatistics.incrementNumConnectionsClosedDefunct();
-              Debug.debugConnectionPool(Level.WARNING, this, conn,
-                   "Closing existing connection discovered to be " +
-                        "disconnected during health check processing",
-                   null);
-              conn = handleDefunctConnection(conn);
-              if (conn != null)
-              {
-                examinedConnections.add(conn);
-              }
-              continue;
-            }
-            else if (response instanceof ExtendedResult)
-            {
-              // This means we got an unsolicited response.  It could be a
-              // notice of disconnection, or it could be something else, but in
-              // any case we'll send it to the connection's unsolicited
-              // notification handler (if one is defined).
-              final UnsolicitedNotificationHandler h = conn.
-                   getConnectionOptions().getUnsolicitedNotificationHandler();
-              if (h != null)
-              {
-                h.handleUnsolicitedNotification(conn,
-                     (ExtendedResult) response);
-              }
-            }
-            else if (response instanceof LDAPResult)
+          final LDAPResponse response = conn.readResponse(0);
+          if (response instanceof ConnectionClosedResponse)
+          {
+            numDefunct.incrementAndGet();
+            conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_DEFUNCT,
+                 ERR_POOL_HEALTH_CHECK_CONN_CLOSED.get(), null);
+            poolStatistics.incrementNumConnectionsClosedDefunct();
+            Debug.debugConnectionPool(Level.WARNING, this, conn,
+                 "Closing existing connection discovered to be " +
+                      "disconnected during health check processing",
+                 null);
+            conn = handleDefunctConnection(conn);
+            if (conn != null)
             {
-              final LDAPResult r = (LDAPResult) response;
-              if (r.getResultCode() == ResultCode.SERVER_DOWN)
-              {
-                numDefunct++;
-                conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_DEFUNCT,
-                     ERR_POOL_HEALTH_CHECK_CONN_CLOSED.get(), null);
-                poolStatistics.incrementNumConnectionsClosedDefunct();
-                Debug.debugConnectionPool(Level.WARNING, this, conn,
-                     "Closing existing connection discovered to be invalid " +
-                          "with result " + r + " during health check " +
-                          "processing",
-                     null);
-                conn = handleDefunctConnection(conn);
-                if (conn != null)
-                {
-                  examinedConnections.add(conn);
-                }
-                continue;
-              }
+              examinedConnections.add(conn);
             }
+            return;
           }
-          catch (final LDAPException le)
+          else if (response instanceof ExtendedResult)
           {
-            if (le.getResultCode() == ResultCode.TIMEOUT)
+            // This means we got an unsolicited response.  It could be a
+            // notice of disconnection, or it could be something else, but in
+            // any case we'll send it to the connection's unsolicited
+            // notification handler (if one is defined).
+            final UnsolicitedNotificationHandler h = conn.
+                 getConnectionOptions().getUnsolicitedNotificationHandler();
+            if (h != null)
             {
-              Debug.debugException(Level.FINEST, le);
+              h.handleUnsolicitedNotification(conn,
+                   (ExtendedResult) response);
             }
-            else
+          }
+          else if (response instanceof LDAPResult)
+          {
+            final LDAPResult r = (LDAPResult) response;
+            if (r.getResultCode() == ResultCode.SERVER_DOWN)
             {
-              Debug.debugException(le);
-              numDefunct++;
+              numDefunct.incrementAndGet();
               conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_DEFUNCT,
-                   ERR_POOL_HEALTH_CHECK_READ_FAILURE.get(
-                        StaticUtils.getExceptionMessage(le)), le);
+                   ERR_POOL_HEALTH_CHECK_CONN_CLOSED.get(), null);
               poolStatistics.incrementNumConnectionsClosedDefunct();
               Debug.debugConnectionPool(Level.WARNING, this, conn,
                    "Closing existing connection discovered to be invalid " +
-                        "during health check processing",
-                   le);
+                        "with result " + r + " during health check " +
+                        "processing",
+                   null);
               conn = handleDefunctConnection(conn);
               if (conn != null)
               {
                 examinedConnections.add(conn);
               }
-              continue;
+              return;
             }
           }
-          catch (final Exception e)
+        }
+        catch (final LDAPException le)
+        {
+          if (le.getResultCode() == ResultCode.TIMEOUT)
+          {
+            Debug.debugException(Level.FINEST, le);
+          }
+          else
           {
-            Debug.debugException(e);
-            numDefunct++;
+            Debug.debugException(le);
+            numDefunct.incrementAndGet();
             conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_DEFUNCT,
                  ERR_POOL_HEALTH_CHECK_READ_FAILURE.get(
-                      StaticUtils.getExceptionMessage(e)),
-                 e);
+                      StaticUtils.getExceptionMessage(le)), le);
             poolStatistics.incrementNumConnectionsClosedDefunct();
-            Debug.debugConnectionPool(Level.SEVERE, this, conn,
+            Debug.debugConnectionPool(Level.WARNING, this, conn,
                  "Closing existing connection discovered to be invalid " +
-                      "with an unexpected exception type during health check " +
-                      "processing",
-                 e);
+                      "during health check processing",
+                 le);
             conn = handleDefunctConnection(conn);
             if (conn != null)
             {
               examinedConnections.add(conn);
             }
-            continue;
-          }
-          finally
-          {
-            if (previousTimeout != Integer.MIN_VALUE)
-            {
-              try
-              {
-                if (s != null)
-                {
-                  InternalSDKHelper.setSoTimeout(conn, previousTimeout);
-                }
-              }
-              catch (final Exception e)
-              {
-                Debug.debugException(e);
-                numDefunct++;
-                conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_DEFUNCT,
-                     null, e);
-                poolStatistics.incrementNumConnectionsClosedDefunct();
-                Debug.debugConnectionPool(Level.SEVERE, this, conn,
-                     "Closing existing connection during health check " +
-                          "processing because an error occurred while " +
-                          "attempting to set the SO_TIMEOUT",
-                     e);
-                conn = handleDefunctConnection(conn);
-                if (conn != null)
-                {
-                  examinedConnections.add(conn);
-                }
-                continue;
-              }
-            }
-          }
-        }
-
-        try
-        {
-          hc.ensureConnectionValidForContinuedUse(conn);
-          if (availableConnections.offer(conn))
-          {
-            examinedConnections.add(conn);
-          }
-          else
-          {
-            conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_UNNEEDED,
-                                   null, null);
-            poolStatistics.incrementNumConnectionsClosedUnneeded();
-            Debug.debugConnectionPool(Level.INFO, this, conn,
-                 "Closing existing connection that passed health check " +
-                      "processing because the pool is already full",
-                 null);
-            conn.terminate(null);
+            return;
           }
         }
         catch (final Exception e)
         {
           Debug.debugException(e);
-          numDefunct++;
+          numDefunct.incrementAndGet();
+          conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_DEFUNCT,
+               ERR_POOL_HEALTH_CHECK_READ_FAILURE.get(
+                    StaticUtils.getExceptionMessage(e)),
+               e);
           poolStatistics.incrementNumConnectionsClosedDefunct();
-          Debug.debugConnectionPool(Level.WARNING, this, conn,
-               "Closing existing connection that failed health check " +
+          Debug.debugConnectionPool(Level.SEVERE, this, conn,
+               "Closing existing connection discovered to be invalid " +
+                    "with an unexpected exception type during health check " +
                     "processing",
                e);
           conn = handleDefunctConnection(conn);
@@ -3302,43 +4528,74 @@ public final class LDAPConnectionPool
           {
             examinedConnections.add(conn);
           }
+          return;
+        }
+        finally
+        {
+          if (previousTimeout != Integer.MIN_VALUE)
+          {
+            try
+            {
+              if (s != null)
+              {
+                InternalSDKHelper.setSoTimeout(conn, previousTimeout);
+              }
+            }
+            catch (final Exception e)
+            {
+              Debug.debugException(e);
+              numDefunct.incrementAndGet();
+              conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_DEFUNCT,
+                   null, e);
+              poolStatistics.incrementNumConnectionsClosedDefunct();
+              Debug.debugConnectionPool(Level.SEVERE, this, conn,
+                   "Closing existing connection during health check " +
+                        "processing because an error occurred while " +
+                        "attempting to set the SO_TIMEOUT",
+                   e);
+              conn = handleDefunctConnection(conn);
+              if (conn != null)
+              {
+                examinedConnections.add(conn);
+              }
+              return;
+            }
+          }
         }
       }
-    }
 
-    if (checkMinConnectionGoal)
-    {
       try
       {
-        final int neededConnections =
-             minConnectionGoal - availableConnections.size();
-        for (int i=0; i < neededConnections; i++)
+        hc.ensureConnectionValidForContinuedUse(conn);
+        examinedConnections.add(conn);
+        if (! offerScannedConnection(conn))
         {
-          final LDAPConnection conn = createConnection(hc);
-          if (! availableConnections.offer(conn))
-          {
-            conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_UNNEEDED,
-                                   null, null);
-            poolStatistics.incrementNumConnectionsClosedUnneeded();
-            Debug.debugConnectionPool(Level.INFO, this, conn,
-                 "Closing a new connection that was created during health " +
-                      "check processing in achieve the minimum connection " +
-                      "goal, but the pool had already become full after the " +
-                      "connection was created",
-                 null);
-            conn.terminate(null);
-            break;
-          }
+          conn.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_UNNEEDED,
+                                 null, null);
+          poolStatistics.incrementNumConnectionsClosedUnneeded();
+          Debug.debugConnectionPool(Level.INFO, this, conn,
+               "Closing existing connection that passed health check " +
+                    "processing because the pool is already full",
+               null);
+          conn.terminate(null);
         }
       }
       catch (final Exception e)
       {
         Debug.debugException(e);
+        numDefunct.incrementAndGet();
+        poolStatistics.incrementNumConnectionsClosedDefunct();
+        Debug.debugConnectionPool(Level.WARNING, this, conn,
+             "Closing existing connection that failed health check " +
+                  "processing",
+             e);
+        conn = handleDefunctConnection(conn);
+        if (conn != null)
+        {
+          examinedConnections.add(conn);
+        }
       }
     }
-
-    return new LDAPConnectionPoolHealthCheckResult(numExamined, numExpired,
-         numDefunct);
   }
 
 
@@ -3440,7 +4697,7 @@ public final class LDAPConnectionPool
       final LDAPConnection conn;
       try
       {
-        conn = getConnection();
+        conn = checkOutConnection();
       }
       catch (final LDAPException le)
       {
@@ -3499,4 +4756,253 @@ public final class LDAPConnectionPool
     buffer.append(numConnections);
     buffer.append(')');
   }
+
+
+
+  /**
+   * This class holds the state for a single health check pass, which may be
+   * shared by multiple threads examining connections concurrently.  When it is
+   * run, it will examine available connections until all of them have been
+   * examined or the pass has been stopped.
+   */
+  private final class HealthCheckPass
+          implements Runnable
+  {
+    // The number of connections that were found to be defunct.
+    @NotNull private final AtomicInteger numDefunct;
+
+    // The number of connections that have been examined.
+    @NotNull private final AtomicInteger numExamined;
+
+    // The number of connections that were found to be expired.
+    @NotNull private final AtomicInteger numExpired;
+
+    // The number of times that a connection has been polled from the set of
+    // available connections.
+    @NotNull private final AtomicInteger numPolled;
+
+    // Indicates whether to check for connections that have exceeded the
+    // maximum connection age.
+    private final boolean checkForExpiration;
+
+    // Indicates whether the pass should stop examining connections.
+    private volatile boolean stopped;
+
+    // The health check to use to examine connections.
+    @NotNull private final LDAPConnectionPoolHealthCheck healthCheck;
+
+    // The connections that have already been examined, or that were created as
+    // replacements, during this pass.
+    @NotNull private final Set<LDAPConnection> examinedConnections;
+
+
+
+    /**
+     * Creates a new health check pass with the provided information.
+     *
+     * @param  healthCheck         The health check to use to examine
+     *                             connections.
+     * @param  checkForExpiration  Indicates whether to check for connections
+     *                             that have exceeded the maximum connection
+     *                             age.
+     */
+    private HealthCheckPass(
+                 @NotNull final LDAPConnectionPoolHealthCheck healthCheck,
+                 final boolean checkForExpiration)
+    {
+      this.healthCheck = healthCheck;
+      this.checkForExpiration = checkForExpiration;
+
+      examinedConnections = Collections.synchronizedSet(
+           new HashSet<LDAPConnection>(
+                StaticUtils.computeMapCapacity(numConnections)));
+      numPolled = new AtomicInteger(0);
+      numExamined = new AtomicInteger(0);
+      numDefunct = new AtomicInteger(0);
+      numExpired = new AtomicInteger(0);
+      stopped = false;
+    }
+
+
+
+    /**
+     * Examines available connections on behalf of this pass.
+     */
+    @Override()
+    public void run()
+    {
+      try
+      {
+        checkAvailableConnections(this);
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+      }
+    }
+  }
+
+
+
+  /**
+   * This class holds information about the identity as which a connection was
+   * authenticated by the {@link #getAuthenticatedConnection} method.  The
+   * password itself is not retained, but only a digest that may be used to
+   * determine whether a subsequent bind request has the same credentials.
+   */
+  private static final class AuthenticatedIdentity
+  {
+    /**
+     * An identity that indicates that the connection was authenticated (or an
+     * attempt was made to authenticate it) in a way that does not permit the
+     * connection to be reused.
+     */
+    @NotNull private static final AuthenticatedIdentity UNKNOWN =
+         new AuthenticatedIdentity(null, null, null, 0L);
+
+
+
+    // A digest of the password from the bind request.
+    @Nullable private final byte[] passwordDigest;
+
+    // The bind request that was processed on the connection.
+    @Nullable private final BindRequest bindRequest;
+
+    // The time that the bind was processed, as reported by System.nanoTime.
+    private final long verifiedTimeNanos;
+
+    // The normalized representation of the bind DN.
+    @Nullable private final String normalizedBindDN;
+
+
+
+    /**
+     * Creates a new authenticated identity with the provided information.
+     *
+     * @param  normalizedBindDN   The normalized representation of the bind DN.
+     * @param  passwordDigest     A digest of the password from the bind
+     *                            request.
+     * @param  bindRequest        The bind request that was processed on the
+     *                            connection, if any.
+     * @param  verifiedTimeNanos  The time that the bind was processed.
+     */
+    private AuthenticatedIdentity(@Nullable final String normalizedBindDN,
+                                  @Nullable final byte[] passwordDigest,
+                                  @Nullable final BindRequest bindRequest,
+                                  final long verifiedTimeNanos)
+    {
+      this.normalizedBindDN = normalizedBindDN;
+      this.passwordDigest = passwordDigest;
+      this.bindRequest = bindRequest;
+      this.verifiedTimeNanos = verifiedTimeNanos;
+    }
+
+
+
+    /**
+     * Creates a new authenticated identity that records a successful bind with
+     * the credentials from the provided identity.
+     *
+     * @param  identity           The identity with the credentials that were
+     *                            used.
+     * @param  bindRequest        The bind request that was processed on the
+     *                            connection.
+     * @param  verifiedTimeNanos  The time that the bind was processed.
+     */
+    private AuthenticatedIdentity(@NotNull final AuthenticatedIdentity identity,
+                                  @NotNull final BindRequest bindRequest,
+                                  final long verifiedTimeNanos)
+    {
+      this(identity.normalizedBindDN, identity.passwordDigest, bindRequest,
+           verifiedTimeNanos);
+    }
+
+
+
+    /**
+     * Creates an authenticated identity with the credentials from the provided
+     * bind request, if it is eligible for reuse.
+     *
+     * @param  bindRequest  The bind request for which to create the identity.
+     *
+     * @return  The identity that was created, or {@code null} if the bind
+     *          request is not eligible for reuse.
+     */
+    @Nullable()
+    private static AuthenticatedIdentity forBindRequest(
+                        @NotNull final BindRequest bindRequest)
+    {
+      if (! (bindRequest instanceof SimpleBindRequest))
+      {
+        return null;
+      }
+
+      final SimpleBindRequest simpleBindRequest =
+           (SimpleBindRequest) bindRequest;
+      if ((simpleBindRequest.getControls().length > 0) ||
+           (simpleBindRequest.getPasswordProvider() != null))
+      {
+        return null;
+      }
+
+      final String bindDN = simpleBindRequest.getBindDN();
+      final ASN1OctetString password = simpleBindRequest.getPassword();
+      if ((bindDN == null) || bindDN.isEmpty() || (password == null) ||
+           (password.getValueLength() == 0))
+      {
+        return null;
+      }
+
+      try
+      {
+        final MessageDigest digest = CryptoHelper.getMessageDigest("SHA-256");
+        return new AuthenticatedIdentity(new DN(bindDN).toNormalizedString(),
+             digest.digest(password.getValue()), null, 0L);
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+        return null;
+      }
+    }
+
+
+
+    /**
+     * Indicates whether this identity records a bind on the provided
+     * connection, within the maximum age, with the same credentials as the
+     * given identity.
+     *
+     * @param  identity     The identity with the requested credentials.
+     * @param  connection   The connection with which this identity is
+     *                      associated.
+     * @param  maxAgeNanos  The maximum length of time in nanoseconds since the
+     *                      bind was processed.
+     *
+     * @return  {@code true} if the connection may be used for the given
+     *          identity without processing another bind, or {@code false} if
+     *          not.
+     */
+    private boolean isVerifiedFor(@NotNull final AuthenticatedIdentity identity,
+                                  @NotNull final LDAPConnection connection,
+                                  final long maxAgeNanos)
+    {
+      // Make sure that the connection hasn't been used for any other bind
+      // since this identity was recorded.
+      if ((bindRequest == null) ||
+           (connection.getLastBindRequest() != bindRequest))
+      {
+        return false;
+      }
+
+      if ((System.nanoTime() - verifiedTimeNanos) >= maxAgeNanos)
+      {
+        return false;
+      }
+
+      return (normalizedBindDN != null) &&
+           normalizedBindDN.equals(identity.normalizedBindDN) &&
+           MessageDigest.isEqual(passwordDigest, identity.passwordDigest);
+    }
+  }
 }
@@ -81,6 +81,23 @@ import com.unboundid.util.ThreadSafetyLevel;
  *       the pool.</LI>
  *   <LI>The number of failed attempts to create a new connection for use in the
  *       pool.</LI>
+ *   <LI>The number of hedged requests that have been sent because the
+ *       original request did not complete within the hedge delay, and the
+ *       number of those hedged requests that completed before the original
+ *       request.</LI>
+ *   <LI>The number of requests for an authenticated connection that were
+ *       satisfied by a connection that was already authenticated as the
+ *       requested identity, and the number that required a bind.</LI>
+ *   <LI>The number of health check passes that have been completed for
+ *       connections that were available in the pool, along with the duration
+ *       of the most recent pass, the longest pass, and the total duration of
+ *       all passes.</LI>
+ *   <LI>The number of TLS handshakes performed by connections in the pool that
+ *       resumed a previously-established session, and the number that
+ *       required a full handshake.</LI>
+ *   <LI>A histogram of the response times for each type of operation
+ *       processed on connections in the pool, from which percentiles may be
+ *       obtained.</LI>
  * </UL>
  */
 @Mutable()
@@ -111,6 +128,39 @@ public final class LDAPConnectionPoolStatistics
   // The number of failed attempts to create a connection for use in the pool.
   @NotNull private final AtomicLong numFailedConnectionAttempts;
 
+  // The number of requests for an authenticated connection that were satisfied
+  // by a connection already authenticated as the requested identity.
+  @NotNull private final AtomicLong numAuthenticatedConnectionReuseHits;
+
+  // The number of requests for an authenticated connection that required a
+  // bind.
+  @NotNull private final AtomicLong numAuthenticatedConnectionReuseMisses;
+
+  // The number of health check passes that have been completed.
+  @NotNull private final AtomicLong numHealthCheckPasses;
+
+  // The duration in milliseconds of the most recent health check pass.
+  @NotNull private final AtomicLong lastHealthCheckPassDurationMillis;
+
+  // The duration in milliseconds of the longest health check pass.
+  @NotNull private final AtomicLong maxHealthCheckPassDurationMillis;
+
+  // The total duration in milliseconds of all health check passes.
+  @NotNull private final AtomicLong totalHealthCheckPassDurationMillis;
+
+  // The number of full TLS handshakes performed by connections in the pool.
+  @NotNull private final AtomicLong numFullTLSHandshakes;
+
+  // The number of TLS handshakes performed by connections in the pool that
+  // resumed a previously-established session.
+  @NotNull private final AtomicLong numResumedTLSHandshakes;
+
+  // The number of hedged requests that have been sent.
+  @NotNull private final AtomicLong numHedgedRequests;
+
+  // The number of hedged requests that completed before the original request.
+  @NotNull private final AtomicLong numHedgedRequestsWon;
+
   // The number of valid connections released back to the pool.
   @NotNull private final AtomicLong numReleasedValid;
 
@@ -132,6 +182,10 @@ public final class LDAPConnectionPoolStatistics
   // The number successful attempts to create a connection for use in the pool.
   @NotNull private final AtomicLong numSuccessfulConnectionAttempts;
 
+  // The response time histograms for each type of operation, indexed by the
+  // ordinal of the operation type.
+  @NotNull private final LatencyHistogram[] responseTimeHistograms;
+
   // The connection pool with which these statistics are associated.
   @NotNull private final AbstractConnectionPool pool;
 
@@ -160,6 +214,17 @@ public final class LDAPConnectionPoolStatistics
     numSuccessfulCheckoutsWithoutWait   = new AtomicLong(0L);
     numFailedCheckouts                  = new AtomicLong(0L);
     numReleasedValid                    = new AtomicLong(0L);
+    numHedgedRequests                   = new AtomicLong(0L);
+    numHedgedRequestsWon                = new AtomicLong(0L);
+    numAuthenticatedConnectionReuseHits = new AtomicLong(0L);
+    numAuthenticatedConnectionReuseMisses = new AtomicLong(0L);
+    numHealthCheckPasses                = new AtomicLong(0L);
+    lastHealthCheckPassDurationMillis   = new AtomicLong(0L);
+    maxHealthCheckPassDurationMillis    = new AtomicLong(0L);
+    totalHealthCheckPassDurationMillis  = new AtomicLong(0L);
+    numFullTLSHandshakes                = new AtomicLong(0L);
+    numResumedTLSHandshakes             = new AtomicLong(0L);
+    responseTimeHistograms = LatencyHistogram.createOperationHistograms(true);
   }
 
 
@@ -180,6 +245,17 @@ public final class LDAPConnectionPoolStatistics
     numSuccessfulCheckoutsWithoutWait.set(0L);
     numFailedCheckouts.set(0L);
     numReleasedValid.set(0L);
+    numHedgedRequests.set(0L);
+    numHedgedRequestsWon.set(0L);
+    numAuthenticatedConnectionReuseHits.set(0L);
+    numAuthenticatedConnectionReuseMisses.set(0L);
+    numHealthCheckPasses.set(0L);
+    lastHealthCheckPassDurationMillis.set(0L);
+    maxHealthCheckPassDurationMillis.set(0L);
+    totalHealthCheckPassDurationMillis.set(0L);
+    numFullTLSHandshakes.set(0L);
+    numResumedTLSHandshakes.set(0L);
+    LatencyHistogram.resetOperations(responseTimeHistograms);
   }
 
 
@@ -453,6 +529,248 @@ public final class LDAPConnectionPoolStatistics
 
 
 
+  /**
+   * Retrieves the number of hedged requests that have been sent because an
+   * original request processed with one of the hedged operation methods in
+   * {@link LDAPConnectionPool} did not complete within the hedge delay.
+   *
+   * @return  The number of hedged requests that have been sent.
+   */
+  public long getNumHedgedRequests()
+  {
+    return numHedgedRequests.get();
+  }
+
+
+
+  /**
+   * Increments the number of hedged requests that have been sent.
+   */
+  void incrementNumHedgedRequests()
+  {
+    numHedgedRequests.incrementAndGet();
+  }
+
+
+
+  /**
+   * Retrieves the number of hedged requests that completed before the
+   * original request, so that their results were the ones returned to the
+   * caller.
+   *
+   * @return  The number of hedged requests that completed before the original
+   *          request.
+   */
+  public long getNumHedgedRequestsWon()
+  {
+    return numHedgedRequestsWon.get();
+  }
+
+
+
+  /**
+   * Increments the number of hedged requests that completed before the
+   * original request.
+   */
+  void incrementNumHedgedRequestsWon()
+  {
+    numHedgedRequestsWon.incrementAndGet();
+  }
+
+
+
+  /**
+   * Retrieves the number of requests for an authenticated connection that were
+   * satisfied by an available connection that had recently been authenticated
+   * with the same credentials, so that no bind was needed.  This will only be
+   * updated if the pool is configured to reuse authenticated connections.
+   *
+   * @return  The number of requests for an authenticated connection that were
+   *          satisfied without a bind.
+   */
+  public long getNumAuthenticatedConnectionReuseHits()
+  {
+    return numAuthenticatedConnectionReuseHits.get();
+  }
+
+
+
+  /**
+   * Increments the number of requests for an authenticated connection that
+   * were satisfied without a bind.
+   */
+  void incrementNumAuthenticatedConnectionReuseHits()
+  {
+    numAuthenticatedConnectionReuseHits.incrementAndGet();
+  }
+
+
+
+  /**
+   * Retrieves the number of requests for an authenticated connection for which
+   * no suitable connection was available, so that a bind was needed.  This
+   * will only be updated if the pool is configured to reuse authenticated
+   * connections.
+   *
+   * @return  The number of requests for an authenticated connection that
+   *          required a bind.
+   */
+  public long getNumAuthenticatedConnectionReuseMisses()
+  {
+    return numAuthenticatedConnectionReuseMisses.get();
+  }
+
+
+
+  /**
+   * Increments the number of requests for an authenticated connection that
+   * required a bind.
+   */
+  void incrementNumAuthenticatedConnectionReuseMisses()
+  {
+    numAuthenticatedConnectionReuseMisses.incrementAndGet();
+  }
+
+
+
+  /**
+   * Retrieves the number of health check passes that have been completed for
+   * connections that were available in the pool.  This includes passes
+   * performed by the background health check thread as well as those invoked
+   * explicitly.
+   *
+   * @return  The number of health check passes that have been completed.
+   */
+  public long getNumHealthCheckPasses()
+  {
+    return numHealthCheckPasses.get();
+  }
+
+
+
+  /**
+   * Retrieves the length of time in milliseconds required to complete the most
+   * recent health check pass.
+   *
+   * @return  The length of time in milliseconds required to complete the most
+   *          recent health check pass, or zero if no passes have been
+   *          completed.
+   */
+  public long getLastHealthCheckPassDurationMillis()
+  {
+    return lastHealthCheckPassDurationMillis.get();
+  }
+
+
+
+  /**
+   * Retrieves the length of time in milliseconds required to complete the
+   * longest health check pass.
+   *
+   * @return  The length of time in milliseconds required to complete the
+   *          longest health check pass, or zero if no passes have been
+   *          completed.
+   */
+  public long getMaxHealthCheckPassDurationMillis()
+  {
+    return maxHealthCheckPassDurationMillis.get();
+  }
+
+
+
+  /**
+   * Retrieves the total length of time in milliseconds spent performing health
+   * check passes.  This may be divided by the number of passes to obtain the
+   * average duration.
+   *
+   * @return  The total length of time in milliseconds spent performing health
+   *          check passes.
+   */
+  public long getTotalHealthCheckPassDurationMillis()
+  {
+    return totalHealthCheckPassDurationMillis.get();
+  }
+
+
+
+  /**
+   * Records information about a health check pass that has been completed.
+   *
+   * @param  durationMillis  The length of time in milliseconds required to
+   *                         complete the health check pass.
+   */
+  void recordHealthCheckPass(final long durationMillis)
+  {
+    numHealthCheckPasses.incrementAndGet();
+    lastHealthCheckPassDurationMillis.set(durationMillis);
+    totalHealthCheckPassDurationMillis.addAndGet(durationMillis);
+
+    while (true)
+    {
+      final long currentMax = maxHealthCheckPassDurationMillis.get();
+      if ((durationMillis <= currentMax) ||
+           maxHealthCheckPassDurationMillis.compareAndSet(currentMax,
+                durationMillis))
+      {
+        return;
+      }
+    }
+  }
+
+
+
+  /**
+   * Retrieves the number of full TLS handshakes that have been performed by
+   * connections in the pool, including handshakes performed when the
+   * connections were established, when they were re-established, and when
+   * processing StartTLS requests.
+   *
+   * @return  The number of full TLS handshakes that have been performed by
+   *          connections in the pool.
+   */
+  public long getNumFullTLSHandshakes()
+  {
+    return numFullTLSHandshakes.get();
+  }
+
+
+
+  /**
+   * Retrieves the number of TLS handshakes performed by connections in the pool
+   * that resumed a previously-established session rather than performing a
+   * full handshake.
+   *
+   * @return  The number of TLS handshakes performed by connections in the pool
+   *          that resumed a previously-established session.
+   */
+  public long getNumResumedTLSHandshakes()
+  {
+    return numResumedTLSHandshakes.get();
+  }
+
+
+
+  /**
+   * Updates the TLS handshake counts with the provided information.
+   *
+   * @param  numFull     The number of full TLS handshakes to add.
+   * @param  numResumed  The number of resumed TLS handshakes to add.
+   */
+  void recordTLSHandshakes(final long numFull, final long numResumed)
+  {
+    if (numFull > 0L)
+    {
+      numFullTLSHandshakes.addAndGet(numFull);
+    }
+
+    if (numResumed > 0L)
+    {
+      numResumedTLSHandshakes.addAndGet(numResumed);
+    }
+  }
+
+
+
   /**
    * Retrieves the number of connections currently available for use in the
    * pool, if that information is available.
@@ -483,6 +801,71 @@ public final class LDAPConnectionPoolStatistics
 
 
 
+  /**
+   * Retrieves a snapshot of the histogram of response times for operations of
+   * the specified type processed on connections in the pool.
+   *
+   * @param  operationType  The type of operation for which to retrieve the
+   *                        response time histogram.  It must not be
+   *                        {@code null}.
+   *
+   * @return  A snapshot of the histogram of response times for operations of
+   *          the specified type.  It will be empty for operation types that
+   *          do not have responses (abandon and unbind).
+   */
+  @NotNull()
+  public LatencyHistogramSnapshot getResponseTimeHistogram(
+              @NotNull final OperationType operationType)
+  {
+    return getResponseTimeHistogram(operationType, false);
+  }
+
+
+
+  /**
+   * Retrieves a snapshot of the histogram of response times for operations of
+   * the specified type processed on connections in the pool, optionally
+   * resetting the histogram so that the next snapshot will only reflect
+   * operations completed after this one was taken.
+   *
+   * @param  operationType  The type of operation for which to retrieve the
+   *                        response time histogram.  It must not be
+   *                        {@code null}.
+   * @param  reset          Indicates whether to reset the histogram after
+   *                        taking the snapshot.  Other counters maintained in
+   *                        this object will not be affected.
+   *
+   * @return  A snapshot of the histogram of response times for operations of
+   *          the specified type.  It will be empty for operation types that
+   *          do not have responses (abandon and unbind).
+   */
+  @NotNull()
+  public LatencyHistogramSnapshot getResponseTimeHistogram(
+              @NotNull final OperationType operationType, final boolean reset)
+  {
+    return LatencyHistogram.getOperationSnapshot(responseTimeHistograms,
+         operationType, reset);
+  }
+
+
+
+  /**
+   * Records the provided response time in the histogram for the specified
+   * type of operation.
+   *
+   * @param  operationType  The type of operation for which to record the
+   *                        response time.
+   * @param  responseTime   The response time to record, in nanoseconds.
+   */
+  void recordResponseTime(@NotNull final OperationType operationType,
+                          final long responseTime)
+  {
+    LatencyHistogram.recordOperation(responseTimeHistograms, operationType,
+         responseTime);
+  }
+
+
+
   /**
    * Retrieves a string representation of this LDAP connection pool statistics
    * object.
@@ -520,6 +903,16 @@ public final class LDAPConnectionPoolStatistics
     final long successfulCheckouts = numSuccessfulCheckouts.get();
     final long failedCheckouts     = numFailedCheckouts.get();
     final long releasedValid       = numReleasedValid.get();
+    final long hedgedRequests      = numHedgedRequests.get();
+    final long hedgedRequestsWon   = numHedgedRequestsWon.get();
+    final long authReuseHits       = numAuthenticatedConnectionReuseHits.get();
+    final long authReuseMisses     =
+         numAuthenticatedConnectionReuseMisses.get();
+    final long healthCheckPasses   = numHealthCheckPasses.get();
+    final long lastHealthCheckTime = lastHealthCheckPassDurationMillis.get();
+    final long maxHealthCheckTime  = maxHealthCheckPassDurationMillis.get();
+    final long fullTLSHandshakes   = numFullTLSHandshakes.get();
+    final long resumedTLSHandshakes = numResumedTLSHandshakes.get();
 
     buffer.append("LDAPConnectionPoolStatistics(numAvailableConnections=");
     buffer.append(availableConns);
@@ -541,6 +934,24 @@ public final class LDAPConnectionPoolStatistics
     buffer.append(failedCheckouts);
     buffer.append(", numReleasedValid=");
     buffer.append(releasedValid);
+    buffer.append(", numHedgedRequests=");
+    buffer.append(hedgedRequests);
+    buffer.append(", numHedgedRequestsWon=");
+    buffer.append(hedgedRequestsWon);
+    buffer.append(", numAuthenticatedConnectionReuseHits=");
+    buffer.append(authReuseHits);
+    buffer.append(", numAuthenticatedConnectionReuseMisses=");
+    buffer.append(authReuseMisses);
+    buffer.append(", numHealthCheckPasses=");
+    buffer.append(healthCheckPasses);
+    buffer.append(", lastHealthCheckPassDurationMillis=");
+    buffer.append(lastHealthCheckTime);
+    buffer.append(", maxHealthCheckPassDurationMillis=");
+    buffer.append(maxHealthCheckTime);
+    buffer.append(", numFullTLSHandshakes=");
+    buffer.append(fullTLSHandshakes);
+    buffer.append(", numResumedTLSHandshakes=");
+    buffer.append(resumedTLSHandshakes);
     buffer.append(')');
   }
 }
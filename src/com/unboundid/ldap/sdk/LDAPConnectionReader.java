@@ -38,15 +38,22 @@ package com.unboundid.ldap.sdk;
 
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
-import java.util.Iterator;
-import java.util.concurrent.ConcurrentHashMap;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import javax.security.sasl.SaslClient;
@@ -63,6 +70,7 @@ import com.unboundid.util.InternalUseOnly;
 import com.unboundid.util.NotNull;
 import com.unboundid.util.Nullable;
 import com.unboundid.util.StaticUtils;
+import com.unboundid.util.VirtualThreadSupport;
 import com.unboundid.util.WakeableSleeper;
 
 import static com.unboundid.ldap.sdk.LDAPMessages.*;
@@ -85,6 +93,15 @@ final class LDAPConnectionReader
 
 
 
+  /**
+   * The default size that will be used for the buffer that holds data read
+   * from the channel when using a shared selector reader.  The buffer will be
+   * temporarily expanded as necessary to hold larger messages.
+   */
+  private static final int DEFAULT_SELECTOR_BUFFER_SIZE = 8192;
+
+
+
   // The ASN.1 stream reader used to read LDAP messages from the server.
   @NotNull private volatile ASN1StreamReader asn1StreamReader;
 
@@ -93,8 +110,7 @@ final class LDAPConnectionReader
 
   // The map that will be used to associate message IDs with the corresponding
   // response acceptors.
-  @NotNull private final ConcurrentHashMap<Integer,ResponseAcceptor>
-       acceptorMap;
+  @NotNull private final ResponseAcceptorMap acceptorMap;
 
   // The exception encountered during StartTLS processing.
   @Nullable private volatile Exception startTLSException;
@@ -124,6 +140,32 @@ final class LDAPConnectionReader
   // The wakeable sleeper that will be used during StartTLS processing.
   @NotNull private final WakeableSleeper startTLSSleeper;
 
+  // The shared selector thread that is used to read data for this connection.
+  // It will be null unless the connection is using a shared selector reader.
+  @NotNull private final AtomicReference<SharedSelectorReaderThread>
+       selectorThread;
+
+  // The buffer used to hold data read from the channel when using a shared
+  // selector reader.  It will only be accessed by the selector thread.
+  @Nullable private ByteBuffer selectorReadBuffer;
+
+  // The channel from which data will be read when using a shared selector
+  // reader.
+  @Nullable private volatile SocketChannel selectorChannel;
+
+  // The TLS layer that will be used to decrypt data read from the channel when
+  // using a shared selector reader.  It will be null unless TLS has been
+  // negotiated with an SSL engine.
+  @Nullable private volatile SSLEngineChannel selectorTLSChannel;
+
+  // The number of outstanding requests to suspend reading from the server.
+  // Reading will only occur while this is zero.
+  @NotNull private final AtomicInteger readSuspensionCount;
+
+  // The lock used to wake up a dedicated reader thread that is waiting for
+  // reading to be resumed.
+  @NotNull private final Object readSuspensionLock;
+
 
 
   /**
@@ -153,12 +195,146 @@ final class LDAPConnectionReader
     asn1StreamReader = new ASN1StreamReader(inputStream,
          connection.getConnectionOptions().getMaxMessageSize());
 
-    acceptorMap = new ConcurrentHashMap<>(StaticUtils.computeMapCapacity(10));
+    acceptorMap = new ResponseAcceptorMap();
     closeRequested = false;
     sslSocketFactory = null;
     startTLSException = null;
     startTLSOutputStream = null;
     startTLSSleeper = new WakeableSleeper();
+    selectorThread = new AtomicReference<>();
+    selectorReadBuffer = null;
+    selectorChannel = null;
+    selectorTLSChannel = null;
+    readSuspensionCount = new AtomicInteger(0);
+    readSuspensionLock = new Object();
+  }
+
+
+
+  /**
+   * Starts reading data for this connection using the provided shared selector
+   * thread rather than a dedicated reader thread.  The provided channel will
+   * be placed in non-blocking mode.
+   *
+   * @param  t        The shared selector thread to use to read data for this
+   *                  connection.
+   * @param  channel  The channel from which data should be read.
+   *
+   * @throws  IOException  If a problem occurs while placing the channel in
+   *                       non-blocking mode.
+   */
+  void startSharedSelectorReader(@NotNull final SharedSelectorReaderThread t,
+                                 @NotNull final SocketChannel channel)
+       throws IOException
+  {
+    channel.configureBlocking(false);
+    selectorReadBuffer = ByteBuffer.allocate(DEFAULT_SELECTOR_BUFFER_SIZE);
+    selectorChannel = channel;
+    selectorThread.set(t);
+    t.register(this, channel);
+  }
+
+
+
+  /**
+   * Indicates whether this connection reader is currently using a shared
+   * selector thread rather than a dedicated reader thread.
+   *
+   * @return  {@code true} if this connection reader is currently using a
+   *          shared selector thread, or {@code false} if not.
+   */
+  boolean usingSharedSelectorReader()
+  {
+    return (selectorThread.get() != null);
+  }
+
+
+
+  /**
+   * Requests that this connection reader stop reading data from the server
+   * after it has finished processing the current message.  This may be used to
+   * apply backpressure when a consumer is unable to keep up with the rate at
+   * which data is returned:  once data is no longer being read, the socket
+   * receive buffer will fill up and TCP flow control will prevent the server
+   * from sending more.  Note that this will affect all operations on the
+   * connection, and not just the operation whose consumer has fallen behind.
+   * <BR><BR>
+   * Each call to this method must be followed by exactly one call to the
+   * {@link #resumeReading} method, and reading will not resume until all
+   * outstanding suspension requests have been released.
+   */
+  void suspendReading()
+  {
+    readSuspensionCount.incrementAndGet();
+  }
+
+
+
+  /**
+   * Releases a request to suspend reading that was made by an earlier call to
+   * the {@link #suspendReading} method.  If there are no other outstanding
+   * suspension requests, then this connection reader will resume reading data
+   * from the server.
+   */
+  void resumeReading()
+  {
+    if (readSuspensionCount.decrementAndGet() > 0)
+    {
+      return;
+    }
+
+    synchronized (readSuspensionLock)
+    {
+      readSuspensionLock.notifyAll();
+    }
+
+    final SharedSelectorReaderThread t = selectorThread.get();
+    final SocketChannel channel = selectorChannel;
+    if ((t != null) && (channel != null))
+    {
+      t.resumeReading(this, channel);
+    }
+  }
+
+
+
+  /**
+   * Indicates whether there are any outstanding requests to suspend reading
+   * data from the server.
+   *
+   * @return  {@code true} if there are any outstanding requests to suspend
+   *          reading, or {@code false} if not.
+   */
+  boolean isReadingSuspended()
+  {
+    return (readSuspensionCount.get() > 0);
+  }
+
+
+
+  /**
+   * Causes a dedicated reader thread to wait until there are no outstanding
+   * requests to suspend reading, or until a request has been made to close the
+   * connection.
+   */
+  private void awaitReadingResumed()
+  {
+    synchronized (readSuspensionLock)
+    {
+      while ((readSuspensionCount.get() > 0) && (! closeRequested))
+      {
+        try
+        {
+          readSuspensionLock.wait(1000L);
+        }
+        catch (final InterruptedException e)
+        {
+          // This will happen if the connection is being closed.
+          Debug.debugException(Level.FINEST, e);
+          return;
+        }
+      }
+    }
   }
 
 
@@ -234,13 +410,24 @@ final class LDAPConnectionReader
 
     while (! closeRequested)
     {
+      if (readSuspensionCount.get() > 0)
+      {
+        awaitReadingResumed();
+        continue;
+      }
+
       try
       {
         final LDAPResponse response;
         try
         {
+          final LDAPConnectionOptions options =
+               connection.getConnectionOptions();
           response = LDAPMessage.readLDAPResponseFrom(asn1StreamReader, true,
-               connection.getCachedSchema());
+               connection.getCachedSchema(),
+               options.useLazySearchEntryDecoding(),
+               options.getLargeAttributeValueSink(),
+               options.getLargeAttributeValueThresholdBytes());
         }
         catch (final LDAPException le)
         {
@@ -270,6 +457,7 @@ final class LDAPConnectionReader
                 }
 
                 final SSLSocket sslSocket;
+                final long handshakeStartTime = System.currentTimeMillis();
                 synchronized (sslSocketFactory)
                 {
                   sslSocket = (SSLSocket) sslSocketFactory.createSocket(socket,
@@ -277,6 +465,8 @@ final class LDAPConnectionReader
                        true);
                   sslSocket.startHandshake();
                 }
+                connection.getConnectionStatistics().recordTLSHandshake(
+                     sslSocket.getSession(), handshakeStartTime);
                 connectionOptions.getSSLSocketVerifier().verifySSLSocket(
                      connection.getConnectedAddress(), socket.getPort(),
                      sslSocket);
@@ -423,189 +613,597 @@ final class LDAPConnectionReader
           }
         }
 
-        connection.setLastCommunicationTime();
-        Debug.debugLDAPResult(response, connection);
-        logResponse(response);
+        processResponse(response);
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
 
-        final ResponseAcceptor responseAcceptor;
-        if ((response instanceof SearchResultEntry) ||
-            (response instanceof SearchResultReference))
+        // We should terminate the connection regardless of the type of
+        // exception, but might want to customize the debug message.
+        final String message;
+        Level debugLevel = Level.SEVERE;
+        if (e instanceof IOException)
         {
-          responseAcceptor = acceptorMap.get(response.getMessageID());
+          connection.setDisconnectInfo(DisconnectType.IO_ERROR, null, e);
+          message = ERR_READER_CLOSING_DUE_TO_IO_EXCEPTION.get(
+               connection.getHostPort(), StaticUtils.getExceptionMessage(e));
+          debugLevel = Level.WARNING;
         }
-        else if (response instanceof IntermediateResponse)
+        else if (e instanceof ASN1Exception)
         {
-          final IntermediateResponse ir = (IntermediateResponse) response;
-          responseAcceptor = acceptorMap.get(response.getMessageID());
-           IntermediateResponseListener l = null;
-          if (responseAcceptor instanceof LDAPRequest)
-          {
-            final LDAPRequest r = (LDAPRequest) responseAcceptor;
-            l = r.getIntermediateResponseListener();
+          connection.setDisconnectInfo(DisconnectType.DECODE_ERROR, null, e);
+          message = ERR_READER_CLOSING_DUE_TO_ASN1_EXCEPTION.get(
+               connection.getHostPort(), StaticUtils.getExceptionMessage(e));
+        }
+        else
+        {
+          connection.setDisconnectInfo(DisconnectType.LOCAL_ERROR, null, e);
+          message = ERR_READER_CLOSING_DUE_TO_EXCEPTION.get(
+               connection.getHostPort(), StaticUtils.getExceptionMessage(e));
+        }
 
-          }
-          else if (responseAcceptor instanceof IntermediateResponseListener)
+        Debug.debug(debugLevel, DebugType.LDAP, message, e);
+
+        // If the connection is configured to try to auto-reconnect, then set
+        // things up to do that.  Otherwise, terminate the connection.
+        @SuppressWarnings("deprecation")
+        final boolean autoReconnect =
+             connection.getConnectionOptions().autoReconnect();
+        if (autoReconnect)
+        {
+          reconnect = true;
+          break;
+        }
+        else
+        {
+          closeRequested = true;
+          if (thread != null)
           {
-            l = (IntermediateResponseListener) responseAcceptor;
+            thread.setName(thread.getName() + " (closed)");
+            thread = null;
           }
+          closeInternal(true, message);
+          return;
+        }
+      }
+    }
+
+    if (thread != null)
+    {
+      thread.setName(constructThreadName(null));
+      thread = null;
+    }
+
+    if (reconnect && (! connection.closeRequested()))
+    {
+      try
+      {
+        connection.setNeedsReconnect();
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+      }
+    }
+    else
+    {
+      // Ensure that the connection has properly been closed.
+      closeInternal(true, null);
+    }
+  }
+
+
 
-          if (l == null)
+  /**
+   * Processes the provided response that has been read from the server,
+   * handing it off to the appropriate response acceptor or unsolicited
+   * notification handler.  This should only be used for connections that are
+   * not operating in synchronous mode.
+   *
+   * @param  response  The response to be processed.  It must not be
+   *                   {@code null}.
+   */
+  @SuppressWarnings("deprecation")
+  private void processResponse(@NotNull final LDAPResponse response)
+  {
+    connection.setLastCommunicationTime();
+    Debug.debugLDAPResult(response, connection);
+    logResponse(response);
+
+    final ResponseAcceptor responseAcceptor;
+    if ((response instanceof SearchResultEntry) ||
+        (response instanceof SearchResultReference))
+    {
+      responseAcceptor = acceptorMap.get(response.getMessageID());
+    }
+    else if (response instanceof IntermediateResponse)
+    {
+      final IntermediateResponse ir = (IntermediateResponse) response;
+      responseAcceptor = acceptorMap.get(response.getMessageID());
+       IntermediateResponseListener l = null;
+      if (responseAcceptor instanceof LDAPRequest)
+      {
+        final LDAPRequest r = (LDAPRequest) responseAcceptor;
+        l = r.getIntermediateResponseListener();
+
+      }
+      else if (responseAcceptor instanceof IntermediateResponseListener)
+      {
+        l = (IntermediateResponseListener) responseAcceptor;
+      }
+
+      if (l == null)
+      {
+        Debug.debug(Level.WARNING, DebugType.LDAP,
+             WARN_INTERMEDIATE_RESPONSE_WITH_NO_LISTENER.get(
+                  String.valueOf(ir)));
+      }
+      else
+      {
+        try
+        {
+          l.intermediateResponseReturned(ir);
+        }
+        catch (final Exception e)
+        {
+          Debug.debugException(e);
+        }
+      }
+      return;
+    }
+    else
+    {
+      responseAcceptor = acceptorMap.remove(response.getMessageID());
+    }
+
+
+    if (responseAcceptor == null)
+    {
+      if ((response instanceof ExtendedResult) &&
+          (response.getMessageID() == 0))
+      {
+        // This is an intermediate response message, so handle it
+        // appropriately.
+        ExtendedResult extendedResult = (ExtendedResult) response;
+
+        final String oid = extendedResult.getOID();
+        if (NoticeOfDisconnectionExtendedResult.
+                 NOTICE_OF_DISCONNECTION_RESULT_OID.equals(oid))
+        {
+          extendedResult = new NoticeOfDisconnectionExtendedResult(
+                                    extendedResult);
+          connection.setDisconnectInfo(
+               DisconnectType.SERVER_CLOSED_WITH_NOTICE,
+               extendedResult.getDiagnosticMessage(), null);
+        }
+        else if (com.unboundid.ldap.sdk.unboundidds.extensions.
+             InteractiveTransactionAbortedExtendedResult.
+                  INTERACTIVE_TRANSACTION_ABORTED_RESULT_OID.equals(oid))
+        {
+          extendedResult = new com.unboundid.ldap.sdk.unboundidds.
+               extensions.InteractiveTransactionAbortedExtendedResult(
+                    extendedResult);
+        }
+
+        final UnsolicitedNotificationHandler handler =
+             connection.getConnectionOptions().
+                  getUnsolicitedNotificationHandler();
+        if (handler == null)
+        {
+          if (Debug.debugEnabled(DebugType.LDAP))
           {
             Debug.debug(Level.WARNING, DebugType.LDAP,
-                 WARN_INTERMEDIATE_RESPONSE_WITH_NO_LISTENER.get(
-                      String.valueOf(ir)));
+                 WARN_READER_UNHANDLED_UNSOLICITED_NOTIFICATION.get(
+                      response));
           }
-          else
+        }
+        else
+        {
+          handler.handleUnsolicitedNotification(connection,
+                                                extendedResult);
+        }
+        return;
+      }
+
+      if (Debug.debugEnabled(DebugType.LDAP))
+      {
+        Debug.debug(Level.WARNING, DebugType.LDAP,
+              WARN_READER_NO_ACCEPTOR.get(response));
+      }
+      return;
+    }
+
+    try
+    {
+      responseAcceptor.responseReceived(response);
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      Debug.debug(Level.WARNING, DebugType.LDAP,
+            ERR_READER_ACCEPTOR_ERROR.get(String.valueOf(response),
+                 connection.getHostPort(),
+                 StaticUtils.getExceptionMessage(le)),
+           le);
+    }
+  }
+
+
+
+  /**
+   * Reads any data that is available from the channel associated with this
+   * connection reader, and processes any complete LDAP messages that have been
+   * received.  This should only be called by the shared selector thread with
+   * which this connection reader is registered.
+   *
+   * @return  {@code true} if this connection reader should remain registered
+   *          with the selector thread, or {@code false} if it should be
+   *          deregistered because the connection has been closed.
+   */
+  boolean readFromChannel()
+  {
+    final SocketChannel channel = selectorChannel;
+    final ByteBuffer buffer = selectorReadBuffer;
+    if (closeRequested || (channel == null) || (buffer == null))
+    {
+      return false;
+    }
+
+    final SSLEngineChannel tls = selectorTLSChannel;
+    try
+    {
+      if (readSuspensionCount.get() == 0)
+      {
+        if ((tls != null) && (! tls.isHandshakeComplete()))
+        {
+          try
           {
-            try
+            if (! tls.processHandshake())
             {
-              l.intermediateResponseReturned(ir);
-            }
-            catch (final Exception e)
-            {
-              Debug.debugException(e);
+              return true;
             }
           }
-          continue;
+          catch (final Exception e)
+          {
+            tls.handshakeFailed(e);
+            throw e;
+          }
+        }
+
+        final int bytesRead;
+        if (tls == null)
+        {
+          bytesRead = channel.read(buffer);
         }
         else
         {
-          responseAcceptor = acceptorMap.remove(response.getMessageID());
+          bytesRead = tls.read(buffer);
         }
 
-
-        if (responseAcceptor == null)
+        if (bytesRead < 0)
         {
-          if ((response instanceof ExtendedResult) &&
-              (response.getMessageID() == 0))
-          {
-            // This is an intermediate response message, so handle it
-            // appropriately.
-            ExtendedResult extendedResult = (ExtendedResult) response;
+          handleSelectorEndOfStream();
+          return false;
+        }
+      }
 
-            final String oid = extendedResult.getOID();
-            if (NoticeOfDisconnectionExtendedResult.
-                     NOTICE_OF_DISCONNECTION_RESULT_OID.equals(oid))
-            {
-              extendedResult = new NoticeOfDisconnectionExtendedResult(
-                                        extendedResult);
-              connection.setDisconnectInfo(
-                   DisconnectType.SERVER_CLOSED_WITH_NOTICE,
-                   extendedResult.getDiagnosticMessage(), null);
-            }
-            else if (com.unboundid.ldap.sdk.unboundidds.extensions.
-                 InteractiveTransactionAbortedExtendedResult.
-                      INTERACTIVE_TRANSACTION_ABORTED_RESULT_OID.equals(oid))
-            {
-              extendedResult = new com.unboundid.ldap.sdk.unboundidds.
-                   extensions.InteractiveTransactionAbortedExtendedResult(
-                        extendedResult);
-            }
+      processSelectorReadBuffer(buffer);
+      if (tls != null)
+      {
+        return processBufferedTLSData(tls);
+      }
 
-            final UnsolicitedNotificationHandler handler =
-                 connection.getConnectionOptions().
-                      getUnsolicitedNotificationHandler();
-            if (handler == null)
-            {
-              if (Debug.debugEnabled(DebugType.LDAP))
-              {
-                Debug.debug(Level.WARNING, DebugType.LDAP,
-                     WARN_READER_UNHANDLED_UNSOLICITED_NOTIFICATION.get(
-                          response));
-              }
-            }
-            else
-            {
-              handler.handleUnsolicitedNotification(connection,
-                                                    extendedResult);
-            }
-            continue;
-          }
+      return (! closeRequested);
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      handleSelectorFailure(e);
+      return false;
+    }
+  }
+
+
+
+  /**
+   * Processes any complete LDAP messages that have already been read into the
+   * buffer used by the shared selector thread, without reading any more data
+   * from the channel.  This should only be called by the shared selector thread
+   * with which this connection reader is registered when reading is resumed
+   * after having been suspended.
+   *
+   * @return  {@code true} if this connection reader should remain registered
+   *          with the selector thread, or {@code false} if it should be
+   *          deregistered because the connection has been closed.
+   */
+  boolean processBufferedMessages()
+  {
+    final ByteBuffer buffer = selectorReadBuffer;
+    if (closeRequested || (selectorChannel == null) || (buffer == null))
+    {
+      return false;
+    }
+
+    try
+    {
+      processSelectorReadBuffer(buffer);
+
+      final SSLEngineChannel tls = selectorTLSChannel;
+      if ((tls != null) && tls.isHandshakeComplete())
+      {
+        return processBufferedTLSData(tls);
+      }
+
+      return (! closeRequested);
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      handleSelectorFailure(e);
+      return false;
+    }
+  }
+
+
+
+  /**
+   * Processes any data that has already been read from the channel by the
+   * provided TLS layer but that has not yet been decrypted and processed.  A
+   * single TLS record may hold more data than will fit in the buffer used by
+   * the shared selector thread, and the selector will not report that the
+   * channel is readable for data that has already been read from it, so this
+   * must be called after processing each batch of data read through a TLS
+   * layer.
+   *
+   * @param  tls  The TLS layer with the data to process.
+   *
+   * @return  {@code true} if this connection reader should remain registered
+   *          with the selector thread, or {@code false} if it should be
+   *          deregistered because the connection has been closed.
+   *
+   * @throws  Exception  If a problem is encountered while processing the data.
+   */
+  private boolean processBufferedTLSData(@NotNull final SSLEngineChannel tls)
+          throws Exception
+  {
+    while ((! closeRequested) && (readSuspensionCount.get() == 0) &&
+         tls.hasBufferedData())
+    {
+      // The buffer may have been replaced while processing the previous batch
+      // of data, so we need to get it again each time through.
+      final ByteBuffer buffer = selectorReadBuffer;
+      if (buffer == null)
+      {
+        return false;
+      }
+
+      if (tls.read(buffer) < 0)
+      {
+        handleSelectorEndOfStream();
+        return false;
+      }
+
+      processSelectorReadBuffer(buffer);
+    }
+
+    return (! closeRequested);
+  }
+
+
+
+  /**
+   * Handles the end of the stream being reached while reading data using a
+   * shared selector thread, which indicates that the server closed the
+   * connection.
+   */
+  private void handleSelectorEndOfStream()
+  {
+    connection.setDisconnectInfo(
+         DisconnectType.SERVER_CLOSED_WITHOUT_NOTICE, null, null);
+    terminateSharedSelectorReader(! connection.unbindRequestSent(), null);
+  }
+
+
+
+  /**
+   * Processes the complete LDAP messages contained in the provided buffer,
+   * which must be the buffer used by the shared selector thread and must be
+   * positioned for writing.  Processing will stop early if a request is made
+   * to suspend reading.  Any remaining data will be retained in the buffer so
+   * that it can be processed later.
+   *
+   * @param  buffer  The buffer containing the data to process.
+   *
+   * @throws  Exception  If a problem is encountered while processing the data.
+   */
+  private void processSelectorReadBuffer(@NotNull final ByteBuffer buffer)
+          throws Exception
+  {
+    buffer.flip();
 
-          if (Debug.debugEnabled(DebugType.LDAP))
-          {
-            Debug.debug(Level.WARNING, DebugType.LDAP,
-                  WARN_READER_NO_ACCEPTOR.get(response));
-          }
-          continue;
+    int requiredCapacity = -1;
+    while ((buffer.remaining() >= 2) && (readSuspensionCount.get() == 0))
+    {
+      // Determine the total number of bytes needed for the next message.  If
+      // we don't have all of them yet, then we'll need to wait for more data.
+      final int startPos = buffer.position();
+      final int firstLengthByte = (buffer.get(startPos + 1) & 0xFF);
+
+      final int headerLength;
+      final int valueLength;
+      if ((firstLengthByte & 0x80) == 0x00)
+      {
+        headerLength = 2;
+        valueLength = firstLengthByte;
+      }
+      else
+      {
+        final int numLengthBytes = (firstLengthByte & 0x7F);
+        if ((numLengthBytes < 1) || (numLengthBytes > 4))
+        {
+          throw new ASN1Exception(
+               ERR_SELECTOR_READER_INVALID_LENGTH_BYTES.get(numLengthBytes));
         }
 
-        try
+        headerLength = 2 + numLengthBytes;
+        if (buffer.remaining() < headerLength)
         {
-          responseAcceptor.responseReceived(response);
+          break;
         }
-        catch (final LDAPException le)
+
+        int length = 0;
+        for (int i=0; i < numLengthBytes; i++)
         {
-          Debug.debugException(le);
-          Debug.debug(Level.WARNING, DebugType.LDAP,
-                ERR_READER_ACCEPTOR_ERROR.get(String.valueOf(response),
-                     connection.getHostPort(),
-                     StaticUtils.getExceptionMessage(le)),
-               le);
+          length = (length << 8) | (buffer.get(startPos + 2 + i) & 0xFF);
         }
+        valueLength = length;
       }
-      catch (final Exception e)
+
+      final int maxMessageSize =
+           connection.getConnectionOptions().getMaxMessageSize();
+      if ((valueLength < 0) ||
+           ((maxMessageSize > 0) && (valueLength > maxMessageSize)))
       {
-        Debug.debugException(e);
+        throw new ASN1Exception(ERR_SELECTOR_READER_LENGTH_EXCEEDS_MAX.get(
+             (valueLength & 0xFFFF_FFFFL), maxMessageSize));
+      }
 
-        // We should terminate the connection regardless of the type of
-        // exception, but might want to customize the debug message.
-        final String message;
-        Level debugLevel = Level.SEVERE;
-        if (e instanceof IOException)
-        {
-          connection.setDisconnectInfo(DisconnectType.IO_ERROR, null, e);
-          message = ERR_READER_CLOSING_DUE_TO_IO_EXCEPTION.get(
-               connection.getHostPort(), StaticUtils.getExceptionMessage(e));
-          debugLevel = Level.WARNING;
-        }
-        else if (e instanceof ASN1Exception)
-        {
-          connection.setDisconnectInfo(DisconnectType.DECODE_ERROR, null, e);
-          message = ERR_READER_CLOSING_DUE_TO_ASN1_EXCEPTION.get(
-               connection.getHostPort(), StaticUtils.getExceptionMessage(e));
-        }
-        else
-        {
-          connection.setDisconnectInfo(DisconnectType.LOCAL_ERROR, null, e);
-          message = ERR_READER_CLOSING_DUE_TO_EXCEPTION.get(
-               connection.getHostPort(), StaticUtils.getExceptionMessage(e));
-        }
+      final int messageLength = headerLength + valueLength;
+      if (buffer.remaining() < messageLength)
+      {
+        requiredCapacity = messageLength;
+        break;
+      }
 
-        Debug.debug(debugLevel, DebugType.LDAP, message, e);
+      final ASN1StreamReader reader = new ASN1StreamReader(
+           new ByteArrayInputStream(buffer.array(),
+                (buffer.arrayOffset() + startPos), messageLength),
+           maxMessageSize);
+      buffer.position(startPos + messageLength);
+
+      final LDAPConnectionOptions options = connection.getConnectionOptions();
+      final LDAPResponse response = LDAPMessage.readLDAPResponseFrom(reader,
+           true, connection.getCachedSchema(),
+           options.useLazySearchEntryDecoding(),
+           options.getLargeAttributeValueSink(),
+           options.getLargeAttributeValueThresholdBytes());
+      if (response != null)
+      {
+        processResponse(response);
+      }
+    }
 
-        // If the connection is configured to try to auto-reconnect, then set
-        // things up to do that.  Otherwise, terminate the connection.
-        @SuppressWarnings("deprecation")
-        final boolean autoReconnect =
-             connection.getConnectionOptions().autoReconnect();
-        if (autoReconnect)
-        {
-          reconnect = true;
-          break;
-        }
-        else
-        {
-          closeRequested = true;
-          if (thread != null)
-          {
-            thread.setName(thread.getName() + " (closed)");
-            thread = null;
-          }
-          closeInternal(true, message);
-          return;
-        }
+    buffer.compact();
+    if (requiredCapacity > buffer.capacity())
+    {
+      // The next message is larger than the buffer can hold, so we need to
+      // allocate a larger one.
+      final ByteBuffer newBuffer = ByteBuffer.allocate(requiredCapacity);
+      buffer.flip();
+      newBuffer.put(buffer);
+      selectorReadBuffer = newBuffer;
+    }
+    else if ((buffer.position() == 0) &&
+         (buffer.capacity() > DEFAULT_SELECTOR_BUFFER_SIZE))
+    {
+      // We had previously expanded the buffer to hold a large message, but we
+      // don't need that much space anymore.
+      selectorReadBuffer = ByteBuffer.allocate(DEFAULT_SELECTOR_BUFFER_SIZE);
+    }
+  }
+
+
+
+  /**
+   * Handles a failure encountered while reading or processing data using a
+   * shared selector thread.  The connection will be closed, or if it is
+   * configured to automatically reconnect, then it will be flagged as needing
+   * to be re-established.
+   *
+   * @param  t  The exception or error that was encountered.
+   */
+  void handleSelectorFailure(@NotNull final Throwable t)
+  {
+    if (closeRequested || connection.closeRequested() ||
+        (connection.getDisconnectType() != null))
+    {
+      // This exception resulted from the connection being closed in a way
+      // that we already knew about.  We don't want to debug it at the same
+      // level as a newly-detected invalidity.
+      Debug.debugException(Level.FINEST, t);
+      if (! closeRequested)
+      {
+        closeRequested = true;
+        closeInternal(true, null);
       }
+      return;
     }
 
-    if (thread != null)
+    Throwable cause = t;
+    if ((t instanceof LDAPException) && (t.getCause() != null))
     {
-      thread.setName(constructThreadName(null));
-      thread = null;
+      cause = t.getCause();
     }
 
-    if (reconnect && (! connection.closeRequested()))
+    final String message;
+    Level debugLevel = Level.SEVERE;
+    if (cause instanceof LDAPException)
+    {
+      connection.setDisconnectInfo(DisconnectType.DECODE_ERROR,
+           cause.getMessage(), null);
+      message = cause.getMessage();
+      debugLevel = Level.WARNING;
+    }
+    else if (cause instanceof IOException)
+    {
+      connection.setDisconnectInfo(DisconnectType.IO_ERROR, null, cause);
+      message = ERR_READER_CLOSING_DUE_TO_IO_EXCEPTION.get(
+           connection.getHostPort(), StaticUtils.getExceptionMessage(cause));
+      debugLevel = Level.WARNING;
+    }
+    else if (cause instanceof ASN1Exception)
+    {
+      connection.setDisconnectInfo(DisconnectType.DECODE_ERROR, null, cause);
+      message = ERR_READER_CLOSING_DUE_TO_ASN1_EXCEPTION.get(
+           connection.getHostPort(), StaticUtils.getExceptionMessage(cause));
+    }
+    else
+    {
+      connection.setDisconnectInfo(DisconnectType.LOCAL_ERROR, null, cause);
+      message = ERR_READER_CLOSING_DUE_TO_EXCEPTION.get(
+           connection.getHostPort(), StaticUtils.getExceptionMessage(cause));
+    }
+
+    Debug.debug(debugLevel, DebugType.LDAP, message, cause);
+    terminateSharedSelectorReader(true, message);
+  }
+
+
+
+  /**
+   * Stops using the shared selector reader for this connection because the
+   * connection is no longer usable.  If the connection is configured to
+   * automatically reconnect, then it will be flagged as needing to be
+   * re-established.  Otherwise, it will be closed.
+   *
+   * @param  allowReconnect  Indicates whether it is acceptable to attempt to
+   *                         re-establish the connection if it is configured to
+   *                         automatically reconnect.
+   * @param  message         A message with additional information about the
+   *                         reason for the closure, if available.
+   */
+  private void terminateSharedSelectorReader(final boolean allowReconnect,
+                                             @Nullable final String message)
+  {
+    @SuppressWarnings("deprecation")
+    final boolean autoReconnect =
+         connection.getConnectionOptions().autoReconnect();
+    if (allowReconnect && autoReconnect && (! closeRequested) &&
+        (! connection.closeRequested()))
     {
+      deregisterFromSharedSelector(false);
+
       try
       {
         connection.setNeedsReconnect();
@@ -617,9 +1215,112 @@ final class LDAPConnectionReader
     }
     else
     {
-      // Ensure that the connection has properly been closed.
-      closeInternal(true, null);
+      closeRequested = true;
+      closeInternal(true, message);
+    }
+  }
+
+
+
+  /**
+   * Deregisters this connection reader from the shared selector thread with
+   * which it is registered, if any.
+   *
+   * @param  waitForCompletion  Indicates whether to wait for the selector
+   *                            thread to complete the deregistration.
+   *
+   * @return  {@code true} if this connection reader was registered with a
+   *          shared selector thread, or {@code false} if not.
+   */
+  private boolean deregisterFromSharedSelector(final boolean waitForCompletion)
+  {
+    final SharedSelectorReaderThread t = selectorThread.getAndSet(null);
+    final SocketChannel channel = selectorChannel;
+    if ((t == null) || (channel == null))
+    {
+      return false;
+    }
+
+    t.deregister(channel, waitForCompletion);
+    return true;
+  }
+
+
+
+  /**
+   * Switches this connection reader from using a shared selector thread to
+   * using a dedicated reader thread.  This is necessary for processing that
+   * requires blocking access to the underlying socket (like StartTLS
+   * negotiation or applying a SASL quality of protection).  It will have no
+   * effect if the connection reader is already using a dedicated thread.
+   *
+   * @throws  IOException  If a problem occurs while placing the channel back
+   *                       in blocking mode.
+   */
+  private synchronized void switchToDedicatedReaderThread()
+          throws IOException
+  {
+    if (selectorTLSChannel != null)
+    {
+      // The data read from the channel must be decrypted with an SSL engine,
+      // which cannot be done through the socket's blocking input stream.
+      throw new IOException(
+           ERR_CONNREADER_CANNOT_SWITCH_FROM_SSL_ENGINE.get());
+    }
+
+    if (! deregisterFromSharedSelector(true))
+    {
+      return;
+    }
+
+    final SocketChannel channel = selectorChannel;
+    final ByteBuffer buffer = selectorReadBuffer;
+    selectorChannel = null;
+    selectorReadBuffer = null;
+
+    channel.configureBlocking(true);
+
+    // If we had already read a partial message, then make sure that the data
+    // that was already read will be available to the reader thread.
+    InputStream is = socket.getInputStream();
+    if ((buffer != null) && (buffer.position() > 0))
+    {
+      buffer.flip();
+      final byte[] bufferedBytes = new byte[buffer.remaining()];
+      buffer.get(bufferedBytes);
+      is = new SequenceInputStream(new ByteArrayInputStream(bufferedBytes), is);
+    }
+
+    inputStream = new BufferedInputStream(is, DEFAULT_INPUT_BUFFER_SIZE);
+    asn1StreamReader = new ASN1StreamReader(inputStream,
+         connection.getConnectionOptions().getMaxMessageSize());
+
+    startDedicatedReaderThread();
+  }
+
+
+
+  /**
+   * Starts a dedicated thread to read data for this connection.  If the
+   * connection is configured to use virtual threads and the JVM supports them,
+   * then this connection reader will be run in a virtual thread.  Otherwise,
+   * this thread will be started.
+   */
+  void startDedicatedReaderThread()
+  {
+    Thread t = null;
+    if (connection.getConnectionOptions().useVirtualThreads())
+    {
+      t = VirtualThreadSupport.newVirtualThread(getName(), this);
     }
+
+    if (t == null)
+    {
+      t = this;
+    }
+
+    thread = t;
+    t.start();
   }
 
 
@@ -648,8 +1349,13 @@ final class LDAPConnectionReader
     {
       try
       {
+        final LDAPConnectionOptions options =
+             connection.getConnectionOptions();
         final LDAPResponse response = LDAPMessage.readLDAPResponseFrom(
-             asn1StreamReader, false, connection.getCachedSchema());
+             asn1StreamReader, false, connection.getCachedSchema(),
+             options.useLazySearchEntryDecoding(),
+             options.getLargeAttributeValueSink(),
+             options.getLargeAttributeValueThresholdBytes());
         if (response == null)
         {
           return new ConnectionClosedResponse(ResultCode.SERVER_DOWN, null);
@@ -900,6 +1606,13 @@ final class LDAPConnectionReader
    * @param  sslSocketFactory  The SSL socket factory to use to convert an
    *                           insecure connection into a secure connection.  It
    *                           must not be {@code null}.
+   * @param  sslContext        The SSL context from which the SSL socket factory
+   *                           was obtained, if available.  If it is
+   *                           non-{@code null} and this connection reader is
+   *                           using a shared selector thread, then it will be
+   *                           used to create an SSL engine so that TLS
+   *                           negotiation can be performed without switching
+   *                           to a dedicated reader thread.
    *
    * @return  The TLS-enabled output stream that may be used to send encrypted
    *          requests to the server.
@@ -908,12 +1621,17 @@ final class LDAPConnectionReader
    *                         connection to use TLS security.
    */
   @NotNull()
-  OutputStream doStartTLS(@NotNull final SSLSocketFactory sslSocketFactory)
+  OutputStream doStartTLS(@NotNull final SSLSocketFactory sslSocketFactory,
+                          @Nullable final SSLContext sslContext)
        throws LDAPException
   {
     final LDAPConnectionOptions connectionOptions =
          connection.getConnectionOptions();
-    if (connection.synchronousMode())
+    if ((sslContext != null) && usingSharedSelectorReader())
+    {
+      return doStartTLSWithSSLEngine(sslContext);
+    }
+    else if (connection.synchronousMode())
     {
       try
       {
@@ -928,12 +1646,15 @@ final class LDAPConnectionReader
         }
 
         final SSLSocket sslSocket;
+        final long handshakeStartTime = System.currentTimeMillis();
         synchronized (sslSocketFactory)
         {
           sslSocket = (SSLSocket) sslSocketFactory.createSocket(socket,
                connection.getConnectedAddress(), socket.getPort(), true);
           sslSocket.startHandshake();
         }
+        connection.getConnectionStatistics().recordTLSHandshake(
+             sslSocket.getSession(), handshakeStartTime);
         connectionOptions.getSSLSocketVerifier().verifySSLSocket(
              connection.getConnectedAddress(), socket.getPort(), sslSocket);
         inputStream =
@@ -964,6 +1685,19 @@ final class LDAPConnectionReader
     }
     else
     {
+      try
+      {
+        switchToDedicatedReaderThread();
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+        throw new LDAPException(ResultCode.LOCAL_ERROR,
+             ERR_CONNREADER_STARTTLS_FAILED.get(
+                  StaticUtils.getExceptionMessage(e)),
+             e);
+      }
+
       this.sslSocketFactory = sslSocketFactory;
 
       // Since the connection isn't operating in synchronous mode, we'll want to
@@ -1021,15 +1755,189 @@ final class LDAPConnectionReader
 
 
 
+  /**
+   * Converts this clear-text connection to one that uses TLS, using an SSL
+   * engine so that the connection can continue to be read by the shared
+   * selector thread.  The selector thread will process handshake data as it is
+   * received from the server, while any delegated tasks will be run in the
+   * current thread.
+   *
+   * @param  sslContext  The SSL context to use to create the SSL engine.
+   *
+   * @return  The TLS-enabled output stream that may be used to send encrypted
+   *          requests to the server.
+   *
+   * @throws  LDAPException  If a problem occurs while attempting to convert the
+   *                         connection to use TLS security.
+   */
+  @NotNull()
+  private OutputStream doStartTLSWithSSLEngine(
+                            @NotNull final SSLContext sslContext)
+          throws LDAPException
+  {
+    final LDAPConnectionOptions connectionOptions =
+         connection.getConnectionOptions();
+    final String host = connection.getConnectedAddress();
+    final int port = socket.getPort();
+    final int timeoutMillis = connectionOptions.getConnectTimeoutMillis();
+
+    try
+    {
+      final SocketChannel channel = selectorChannel;
+      if (channel == null)
+      {
+        throw new LDAPException(ResultCode.SERVER_DOWN,
+             ERR_CONN_NOT_ESTABLISHED.get());
+      }
+
+      final SSLEngine engine = sslContext.createSSLEngine(host, port);
+      engine.setUseClientMode(true);
+
+      // The TLS layer must be in place before the handshake begins so that the
+      // selector thread will be able to process the server's response.
+      final long handshakeStartTime = System.currentTimeMillis();
+      final SSLEngineChannel tls = new SSLEngineChannel(channel, engine,
+           connectionOptions.getResponseTimeoutMillis());
+      selectorTLSChannel = tls;
+      tls.beginHandshake();
+
+      final long stopWaitingTime;
+      if (timeoutMillis > 0)
+      {
+        stopWaitingTime = handshakeStartTime + timeoutMillis;
+      }
+      else
+      {
+        stopWaitingTime = Long.MAX_VALUE;
+      }
+
+      while (! tls.isHandshakeComplete())
+      {
+        final Exception handshakeFailure = tls.getHandshakeFailure();
+        if (handshakeFailure != null)
+        {
+          throw handshakeFailure;
+        }
+        else if (closeRequested || (selectorThread.get() == null))
+        {
+          throw new LDAPException(ResultCode.SERVER_DOWN,
+               ERR_CONNREADER_STARTTLS_FAILED_NO_EXCEPTION.get());
+        }
+
+        final long remainingMillis =
+             stopWaitingTime - System.currentTimeMillis();
+        if (remainingMillis <= 0L)
+        {
+          throw new LDAPException(ResultCode.TIMEOUT,
+               ERR_CONNREADER_STARTTLS_TIMEOUT.get(timeoutMillis));
+        }
+
+        final Runnable task =
+             tls.pollDelegatedTask(Math.min(remainingMillis, 100L));
+        if (task != null)
+        {
+          task.run();
+          try
+          {
+            tls.processHandshake();
+          }
+          catch (final Exception e)
+          {
+            tls.handshakeFailed(e);
+            throw e;
+          }
+        }
+      }
+
+      connection.getConnectionStatistics().recordTLSHandshake(
+           engine.getSession(), handshakeStartTime);
+      connectionOptions.getSSLSocketVerifier().verifySSLEngine(host, port,
+           engine);
+
+      // If the final handshake message was read along with some application
+      // data, then the selector thread won't be told to read it, so we need
+      // to ask it to process that data.
+      final SharedSelectorReaderThread t = selectorThread.get();
+      if ((t != null) && tls.hasBufferedData())
+      {
+        t.resumeReading(this, channel);
+      }
+
+      return tls.getOutputStream();
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      if (e instanceof InterruptedException)
+      {
+        Thread.currentThread().interrupt();
+      }
+
+      connection.setDisconnectInfo(DisconnectType.SECURITY_PROBLEM,
+           StaticUtils.getExceptionMessage(e), e);
+      if (! closeRequested)
+      {
+        closeRequested = true;
+        closeInternal(true, StaticUtils.getExceptionMessage(e));
+      }
+
+      throw new LDAPException(ResultCode.SERVER_DOWN,
+           ERR_CONNREADER_STARTTLS_FAILED.get(
+                StaticUtils.getExceptionMessage(e)),
+           e);
+    }
+  }
+
+
+
+  /**
+   * Retrieves the TLS session that was negotiated with an SSL engine for this
+   * connection, if any.
+   *
+   * @return  The TLS session that was negotiated with an SSL engine for this
+   *          connection, or {@code null} if TLS has not been negotiated with an
+   *          SSL engine.
+   */
+  @Nullable()
+  SSLSession getSSLEngineSession()
+  {
+    final SSLEngineChannel tls = selectorTLSChannel;
+    if ((tls == null) || (! tls.isHandshakeComplete()))
+    {
+      return null;
+    }
+
+    return tls.getSession();
+  }
+
+
+
   /**
    * Updates this connection reader to ensure that any subsequent data read
    * over this connection will be decoded using the provided SASL client.
    *
    * @param  saslClient  The SASL client to use to decode data read over this
    *                     connection.
+   *
+   * @throws  LDAPException  If a problem occurs while preparing to apply the
+   *                         SASL quality of protection.
    */
   void applySASLQoP(@NotNull final SaslClient saslClient)
+       throws LDAPException
   {
+    try
+    {
+      switchToDedicatedReaderThread();
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      throw new LDAPException(ResultCode.LOCAL_ERROR,
+           ERR_CONNREADER_SASL_QOP_FAILED.get(
+                StaticUtils.getExceptionMessage(e)),
+           e);
+    }
+
     InternalASN1Helper.setSASLClient(asn1StreamReader, saslClient);
   }
 
@@ -1125,6 +2033,8 @@ final class LDAPConnectionReader
    private void closeInternal(final boolean notifyConnection,
                               @Nullable final String message)
    {
+     deregisterFromSharedSelector(false);
+
      final InputStream is = inputStream;
      inputStream = null;
 
@@ -1145,10 +2055,8 @@ final class LDAPConnectionReader
        connection.setClosed();
      }
 
-     final Iterator<Integer> iterator = acceptorMap.keySet().iterator();
-     while (iterator.hasNext())
+     for (final int messageID : acceptorMap.getMessageIDs())
      {
-       final int messageID = iterator.next();
        final ResponseAcceptor acceptor = acceptorMap.get(messageID);
 
        try
@@ -1179,7 +2087,7 @@ final class LDAPConnectionReader
          Debug.debugException(e);
        }
 
-       iterator.remove();
+       acceptorMap.remove(messageID);
      }
    }
 
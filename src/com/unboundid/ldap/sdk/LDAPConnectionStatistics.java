@@ -40,9 +40,11 @@ package com.unboundid.ldap.sdk;
 import java.io.Serializable;
 import java.text.DecimalFormat;
 import java.util.concurrent.atomic.AtomicLong;
+import javax.net.ssl.SSLSession;
 
 import com.unboundid.util.Mutable;
 import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
 import com.unboundid.util.ThreadSafety;
 import com.unboundid.util.ThreadSafetyLevel;
 
@@ -59,12 +61,18 @@ import com.unboundid.util.ThreadSafetyLevel;
  * <UL>
  *   <LI>The number of attempts made to establish the connection.</LI>
  *   <LI>The number of times the connection has been closed.</LI>
+ *   <LI>The number of TLS handshakes performed on the connection that resumed
+ *       a previously-established session, and the number that required a
+ *       full handshake.</LI>
  *   <LI>The number of requests of each type that have been sent over the
  *       connection.</LI>
  *   <LI>The number of responses of each type that have been received over the
  *       connection.</LI>
  *   <LI>The average response time (in milliseconds or nanoseconds) for each
  *       type of operation processed on the connection.</LI>
+ *   <LI>A histogram of the response times for each type of operation
+ *       processed on the connection, from which percentiles may be
+ *       obtained.</LI>
  * </UL>
  */
 @Mutable()
@@ -104,6 +112,13 @@ public final class LDAPConnectionStatistics
   // server.
   @NotNull private final AtomicLong numConnects;
 
+  // The number of full TLS handshakes performed on the associated connection.
+  @NotNull private final AtomicLong numFullTLSHandshakes;
+
+  // The number of TLS handshakes performed on the associated connection that
+  // resumed a previously-established session.
+  @NotNull private final AtomicLong numResumedTLSHandshakes;
+
   // The number of delete requests sent over the associated connection.
   @NotNull private final AtomicLong numDeleteRequests;
 
@@ -150,6 +165,16 @@ public final class LDAPConnectionStatistics
   // The number of unbind requests sent over the associated connection.
   @NotNull private final AtomicLong numUnbindRequests;
 
+  // The response time histograms for each type of operation, indexed by the
+  // ordinal of the operation type.
+  @NotNull private final LatencyHistogram[] responseTimeHistograms;
+
+  // The statistics for the connection pool with which the associated
+  // connection is associated, if any.  Response times will also be recorded
+  // in the pool's histograms.
+  @Nullable private transient volatile LDAPConnectionPoolStatistics
+       poolStatistics;
+
   // The total length of time spent waiting for add responses.
   @NotNull private final AtomicLong totalAddResponseTime;
 
@@ -193,6 +218,8 @@ public final class LDAPConnectionStatistics
     numDeleteRequests           = new AtomicLong(0L);
     numDeleteResponses          = new AtomicLong(0L);
     numDisconnects              = new AtomicLong(0L);
+    numFullTLSHandshakes        = new AtomicLong(0L);
+    numResumedTLSHandshakes     = new AtomicLong(0L);
     numExtendedRequests         = new AtomicLong(0L);
     numExtendedResponses        = new AtomicLong(0L);
     numModifyRequests           = new AtomicLong(0L);
@@ -212,6 +239,8 @@ public final class LDAPConnectionStatistics
     totalModifyResponseTime     = new AtomicLong(0L);
     totalModifyDNResponseTime   = new AtomicLong(0L);
     totalSearchResponseTime     = new AtomicLong(0L);
+    responseTimeHistograms      =
+         LatencyHistogram.createOperationHistograms(false);
   }
 
 
@@ -232,6 +261,8 @@ public final class LDAPConnectionStatistics
     numDeleteRequests.set(0L);
     numDeleteResponses.set(0L);
     numDisconnects.set(0L);
+    numFullTLSHandshakes.set(0L);
+    numResumedTLSHandshakes.set(0L);
     numExtendedRequests.set(0L);
     numExtendedResponses.set(0L);
     numModifyRequests.set(0L);
@@ -251,6 +282,7 @@ public final class LDAPConnectionStatistics
     totalModifyResponseTime.set(0L);
     totalModifyDNResponseTime.set(0L);
     totalSearchResponseTime.set(0L);
+    LatencyHistogram.resetOperations(responseTimeHistograms);
   }
 
 
@@ -306,6 +338,81 @@ public final class LDAPConnectionStatistics
 
 
 
+  /**
+   * Retrieves the number of full TLS handshakes that have been performed on
+   * the associated connection, either when establishing the connection or when
+   * processing a StartTLS request.
+   *
+   * @return  The number of full TLS handshakes that have been performed on the
+   *          associated connection.
+   */
+  public long getNumFullTLSHandshakes()
+  {
+    return numFullTLSHandshakes.get();
+  }
+
+
+
+  /**
+   * Retrieves the number of TLS handshakes performed on the associated
+   * connection that resumed a previously-established session rather than
+   * performing a full handshake.  A session can only be resumed if the socket
+   * factory used to establish the connection shares its session cache with the
+   * one used to establish an earlier connection to the same server (for
+   * example, because the same socket factory was used for both connections).
+   *
+   * @return  The number of TLS handshakes performed on the associated
+   *          connection that resumed a previously-established session.
+   */
+  public long getNumResumedTLSHandshakes()
+  {
+    return numResumedTLSHandshakes.get();
+  }
+
+
+
+  /**
+   * Updates the TLS handshake counts to reflect a handshake that has been
+   * completed on the associated connection.
+   *
+   * @param  session             The session negotiated by the handshake.
+   * @param  handshakeStartTime  The time, in milliseconds since the epoch, that
+   *                             the handshake process was started.  A session
+   *                             that was created before this time must have
+   *                             been resumed.
+   */
+  void recordTLSHandshake(@NotNull final SSLSession session,
+                          final long handshakeStartTime)
+  {
+    // JSSE doesn't directly indicate whether a session was resumed, but a
+    // resumed session will retain the creation time of the session from which
+    // it was resumed, while a full handshake will create a new session.
+    final boolean resumed = (session.getCreationTime() < handshakeStartTime);
+    if (resumed)
+    {
+      numResumedTLSHandshakes.incrementAndGet();
+    }
+    else
+    {
+      numFullTLSHandshakes.incrementAndGet();
+    }
+
+    final LDAPConnectionPoolStatistics ps = poolStatistics;
+    if (ps != null)
+    {
+      if (resumed)
+      {
+        ps.recordTLSHandshakes(0L, 1L);
+      }
+      else
+      {
+        ps.recordTLSHandshakes(1L, 0L);
+      }
+    }
+  }
+
+
+
   /**
    * Retrieves the number of abandon requests sent on the associated connection.
    *
@@ -376,6 +483,7 @@ public final class LDAPConnectionStatistics
     if (responseTime > 0)
     {
       totalAddResponseTime.addAndGet(responseTime);
+      recordResponseTime(OperationType.ADD, responseTime);
     }
   }
 
@@ -506,6 +614,7 @@ public final class LDAPConnectionStatistics
     if (responseTime > 0)
     {
       totalBindResponseTime.addAndGet(responseTime);
+      recordResponseTime(OperationType.BIND, responseTime);
     }
   }
 
@@ -639,6 +748,7 @@ public final class LDAPConnectionStatistics
     if (responseTime > 0)
     {
       totalCompareResponseTime.addAndGet(responseTime);
+      recordResponseTime(OperationType.COMPARE, responseTime);
     }
   }
 
@@ -772,6 +882,7 @@ public final class LDAPConnectionStatistics
     if (responseTime > 0)
     {
       totalDeleteResponseTime.addAndGet(responseTime);
+      recordResponseTime(OperationType.DELETE, responseTime);
     }
   }
 
@@ -909,6 +1020,7 @@ public final class LDAPConnectionStatistics
     if (responseTime > 0)
     {
       totalExtendedResponseTime.addAndGet(responseTime);
+      recordResponseTime(OperationType.EXTENDED, responseTime);
     }
   }
 
@@ -1042,6 +1154,7 @@ public final class LDAPConnectionStatistics
     if (responseTime > 0)
     {
       totalModifyResponseTime.addAndGet(responseTime);
+      recordResponseTime(OperationType.MODIFY, responseTime);
     }
   }
 
@@ -1180,6 +1293,7 @@ public final class LDAPConnectionStatistics
     if (responseTime > 0)
     {
       totalModifyDNResponseTime.addAndGet(responseTime);
+      recordResponseTime(OperationType.MODIFY_DN, responseTime);
     }
   }
 
@@ -1353,6 +1467,7 @@ public final class LDAPConnectionStatistics
     if (responseTime > 0)
     {
       totalSearchResponseTime.addAndGet(responseTime);
+      recordResponseTime(OperationType.SEARCH, responseTime);
     }
   }
 
@@ -1461,6 +1576,104 @@ public final class LDAPConnectionStatistics
 
 
 
+  /**
+   * Retrieves a snapshot of the histogram of response times for operations of
+   * the specified type processed on the associated connection.
+   *
+   * @param  operationType  The type of operation for which to retrieve the
+   *                        response time histogram.  It must not be
+   *                        {@code null}.
+   *
+   * @return  A snapshot of the histogram of response times for operations of
+   *          the specified type.  It will be empty for operation types that
+   *          do not have responses (abandon and unbind).
+   */
+  @NotNull()
+  public LatencyHistogramSnapshot getResponseTimeHistogram(
+              @NotNull final OperationType operationType)
+  {
+    return getResponseTimeHistogram(operationType, false);
+  }
+
+
+
+  /**
+   * Retrieves a snapshot of the histogram of response times for operations of
+   * the specified type processed on the associated connection, optionally
+   * resetting the histogram so that the next snapshot will only reflect
+   * operations completed after this one was taken.
+   *
+   * @param  operationType  The type of operation for which to retrieve the
+   *                        response time histogram.  It must not be
+   *                        {@code null}.
+   * @param  reset          Indicates whether to reset the histogram after
+   *                        taking the snapshot.  Other counters maintained in
+   *                        this object will not be affected.
+   *
+   * @return  A snapshot of the histogram of response times for operations of
+   *          the specified type.  It will be empty for operation types that
+   *          do not have responses (abandon and unbind).
+   */
+  @NotNull()
+  public LatencyHistogramSnapshot getResponseTimeHistogram(
+              @NotNull final OperationType operationType, final boolean reset)
+  {
+    return LatencyHistogram.getOperationSnapshot(responseTimeHistograms,
+         operationType, reset);
+  }
+
+
+
+  /**
+   * Records the provided response time in the histogram for the specified
+   * type of operation, and in the histogram maintained for the associated
+   * connection pool, if any.
+   *
+   * @param  operationType  The type of operation for which to record the
+   *                        response time.
+   * @param  responseTime   The response time to record, in nanoseconds.
+   */
+  private void recordResponseTime(@NotNull final OperationType operationType,
+                                  final long responseTime)
+  {
+    LatencyHistogram.recordOperation(responseTimeHistograms, operationType,
+         responseTime);
+
+    final LDAPConnectionPoolStatistics ps = poolStatistics;
+    if (ps != null)
+    {
+      ps.recordResponseTime(operationType, responseTime);
+    }
+  }
+
+
+
+  /**
+   * Specifies the statistics for the connection pool with which the associated
+   * connection is associated, so that response times recorded for the
+   * connection will also be reflected in the pool's histograms.
+   *
+   * @param  poolStatistics  The statistics for the connection pool with which
+   *                         the associated connection is associated, or
+   *                         {@code null} if it is not part of a pool.
+   */
+  void setPoolStatistics(
+            @Nullable final LDAPConnectionPoolStatistics poolStatistics)
+  {
+    // Any TLS handshakes performed before the connection was added to the pool
+    // (most notably, the handshake performed when establishing it) should also
+    // be reflected in the pool's statistics.
+    if ((poolStatistics != null) && (poolStatistics != this.poolStatistics))
+    {
+      poolStatistics.recordTLSHandshakes(numFullTLSHandshakes.get(),
+           numResumedTLSHandshakes.get());
+    }
+
+    this.poolStatistics = poolStatistics;
+  }
+
+
+
   /**
    * Retrieves a string representation of this LDAP connection statistics
    * object.
@@ -1489,6 +1702,8 @@ public final class LDAPConnectionStatistics
   {
     final long connects          = numConnects.get();
     final long disconnects       = numDisconnects.get();
+    final long fullHandshakes    = numFullTLSHandshakes.get();
+    final long resumedHandshakes = numResumedTLSHandshakes.get();
     final long abandonRequests   = numAbandonRequests.get();
     final long addRequests       = numAddRequests.get();
     final long addResponses      = numAddResponses.get();
@@ -1524,6 +1739,10 @@ public final class LDAPConnectionStatistics
     buffer.append(connects);
     buffer.append(", numDisconnects=");
     buffer.append(disconnects);
+    buffer.append(", numFullTLSHandshakes=");
+    buffer.append(fullHandshakes);
+    buffer.append(", numResumedTLSHandshakes=");
+    buffer.append(resumedHandshakes);
 
     buffer.append(", numAbandonRequests=");
     buffer.append(abandonRequests);
@@ -0,0 +1,1636 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+import com.unboundid.util.Validator;
+
+import static com.unboundid.ldap.sdk.LDAPMessages.*;
+
+
+
+/**
+ * This class provides an implementation of an LDAP connection pool that allows
+ * a large number of threads to share a small, fixed number of connections.
+ * Rather than giving each thread exclusive use of a connection for the
+ * duration of an operation, this pool relies upon the ability of an
+ * {@link LDAPConnection} to have multiple operations in progress at the same
+ * time (which is made possible by the same mechanism used for asynchronous
+ * operations), so that a single connection may be used to process operations
+ * for several threads concurrently.  Each thread still uses the familiar
+ * synchronous API provided by the {@link LDAPInterface} and
+ * {@link FullLDAPInterface} methods, and each of those methods will block until
+ * the operation has completed.
+ * <BR><BR>
+ * Each time a connection is needed, this pool selects the connection that
+ * currently has the fewest outstanding operations.  The number of operations
+ * that may be outstanding on any single connection at the same time is capped,
+ * and if every connection is already at that limit, then the requesting thread
+ * will wait for an operation to complete (up to a configurable maximum length
+ * of time) before the request is processed.
+ * <BR><BR>
+ * Because connections are shared, there are a few important differences
+ * between this pool and the {@link LDAPConnectionPool} class:
+ * <UL>
+ *   <LI>A thread that checks out a connection with the {@link #getConnection}
+ *       method must not perform any operation that alters the state of that
+ *       connection (for example, a bind, a StartTLS extended operation, or a
+ *       change to the connection options), since that would affect all of the
+ *       other operations being processed on the same connection.  Connections
+ *       used by this pool must not be configured to operate in synchronous
+ *       mode.</LI>
+ *   <LI>Bind operations requested through the {@link #bind(BindRequest)}
+ *       method are processed on a newly established connection that is not
+ *       shared with any other thread, and that connection will be closed as
+ *       soon as the bind has completed.  This makes it possible to use the
+ *       pool to verify a user's credentials without altering the identity
+ *       used for any other operation.</LI>
+ *   <LI>A connection that is found to be defunct is replaced immediately.  If
+ *       the connection itself has failed (for example, because it is no longer
+ *       established), then it will be closed immediately, and any other
+ *       operations that were in progress on it may also fail.  Those failures
+ *       will be handled in accordance with the retry settings for this pool.
+ *       If the problem only affects a single operation (for example, a
+ *       client-side timeout or a server that is too busy to process the
+ *       request), then the connection will not be used for any new
+ *       operations, but it will not be closed until the other operations in
+ *       progress on it have completed.</LI>
+ * </UL>
+ * <BR>
+ * This pool will establish all of its connections when it is created, and it
+ * will use a background thread to periodically check their health and replace
+ * any that are found to be invalid.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+public final class LDAPMultiplexingConnectionPool
+       extends AbstractConnectionPool
+{
+  /**
+   * The default health check interval for this connection pool, which is set to
+   * 60000 milliseconds (60 seconds).
+   */
+  private static final long DEFAULT_HEALTH_CHECK_INTERVAL = 60_000L;
+
+
+
+  /**
+   * The default maximum length of time in milliseconds to wait for a connection
+   * to have capacity for another operation, which is set to 60000 milliseconds
+   * (60 seconds).
+   */
+  private static final long DEFAULT_MAX_WAIT_TIME_MILLIS = 60_000L;
+
+
+
+  // The types of operations that should be retried if they fail in a manner
+  // that may be the result of a connection that is no longer valid.
+  @NotNull private final AtomicReference<Set<OperationType>>
+       retryOperationTypes;
+
+  // The number of threads currently waiting for capacity to become available.
+  @NotNull private final AtomicInteger numWaiters;
+
+  // The slots holding the connections that are currently in use by this pool.
+  // An element will be null if its connection could not be replaced.
+  @NotNull private final AtomicReferenceArray<Slot> slots;
+
+  // Indicates whether this connection pool has been closed.
+  private volatile boolean closed;
+
+  // The bind request to use to perform authentication whenever a new connection
+  // is established.
+  @Nullable private final BindRequest bindRequest;
+
+  // A map that may be used to find the slot for a connection.  It will include
+  // retired slots until all of their outstanding operations have completed.
+  @NotNull private final ConcurrentHashMap<LDAPConnection,Slot>
+       slotsByConnection;
+
+  // The maximum number of operations that may be outstanding on a connection.
+  private final int maxOutstandingOperationsPerConnection;
+
+  // The health check implementation that should be used for this connection
+  // pool.
+  @NotNull private volatile LDAPConnectionPoolHealthCheck healthCheck;
+
+  // The thread that will be used to perform periodic background health checks
+  // for this connection pool.
+  @NotNull private final LDAPConnectionPoolHealthCheckThread healthCheckThread;
+
+  // The statistics for this connection pool.
+  @NotNull private final LDAPConnectionPoolStatistics poolStatistics;
+
+  // The length of time in milliseconds between periodic health checks against
+  // the connections in this pool.
+  private volatile long healthCheckInterval;
+
+  // The maximum length of time in milliseconds to wait for capacity to become
+  // available.
+  private volatile long maxWaitTime;
+
+  // The lock used to serialize the creation of connections to fill empty
+  // slots.
+  @NotNull private final Object slotCreationLock;
+
+  // The lock used to wait for capacity to become available.
+  @NotNull private final Object waitLock;
+
+  // The server set to use for establishing connections for use by this pool.
+  @NotNull private final ServerSet serverSet;
+
+  // The user-friendly name assigned to this connection pool.
+  @Nullable private volatile String connectionPoolName;
+
+
+
+  /**
+   * Creates a new LDAP multiplexing connection pool which will use the provided
+   * server set and bind request for creating new connections.
+   *
+   * @param  serverSet
+   *              The server set to use to create the connections.  It is
+   *              acceptable for the server set to create the connections
+   *              across multiple servers.  It must not be {@code null}.
+   * @param  bindRequest
+   *              The bind request to use to authenticate the connections that
+   *              are established.  It may be {@code null} if no authentication
+   *              should be performed on the connections.  Note that if the
+   *              server set is configured to perform authentication, this
+   *              bind request should be the same bind request used by the
+   *              server set.
+   * @param  numConnections
+   *              The number of connections to maintain in the pool.  It must
+   *              be greater than zero.
+   * @param  maxOutstandingOperationsPerConnection
+   *              The maximum number of operations that may be in progress on
+   *              any single connection at the same time.  It must be greater
+   *              than zero.
+   *
+   * @throws  LDAPException  If a problem occurs while attempting to establish
+   *                         any of the connections.  If this is thrown, then
+   *                         all connections associated with the pool will be
+   *                         closed.
+   */
+  public LDAPMultiplexingConnectionPool(@NotNull final ServerSet serverSet,
+              @Nullable final BindRequest bindRequest,
+              final int numConnections,
+              final int maxOutstandingOperationsPerConnection)
+         throws LDAPException
+  {
+    this(serverSet, bindRequest, numConnections,
+         maxOutstandingOperationsPerConnection, null);
+  }
+
+
+
+  /**
+   * Creates a new LDAP multiplexing connection pool which will use the provided
+   * server set and bind request for creating new connections.
+   *
+   * @param  serverSet
+   *              The server set to use to create the connections.  It is
+   *              acceptable for the server set to create the connections
+   *              across multiple servers.  It must not be {@code null}.
+   * @param  bindRequest
+   *              The bind request to use to authenticate the connections that
+   *              are established.  It may be {@code null} if no authentication
+   *              should be performed on the connections.  Note that if the
+   *              server set is configured to perform authentication, this
+   *              bind request should be the same bind request used by the
+   *              server set.
+   * @param  numConnections
+   *              The number of connections to maintain in the pool.  It must
+   *              be greater than zero.
+   * @param  maxOutstandingOperationsPerConnection
+   *              The maximum number of operations that may be in progress on
+   *              any single connection at the same time.  It must be greater
+   *              than zero.
+   * @param  healthCheck
+   *              The health check that should be used for connections in this
+   *              pool.  It may be {@code null} if the default health check
+   *              should be used.
+   *
+   * @throws  LDAPException  If a problem occurs while attempting to establish
+   *                         any of the connections.  If this is thrown, then
+   *                         all connections associated with the pool will be
+   *                         closed.
+   */
+  public LDAPMultiplexingConnectionPool(@NotNull final ServerSet serverSet,
+              @Nullable final BindRequest bindRequest,
+              final int numConnections,
+              final int maxOutstandingOperationsPerConnection,
+              @Nullable final LDAPConnectionPoolHealthCheck healthCheck)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(serverSet);
+    Validator.ensureTrue((numConnections > 0),
+         "LDAPMultiplexingConnectionPool.numConnections must be greater " +
+              "than zero.");
+    Validator.ensureTrue((maxOutstandingOperationsPerConnection > 0),
+         "LDAPMultiplexingConnectionPool." +
+              "maxOutstandingOperationsPerConnection must be greater than " +
+              "zero.");
+
+    if (serverSet.includesAuthentication())
+    {
+      Validator.ensureTrue((bindRequest != null),
+           "LDAPMultiplexingConnectionPool.bindRequest must not be null if " +
+                "serverSet.includesAuthentication returns true");
+    }
+
+    this.serverSet = serverSet;
+    this.bindRequest = bindRequest;
+    this.maxOutstandingOperationsPerConnection =
+         maxOutstandingOperationsPerConnection;
+
+    if (healthCheck == null)
+    {
+      this.healthCheck = new LDAPConnectionPoolHealthCheck();
+    }
+    else
+    {
+      this.healthCheck = healthCheck;
+    }
+
+    healthCheckInterval = DEFAULT_HEALTH_CHECK_INTERVAL;
+    maxWaitTime         = DEFAULT_MAX_WAIT_TIME_MILLIS;
+    poolStatistics      = new LDAPConnectionPoolStatistics(this);
+    connectionPoolName  = null;
+    retryOperationTypes = new AtomicReference<>(
+         Collections.unmodifiableSet(EnumSet.noneOf(OperationType.class)));
+    numWaiters          = new AtomicInteger(0);
+    slotCreationLock    = new Object();
+    waitLock            = new Object();
+    closed              = false;
+    slots               = new AtomicReferenceArray<>(numConnections);
+    slotsByConnection   = new ConcurrentHashMap<>(
+         StaticUtils.computeMapCapacity(numConnections));
+
+    for (int i=0; i < numConnections; i++)
+    {
+      try
+      {
+        installSlot(i, createConnection());
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+
+        for (int j=0; j < i; j++)
+        {
+          final Slot s = slots.getAndSet(j, null);
+          if (s != null)
+          {
+            slotsByConnection.remove(s.connection);
+            s.connection.setDisconnectInfo(
+                 DisconnectType.POOL_CREATION_FAILURE, null, le);
+            s.connection.terminate(null);
+          }
+        }
+
+        throw le;
+      }
+    }
+
+    healthCheckThread = new LDAPConnectionPoolHealthCheckThread(this);
+    healthCheckThread.start();
+  }
+
+
+
+  /**
+   * Creates a new LDAP connection for use in this pool.
+   *
+   * @return  A new connection created for use in this pool.
+   *
+   * @throws  LDAPException  If a problem occurs while attempting to establish
+   *                         the connection.  If a connection had been created,
+   *                         it will be closed.
+   */
+  @SuppressWarnings("deprecation")
+  @NotNull()
+  private LDAPConnection createConnection()
+          throws LDAPException
+  {
+    final LDAPConnection c;
+    try
+    {
+      c = serverSet.getConnection(healthCheck);
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      poolStatistics.incrementNumFailedConnectionAttempts();
+      Debug.debugConnectionPool(Level.SEVERE, this, null,
+           "Unable to create a new pooled connection", le);
+      throw le;
+    }
+    c.setConnectionPool(this);
+
+
+    // Auto-reconnect must be disabled for pooled connections, so turn it off
+    // if the associated connection options have it enabled for some reason.
+    LDAPConnectionOptions opts = c.getConnectionOptions();
+    if (opts.autoReconnect())
+    {
+      opts = opts.duplicate();
+      opts.setAutoReconnect(false);
+      c.setConnectionOptions(opts);
+    }
+
+
+    // Synchronous mode only allows one operation at a time on a connection, so
+    // it cannot be used by this pool.
+    if (c.synchronousMode())
+    {
+      final LDAPException le = new LDAPException(ResultCode.PARAM_ERROR,
+           ERR_MULTIPLEXING_POOL_SYNCHRONOUS_MODE.get());
+      poolStatistics.incrementNumFailedConnectionAttempts();
+      Debug.debugConnectionPool(Level.SEVERE, this, c,
+           "Rejecting a new pooled connection that uses synchronous mode",
+           le);
+      c.setDisconnectInfo(DisconnectType.POOL_CREATION_FAILURE, null, le);
+      c.setClosed();
+      throw le;
+    }
+
+
+    // Authenticate the connection if appropriate.
+    if ((bindRequest != null) && (! serverSet.includesAuthentication()))
+    {
+      BindResult bindResult;
+      try
+      {
+        bindResult = c.bind(bindRequest.duplicate());
+      }
+      catch (final LDAPBindException lbe)
+      {
+        Debug.debugException(lbe);
+        bindResult = lbe.getBindResult();
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+        bindResult = new BindResult(le);
+      }
+
+      try
+      {
+        healthCheck.ensureConnectionValidAfterAuthentication(c, bindResult);
+        if (bindResult.getResultCode() != ResultCode.SUCCESS)
+        {
+          throw new LDAPBindException(bindResult);
+        }
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+
+        try
+        {
+          poolStatistics.incrementNumFailedConnectionAttempts();
+          Debug.debugConnectionPool(Level.SEVERE, this, c,
+               "Failed to authenticate a new pooled connection", le);
+          c.setDisconnectInfo(DisconnectType.BIND_FAILED, null, le);
+          c.setClosed();
+        }
+        catch (final Exception e)
+        {
+          Debug.debugException(e);
+        }
+
+        throw le;
+      }
+    }
+
+
+    // Finish setting up the connection.
+    c.setConnectionPoolName(connectionPoolName);
+    poolStatistics.incrementNumSuccessfulConnectionAttempts();
+    Debug.debugConnectionPool(Level.INFO, this, c,
+         "Successfully created a new pooled connection", null);
+
+    return c;
+  }
+
+
+
+  /**
+   * Installs the provided connection in the specified slot and notifies any
+   * threads waiting for capacity.
+   *
+   * @param  index       The index of the slot in which to install the
+   *                     connection.
+   * @param  connection  The connection to install.
+   *
+   * @return  The slot that was created for the connection.
+   */
+  @NotNull()
+  private Slot installSlot(final int index,
+                           @NotNull final LDAPConnection connection)
+  {
+    final Slot slot = new Slot(index, connection);
+    slotsByConnection.put(connection, slot);
+    slots.set(index, slot);
+    signalWaiters(true);
+    return slot;
+  }
+
+
+
+  /**
+   * Attempts to create a new connection to fill the first empty slot, if
+   * there is one.
+   *
+   * @return  {@code true} if a new connection was created, or {@code false} if
+   *          there were no empty slots.
+   *
+   * @throws  LDAPException  If a problem occurs while trying to create the
+   *                         connection.
+   */
+  private boolean fillEmptySlot()
+          throws LDAPException
+  {
+    synchronized (slotCreationLock)
+    {
+      for (int i=0; i < slots.length(); i++)
+      {
+        if ((slots.get(i) == null) && (! closed))
+        {
+          installSlot(i, createConnection());
+          return true;
+        }
+      }
+    }
+
+    return false;
+  }
+
+
+
+  /**
+   * Indicates whether there are any empty slots in this pool.
+   *
+   * @return  {@code true} if there is at least one empty slot, or
+   *          {@code false} if not.
+   */
+  private boolean hasEmptySlot()
+  {
+    for (int i=0; i < slots.length(); i++)
+    {
+      if (slots.get(i) == null)
+      {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+
+
+  /**
+   * Attempts to reserve capacity for an operation on the connection with the
+   * fewest outstanding operations.
+   *
+   * @return  The slot for which capacity was reserved, or {@code null} if no
+   *          connection has available capacity.
+   */
+  @Nullable()
+  private Slot reserveSlot()
+  {
+    while (true)
+    {
+      Slot best = null;
+      int bestCount = maxOutstandingOperationsPerConnection;
+      for (int i=0; i < slots.length(); i++)
+      {
+        final Slot s = slots.get(i);
+        if (s != null)
+        {
+          final int count = s.outstanding.get();
+          if (count < bestCount)
+          {
+            best = s;
+            bestCount = count;
+          }
+        }
+      }
+
+      if (best == null)
+      {
+        return null;
+      }
+
+      if (best.outstanding.compareAndSet(bestCount, bestCount+1))
+      {
+        if (! best.retired.get())
+        {
+          return best;
+        }
+
+        // The slot was retired after we selected it, so give back the
+        // reservation and try again.
+        releaseSlot(best);
+      }
+    }
+  }
+
+
+
+  /**
+   * Releases a reservation previously obtained for the provided slot.  If the
+   * slot has been retired and there are no more outstanding operations, then
+   * its connection will be closed.
+   *
+   * @param  slot  The slot to release.
+   */
+  private void releaseSlot(@NotNull final Slot slot)
+  {
+    final int count = slot.outstanding.decrementAndGet();
+    if (slot.retired.get())
+    {
+      if (count <= 0)
+      {
+        slotsByConnection.remove(slot.connection, slot);
+        slot.closeConnection();
+      }
+    }
+    else
+    {
+      signalWaiters(false);
+    }
+  }
+
+
+
+  /**
+   * Retires the provided slot so that it will not be used for any new
+   * operations, and attempts to fill it with a new connection.
+   *
+   * @param  slot            The slot to retire.
+   * @param  defunct         Indicates whether the slot is being retired
+   *                         because its connection has failed.  If so, then
+   *                         the connection will be closed immediately.
+   *                         Otherwise, it will be closed when its last
+   *                         outstanding operation completes.
+   * @param  disconnectType  The disconnect type to use when closing the
+   *                         connection.
+   * @param  unbind          Indicates whether to send an unbind request when
+   *                         closing the connection.
+   * @param  replace         Indicates whether to try to create a new
+   *                         connection to take the place of the retired one.
+   */
+  private void retireSlot(@NotNull final Slot slot, final boolean defunct,
+                          @NotNull final DisconnectType disconnectType,
+                          final boolean unbind, final boolean replace)
+  {
+    if (! slot.retire(disconnectType, unbind))
+    {
+      return;
+    }
+
+    slots.compareAndSet(slot.index, slot, null);
+    if (defunct || (slot.outstanding.get() <= 0))
+    {
+      slot.closeConnection();
+      if (slot.outstanding.get() <= 0)
+      {
+        slotsByConnection.remove(slot.connection, slot);
+      }
+    }
+
+    if (replace && (! closed))
+    {
+      try
+      {
+        fillEmptySlot();
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+        Debug.debugConnectionPool(Level.WARNING, this, null,
+             "Unable to replace a retired connection", le);
+      }
+    }
+  }
+
+
+
+  /**
+   * Indicates whether the provided connection has failed in a way that
+   * prevents any of its outstanding operations from completing, so that it
+   * should be closed immediately rather than after those operations complete.
+   * Other problems, like a client-side timeout or a server that is too busy to
+   * process an operation, only affect a single operation.
+   *
+   * @param  connection  The connection to examine.
+   * @param  exception   The exception caught while processing an operation on
+   *                     the connection, if available.
+   *
+   * @return  {@code true} if the connection has failed, or {@code false} if
+   *          its outstanding operations may still complete.
+   */
+  private static boolean connectionFailed(
+                              @NotNull final LDAPConnection connection,
+                              @Nullable final LDAPException exception)
+  {
+    if (! connection.isConnected())
+    {
+      return true;
+    }
+
+    return ((exception != null) &&
+         (exception.getResultCode() == ResultCode.SERVER_DOWN));
+  }
+
+
+
+  /**
+   * Notifies threads that are waiting for capacity to become available.
+   *
+   * @param  all  Indicates whether to notify all waiting threads rather than
+   *              just one of them.
+   */
+  private void signalWaiters(final boolean all)
+  {
+    if (numWaiters.get() > 0)
+    {
+      synchronized (waitLock)
+      {
+        if (all)
+        {
+          waitLock.notifyAll();
+        }
+        else
+        {
+          waitLock.notify();
+        }
+      }
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void close()
+  {
+    close(true, 1);
+  }
+
+
+
+  /**
+   * {@inheritDoc}  Any connection with operations still in progress will be
+   * closed when the last of those operations has completed.
+   */
+  @Override()
+  public void close(final boolean unbind, final int numThreads)
+  {
+    try
+    {
+      final boolean healthCheckThreadAlreadySignaled = closed;
+      closed = true;
+      healthCheckThread.stopRunning(! healthCheckThreadAlreadySignaled);
+
+      try
+      {
+        serverSet.shutDown();
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+      }
+
+      final ArrayList<LDAPConnection> idleConnections =
+           new ArrayList<>(slots.length());
+      for (int i=0; i < slots.length(); i++)
+      {
+        final Slot s = slots.getAndSet(i, null);
+        if ((s == null) ||
+             (! s.retire(DisconnectType.POOL_CLOSED, unbind)))
+        {
+          continue;
+        }
+
+        poolStatistics.incrementNumConnectionsClosedUnneeded();
+        if ((s.outstanding.get() <= 0) && s.claimClose())
+        {
+          slotsByConnection.remove(s.connection, s);
+          idleConnections.add(s.connection);
+        }
+      }
+
+      if ((numThreads > 1) && (idleConnections.size() > 1))
+      {
+        final ParallelPoolCloser closer =
+             new ParallelPoolCloser(idleConnections, unbind, numThreads);
+        closer.closeConnections();
+      }
+      else
+      {
+        for (final LDAPConnection conn : idleConnections)
+        {
+          Debug.debugConnectionPool(Level.INFO, this, conn,
+               "Closed a connection as part of closing the connection pool",
+               null);
+          conn.setDisconnectInfo(DisconnectType.POOL_CLOSED, null, null);
+          if (unbind)
+          {
+            conn.terminate(null);
+          }
+          else
+          {
+            conn.setClosed();
+          }
+        }
+      }
+
+      synchronized (waitLock)
+      {
+        waitLock.notifyAll();
+      }
+    }
+    finally
+    {
+      Debug.debugConnectionPool(Level.INFO, this, null,
+           "Closed the connection pool", null);
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public boolean isClosed()
+  {
+    return closed;
+  }
+
+
+
+  /**
+   * {@inheritDoc}  The connection that is returned may be used concurrently by
+   * other threads, so the caller must not perform any operation that would
+   * alter its state (for example, a bind or StartTLS operation).
+   */
+  @Override()
+  @NotNull()
+  public LDAPConnection getConnection()
+         throws LDAPException
+  {
+    if (closed)
+    {
+      poolStatistics.incrementNumFailedCheckouts();
+      Debug.debugConnectionPool(Level.SEVERE, this, null,
+           "Failed to get a connection to a closed connection pool", null);
+      throw new LDAPException(ResultCode.CONNECT_ERROR, ERR_POOL_CLOSED.get());
+    }
+
+    Slot slot = reserveSlot();
+    if (slot != null)
+    {
+      poolStatistics.incrementNumSuccessfulCheckoutsWithoutWaiting();
+      Debug.debugConnectionPool(Level.INFO, this, slot.connection,
+           "Checked out a shared pooled connection", null);
+      return slot.connection;
+    }
+
+
+    // If there are any empty slots, then try to fill one of them before
+    // waiting for capacity on an existing connection.
+    if (hasEmptySlot())
+    {
+      try
+      {
+        if (fillEmptySlot())
+        {
+          slot = reserveSlot();
+          if (slot != null)
+          {
+            poolStatistics.incrementNumSuccessfulCheckoutsNewConnection();
+            Debug.debugConnectionPool(Level.INFO, this, slot.connection,
+                 "Checked out a newly created pooled connection", null);
+            return slot.connection;
+          }
+        }
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+        if (getNumActiveConnections() == 0)
+        {
+          poolStatistics.incrementNumFailedCheckouts();
+          Debug.debugConnectionPool(Level.SEVERE, this, null,
+               "Unable to check out a connection because an error " +
+                    "occurred while establishing the connection",
+               le);
+          throw le;
+        }
+      }
+    }
+
+    final long waitTime = maxWaitTime;
+    if (waitTime <= 0L)
+    {
+      poolStatistics.incrementNumFailedCheckouts();
+      Debug.debugConnectionPool(Level.SEVERE, this, null,
+           "Failed to get a connection because all connections are at " +
+                "their maximum number of outstanding operations",
+           null);
+      throw new LDAPException(ResultCode.CONNECT_ERROR,
+           ERR_MULTIPLEXING_POOL_NO_CAPACITY.get(
+                maxOutstandingOperationsPerConnection, waitTime));
+    }
+
+    final long stopWaitTime = System.currentTimeMillis() + waitTime;
+    numWaiters.incrementAndGet();
+    try
+    {
+      synchronized (waitLock)
+      {
+        while (true)
+        {
+          if (closed)
+          {
+            poolStatistics.incrementNumFailedCheckouts();
+            throw new LDAPException(ResultCode.CONNECT_ERROR,
+                 ERR_POOL_CLOSED.get());
+          }
+
+          slot = reserveSlot();
+          if (slot != null)
+          {
+            poolStatistics.incrementNumSuccessfulCheckoutsAfterWaiting();
+            Debug.debugConnectionPool(Level.INFO, this, slot.connection,
+                 "Checked out a shared pooled connection after waiting",
+                 null);
+            return slot.connection;
+          }
+
+          final long remainingWaitTime =
+               stopWaitTime - System.currentTimeMillis();
+          if (remainingWaitTime <= 0L)
+          {
+            poolStatistics.incrementNumFailedCheckouts();
+            Debug.debugConnectionPool(Level.SEVERE, this, null,
+                 "Failed to get a connection because all connections " +
+                      "remained at their maximum number of outstanding " +
+                      "operations for the maximum wait time",
+                 null);
+            throw new LDAPException(ResultCode.CONNECT_ERROR,
+                 ERR_MULTIPLEXING_POOL_NO_CAPACITY.get(
+                      maxOutstandingOperationsPerConnection, waitTime));
+          }
+
+          waitLock.wait(remainingWaitTime);
+        }
+      }
+    }
+    catch (final InterruptedException ie)
+    {
+      Debug.debugException(ie);
+      Thread.currentThread().interrupt();
+      poolStatistics.incrementNumFailedCheckouts();
+      throw new LDAPException(ResultCode.LOCAL_ERROR,
+           ERR_POOL_CHECKOUT_INTERRUPTED.get(), ie);
+    }
+    finally
+    {
+      numWaiters.decrementAndGet();
+    }
+  }
+
+
+
+  /**
+   * Retrieves a newly established connection that will not be shared with any
+   * other thread, so that it may be used to process a bind operation without
+   * altering the authorization identity used for other operations.  The
+   * connection will be closed when it is released back to the pool.
+   *
+   * @return  A newly established connection that may be used to process a bind
+   *          operation.
+   *
+   * @throws  LDAPException  If the pool is closed or if the connection cannot
+   *                         be established.
+   */
+  @Override()
+  @NotNull()
+  LDAPConnection getConnectionForBind()
+         throws LDAPException
+  {
+    if (closed)
+    {
+      poolStatistics.incrementNumFailedCheckouts();
+      throw new LDAPException(ResultCode.CONNECT_ERROR, ERR_POOL_CLOSED.get());
+    }
+
+    final LDAPConnection conn;
+    try
+    {
+      conn = createConnection();
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      poolStatistics.incrementNumFailedCheckouts();
+      throw le;
+    }
+
+    poolStatistics.incrementNumSuccessfulCheckoutsNewConnection();
+    Debug.debugConnectionPool(Level.INFO, this, conn,
+         "Checked out a dedicated connection for a bind operation", null);
+    return conn;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void releaseConnection(@NotNull final LDAPConnection connection)
+  {
+    if (connection == null)
+    {
+      return;
+    }
+
+    final Slot slot = slotsByConnection.get(connection);
+    if (slot == null)
+    {
+      // This must be a dedicated connection that was used for a bind
+      // operation, so it should be closed.
+      poolStatistics.incrementNumConnectionsClosedUnneeded();
+      Debug.debugConnectionPool(Level.INFO, this, connection,
+           "Closing a released dedicated connection", null);
+      connection.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_UNNEEDED,
+           null, null);
+      connection.terminate(null);
+      return;
+    }
+
+    try
+    {
+      healthCheck.ensureConnectionValidForRelease(connection);
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      releaseDefunctConnection(connection);
+      return;
+    }
+
+    poolStatistics.incrementNumReleasedValid();
+    Debug.debugConnectionPool(Level.INFO, this, connection,
+         "Released a shared connection back to the pool", null);
+    releaseSlot(slot);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void releaseDefunctConnection(@NotNull final LDAPConnection connection)
+  {
+    releaseDefunctConnection(connection, null);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  void releaseDefunctConnectionAfterException(
+            @NotNull final LDAPConnection connection,
+            @NotNull final LDAPException exception)
+  {
+    releaseDefunctConnection(connection, exception);
+  }
+
+
+
+  /**
+   * Releases the provided connection as defunct.  Because the connection may
+   * be shared by other operations, it will only be closed immediately if it is
+   * no longer established or the provided exception indicates that it has
+   * failed.  Otherwise, it will not be used for any new operations, and it will
+   * be closed once all of its outstanding operations have completed.
+   *
+   * @param  connection  The defunct connection being released.
+   * @param  exception   The exception caught while processing an operation on
+   *                     the connection, if available.
+   */
+  private void releaseDefunctConnection(
+                    @Nullable final LDAPConnection connection,
+                    @Nullable final LDAPException exception)
+  {
+    if (connection == null)
+    {
+      return;
+    }
+
+    poolStatistics.incrementNumConnectionsClosedDefunct();
+    Debug.debugConnectionPool(Level.WARNING, this, connection,
+         "Releasing a defunct connection", null);
+
+    final Slot slot = slotsByConnection.get(connection);
+    if (slot == null)
+    {
+      connection.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_DEFUNCT,
+           null, null);
+      connection.setClosed();
+      return;
+    }
+
+    retireSlot(slot, connectionFailed(connection, exception),
+         DisconnectType.POOLED_CONNECTION_DEFUNCT, false, true);
+    releaseSlot(slot);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPConnection replaceDefunctConnection(
+                             @NotNull final LDAPConnection connection)
+         throws LDAPException
+  {
+    poolStatistics.incrementNumConnectionsClosedDefunct();
+    Debug.debugConnectionPool(Level.WARNING, this, connection,
+         "Releasing a defunct connection that is to be replaced", null);
+
+    final Slot slot = slotsByConnection.get(connection);
+    if (slot == null)
+    {
+      // This is a dedicated connection that was used for a bind operation, so
+      // replace it with another dedicated connection.
+      connection.setDisconnectInfo(DisconnectType.POOLED_CONNECTION_DEFUNCT,
+           null, null);
+      connection.setClosed();
+
+      if (closed)
+      {
+        throw new LDAPException(ResultCode.CONNECT_ERROR,
+             ERR_POOL_CLOSED.get());
+      }
+
+      return createConnection();
+    }
+
+    retireSlot(slot, connectionFailed(connection, null),
+         DisconnectType.POOLED_CONNECTION_DEFUNCT, false, true);
+    releaseSlot(slot);
+
+    if (closed)
+    {
+      throw new LDAPException(ResultCode.CONNECT_ERROR, ERR_POOL_CLOSED.get());
+    }
+
+    return getConnection();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public Set<OperationType> getOperationTypesToRetryDueToInvalidConnections()
+  {
+    return retryOperationTypes.get();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void setRetryFailedOperationsDueToInvalidConnections(
+                   @Nullable final Set<OperationType> operationTypes)
+  {
+    if ((operationTypes == null) || operationTypes.isEmpty())
+    {
+      retryOperationTypes.set(
+           Collections.unmodifiableSet(EnumSet.noneOf(OperationType.class)));
+    }
+    else
+    {
+      final EnumSet<OperationType> s = EnumSet.noneOf(OperationType.class);
+      s.addAll(operationTypes);
+      retryOperationTypes.set(Collections.unmodifiableSet(s));
+    }
+  }
+
+
+
+  /**
+   * Retrieves the server set that is used to establish new connections for use
+   * in this connection pool.
+   *
+   * @return  The server set that is used to establish new connections for use
+   *          in this connection pool.
+   */
+  @NotNull()
+  public ServerSet getServerSet()
+  {
+    return serverSet;
+  }
+
+
+
+  /**
+   * Retrieves the maximum number of operations that may be in progress on any
+   * single connection in this pool at the same time.
+   *
+   * @return  The maximum number of operations that may be in progress on any
+   *          single connection in this pool at the same time.
+   */
+  public int getMaxOutstandingOperationsPerConnection()
+  {
+    return maxOutstandingOperationsPerConnection;
+  }
+
+
+
+  /**
+   * Retrieves the total number of operations currently in progress on
+   * connections in this pool.
+   *
+   * @return  The total number of operations currently in progress on
+   *          connections in this pool.
+   */
+  public int getNumOutstandingOperations()
+  {
+    int total = 0;
+    for (int i=0; i < slots.length(); i++)
+    {
+      final Slot s = slots.get(i);
+      if (s != null)
+      {
+        total += Math.max(0, s.outstanding.get());
+      }
+    }
+
+    return total;
+  }
+
+
+
+  /**
+   * Retrieves the number of connections that are currently established and
+   * available for use in this pool, regardless of how many operations are in
+   * progress on them.
+   *
+   * @return  The number of connections that are currently established and
+   *          available for use in this pool.
+   */
+  public int getNumActiveConnections()
+  {
+    int count = 0;
+    for (int i=0; i < slots.length(); i++)
+    {
+      if (slots.get(i) != null)
+      {
+        count++;
+      }
+    }
+
+    return count;
+  }
+
+
+
+  /**
+   * Retrieves the maximum length of time in milliseconds that a thread should
+   * wait for a connection to have capacity for another operation if every
+   * connection is already at its maximum number of outstanding operations.
+   *
+   * @return  The maximum length of time in milliseconds that a thread should
+   *          wait for capacity to become available, or zero if it should fail
+   *          immediately.
+   */
+  public long getMaxWaitTimeMillis()
+  {
+    return maxWaitTime;
+  }
+
+
+
+  /**
+   * Specifies the maximum length of time in milliseconds that a thread should
+   * wait for a connection to have capacity for another operation if every
+   * connection is already at its maximum number of outstanding operations.
+   *
+   * @param  maxWaitTime  The maximum length of time in milliseconds that a
+   *                      thread should wait for capacity to become available.
+   *                      A value less than or equal to zero indicates that the
+   *                      attempt should fail immediately.
+   */
+  public void setMaxWaitTimeMillis(final long maxWaitTime)
+  {
+    if (maxWaitTime > 0L)
+    {
+      this.maxWaitTime = maxWaitTime;
+    }
+    else
+    {
+      this.maxWaitTime = 0L;
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public String getConnectionPoolName()
+  {
+    return connectionPoolName;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void setConnectionPoolName(@Nullable final String connectionPoolName)
+  {
+    this.connectionPoolName = connectionPoolName;
+    for (int i=0; i < slots.length(); i++)
+    {
+      final Slot s = slots.get(i);
+      if (s != null)
+      {
+        s.connection.setConnectionPoolName(connectionPoolName);
+      }
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPConnectionPoolHealthCheck getHealthCheck()
+  {
+    return healthCheck;
+  }
+
+
+
+  /**
+   * Sets the health check implementation for this connection pool.
+   *
+   * @param  healthCheck  The health check implementation for this connection
+   *                      pool.  It must not be {@code null}.
+   */
+  public void setHealthCheck(
+                   @NotNull final LDAPConnectionPoolHealthCheck healthCheck)
+  {
+    Validator.ensureNotNull(healthCheck);
+    this.healthCheck = healthCheck;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public long getHealthCheckIntervalMillis()
+  {
+    return healthCheckInterval;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void setHealthCheckIntervalMillis(final long healthCheckInterval)
+  {
+    Validator.ensureTrue(healthCheckInterval > 0L,
+         "LDAPMultiplexingConnectionPool.healthCheckInterval must be " +
+              "greater than 0.");
+    this.healthCheckInterval = healthCheckInterval;
+    healthCheckThread.wakeUp();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  protected void doHealthCheck()
+  {
+    for (int i=0; i < slots.length(); i++)
+    {
+      if (closed)
+      {
+        return;
+      }
+
+      final Slot s = slots.get(i);
+      if (s == null)
+      {
+        continue;
+      }
+
+      try
+      {
+        if (! s.connection.isConnected())
+        {
+          throw new LDAPException(ResultCode.SERVER_DOWN,
+               ERR_POOL_HEALTH_CHECK_CONN_CLOSED.get());
+        }
+
+        healthCheck.ensureConnectionValidForContinuedUse(s.connection);
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+        poolStatistics.incrementNumConnectionsClosedDefunct();
+        Debug.debugConnectionPool(Level.WARNING, this, s.connection,
+             "Replacing a connection that failed a periodic health check", e);
+        retireSlot(s, connectionFailed(s.connection, null),
+             DisconnectType.POOLED_CONNECTION_DEFUNCT, false, true);
+      }
+    }
+
+
+    // Try to fill any slots whose connections could not previously be
+    // replaced.
+    try
+    {
+      while ((! closed) && fillEmptySlot())
+      {
+        // No action is required.
+      }
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}  For this pool, the value returned will be the number of
+   * connections that currently have fewer than the maximum number of
+   * outstanding operations.
+   */
+  @Override()
+  public int getCurrentAvailableConnections()
+  {
+    int count = 0;
+    for (int i=0; i < slots.length(); i++)
+    {
+      final Slot s = slots.get(i);
+      if ((s != null) &&
+           (s.outstanding.get() < maxOutstandingOperationsPerConnection))
+      {
+        count++;
+      }
+    }
+
+    return count;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public int getMaximumAvailableConnections()
+  {
+    return slots.length();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPConnectionPoolStatistics getConnectionPoolStatistics()
+  {
+    return poolStatistics;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void toString(@NotNull final StringBuilder buffer)
+  {
+    buffer.append("LDAPMultiplexingConnectionPool(");
+
+    final String name = connectionPoolName;
+    if (name != null)
+    {
+      buffer.append("name='");
+      buffer.append(name);
+      buffer.append("', ");
+    }
+
+    buffer.append("serverSet=");
+    serverSet.toString(buffer);
+    buffer.append(", numConnections=");
+    buffer.append(slots.length());
+    buffer.append(", maxOutstandingOperationsPerConnection=");
+    buffer.append(maxOutstandingOperationsPerConnection);
+    buffer.append(')');
+  }
+
+
+
+  /**
+   * This class holds a connection used by the pool, along with the number of
+   * operations currently outstanding on it.
+   */
+  private static final class Slot
+  {
+    // The number of operations currently outstanding on the connection.
+    @NotNull private final AtomicInteger outstanding;
+
+    // Indicates whether the connection has been closed.
+    @NotNull private final AtomicBoolean connectionClosed;
+
+    // Indicates whether this slot has been retired so that it will not be used
+    // for any new operations.
+    @NotNull private final AtomicBoolean retired;
+
+    // Indicates whether to send an unbind request when closing the connection.
+    private volatile boolean unbindOnClose;
+
+    // The disconnect type to use when closing the connection.
+    @NotNull private volatile DisconnectType disconnectType;
+
+    // The index of this slot in the pool.
+    private final int index;
+
+    // The connection held in this slot.
+    @NotNull private final LDAPConnection connection;
+
+
+
+    /**
+     * Creates a new slot with the provided information.
+     *
+     * @param  index       The index of this slot in the pool.
+     * @param  connection  The connection held in this slot.
+     */
+    private Slot(final int index, @NotNull final LDAPConnection connection)
+    {
+      this.index = index;
+      this.connection = connection;
+
+      outstanding = new AtomicInteger(0);
+      connectionClosed = new AtomicBoolean(false);
+      retired = new AtomicBoolean(false);
+      unbindOnClose = false;
+      disconnectType = DisconnectType.POOLED_CONNECTION_UNNEEDED;
+    }
+
+
+
+    /**
+     * Marks this slot as retired.
+     *
+     * @param  disconnectType  The disconnect type to use when closing the
+     *                         connection.
+     * @param  unbind          Indicates whether to send an unbind request when
+     *                         closing the connection.
+     *
+     * @return  {@code true} if this slot was retired by this call, or
+     *          {@code false} if it had already been retired.
+     */
+    private boolean retire(@NotNull final DisconnectType disconnectType,
+                           final boolean unbind)
+    {
+      if (! retired.compareAndSet(false, true))
+      {
+        return false;
+      }
+
+      this.disconnectType = disconnectType;
+      unbindOnClose = unbind;
+      return true;
+    }
+
+
+
+    /**
+     * Claims responsibility for closing the connection.
+     *
+     * @return  {@code true} if the caller should close the connection, or
+     *          {@code false} if it has already been closed by another thread.
+     */
+    private boolean claimClose()
+    {
+      return connectionClosed.compareAndSet(false, true);
+    }
+
+
+
+    /**
+     * Closes the connection held in this slot, if it has not already been
+     * closed.
+     */
+    private void closeConnection()
+    {
+      if (! claimClose())
+      {
+        return;
+      }
+
+      connection.setDisconnectInfo(disconnectType, null, null);
+      if (unbindOnClose)
+      {
+        connection.terminate(null);
+      }
+      else
+      {
+        connection.setClosed();
+      }
+    }
+  }
+}
@@ -41,6 +41,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import com.unboundid.ldap.protocol.ProtocolOp;
 import com.unboundid.util.Extensible;
 import com.unboundid.util.InternalUseOnly;
 import com.unboundid.util.NotNull;
@@ -110,6 +111,10 @@ public abstract class LDAPRequest
   // The referral connector to use when following referrals.
   @Nullable private ReferralConnector referralConnector;
 
+  // The pre-encoded protocol op that should be sent in place of an encoded
+  // representation of this request, if it was created from a request template.
+  @Nullable private ProtocolOp preparedProtocolOp;
+
 
 
   /**
@@ -133,6 +138,7 @@ public abstract class LDAPRequest
     responseTimeout = -1L;
     intermediateResponseListener = null;
     referralConnector = null;
+    preparedProtocolOp = null;
   }
 
 
@@ -228,6 +234,103 @@ public abstract class LDAPRequest
 
 
 
+  /**
+   * Specifies a pre-encoded protocol op that should be sent in place of an
+   * encoded representation of this request.  This must only be called by
+   * {@link LDAPRequestTemplate}, or when duplicating a request that was created
+   * from a template.
+   *
+   * @param  preparedProtocolOp  The pre-encoded protocol op to send for this
+   *                             request.  It may be {@code null} if the
+   *                             request was not created from a template.
+   */
+  final void setPreparedProtocolOp(
+                  @Nullable final ProtocolOp preparedProtocolOp)
+  {
+    this.preparedProtocolOp = preparedProtocolOp;
+  }
+
+
+
+  /**
+   * Discards any pre-encoded protocol op associated with this request, so that
+   * it will be sent using an encoded representation of its current properties.
+   * This must be called by any method that alters a property of the request
+   * that is included in its encoded protocol op, since the pre-encoded protocol
+   * op would otherwise no longer reflect the request that should be sent.
+   */
+  final void clearPreparedProtocolOp()
+  {
+    preparedProtocolOp = null;
+  }
+
+
+
+  /**
+   * Retrieves the pre-encoded protocol op that will be sent in place of an
+   * encoded representation of this request, if it was created from a request
+   * template.  If this is non-{@code null}, then the values used in place of
+   * the template placeholders will not be reflected in the properties of this
+   * request.
+   *
+   * @return  The pre-encoded protocol op that will be sent in place of an
+   *          encoded representation of this request, or {@code null} if this
+   *          request was not created from a request template.
+   */
+  @Nullable()
+  final ProtocolOp getPreparedProtocolOp()
+  {
+    return preparedProtocolOp;
+  }
+
+
+
+  /**
+   * Appends the values used in place of the template placeholders to the
+   * provided buffer, if this request was created from a request template.
+   * This should be called by the {@code toString} method of each request type
+   * that may be created from a template.
+   *
+   * @param  buffer  The buffer to which the information should be appended.
+   */
+  final void appendTemplateValuesTo(@NotNull final StringBuilder buffer)
+  {
+    if (preparedProtocolOp instanceof PreparedProtocolOp)
+    {
+      buffer.append(", templateValues=");
+      ((PreparedProtocolOp) preparedProtocolOp).appendValuesTo(buffer);
+    }
+  }
+
+
+
+  /**
+   * Retrieves the protocol op that should be included in the LDAP message used
+   * to send this request to the server.
+   *
+   * @param  protocolOp  The protocol op that should be used if this request was
+   *                     not created from a request template.  This will
+   *                     generally be the request itself.
+   *
+   * @return  The pre-encoded protocol op created from a request template, or
+   *          the provided protocol op if this request was not created from a
+   *          template.
+   */
+  @NotNull()
+  final ProtocolOp getProtocolOpToSend(@NotNull final ProtocolOp protocolOp)
+  {
+    if (preparedProtocolOp == null)
+    {
+      return protocolOp;
+    }
+    else
+    {
+      return preparedProtocolOp;
+    }
+  }
+
+
+
   /**
    * {@inheritDoc}
    */
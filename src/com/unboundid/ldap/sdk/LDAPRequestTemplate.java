@@ -0,0 +1,1035 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import com.unboundid.asn1.ASN1Buffer;
+import com.unboundid.asn1.ASN1BufferSequence;
+import com.unboundid.asn1.ASN1Element;
+import com.unboundid.asn1.ASN1Exception;
+import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.asn1.ASN1Sequence;
+import com.unboundid.ldap.protocol.ProtocolOp;
+import com.unboundid.util.Debug;
+import com.unboundid.util.NotMutable;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+import com.unboundid.util.Validator;
+
+import static com.unboundid.ldap.sdk.LDAPMessages.*;
+
+
+
+/**
+ * This class provides a mechanism for sending many requests that differ only
+ * in a few string values (for example, the base DN and an assertion value in
+ * a search filter) without needing to encode each of them from scratch.  The
+ * template is created from a request in which each of the variable values
+ * contains a unique placeholder string.  That request is encoded once, and the
+ * encoded representation is broken into pre-encoded segments that do not
+ * change and slots that will be filled in with the values to use for each
+ * request.  Requests created with the {@link #createRequest} method will only
+ * need to have those values (and the lengths of the elements that contain
+ * them) written when they are sent, along with the message ID and any
+ * controls.
+ * <BR><BR>
+ * A placeholder may make up an entire value, or it may appear within a larger
+ * value (in which case the text before and after the placeholder will be
+ * preserved in each request).  Placeholders are matched against the encoded
+ * representation of the request, so they should be chosen so that they will
+ * not be altered by the encoding process and will not appear anywhere else in
+ * the request.
+ * <BR><BR>
+ * The values provided when creating a request will be used exactly as given,
+ * without any of the parsing or validation that would be performed if they
+ * were provided to the request directly.  For example, a value that will be
+ * used as an assertion value in a search filter will not be unescaped, and a
+ * value that contains filter syntax will not alter the structure of the
+ * filter.  Callers are responsible for ensuring that the values they provide
+ * are appropriate for the places where they will be used.
+ * <BR><BR>
+ * Request templates may be created for add, compare, delete, modify, modify
+ * DN, search, and simple bind requests.
+ * <BR>
+ * <H2>Example</H2>
+ * The following example demonstrates the process for creating a search request
+ * template in which both the base DN and the assertion value for an equality
+ * filter may vary, and then using it to process a search:
+ * <PRE>
+ * SearchRequest templateRequest = new SearchRequest("{baseDN}",
+ *      SearchScope.BASE, "(uid={uid})", "cn", "mail");
+ * LDAPRequestTemplate template =
+ *      new LDAPRequestTemplate(templateRequest, "{baseDN}", "{uid}");
+ *
+ * SearchRequest searchRequest = (SearchRequest) template.createRequest(
+ *      "uid=jdoe,ou=People,dc=example,dc=com", "jdoe");
+ * SearchResult searchResult = connection.search(searchRequest);
+ * </PRE>
+ */
+@NotMutable()
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+public final class LDAPRequestTemplate
+       implements Serializable
+{
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = 2781264085123931357L;
+
+
+
+  // The template for the encoded protocol op.
+  @NotNull private final TemplateElement protocolOp;
+
+  // The request from which this template was created.
+  @NotNull private final LDAPRequest request;
+
+  // Indicates which of the placeholders are part of a bind password, so that
+  // their values should not be included in string representations.
+  @NotNull private final boolean[] sensitivePlaceholders;
+
+  // The placeholders that mark the slots in this template.
+  @NotNull private final List<String> placeholders;
+
+
+
+  /**
+   * Creates a new request template from the provided request.
+   *
+   * @param  request       The request from which to create the template.  It
+   *                       must not be {@code null}, and it must be an add,
+   *                       compare, delete, modify, modify DN, search, or simple
+   *                       bind request.  The request will be duplicated, so
+   *                       subsequent changes to it will not affect the
+   *                       template.
+   * @param  placeholders  The placeholder strings that mark the values in the
+   *                       provided request that will be replaced in each
+   *                       request created from this template.  Each
+   *                       placeholder must be non-empty and distinct from the
+   *                       other placeholders, and each must appear at least
+   *                       once in the encoded representation of the request.
+   *                       If a placeholder appears more than once, then each
+   *                       occurrence will be replaced with the same value.
+   *
+   * @throws  LDAPException  If a template cannot be created from the provided
+   *                         request with the given placeholders.
+   */
+  public LDAPRequestTemplate(@NotNull final LDAPRequest request,
+                             @NotNull final String... placeholders)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(request, placeholders);
+
+    if (! ((request instanceof AddRequest) ||
+           (request instanceof CompareRequest) ||
+           (request instanceof DeleteRequest) ||
+           (request instanceof ModifyRequest) ||
+           (request instanceof ModifyDNRequest) ||
+           (request instanceof SearchRequest) ||
+           (request instanceof SimpleBindRequest)))
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR,
+           ERR_REQUEST_TEMPLATE_UNSUPPORTED_REQUEST_TYPE.get(
+                request.getOperationType().name()));
+    }
+
+    final HashSet<String> uniquePlaceholders =
+         new HashSet<>(StaticUtils.computeMapCapacity(placeholders.length));
+    final byte[][] placeholderBytes = new byte[placeholders.length][];
+    for (int i=0; i < placeholders.length; i++)
+    {
+      final String placeholder = placeholders[i];
+      if ((placeholder == null) || placeholder.isEmpty() ||
+           (! uniquePlaceholders.add(placeholder)))
+      {
+        throw new LDAPException(ResultCode.PARAM_ERROR,
+             ERR_REQUEST_TEMPLATE_INVALID_PLACEHOLDER.get(
+                  String.valueOf(placeholder)));
+      }
+
+      placeholderBytes[i] = StaticUtils.getBytes(placeholder);
+    }
+
+    this.request = request.duplicate();
+    this.placeholders =
+         Collections.unmodifiableList(Arrays.asList(placeholders.clone()));
+
+    sensitivePlaceholders = new boolean[placeholders.length];
+    if (request instanceof SimpleBindRequest)
+    {
+      final ASN1OctetString password =
+           ((SimpleBindRequest) request).getPassword();
+      if (password != null)
+      {
+        final String passwordString = password.stringValue();
+        for (int i=0; i < placeholders.length; i++)
+        {
+          sensitivePlaceholders[i] = passwordString.contains(placeholders[i]);
+        }
+      }
+    }
+
+    final ASN1Element encodedProtocolOp;
+    try
+    {
+      final ASN1Buffer buffer = new ASN1Buffer();
+      ((ProtocolOp) this.request).writeTo(buffer);
+      encodedProtocolOp = ASN1Element.decode(buffer.toByteArray());
+    }
+    catch (final ASN1Exception e)
+    {
+      Debug.debugException(e);
+      throw new LDAPException(ResultCode.ENCODING_ERROR,
+           ERR_REQUEST_TEMPLATE_CANNOT_ENCODE.get(
+                StaticUtils.getExceptionMessage(e)),
+           e);
+    }
+
+    final boolean[] placeholderFound = new boolean[placeholders.length];
+    protocolOp = createTemplateElement(encodedProtocolOp, placeholderBytes,
+         placeholderFound);
+
+    for (int i=0; i < placeholders.length; i++)
+    {
+      if (! placeholderFound[i])
+      {
+        throw new LDAPException(ResultCode.PARAM_ERROR,
+             ERR_REQUEST_TEMPLATE_PLACEHOLDER_NOT_FOUND.get(placeholders[i]));
+      }
+    }
+  }
+
+
+
+  /**
+   * Creates a template element for the provided encoded element.
+   *
+   * @param  element           The encoded element for which to create the
+   *                           template element.
+   * @param  placeholderBytes  The UTF-8 representations of the placeholders.
+   * @param  placeholderFound  An array that will be updated to indicate which
+   *                           placeholders were found.
+   *
+   * @return  The template element that was created.
+   */
+  @NotNull()
+  private static TemplateElement createTemplateElement(
+                      @NotNull final ASN1Element element,
+                      @NotNull final byte[][] placeholderBytes,
+                      @NotNull final boolean[] placeholderFound)
+  {
+    if ((element.getType() & 0x20) != 0)
+    {
+      // This is a constructed element, so its value should be made up of
+      // other elements.  If any of them contain placeholders, then we'll need
+      // to be able to recompute the length of this element.
+      ASN1Element[] elements = null;
+      try
+      {
+        elements = ASN1Sequence.decodeAsSequence(element).elements();
+      }
+      catch (final ASN1Exception e)
+      {
+        // The value isn't actually a set of elements, so we'll treat it as if
+        // it were a primitive element.
+        Debug.debugException(e);
+      }
+
+      if (elements != null)
+      {
+        boolean hasSlots = false;
+        final TemplateElement[] children = new TemplateElement[elements.length];
+        for (int i=0; i < elements.length; i++)
+        {
+          children[i] = createTemplateElement(elements[i], placeholderBytes,
+               placeholderFound);
+          if (! (children[i] instanceof FixedTemplateElement))
+          {
+            hasSlots = true;
+          }
+        }
+
+        if (hasSlots)
+        {
+          return new ConstructedTemplateElement(element.getType(), children);
+        }
+        else
+        {
+          return new FixedTemplateElement(element);
+        }
+      }
+    }
+
+
+    // Look for placeholders in the value of the element, splitting the value
+    // into the static text and the slots that will be filled in.
+    final byte[] value = element.getValue();
+    final ArrayList<byte[]> staticSegments = new ArrayList<>(3);
+    final ArrayList<Integer> slots = new ArrayList<>(2);
+
+    int segmentStartPos = 0;
+    int pos = 0;
+    while (pos < value.length)
+    {
+      final int slot = findPlaceholder(value, pos, placeholderBytes);
+      if (slot < 0)
+      {
+        pos++;
+        continue;
+      }
+
+      staticSegments.add(Arrays.copyOfRange(value, segmentStartPos, pos));
+      slots.add(slot);
+      placeholderFound[slot] = true;
+
+      pos += placeholderBytes[slot].length;
+      segmentStartPos = pos;
+    }
+
+    if (slots.isEmpty())
+    {
+      return new FixedTemplateElement(element);
+    }
+
+    staticSegments.add(Arrays.copyOfRange(value, segmentStartPos,
+         value.length));
+
+    final int[] slotArray = new int[slots.size()];
+    for (int i=0; i < slotArray.length; i++)
+    {
+      slotArray[i] = slots.get(i);
+    }
+
+    return new PrimitiveTemplateElement(element.getType(),
+         staticSegments.toArray(new byte[staticSegments.size()][]), slotArray);
+  }
+
+
+
+  /**
+   * Determines whether any of the placeholders begins at the specified position
+   * in the provided value.
+   *
+   * @param  value             The value to examine.
+   * @param  pos               The position in the value to examine.
+   * @param  placeholderBytes  The UTF-8 representations of the placeholders.
+   *
+   * @return  The index of the placeholder that begins at the specified
+   *          position, or -1 if none of the placeholders begin there.
+   */
+  private static int findPlaceholder(@NotNull final byte[] value, final int pos,
+                                     @NotNull final byte[][] placeholderBytes)
+  {
+    for (int i=0; i < placeholderBytes.length; i++)
+    {
+      final byte[] p = placeholderBytes[i];
+      if ((pos + p.length) > value.length)
+      {
+        continue;
+      }
+
+      boolean matches = true;
+      for (int j=0; j < p.length; j++)
+      {
+        if (value[pos+j] != p[j])
+        {
+          matches = false;
+          break;
+        }
+      }
+
+      if (matches)
+      {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+
+
+  /**
+   * Retrieves the request from which this template was created.  The request
+   * should not be altered.
+   *
+   * @return  The request from which this template was created.
+   */
+  @NotNull()
+  public LDAPRequest getRequest()
+  {
+    return request;
+  }
+
+
+
+  /**
+   * Retrieves the placeholders that mark the values that will be replaced in
+   * each request created from this template.
+   *
+   * @return  The placeholders that mark the values that will be replaced in
+   *          each request created from this template.
+   */
+  @NotNull()
+  public List<String> getPlaceholders()
+  {
+    return placeholders;
+  }
+
+
+
+  /**
+   * Indicates whether the value for the specified placeholder is part of a
+   * bind password and should therefore not be included in string
+   * representations of requests created from this template.
+   *
+   * @param  index  The index of the placeholder.
+   *
+   * @return  {@code true} if the value for the specified placeholder should
+   *          not be included in string representations, or {@code false} if
+   *          not.
+   */
+  boolean isSensitivePlaceholder(final int index)
+  {
+    return sensitivePlaceholders[index];
+  }
+
+
+
+  /**
+   * Creates a new request from this template, using the provided values in
+   * place of the placeholders.  The request that is returned will be a
+   * duplicate of the request used to create this template (and therefore of
+   * the same type), but it will be sent to the server with the provided values
+   * in place of the placeholders.  The methods used to retrieve the properties
+   * of the request will continue to reflect the request used to create the
+   * template.  Altering any property that is part of the encoded request (for
+   * example, by calling {@code SearchRequest.setFilter}) will discard the
+   * values provided to this method, and the request will then be sent using
+   * its properties as they would be for any other request.  However, the
+   * controls, response timeout, and listeners for the request may be altered
+   * without affecting the values provided to this method.  The string
+   * representation of the request will include the values used in place of
+   * the placeholders (other than any that are part of a bind password), and
+   * duplicates of the request (including those created to rebind a simple
+   * bind request) will also be sent with those values.
+   * <BR><BR>
+   * Because the properties of the request do not reflect the values that
+   * will be sent, it should not be used with components that examine those
+   * properties.  The {@link CachingLDAPInterface} will not cache the results
+   * of searches created from a template, and it will clear all cached results
+   * after any write operation created from a template.
+   * <BR><BR>
+   * The request should not be configured to follow referrals.  If a referral
+   * URL specifies a DN (or, for a search, a scope or filter), then the
+   * request used to follow it will be sent with that value and the remaining
+   * properties of the request used to create this template, rather than with
+   * the values provided to this method.
+   *
+   * @param  values  The values to use in place of the placeholders, in the
+   *                 same order as the placeholders were provided when
+   *                 creating this template.  There must be exactly one value
+   *                 for each placeholder, and none of them may be
+   *                 {@code null}.
+   *
+   * @return  The request that was created.
+   */
+  @NotNull()
+  public LDAPRequest createRequest(@NotNull final String... values)
+  {
+    Validator.ensureNotNull(values);
+    Validator.ensureTrue((values.length == placeholders.size()),
+         "LDAPRequestTemplate.createRequest requires exactly one value for " +
+              "each placeholder.");
+
+    final byte[][] valueBytes = new byte[values.length][];
+    for (int i=0; i < values.length; i++)
+    {
+      Validator.ensureNotNull(values[i]);
+      valueBytes[i] = StaticUtils.getBytes(values[i]);
+    }
+
+    final LDAPRequest r = request.duplicate();
+    r.setPreparedProtocolOp(new PreparedProtocolOp(this, values, valueBytes));
+    return r;
+  }
+
+
+
+  /**
+   * Retrieves the BER type for the protocol op.
+   *
+   * @return  The BER type for the protocol op.
+   */
+  byte getProtocolOpType()
+  {
+    return protocolOp.getType();
+  }
+
+
+
+  /**
+   * Retrieves the number of bytes that will be written when the protocol op
+   * is written to an ASN.1 buffer with the provided values.
+   *
+   * @param  values  The UTF-8 representations of the values to use in place
+   *                 of the placeholders.
+   *
+   * @return  The number of bytes that will be written when the protocol op is
+   *          written to an ASN.1 buffer with the provided values.
+   */
+  int getEncodedProtocolOpSize(@NotNull final byte[][] values)
+  {
+    return protocolOp.getEncodedSize(values);
+  }
+
+
+
+  /**
+   * Writes an encoded representation of the protocol op to the provided ASN.1
+   * buffer, using the provided values in place of the placeholders.
+   *
+   * @param  buffer  The ASN.1 buffer to which the protocol op should be
+   *                 written.
+   * @param  values  The UTF-8 representations of the values to use in place
+   *                 of the placeholders.
+   */
+  void writeProtocolOpTo(@NotNull final ASN1Buffer buffer,
+                         @NotNull final byte[][] values)
+  {
+    protocolOp.writeTo(buffer, values);
+  }
+
+
+
+  /**
+   * Encodes the protocol op to an ASN.1 element, using the provided values in
+   * place of the placeholders.
+   *
+   * @param  values  The UTF-8 representations of the values to use in place
+   *                 of the placeholders.
+   *
+   * @return  The ASN.1 element containing the encoded protocol op.
+   */
+  @NotNull()
+  ASN1Element encodeProtocolOp(@NotNull final byte[][] values)
+  {
+    return protocolOp.toElement(values);
+  }
+
+
+
+  /**
+   * Retrieves a string representation of this request template.
+   *
+   * @return  A string representation of this request template.
+   */
+  @Override()
+  @NotNull()
+  public String toString()
+  {
+    final StringBuilder buffer = new StringBuilder();
+    toString(buffer);
+    return buffer.toString();
+  }
+
+
+
+  /**
+   * Appends a string representation of this request template to the provided
+   * buffer.
+   *
+   * @param  buffer  The buffer to which the string representation should be
+   *                 appended.
+   */
+  public void toString(@NotNull final StringBuilder buffer)
+  {
+    buffer.append("LDAPRequestTemplate(request=");
+    request.toString(buffer);
+    buffer.append(", placeholders={");
+
+    final int numPlaceholders = placeholders.size();
+    for (int i=0; i < numPlaceholders; i++)
+    {
+      if (i > 0)
+      {
+        buffer.append(", ");
+      }
+
+      buffer.append('\'');
+      buffer.append(placeholders.get(i));
+      buffer.append('\'');
+    }
+
+    buffer.append("})");
+  }
+
+
+
+  /**
+   * This class defines an element of an encoded request template.
+   */
+  private abstract static class TemplateElement
+          implements Serializable
+  {
+    /**
+     * The serial version UID for this serializable class.
+     */
+    private static final long serialVersionUID = -4164207640612302271L;
+
+
+
+    /**
+     * Retrieves the BER type for this element.
+     *
+     * @return  The BER type for this element.
+     */
+    abstract byte getType();
+
+
+
+    /**
+     * Retrieves the number of bytes that will be written when this element is
+     * written with the provided values.
+     *
+     * @param  values  The UTF-8 representations of the values to use in place
+     *                 of the placeholders.
+     *
+     * @return  The number of bytes that will be written when this element is
+     *          written with the provided values.
+     */
+    abstract int getEncodedSize(@NotNull byte[][] values);
+
+
+
+    /**
+     * Writes this element to the provided ASN.1 buffer, using the provided
+     * values in place of the placeholders.
+     *
+     * @param  buffer  The ASN.1 buffer to which the element should be
+     *                 written.
+     * @param  values  The UTF-8 representations of the values to use in place
+     *                 of the placeholders.
+     */
+    abstract void writeTo(@NotNull ASN1Buffer buffer,
+                          @NotNull byte[][] values);
+
+
+
+    /**
+     * Creates an ASN.1 element from this template element, using the provided
+     * values in place of the placeholders.
+     *
+     * @param  values  The UTF-8 representations of the values to use in place
+     *                 of the placeholders.
+     *
+     * @return  The ASN.1 element that was created.
+     */
+    @NotNull()
+    abstract ASN1Element toElement(@NotNull byte[][] values);
+  }
+
+
+
+  /**
+   * This class defines a template element that does not contain any
+   * placeholders, and therefore will be the same in every request.
+   */
+  private static final class FixedTemplateElement
+          extends TemplateElement
+  {
+    /**
+     * The serial version UID for this serializable class.
+     */
+    private static final long serialVersionUID = 8133524011658993838L;
+
+
+
+    // The element that will be written.
+    @NotNull private final ASN1Element element;
+
+    // The number of bytes in the encoded element.
+    private final int encodedSize;
+
+
+
+    /**
+     * Creates a new fixed template element.
+     *
+     * @param  element  The element that will be written.
+     */
+    private FixedTemplateElement(@NotNull final ASN1Element element)
+    {
+      this.element = element;
+
+      encodedSize = ASN1Buffer.getEncodedSize(element);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    byte getType()
+    {
+      return element.getType();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    int getEncodedSize(@NotNull final byte[][] values)
+    {
+      return encodedSize;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    void writeTo(@NotNull final ASN1Buffer buffer,
+                 @NotNull final byte[][] values)
+    {
+      buffer.addElement(element);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    @NotNull()
+    ASN1Element toElement(@NotNull final byte[][] values)
+    {
+      return element;
+    }
+  }
+
+
+
+  /**
+   * This class defines a template element whose value contains one or more
+   * placeholders.
+   */
+  private static final class PrimitiveTemplateElement
+          extends TemplateElement
+  {
+    /**
+     * The serial version UID for this serializable class.
+     */
+    private static final long serialVersionUID = 5376212870713829390L;
+
+
+
+    // The BER type for the element.
+    private final byte type;
+
+    // The portions of the value that appear before, between, and after the
+    // placeholders.  There will be one more segment than there are slots.
+    @NotNull private final byte[][] staticSegments;
+
+    // The indexes of the values that will be used in place of the
+    // placeholders.
+    @NotNull private final int[] slots;
+
+    // The total number of bytes in the static segments.
+    private final int staticLength;
+
+
+
+    /**
+     * Creates a new primitive template element.
+     *
+     * @param  type            The BER type for the element.
+     * @param  staticSegments  The portions of the value that appear before,
+     *                         between, and after the placeholders.
+     * @param  slots           The indexes of the values that will be used in
+     *                         place of the placeholders.
+     */
+    private PrimitiveTemplateElement(final byte type,
+                                     @NotNull final byte[][] staticSegments,
+                                     @NotNull final int[] slots)
+    {
+      this.type = type;
+      this.staticSegments = staticSegments;
+      this.slots = slots;
+
+      int length = 0;
+      for (final byte[] segment : staticSegments)
+      {
+        length += segment.length;
+      }
+      staticLength = length;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    byte getType()
+    {
+      return type;
+    }
+
+
+
+    /**
+     * Retrieves the number of bytes in the value of this element when the
+     * provided values are used in place of the placeholders.
+     *
+     * @param  values  The UTF-8 representations of the values to use in place
+     *                 of the placeholders.
+     *
+     * @return  The number of bytes in the value of this element.
+     */
+    private int getValueLength(@NotNull final byte[][] values)
+    {
+      int length = staticLength;
+      for (final int slot : slots)
+      {
+        length += values[slot].length;
+      }
+
+      return length;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    int getEncodedSize(@NotNull final byte[][] values)
+    {
+      return ASN1Buffer.getEncodedElementSize(getValueLength(values));
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    void writeTo(@NotNull final ASN1Buffer buffer,
+                 @NotNull final byte[][] values)
+    {
+      buffer.addOctetString(type, getValue(values));
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    @NotNull()
+    ASN1Element toElement(@NotNull final byte[][] values)
+    {
+      return new ASN1Element(type, getValue(values));
+    }
+
+
+
+    /**
+     * Constructs the value for this element using the provided values in place
+     * of the placeholders.
+     *
+     * @param  values  The UTF-8 representations of the values to use in place
+     *                 of the placeholders.
+     *
+     * @return  The value that was constructed.
+     */
+    @NotNull()
+    private byte[] getValue(@NotNull final byte[][] values)
+    {
+      final byte[] value = new byte[getValueLength(values)];
+
+      int pos = 0;
+      for (int i=0; i < slots.length; i++)
+      {
+        final byte[] segment = staticSegments[i];
+        System.arraycopy(segment, 0, value, pos, segment.length);
+        pos += segment.length;
+
+        final byte[] slotValue = values[slots[i]];
+        System.arraycopy(slotValue, 0, value, pos, slotValue.length);
+        pos += slotValue.length;
+      }
+
+      final byte[] lastSegment = staticSegments[slots.length];
+      System.arraycopy(lastSegment, 0, value, pos, lastSegment.length);
+
+      return value;
+    }
+  }
+
+
+
+  /**
+   * This class defines a template element whose value is made up of other
+   * elements, at least one of which contains a placeholder.
+   */
+  private static final class ConstructedTemplateElement
+          extends TemplateElement
+  {
+    /**
+     * The serial version UID for this serializable class.
+     */
+    private static final long serialVersionUID = -1981519396432911170L;
+
+
+
+    // The BER type for the element.
+    private final byte type;
+
+    // The elements that make up the value of this element.
+    @NotNull private final TemplateElement[] children;
+
+
+
+    /**
+     * Creates a new constructed template element.
+     *
+     * @param  type      The BER type for the element.
+     * @param  children  The elements that make up the value of this element.
+     */
+    private ConstructedTemplateElement(final byte type,
+                 @NotNull final TemplateElement[] children)
+    {
+      this.type = type;
+      this.children = children;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    byte getType()
+    {
+      return type;
+    }
+
+
+
+    /**
+     * Retrieves the number of bytes in the value of this element when the
+     * provided values are used in place of the placeholders.
+     *
+     * @param  values  The UTF-8 representations of the values to use in place
+     *                 of the placeholders.
+     *
+     * @return  The number of bytes in the value of this element.
+     */
+    private int getValueLength(@NotNull final byte[][] values)
+    {
+      int length = 0;
+      for (final TemplateElement child : children)
+      {
+        length += child.getEncodedSize(values);
+      }
+
+      return length;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    int getEncodedSize(@NotNull final byte[][] values)
+    {
+      return ASN1Buffer.getEncodedElementSize(getValueLength(values));
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    void writeTo(@NotNull final ASN1Buffer buffer,
+                 @NotNull final byte[][] values)
+    {
+      final ASN1BufferSequence sequence =
+           buffer.beginSequence(type, getValueLength(values));
+      for (final TemplateElement child : children)
+      {
+        child.writeTo(buffer, values);
+      }
+      sequence.end();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    @NotNull()
+    ASN1Element toElement(@NotNull final byte[][] values)
+    {
+      final ASN1Element[] elements = new ASN1Element[children.length];
+      for (int i=0; i < elements.length; i++)
+      {
+        elements[i] = children[i].toElement(values);
+      }
+
+      return new ASN1Sequence(type, elements);
+    }
+  }
+}
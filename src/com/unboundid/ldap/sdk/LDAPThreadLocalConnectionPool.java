@@ -56,6 +56,7 @@ import com.unboundid.util.StaticUtils;
 import com.unboundid.util.ThreadSafety;
 import com.unboundid.util.ThreadSafetyLevel;
 import com.unboundid.util.Validator;
+import com.unboundid.util.VirtualThreadSupport;
 
 import static com.unboundid.ldap.sdk.LDAPMessages.*;
 
@@ -79,6 +80,14 @@ import static com.unboundid.ldap.sdk.LDAPMessages.*;
  * a thread attempts to check out multiple connections from the pool, then the
  * same connection instance will be returned each time.
  * <BR><BR>
+ * Because this implementation maintains a separate connection for each thread,
+ * it is not well suited for use by applications that create a large number of
+ * short-lived threads, and especially virtual threads, since that can result
+ * in a very large number of connections being established.  Such applications
+ * should use the {@link LDAPConnectionPool} class instead, optionally with
+ * connections configured to use virtual threads via the
+ * {@link LDAPConnectionOptions#setUseVirtualThreads} method.
+ * <BR><BR>
  * The capabilities offered by this class are generally the same as those
  * provided by the {@link LDAPConnectionPool} class, as is the manner in which
  * applications should interact with it.  See the class-level documentation for
@@ -251,7 +260,8 @@ public final class LDAPThreadLocalConnectionPool
     minDisconnectInterval     = 0L;
 
     healthCheckThread = new LDAPConnectionPoolHealthCheckThread(this);
-    healthCheckThread.start();
+    VirtualThreadSupport.start(healthCheckThread,
+         connection.getConnectionOptions().useVirtualThreads());
 
     final LDAPConnectionOptions opts = connection.getConnectionOptions();
     if (opts.usePooledSchema())
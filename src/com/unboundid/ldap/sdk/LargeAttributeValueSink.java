@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.unboundid.asn1.ASN1OctetStringValueSource;
+import com.unboundid.util.Extensible;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This interface defines a mechanism for storing large attribute values read
+ * from search result entries somewhere other than in the JVM heap.  If a sink
+ * is configured with the
+ * {@link LDAPConnectionOptions#setLargeAttributeValueSink} method, then any
+ * attribute value larger than the
+ * {@link LDAPConnectionOptions#getLargeAttributeValueThresholdBytes} threshold
+ * will be streamed from the server directly to the sink, and the attribute
+ * will hold a value that is read back from the sink only if and when it is
+ * needed.  The {@link com.unboundid.asn1.ASN1OctetString#getValueInputStream}
+ * method may be used to read such a value without loading it into memory.
+ * <BR><BR>
+ * A single sink may be used concurrently by multiple connections, so
+ * implementations must be threadsafe.
+ *
+ * @see  TempFileLargeAttributeValueSink
+ */
+@Extensible()
+@ThreadSafety(level=ThreadSafetyLevel.INTERFACE_THREADSAFE)
+public interface LargeAttributeValueSink
+{
+  /**
+   * Stores the provided attribute value and returns a source that may be used
+   * to read it back.  The provided input stream must be read to the end before
+   * this method returns, and it must not be closed or used after this method
+   * returns.
+   *
+   * @param  attributeName     The name of the attribute with which the value
+   *                           is associated.  It will not be {@code null}.
+   * @param  valueLength       The number of bytes in the value.
+   * @param  valueInputStream  The input stream from which the value should be
+   *                           read.  It will not be {@code null}, and it will
+   *                           provide exactly {@code valueLength} bytes.
+   *
+   * @return  A source that may be used to read the stored value.  It must not
+   *          be {@code null}, and every input stream that it provides must
+   *          return exactly {@code valueLength} bytes.
+   *
+   * @throws  IOException  If a problem occurs while reading or storing the
+   *                       value.
+   */
+  @NotNull()
+  ASN1OctetStringValueSource storeValue(@NotNull String attributeName,
+                                        int valueLength,
+                                        @NotNull InputStream valueInputStream)
+       throws IOException;
+}
@@ -0,0 +1,1051 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.net.SocketFactory;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.NotMutable;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.ObjectPair;
+import com.unboundid.util.PropertyManager;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+import com.unboundid.util.Validator;
+
+import static com.unboundid.ldap.sdk.LDAPMessages.*;
+
+
+
+/**
+ * This class provides a server set implementation that will favor the servers
+ * that have been responding most quickly.  For each server, it maintains an
+ * exponentially weighted moving average (EWMA) of the response times observed
+ * on the connections that it has established to that server, using the
+ * {@link LDAPConnectionStatistics} of those connections.  Bind operations are
+ * not included, since their processing time tends to depend more on the
+ * authentication mechanism than on the load of the server.
+ * <BR><BR>
+ * Whenever a new connection is needed, this server set uses a
+ * "power of two choices" algorithm:  it selects two of the available servers
+ * at random and establishes the connection to the one with the lower cost,
+ * where the cost of a server is its average response time multiplied by one
+ * more than the number of connections currently established to it.  Including
+ * the number of connections in the cost means that a slower server will not be
+ * abandoned entirely, but it will be given a share of new connections that
+ * decreases as its response time increases relative to the other servers.
+ * Because the moving average decays over time rather than reacting to a single
+ * slow operation, a server whose performance degrades will be pushed out
+ * gradually, and one whose performance improves will gradually regain its
+ * share.  Servers for which no response times have yet been observed are
+ * assumed to have the average response time of the other servers.
+ * <BR><BR>
+ * Note that a connection pool only requests connections from its server set
+ * when creating new connections, so when this server set is used with a
+ * connection pool, it is recommended that the pool be configured with a
+ * maximum connection age (for example, using the
+ * {@link LDAPConnectionPool#setMaxConnectionAgeMillis} method) so that
+ * connections are periodically re-established and the balance of connections
+ * across servers can change along with their response times.
+ * <BR><BR>
+ * This server set implementation has the ability to maintain a temporary
+ * blacklist of servers that have been recently found to be unavailable or
+ * unsuitable for use.  If an attempt to establish or authenticate a
+ * connection fails, if post-connect processing fails for that connection, or if
+ * health checking indicates that the connection is not suitable, then that
+ * server may be placed on the blacklist so that it will only be tried as a last
+ * resort after all non-blacklisted servers have been attempted.  The blacklist
+ * will be checked at regular intervals to determine whether a server should be
+ * re-instated to availability.
+ * <BR><BR>
+ * Note that this server set implementation is primarily intended for use with
+ * connection pools, but is also suitable for cases in which standalone
+ * connections are created as long as there will not be any attempt to close the
+ * connections when they are re-established.  It is not suitable for use in
+ * connections that may be re-established one or more times after being closed.
+ * <BR><BR>
+ * <H2>Example</H2>
+ * The following example demonstrates the process for creating a latency-aware
+ * server set that may be used to establish connections to any of three
+ * servers.
+ * <PRE>
+ * // Create arrays with the addresses and ports of the directory server
+ * // instances.
+ * String[] addresses =
+ * {
+ *   server1Address,
+ *   server2Address,
+ *   server3Address
+ * };
+ * int[] ports =
+ * {
+ *   server1Port,
+ *   server2Port,
+ *   server3Port
+ * };
+ *
+ * // Create the server set using the address and port arrays.
+ * LatencyAwareServerSet latencyAwareSet =
+ *      new LatencyAwareServerSet(addresses, ports);
+ *
+ * // Create a connection pool that uses the server set, and periodically
+ * // re-establish its connections so that they can follow changes in server
+ * // response times.
+ * SimpleBindRequest bindRequest =
+ *      new SimpleBindRequest("uid=pool.user,dc=example,dc=com", "password");
+ * LDAPConnectionPool pool =
+ *      new LDAPConnectionPool(latencyAwareSet, bindRequest, 10);
+ * pool.setMaxConnectionAgeMillis(300_000L);
+ * RootDSE rootDSEFromPool = pool.getRootDSE();
+ * pool.close();
+ * </PRE>
+ */
+@NotMutable()
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+public final class LatencyAwareServerSet
+       extends ServerSet
+{
+  /**
+   * The name of a system property that can be used to override the default
+   * blacklist check interval, in milliseconds.
+   */
+  @NotNull static final String
+       PROPERTY_DEFAULT_BLACKLIST_CHECK_INTERVAL_MILLIS =
+            LatencyAwareServerSet.class.getName() +
+                 ".defaultBlacklistCheckIntervalMillis";
+
+
+
+  /**
+   * The default half-life, in milliseconds, for the moving average of response
+   * times.
+   */
+  static final long DEFAULT_RESPONSE_TIME_HALF_LIFE_MILLIS = 30_000L;
+
+
+
+  // The bind request to use to authenticate connections created by this
+  // server set.
+  @Nullable private final BindRequest bindRequest;
+
+  // The set of connection options to use for new connections.
+  @NotNull private final LDAPConnectionOptions connectionOptions;
+
+  // The half-life, in nanoseconds, for the moving average of response times.
+  private final long halfLifeNanos;
+
+  // The latency information for each of the servers, in the order in which
+  // they were provided.
+  @NotNull private final Map<ObjectPair<String,Integer>,ServerLatency>
+       latencyByServer;
+
+  // The post-connect processor to invoke against connections created by this
+  // server set.
+  @Nullable private final PostConnectProcessor postConnectProcessor;
+
+  // The blacklist manager for this server set.
+  @Nullable private final ServerSetBlacklistManager blacklistManager;
+
+  // The socket factory to use to establish connections.
+  @NotNull private final SocketFactory socketFactory;
+
+
+
+  /**
+   * Creates a new latency-aware server set with the specified set of directory
+   * server addresses and port numbers.  It will use the default socket factory
+   * provided by the JVM to create the underlying sockets.
+   *
+   * @param  addresses  The addresses of the directory servers to which the
+   *                    connections should be established.  It must not be
+   *                    {@code null} or empty.
+   * @param  ports      The ports of the directory servers to which the
+   *                    connections should be established.  It must not be
+   *                    {@code null}, and it must have the same number of
+   *                    elements as the {@code addresses} array.  The order of
+   *                    elements in the {@code addresses} array must correspond
+   *                    to the order of elements in the {@code ports} array.
+   */
+  public LatencyAwareServerSet(@NotNull final String[] addresses,
+                               @NotNull final int[] ports)
+  {
+    this(addresses, ports, null, null);
+  }
+
+
+
+  /**
+   * Creates a new latency-aware server set with the specified set of directory
+   * server addresses and port numbers.  It will use the provided socket factory
+   * to create the underlying sockets.
+   *
+   * @param  addresses          The addresses of the directory servers to which
+   *                            the connections should be established.  It must
+   *                            not be {@code null} or empty.
+   * @param  ports              The ports of the directory servers to which the
+   *                            connections should be established.  It must not
+   *                            be {@code null}, and it must have the same
+   *                            number of elements as the {@code addresses}
+   *                            array.  The order of elements in the
+   *                            {@code addresses} array must correspond to the
+   *                            order of elements in the {@code ports} array.
+   * @param  socketFactory      The socket factory to use to create the
+   *                            underlying connections.
+   * @param  connectionOptions  The set of connection options to use for the
+   *                            underlying connections.
+   */
+  public LatencyAwareServerSet(@NotNull final String[] addresses,
+              @NotNull final int[] ports,
+              @Nullable final SocketFactory socketFactory,
+              @Nullable final LDAPConnectionOptions connectionOptions)
+  {
+    this(addresses, ports, socketFactory, connectionOptions, null, null);
+  }
+
+
+
+  /**
+   * Creates a new latency-aware server set with the specified set of directory
+   * server addresses and port numbers.  It will use the provided socket factory
+   * to create the underlying sockets.
+   *
+   * @param  addresses             The addresses of the directory servers to
+   *                               which the connections should be established.
+   *                               It must not be {@code null} or empty.
+   * @param  ports                 The ports of the directory servers to which
+   *                               the connections should be established.  It
+   *                               must not be {@code null}, and it must have
+   *                               the same number of elements as the
+   *                               {@code addresses} array.  The order of
+   *                               elements in the {@code addresses} array must
+   *                               correspond to the order of elements in the
+   *                               {@code ports} array.
+   * @param  socketFactory         The socket factory to use to create the
+   *                               underlying connections.
+   * @param  connectionOptions     The set of connection options to use for the
+   *                               underlying connections.
+   * @param  bindRequest           The bind request that should be used to
+   *                               authenticate newly established connections.
+   *                               It may be {@code null} if this server set
+   *                               should not perform any authentication.
+   * @param  postConnectProcessor  The post-connect processor that should be
+   *                               invoked on newly established connections.  It
+   *                               may be {@code null} if this server set should
+   *                               not perform any post-connect processing.
+   */
+  public LatencyAwareServerSet(@NotNull final String[] addresses,
+              @NotNull final int[] ports,
+              @Nullable final SocketFactory socketFactory,
+              @Nullable final LDAPConnectionOptions connectionOptions,
+              @Nullable final BindRequest bindRequest,
+              @Nullable final PostConnectProcessor postConnectProcessor)
+  {
+    this(addresses, ports, socketFactory, connectionOptions, bindRequest,
+         postConnectProcessor, getDefaultBlacklistCheckIntervalMillis(),
+         DEFAULT_RESPONSE_TIME_HALF_LIFE_MILLIS);
+  }
+
+
+
+  /**
+   * Creates a new latency-aware server set with the specified set of directory
+   * server addresses and port numbers.  It will use the provided socket factory
+   * to create the underlying sockets.
+   *
+   * @param  addresses                     The addresses of the directory
+   *                                       servers to which the connections
+   *                                       should be established.  It must not
+   *                                       be {@code null} or empty.
+   * @param  ports                         The ports of the directory servers to
+   *                                       which the connections should be
+   *                                       established.  It must not be
+   *                                       {@code null}, and it must have the
+   *                                       same number of elements as the
+   *                                       {@code addresses} array.  The order
+   *                                       of elements in the {@code addresses}
+   *                                       array must correspond to the order of
+   *                                       elements in the {@code ports} array.
+   * @param  socketFactory                 The socket factory to use to create
+   *                                       the underlying connections.
+   * @param  connectionOptions             The set of connection options to use
+   *                                       for the underlying connections.
+   * @param  bindRequest                   The bind request that should be used
+   *                                       to authenticate newly established
+   *                                       connections. It may be {@code null}
+   *                                       if this server set should not perform
+   *                                       any authentication.
+   * @param  postConnectProcessor          The post-connect processor that
+   *                                       should be invoked on newly
+   *                                       established connections.  It may be
+   *                                       {@code null} if this server set
+   *                                       should not perform any post-connect
+   *                                       processing.
+   * @param  blacklistCheckIntervalMillis  The length of time in milliseconds
+   *                                       between checks of servers on the
+   *                                       blacklist to determine whether they
+   *                                       are once again suitable for use.  A
+   *                                       value that is less than or equal to
+   *                                       zero indicates that no blacklist
+   *                                       should be maintained.
+   * @param  responseTimeHalfLifeMillis    The length of time in milliseconds
+   *                                       over which the weight given to an
+   *                                       older response time observation is
+   *                                       reduced by half when computing the
+   *                                       moving average.  Smaller values make
+   *                                       the server set react more quickly to
+   *                                       changes in response time.  It must be
+   *                                       greater than zero.
+   */
+  public LatencyAwareServerSet(@NotNull final String[] addresses,
+              @NotNull final int[] ports,
+              @Nullable final SocketFactory socketFactory,
+              @Nullable final LDAPConnectionOptions connectionOptions,
+              @Nullable final BindRequest bindRequest,
+              @Nullable final PostConnectProcessor postConnectProcessor,
+              final long blacklistCheckIntervalMillis,
+              final long responseTimeHalfLifeMillis)
+  {
+    Validator.ensureNotNull(addresses, ports);
+    Validator.ensureTrue(addresses.length > 0,
+         "LatencyAwareServerSet.addresses must not be empty.");
+    Validator.ensureTrue(addresses.length == ports.length,
+         "LatencyAwareServerSet addresses and ports arrays must be the same " +
+              "size.");
+    Validator.ensureTrue(responseTimeHalfLifeMillis > 0L,
+         "LatencyAwareServerSet.responseTimeHalfLifeMillis must be greater " +
+              "than zero.");
+
+    final LinkedHashMap<ObjectPair<String,Integer>,ServerLatency> m =
+         new LinkedHashMap<>(StaticUtils.computeMapCapacity(ports.length));
+    for (int i=0; i < addresses.length; i++)
+    {
+      final ObjectPair<String,Integer> hostPort =
+           new ObjectPair<>(addresses[i], ports[i]);
+      m.put(hostPort, new ServerLatency(hostPort));
+    }
+
+    latencyByServer = Collections.unmodifiableMap(m);
+
+    this.bindRequest = bindRequest;
+    this.postConnectProcessor = postConnectProcessor;
+    halfLifeNanos = responseTimeHalfLifeMillis * 1_000_000L;
+
+    if (socketFactory == null)
+    {
+      this.socketFactory = SocketFactory.getDefault();
+    }
+    else
+    {
+      this.socketFactory = socketFactory;
+    }
+
+    if (connectionOptions == null)
+    {
+      this.connectionOptions = new LDAPConnectionOptions();
+    }
+    else
+    {
+      this.connectionOptions = connectionOptions;
+    }
+
+    if (blacklistCheckIntervalMillis > 0L)
+    {
+      blacklistManager = new ServerSetBlacklistManager(this, socketFactory,
+           connectionOptions, bindRequest, postConnectProcessor,
+           blacklistCheckIntervalMillis);
+    }
+    else
+    {
+      blacklistManager = null;
+    }
+  }
+
+
+
+  /**
+   * Retrieves the default blacklist check interval (in milliseconds that should
+   * be used if it is not specified.
+   *
+   * @return  The default blacklist check interval (in milliseconds that should
+   *          be used if it is not specified.
+   */
+  private static long getDefaultBlacklistCheckIntervalMillis()
+  {
+    return PropertyManager.getLong(
+         PROPERTY_DEFAULT_BLACKLIST_CHECK_INTERVAL_MILLIS, 30_000L);
+  }
+
+
+
+  /**
+   * Retrieves the addresses of the directory servers to which the connections
+   * should be established.
+   *
+   * @return  The addresses of the directory servers to which the connections
+   *          should be established.
+   */
+  @NotNull()
+  public String[] getAddresses()
+  {
+    int i = 0;
+    final String[] addresses = new String[latencyByServer.size()];
+    for (final ObjectPair<String,Integer> hostPort : latencyByServer.keySet())
+    {
+      addresses[i++] = hostPort.getFirst();
+    }
+
+    return addresses;
+  }
+
+
+
+  /**
+   * Retrieves the ports of the directory servers to which the connections
+   * should be established.
+   *
+   * @return  The ports of the directory servers to which the connections should
+   *          be established.
+   */
+  @NotNull()
+  public int[] getPorts()
+  {
+    int i = 0;
+    final int[] ports = new int[latencyByServer.size()];
+    for (final ObjectPair<String,Integer> hostPort : latencyByServer.keySet())
+    {
+      ports[i++] = hostPort.getSecond();
+    }
+
+    return ports;
+  }
+
+
+
+  /**
+   * Retrieves the socket factory that will be used to establish connections.
+   *
+   * @return  The socket factory that will be used to establish connections.
+   */
+  @NotNull()
+  public SocketFactory getSocketFactory()
+  {
+    return socketFactory;
+  }
+
+
+
+  /**
+   * Retrieves the set of connection options that will be used for underlying
+   * connections.
+   *
+   * @return  The set of connection options that will be used for underlying
+   *          connections.
+   */
+  @NotNull()
+  public LDAPConnectionOptions getConnectionOptions()
+  {
+    return connectionOptions;
+  }
+
+
+
+  /**
+   * Retrieves the half-life, in milliseconds, for the moving average of
+   * response times.
+   *
+   * @return  The half-life, in milliseconds, for the moving average of response
+   *          times.
+   */
+  public long getResponseTimeHalfLifeMillis()
+  {
+    return halfLifeNanos / 1_000_000L;
+  }
+
+
+
+  /**
+   * Retrieves the current moving average of the response times observed for
+   * the specified server.  The average is updated whenever this server set
+   * selects a server for a new connection, and whenever a connection to the
+   * server is closed.
+   *
+   * @param  address  The address of the server for which to retrieve the
+   *                  average response time.
+   * @param  port     The port of the server for which to retrieve the average
+   *                  response time.
+   *
+   * @return  The current moving average of the response times observed for the
+   *          specified server, in milliseconds, or {@code Double.NaN} if the
+   *          server is not part of this server set or no response times have
+   *          yet been observed for it.
+   */
+  public double getAverageResponseTimeMillis(@NotNull final String address,
+                                             final int port)
+  {
+    final ServerLatency l =
+         latencyByServer.get(new ObjectPair<>(address, port));
+    if (l == null)
+    {
+      return Double.NaN;
+    }
+
+    final long now = System.nanoTime();
+    synchronized (l)
+    {
+      l.sample(now, halfLifeNanos);
+      return l.averageNanos / 1_000_000.0d;
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public boolean includesAuthentication()
+  {
+    return (bindRequest != null);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public boolean includesPostConnectProcessing()
+  {
+    return (postConnectProcessor != null);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPConnection getConnection()
+         throws LDAPException
+  {
+    return getConnection(null);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public LDAPConnection getConnection(
+              @Nullable final LDAPConnectionPoolHealthCheck healthCheck)
+         throws LDAPException
+  {
+    // Get the set of servers that are not blacklisted, and update the moving
+    // average response time for each of them.
+    final long now = System.nanoTime();
+    final List<ServerLatency> available =
+         new ArrayList<>(latencyByServer.size());
+    List<ObjectPair<String,Integer>> blacklistedServers = null;
+    double knownAverageTotal = 0.0d;
+    int numKnownAverages = 0;
+    for (final ServerLatency l : latencyByServer.values())
+    {
+      if ((blacklistManager != null) &&
+           blacklistManager.isBlacklisted(l.hostPort))
+      {
+        if (blacklistedServers == null)
+        {
+          blacklistedServers = new ArrayList<>(latencyByServer.size());
+        }
+        blacklistedServers.add(l.hostPort);
+        continue;
+      }
+
+      synchronized (l)
+      {
+        l.sample(now, halfLifeNanos);
+        if (! Double.isNaN(l.averageNanos))
+        {
+          knownAverageTotal += l.averageNanos;
+          numKnownAverages++;
+        }
+      }
+
+      available.add(l);
+    }
+
+
+    // Compute the cost for each available server.  Servers for which we don't
+    // have any response time information will be assumed to be average.
+    final double defaultAverage;
+    if (numKnownAverages == 0)
+    {
+      defaultAverage = 1.0d;
+    }
+    else
+    {
+      defaultAverage = knownAverageTotal / numKnownAverages;
+    }
+
+    final Map<ServerLatency,Double> costs =
+         new IdentityHashMap<>(StaticUtils.computeMapCapacity(
+              available.size()));
+    for (final ServerLatency l : available)
+    {
+      costs.put(l, l.getCost(defaultAverage));
+    }
+
+
+    // Use the power of two choices to select the server to try first, and then
+    // the other candidate.  If both of those fail, then try the remaining
+    // servers in order of increasing cost.
+    final List<ServerLatency> attemptOrder = new ArrayList<>(available.size());
+    if (available.size() == 1)
+    {
+      attemptOrder.add(available.get(0));
+    }
+    else if (available.size() > 1)
+    {
+      final ThreadLocalRandom random = ThreadLocalRandom.current();
+      final int firstIndex = random.nextInt(available.size());
+      int secondIndex = random.nextInt(available.size() - 1);
+      if (secondIndex >= firstIndex)
+      {
+        secondIndex++;
+      }
+
+      final ServerLatency first = available.get(firstIndex);
+      final ServerLatency second = available.get(secondIndex);
+      if (costs.get(second) < costs.get(first))
+      {
+        attemptOrder.add(second);
+        attemptOrder.add(first);
+      }
+      else
+      {
+        attemptOrder.add(first);
+        attemptOrder.add(second);
+      }
+
+      if (available.size() > 2)
+      {
+        final List<ServerLatency> remaining = new ArrayList<>(available);
+        remaining.remove(first);
+        remaining.remove(second);
+        Collections.sort(remaining, new Comparator<ServerLatency>()
+        {
+          @Override()
+          public int compare(@NotNull final ServerLatency l1,
+                             @NotNull final ServerLatency l2)
+          {
+            return Double.compare(costs.get(l1), costs.get(l2));
+          }
+        });
+        attemptOrder.addAll(remaining);
+      }
+    }
+
+    LDAPException lastException = null;
+    for (final ServerLatency l : attemptOrder)
+    {
+      try
+      {
+        final LDAPConnection conn = new LDAPConnection(socketFactory,
+             connectionOptions, l.hostPort.getFirst(), l.hostPort.getSecond());
+        doBindPostConnectAndHealthCheckProcessing(conn, bindRequest,
+             postConnectProcessor, healthCheck);
+        l.addConnection(conn);
+        associateConnectionWithThisServerSet(conn);
+        if (blacklistManager != null)
+        {
+          blacklistManager.connectionAttemptSucceeded(l.hostPort);
+        }
+        return conn;
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+        lastException = le;
+        if (blacklistManager != null)
+        {
+          blacklistManager.connectionAttemptFailed(l.hostPort, healthCheck);
+        }
+      }
+    }
+
+
+    // If we've gotten here, then we couldn't get a connection from a
+    // non-blacklisted server.  If there were any blacklisted servers, then try
+    // them as a last resort.
+    if (blacklistedServers != null)
+    {
+      for (final ObjectPair<String,Integer> hostPort : blacklistedServers)
+      {
+        // Only one probe at a time is allowed for a blacklisted server.
+        if (! blacklistManager.tryAcquireProbePermit(hostPort))
+        {
+          continue;
+        }
+
+        boolean probeSucceeded = false;
+        try
+        {
+          final LDAPConnection c = new LDAPConnection(socketFactory,
+               connectionOptions, hostPort.getFirst(), hostPort.getSecond());
+          doBindPostConnectAndHealthCheckProcessing(c, bindRequest,
+               postConnectProcessor, healthCheck);
+          latencyByServer.get(hostPort).addConnection(c);
+          associateConnectionWithThisServerSet(c);
+          blacklistManager.removeFromBlacklist(hostPort);
+          probeSucceeded = true;
+          return c;
+        }
+        catch (final LDAPException e)
+        {
+          Debug.debugException(e);
+          lastException = e;
+        }
+        finally
+        {
+          if (! probeSucceeded)
+          {
+            blacklistManager.probeFailed(hostPort, healthCheck);
+          }
+        }
+      }
+    }
+
+
+    // If we've gotten here, then we've failed to connect to any of the servers.
+    // If we didn't attempt to connect to any of them, then that's because they
+    // are all blacklisted and another thread is already probing each of them.
+    if (lastException == null)
+    {
+      throw new LDAPException(ResultCode.CONNECT_ERROR,
+           ERR_SERVER_SET_ALL_BLACKLISTED_SERVERS_BEING_PROBED.get(
+                blacklistedServers.size()));
+    }
+
+    // Otherwise, propagate the last exception to the caller.
+    throw lastException;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  protected void handleConnectionClosed(
+                      @NotNull final LDAPConnection connection,
+                      @NotNull final String host, final int port,
+                      @NotNull final DisconnectType disconnectType,
+                      @Nullable final String message,
+                      @Nullable final Throwable cause)
+  {
+    final ServerLatency l = latencyByServer.get(new ObjectPair<>(host, port));
+    if (l != null)
+    {
+      final long now = System.nanoTime();
+      synchronized (l)
+      {
+        // Capture any response times observed since the last sample before
+        // forgetting about the connection.
+        l.sample(now, halfLifeNanos);
+        l.connections.remove(connection);
+      }
+    }
+  }
+
+
+
+  /**
+   * Retrieves the blacklist manager for this server set.
+   *
+   * @return  The blacklist manager for this server set, or {@code null} if no
+   *          blacklist will be maintained.
+   */
+  @Nullable()
+  public ServerSetBlacklistManager getBlacklistManager()
+  {
+    return blacklistManager;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void shutDown()
+  {
+    if (blacklistManager != null)
+    {
+      blacklistManager.shutDown();
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void toString(@NotNull final StringBuilder buffer)
+  {
+    buffer.append("LatencyAwareServerSet(servers={");
+
+    final Iterator<ServerLatency> iterator =
+         latencyByServer.values().iterator();
+    while (iterator.hasNext())
+    {
+      final ServerLatency l = iterator.next();
+      final int numConnections;
+      final double averageNanos;
+      synchronized (l)
+      {
+        numConnections = l.connections.size();
+        averageNanos = l.averageNanos;
+      }
+
+      buffer.append('\'');
+      buffer.append(l.hostPort.getFirst());
+      buffer.append(':');
+      buffer.append(l.hostPort.getSecond());
+      buffer.append("':{connections=");
+      buffer.append(numConnections);
+      if (! Double.isNaN(averageNanos))
+      {
+        buffer.append(", averageResponseTimeMillis=");
+        buffer.append(averageNanos / 1_000_000.0d);
+      }
+      buffer.append('}');
+
+      if (iterator.hasNext())
+      {
+        buffer.append(", ");
+      }
+    }
+
+    buffer.append("}, responseTimeHalfLifeMillis=");
+    buffer.append(getResponseTimeHalfLifeMillis());
+    buffer.append(", includesAuthentication=");
+    buffer.append(bindRequest != null);
+    buffer.append(", includesPostConnectProcessing=");
+    buffer.append(postConnectProcessor != null);
+    buffer.append(')');
+  }
+
+
+
+  /**
+   * Retrieves the total number of non-bind responses and the total response
+   * time for those responses from the provided connection statistics.
+   *
+   * @param  s  The connection statistics to examine.
+   * @param  t  An array into which the total number of responses and the total
+   *            response time in nanoseconds will be written.
+   */
+  static void getResponseTotals(@NotNull final LDAPConnectionStatistics s,
+                                @NotNull final long[] t)
+  {
+    t[0] = s.getNumAddResponses() + s.getNumCompareResponses() +
+         s.getNumDeleteResponses() + s.getNumExtendedResponses() +
+         s.getNumModifyResponses() + s.getNumModifyDNResponses() +
+         s.getNumSearchDoneResponses();
+    t[1] = s.getTotalAddResponseTimeNanos() +
+         s.getTotalCompareResponseTimeNanos() +
+         s.getTotalDeleteResponseTimeNanos() +
+         s.getTotalExtendedResponseTimeNanos() +
+         s.getTotalModifyResponseTimeNanos() +
+         s.getTotalModifyDNResponseTimeNanos() +
+         s.getTotalSearchResponseTimeNanos();
+  }
+
+
+
+  /**
+   * This class holds the response time information for a single server.  All
+   * access to its mutable state must be synchronized on the object itself.
+   */
+  private static final class ServerLatency
+  {
+    // The moving average response time for the server, in nanoseconds, or NaN
+    // if no response times have been observed.
+    private double averageNanos;
+
+    // The time that the moving average was last updated.
+    private long lastUpdateNanos;
+
+    // The connections currently established to the server, mapped to the
+    // response totals observed for them at the time of the last sample.
+    @NotNull private final Map<LDAPConnection,long[]> connections;
+
+    // The address and port of the server.
+    @NotNull private final ObjectPair<String,Integer> hostPort;
+
+
+
+    /**
+     * Creates a new server latency object for the provided server.
+     *
+     * @param  hostPort  The address and port of the server.
+     */
+    private ServerLatency(@NotNull final ObjectPair<String,Integer> hostPort)
+    {
+      this.hostPort = hostPort;
+
+      averageNanos = Double.NaN;
+      lastUpdateNanos = 0L;
+      connections = new IdentityHashMap<>(StaticUtils.computeMapCapacity(10));
+    }
+
+
+
+    /**
+     * Starts tracking response times for the provided connection.
+     *
+     * @param  connection  The connection to track.
+     */
+    private synchronized void addConnection(
+                 @NotNull final LDAPConnection connection)
+    {
+      final long[] totals = new long[2];
+      getResponseTotals(connection.getConnectionStatistics(), totals);
+      connections.put(connection, totals);
+    }
+
+
+
+    /**
+     * Examines the statistics for all connections to the server and
+     * incorporates any new response times into the moving average.  The caller
+     * must hold the lock on this object.
+     *
+     * @param  now            The current time, as reported by
+     *                        {@code System.nanoTime}.
+     * @param  halfLifeNanos  The half-life for the moving average, in
+     *                        nanoseconds.
+     */
+    private void sample(final long now, final long halfLifeNanos)
+    {
+      long numResponses = 0L;
+      long responseTimeNanos = 0L;
+      final long[] current = new long[2];
+      for (final Map.Entry<LDAPConnection,long[]> e : connections.entrySet())
+      {
+        final long[] previous = e.getValue();
+        getResponseTotals(e.getKey().getConnectionStatistics(), current);
+
+        // If the statistics have been reset, then just start over from the
+        // new values.
+        if ((current[0] >= previous[0]) && (current[1] >= previous[1]))
+        {
+          numResponses += (current[0] - previous[0]);
+          responseTimeNanos += (current[1] - previous[1]);
+        }
+
+        previous[0] = current[0];
+        previous[1] = current[1];
+      }
+
+      if (numResponses <= 0L)
+      {
+        return;
+      }
+
+      final double observedNanos = ((double) responseTimeNanos) / numResponses;
+      if (Double.isNaN(averageNanos))
+      {
+        averageNanos = observedNanos;
+      }
+      else
+      {
+        // Give the new observation a weight that depends on how much time has
+        // passed since the last update, so that the average decays at the
+        // same rate regardless of how often it is sampled.
+        final double elapsed = Math.max(0L, (now - lastUpdateNanos));
+        final double weight =
+             1.0d - Math.pow(0.5d, (elapsed / halfLifeNanos));
+        averageNanos += (weight * (observedNanos - averageNanos));
+      }
+
+      lastUpdateNanos = now;
+    }
+
+
+
+    /**
+     * Retrieves the cost of establishing another connection to this server.
+     *
+     * @param  defaultAverageNanos  The average response time to assume if no
+     *                              response times have been observed for this
+     *                              server.
+     *
+     * @return  The cost of establishing another connection to this server.
+     */
+    private synchronized double getCost(final double defaultAverageNanos)
+    {
+      final double average;
+      if (Double.isNaN(averageNanos))
+      {
+        average = defaultAverageNanos;
+      }
+      else
+      {
+        average = averageNanos;
+      }
+
+      return average * (connections.size() + 1);
+    }
+  }
+}
@@ -0,0 +1,549 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.unboundid.util.NotNull;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a lock-free histogram that may be used to record the
+ * response times for operations processed on a connection or in a connection
+ * pool.  Values are recorded in nanoseconds and are placed in log-linear
+ * buckets, in which each power of two is divided into sixteen equally-sized
+ * sub-buckets so that the value reported for any percentile will be within
+ * about three percent of the actual value.  Values smaller than sixteen
+ * nanoseconds are recorded exactly, and values of 2<SUP>38</SUP> nanoseconds
+ * (a little more than four and a half minutes) or larger are all recorded in
+ * the last bucket.
+ * <BR><BR>
+ * A histogram may optionally be striped to avoid contention between threads
+ * that record values at the same time.  A striped histogram is divided into a
+ * number of stripes, and each thread records values in the stripe selected by
+ * its thread ID.  The memory for a stripe is not allocated until a value is
+ * first recorded in it, and the stripes are merged when a
+ * {@link LatencyHistogramSnapshot} is created.  Because response times for
+ * synchronous operations are recorded by the thread that invoked the
+ * operation, a histogram for a single connection may be updated by any number
+ * of threads, but rarely by more than one at a time, and striping it would
+ * only multiply its memory footprint.  Striping should therefore only be used
+ * for histograms that aggregate values across many connections, like those
+ * maintained for a connection pool.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class LatencyHistogram
+      implements Serializable
+{
+  /**
+   * The number of bits used to select a sub-bucket within a power of two.
+   */
+  private static final int SUB_BUCKET_BITS = 4;
+
+
+
+  /**
+   * The number of sub-buckets within each power of two.
+   */
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+
+
+  /**
+   * The exponent of the smallest power of two that will be recorded in the
+   * last bucket, regardless of its sub-bucket.
+   */
+  private static final int MAX_EXPONENT = 38;
+
+
+
+  /**
+   * The total number of buckets in the histogram.
+   */
+  static final int NUM_BUCKETS =
+       (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+
+
+  /**
+   * The index in a stripe's array that holds the sum of all recorded values.
+   */
+  private static final int TOTAL_INDEX = NUM_BUCKETS;
+
+
+
+  /**
+   * The index in a stripe's array that holds the smallest recorded value.
+   */
+  private static final int MIN_INDEX = NUM_BUCKETS + 1;
+
+
+
+  /**
+   * The index in a stripe's array that holds the largest recorded value.
+   */
+  private static final int MAX_INDEX = NUM_BUCKETS + 2;
+
+
+
+  /**
+   * The number of elements in the array for each stripe.
+   */
+  private static final int STRIPE_LENGTH = NUM_BUCKETS + 3;
+
+
+
+  /**
+   * The default number of stripes to use for a histogram, which will be the
+   * smallest power of two that is greater than or equal to the number of
+   * available processors, up to a maximum of sixteen.
+   */
+  private static final int DEFAULT_NUM_STRIPES;
+  static
+  {
+    final int processors =
+         Math.min(16, Math.max(1, Runtime.getRuntime().availableProcessors()));
+    int numStripes = 1;
+    while (numStripes < processors)
+    {
+      numStripes <<= 1;
+    }
+
+    DEFAULT_NUM_STRIPES = numStripes;
+  }
+
+
+
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = -2753093626214826436L;
+
+
+
+  // The stripes for this histogram.  An element will be null if no value has
+  // been recorded in that stripe since the histogram was created or last
+  // reset.
+  @NotNull private final AtomicReferenceArray<AtomicLongArray> stripes;
+
+  // The mask used to select a stripe from a thread ID.
+  private final int stripeMask;
+
+
+
+  /**
+   * Creates a new, empty latency histogram that is not striped.
+   */
+  LatencyHistogram()
+  {
+    this(false);
+  }
+
+
+
+  /**
+   * Creates a new, empty latency histogram.
+   *
+   * @param  striped  Indicates whether the histogram should be divided into
+   *                  multiple stripes to reduce contention between threads
+   *                  that record values at the same time.  If this is
+   *                  {@code false}, then all values will be recorded in a
+   *                  single stripe.
+   */
+  LatencyHistogram(final boolean striped)
+  {
+    final int numStripes = (striped ? DEFAULT_NUM_STRIPES : 1);
+    stripes = new AtomicReferenceArray<>(numStripes);
+    stripeMask = numStripes - 1;
+  }
+
+
+
+  /**
+   * Records the provided value in this histogram.
+   *
+   * @param  nanos  The value to record, in nanoseconds.  Negative values will
+   *                be treated as zero.
+   */
+  void record(final long nanos)
+  {
+    final long value = Math.max(0L, nanos);
+    final AtomicLongArray stripe = getStripe();
+    stripe.incrementAndGet(getBucketIndex(value));
+    stripe.addAndGet(TOTAL_INDEX, value);
+
+    long min = stripe.get(MIN_INDEX);
+    while ((value < min) && (! stripe.compareAndSet(MIN_INDEX, min, value)))
+    {
+      min = stripe.get(MIN_INDEX);
+    }
+
+    long max = stripe.get(MAX_INDEX);
+    while ((value > max) && (! stripe.compareAndSet(MAX_INDEX, max, value)))
+    {
+      max = stripe.get(MAX_INDEX);
+    }
+  }
+
+
+
+  /**
+   * Retrieves the stripe that should be used by the current thread, creating
+   * it if necessary.
+   *
+   * @return  The stripe that should be used by the current thread.
+   */
+  @NotNull()
+  private AtomicLongArray getStripe()
+  {
+    final long threadID = Thread.currentThread().getId();
+    final int index =
+         ((int) ((threadID * 0x9E3779B97F4A7C15L) >>> 32)) & stripeMask;
+
+    final AtomicLongArray existingStripe = stripes.get(index);
+    if (existingStripe != null)
+    {
+      return existingStripe;
+    }
+
+    final AtomicLongArray newStripe = new AtomicLongArray(STRIPE_LENGTH);
+    newStripe.set(MIN_INDEX, Long.MAX_VALUE);
+    if (stripes.compareAndSet(index, null, newStripe))
+    {
+      return newStripe;
+    }
+    else
+    {
+      return stripes.get(index);
+    }
+  }
+
+
+
+  /**
+   * Retrieves a snapshot of the values currently recorded in this histogram.
+   *
+   * @return  A snapshot of the values currently recorded in this histogram.
+   */
+  @NotNull()
+  LatencyHistogramSnapshot getSnapshot()
+  {
+    return getSnapshot(false);
+  }
+
+
+
+  /**
+   * Retrieves a snapshot of the values currently recorded in this histogram,
+   * optionally resetting the histogram so that the next snapshot will only
+   * include values recorded after this one was taken.  Each stripe is detached
+   * from the histogram before it is read, so values recorded while the
+   * snapshot is being taken will be included in either this snapshot or the
+   * next one, with the exception of any values being recorded by a thread that
+   * had obtained a reference to a stripe just before it was detached.
+   *
+   * @param  reset  Indicates whether to reset the histogram after taking the
+   *                snapshot.
+   *
+   * @return  A snapshot of the values recorded in this histogram.
+   */
+  @NotNull()
+  LatencyHistogramSnapshot getSnapshot(final boolean reset)
+  {
+    final long[] counts = new long[NUM_BUCKETS];
+    long count = 0L;
+    long total = 0L;
+    long min = Long.MAX_VALUE;
+    long max = 0L;
+
+    for (int i=0; i < stripes.length(); i++)
+    {
+      final AtomicLongArray stripe;
+      if (reset)
+      {
+        stripe = stripes.getAndSet(i, null);
+      }
+      else
+      {
+        stripe = stripes.get(i);
+      }
+
+      if (stripe == null)
+      {
+        continue;
+      }
+
+      long stripeCount = 0L;
+      for (int j=0; j < NUM_BUCKETS; j++)
+      {
+        final long c = stripe.get(j);
+        counts[j] += c;
+        stripeCount += c;
+      }
+
+      if (stripeCount > 0L)
+      {
+        count += stripeCount;
+        total += stripe.get(TOTAL_INDEX);
+        min = Math.min(min, stripe.get(MIN_INDEX));
+        max = Math.max(max, stripe.get(MAX_INDEX));
+      }
+    }
+
+    if (count == 0L)
+    {
+      return LatencyHistogramSnapshot.EMPTY;
+    }
+
+    return new LatencyHistogramSnapshot(counts, count, total, min, max);
+  }
+
+
+
+  /**
+   * Removes all values from this histogram.
+   */
+  void reset()
+  {
+    for (int i=0; i < stripes.length(); i++)
+    {
+      stripes.set(i, null);
+    }
+  }
+
+
+
+  /**
+   * Retrieves the index of the bucket in which the provided value should be
+   * recorded.
+   *
+   * @param  value  The value for which to retrieve the bucket index.  It must
+   *                not be negative.
+   *
+   * @return  The index of the bucket in which the provided value should be
+   *          recorded.
+   */
+  static int getBucketIndex(final long value)
+  {
+    if (value < SUB_BUCKET_COUNT)
+    {
+      return (int) value;
+    }
+
+    final int exponent = 63 - Long.numberOfLeadingZeros(value);
+    if (exponent >= MAX_EXPONENT)
+    {
+      return NUM_BUCKETS - 1;
+    }
+
+    final int subBucket =
+         (int) ((value >>> (exponent - SUB_BUCKET_BITS)) &
+              (SUB_BUCKET_COUNT - 1));
+    return ((exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT) + subBucket;
+  }
+
+
+
+  /**
+   * Retrieves the smallest value that will be recorded in the specified
+   * bucket.
+   *
+   * @param  index  The index of the bucket for which to retrieve the lower
+   *                bound.
+   *
+   * @return  The smallest value that will be recorded in the specified bucket.
+   */
+  static long getBucketLowerBound(final int index)
+  {
+    if (index < SUB_BUCKET_COUNT)
+    {
+      return index;
+    }
+
+    final int shift = (index / SUB_BUCKET_COUNT) - 1;
+    final long subBucket = index % SUB_BUCKET_COUNT;
+    return (SUB_BUCKET_COUNT + subBucket) << shift;
+  }
+
+
+
+  /**
+   * Retrieves the largest value that will be recorded in the specified bucket,
+   * with the exception of the last bucket, for which the largest value that
+   * would be recorded in it if the histogram did not have a maximum will be
+   * returned.
+   *
+   * @param  index  The index of the bucket for which to retrieve the upper
+   *                bound.
+   *
+   * @return  The largest value that will be recorded in the specified bucket.
+   */
+  static long getBucketUpperBound(final int index)
+  {
+    if (index < SUB_BUCKET_COUNT)
+    {
+      return index;
+    }
+
+    final int shift = (index / SUB_BUCKET_COUNT) - 1;
+    return getBucketLowerBound(index) + (1L << shift) - 1L;
+  }
+
+
+
+  /**
+   * Retrieves a string representation of this latency histogram.
+   *
+   * @return  A string representation of this latency histogram.
+   */
+  @Override()
+  @NotNull()
+  public String toString()
+  {
+    return getSnapshot().toString();
+  }
+
+
+
+  /**
+   * Creates a latency histogram for each of the operation types for which
+   * responses are received.
+   *
+   * @param  striped  Indicates whether the histograms should be striped to
+   *                  reduce contention between threads that record values at
+   *                  the same time.  This should only be {@code true} for
+   *                  histograms that aggregate values across many connections.
+   *
+   * @return  An array of latency histograms, indexed by the ordinal of the
+   *          associated operation type, in which the elements for operation
+   *          types without responses (abandon and unbind) will be
+   *          {@code null}.
+   */
+  @NotNull()
+  static LatencyHistogram[] createOperationHistograms(final boolean striped)
+  {
+    final OperationType[] types = OperationType.values();
+    final LatencyHistogram[] histograms = new LatencyHistogram[types.length];
+    for (final OperationType t : types)
+    {
+      if ((t != OperationType.ABANDON) && (t != OperationType.UNBIND))
+      {
+        histograms[t.ordinal()] = new LatencyHistogram(striped);
+      }
+    }
+
+    return histograms;
+  }
+
+
+
+  /**
+   * Retrieves a snapshot of the specified operation histogram from the
+   * provided array.
+   *
+   * @param  histograms     The array of histograms created by the
+   *                        {@link #createOperationHistograms} method.
+   * @param  operationType  The operation type for which to retrieve the
+   *                        snapshot.
+   * @param  reset          Indicates whether to reset the histogram after
+   *                        taking the snapshot.
+   *
+   * @return  The snapshot for the specified operation type, or an empty
+   *          snapshot if the operation type does not have responses.
+   */
+  @NotNull()
+  static LatencyHistogramSnapshot getOperationSnapshot(
+              @NotNull final LatencyHistogram[] histograms,
+              @NotNull final OperationType operationType,
+              final boolean reset)
+  {
+    final LatencyHistogram h = histograms[operationType.ordinal()];
+    if (h == null)
+    {
+      return LatencyHistogramSnapshot.EMPTY;
+    }
+
+    return h.getSnapshot(reset);
+  }
+
+
+
+  /**
+   * Records a value in the specified operation histogram from the provided
+   * array, if it exists.
+   *
+   * @param  histograms     The array of histograms created by the
+   *                        {@link #createOperationHistograms} method.
+   * @param  operationType  The operation type for which to record the value.
+   * @param  nanos          The value to record, in nanoseconds.
+   */
+  static void recordOperation(@NotNull final LatencyHistogram[] histograms,
+                              @NotNull final OperationType operationType,
+                              final long nanos)
+  {
+    final LatencyHistogram h = histograms[operationType.ordinal()];
+    if (h != null)
+    {
+      h.record(nanos);
+    }
+  }
+
+
+
+  /**
+   * Resets all of the histograms in the provided array.
+   *
+   * @param  histograms  The array of histograms created by the
+   *                     {@link #createOperationHistograms} method.
+   */
+  static void resetOperations(@NotNull final LatencyHistogram[] histograms)
+  {
+    for (final LatencyHistogram h : histograms)
+    {
+      if (h != null)
+      {
+        h.reset();
+      }
+    }
+  }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.Serializable;
+import java.text.DecimalFormat;
+
+import com.unboundid.util.NotMutable;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+import com.unboundid.util.Validator;
+
+
+
+/**
+ * This class provides an immutable snapshot of the response times recorded
+ * for a type of operation on a connection or in a connection pool.  Response
+ * times are recorded in log-linear buckets, so the values returned for
+ * percentiles are approximations that will be within about three percent of
+ * the actual response times, while the minimum, maximum, total, and average
+ * response times are exact.
+ * <BR><BR>
+ * Snapshots may be obtained using the
+ * {@link LDAPConnectionStatistics#getResponseTimeHistogram(OperationType)} and
+ * {@link LDAPConnectionPoolStatistics#getResponseTimeHistogram(OperationType)}
+ * methods, and the versions of those methods that take a {@code reset}
+ * argument may be used to obtain a snapshot for each interval rather than
+ * since the statistics were created.  Snapshots may be combined using the
+ * {@link #merge} method (for example, to obtain a histogram that covers
+ * all types of operations, or all of the connections in a set of pools).
+ * <BR><BR>
+ * <H2>Example</H2>
+ * The following example demonstrates the process for obtaining the 99th
+ * percentile search response time for a connection pool and resetting the
+ * histogram so that the next call will reflect only the searches processed
+ * after this one:
+ * <PRE>
+ * LatencyHistogramSnapshot searchTimes = connectionPool.
+ *      getConnectionPoolStatistics().getResponseTimeHistogram(
+ *           OperationType.SEARCH, true);
+ * long p99SearchTimeNanos = searchTimes.getPercentileNanos(99.0d);
+ * </PRE>
+ */
+@NotMutable()
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+public final class LatencyHistogramSnapshot
+       implements Serializable
+{
+  /**
+   * A snapshot that does not contain any values.
+   */
+  @NotNull static final LatencyHistogramSnapshot EMPTY =
+       new LatencyHistogramSnapshot(new long[LatencyHistogram.NUM_BUCKETS], 0L,
+            0L, 0L, 0L);
+
+
+
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = 5209166392710374318L;
+
+
+
+  // The number of values recorded in each bucket.
+  @NotNull private final long[] bucketCounts;
+
+  // The total number of values in this snapshot.
+  private final long count;
+
+  // The largest value in this snapshot.
+  private final long maxNanos;
+
+  // The smallest value in this snapshot.
+  private final long minNanos;
+
+  // The sum of all values in this snapshot.
+  private final long totalNanos;
+
+
+
+  /**
+   * Creates a new latency histogram snapshot with the provided information.
+   *
+   * @param  bucketCounts  The number of values recorded in each bucket.  The
+   *                       array will be used directly and must not be
+   *                       altered after the snapshot is created.
+   * @param  count         The total number of values in the snapshot.
+   * @param  totalNanos    The sum of all values in the snapshot.
+   * @param  minNanos      The smallest value in the snapshot.
+   * @param  maxNanos      The largest value in the snapshot.
+   */
+  LatencyHistogramSnapshot(@NotNull final long[] bucketCounts,
+                           final long count, final long totalNanos,
+                           final long minNanos, final long maxNanos)
+  {
+    this.bucketCounts = bucketCounts;
+    this.count        = count;
+    this.totalNanos   = totalNanos;
+    this.minNanos     = minNanos;
+    this.maxNanos     = maxNanos;
+  }
+
+
+
+  /**
+   * Retrieves the number of response times included in this snapshot.
+   *
+   * @return  The number of response times included in this snapshot.
+   */
+  public long getCount()
+  {
+    return count;
+  }
+
+
+
+  /**
+   * Retrieves the sum of all response times included in this snapshot.
+   *
+   * @return  The sum of all response times included in this snapshot, in
+   *          nanoseconds.
+   */
+  public long getTotalNanos()
+  {
+    return totalNanos;
+  }
+
+
+
+  /**
+   * Retrieves the smallest response time included in this snapshot.
+   *
+   * @return  The smallest response time included in this snapshot, in
+   *          nanoseconds, or zero if the snapshot is empty.
+   */
+  public long getMinimumNanos()
+  {
+    return minNanos;
+  }
+
+
+
+  /**
+   * Retrieves the largest response time included in this snapshot.
+   *
+   * @return  The largest response time included in this snapshot, in
+   *          nanoseconds, or zero if the snapshot is empty.
+   */
+  public long getMaximumNanos()
+  {
+    return maxNanos;
+  }
+
+
+
+  /**
+   * Retrieves the average response time for the values included in this
+   * snapshot.
+   *
+   * @return  The average response time in nanoseconds, or {@code Double.NaN}
+   *          if the snapshot is empty.
+   */
+  public double getAverageNanos()
+  {
+    if (count == 0L)
+    {
+      return Double.NaN;
+    }
+
+    return 1.0d * totalNanos / count;
+  }
+
+
+
+  /**
+   * Retrieves an approximation of the response time at the specified
+   * percentile.  The value returned will be the midpoint of the bucket that
+   * contains the response time at that percentile, constrained to fall between
+   * the minimum and maximum response times.
+   *
+   * @param  percentile  The percentile for which to retrieve the response
+   *                     time.  It must be greater than zero and less than or
+   *                     equal to 100.
+   *
+   * @return  An approximation of the response time at the specified
+   *          percentile, in nanoseconds, or zero if the snapshot is empty.
+   */
+  public long getPercentileNanos(final double percentile)
+  {
+    Validator.ensureTrue(((percentile > 0.0d) && (percentile <= 100.0d)),
+         "LatencyHistogramSnapshot.getPercentileNanos.percentile must be " +
+              "greater than zero and less than or equal to 100.");
+
+    if (count == 0L)
+    {
+      return 0L;
+    }
+
+    // Round the rank rather than taking the ceiling so that floating-point
+    // error cannot push a percentile like 99.9 into the next bucket.
+    final long rank =
+         Math.max(1L, Math.round((percentile / 100.0d) * count));
+    if (rank >= count)
+    {
+      return maxNanos;
+    }
+
+    long cumulativeCount = 0L;
+    for (int i=0; i < bucketCounts.length; i++)
+    {
+      cumulativeCount += bucketCounts[i];
+      if (cumulativeCount >= rank)
+      {
+        final long lower = LatencyHistogram.getBucketLowerBound(i);
+        final long upper = LatencyHistogram.getBucketUpperBound(i);
+        final long midpoint = lower + ((upper - lower) / 2L);
+        return Math.min(maxNanos, Math.max(minNanos, midpoint));
+      }
+    }
+
+    return maxNanos;
+  }
+
+
+
+  /**
+   * Retrieves a snapshot that combines the values in this snapshot with those
+   * in the provided snapshot.
+   *
+   * @param  snapshot  The snapshot to merge with this snapshot.  It must not
+   *                   be {@code null}.
+   *
+   * @return  A snapshot that combines the values in this snapshot with those
+   *          in the provided snapshot.
+   */
+  @NotNull()
+  public LatencyHistogramSnapshot merge(
+              @NotNull final LatencyHistogramSnapshot snapshot)
+  {
+    Validator.ensureNotNull(snapshot);
+
+    if (snapshot.count == 0L)
+    {
+      return this;
+    }
+    else if (count == 0L)
+    {
+      return snapshot;
+    }
+
+    final long[] mergedCounts = new long[bucketCounts.length];
+    for (int i=0; i < mergedCounts.length; i++)
+    {
+      mergedCounts[i] = bucketCounts[i] + snapshot.bucketCounts[i];
+    }
+
+    return new LatencyHistogramSnapshot(mergedCounts, count + snapshot.count,
+         totalNanos + snapshot.totalNanos,
+         Math.min(minNanos, snapshot.minNanos),
+         Math.max(maxNanos, snapshot.maxNanos));
+  }
+
+
+
+  /**
+   * Retrieves a string representation of this latency histogram snapshot.
+   *
+   * @return  A string representation of this latency histogram snapshot.
+   */
+  @Override()
+  @NotNull()
+  public String toString()
+  {
+    final StringBuilder buffer = new StringBuilder();
+    toString(buffer);
+    return buffer.toString();
+  }
+
+
+
+  /**
+   * Appends a string representation of this latency histogram snapshot to the
+   * provided buffer.
+   *
+   * @param  buffer  The buffer to which the string representation should be
+   *                 appended.
+   */
+  public void toString(@NotNull final StringBuilder buffer)
+  {
+    buffer.append("LatencyHistogramSnapshot(count=");
+    buffer.append(count);
+
+    if (count > 0L)
+    {
+      final DecimalFormat f = new DecimalFormat("0.000");
+
+      buffer.append(", minNanos=");
+      buffer.append(minNanos);
+      buffer.append(", averageNanos=");
+      buffer.append(f.format(getAverageNanos()));
+      buffer.append(", p50Nanos=");
+      buffer.append(getPercentileNanos(50.0d));
+      buffer.append(", p90Nanos=");
+      buffer.append(getPercentileNanos(90.0d));
+      buffer.append(", p99Nanos=");
+      buffer.append(getPercentileNanos(99.0d));
+      buffer.append(", p999Nanos=");
+      buffer.append(getPercentileNanos(99.9d));
+      buffer.append(", maxNanos=");
+      buffer.append(maxNanos);
+    }
+
+    buffer.append(')');
+  }
+}
@@ -0,0 +1,706 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.ldap.matchingrules.MatchingRule;
+import com.unboundid.ldap.sdk.schema.Schema;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+import static com.unboundid.ldap.sdk.LDAPMessages.*;
+
+
+
+/**
+ * This class provides a map of attributes for an {@link Entry} that is backed
+ * by the encoded attribute list of a search result entry.  The encoded form is
+ * validated when the map is created, but {@link Attribute} objects are not
+ * created until the first time that the contents of the map are accessed, and
+ * attribute values will reference the encoded bytes rather than copies of them.
+ * <BR><BR>
+ * Every public method that accesses the contents of the map decodes the
+ * attributes first, so the map behaves exactly like a {@code LinkedHashMap}
+ * that was populated eagerly.  Instances are serialized as regular
+ * {@code LinkedHashMap} objects.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class LazilyDecodedAttributeMap
+      extends LinkedHashMap<String,Attribute>
+{
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = 8212640793426475918L;
+
+
+
+  // The encoded attribute list, or null if it has already been decoded.
+  @Nullable private transient volatile byte[] encodedAttributes;
+
+  // The schema to use to select matching rules for the attributes.
+  @Nullable private final transient Schema schema;
+
+
+
+  /**
+   * Creates a new lazily decoded attribute map from the provided encoded
+   * attribute list.
+   *
+   * @param  encodedAttributes  The value of the encoded attribute list
+   *                            sequence.  It must not be {@code null}, and it
+   *                            must have been validated with the
+   *                            {@link #validate} method.
+   * @param  numAttributes      The number of attributes in the encoded list,
+   *                            as returned by the {@code validate} method.
+   * @param  schema             The schema to use to select the matching rule
+   *                            for each attribute.  It may be {@code null} if
+   *                            the default matching rule should be used.
+   */
+  LazilyDecodedAttributeMap(@NotNull final byte[] encodedAttributes,
+                            final int numAttributes,
+                            @Nullable final Schema schema)
+  {
+    super(StaticUtils.computeMapCapacity(numAttributes));
+
+    this.encodedAttributes = encodedAttributes;
+    this.schema = schema;
+  }
+
+
+
+  /**
+   * Ensures that the provided byte array contains a well-formed encoded
+   * attribute list, in which each element is a sequence of an attribute
+   * description followed by a set of values.
+   *
+   * @param  encodedAttributes  The value of the encoded attribute list
+   *                            sequence.  It must not be {@code null}.
+   *
+   * @return  The number of attributes contained in the encoded list.
+   *
+   * @throws  LDAPException  If the provided array does not contain a
+   *                         well-formed encoded attribute list.
+   */
+  static int validate(@NotNull final byte[] encodedAttributes)
+         throws LDAPException
+  {
+    final int[] position = new int[1];
+    final int end = encodedAttributes.length;
+
+    int numAttributes = 0;
+    while (position[0] < end)
+    {
+      final int attrLength = readHeader(encodedAttributes, position, end);
+      final int attrEnd = position[0] + attrLength;
+
+      final int nameLength = readHeader(encodedAttributes, position, attrEnd);
+      position[0] += nameLength;
+
+      final int valueSetLength =
+           readHeader(encodedAttributes, position, attrEnd);
+      final int valueSetEnd = position[0] + valueSetLength;
+      while (position[0] < valueSetEnd)
+      {
+        final int valueLength =
+             readHeader(encodedAttributes, position, valueSetEnd);
+        position[0] += valueLength;
+      }
+
+      if (position[0] != attrEnd)
+      {
+        throw new LDAPException(ResultCode.DECODING_ERROR,
+             ERR_LAZY_ATTRIBUTES_ELEMENT_TRUNCATED.get(position[0]));
+      }
+
+      numAttributes++;
+    }
+
+    return numAttributes;
+  }
+
+
+
+  /**
+   * Reads the BER type and length of the element starting at the indicated
+   * position, and advances the position to the start of the element value.
+   *
+   * @param  b         The array containing the encoded element.
+   * @param  position  A single-element array holding the position at which
+   *                   the element starts.  It will be updated to hold the
+   *                   position at which the element value starts.
+   * @param  end       The position of the end of the enclosing element.
+   *
+   * @return  The length of the element value.
+   *
+   * @throws  LDAPException  If the element header is malformed, or if the
+   *                         element value would extend beyond the end of the
+   *                         enclosing element.
+   */
+  private static int readHeader(@NotNull final byte[] b,
+                                @NotNull final int[] position, final int end)
+          throws LDAPException
+  {
+    final int startPos = position[0];
+    int pos = startPos + 1;
+    if (pos >= end)
+    {
+      throw new LDAPException(ResultCode.DECODING_ERROR,
+           ERR_LAZY_ATTRIBUTES_ELEMENT_TRUNCATED.get(startPos));
+    }
+
+    int length = (b[pos++] & 0xFF);
+    if ((length & 0x80) != 0)
+    {
+      final int numLengthBytes = (length & 0x7F);
+      if ((numLengthBytes < 1) || (numLengthBytes > 4))
+      {
+        throw new LDAPException(ResultCode.DECODING_ERROR,
+             ERR_LAZY_ATTRIBUTES_INVALID_LENGTH.get(startPos));
+      }
+
+      if ((end - pos) < numLengthBytes)
+      {
+        throw new LDAPException(ResultCode.DECODING_ERROR,
+             ERR_LAZY_ATTRIBUTES_ELEMENT_TRUNCATED.get(startPos));
+      }
+
+      length = 0;
+      for (int i=0; i < numLengthBytes; i++)
+      {
+        length = (length << 8) | (b[pos++] & 0xFF);
+      }
+    }
+
+    if ((length < 0) || (length > (end - pos)))
+    {
+      throw new LDAPException(ResultCode.DECODING_ERROR,
+           ERR_LAZY_ATTRIBUTES_ELEMENT_TRUNCATED.get(startPos));
+    }
+
+    position[0] = pos;
+    return length;
+  }
+
+
+
+  /**
+   * Decodes the encoded attribute list into this map if that has not already
+   * been done.
+   */
+  private void ensureDecoded()
+  {
+    if (encodedAttributes == null)
+    {
+      return;
+    }
+
+    synchronized (this)
+    {
+      final byte[] b = encodedAttributes;
+      if (b == null)
+      {
+        return;
+      }
+
+      try
+      {
+        decode(b);
+      }
+      catch (final LDAPException le)
+      {
+        // This should never happen, since the encoded attributes were
+        // validated before this map was created.
+        throw new IllegalStateException(le.getMessage(), le);
+      }
+
+      encodedAttributes = null;
+    }
+  }
+
+
+
+  /**
+   * Decodes the provided encoded attribute list into this map.
+   *
+   * @param  b  The encoded attribute list to decode.
+   *
+   * @throws  LDAPException  If the encoded attribute list is malformed.
+   */
+  private void decode(@NotNull final byte[] b)
+          throws LDAPException
+  {
+    final int[] position = new int[1];
+    final int[] valuePosition = new int[1];
+    while (position[0] < b.length)
+    {
+      final int attrLength = readHeader(b, position, b.length);
+      final int attrEnd = position[0] + attrLength;
+
+      final int nameLength = readHeader(b, position, attrEnd);
+      final String name =
+           StaticUtils.toUTF8String(b, position[0], nameLength);
+      position[0] += nameLength;
+
+      final int valueSetLength = readHeader(b, position, attrEnd);
+      final int valueSetEnd = position[0] + valueSetLength;
+
+      int numValues = 0;
+      valuePosition[0] = position[0];
+      while (valuePosition[0] < valueSetEnd)
+      {
+        final int valueLength = readHeader(b, valuePosition, valueSetEnd);
+        valuePosition[0] += valueLength;
+        numValues++;
+      }
+
+      final ASN1OctetString[] values = new ASN1OctetString[numValues];
+      for (int i=0; i < numValues; i++)
+      {
+        final int valueLength = readHeader(b, position, valueSetEnd);
+        values[i] = new ASN1OctetString(b, position[0], valueLength);
+        position[0] += valueLength;
+      }
+
+      final MatchingRule matchingRule =
+           MatchingRule.selectEqualityMatchingRule(name, schema);
+      final Attribute a = new Attribute(name, matchingRule, values);
+
+      final String lowerName = StaticUtils.toLowerCase(name);
+      final Attribute existingAttr = super.get(lowerName);
+      if (existingAttr == null)
+      {
+        super.put(lowerName, a);
+      }
+      else
+      {
+        super.put(lowerName, Attribute.mergeAttributes(existingAttr, a));
+      }
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public int size()
+  {
+    ensureDecoded();
+    return super.size();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public boolean isEmpty()
+  {
+    ensureDecoded();
+    return super.isEmpty();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public Attribute get(@Nullable final Object key)
+  {
+    ensureDecoded();
+    return super.get(key);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public Attribute getOrDefault(@Nullable final Object key,
+                                @Nullable final Attribute defaultValue)
+  {
+    ensureDecoded();
+    return super.getOrDefault(key, defaultValue);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public boolean containsKey(@Nullable final Object key)
+  {
+    ensureDecoded();
+    return super.containsKey(key);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public boolean containsValue(@Nullable final Object value)
+  {
+    ensureDecoded();
+    return super.containsValue(value);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public Attribute put(@NotNull final String key,
+                       @NotNull final Attribute value)
+  {
+    ensureDecoded();
+    return super.put(key, value);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public Attribute putIfAbsent(@NotNull final String key,
+                               @NotNull final Attribute value)
+  {
+    ensureDecoded();
+    return super.putIfAbsent(key, value);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public boolean remove(@Nullable final Object key,
+                        @Nullable final Object value)
+  {
+    ensureDecoded();
+    return super.remove(key, value);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public boolean replace(@NotNull final String key,
+                         @Nullable final Attribute oldValue,
+                         @NotNull final Attribute newValue)
+  {
+    ensureDecoded();
+    return super.replace(key, oldValue, newValue);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public Attribute replace(@NotNull final String key,
+                           @NotNull final Attribute value)
+  {
+    ensureDecoded();
+    return super.replace(key, value);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void replaceAll(@NotNull final BiFunction<? super String,
+                              ? super Attribute,? extends Attribute> function)
+  {
+    ensureDecoded();
+    super.replaceAll(function);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public Attribute computeIfAbsent(@NotNull final String key,
+                   @NotNull final Function<? super String,? extends Attribute>
+                        mappingFunction)
+  {
+    ensureDecoded();
+    return super.computeIfAbsent(key, mappingFunction);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public Attribute computeIfPresent(@NotNull final String key,
+                   @NotNull final BiFunction<? super String,? super Attribute,
+                        ? extends Attribute> remappingFunction)
+  {
+    ensureDecoded();
+    return super.computeIfPresent(key, remappingFunction);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public Attribute compute(@NotNull final String key,
+                   @NotNull final BiFunction<? super String,? super Attribute,
+                        ? extends Attribute> remappingFunction)
+  {
+    ensureDecoded();
+    return super.compute(key, remappingFunction);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public Attribute merge(@NotNull final String key,
+                   @NotNull final Attribute value,
+                   @NotNull final BiFunction<? super Attribute,
+                        ? super Attribute,? extends Attribute>
+                        remappingFunction)
+  {
+    ensureDecoded();
+    return super.merge(key, value, remappingFunction);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void putAll(
+       @NotNull final Map<? extends String,? extends Attribute> m)
+  {
+    ensureDecoded();
+    super.putAll(m);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @Nullable()
+  public Attribute remove(@Nullable final Object key)
+  {
+    ensureDecoded();
+    return super.remove(key);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void clear()
+  {
+    ensureDecoded();
+    super.clear();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public Set<String> keySet()
+  {
+    ensureDecoded();
+    return super.keySet();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public Collection<Attribute> values()
+  {
+    ensureDecoded();
+    return super.values();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public Set<Map.Entry<String,Attribute>> entrySet()
+  {
+    ensureDecoded();
+    return super.entrySet();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void forEach(
+       @NotNull final BiConsumer<? super String,? super Attribute> action)
+  {
+    ensureDecoded();
+    super.forEach(action);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public int hashCode()
+  {
+    ensureDecoded();
+    return super.hashCode();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public boolean equals(@Nullable final Object o)
+  {
+    ensureDecoded();
+    return super.equals(o);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public String toString()
+  {
+    ensureDecoded();
+    return super.toString();
+  }
+
+
+
+  /**
+   * Retrieves a shallow copy of this map.  The attributes are decoded before
+   * the map is copied, so the copy will not share any pending decoding state
+   * with this map.
+   *
+   * @return  A shallow copy of this map.
+   */
+  @Override()
+  @NotNull()
+  public Object clone()
+  {
+    ensureDecoded();
+    return super.clone();
+  }
+
+
+
+  /**
+   * Retrieves a regular {@code LinkedHashMap} with the decoded contents of
+   * this map to be serialized in place of this map.
+   *
+   * @return  A regular {@code LinkedHashMap} to be serialized in place of this
+   *          map.
+   */
+  @NotNull()
+  private Object writeReplace()
+  {
+    ensureDecoded();
+    return new LinkedHashMap<>(this);
+  }
+}
@@ -44,6 +44,7 @@ import java.util.List;
 import com.unboundid.asn1.ASN1Buffer;
 import com.unboundid.asn1.ASN1BufferSequence;
 import com.unboundid.asn1.ASN1BufferSet;
+import com.unboundid.asn1.ASN1Constants;
 import com.unboundid.asn1.ASN1Element;
 import com.unboundid.asn1.ASN1Enumerated;
 import com.unboundid.asn1.ASN1Exception;
@@ -116,6 +117,9 @@ public final class Modification
   // The name of the attribute to target with this modification.
   @NotNull private final String attributeName;
 
+  // The number of bytes in the encoded value set for this modification.
+  private int encodedValueSetLength = -1;
+
 
 
   /**
@@ -390,13 +394,22 @@ public final class Modification
    */
   public void writeTo(@NotNull final ASN1Buffer buffer)
   {
-    final ASN1BufferSequence modSequence = buffer.beginSequence();
+    final int valueSetLength = getEncodedValueSetLength();
+    final int attrSequenceLength =
+         ASN1Buffer.getEncodedOctetStringSize(attributeName) +
+              ASN1Buffer.getEncodedElementSize(valueSetLength);
+    final ASN1BufferSequence modSequence = buffer.beginSequence(
+         ASN1Constants.UNIVERSAL_SEQUENCE_TYPE,
+         ASN1Buffer.getEncodedIntegerSize(modificationType.intValue()) +
+              ASN1Buffer.getEncodedElementSize(attrSequenceLength));
     buffer.addEnumerated(modificationType.intValue());
 
-    final ASN1BufferSequence attrSequence = buffer.beginSequence();
+    final ASN1BufferSequence attrSequence = buffer.beginSequence(
+         ASN1Constants.UNIVERSAL_SEQUENCE_TYPE, attrSequenceLength);
     buffer.addOctetString(attributeName);
 
-    final ASN1BufferSet valueSet = buffer.beginSet();
+    final ASN1BufferSet valueSet =
+         buffer.beginSet(ASN1Constants.UNIVERSAL_SET_TYPE, valueSetLength);
     for (final ASN1OctetString v : values)
     {
       buffer.addElement(v);
@@ -408,6 +421,50 @@ public final class Modification
 
 
 
+  /**
+   * Retrieves the number of bytes that will be written when this modification
+   * is written to an ASN.1 buffer.
+   *
+   * @return  The number of bytes that will be written when this modification
+   *          is written to an ASN.1 buffer.
+   */
+  public int getEncodedSize()
+  {
+    final int attrSequenceLength =
+         ASN1Buffer.getEncodedOctetStringSize(attributeName) +
+              ASN1Buffer.getEncodedElementSize(getEncodedValueSetLength());
+    return ASN1Buffer.getEncodedElementSize(
+         ASN1Buffer.getEncodedIntegerSize(modificationType.intValue()) +
+              ASN1Buffer.getEncodedElementSize(attrSequenceLength));
+  }
+
+
+
+  /**
+   * Retrieves the number of bytes in the encoded value of the set that holds
+   * the values for this modification.
+   *
+   * @return  The number of bytes in the encoded value of the set that holds
+   *          the values for this modification.
+   */
+  private int getEncodedValueSetLength()
+  {
+    if (encodedValueSetLength < 0)
+    {
+      int length = 0;
+      for (final ASN1OctetString value : values)
+      {
+        length += ASN1Buffer.getEncodedSize(value);
+      }
+
+      encodedValueSetLength = length;
+    }
+
+    return encodedValueSetLength;
+  }
+
+
+
   /**
    * Encodes this modification to an ASN.1 sequence suitable for use in the LDAP
    * protocol.
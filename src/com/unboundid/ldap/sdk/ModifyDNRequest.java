@@ -39,7 +39,6 @@ package com.unboundid.ldap.sdk;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Timer;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -428,6 +427,7 @@ public final class ModifyDNRequest
   {
     Validator.ensureNotNull(dn);
 
+    clearPreparedProtocolOp();
     this.dn = dn;
   }
 
@@ -443,6 +443,7 @@ public final class ModifyDNRequest
   {
     Validator.ensureNotNull(dn);
 
+    clearPreparedProtocolOp();
     this.dn = dn.toString();
   }
 
@@ -469,6 +470,7 @@ public final class ModifyDNRequest
   {
     Validator.ensureNotNull(newRDN);
 
+    clearPreparedProtocolOp();
     this.newRDN = newRDN;
   }
 
@@ -483,6 +485,7 @@ public final class ModifyDNRequest
   {
     Validator.ensureNotNull(newRDN);
 
+    clearPreparedProtocolOp();
     this.newRDN = newRDN.toString();
   }
 
@@ -507,6 +510,7 @@ public final class ModifyDNRequest
    */
   public void setDeleteOldRDN(final boolean deleteOldRDN)
   {
+    clearPreparedProtocolOp();
     this.deleteOldRDN = deleteOldRDN;
   }
 
@@ -533,6 +537,7 @@ public final class ModifyDNRequest
    */
   public void setNewSuperiorDN(@Nullable final String newSuperiorDN)
   {
+    clearPreparedProtocolOp();
     this.newSuperiorDN = newSuperiorDN;
   }
 
@@ -547,6 +552,7 @@ public final class ModifyDNRequest
    */
   public void setNewSuperiorDN(@Nullable final DN newSuperiorDN)
   {
+    clearPreparedProtocolOp();
     if (newSuperiorDN == null)
     {
       this.newSuperiorDN = null;
@@ -720,7 +726,8 @@ public final class ModifyDNRequest
   {
     // Create the LDAP message.
     messageID = connection.nextMessageID();
-    final LDAPMessage message = new LDAPMessage(messageID, this, getControls());
+    final LDAPMessage message = new LDAPMessage(messageID,
+         getProtocolOpToSend(this), getControls());
 
 
     // If the provided async result listener is {@code null}, then we'll use
@@ -743,11 +750,10 @@ public final class ModifyDNRequest
 
       if (timeout > 0L)
       {
-        final Timer timer = connection.getTimer();
         final AsyncTimeoutTimerTask timerTask =
              new AsyncTimeoutTimerTask(helper);
-        timer.schedule(timerTask, timeout);
-        asyncRequestID.setTimerTask(timerTask);
+        asyncRequestID.setTimeout(
+             HashedWheelTimer.getInstance().newTimeout(timerTask, timeout));
       }
     }
 
@@ -808,7 +814,8 @@ public final class ModifyDNRequest
     // Create the LDAP message.
     messageID = connection.nextMessageID();
     final LDAPMessage message =
-         new LDAPMessage(messageID,  this, getControls());
+         new LDAPMessage(messageID, getProtocolOpToSend(this),
+              getControls());
 
 
     // Send the request to the server.
@@ -1124,6 +1131,7 @@ public final class ModifyDNRequest
     r.setResponseTimeoutMillis(getResponseTimeoutMillis(null));
     r.setIntermediateResponseListener(getIntermediateResponseListener());
     r.setReferralDepth(getReferralDepth());
+    r.setPreparedProtocolOp(getPreparedProtocolOp());
 
     return r;
   }
@@ -1186,6 +1194,8 @@ public final class ModifyDNRequest
       buffer.append('\'');
     }
 
+    appendTemplateValuesTo(buffer);
+
     final Control[] controls = getControls();
     if (controls.length > 0)
     {
@@ -41,13 +41,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Timer;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import com.unboundid.asn1.ASN1Buffer;
 import com.unboundid.asn1.ASN1BufferSequence;
+import com.unboundid.asn1.ASN1Constants;
 import com.unboundid.asn1.ASN1Element;
 import com.unboundid.asn1.ASN1OctetString;
 import com.unboundid.asn1.ASN1Sequence;
@@ -473,6 +473,7 @@ public final class ModifyRequest
   {
     Validator.ensureNotNull(dn);
 
+    clearPreparedProtocolOp();
     this.dn = dn;
   }
 
@@ -487,6 +488,7 @@ public final class ModifyRequest
   {
     Validator.ensureNotNull(dn);
 
+    clearPreparedProtocolOp();
     this.dn = dn.toString();
   }
 
@@ -514,6 +516,7 @@ public final class ModifyRequest
   {
     Validator.ensureNotNull(mod);
 
+    clearPreparedProtocolOp();
     modifications.add(mod);
   }
 
@@ -532,6 +535,7 @@ public final class ModifyRequest
   {
     Validator.ensureNotNull(mod);
 
+    clearPreparedProtocolOp();
     return modifications.remove(mod);
   }
 
@@ -548,6 +552,7 @@ public final class ModifyRequest
   {
     Validator.ensureNotNull(mod);
 
+    clearPreparedProtocolOp();
     modifications.clear();
     modifications.add(mod);
   }
@@ -567,6 +572,7 @@ public final class ModifyRequest
     Validator.ensureFalse(mods.length == 0,
          "ModifyRequest.setModifications.mods must not be empty.");
 
+    clearPreparedProtocolOp();
     modifications.clear();
     modifications.addAll(Arrays.asList(mods));
   }
@@ -586,6 +592,7 @@ public final class ModifyRequest
     Validator.ensureFalse(mods.isEmpty(),
          "ModifyRequest.setModifications.mods must not be empty.");
 
+    clearPreparedProtocolOp();
     modifications.clear();
     modifications.addAll(mods);
   }
@@ -609,11 +616,15 @@ public final class ModifyRequest
   @Override()
   public void writeTo(@NotNull final ASN1Buffer writer)
   {
-    final ASN1BufferSequence requestSequence =
-         writer.beginSequence(LDAPMessage.PROTOCOL_OP_TYPE_MODIFY_REQUEST);
+    final int modificationsLength = getEncodedModificationsLength();
+    final ASN1BufferSequence requestSequence = writer.beginSequence(
+         LDAPMessage.PROTOCOL_OP_TYPE_MODIFY_REQUEST,
+         ASN1Buffer.getEncodedOctetStringSize(dn) +
+              ASN1Buffer.getEncodedElementSize(modificationsLength));
     writer.addOctetString(dn);
 
-    final ASN1BufferSequence modSequence = writer.beginSequence();
+    final ASN1BufferSequence modSequence = writer.beginSequence(
+         ASN1Constants.UNIVERSAL_SEQUENCE_TYPE, modificationsLength);
     for (final Modification m : modifications)
     {
       m.writeTo(writer);
@@ -624,6 +635,45 @@ public final class ModifyRequest
 
 
 
+  /**
+   * Retrieves the number of bytes that will be written when the protocol op
+   * for this modify request is written to an ASN.1 buffer.  This is intended
+   * for internal use only.
+   *
+   * @return  The number of bytes that will be written when the protocol op for
+   *          this modify request is written to an ASN.1 buffer.
+   */
+  @InternalUseOnly()
+  public int getEncodedProtocolOpSize()
+  {
+    final int modificationsLength = getEncodedModificationsLength();
+    return ASN1Buffer.getEncodedElementSize(
+         ASN1Buffer.getEncodedOctetStringSize(dn) +
+              ASN1Buffer.getEncodedElementSize(modificationsLength));
+  }
+
+
+
+  /**
+   * Retrieves the number of bytes in the encoded value of the sequence that
+   * holds the modifications for this modify request.
+   *
+   * @return  The number of bytes in the encoded value of the sequence that
+   *          holds the modifications for this modify request.
+   */
+  private int getEncodedModificationsLength()
+  {
+    int length = 0;
+    for (final Modification m : modifications)
+    {
+      length += m.getEncodedSize();
+    }
+
+    return length;
+  }
+
+
+
   /**
    * Encodes the modify request protocol op to an ASN.1 element.
    *
@@ -746,7 +796,8 @@ public final class ModifyRequest
   {
     // Create the LDAP message.
     messageID = connection.nextMessageID();
-    final LDAPMessage message = new LDAPMessage(messageID, this, getControls());
+    final LDAPMessage message = new LDAPMessage(messageID,
+         getProtocolOpToSend(this), getControls());
 
 
     // If the provided async result listener is {@code null}, then we'll use
@@ -769,11 +820,10 @@ public final class ModifyRequest
 
       if (timeout > 0L)
       {
-        final Timer timer = connection.getTimer();
         final AsyncTimeoutTimerTask timerTask =
              new AsyncTimeoutTimerTask(helper);
-        timer.schedule(timerTask, timeout);
-        asyncRequestID.setTimerTask(timerTask);
+        asyncRequestID.setTimeout(
+             HashedWheelTimer.getInstance().newTimeout(timerTask, timeout));
       }
     }
 
@@ -833,7 +883,8 @@ public final class ModifyRequest
     // Create the LDAP message.
     messageID = connection.nextMessageID();
     final LDAPMessage message =
-         new LDAPMessage(messageID,  this, getControls());
+         new LDAPMessage(messageID, getProtocolOpToSend(this),
+              getControls());
 
 
     // Send the request to the server.
@@ -1150,6 +1201,7 @@ public final class ModifyRequest
     r.setResponseTimeoutMillis(getResponseTimeoutMillis(null));
     r.setIntermediateResponseListener(getIntermediateResponseListener());
     r.setReferralDepth(getReferralDepth());
+    r.setPreparedProtocolOp(getPreparedProtocolOp());
 
     return r;
   }
@@ -1233,6 +1285,8 @@ public final class ModifyRequest
     }
     buffer.append('}');
 
+    appendTemplateValuesTo(buffer);
+
     final Control[] controls = getControls();
     if (controls.length > 0)
     {
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import com.unboundid.asn1.ASN1Buffer;
+import com.unboundid.asn1.ASN1Element;
+import com.unboundid.ldap.protocol.ProtocolOp;
+import com.unboundid.util.NotMutable;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a protocol op that is encoded from an
+ * {@link LDAPRequestTemplate} and the values to use in place of its
+ * placeholders.  It will be sent in place of the encoded representation of a
+ * request created from the template.
+ */
+@NotMutable()
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class PreparedProtocolOp
+      implements ProtocolOp
+{
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = -6427913548013227419L;
+
+
+
+  // The UTF-8 representations of the values to use in place of the
+  // placeholders.
+  @NotNull private final byte[][] valueBytes;
+
+  // The template from which this protocol op was created.
+  @NotNull private final LDAPRequestTemplate template;
+
+  // The values to use in place of the placeholders.
+  @NotNull private final String[] values;
+
+
+
+  /**
+   * Creates a new prepared protocol op with the provided information.
+   *
+   * @param  template    The template from which this protocol op was created.
+   * @param  values      The values to use in place of the placeholders.
+   * @param  valueBytes  The UTF-8 representations of the values to use in
+   *                     place of the placeholders.
+   */
+  PreparedProtocolOp(@NotNull final LDAPRequestTemplate template,
+                     @NotNull final String[] values,
+                     @NotNull final byte[][] valueBytes)
+  {
+    this.template = template;
+    this.values = values;
+    this.valueBytes = valueBytes;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public byte getProtocolOpType()
+  {
+    return template.getProtocolOpType();
+  }
+
+
+
+  /**
+   * Retrieves the number of bytes that will be written when this protocol op
+   * is written to an ASN.1 buffer.
+   *
+   * @return  The number of bytes that will be written when this protocol op is
+   *          written to an ASN.1 buffer.
+   */
+  int getEncodedSize()
+  {
+    return template.getEncodedProtocolOpSize(valueBytes);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public ASN1Element encodeProtocolOp()
+  {
+    return template.encodeProtocolOp(valueBytes);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void writeTo(@NotNull final ASN1Buffer buffer)
+  {
+    template.writeProtocolOpTo(buffer, valueBytes);
+  }
+
+
+
+  /**
+   * Retrieves a string representation of this protocol op.
+   *
+   * @return  A string representation of this protocol op.
+   */
+  @Override()
+  @NotNull()
+  public String toString()
+  {
+    final StringBuilder buffer = new StringBuilder();
+    toString(buffer);
+    return buffer.toString();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void toString(@NotNull final StringBuilder buffer)
+  {
+    buffer.append("PreparedProtocolOp(placeholders=");
+    appendValuesTo(buffer);
+    buffer.append(", template=");
+    template.getRequest().toString(buffer);
+    buffer.append(')');
+  }
+
+
+
+  /**
+   * Appends a string representation of the values used in place of the
+   * placeholders to the provided buffer.  The values of any placeholders that
+   * are part of a bind password will be redacted.
+   *
+   * @param  buffer  The buffer to which the information should be appended.
+   */
+  void appendValuesTo(@NotNull final StringBuilder buffer)
+  {
+    buffer.append('{');
+    for (int i=0; i < values.length; i++)
+    {
+      if (i > 0)
+      {
+        buffer.append(", ");
+      }
+
+      buffer.append('\'');
+      buffer.append(template.getPlaceholders().get(i));
+      buffer.append("'='");
+      if (template.isSensitivePlaceholder(i))
+      {
+        buffer.append("---redacted-password---");
+      }
+      else
+      {
+        buffer.append(values[i]);
+      }
+      buffer.append('\'');
+    }
+
+    buffer.append('}');
+  }
+}
@@ -38,6 +38,7 @@ package com.unboundid.ldap.sdk;
 
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
 
 import com.unboundid.ldap.sdk.schema.Schema;
 import com.unboundid.ldif.LDIFException;
@@ -197,6 +198,25 @@ public class ReadOnlyEntry
 
 
 
+  /**
+   * Creates a new read-only entry with the provided DN and a map of
+   * attributes that will be used directly rather than copied.
+   *
+   * @param  dn          The DN for this entry.  It must not be {@code null}.
+   * @param  schema      The schema to use for operations involving this entry.
+   *                     It may be {@code null} if no schema is available.
+   * @param  attributes  The map of attributes for this entry, keyed on the
+   *                     lowercase attribute name.  It must not be
+   *                     {@code null}.
+   */
+  ReadOnlyEntry(@NotNull final String dn, @Nullable final Schema schema,
+                @NotNull final LinkedHashMap<String,Attribute> attributes)
+  {
+    super(dn, schema, attributes);
+  }
+
+
+
   /**
    * Creates a new read-only entry from the provided {@link Entry}.
    *
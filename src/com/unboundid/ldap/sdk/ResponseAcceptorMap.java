@@ -0,0 +1,407 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a map that associates the message IDs of outstanding
+ * operations with the response acceptors that should be notified of responses
+ * to those operations.  It uses an open-addressing table keyed directly on the
+ * primitive message ID, so no objects are created when looking up or removing
+ * an acceptor.  Because message IDs are assigned sequentially, the message IDs
+ * of outstanding operations will nearly always map to distinct slots in the
+ * table.
+ * <BR><BR>
+ * Lookups do not require any locking.  Updates are serialized, and the table
+ * is rebuilt as needed to keep enough free slots available, to discard slots
+ * for removed acceptors, and to shrink the table after a burst of activity.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class ResponseAcceptorMap
+{
+  /**
+   * The minimum (and initial) number of slots in the table.  This must be a
+   * power of two.
+   */
+  static final int MIN_CAPACITY = 16;
+
+
+
+  /**
+   * A marker used for slots that held an acceptor that has since been removed.
+   */
+  @NotNull private static final Slot REMOVED = new Slot(0, null);
+
+
+
+  // The table holding the registered acceptors.  Its length will always be a
+  // power of two.
+  @NotNull private volatile AtomicReferenceArray<Slot> table;
+
+  // The number of acceptors currently registered.
+  private volatile int size;
+
+  // The number of slots in the table that are marked as removed.  It must only
+  // be accessed while holding the lock.
+  private int removedSlots;
+
+  // The lock used to serialize updates to the map.
+  @NotNull private final Object lock;
+
+
+
+  /**
+   * Creates a new, empty response acceptor map.
+   */
+  ResponseAcceptorMap()
+  {
+    lock = new Object();
+    table = new AtomicReferenceArray<>(MIN_CAPACITY);
+    size = 0;
+    removedSlots = 0;
+  }
+
+
+
+  /**
+   * Retrieves the response acceptor registered for the specified message ID.
+   *
+   * @param  messageID  The message ID for which to retrieve the acceptor.
+   *
+   * @return  The response acceptor registered for the specified message ID, or
+   *          {@code null} if there is none.
+   */
+  @Nullable()
+  ResponseAcceptor get(final int messageID)
+  {
+    final AtomicReferenceArray<Slot> t = table;
+    final int mask = t.length() - 1;
+
+    int pos = messageID & mask;
+    for (int i=0; i <= mask; i++)
+    {
+      final Slot s = t.get(pos);
+      if (s == null)
+      {
+        return null;
+      }
+      else if ((s != REMOVED) && (s.messageID == messageID))
+      {
+        return s.acceptor;
+      }
+
+      pos = (pos + 1) & mask;
+    }
+
+    return null;
+  }
+
+
+
+  /**
+   * Registers the provided response acceptor for the specified message ID if
+   * no acceptor is already registered for that message ID.
+   *
+   * @param  messageID  The message ID for which to register the acceptor.
+   * @param  acceptor   The response acceptor to register.  It must not be
+   *                    {@code null}.
+   *
+   * @return  The response acceptor already registered for the specified
+   *          message ID (in which case the provided acceptor will not have
+   *          been registered), or {@code null} if the provided acceptor was
+   *          registered.
+   */
+  @Nullable()
+  ResponseAcceptor putIfAbsent(final int messageID,
+                               @NotNull final ResponseAcceptor acceptor)
+  {
+    synchronized (lock)
+    {
+      final AtomicReferenceArray<Slot> t = table;
+      final int mask = t.length() - 1;
+
+      int insertPos = -1;
+      int pos = messageID & mask;
+      for (int i=0; i <= mask; i++)
+      {
+        final Slot s = t.get(pos);
+        if (s == null)
+        {
+          if (insertPos < 0)
+          {
+            insertPos = pos;
+          }
+          break;
+        }
+        else if (s == REMOVED)
+        {
+          if (insertPos < 0)
+          {
+            insertPos = pos;
+          }
+        }
+        else if (s.messageID == messageID)
+        {
+          return s.acceptor;
+        }
+
+        pos = (pos + 1) & mask;
+      }
+
+      // The table is always rebuilt before it fills up, so there will always be
+      // a position available.
+      if (t.get(insertPos) == REMOVED)
+      {
+        removedSlots--;
+      }
+
+      t.set(insertPos, new Slot(messageID, acceptor));
+      size++;
+
+      if ((size + removedSlots) > ((t.length() >> 2) * 3))
+      {
+        rebuild();
+      }
+
+      return null;
+    }
+  }
+
+
+
+  /**
+   * Removes the response acceptor registered for the specified message ID.
+   *
+   * @param  messageID  The message ID for which to remove the acceptor.
+   *
+   * @return  The response acceptor that was removed, or {@code null} if no
+   *          acceptor was registered for the specified message ID.
+   */
+  @Nullable()
+  ResponseAcceptor remove(final int messageID)
+  {
+    synchronized (lock)
+    {
+      final AtomicReferenceArray<Slot> t = table;
+      final int mask = t.length() - 1;
+
+      int pos = messageID & mask;
+      for (int i=0; i <= mask; i++)
+      {
+        final Slot s = t.get(pos);
+        if (s == null)
+        {
+          return null;
+        }
+        else if ((s != REMOVED) && (s.messageID == messageID))
+        {
+          // If the next slot is empty, then no lookup can need to probe past
+          // this slot, so it can be emptied rather than marked as removed,
+          // along with any removed slots immediately before it.
+          if (t.get((pos + 1) & mask) == null)
+          {
+            t.set(pos, null);
+
+            int prevPos = (pos - 1) & mask;
+            while (t.get(prevPos) == REMOVED)
+            {
+              t.set(prevPos, null);
+              removedSlots--;
+              prevPos = (prevPos - 1) & mask;
+            }
+          }
+          else
+          {
+            t.set(pos, REMOVED);
+            removedSlots++;
+          }
+
+          size--;
+
+          if ((t.length() > MIN_CAPACITY) && ((size << 3) < t.length()))
+          {
+            rebuild();
+          }
+
+          return s.acceptor;
+        }
+
+        pos = (pos + 1) & mask;
+      }
+
+      return null;
+    }
+  }
+
+
+
+  /**
+   * Retrieves the number of response acceptors currently registered.
+   *
+   * @return  The number of response acceptors currently registered.
+   */
+  int size()
+  {
+    return size;
+  }
+
+
+
+  /**
+   * Retrieves the message IDs for all of the response acceptors currently
+   * registered.
+   *
+   * @return  The message IDs for all of the response acceptors currently
+   *          registered.
+   */
+  @NotNull()
+  int[] getMessageIDs()
+  {
+    synchronized (lock)
+    {
+      final AtomicReferenceArray<Slot> t = table;
+      final int[] messageIDs = new int[size];
+
+      int i = 0;
+      for (int pos=0; pos < t.length(); pos++)
+      {
+        final Slot s = t.get(pos);
+        if ((s != null) && (s != REMOVED))
+        {
+          messageIDs[i++] = s.messageID;
+        }
+      }
+
+      return messageIDs;
+    }
+  }
+
+
+
+  /**
+   * Retrieves the number of slots in the table.  This is only intended for
+   * testing purposes.
+   *
+   * @return  The number of slots in the table.
+   */
+  int getCapacity()
+  {
+    return table.length();
+  }
+
+
+
+  /**
+   * Replaces the table with a new one that does not have any slots marked as
+   * removed, and whose capacity is appropriate for the current number of
+   * registered acceptors.  The existing table will not be altered, so
+   * concurrent lookups will continue to work while this method is running.
+   * This must only be called while holding the lock.
+   */
+  private void rebuild()
+  {
+    final AtomicReferenceArray<Slot> oldTable = table;
+
+    int newCapacity = MIN_CAPACITY;
+    while (newCapacity < (size << 2))
+    {
+      newCapacity <<= 1;
+    }
+
+    final AtomicReferenceArray<Slot> newTable =
+         new AtomicReferenceArray<>(newCapacity);
+    final int mask = newCapacity - 1;
+    for (int i=0; i < oldTable.length(); i++)
+    {
+      final Slot s = oldTable.get(i);
+      if ((s == null) || (s == REMOVED))
+      {
+        continue;
+      }
+
+      int pos = s.messageID & mask;
+      while (newTable.get(pos) != null)
+      {
+        pos = (pos + 1) & mask;
+      }
+
+      newTable.set(pos, s);
+    }
+
+    removedSlots = 0;
+    table = newTable;
+  }
+
+
+
+  /**
+   * This class defines a slot in the table, which associates a message ID with
+   * a response acceptor.
+   */
+  private static final class Slot
+  {
+    // The response acceptor for this slot.
+    @Nullable private final ResponseAcceptor acceptor;
+
+    // The message ID for this slot.
+    private final int messageID;
+
+
+
+    /**
+     * Creates a new slot with the provided information.
+     *
+     * @param  messageID  The message ID for this slot.
+     * @param  acceptor   The response acceptor for this slot.
+     */
+    private Slot(final int messageID,
+                 @Nullable final ResponseAcceptor acceptor)
+    {
+      this.messageID = messageID;
+      this.acceptor = acceptor;
+    }
+  }
+}
@@ -54,6 +54,8 @@ import com.unboundid.util.ThreadSafety;
 import com.unboundid.util.ThreadSafetyLevel;
 import com.unboundid.util.Validator;
 
+import static com.unboundid.ldap.sdk.LDAPMessages.*;
+
 
 
 /**
@@ -595,6 +597,11 @@ public final class RoundRobinServerSet
         doBindPostConnectAndHealthCheckProcessing(conn, bindRequest,
              postConnectProcessor, healthCheck);
         associateConnectionWithThisServerSet(conn);
+        if (blacklistManager != null)
+        {
+          blacklistManager.connectionAttemptSucceeded(
+               new ObjectPair<>(address, port));
+        }
         return conn;
       }
       catch (final LDAPException e)
@@ -603,7 +610,8 @@ public final class RoundRobinServerSet
         lastException = e;
         if (blacklistManager != null)
         {
-          blacklistManager.addToBlacklist(address, port, healthCheck);
+          blacklistManager.connectionAttemptFailed(
+               new ObjectPair<>(address, port), healthCheck);
         }
       }
     }
@@ -618,6 +626,15 @@ public final class RoundRobinServerSet
       final String address = blacklistedAddresses[slotNumber];
       final int port = blacklistedPorts[slotNumber];
 
+      // Only one probe at a time is allowed for a blacklisted server.
+      final ObjectPair<String,Integer> hostPort =
+           new ObjectPair<>(address, port);
+      if (! blacklistManager.tryAcquireProbePermit(hostPort))
+      {
+        continue;
+      }
+
+      boolean probeSucceeded = false;
       try
       {
         final LDAPConnection conn = new LDAPConnection(socketFactory,
@@ -625,8 +642,8 @@ public final class RoundRobinServerSet
         doBindPostConnectAndHealthCheckProcessing(conn, bindRequest,
              postConnectProcessor, healthCheck);
         associateConnectionWithThisServerSet(conn);
-        blacklistManager.removeFromBlacklist(new ObjectPair<>(
-             conn.getConnectedAddress(), conn.getConnectedPort()));
+        blacklistManager.removeFromBlacklist(hostPort);
+        probeSucceeded = true;
         return conn;
       }
       catch (final LDAPException e)
@@ -634,11 +651,27 @@ public final class RoundRobinServerSet
         Debug.debugException(e);
         lastException = e;
       }
+      finally
+      {
+        if (! probeSucceeded)
+        {
+          blacklistManager.probeFailed(hostPort, healthCheck);
+        }
+      }
     }
 
 
-    // If we've gotten here, then we've failed to connect to any of the servers,
-    // so propagate the last exception to the caller.
+    // If we've gotten here, then we've failed to connect to any of the servers.
+    // If we didn't attempt to connect to any of them, then that's because they
+    // are all blacklisted and another thread is already probing each of them.
+    if (lastException == null)
+    {
+      throw new LDAPException(ResultCode.CONNECT_ERROR,
+           ERR_SERVER_SET_ALL_BLACKLISTED_SERVERS_BEING_PROBED.get(
+                blacklistedAddresses.length));
+    }
+
+    // Otherwise, propagate the last exception to the caller.
     throw lastException;
   }
 
@@ -0,0 +1,910 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+import static com.unboundid.ldap.sdk.LDAPMessages.*;
+
+
+
+/**
+ * This class provides a TLS layer that uses an {@code SSLEngine} to secure
+ * communication over a socket channel that is operating in non-blocking mode.
+ * Unlike an {@code SSLSocket}, it never needs to block while waiting for data
+ * from the server, so it can be used for a connection that is read by a
+ * {@link SharedSelectorReaderThread}.
+ * <BR><BR>
+ * The TLS handshake is driven by the {@link #processHandshake} method, which
+ * is called once when negotiation begins and again by the shared selector
+ * thread whenever more data is available from the server.  Any delegated tasks
+ * that the engine needs to run (which may include potentially expensive
+ * processing like validating the server certificate chain) are not run by the
+ * selector thread, but are instead made available through the
+ * {@link #pollDelegatedTask} method so that they can be run by the thread that
+ * requested the negotiation.
+ * <BR><BR>
+ * Data is unwrapped only while holding a read lock, and data is wrapped only
+ * while holding a separate write lock, so that requests may be sent while the
+ * selector thread is reading responses.  Handshake messages (including those
+ * sent in response to post-handshake messages from the server) may be written
+ * by the selector thread, so the time spent waiting for the write lock and
+ * for the channel to accept them is bounded by a handshake write timeout.  If
+ * the server does not accept them in that time, then the write will fail and
+ * the connection will be closed rather than stalling the selector thread.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class SSLEngineChannel
+{
+  /**
+   * An empty buffer that will be wrapped during the handshake.
+   */
+  @NotNull private static final ByteBuffer[] EMPTY_BUFFERS =
+       { ByteBuffer.allocate(0) };
+
+
+
+  /**
+   * The handshake write timeout, in milliseconds, that will be used if no
+   * positive timeout is provided.
+   */
+  private static final long DEFAULT_HANDSHAKE_WRITE_TIMEOUT_MILLIS = 10_000L;
+
+
+
+  // The buffer that holds application data that has been unwrapped but not yet
+  // consumed.  It is kept positioned for reading.
+  @NotNull private ByteBuffer appIn;
+
+  // The buffer that holds data read from the channel that has not yet been
+  // unwrapped.  It is kept positioned for writing.
+  @NotNull private ByteBuffer netIn;
+
+  // The buffer that holds wrapped data to be written to the channel.
+  @NotNull private ByteBuffer netOut;
+
+  // Indicates whether the TLS handshake has completed successfully.
+  private volatile boolean handshakeComplete;
+
+  // Indicates whether the last attempt to unwrap data failed because there
+  // was not enough data available to decode a complete TLS record.
+  private boolean needMoreNetworkData;
+
+  // The exception that caused the TLS handshake to fail, if any.
+  @Nullable private volatile Exception handshakeFailure;
+
+  // The queue of delegated tasks to be run by the thread that requested the
+  // TLS negotiation.
+  @NotNull private final LinkedBlockingQueue<Runnable> delegatedTasks;
+
+  // The lock that must be held while unwrapping data.
+  @NotNull private final Object readLock;
+
+  // The lock that must be held while wrapping data.
+  @NotNull private final ReentrantLock writeLock;
+
+  // The maximum length of time in milliseconds to wait while writing a
+  // handshake message.
+  private final long handshakeWriteTimeoutMillis;
+
+  // The output stream that may be used to send data over this TLS layer.
+  @NotNull private final OutputStream outputStream;
+
+  // The output stream used to write wrapped data to the channel.
+  @NotNull private final SocketChannelOutputStream rawOutputStream;
+
+  // The channel over which TLS data will be exchanged.
+  @NotNull private final SocketChannel channel;
+
+  // The engine that will be used to wrap and unwrap data.
+  @NotNull private final SSLEngine engine;
+
+
+
+  /**
+   * Creates a new TLS layer that will use the provided engine to secure
+   * communication over the given channel.
+   *
+   * @param  channel  The channel over which TLS data will be exchanged.  It
+   *                  should be operating in non-blocking mode.
+   * @param  engine   The engine that will be used to wrap and unwrap data.  It
+   *                  must already be configured with the appropriate client
+   *                  mode, but the handshake must not have been started.
+   * @param  handshakeWriteTimeoutMillis
+   *              The maximum length of time in milliseconds to wait while
+   *              writing a handshake message, including any time spent
+   *              waiting for another thread to finish writing.  If this is
+   *              not positive, then a default of ten seconds will be used.
+   */
+  SSLEngineChannel(@NotNull final SocketChannel channel,
+                   @NotNull final SSLEngine engine,
+                   final long handshakeWriteTimeoutMillis)
+  {
+    this.channel = channel;
+    this.engine = engine;
+
+    if (handshakeWriteTimeoutMillis > 0L)
+    {
+      this.handshakeWriteTimeoutMillis = handshakeWriteTimeoutMillis;
+    }
+    else
+    {
+      this.handshakeWriteTimeoutMillis = DEFAULT_HANDSHAKE_WRITE_TIMEOUT_MILLIS;
+    }
+
+    final SSLSession session = engine.getSession();
+    netIn = ByteBuffer.allocate(session.getPacketBufferSize());
+    netOut = ByteBuffer.allocate(session.getPacketBufferSize());
+    appIn = ByteBuffer.allocate(session.getApplicationBufferSize());
+    appIn.flip();
+
+    handshakeComplete = false;
+    needMoreNetworkData = true;
+    handshakeFailure = null;
+    delegatedTasks = new LinkedBlockingQueue<>();
+    readLock = new Object();
+    writeLock = new ReentrantLock();
+    rawOutputStream = new SocketChannelOutputStream(channel);
+    outputStream = new TLSOutputStream();
+  }
+
+
+
+  /**
+   * Begins the TLS handshake and sends the initial handshake message to the
+   * server.  The handshake will then continue as data is received from the
+   * server.
+   *
+   * @throws  IOException  If a problem occurs while beginning the handshake.
+   */
+  void beginHandshake()
+       throws IOException
+  {
+    engine.beginHandshake();
+    processHandshake();
+  }
+
+
+
+  /**
+   * Performs as much handshake processing as possible without blocking.  It
+   * will return when the handshake has completed, when more data is needed from
+   * the server, or when delegated tasks need to be run.
+   *
+   * @return  {@code true} if the handshake has completed, or {@code false} if
+   *          more processing is required.
+   *
+   * @throws  IOException  If a problem occurs during handshake processing.
+   */
+  boolean processHandshake()
+          throws IOException
+  {
+    synchronized (readLock)
+    {
+      while (true)
+      {
+        if (handshakeComplete)
+        {
+          return true;
+        }
+
+        switch (engine.getHandshakeStatus())
+        {
+          case NEED_WRAP:
+            wrapAndWriteHandshakeData();
+            break;
+
+          case NEED_TASK:
+            Runnable task = engine.getDelegatedTask();
+            while (task != null)
+            {
+              delegatedTasks.add(task);
+              task = engine.getDelegatedTask();
+            }
+            return false;
+
+          case FINISHED:
+          case NOT_HANDSHAKING:
+            handshakeComplete = true;
+            delegatedTasks.add(new HandshakeDoneTask());
+            return true;
+
+          case NEED_UNWRAP:
+          default:
+            if (! unwrapHandshakeData())
+            {
+              return false;
+            }
+            break;
+        }
+      }
+    }
+  }
+
+
+
+  /**
+   * Attempts to unwrap data received from the server during the handshake.
+   *
+   * @return  {@code true} if data was unwrapped, or {@code false} if more data
+   *          must be received from the server before it can be unwrapped.
+   *
+   * @throws  IOException  If a problem occurs while unwrapping the data.
+   */
+  private boolean unwrapHandshakeData()
+          throws IOException
+  {
+    while (true)
+    {
+      final SSLEngineResult result = unwrap();
+      switch (result.getStatus())
+      {
+        case OK:
+          return true;
+
+        case BUFFER_OVERFLOW:
+          growApplicationBuffer();
+          break;
+
+        case BUFFER_UNDERFLOW:
+          final int bytesRead = readFromChannel();
+          if (bytesRead < 0)
+          {
+            throw new EOFException(
+                 ERR_SSL_ENGINE_CHANNEL_CLOSED_DURING_HANDSHAKE.get());
+          }
+          else if (bytesRead == 0)
+          {
+            return false;
+          }
+          break;
+
+        case CLOSED:
+        default:
+          throw new SSLException(
+               ERR_SSL_ENGINE_CHANNEL_CLOSED_DURING_HANDSHAKE.get());
+      }
+    }
+  }
+
+
+
+  /**
+   * Indicates that the TLS handshake has failed.  Any thread waiting for a
+   * delegated task will be awakened.
+   *
+   * @param  failure  The exception that caused the handshake to fail.
+   */
+  void handshakeFailed(@NotNull final Exception failure)
+  {
+    handshakeFailure = failure;
+    delegatedTasks.add(new HandshakeDoneTask());
+  }
+
+
+
+  /**
+   * Indicates whether the TLS handshake has completed successfully.
+   *
+   * @return  {@code true} if the TLS handshake has completed successfully, or
+   *          {@code false} if not.
+   */
+  boolean isHandshakeComplete()
+  {
+    return handshakeComplete;
+  }
+
+
+
+  /**
+   * Retrieves the exception that caused the TLS handshake to fail, if any.
+   *
+   * @return  The exception that caused the TLS handshake to fail, or
+   *          {@code null} if the handshake has not failed.
+   */
+  @Nullable()
+  Exception getHandshakeFailure()
+  {
+    return handshakeFailure;
+  }
+
+
+
+  /**
+   * Waits for a delegated task that needs to be run before the TLS handshake
+   * can continue.  A task that does nothing will be made available when the
+   * handshake completes or fails.
+   *
+   * @param  timeoutMillis  The maximum length of time in milliseconds to wait
+   *                        for a task to become available.
+   *
+   * @return  The delegated task that should be run, or {@code null} if no task
+   *          became available within the specified timeout.
+   *
+   * @throws  InterruptedException  If the thread is interrupted while waiting.
+   */
+  @Nullable()
+  Runnable pollDelegatedTask(final long timeoutMillis)
+           throws InterruptedException
+  {
+    return delegatedTasks.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+  }
+
+
+
+  /**
+   * Reads decrypted application data into the provided buffer.  This method
+   * will not block if no data is available from the channel.
+   *
+   * @param  dst  The buffer into which the data should be read.
+   *
+   * @return  The number of bytes read into the provided buffer (which may be
+   *          zero if no complete TLS record is available), or -1 if the end of
+   *          the stream has been reached.
+   *
+   * @throws  IOException  If a problem occurs while reading or unwrapping the
+   *                       data.
+   */
+  int read(@NotNull final ByteBuffer dst)
+      throws IOException
+  {
+    synchronized (readLock)
+    {
+      while (true)
+      {
+        if (appIn.hasRemaining())
+        {
+          final int bytesToCopy = Math.min(appIn.remaining(), dst.remaining());
+          final int originalLimit = appIn.limit();
+          appIn.limit(appIn.position() + bytesToCopy);
+          dst.put(appIn);
+          appIn.limit(originalLimit);
+          return bytesToCopy;
+        }
+
+        final SSLEngineResult result = unwrap();
+        switch (result.getStatus())
+        {
+          case OK:
+            handlePostHandshakeStatus(result.getHandshakeStatus());
+            break;
+
+          case BUFFER_OVERFLOW:
+            growApplicationBuffer();
+            break;
+
+          case BUFFER_UNDERFLOW:
+            final int bytesRead = readFromChannel();
+            if (bytesRead <= 0)
+            {
+              return bytesRead;
+            }
+            break;
+
+          case CLOSED:
+          default:
+            return -1;
+        }
+      }
+    }
+  }
+
+
+
+  /**
+   * Indicates whether there is any data that has already been read from the
+   * channel that may be unwrapped or consumed without reading more data.
+   *
+   * @return  {@code true} if there is data that may be processed without
+   *          reading more from the channel, or {@code false} if not.
+   */
+  boolean hasBufferedData()
+  {
+    synchronized (readLock)
+    {
+      return (appIn.hasRemaining() ||
+           ((netIn.position() > 0) && (! needMoreNetworkData)));
+    }
+  }
+
+
+
+  /**
+   * Performs any processing required by the engine after unwrapping data
+   * once the initial handshake has completed, like sending a response to a
+   * post-handshake message.  Delegated tasks will be run in the current
+   * thread, since they should be rare and inexpensive at this point.  Any
+   * response will be written within the handshake write timeout, so that the
+   * shared selector thread cannot be blocked indefinitely while sending it.
+   *
+   * @param  status  The handshake status returned by the engine.
+   *
+   * @throws  IOException  If a problem occurs during processing.
+   */
+  private void handlePostHandshakeStatus(
+                    @NotNull final SSLEngineResult.HandshakeStatus status)
+          throws IOException
+  {
+    SSLEngineResult.HandshakeStatus s = status;
+    while (true)
+    {
+      switch (s)
+      {
+        case NEED_TASK:
+          Runnable task = engine.getDelegatedTask();
+          while (task != null)
+          {
+            task.run();
+            task = engine.getDelegatedTask();
+          }
+          break;
+
+        case NEED_WRAP:
+          wrapAndWriteHandshakeData();
+          break;
+
+        default:
+          return;
+      }
+
+      s = engine.getHandshakeStatus();
+    }
+  }
+
+
+
+  /**
+   * Unwraps as much data as possible from the network input buffer into the
+   * application input buffer.  The caller must hold the read lock.
+   *
+   * @return  The result from the engine.
+   *
+   * @throws  IOException  If a problem occurs while unwrapping the data.
+   */
+  @NotNull()
+  private SSLEngineResult unwrap()
+          throws IOException
+  {
+    netIn.flip();
+    appIn.compact();
+    try
+    {
+      final SSLEngineResult result = engine.unwrap(netIn, appIn);
+      needMoreNetworkData = (result.getStatus() ==
+           SSLEngineResult.Status.BUFFER_UNDERFLOW);
+      return result;
+    }
+    finally
+    {
+      netIn.compact();
+      appIn.flip();
+    }
+  }
+
+
+
+  /**
+   * Reads data from the channel into the network input buffer, expanding the
+   * buffer if necessary.  The caller must hold the read lock.
+   *
+   * @return  The number of bytes read, or -1 if the end of the stream has been
+   *          reached.
+   *
+   * @throws  IOException  If a problem occurs while reading from the channel.
+   */
+  private int readFromChannel()
+          throws IOException
+  {
+    final int packetBufferSize = engine.getSession().getPacketBufferSize();
+    if (netIn.remaining() < packetBufferSize)
+    {
+      final ByteBuffer newBuffer =
+           ByteBuffer.allocate(netIn.position() + packetBufferSize);
+      netIn.flip();
+      newBuffer.put(netIn);
+      netIn = newBuffer;
+    }
+
+    final int bytesRead = channel.read(netIn);
+    if (bytesRead > 0)
+    {
+      needMoreNetworkData = false;
+    }
+
+    return bytesRead;
+  }
+
+
+
+  /**
+   * Expands the application input buffer so that it can hold another complete
+   * record.  The caller must hold the read lock.
+   */
+  private void growApplicationBuffer()
+  {
+    final ByteBuffer newBuffer = ByteBuffer.allocate(appIn.remaining() +
+         engine.getSession().getApplicationBufferSize());
+    newBuffer.put(appIn);
+    newBuffer.flip();
+    appIn = newBuffer;
+  }
+
+
+
+  /**
+   * Wraps a handshake message and writes it to the channel, failing if the
+   * write lock cannot be acquired or the message cannot be written within the
+   * handshake write timeout.  This may be called by the shared selector
+   * thread, which must not be blocked indefinitely by a server that has
+   * stopped reading or by another thread that is blocked while writing.
+   *
+   * @throws  IOException  If a problem occurs while wrapping or writing the
+   *                       data, or if the handshake write timeout is reached.
+   */
+  private void wrapAndWriteHandshakeData()
+          throws IOException
+  {
+    final long stopWaitingTime =
+         System.currentTimeMillis() + handshakeWriteTimeoutMillis;
+    try
+    {
+      if (! writeLock.tryLock(handshakeWriteTimeoutMillis,
+           TimeUnit.MILLISECONDS))
+      {
+        throw new SocketTimeoutException(
+             ERR_SSL_ENGINE_CHANNEL_HANDSHAKE_WRITE_TIMEOUT.get(
+                  handshakeWriteTimeoutMillis));
+      }
+    }
+    catch (final InterruptedException e)
+    {
+      Debug.debugException(e);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(StaticUtils.getExceptionMessage(e));
+    }
+
+    try
+    {
+      wrapAndWriteLocked(stopWaitingTime, EMPTY_BUFFERS);
+    }
+    catch (final SocketTimeoutException e)
+    {
+      Debug.debugException(e);
+      throw new SocketTimeoutException(
+           ERR_SSL_ENGINE_CHANNEL_HANDSHAKE_WRITE_TIMEOUT.get(
+                handshakeWriteTimeoutMillis));
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+  }
+
+
+
+  /**
+   * Wraps all of the data in the provided buffers and writes the result to the
+   * channel.  If the provided buffers are empty, then only a single wrap will
+   * be performed, as is needed to send a handshake message.
+   *
+   * @param  srcs  The buffers containing the data to be written.
+   *
+   * @throws  IOException  If a problem occurs while wrapping or writing the
+   *                       data.
+   */
+  private void wrapAndWrite(@NotNull final ByteBuffer... srcs)
+          throws IOException
+  {
+    writeLock.lock();
+    try
+    {
+      wrapAndWriteLocked(Long.MAX_VALUE, srcs);
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+  }
+
+
+
+  /**
+   * Wraps all of the data in the provided buffers and writes the result to the
+   * channel.  The caller must hold the write lock.
+   *
+   * @param  stopWaitingTime  The time, in milliseconds since the epoch, by
+   *                          which all of the data must have been written.
+   *                          A value of {@code Long.MAX_VALUE} indicates that
+   *                          there is no time limit.
+   * @param  srcs             The buffers containing the data to be written.
+   *
+   * @throws  IOException  If a problem occurs while wrapping or writing the
+   *                       data.
+   */
+  private void wrapAndWriteLocked(final long stopWaitingTime,
+                                  @NotNull final ByteBuffer... srcs)
+          throws IOException
+  {
+    while (true)
+    {
+      netOut.clear();
+      final SSLEngineResult result = engine.wrap(srcs, netOut);
+      switch (result.getStatus())
+      {
+        case OK:
+          netOut.flip();
+          if (netOut.hasRemaining())
+          {
+            rawOutputStream.write(stopWaitingTime, netOut);
+          }
+
+          if (! hasRemaining(srcs))
+          {
+            return;
+          }
+          break;
+
+        case BUFFER_OVERFLOW:
+          netOut = ByteBuffer.allocate(netOut.capacity() +
+               engine.getSession().getPacketBufferSize());
+          break;
+
+        case CLOSED:
+        default:
+          throw new SSLException(ERR_SSL_ENGINE_CHANNEL_ENGINE_CLOSED.get());
+      }
+    }
+  }
+
+
+
+  /**
+   * Indicates whether any of the provided buffers has data remaining.
+   *
+   * @param  buffers  The buffers to examine.
+   *
+   * @return  {@code true} if any of the provided buffers has data remaining,
+   *          or {@code false} if not.
+   */
+  private static boolean hasRemaining(@NotNull final ByteBuffer... buffers)
+  {
+    for (final ByteBuffer b : buffers)
+    {
+      if (b.hasRemaining())
+      {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+
+
+  /**
+   * Retrieves the TLS session negotiated by the engine.
+   *
+   * @return  The TLS session negotiated by the engine.
+   */
+  @NotNull()
+  SSLSession getSession()
+  {
+    return engine.getSession();
+  }
+
+
+
+  /**
+   * Retrieves the engine used by this TLS layer.
+   *
+   * @return  The engine used by this TLS layer.
+   */
+  @NotNull()
+  SSLEngine getEngine()
+  {
+    return engine;
+  }
+
+
+
+  /**
+   * Retrieves an output stream that may be used to send data to the server
+   * over this TLS layer.
+   *
+   * @return  An output stream that may be used to send data to the server over
+   *          this TLS layer.
+   */
+  @NotNull()
+  OutputStream getOutputStream()
+  {
+    return outputStream;
+  }
+
+
+
+  /**
+   * Closes this TLS layer and the underlying channel.  An attempt will be made
+   * to send a close notification to the server.
+   *
+   * @throws  IOException  If a problem occurs while closing the channel.
+   */
+  void close()
+       throws IOException
+  {
+    try
+    {
+      engine.closeOutbound();
+      if (channel.isOpen())
+      {
+        wrapAndWrite(EMPTY_BUFFERS);
+      }
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+    }
+    finally
+    {
+      rawOutputStream.close();
+    }
+  }
+
+
+
+  /**
+   * This class provides a task that does nothing, which will be used to wake
+   * up a thread waiting for a delegated task when the handshake completes or
+   * fails.
+   */
+  private static final class HandshakeDoneTask
+          implements Runnable
+  {
+    /**
+     * Does nothing.
+     */
+    @Override()
+    public void run()
+    {
+      // No implementation is required.
+    }
+  }
+
+
+
+  /**
+   * This class provides an output stream that wraps all data written to it
+   * before sending it to the server.
+   */
+  final class TLSOutputStream
+        extends OutputStream
+  {
+    /**
+     * Writes the provided byte to the server.
+     *
+     * @param  b  The byte to be written.
+     *
+     * @throws  IOException  If a problem occurs while writing the data.
+     */
+    @Override()
+    public void write(final int b)
+           throws IOException
+    {
+      write(new byte[] { (byte) (b & 0xFF) }, 0, 1);
+    }
+
+
+
+    /**
+     * Writes the specified portion of the provided byte array to the server.
+     *
+     * @param  b    The array containing the data to be written.
+     * @param  off  The offset in the array at which the data to write begins.
+     * @param  len  The number of bytes to be written.
+     *
+     * @throws  IOException  If a problem occurs while writing the data.
+     */
+    @Override()
+    public void write(@NotNull final byte[] b, final int off, final int len)
+           throws IOException
+    {
+      wrapAndWrite(ByteBuffer.wrap(b, off, len));
+    }
+
+
+
+    /**
+     * Writes all remaining data in the provided buffers to the server, packing
+     * it into as few TLS records as possible.
+     *
+     * @param  buffers  The buffers containing the data to be written.
+     *
+     * @throws  IOException  If a problem occurs while writing the data.
+     */
+    void write(@NotNull final ByteBuffer... buffers)
+         throws IOException
+    {
+      wrapAndWrite(buffers);
+    }
+
+
+
+    /**
+     * Flushes the output stream.  Data is written directly to the channel, so
+     * no action is required.
+     */
+    @Override()
+    public void flush()
+    {
+      // No implementation is required.
+    }
+
+
+
+    /**
+     * Closes this output stream, the TLS layer, and the underlying channel.
+     *
+     * @throws  IOException  If a problem occurs while closing the channel.
+     */
+    @Override()
+    public void close()
+           throws IOException
+    {
+      SSLEngineChannel.this.close();
+    }
+  }
+}
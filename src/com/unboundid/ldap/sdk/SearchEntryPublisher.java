@@ -0,0 +1,601 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+import com.unboundid.util.Validator;
+
+import static com.unboundid.ldap.sdk.LDAPMessages.*;
+
+
+
+/**
+ * This class provides a publisher that may be used to stream the entries
+ * returned by a search to a {@link SearchEntrySubscriber}, with the rate at
+ * which entries are read from the server controlled by the subscriber's
+ * demand.  It follows the same contract as the
+ * {@code java.util.concurrent.Flow.Publisher} interface (which cannot be used
+ * directly because the LDAP SDK supports Java versions that do not provide
+ * it), so it can easily be adapted for use with reactive streams libraries.
+ * <BR><BR>
+ * The search request will be sent to the server when the subscriber first
+ * requests entries.  Entries will be provided to the subscriber as they are
+ * received and requested.  If an entry is received when the subscriber has
+ * not requested any more, then the connection will stop reading data from the
+ * server until more entries have been requested.  At that point, the socket
+ * receive buffer will fill up and TCP flow control will prevent the server
+ * from sending more data, so that a search returning a very large number of
+ * entries can be processed with a bounded amount of memory.  Note that while
+ * reading is suspended, responses to other operations on the same connection
+ * will also be delayed, so a connection being used for a search entry
+ * publisher should generally not be used for other operations at the same
+ * time.
+ * <BR><BR>
+ * A search entry publisher may only have a single subscriber.  The search
+ * request's own search result listener (if any) will be ignored.  Also note
+ * that the response timeout for the search request applies to the search as a
+ * whole rather than to each individual entry, so it may be necessary to use a
+ * longer response timeout (or no response timeout) for searches that are
+ * expected to return a large number of entries to a slow subscriber.
+ * <BR><BR>
+ * <H2>Example</H2>
+ * The following example demonstrates the process for using a search entry
+ * publisher to process the entries returned by a search one at a time:
+ * <PRE>
+ * SearchRequest searchRequest = new SearchRequest("dc=example,dc=com",
+ *      SearchScope.SUB, Filter.createEqualityFilter("objectClass", "person"));
+ * searchRequest.setResponseTimeoutMillis(0L);
+ *
+ * SearchEntryPublisher publisher =
+ *      connection.searchPublisher(searchRequest);
+ * publisher.subscribe(new SearchEntrySubscriber()
+ * {
+ *   private SearchEntrySubscription subscription;
+ *
+ *   public void onSubscribe(SearchEntrySubscription subscription)
+ *   {
+ *     this.subscription = subscription;
+ *     subscription.request(1L);
+ *   }
+ *
+ *   public void onNext(SearchResultEntry searchEntry)
+ *   {
+ *     // Do something with the entry.
+ *     subscription.request(1L);
+ *   }
+ *
+ *   public void onComplete(SearchResult searchResult)
+ *   {
+ *     // The search completed successfully.
+ *   }
+ *
+ *   public void onError(LDAPSearchException exception)
+ *   {
+ *     // The search failed.
+ *   }
+ * });
+ * </PRE>
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+public final class SearchEntryPublisher
+{
+  // Indicates whether a subscriber has been registered with this publisher.
+  @NotNull private final AtomicBoolean subscribed;
+
+  // The connection on which the search will be processed.
+  @NotNull private final LDAPConnection connection;
+
+  // The search request to be processed.
+  @NotNull private final SearchRequest searchRequest;
+
+
+
+  /**
+   * Creates a new search entry publisher that will process the provided search
+   * request on the given connection.
+   *
+   * @param  connection     The connection on which the search will be
+   *                        processed.
+   * @param  searchRequest  The search request to be processed.
+   */
+  SearchEntryPublisher(@NotNull final LDAPConnection connection,
+                       @NotNull final SearchRequest searchRequest)
+  {
+    this.connection = connection;
+    this.searchRequest = searchRequest;
+
+    subscribed = new AtomicBoolean(false);
+  }
+
+
+
+  /**
+   * Registers the provided subscriber with this publisher.  The subscriber's
+   * {@code onSubscribe} method will be invoked before this method returns.  If
+   * this publisher already has a subscriber, then the subscriber's
+   * {@code onError} method will also be invoked.
+   *
+   * @param  subscriber  The subscriber to register with this publisher.  It
+   *                     must not be {@code null}.
+   */
+  public void subscribe(@NotNull final SearchEntrySubscriber subscriber)
+  {
+    Validator.ensureNotNull(subscriber);
+
+    final PublisherSubscription subscription =
+         new PublisherSubscription(connection, searchRequest, subscriber);
+    if (subscribed.compareAndSet(false, true))
+    {
+      subscriber.onSubscribe(subscription);
+    }
+    else
+    {
+      subscriber.onSubscribe(subscription);
+      subscription.fail(new LDAPSearchException(ResultCode.LOCAL_ERROR,
+           ERR_SEARCH_PUBLISHER_ALREADY_SUBSCRIBED.get()));
+    }
+  }
+
+
+
+  /**
+   * This class provides the subscription used to deliver the entries returned
+   * by a search to a subscriber.  All signals to the subscriber are made from
+   * within the {@code drain} method, which ensures that they are never made
+   * concurrently.
+   */
+  private static final class PublisherSubscription
+          implements SearchEntrySubscription, AsyncSearchResultListener
+  {
+    /**
+     * The serial version UID for this serializable class.
+     */
+    private static final long serialVersionUID = -2584717390318462055L;
+
+
+
+    // Indicates whether the search request has been sent.
+    @NotNull private final transient AtomicBoolean started;
+
+    // The async request ID for the search, if it has been sent.
+    @Nullable private transient volatile AsyncRequestID asyncRequestID;
+
+    // Indicates whether the subscription has been cancelled.
+    private volatile boolean cancelled;
+
+    // Indicates whether a terminal signal has been sent to the subscriber.
+    private boolean terminated;
+
+    // The connection reader whose reading has been suspended by this
+    // subscription, if any.  It will only be accessed from within the drain
+    // method.
+    @Nullable private transient LDAPConnectionReader suspendedReader;
+
+    // The number of threads that have requested a drain.
+    @NotNull private final transient AtomicInteger drainCount;
+
+    // The number of entries requested by the subscriber that have not yet been
+    // provided.
+    @NotNull private final transient AtomicLong demand;
+
+    // The search result or the exception that should be used to complete the
+    // subscription once all queued entries have been delivered.
+    @NotNull private final transient AtomicReference<Object> terminalSignal;
+
+    // The connection on which the search will be processed.
+    @NotNull private final transient LDAPConnection connection;
+
+    // The search result references returned by the server.
+    @NotNull private final transient List<SearchResultReference> references;
+
+    // The entries that have been received but not yet provided to the
+    // subscriber.
+    @NotNull private final transient Queue<SearchResultEntry> queue;
+
+    // The search entry subscriber.
+    @NotNull private final transient SearchEntrySubscriber subscriber;
+
+    // The search request to be processed.
+    @NotNull private final transient SearchRequest searchRequest;
+
+
+
+    /**
+     * Creates a new subscription with the provided information.
+     *
+     * @param  connection     The connection on which the search will be
+     *                        processed.
+     * @param  searchRequest  The search request to be processed.
+     * @param  subscriber     The search entry subscriber.
+     */
+    private PublisherSubscription(@NotNull final LDAPConnection connection,
+                 @NotNull final SearchRequest searchRequest,
+                 @NotNull final SearchEntrySubscriber subscriber)
+    {
+      this.connection = connection;
+      this.searchRequest = searchRequest;
+      this.subscriber = subscriber;
+
+      started = new AtomicBoolean(false);
+      asyncRequestID = null;
+      cancelled = false;
+      terminated = false;
+      suspendedReader = null;
+      drainCount = new AtomicInteger(0);
+      demand = new AtomicLong(0L);
+      terminalSignal = new AtomicReference<>();
+      references = new ArrayList<>(1);
+      queue = new ConcurrentLinkedQueue<>();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void request(final long n)
+    {
+      if (n <= 0L)
+      {
+        fail(new LDAPSearchException(ResultCode.PARAM_ERROR,
+             ERR_SEARCH_PUBLISHER_INVALID_DEMAND.get(n)));
+        return;
+      }
+
+      while (true)
+      {
+        final long current = demand.get();
+        if (current == Long.MAX_VALUE)
+        {
+          break;
+        }
+
+        long updated = current + n;
+        if (updated < 0L)
+        {
+          updated = Long.MAX_VALUE;
+        }
+
+        if (demand.compareAndSet(current, updated))
+        {
+          break;
+        }
+      }
+
+      if ((! cancelled) && (terminalSignal.get() == null) &&
+           started.compareAndSet(false, true))
+      {
+        sendRequest();
+      }
+
+      drain();
+    }
+
+
+
+    /**
+     * Sends the search request to the server.
+     */
+    private void sendRequest()
+    {
+      if (connection.synchronousMode())
+      {
+        terminalSignal.compareAndSet(null,
+             new LDAPSearchException(ResultCode.NOT_SUPPORTED,
+                  ERR_ASYNC_NOT_SUPPORTED_IN_SYNCHRONOUS_MODE.get()));
+        return;
+      }
+
+      try
+      {
+        asyncRequestID = searchRequest.processAsync(connection, this);
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+        terminalSignal.compareAndSet(null, new LDAPSearchException(le));
+      }
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void cancel()
+    {
+      if (cancelled)
+      {
+        return;
+      }
+
+      cancelled = true;
+      abandon();
+      drain();
+    }
+
+
+
+    /**
+     * Cancels the search and completes this subscription with the provided
+     * exception, discarding any entries that have not yet been delivered.
+     *
+     * @param  exception  The exception with which to complete the
+     *                    subscription.
+     */
+    private void fail(@NotNull final LDAPSearchException exception)
+    {
+      if (terminalSignal.compareAndSet(null, exception))
+      {
+        abandon();
+        queue.clear();
+      }
+
+      drain();
+    }
+
+
+
+    /**
+     * Abandons the search if it is still in progress.
+     */
+    private void abandon()
+    {
+      final AsyncRequestID id = asyncRequestID;
+      if ((id != null) && (! id.isDone()))
+      {
+        id.cancel(false);
+      }
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void searchEntryReturned(
+                     @NotNull final SearchResultEntry searchEntry)
+    {
+      if (cancelled || (terminalSignal.get() != null))
+      {
+        return;
+      }
+
+      queue.add(searchEntry);
+      drain();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void searchReferenceReturned(
+                     @NotNull final SearchResultReference searchReference)
+    {
+      references.add(searchReference);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void searchResultReceived(@NotNull final AsyncRequestID requestID,
+                                     @NotNull final SearchResult searchResult)
+    {
+      final String[] referralURLs = searchResult.getReferralURLs();
+      final Control[] responseControls = searchResult.getResponseControls();
+      final SearchResult result = new SearchResult(
+           searchResult.getMessageID(), searchResult.getResultCode(),
+           searchResult.getDiagnosticMessage(), searchResult.getMatchedDN(),
+           ((referralURLs == null) ? StaticUtils.NO_STRINGS : referralURLs),
+           null, references, searchResult.getEntryCount(),
+           searchResult.getReferenceCount(),
+           ((responseControls == null)
+                ? StaticUtils.NO_CONTROLS
+                : responseControls));
+
+      if (result.getResultCode() == ResultCode.SUCCESS)
+      {
+        terminalSignal.compareAndSet(null, result);
+      }
+      else
+      {
+        terminalSignal.compareAndSet(null, new LDAPSearchException(result));
+      }
+
+      drain();
+    }
+
+
+
+    /**
+     * Provides as many queued entries to the subscriber as it has requested,
+     * completes the subscription if appropriate, and suspends or resumes
+     * reading from the server based on whether there are entries that cannot
+     * yet be delivered.  Only one thread at a time will perform this
+     * processing, and if another thread requests a drain while it is in
+     * progress, then the thread performing the drain will repeat it.
+     */
+    private void drain()
+    {
+      if (drainCount.getAndIncrement() != 0)
+      {
+        return;
+      }
+
+      int missed = 1;
+      while (true)
+      {
+        if (cancelled || terminated)
+        {
+          queue.clear();
+          setReadingSuspended(false);
+        }
+        else
+        {
+          final long requested = demand.get();
+          long delivered = 0L;
+          while ((delivered != requested) && (! cancelled))
+          {
+            final SearchResultEntry entry = queue.poll();
+            if (entry == null)
+            {
+              break;
+            }
+
+            try
+            {
+              subscriber.onNext(entry);
+            }
+            catch (final RuntimeException e)
+            {
+              Debug.debugException(e);
+              cancelled = true;
+              abandon();
+              break;
+            }
+
+            delivered++;
+          }
+
+          if ((delivered > 0L) && (requested != Long.MAX_VALUE))
+          {
+            demand.addAndGet(-delivered);
+          }
+
+          final Object signal = terminalSignal.get();
+          if (cancelled)
+          {
+            continue;
+          }
+          else if ((signal != null) && queue.isEmpty())
+          {
+            terminated = true;
+            setReadingSuspended(false);
+            if (signal instanceof SearchResult)
+            {
+              subscriber.onComplete((SearchResult) signal);
+            }
+            else
+            {
+              subscriber.onError((LDAPSearchException) signal);
+            }
+          }
+          else
+          {
+            // If there are entries that the subscriber isn't ready for, then
+            // stop reading from the server until it is.  Once the final result
+            // has been received, there's no reason to keep reading suspended.
+            setReadingSuspended((signal == null) && (! queue.isEmpty()));
+          }
+        }
+
+        missed = drainCount.addAndGet(-missed);
+        if (missed == 0)
+        {
+          return;
+        }
+      }
+    }
+
+
+
+    /**
+     * Suspends or resumes reading from the server for the connection on which
+     * the search is being processed.  This must only be called from within the
+     * {@code drain} method.
+     *
+     * @param  suspended  Indicates whether reading should be suspended.
+     */
+    private void setReadingSuspended(final boolean suspended)
+    {
+      if (suspended)
+      {
+        if (suspendedReader == null)
+        {
+          final LDAPConnectionInternals internals;
+          try
+          {
+            internals = connection.getConnectionInternals(false);
+          }
+          catch (final LDAPException le)
+          {
+            // This should never happen.
+            Debug.debugException(le);
+            return;
+          }
+
+          if (internals != null)
+          {
+            suspendedReader = internals.getConnectionReader();
+            if (suspendedReader != null)
+            {
+              suspendedReader.suspendReading();
+            }
+          }
+        }
+      }
+      else if (suspendedReader != null)
+      {
+        suspendedReader.resumeReading();
+        suspendedReader = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import com.unboundid.util.Extensible;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This interface defines a set of methods that will be used to provide the
+ * entries returned by a search to a subscriber of a
+ * {@link SearchEntryPublisher}.  It follows the same contract as the
+ * {@code java.util.concurrent.Flow.Subscriber} interface:  entries will only be
+ * provided after they have been requested through the associated
+ * {@link SearchEntrySubscription}, the methods of this interface will never be
+ * invoked concurrently, and exactly one of the {@code onComplete} or
+ * {@code onError} methods will be invoked when the search has completed
+ * (unless the subscription is cancelled first).  Unlike the {@code Flow}
+ * interface, the terminal methods provide the search result or the
+ * {@code LDAPSearchException} for the search.
+ * <BR><BR>
+ * Methods in this interface may be invoked by the thread that reads responses
+ * from the server or by a thread that requests additional entries, and they
+ * should return quickly.
+ */
+@Extensible()
+@ThreadSafety(level=ThreadSafetyLevel.INTERFACE_NOT_THREADSAFE)
+public interface SearchEntrySubscriber
+{
+  /**
+   * Indicates that this subscriber has been registered with a search entry
+   * publisher.  No entries will be provided until they have been requested
+   * through the provided subscription.
+   *
+   * @param  subscription  The subscription that may be used to request entries
+   *                       or to cancel the search.
+   */
+  void onSubscribe(@NotNull SearchEntrySubscription subscription);
+
+
+
+  /**
+   * Provides the next search result entry returned by the server.
+   *
+   * @param  searchEntry  The search result entry returned by the server.
+   */
+  void onNext(@NotNull SearchResultEntry searchEntry);
+
+
+
+  /**
+   * Indicates that the search has completed successfully and that all of the
+   * entries returned by the server have been provided to this subscriber.
+   *
+   * @param  searchResult  The result for the search operation.  It will not
+   *                       include any search result entries, but it will
+   *                       include any search result references that were
+   *                       returned.
+   */
+  void onComplete(@NotNull SearchResult searchResult);
+
+
+
+  /**
+   * Indicates that the search did not complete successfully.  No further
+   * entries will be provided to this subscriber.
+   *
+   * @param  exception  The exception with information about the failure.
+   */
+  void onError(@NotNull LDAPSearchException exception);
+}
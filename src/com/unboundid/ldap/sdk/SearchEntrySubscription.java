@@ -0,0 +1,79 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import com.unboundid.util.NotExtensible;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This interface defines a set of methods that may be used by a
+ * {@link SearchEntrySubscriber} to control the flow of entries from a
+ * {@link SearchEntryPublisher}.  It follows the same contract as the
+ * {@code java.util.concurrent.Flow.Subscription} interface.
+ */
+@NotExtensible()
+@ThreadSafety(level=ThreadSafetyLevel.INTERFACE_THREADSAFE)
+public interface SearchEntrySubscription
+{
+  /**
+   * Requests that up to the specified number of additional entries be provided
+   * to the subscriber.  The search request will be sent to the server the first
+   * time this method is invoked.
+   *
+   * @param  n  The number of additional entries to request.  It must be
+   *            greater than zero.  A value of {@code Long.MAX_VALUE} indicates
+   *            that the number of entries should not be limited.  If the value
+   *            is less than or equal to zero, then the search will be
+   *            cancelled and the subscriber's {@code onError} method will be
+   *            invoked.
+   */
+  void request(long n);
+
+
+
+  /**
+   * Cancels the search.  If the search request has already been sent, then the
+   * operation will be abandoned.  No further entries will be provided to the
+   * subscriber, and neither its {@code onComplete} nor its {@code onError}
+   * method will be invoked.
+   */
+  void cancel();
+}
@@ -41,7 +41,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Timer;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -971,6 +970,7 @@ public final class SearchRequest
   {
     Validator.ensureNotNull(baseDN);
 
+    clearPreparedProtocolOp();
     this.baseDN = baseDN;
   }
 
@@ -986,6 +986,7 @@ public final class SearchRequest
   {
     Validator.ensureNotNull(baseDN);
 
+    clearPreparedProtocolOp();
     this.baseDN = baseDN.toString();
   }
 
@@ -1010,6 +1011,7 @@ public final class SearchRequest
    */
   public void setScope(@NotNull final SearchScope scope)
   {
+    clearPreparedProtocolOp();
     this.scope = scope;
   }
 
@@ -1037,6 +1039,7 @@ public final class SearchRequest
    */
   public void setDerefPolicy(@NotNull final DereferencePolicy derefPolicy)
   {
+    clearPreparedProtocolOp();
     this.derefPolicy = derefPolicy;
   }
 
@@ -1074,6 +1077,7 @@ public final class SearchRequest
    */
   public void setSizeLimit(final int sizeLimit)
   {
+    clearPreparedProtocolOp();
     if (sizeLimit < 0)
     {
       this.sizeLimit = 0;
@@ -1118,6 +1122,7 @@ public final class SearchRequest
    */
   public void setTimeLimitSeconds(final int timeLimit)
   {
+    clearPreparedProtocolOp();
     if (timeLimit < 0)
     {
       this.timeLimit = 0;
@@ -1151,6 +1156,7 @@ public final class SearchRequest
    */
   public void setTypesOnly(final boolean typesOnly)
   {
+    clearPreparedProtocolOp();
     this.typesOnly = typesOnly;
   }
 
@@ -1183,6 +1189,7 @@ public final class SearchRequest
   {
     Validator.ensureNotNull(filter);
 
+    clearPreparedProtocolOp();
     this.filter = Filter.create(filter);
   }
 
@@ -1198,6 +1205,7 @@ public final class SearchRequest
   {
     Validator.ensureNotNull(filter);
 
+    clearPreparedProtocolOp();
     this.filter = filter;
   }
 
@@ -1241,6 +1249,7 @@ public final class SearchRequest
    */
   public void setAttributes(@Nullable final String... attributes)
   {
+    clearPreparedProtocolOp();
     if (attributes == null)
     {
       this.attributes = REQUEST_ATTRS_DEFAULT;
@@ -1263,6 +1272,7 @@ public final class SearchRequest
    */
   public void setAttributes(@Nullable final List<String> attributes)
   {
+    clearPreparedProtocolOp();
     if (attributes == null)
     {
       this.attributes = REQUEST_ATTRS_DEFAULT;
@@ -1632,7 +1642,8 @@ public final class SearchRequest
   {
     // Create the LDAP message.
     messageID = connection.nextMessageID();
-    final LDAPMessage message = new LDAPMessage(messageID, this, getControls());
+    final LDAPMessage message = new LDAPMessage(messageID,
+         getProtocolOpToSend(this), getControls());
 
 
     // If the provided async result listener is {@code null}, then we'll use
@@ -1654,11 +1665,10 @@ public final class SearchRequest
 
       if (timeout > 0L)
       {
-        final Timer timer = connection.getTimer();
         final AsyncTimeoutTimerTask timerTask =
              new AsyncTimeoutTimerTask(helper);
-        timer.schedule(timerTask, timeout);
-        asyncRequestID.setTimerTask(timerTask);
+        asyncRequestID.setTimeout(
+             HashedWheelTimer.getInstance().newTimeout(timerTask, timeout));
       }
     }
 
@@ -1718,7 +1728,8 @@ public final class SearchRequest
     // Create the LDAP message.
     messageID = connection.nextMessageID();
     final LDAPMessage message =
-         new LDAPMessage(messageID,  this, getControls());
+         new LDAPMessage(messageID, getProtocolOpToSend(this),
+              getControls());
 
 
     // Send the request to the server.
@@ -2169,6 +2180,7 @@ public final class SearchRequest
     r.setResponseTimeoutMillis(getResponseTimeoutMillis(null));
     r.setIntermediateResponseListener(getIntermediateResponseListener());
     r.setReferralDepth(getReferralDepth());
+    r.setPreparedProtocolOp(getPreparedProtocolOp());
 
     return r;
   }
@@ -2206,6 +2218,8 @@ public final class SearchRequest
     }
     buffer.append('}');
 
+    appendTemplateValuesTo(buffer);
+
     final Control[] controls = getControls();
     if (controls.length > 0)
     {
@@ -40,6 +40,7 @@ package com.unboundid.ldap.sdk;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 
 import com.unboundid.asn1.ASN1StreamReader;
 import com.unboundid.asn1.ASN1StreamReaderSequence;
@@ -222,6 +223,37 @@ public final class SearchResultEntry
 
 
 
+  /**
+   * Creates a new search result entry with the provided information and a map
+   * of attributes that will be used directly rather than copied.
+   *
+   * @param  messageID   The message ID for the LDAP message containing this
+   *                     response.
+   * @param  dn          The DN for this search result entry.  It must not be
+   *                     {@code null}.
+   * @param  schema      The schema to use for operations involving this entry.
+   *                     It may be {@code null} if no schema is available.
+   * @param  attributes  The map of attributes for this search result entry,
+   *                     keyed on the lowercase attribute name.  It must not be
+   *                     {@code null}.
+   * @param  controls    The set of controls for this search result entry.  It
+   *                     must not be {@code null}.
+   */
+  private SearchResultEntry(final int messageID, @NotNull final String dn,
+               @Nullable final Schema schema,
+               @NotNull final LinkedHashMap<String,Attribute> attributes,
+               @NotNull final Control... controls)
+  {
+    super(dn, schema, attributes);
+
+    Validator.ensureNotNull(controls);
+
+    this.messageID = messageID;
+    this.controls  = controls;
+  }
+
+
+
   /**
    * Creates a new search result entry from the provided entry.
    *
@@ -287,17 +319,119 @@ public final class SearchResultEntry
               @NotNull final ASN1StreamReader reader,
               @Nullable final Schema schema)
          throws LDAPException
+  {
+    return readSearchEntryFrom(messageID, messageSequence, reader, schema,
+         false);
+  }
+
+
+
+  /**
+   * Creates a new search result entry object with the protocol op and controls
+   * read from the given ASN.1 stream reader.
+   *
+   * @param  messageID          The message ID for the LDAP message containing
+   *                            this response.
+   * @param  messageSequence    The ASN.1 stream reader sequence used in the
+   *                            course of reading the LDAP message elements.
+   * @param  reader             The ASN.1 stream reader from which to read the
+   *                            protocol op and controls.
+   * @param  schema             The schema to use to select the appropriate
+   *                            matching rule to use for each attribute.  It
+   *                            may be {@code null} if the default matching
+   *                            rule should always be used.
+   * @param  lazyEntryDecoding  Indicates whether to defer decoding the
+   *                            attributes of the entry until they are first
+   *                            accessed.  If this is {@code true}, then the
+   *                            encoded attributes will still be validated
+   *                            before this method returns.
+   *
+   * @return  The decoded search result entry object.
+   *
+   * @throws  LDAPException  If a problem occurs while reading or decoding data
+   *                         from the ASN.1 stream reader.
+   */
+  @NotNull()
+  static SearchResultEntry readSearchEntryFrom(final int messageID,
+              @NotNull final ASN1StreamReaderSequence messageSequence,
+              @NotNull final ASN1StreamReader reader,
+              @Nullable final Schema schema,
+              final boolean lazyEntryDecoding)
+         throws LDAPException
+  {
+    return readSearchEntryFrom(messageID, messageSequence, reader, schema,
+         lazyEntryDecoding, null, 0);
+  }
+
+
+
+  /**
+   * Creates a new search result entry object with the protocol op and controls
+   * read from the given ASN.1 stream reader.
+   *
+   * @param  messageID          The message ID for the LDAP message containing
+   *                            this response.
+   * @param  messageSequence    The ASN.1 stream reader sequence used in the
+   *                            course of reading the LDAP message elements.
+   * @param  reader             The ASN.1 stream reader from which to read the
+   *                            protocol op and controls.
+   * @param  schema             The schema to use to select the appropriate
+   *                            matching rule to use for each attribute.  It
+   *                            may be {@code null} if the default matching
+   *                            rule should always be used.
+   * @param  lazyEntryDecoding  Indicates whether to defer decoding the
+   *                            attributes of the entry until they are first
+   *                            accessed.  This will be ignored if a large
+   *                            value sink is provided, since the attributes
+   *                            must be decoded as they are read in order to
+   *                            stream large values to the sink.
+   * @param  largeValueSink     The sink to which attribute values larger than
+   *                            the threshold should be written.  It may be
+   *                            {@code null} if all values should be held in
+   *                            memory.
+   * @param  thresholdBytes     The maximum size in bytes for an attribute
+   *                            value that will be held in memory when a sink
+   *                            is provided.
+   *
+   * @return  The decoded search result entry object.
+   *
+   * @throws  LDAPException  If a problem occurs while reading or decoding data
+   *                         from the ASN.1 stream reader.
+   */
+  @NotNull()
+  static SearchResultEntry readSearchEntryFrom(final int messageID,
+              @NotNull final ASN1StreamReaderSequence messageSequence,
+              @NotNull final ASN1StreamReader reader,
+              @Nullable final Schema schema,
+              final boolean lazyEntryDecoding,
+              @Nullable final LargeAttributeValueSink largeValueSink,
+              final int thresholdBytes)
+         throws LDAPException
   {
     try
     {
       reader.beginSequence();
       final String dn = reader.readString();
 
-      final ArrayList<Attribute> attrList = new ArrayList<>(10);
-      final ASN1StreamReaderSequence attrSequence = reader.beginSequence();
-      while (attrSequence.hasMoreElements())
+      ArrayList<Attribute> attrList = null;
+      LazilyDecodedAttributeMap attrMap = null;
+      if (lazyEntryDecoding && (largeValueSink == null))
       {
-        attrList.add(Attribute.readFrom(reader, schema));
+        final byte[] encodedAttributes = reader.readBytes();
+        final int numAttributes =
+             LazilyDecodedAttributeMap.validate(encodedAttributes);
+        attrMap = new LazilyDecodedAttributeMap(encodedAttributes,
+             numAttributes, schema);
+      }
+      else
+      {
+        attrList = new ArrayList<>(10);
+        final ASN1StreamReaderSequence attrSequence = reader.beginSequence();
+        while (attrSequence.hasMoreElements())
+        {
+          attrList.add(Attribute.readFrom(reader, schema, largeValueSink,
+               thresholdBytes));
+        }
       }
 
       Control[] controls = NO_CONTROLS;
@@ -314,7 +448,16 @@ public final class SearchResultEntry
         controlList.toArray(controls);
       }
 
-      return new SearchResultEntry(messageID, dn, schema, attrList, controls);
+      if (attrMap == null)
+      {
+        return new SearchResultEntry(messageID, dn, schema, attrList,
+             controls);
+      }
+      else
+      {
+        return new SearchResultEntry(messageID, dn, schema, attrMap,
+             controls);
+      }
     }
     catch (final LDAPException le)
     {
@@ -44,6 +44,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.net.SocketFactory;
 
@@ -64,11 +67,68 @@ import com.unboundid.util.Validator;
  * have recently been found to be unacceptable for use by a server set.  Server
  * sets that use this class can temporarily avoid trying to access servers that
  * may be experiencing problems.
+ * <BR><BR>
+ * The blacklist manager acts as a circuit breaker for each server:
+ * <UL>
+ *   <LI>While a server is not on the blacklist, the outcomes of the most
+ *       recent attempts to establish connections to it are kept in a sliding
+ *       window.  When an attempt fails, the server will be added to the
+ *       blacklist if the window holds at least the minimum number of attempts
+ *       and the fraction of those attempts that failed is greater than or
+ *       equal to the failure rate threshold.  By default, the threshold is
+ *       zero and the minimum number of attempts is one, so that any failed
+ *       attempt will cause the server to be blacklisted.</LI>
+ *   <LI>When a server is added to the blacklist, it will not be checked again
+ *       until a backoff period has elapsed.  The backoff period starts at the
+ *       check interval and doubles each time the server is blacklisted again
+ *       without having remained available for at least the maximum backoff
+ *       period, up to that maximum.  A random jitter of up to half of the
+ *       backoff period is subtracted so that many clients will not all check
+ *       a recovering server at the same time.</LI>
+ *   <LI>Once the backoff period has elapsed, exactly one probe connection
+ *       will be permitted to the server at any given time.  If the probe
+ *       succeeds, then the server will be removed from the blacklist.  If it
+ *       fails, then the server will remain on the blacklist with a longer
+ *       backoff period.</LI>
+ * </UL>
+ * When none of the servers that are not on the blacklist are available, a
+ * server set may still try to establish a connection to a blacklisted server
+ * as a last resort.  Those attempts are not subject to the backoff period, but
+ * they are still limited to a single probe per server at any given time.
  */
 @Mutable()
 @ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
 public final class ServerSetBlacklistManager
 {
+  /**
+   * The default failure rate threshold.
+   */
+  public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.0d;
+
+
+
+  /**
+   * The default maximum backoff period, in milliseconds.
+   */
+  public static final long DEFAULT_MAXIMUM_BACKOFF_MILLIS = 300_000L;
+
+
+
+  /**
+   * The default minimum number of attempts that must be in the sliding window
+   * before a server may be blacklisted.
+   */
+  public static final int DEFAULT_MINIMUM_ATTEMPTS_FOR_FAILURE_RATE = 1;
+
+
+
+  /**
+   * The default number of connection attempts to keep in the sliding window.
+   */
+  public static final int DEFAULT_SLIDING_WINDOW_SIZE = 10;
+
+
+
   // A reference to a timer that is used to periodically check the status of
   // blacklisted servers.
   @NotNull private final AtomicReference<Timer> timerReference;
@@ -76,6 +136,16 @@ public final class ServerSetBlacklistManager
   // The bind request to use to authenticate newly created connections.
   @Nullable private final BindRequest bindRequest;
 
+  // The failure rate at or above which a server will be blacklisted.
+  private volatile double failureRateThreshold;
+
+  // The minimum number of attempts that must be in the sliding window before a
+  // server may be blacklisted.
+  private volatile int minimumAttemptsForFailureRate;
+
+  // The number of connection attempts to keep in the sliding window.
+  private volatile int slidingWindowSize;
+
   // The connection options to use when creating connections.
   @NotNull private final LDAPConnectionOptions connectionOptions;
 
@@ -83,10 +153,17 @@ public final class ServerSetBlacklistManager
   // a server should be removed from the blacklist.
   private final long checkIntervalMillis;
 
+  // The maximum backoff period, in milliseconds.
+  private volatile long maximumBackoffMillis;
+
   // A map of currently blacklisted servers.
   @NotNull private final Map<ObjectPair<String,Integer>,
        LDAPConnectionPoolHealthCheck> blacklistedServers;
 
+  // The circuit breaker state for each server.
+  @NotNull private final Map<ObjectPair<String,Integer>,ServerCircuit>
+       circuits;
+
   // The post-connect processor to use for newly created connections.
   @Nullable private final PostConnectProcessor postConnectProcessor;
 
@@ -158,13 +235,165 @@ public final class ServerSetBlacklistManager
     this.bindRequest = bindRequest;
     this.postConnectProcessor = postConnectProcessor;
 
+    failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+    maximumBackoffMillis = DEFAULT_MAXIMUM_BACKOFF_MILLIS;
+    minimumAttemptsForFailureRate = DEFAULT_MINIMUM_ATTEMPTS_FOR_FAILURE_RATE;
+    slidingWindowSize = DEFAULT_SLIDING_WINDOW_SIZE;
+
     blacklistedServers =
          new ConcurrentHashMap<>(StaticUtils.computeMapCapacity(10));
+    circuits = new ConcurrentHashMap<>(StaticUtils.computeMapCapacity(10));
     timerReference = new AtomicReference<>();
   }
 
 
 
+  /**
+   * Retrieves the failure rate threshold for this blacklist manager.  When an
+   * attempt to establish a connection to a server fails, the server will be
+   * added to the blacklist if the fraction of the attempts in the sliding
+   * window that failed is greater than or equal to this threshold.
+   *
+   * @return  The failure rate threshold for this blacklist manager.
+   */
+  public double getFailureRateThreshold()
+  {
+    return failureRateThreshold;
+  }
+
+
+
+  /**
+   * Specifies the failure rate threshold for this blacklist manager.
+   *
+   * @param  failureRateThreshold  The failure rate threshold for this blacklist
+   *                               manager.  It must be between zero and one,
+   *                               inclusive.  A value of zero indicates that
+   *                               any failed attempt should cause the server
+   *                               to be blacklisted (as long as the minimum
+   *                               number of attempts has been reached).
+   */
+  public void setFailureRateThreshold(final double failureRateThreshold)
+  {
+    Validator.ensureTrue(
+         ((failureRateThreshold >= 0.0d) && (failureRateThreshold <= 1.0d)),
+         "ServerSetBlacklistManager.failureRateThreshold must be between " +
+              "zero and one, inclusive.");
+    this.failureRateThreshold = failureRateThreshold;
+  }
+
+
+
+  /**
+   * Retrieves the number of recent connection attempts for each server that
+   * will be kept in the sliding window used to compute the failure rate.
+   *
+   * @return  The number of recent connection attempts for each server that
+   *          will be kept in the sliding window.
+   */
+  public int getSlidingWindowSize()
+  {
+    return slidingWindowSize;
+  }
+
+
+
+  /**
+   * Specifies the number of recent connection attempts for each server that
+   * will be kept in the sliding window used to compute the failure rate.  Any
+   * attempts already recorded will be discarded.
+   *
+   * @param  slidingWindowSize  The number of recent connection attempts for
+   *                            each server that will be kept in the sliding
+   *                            window.  It must be greater than zero.
+   */
+  public void setSlidingWindowSize(final int slidingWindowSize)
+  {
+    Validator.ensureTrue((slidingWindowSize > 0),
+         "ServerSetBlacklistManager.slidingWindowSize must be greater than " +
+              "zero.");
+    this.slidingWindowSize = slidingWindowSize;
+
+    for (final ServerCircuit circuit : circuits.values())
+    {
+      circuit.resetWindow(slidingWindowSize);
+    }
+  }
+
+
+
+  /**
+   * Retrieves the minimum number of attempts that must be in the sliding window
+   * for a server before a failed attempt may cause it to be blacklisted.
+   *
+   * @return  The minimum number of attempts that must be in the sliding window
+   *          for a server before a failed attempt may cause it to be
+   *          blacklisted.
+   */
+  public int getMinimumAttemptsForFailureRate()
+  {
+    return minimumAttemptsForFailureRate;
+  }
+
+
+
+  /**
+   * Specifies the minimum number of attempts that must be in the sliding
+   * window for a server before a failed attempt may cause it to be
+   * blacklisted.
+   *
+   * @param  minimumAttemptsForFailureRate  The minimum number of attempts that
+   *                                        must be in the sliding window.  It
+   *                                        must be greater than zero.  If it
+   *                                        is larger than the sliding window
+   *                                        size, then the sliding window size
+   *                                        will be used instead.
+   */
+  public void setMinimumAttemptsForFailureRate(
+                   final int minimumAttemptsForFailureRate)
+  {
+    Validator.ensureTrue((minimumAttemptsForFailureRate > 0),
+         "ServerSetBlacklistManager.minimumAttemptsForFailureRate must be " +
+              "greater than zero.");
+    this.minimumAttemptsForFailureRate = minimumAttemptsForFailureRate;
+  }
+
+
+
+  /**
+   * Retrieves the maximum length of time, in milliseconds, that a blacklisted
+   * server will be left alone before it is checked again.  This also controls
+   * how long a server must remain available after being removed from the
+   * blacklist before its backoff period will be reset.
+   *
+   * @return  The maximum backoff period, in milliseconds.
+   */
+  public long getMaximumBackoffMillis()
+  {
+    return maximumBackoffMillis;
+  }
+
+
+
+  /**
+   * Specifies the maximum length of time, in milliseconds, that a blacklisted
+   * server will be left alone before it is checked again.
+   *
+   * @param  maximumBackoffMillis  The maximum backoff period, in milliseconds.
+   *                               It must be greater than zero.  If it is less
+   *                               than the check interval, then the check
+   *                               interval will be used instead.
+   */
+  public void setMaximumBackoffMillis(final long maximumBackoffMillis)
+  {
+    Validator.ensureTrue((maximumBackoffMillis > 0L),
+         "ServerSetBlacklistManager.maximumBackoffMillis must be greater " +
+              "than zero.");
+    this.maximumBackoffMillis = maximumBackoffMillis;
+  }
+
+
+
   /**
    * Indicates whether the blacklist is currently empty.
    *
@@ -277,6 +506,46 @@ public final class ServerSetBlacklistManager
 
 
 
+  /**
+   * Records a successful attempt to establish a connection to the specified
+   * server that is not on the blacklist.
+   *
+   * @param  hostPort  An {@code ObjectPair} containing the address and port of
+   *                   the server.  It must not be {@code null}.
+   */
+  void connectionAttemptSucceeded(
+            @NotNull final ObjectPair<String,Integer> hostPort)
+  {
+    getCircuit(hostPort).recordOutcome(true, failureRateThreshold,
+         minimumAttemptsForFailureRate);
+  }
+
+
+
+  /**
+   * Records a failed attempt to establish a connection to the specified server
+   * that is not on the blacklist, and adds the server to the blacklist if its
+   * failure rate has reached the threshold.
+   *
+   * @param  hostPort     An {@code ObjectPair} containing the address and port
+   *                      of the server.  It must not be {@code null}.
+   * @param  healthCheck  The health check to use for periodic checks to see if
+   *                      the server can be removed from the blacklist.  It may
+   *                      be {@code null} if no health checking is required.
+   */
+  void connectionAttemptFailed(
+            @NotNull final ObjectPair<String,Integer> hostPort,
+            @Nullable final LDAPConnectionPoolHealthCheck healthCheck)
+  {
+    if (getCircuit(hostPort).recordOutcome(false, failureRateThreshold,
+         minimumAttemptsForFailureRate))
+    {
+      addToBlacklist(hostPort, healthCheck);
+    }
+  }
+
+
+
   /**
    * Adds the specified server to the blacklist.
    *
@@ -309,14 +578,23 @@ public final class ServerSetBlacklistManager
   void addToBlacklist(@NotNull final ObjectPair<String,Integer> hostPort,
                       @Nullable final LDAPConnectionPoolHealthCheck healthCheck)
   {
+    final LDAPConnectionPoolHealthCheck previousHealthCheck;
     if (healthCheck == null)
     {
-      blacklistedServers.put(hostPort, new LDAPConnectionPoolHealthCheck());
+      previousHealthCheck = blacklistedServers.put(hostPort,
+           new LDAPConnectionPoolHealthCheck());
     }
     else
     {
-      blacklistedServers.put(hostPort, healthCheck);
+      previousHealthCheck = blacklistedServers.put(hostPort, healthCheck);
     }
+
+    if (previousHealthCheck == null)
+    {
+      getCircuit(hostPort).open(checkIntervalMillis,
+           Math.max(checkIntervalMillis, maximumBackoffMillis));
+    }
+
     ensureTimerIsRunning();
   }
 
@@ -346,6 +624,13 @@ public final class ServerSetBlacklistManager
   void removeFromBlacklist(@NotNull final ObjectPair<String,Integer> hostPort)
   {
     blacklistedServers.remove(hostPort);
+
+    final ServerCircuit circuit = circuits.get(hostPort);
+    if (circuit != null)
+    {
+      circuit.close(slidingWindowSize);
+    }
+
     if (! blacklistedServers.isEmpty())
     {
       ensureTimerIsRunning();
@@ -354,12 +639,127 @@ public final class ServerSetBlacklistManager
 
 
 
+  /**
+   * Attempts to obtain permission to send a probe connection to the specified
+   * blacklisted server as a last resort, when no server outside the blacklist
+   * is available.  The backoff period for the server will not be enforced, but
+   * permission will only be granted if no other probe to the server is in
+   * progress.  If permission is granted, then the caller must subsequently
+   * invoke either {@link #removeFromBlacklist(ObjectPair)} if the probe
+   * succeeds or {@link #probeFailed} if it does not.
+   *
+   * @param  hostPort  An {@code ObjectPair} containing the address and port of
+   *                   the server to be probed.  It must not be {@code null}.
+   *
+   * @return  {@code true} if the caller may attempt to establish a connection
+   *          to the server, or {@code false} if not.
+   */
+  boolean tryAcquireProbePermit(
+               @NotNull final ObjectPair<String,Integer> hostPort)
+  {
+    return getCircuit(hostPort).tryAcquireProbePermit(true);
+  }
+
+
+
+  /**
+   * Indicates that a probe connection to the specified blacklisted server
+   * failed.  The server will remain on the blacklist with a longer backoff
+   * period.
+   *
+   * @param  hostPort     An {@code ObjectPair} containing the address and port
+   *                      of the server that was probed.  It must not be
+   *                      {@code null}.
+   * @param  healthCheck  The health check to use for periodic checks to see if
+   *                      the server can be removed from the blacklist.  It may
+   *                      be {@code null} if no health checking is required.
+   */
+  void probeFailed(@NotNull final ObjectPair<String,Integer> hostPort,
+                   @Nullable final LDAPConnectionPoolHealthCheck healthCheck)
+  {
+    // The server may have been removed from the blacklist by another thread
+    // while the probe was in progress, so make sure that it is still there.
+    if (healthCheck == null)
+    {
+      blacklistedServers.putIfAbsent(hostPort,
+           new LDAPConnectionPoolHealthCheck());
+    }
+    else
+    {
+      blacklistedServers.putIfAbsent(hostPort, healthCheck);
+    }
+
+    getCircuit(hostPort).open(checkIntervalMillis,
+         Math.max(checkIntervalMillis, maximumBackoffMillis));
+    ensureTimerIsRunning();
+  }
+
+
+
+  /**
+   * Retrieves the number of consecutive times that the specified server has
+   * been added to the blacklist (or failed a probe while on the blacklist)
+   * without remaining available for at least the maximum backoff period.
+   *
+   * @param  hostPort  An {@code ObjectPair} containing the address and port of
+   *                   the server.  It must not be {@code null}.
+   *
+   * @return  The number of consecutive times that the server has been
+   *          blacklisted.
+   */
+  int getNumConsecutiveTrips(
+           @NotNull final ObjectPair<String,Integer> hostPort)
+  {
+    final ServerCircuit circuit = circuits.get(hostPort);
+    if (circuit == null)
+    {
+      return 0;
+    }
+    else
+    {
+      return circuit.getNumConsecutiveTrips();
+    }
+  }
+
+
+
+  /**
+   * Retrieves the circuit breaker state for the specified server, creating it
+   * if necessary.
+   *
+   * @param  hostPort  An {@code ObjectPair} containing the address and port of
+   *                   the server.  It must not be {@code null}.
+   *
+   * @return  The circuit breaker state for the specified server.
+   */
+  @NotNull()
+  private ServerCircuit getCircuit(
+               @NotNull final ObjectPair<String,Integer> hostPort)
+  {
+    ServerCircuit circuit = circuits.get(hostPort);
+    if (circuit == null)
+    {
+      circuit = new ServerCircuit(slidingWindowSize);
+      final ServerCircuit existingCircuit =
+           circuits.putIfAbsent(hostPort, circuit);
+      if (existingCircuit != null)
+      {
+        circuit = existingCircuit;
+      }
+    }
+
+    return circuit;
+  }
+
+
+
   /**
    * Clears the blacklist.
    */
   void clear()
   {
     blacklistedServers.clear();
+    circuits.clear();
   }
 
 
@@ -386,13 +786,32 @@ public final class ServerSetBlacklistManager
 
   /**
    * Checks all blacklisted servers to see if any of them should be removed from
+   * the blacklist, regardless of whether their backoff periods have elapsed.
+   * If there are no servers on the blacklist and the timer is running, then it
+   * will be shut down.
+   */
+  void checkBlacklistedServers()
+  {
+    checkBlacklistedServers(true);
+  }
+
+
+
+  /**
+   * Checks blacklisted servers to see if any of them should be removed from
    * the blacklist.  If there are no servers on the blacklist and the timer is
    * running, then it will be shut down.
+   *
+   * @param  ignoreBackoff  Indicates whether to check all blacklisted servers,
+   *                        even those whose backoff periods have not yet
+   *                        elapsed.  A server will not be checked if another
+   *                        probe to it is already in progress.
    */
-  void checkBlacklistedServers()
+  void checkBlacklistedServers(final boolean ignoreBackoff)
   {
-    // Iterate through the blacklist and check each of the servers.  If we find
-    // one that is acceptable, then remove it from the blacklist.
+    // Iterate through the blacklist and check each of the servers that is
+    // eligible for a probe.  If we find one that is acceptable, then remove it
+    // from the blacklist.
     final Iterator<Map.Entry<ObjectPair<String,Integer>,
          LDAPConnectionPoolHealthCheck>> iterator =
          blacklistedServers.entrySet().iterator();
@@ -401,6 +820,12 @@ public final class ServerSetBlacklistManager
       final Map.Entry<ObjectPair<String,Integer>,
            LDAPConnectionPoolHealthCheck> e = iterator.next();
       final ObjectPair<String,Integer> hostPort = e.getKey();
+      final ServerCircuit circuit = getCircuit(hostPort);
+      if (! circuit.tryAcquireProbePermit(ignoreBackoff))
+      {
+        continue;
+      }
+
       final LDAPConnectionPoolHealthCheck healthCheck = e.getValue();
       try (LDAPConnection conn = new LDAPConnection(socketFactory,
                 connectionOptions, hostPort.getFirst(), hostPort.getSecond()))
@@ -408,10 +833,13 @@ public final class ServerSetBlacklistManager
         ServerSet.doBindPostConnectAndHealthCheckProcessing(conn, bindRequest,
              postConnectProcessor, healthCheck);
         iterator.remove();
+        circuit.close(slidingWindowSize);
       }
       catch (final Exception ex)
       {
         Debug.debugException(ex);
+        circuit.open(checkIntervalMillis,
+             Math.max(checkIntervalMillis, maximumBackoffMillis));
       }
     }
 
@@ -451,6 +879,7 @@ public final class ServerSetBlacklistManager
     }
 
     blacklistedServers.clear();
+    circuits.clear();
   }
 
 
@@ -502,6 +931,245 @@ public final class ServerSetBlacklistManager
 
     buffer.append("}, checkIntervalMillis=");
     buffer.append(checkIntervalMillis);
+    buffer.append(", maximumBackoffMillis=");
+    buffer.append(maximumBackoffMillis);
+    buffer.append(", failureRateThreshold=");
+    buffer.append(failureRateThreshold);
+    buffer.append(", slidingWindowSize=");
+    buffer.append(slidingWindowSize);
+    buffer.append(", minimumAttemptsForFailureRate=");
+    buffer.append(minimumAttemptsForFailureRate);
     buffer.append(')');
   }
+
+
+
+  /**
+   * This class holds the circuit breaker state for a single server.
+   */
+  private static final class ServerCircuit
+  {
+    // Indicates whether a probe to the server is currently in progress.
+    @NotNull private final AtomicBoolean probeInProgress;
+
+    // The outcomes of the most recent connection attempts, where true
+    // indicates success.
+    @NotNull private boolean[] outcomes;
+
+    // The number of consecutive times that the server has been blacklisted.
+    private int numConsecutiveTrips;
+
+    // The number of failed attempts in the sliding window.
+    private int numFailures;
+
+    // The number of attempts in the sliding window.
+    private int numOutcomes;
+
+    // The position in the sliding window at which the next outcome will be
+    // recorded.
+    private int nextOutcomeIndex;
+
+    // The time, in nanoseconds, that the server was last removed from the
+    // blacklist, or zero if it has not been.
+    private long lastClosedTimeNanos;
+
+    // The time, in nanoseconds, before which the server should not be probed.
+    private long nextProbeTimeNanos;
+
+
+
+    /**
+     * Creates a new server circuit.
+     *
+     * @param  slidingWindowSize  The number of attempts to keep in the sliding
+     *                            window.
+     */
+    private ServerCircuit(final int slidingWindowSize)
+    {
+      probeInProgress = new AtomicBoolean(false);
+      outcomes = new boolean[slidingWindowSize];
+      numConsecutiveTrips = 0;
+      numFailures = 0;
+      numOutcomes = 0;
+      nextOutcomeIndex = 0;
+      lastClosedTimeNanos = 0L;
+      nextProbeTimeNanos = System.nanoTime();
+    }
+
+
+
+    /**
+     * Records the outcome of a connection attempt in the sliding window.
+     *
+     * @param  successful            Indicates whether the attempt was
+     *                               successful.
+     * @param  failureRateThreshold  The failure rate at or above which the
+     *                               server should be blacklisted.
+     * @param  minimumAttempts       The minimum number of attempts that must
+     *                               be in the sliding window before the server
+     *                               may be blacklisted.
+     *
+     * @return  {@code true} if the attempt failed and the server should be
+     *          blacklisted, or {@code false} if not.
+     */
+    private synchronized boolean recordOutcome(final boolean successful,
+                                  final double failureRateThreshold,
+                                  final int minimumAttempts)
+    {
+      if (numOutcomes == outcomes.length)
+      {
+        if (! outcomes[nextOutcomeIndex])
+        {
+          numFailures--;
+        }
+      }
+      else
+      {
+        numOutcomes++;
+      }
+
+      outcomes[nextOutcomeIndex] = successful;
+      nextOutcomeIndex = (nextOutcomeIndex + 1) % outcomes.length;
+      if (successful)
+      {
+        return false;
+      }
+
+      numFailures++;
+      return ((numOutcomes >= Math.min(minimumAttempts, outcomes.length)) &&
+           (((double) numFailures / numOutcomes) >= failureRateThreshold));
+    }
+
+
+
+    /**
+     * Discards all outcomes in the sliding window.
+     *
+     * @param  slidingWindowSize  The number of attempts to keep in the sliding
+     *                            window.
+     */
+    private synchronized void resetWindow(final int slidingWindowSize)
+    {
+      if (outcomes.length != slidingWindowSize)
+      {
+        outcomes = new boolean[slidingWindowSize];
+      }
+
+      numFailures = 0;
+      numOutcomes = 0;
+      nextOutcomeIndex = 0;
+    }
+
+
+
+    /**
+     * Indicates that the server has been added to the blacklist or has failed
+     * a probe, and computes the time before which it should not be probed
+     * again.  Any probe permit held for the server will be released.
+     *
+     * @param  initialBackoffMillis  The backoff period, in milliseconds, to
+     *                               use the first time the server is
+     *                               blacklisted.
+     * @param  maximumBackoffMillis  The maximum backoff period, in
+     *                               milliseconds.
+     */
+    private synchronized void open(final long initialBackoffMillis,
+                                   final long maximumBackoffMillis)
+    {
+      final long now = System.nanoTime();
+      final long maximumBackoffNanos =
+           TimeUnit.MILLISECONDS.toNanos(maximumBackoffMillis);
+      if ((lastClosedTimeNanos != 0L) &&
+           ((now - lastClosedTimeNanos) >= maximumBackoffNanos))
+      {
+        // The server remained available long enough that it isn't considered
+        // to be flapping, so start over with the initial backoff period.
+        numConsecutiveTrips = 0;
+      }
+
+      lastClosedTimeNanos = 0L;
+      numConsecutiveTrips++;
+
+      long backoffMillis = initialBackoffMillis;
+      for (int i=1; i < numConsecutiveTrips; i++)
+      {
+        if (backoffMillis >= maximumBackoffMillis)
+        {
+          break;
+        }
+
+        backoffMillis <<= 1;
+      }
+
+      final long backoffNanos = Math.min(maximumBackoffNanos,
+           TimeUnit.MILLISECONDS.toNanos(backoffMillis));
+      final long jitterNanos =
+           ThreadLocalRandom.current().nextLong((backoffNanos / 2L) + 1L);
+      nextProbeTimeNanos = now + backoffNanos - jitterNanos;
+
+      probeInProgress.set(false);
+    }
+
+
+
+    /**
+     * Indicates that the server has been removed from the blacklist.  Any
+     * probe permit held for the server will be released.
+     *
+     * @param  slidingWindowSize  The number of attempts to keep in the sliding
+     *                            window.
+     */
+    private synchronized void close(final int slidingWindowSize)
+    {
+      lastClosedTimeNanos = System.nanoTime();
+      if (lastClosedTimeNanos == 0L)
+      {
+        lastClosedTimeNanos = 1L;
+      }
+
+      resetWindow(slidingWindowSize);
+      probeInProgress.set(false);
+    }
+
+
+
+    /**
+     * Attempts to obtain permission to probe the server.
+     *
+     * @param  ignoreBackoff  Indicates whether to grant permission even if the
+     *                        backoff period has not yet elapsed.
+     *
+     * @return  {@code true} if permission was granted, or {@code false} if
+     *          not.
+     */
+    private boolean tryAcquireProbePermit(final boolean ignoreBackoff)
+    {
+      if (! ignoreBackoff)
+      {
+        synchronized (this)
+        {
+          if ((System.nanoTime() - nextProbeTimeNanos) < 0L)
+          {
+            return false;
+          }
+        }
+      }
+
+      return probeInProgress.compareAndSet(false, true);
+    }
+
+
+
+    /**
+     * Retrieves the number of consecutive times that the server has been
+     * blacklisted.
+     *
+     * @return  The number of consecutive times that the server has been
+     *          blacklisted.
+     */
+    private synchronized int getNumConsecutiveTrips()
+    {
+      return numConsecutiveTrips;
+    }
+  }
 }
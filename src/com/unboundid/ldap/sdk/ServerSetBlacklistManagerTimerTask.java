@@ -76,6 +76,6 @@ final class ServerSetBlacklistManagerTimerTask
   @Override()
   public void run()
   {
-    blacklistManager.checkBlacklistedServers();
+    blacklistManager.checkBlacklistedServers(false);
   }
 }
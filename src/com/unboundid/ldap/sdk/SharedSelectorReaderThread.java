@@ -0,0 +1,629 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.PropertyManager;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a thread that uses a {@code java.nio.channels.Selector}
+ * to read responses for any number of LDAP connections that are configured to
+ * use shared selector readers.  A small, fixed set of these threads is shared
+ * by all such connections in the JVM, and each connection is assigned to the
+ * thread with the fewest registered connections at the time it is
+ * established.  Whenever data is available for a connection, the associated
+ * {@link LDAPConnectionReader} is invoked to read and decode any complete LDAP
+ * messages and hand them off to the appropriate response acceptors.
+ * <BR><BR>
+ * If the selector fails, the thread will wait for an increasing length of
+ * time before trying again.  If the selector has been closed, or if it fails
+ * too many times in a row, then the thread will stop.  Every connection
+ * registered with it will be closed, and a new thread will take its place
+ * for connections that are established later.
+ *
+ * @see  LDAPConnectionOptions#useSharedSelectorReaders()
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class SharedSelectorReaderThread
+      extends Thread
+{
+  /**
+   * The maximum number of selector threads that will be created if the number
+   * of threads is not explicitly specified.
+   */
+  private static final int DEFAULT_MAX_THREAD_COUNT = 4;
+
+
+
+  /**
+   * The maximum number of consecutive times that the selector may fail before
+   * the thread will stop.
+   */
+  private static final int MAX_CONSECUTIVE_FAILURES = 10;
+
+
+
+  /**
+   * The maximum length of time in milliseconds that the thread will wait
+   * after a selector failure before trying again.
+   */
+  private static final long MAX_FAILURE_BACKOFF_MILLIS = 1_000L;
+
+
+
+  /**
+   * The lock that will be used to protect the creation of the selector
+   * threads.
+   */
+  @NotNull private static final Object THREADS_LOCK = new Object();
+
+
+
+  /**
+   * The set of selector threads that have been created.  It will be
+   * {@code null} until the first connection is registered.
+   */
+  @Nullable private static volatile SharedSelectorReaderThread[] threads =
+       null;
+
+
+
+  // A counter of the number of connections registered with this thread.
+  @NotNull private final AtomicInteger registeredConnectionCount;
+
+  // The connection readers registered with this thread, indexed by the
+  // channels from which they read.  These are tracked separately from the
+  // selector so that they can be notified if the selector fails.
+  @NotNull private final ConcurrentHashMap<SocketChannel,LDAPConnectionReader>
+       registeredReaders;
+
+  // A queue of tasks that need to be performed by this thread the next time it
+  // wakes up.  Registration changes must be performed on the selector thread
+  // itself so that they cannot block behind a pending select.
+  @NotNull private final ConcurrentLinkedQueue<Runnable> pendingTasks;
+
+  // The selector that will be used to detect data available for reading.
+  @NotNull private final Selector selector;
+
+  // Indicates whether this thread has stopped because its selector failed.
+  private volatile boolean stopped;
+
+  // The index for this thread in the set of selector threads.
+  private final int index;
+
+
+
+  /**
+   * Creates a new selector thread with the provided index.
+   *
+   * @param  index  The index for this thread in the set of selector threads.
+   *
+   * @throws  IOException  If a problem occurs while opening the selector.
+   */
+  private SharedSelectorReaderThread(final int index)
+          throws IOException
+  {
+    super("LDAP SDK Shared Selector Reader Thread " + index);
+    setDaemon(true);
+
+    this.index = index;
+    stopped = false;
+    selector = Selector.open();
+    pendingTasks = new ConcurrentLinkedQueue<>();
+    registeredConnectionCount = new AtomicInteger(0);
+    registeredReaders = new ConcurrentHashMap<>();
+  }
+
+
+
+  /**
+   * Retrieves the selector thread that should be used for a newly-established
+   * connection.  The selector threads will be created and started if that has
+   * not already been done.
+   *
+   * @return  The selector thread that should be used for a newly-established
+   *          connection.
+   *
+   * @throws  IOException  If a problem occurs while creating the selector
+   *                       threads.
+   */
+  @NotNull()
+  static SharedSelectorReaderThread getThreadForNewConnection()
+         throws IOException
+  {
+    SharedSelectorReaderThread[] threadArray = threads;
+    if (threadArray == null)
+    {
+      synchronized (THREADS_LOCK)
+      {
+        threadArray = threads;
+        if (threadArray == null)
+        {
+          threadArray = createThreads();
+          threads = threadArray;
+        }
+      }
+    }
+
+    SharedSelectorReaderThread selectedThread = threadArray[0];
+    int selectedCount = selectedThread.registeredConnectionCount.get();
+    for (int i=1; i < threadArray.length; i++)
+    {
+      final int count = threadArray[i].registeredConnectionCount.get();
+      if (count < selectedCount)
+      {
+        selectedThread = threadArray[i];
+        selectedCount = count;
+      }
+    }
+
+    return selectedThread;
+  }
+
+
+
+  /**
+   * Creates and starts the set of selector threads.
+   *
+   * @return  The set of selector threads that were created.
+   *
+   * @throws  IOException  If a problem occurs while creating any of the
+   *                       selector threads.
+   */
+  @NotNull()
+  private static SharedSelectorReaderThread[] createThreads()
+          throws IOException
+  {
+    int numThreads = PropertyManager.getInt(
+         LDAPConnectionOptions.PROPERTY_SHARED_SELECTOR_READER_THREAD_COUNT,
+         -1);
+    if (numThreads <= 0)
+    {
+      numThreads = Math.max(1, Math.min(DEFAULT_MAX_THREAD_COUNT,
+           Runtime.getRuntime().availableProcessors()));
+    }
+
+    final SharedSelectorReaderThread[] threadArray =
+         new SharedSelectorReaderThread[numThreads];
+    for (int i=0; i < numThreads; i++)
+    {
+      threadArray[i] = new SharedSelectorReaderThread(i);
+    }
+
+    for (final SharedSelectorReaderThread t : threadArray)
+    {
+      t.start();
+    }
+
+    return threadArray;
+  }
+
+
+
+  /**
+   * Registers the provided connection reader with this selector thread so that
+   * it will be notified whenever data is available to read from the provided
+   * channel.  The channel must already have been placed in non-blocking mode.
+   *
+   * @param  reader   The connection reader to register.
+   * @param  channel  The channel from which the reader will read data.
+   */
+  void register(@NotNull final LDAPConnectionReader reader,
+                @NotNull final SocketChannel channel)
+  {
+    registeredConnectionCount.incrementAndGet();
+    registeredReaders.put(channel, reader);
+    enqueue(new Runnable()
+    {
+      @Override()
+      public void run()
+      {
+        try
+        {
+          channel.register(selector, SelectionKey.OP_READ, reader);
+        }
+        catch (final Exception e)
+        {
+          Debug.debugException(e);
+          reader.handleSelectorFailure(e);
+        }
+      }
+    });
+  }
+
+
+
+  /**
+   * Deregisters the provided channel from this selector thread.
+   *
+   * @param  channel            The channel to deregister.
+   * @param  waitForCompletion  Indicates whether to wait for the selector
+   *                            thread to complete the deregistration before
+   *                            returning.  This should be {@code true} if the
+   *                            channel needs to be placed back into blocking
+   *                            mode.
+   */
+  void deregister(@NotNull final SocketChannel channel,
+                  final boolean waitForCompletion)
+  {
+    registeredConnectionCount.decrementAndGet();
+    registeredReaders.remove(channel);
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    enqueue(new Runnable()
+    {
+      @Override()
+      public void run()
+      {
+        try
+        {
+          final SelectionKey key = channel.keyFor(selector);
+          if (key != null)
+          {
+            key.cancel();
+            selector.selectNow();
+          }
+        }
+        catch (final Exception e)
+        {
+          Debug.debugException(e);
+        }
+        finally
+        {
+          latch.countDown();
+        }
+      }
+    });
+
+    if (waitForCompletion && (Thread.currentThread() != this))
+    {
+      try
+      {
+        latch.await();
+      }
+      catch (final InterruptedException ie)
+      {
+        Debug.debugException(ie);
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+
+
+  /**
+   * Indicates that the provided connection reader, which had suspended reading
+   * data from its channel, is now ready to resume reading.  The selector thread
+   * will process any complete messages that had already been read for that
+   * connection before it starts waiting for more data.
+   *
+   * @param  reader   The connection reader that is ready to resume reading.
+   * @param  channel  The channel from which the reader reads data.
+   */
+  void resumeReading(@NotNull final LDAPConnectionReader reader,
+                     @NotNull final SocketChannel channel)
+  {
+    enqueue(new Runnable()
+    {
+      @Override()
+      public void run()
+      {
+        final SelectionKey key = channel.keyFor(selector);
+        if ((key == null) || (! key.isValid()))
+        {
+          return;
+        }
+
+        try
+        {
+          if (reader.processBufferedMessages())
+          {
+            updateInterestOps(key, reader);
+          }
+          else
+          {
+            key.cancel();
+          }
+        }
+        catch (final Throwable t)
+        {
+          Debug.debugException(t);
+          key.cancel();
+          reader.handleSelectorFailure(t);
+        }
+      }
+    });
+  }
+
+
+
+  /**
+   * Adds the provided task to the queue of tasks to be performed by this
+   * thread and wakes up the selector so that it will be performed promptly.
+   * If this thread has stopped, then the task will be performed by the
+   * current thread instead.
+   *
+   * @param  task  The task to be performed.
+   */
+  private void enqueue(@NotNull final Runnable task)
+  {
+    pendingTasks.add(task);
+    if (stopped)
+    {
+      runPendingTasks();
+    }
+    else
+    {
+      selector.wakeup();
+    }
+  }
+
+
+
+  /**
+   * Performs all of the tasks that are currently in the queue of pending
+   * tasks.
+   */
+  private void runPendingTasks()
+  {
+    Runnable task = pendingTasks.poll();
+    while (task != null)
+    {
+      task.run();
+      task = pendingTasks.poll();
+    }
+  }
+
+
+
+  /**
+   * Updates the interest set for the provided selection key so that the
+   * selector will only watch for data to read if the associated connection
+   * reader has not suspended reading.
+   *
+   * @param  key     The selection key to update.
+   * @param  reader  The connection reader associated with the selection key.
+   */
+  private static void updateInterestOps(@NotNull final SelectionKey key,
+                                        @NotNull final LDAPConnectionReader
+                                             reader)
+  {
+    if (! key.isValid())
+    {
+      return;
+    }
+
+    if (reader.isReadingSuspended())
+    {
+      key.interestOps(0);
+    }
+    else
+    {
+      key.interestOps(SelectionKey.OP_READ);
+    }
+  }
+
+
+
+  /**
+   * Retrieves the number of connections that are currently registered with
+   * this selector thread.
+   *
+   * @return  The number of connections that are currently registered with
+   *          this selector thread.
+   */
+  int getRegisteredConnectionCount()
+  {
+    return registeredConnectionCount.get();
+  }
+
+
+
+  /**
+   * Operates in a loop, waiting for data to become available on any of the
+   * registered channels and invoking the associated connection readers to
+   * process it.
+   */
+  @Override()
+  public void run()
+  {
+    int consecutiveFailures = 0;
+    while (true)
+    {
+      try
+      {
+        runPendingTasks();
+
+        selector.select();
+
+        final Iterator<SelectionKey> iterator =
+             selector.selectedKeys().iterator();
+        while (iterator.hasNext())
+        {
+          final SelectionKey key = iterator.next();
+          iterator.remove();
+
+          final LDAPConnectionReader reader =
+               (LDAPConnectionReader) key.attachment();
+          try
+          {
+            if (key.isValid() && key.isReadable())
+            {
+              if (reader.readFromChannel())
+              {
+                updateInterestOps(key, reader);
+              }
+              else
+              {
+                key.cancel();
+              }
+            }
+          }
+          catch (final Throwable t)
+          {
+            // This should never happen, since the reader is responsible for
+            // handling any problems that it encounters.  But if it does, then
+            // we don't want it to take down the thread and every other
+            // connection registered with it.
+            Debug.debugException(t);
+            key.cancel();
+            reader.handleSelectorFailure(t);
+          }
+        }
+
+        consecutiveFailures = 0;
+      }
+      catch (final ClosedSelectorException e)
+      {
+        Debug.debugException(e);
+        stopAfterFailure(e);
+        return;
+      }
+      catch (final Throwable t)
+      {
+        Debug.debugException(t);
+
+        consecutiveFailures++;
+        if ((! selector.isOpen()) ||
+             (consecutiveFailures >= MAX_CONSECUTIVE_FAILURES))
+        {
+          stopAfterFailure(t);
+          return;
+        }
+
+        try
+        {
+          Thread.sleep(Math.min(MAX_FAILURE_BACKOFF_MILLIS,
+               (1L << consecutiveFailures)));
+        }
+        catch (final InterruptedException ie)
+        {
+          Debug.debugException(ie);
+        }
+      }
+    }
+  }
+
+
+
+  /**
+   * Stops this thread after its selector has failed in a way that it is not
+   * expected to recover from.  A new thread will be created to take the place
+   * of this one for connections established in the future, and all of the
+   * connections registered with this thread will be closed.
+   *
+   * @param  t  The failure that caused this thread to stop.
+   */
+  private void stopAfterFailure(@NotNull final Throwable t)
+  {
+    stopped = true;
+    replaceThread();
+
+    try
+    {
+      selector.close();
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+    }
+
+    final List<LDAPConnectionReader> readers =
+         new ArrayList<>(registeredReaders.values());
+    for (final LDAPConnectionReader reader : readers)
+    {
+      reader.handleSelectorFailure(t);
+    }
+
+    runPendingTasks();
+  }
+
+
+
+  /**
+   * Replaces this thread in the set of selector threads with a newly-created
+   * thread.  If the new thread cannot be created, then the entire set of
+   * selector threads will be created again when the next connection is
+   * established.
+   */
+  private void replaceThread()
+  {
+    synchronized (THREADS_LOCK)
+    {
+      final SharedSelectorReaderThread[] threadArray = threads;
+      if ((threadArray == null) || (threadArray[index] != this))
+      {
+        return;
+      }
+
+      try
+      {
+        final SharedSelectorReaderThread newThread =
+             new SharedSelectorReaderThread(index);
+        final SharedSelectorReaderThread[] newThreadArray = threadArray.clone();
+        newThreadArray[index] = newThread;
+        newThread.start();
+        threads = newThreadArray;
+      }
+      catch (final IOException e)
+      {
+        Debug.debugException(e);
+        threads = null;
+      }
+    }
+  }
+}
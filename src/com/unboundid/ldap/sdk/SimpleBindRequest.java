@@ -572,7 +572,8 @@ public final class SimpleBindRequest
 
     // Create the LDAP message.
     messageID = connection.nextMessageID();
-    final LDAPMessage message = new LDAPMessage(messageID, this, getControls());
+    final LDAPMessage message = new LDAPMessage(messageID,
+         getProtocolOpToSend(this), getControls());
 
 
     // Register with the connection reader to be notified of responses for the
@@ -653,7 +654,8 @@ public final class SimpleBindRequest
     // Create the LDAP message.
     messageID = connection.nextMessageID();
     final LDAPMessage message =
-         new LDAPMessage(messageID, this, getControls());
+         new LDAPMessage(messageID, getProtocolOpToSend(this),
+              getControls());
 
 
     // Send the request to the server.
@@ -834,8 +836,10 @@ public final class SimpleBindRequest
   public SimpleBindRequest getRebindRequest(@NotNull final String host,
                                             final int port)
   {
-    return new SimpleBindRequest(bindDN, password, passwordProvider,
-         getControls());
+    final SimpleBindRequest rebindRequest = new SimpleBindRequest(bindDN,
+         password, passwordProvider, getControls());
+    rebindRequest.setPreparedProtocolOp(getPreparedProtocolOp());
+    return rebindRequest;
   }
 
 
@@ -919,6 +923,7 @@ public final class SimpleBindRequest
          getIntermediateResponseListener());
     bindRequest.setReferralDepth(getReferralDepth());
     bindRequest.setReferralConnector(getReferralConnectorInternal());
+    bindRequest.setPreparedProtocolOp(getPreparedProtocolOp());
     return bindRequest;
   }
 
@@ -934,6 +939,8 @@ public final class SimpleBindRequest
     buffer.append(bindDN);
     buffer.append('\'');
 
+    appendTemplateValuesTo(buffer);
+
     final Control[] controls = getControls();
     if (controls.length > 0)
     {
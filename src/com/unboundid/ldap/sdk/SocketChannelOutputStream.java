@@ -0,0 +1,293 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides an output stream that can be used to write data to a
+ * socket channel that may be operating in non-blocking mode.  If the channel
+ * cannot immediately accept all of the data to be written, then the write will
+ * block until the channel becomes writable again.  Timeouts for blocked writes
+ * of LDAP messages are enforced by the connection's
+ * {@link WriteTimeoutHandler}, which will close the channel and cause the
+ * pending write to fail.  Writes that are not covered by that handler (like
+ * those performed by a shared selector thread during TLS negotiation) may
+ * instead specify a time limit of their own.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class SocketChannelOutputStream
+      extends OutputStream
+{
+  /**
+   * The maximum length of time in milliseconds that a single wait for the
+   * channel to become writable should be allowed to block before checking to
+   * see whether the channel has been closed.
+   */
+  private static final long WRITABLE_WAIT_INTERVAL_MILLIS = 100L;
+
+
+
+  // The selector that will be used to wait for the channel to become writable.
+  // It will only be created if it is needed.
+  @Nullable private volatile Selector writeSelector;
+
+  // The channel to which data will be written.
+  @NotNull private final SocketChannel channel;
+
+
+
+  /**
+   * Creates a new output stream that will write to the provided channel.
+   *
+   * @param  channel  The channel to which data will be written.
+   */
+  SocketChannelOutputStream(@NotNull final SocketChannel channel)
+  {
+    this.channel = channel;
+
+    writeSelector = null;
+  }
+
+
+
+  /**
+   * Writes the provided byte to the channel.
+   *
+   * @param  b  The byte to be written.
+   *
+   * @throws  IOException  If a problem occurs while writing the data.
+   */
+  @Override()
+  public void write(final int b)
+         throws IOException
+  {
+    write(new byte[] { (byte) (b & 0xFF) }, 0, 1);
+  }
+
+
+
+  /**
+   * Writes the specified portion of the provided byte array to the channel.
+   *
+   * @param  b    The array containing the data to be written.
+   * @param  off  The offset in the array at which the data to write begins.
+   * @param  len  The number of bytes to be written.
+   *
+   * @throws  IOException  If a problem occurs while writing the data.
+   */
+  @Override()
+  public synchronized void write(@NotNull final byte[] b, final int off,
+                                 final int len)
+         throws IOException
+  {
+    write(ByteBuffer.wrap(b, off, len));
+  }
+
+
+
+  /**
+   * Writes all remaining data in the provided buffers to the channel, using a
+   * single gathering write whenever the channel can accept all of it.
+   *
+   * @param  buffers  The buffers containing the data to be written.
+   *
+   * @throws  IOException  If a problem occurs while writing the data.
+   */
+  synchronized void write(@NotNull final ByteBuffer... buffers)
+               throws IOException
+  {
+    write(Long.MAX_VALUE, buffers);
+  }
+
+
+
+  /**
+   * Writes all remaining data in the provided buffers to the channel, using a
+   * single gathering write whenever the channel can accept all of it, and
+   * failing if the channel does not accept all of the data by the specified
+   * time.
+   *
+   * @param  stopWaitingTime  The time, in milliseconds since the epoch, by
+   *                          which all of the data must have been written.
+   *                          A value of {@code Long.MAX_VALUE} indicates that
+   *                          there is no time limit.
+   * @param  buffers          The buffers containing the data to be written.
+   *
+   * @throws  IOException  If a problem occurs while writing the data, or if
+   *                       the channel did not accept all of the data by the
+   *                       specified time.
+   */
+  synchronized void write(final long stopWaitingTime,
+                          @NotNull final ByteBuffer... buffers)
+               throws IOException
+  {
+    long remaining = 0L;
+    for (final ByteBuffer b : buffers)
+    {
+      remaining += b.remaining();
+    }
+
+    while (remaining > 0L)
+    {
+      final long bytesWritten = channel.write(buffers);
+      if (bytesWritten > 0L)
+      {
+        remaining -= bytesWritten;
+      }
+      else
+      {
+        waitForWritable(stopWaitingTime);
+      }
+    }
+  }
+
+
+
+  /**
+   * Waits for the channel to become writable.
+   *
+   * @param  stopWaitingTime  The time, in milliseconds since the epoch, at
+   *                          which to stop waiting.  A value of
+   *                          {@code Long.MAX_VALUE} indicates that there is no
+   *                          time limit.
+   *
+   * @throws  IOException  If the channel has been closed, if the channel did
+   *                       not become writable by the specified time, or if a
+   *                       problem occurs while waiting.
+   */
+  private void waitForWritable(final long stopWaitingTime)
+          throws IOException
+  {
+    Selector s = writeSelector;
+    if (s == null)
+    {
+      s = Selector.open();
+      channel.register(s, SelectionKey.OP_WRITE);
+      writeSelector = s;
+    }
+
+    try
+    {
+      while (true)
+      {
+        if (! channel.isOpen())
+        {
+          throw new ClosedChannelException();
+        }
+
+        final long remainingMillis =
+             stopWaitingTime - System.currentTimeMillis();
+        if (remainingMillis <= 0L)
+        {
+          throw new SocketTimeoutException();
+        }
+
+        if (s.select(Math.min(WRITABLE_WAIT_INTERVAL_MILLIS, remainingMillis))
+             > 0)
+        {
+          s.selectedKeys().clear();
+          return;
+        }
+      }
+    }
+    catch (final ClosedSelectorException e)
+    {
+      // The output stream was closed while we were waiting.
+      Debug.debugException(e);
+      throw new ClosedChannelException();
+    }
+  }
+
+
+
+  /**
+   * Flushes the output stream.  Data is written directly to the channel, so no
+   * action is required.
+   */
+  @Override()
+  public void flush()
+  {
+    // No implementation is required.
+  }
+
+
+
+  /**
+   * Closes this output stream and the underlying channel.
+   *
+   * @throws  IOException  If a problem occurs while closing the channel.
+   */
+  @Override()
+  public void close()
+         throws IOException
+  {
+    try
+    {
+      final Selector s = writeSelector;
+      if (s != null)
+      {
+        s.close();
+      }
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+    }
+    finally
+    {
+      channel.close();
+    }
+  }
+}
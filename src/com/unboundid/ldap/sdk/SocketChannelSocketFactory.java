@@ -0,0 +1,255 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import javax.net.SocketFactory;
+
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a socket factory that creates sockets that are backed by
+ * a {@code java.nio.channels.SocketChannel}.  It is used in place of the
+ * JVM-default socket factory for connections that are configured to use
+ * shared selector readers, since those readers can only operate on sockets
+ * that are associated with a selectable channel.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class SocketChannelSocketFactory
+      extends SocketFactory
+{
+  /**
+   * The singleton instance of this socket factory.
+   */
+  @NotNull private static final SocketChannelSocketFactory INSTANCE =
+       new SocketChannelSocketFactory();
+
+
+
+  /**
+   * Creates a new instance of this socket factory.
+   */
+  private SocketChannelSocketFactory()
+  {
+    // No implementation is required.
+  }
+
+
+
+  /**
+   * Retrieves the singleton instance of this socket factory.
+   *
+   * @return  The singleton instance of this socket factory.
+   */
+  @NotNull()
+  static SocketChannelSocketFactory getInstance()
+  {
+    return INSTANCE;
+  }
+
+
+
+  /**
+   * Creates a new unconnected socket that is backed by a socket channel.
+   *
+   * @return  The socket that was created.
+   *
+   * @throws  IOException  If a problem occurs while creating the socket.
+   */
+  @Override()
+  @NotNull()
+  public Socket createSocket()
+         throws IOException
+  {
+    return SocketChannel.open().socket();
+  }
+
+
+
+  /**
+   * Creates a new socket that is backed by a socket channel and is connected
+   * to the specified server.
+   *
+   * @param  host  The host to which the connection should be established.
+   * @param  port  The port to which the connection should be established.
+   *
+   * @return  The socket that was created.
+   *
+   * @throws  IOException  If a problem occurs while creating the socket.
+   */
+  @Override()
+  @NotNull()
+  public Socket createSocket(@NotNull final String host, final int port)
+         throws IOException
+  {
+    return createSocket(new InetSocketAddress(host, port), null);
+  }
+
+
+
+  /**
+   * Creates a new socket that is backed by a socket channel and is connected
+   * to the specified server.
+   *
+   * @param  host          The host to which the connection should be
+   *                       established.
+   * @param  port          The port to which the connection should be
+   *                       established.
+   * @param  localAddress  The local address to which the socket should be
+   *                       bound.
+   * @param  localPort     The local port to which the socket should be
+   *                       bound.
+   *
+   * @return  The socket that was created.
+   *
+   * @throws  IOException  If a problem occurs while creating the socket.
+   */
+  @Override()
+  @NotNull()
+  public Socket createSocket(@NotNull final String host, final int port,
+                             @Nullable final InetAddress localAddress,
+                             final int localPort)
+         throws IOException
+  {
+    return createSocket(new InetSocketAddress(host, port),
+         new InetSocketAddress(localAddress, localPort));
+  }
+
+
+
+  /**
+   * Creates a new socket that is backed by a socket channel and is connected
+   * to the specified server.
+   *
+   * @param  address  The address to which the connection should be
+   *                  established.
+   * @param  port     The port to which the connection should be established.
+   *
+   * @return  The socket that was created.
+   *
+   * @throws  IOException  If a problem occurs while creating the socket.
+   */
+  @Override()
+  @NotNull()
+  public Socket createSocket(@NotNull final InetAddress address,
+                             final int port)
+         throws IOException
+  {
+    return createSocket(new InetSocketAddress(address, port), null);
+  }
+
+
+
+  /**
+   * Creates a new socket that is backed by a socket channel and is connected
+   * to the specified server.
+   *
+   * @param  address       The address to which the connection should be
+   *                       established.
+   * @param  port          The port to which the connection should be
+   *                       established.
+   * @param  localAddress  The local address to which the socket should be
+   *                       bound.
+   * @param  localPort     The local port to which the socket should be
+   *                       bound.
+   *
+   * @return  The socket that was created.
+   *
+   * @throws  IOException  If a problem occurs while creating the socket.
+   */
+  @Override()
+  @NotNull()
+  public Socket createSocket(@NotNull final InetAddress address,
+                             final int port,
+                             @Nullable final InetAddress localAddress,
+                             final int localPort)
+         throws IOException
+  {
+    return createSocket(new InetSocketAddress(address, port),
+         new InetSocketAddress(localAddress, localPort));
+  }
+
+
+
+  /**
+   * Creates a new socket that is backed by a socket channel, optionally binds
+   * it to the provided local address, and connects it to the given server.
+   *
+   * @param  remoteAddress  The address of the server to which the socket
+   *                        should be connected.
+   * @param  localAddress   The local address to which the socket should be
+   *                        bound, or {@code null} if it should not be
+   *                        explicitly bound.
+   *
+   * @return  The socket that was created.
+   *
+   * @throws  IOException  If a problem occurs while creating the socket.
+   */
+  @NotNull()
+  private static Socket createSocket(
+                             @NotNull final InetSocketAddress remoteAddress,
+                             @Nullable final InetSocketAddress localAddress)
+          throws IOException
+  {
+    final SocketChannel channel = SocketChannel.open();
+    try
+    {
+      if (localAddress != null)
+      {
+        channel.socket().bind(localAddress);
+      }
+
+      channel.connect(remoteAddress);
+      return channel.socket();
+    }
+    catch (final IOException ioe)
+    {
+      channel.close();
+      throw ioe;
+    }
+  }
+}
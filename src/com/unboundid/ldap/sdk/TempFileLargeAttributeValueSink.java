@@ -0,0 +1,455 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import com.unboundid.asn1.ASN1OctetStringValueSource;
+import com.unboundid.util.Debug;
+import com.unboundid.util.DebugType;
+import com.unboundid.util.Mutable;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides an implementation of a large attribute value sink that
+ * writes each value to its own temporary file.  Each file will be deleted as
+ * soon as its value is no longer needed, which is the case in any of the
+ * following situations:
+ * <UL>
+ *   <LI>When the value has been loaded into memory by the octet string that
+ *       holds it (for example, because its string representation was
+ *       requested).</LI>
+ *   <LI>When the octet string that holds the value has been garbage collected
+ *       without the value having been loaded.  Files for such values are
+ *       deleted the next time this sink stores a value, or when it is
+ *       closed.</LI>
+ *   <LI>When this sink is closed.  Any values that have not yet been loaded
+ *       will no longer be available after that point, so the sink should only
+ *       be closed once no connection will use it and the entries read through
+ *       it are no longer needed.</LI>
+ * </UL>
+ * <BR><BR>
+ * <H2>Example</H2>
+ * The following example demonstrates the process for configuring a connection
+ * so that any attribute value larger than one megabyte will be written to a
+ * temporary file rather than held in memory:
+ * <PRE>
+ * LDAPConnectionOptions options = new LDAPConnectionOptions();
+ * options.setLargeAttributeValueSink(new TempFileLargeAttributeValueSink());
+ * options.setLargeAttributeValueThresholdBytes(1024 * 1024);
+ * LDAPConnection connection = new LDAPConnection(options);
+ * </PRE>
+ */
+@Mutable()
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+public final class TempFileLargeAttributeValueSink
+       implements LargeAttributeValueSink, Closeable
+{
+  /**
+   * The prefix that will be used for the names of the temporary files.
+   */
+  @NotNull private static final String FILE_NAME_PREFIX = "ldapsdk-value-";
+
+
+
+  /**
+   * The suffix that will be used for the names of the temporary files.
+   */
+  @NotNull private static final String FILE_NAME_SUFFIX = ".tmp";
+
+
+
+  // The directory in which the temporary files will be created.
+  @Nullable private final File directory;
+
+  // The queue that will be notified when a value source for a file that has
+  // not been deleted is no longer reachable.
+  @NotNull private final ReferenceQueue<TempFileValueSource> referenceQueue;
+
+  // The references for all files that have been created by this sink and not
+  // yet deleted.
+  @NotNull private final Set<TempFileReference> references;
+
+
+
+  /**
+   * Creates a new temporary file large attribute value sink that will create
+   * files in the JVM's default temporary directory.
+   */
+  public TempFileLargeAttributeValueSink()
+  {
+    this(null);
+  }
+
+
+
+  /**
+   * Creates a new temporary file large attribute value sink that will create
+   * files in the specified directory.
+   *
+   * @param  directory  The directory in which the temporary files should be
+   *                    created.  It may be {@code null} if the JVM's default
+   *                    temporary directory should be used.
+   */
+  public TempFileLargeAttributeValueSink(@Nullable final File directory)
+  {
+    this.directory = directory;
+
+    referenceQueue = new ReferenceQueue<>();
+    references = ConcurrentHashMap.newKeySet();
+  }
+
+
+
+  /**
+   * Retrieves the directory in which the temporary files will be created.
+   *
+   * @return  The directory in which the temporary files will be created, or
+   *          {@code null} if they will be created in the JVM's default
+   *          temporary directory.
+   */
+  @Nullable()
+  public File getDirectory()
+  {
+    return directory;
+  }
+
+
+
+  /**
+   * Retrieves the number of temporary files created by this sink that have
+   * not yet been deleted.
+   *
+   * @return  The number of temporary files created by this sink that have not
+   *          yet been deleted.
+   */
+  public int getNumStoredValues()
+  {
+    return references.size();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  @NotNull()
+  public ASN1OctetStringValueSource storeValue(
+              @NotNull final String attributeName, final int valueLength,
+              @NotNull final InputStream valueInputStream)
+         throws IOException
+  {
+    deleteUnreachableFiles();
+
+    final File file =
+         File.createTempFile(FILE_NAME_PREFIX, FILE_NAME_SUFFIX, directory);
+
+    boolean successful = false;
+    try
+    {
+      try (OutputStream outputStream = new FileOutputStream(file))
+      {
+        final byte[] buffer =
+             new byte[Math.max(1, Math.min(valueLength, 65_536))];
+        while (true)
+        {
+          final int bytesRead = valueInputStream.read(buffer);
+          if (bytesRead < 0)
+          {
+            break;
+          }
+
+          outputStream.write(buffer, 0, bytesRead);
+        }
+      }
+
+      final TempFileValueSource source = new TempFileValueSource(file);
+      final TempFileReference reference =
+           new TempFileReference(source, referenceQueue, file, references);
+      source.setReference(reference);
+      references.add(reference);
+
+      successful = true;
+      return source;
+    }
+    finally
+    {
+      if (! successful)
+      {
+        deleteFile(file);
+      }
+    }
+  }
+
+
+
+  /**
+   * Deletes the files for any values whose sources are no longer reachable.
+   */
+  private void deleteUnreachableFiles()
+  {
+    while (true)
+    {
+      final Reference<? extends TempFileValueSource> reference =
+           referenceQueue.poll();
+      if (reference == null)
+      {
+        return;
+      }
+
+      ((TempFileReference) reference).deleteFile();
+    }
+  }
+
+
+
+  /**
+   * Deletes the files for all values stored by this sink that have not
+   * already been deleted.  Any of those values that have not yet been loaded
+   * into memory will no longer be available.  The sink may still be used to
+   * store new values after it has been closed.
+   */
+  @Override()
+  public void close()
+  {
+    deleteUnreachableFiles();
+
+    for (final TempFileReference reference : references)
+    {
+      reference.deleteFile();
+    }
+  }
+
+
+
+  /**
+   * Deletes the specified file, logging a debug message if it cannot be
+   * deleted.
+   *
+   * @param  file  The file to delete.
+   */
+  private static void deleteFile(@NotNull final File file)
+  {
+    if (file.exists() && (! file.delete()))
+    {
+      Debug.debug(Level.WARNING, DebugType.OTHER,
+           "Unable to delete temporary file " + file.getAbsolutePath());
+    }
+  }
+
+
+
+  /**
+   * Retrieves a string representation of this large attribute value sink.
+   *
+   * @return  A string representation of this large attribute value sink.
+   */
+  @Override()
+  @NotNull()
+  public String toString()
+  {
+    final StringBuilder buffer = new StringBuilder();
+    toString(buffer);
+    return buffer.toString();
+  }
+
+
+
+  /**
+   * Appends a string representation of this large attribute value sink to the
+   * provided buffer.
+   *
+   * @param  buffer  The buffer to which the information should be appended.
+   */
+  public void toString(@NotNull final StringBuilder buffer)
+  {
+    buffer.append("TempFileLargeAttributeValueSink(");
+
+    if (directory != null)
+    {
+      buffer.append("directory='");
+      buffer.append(directory.getAbsolutePath());
+      buffer.append('\'');
+    }
+
+    buffer.append(')');
+  }
+
+
+
+  /**
+   * This class provides a value source that reads a value from a temporary
+   * file, and that deletes the file once the value has been loaded.
+   */
+  private static final class TempFileValueSource
+          implements ASN1OctetStringValueSource
+  {
+    // The file containing the value.
+    @NotNull private final File file;
+
+    // The reference that tracks this source so that the file may be deleted
+    // if this source becomes unreachable.
+    @Nullable private volatile TempFileReference reference;
+
+
+
+    /**
+     * Creates a new temporary file value source for the provided file.
+     *
+     * @param  file  The file containing the value.
+     */
+    private TempFileValueSource(@NotNull final File file)
+    {
+      this.file = file;
+
+      reference = null;
+    }
+
+
+
+    /**
+     * Specifies the reference that tracks this source.
+     *
+     * @param  reference  The reference that tracks this source.
+     */
+    private void setReference(@NotNull final TempFileReference reference)
+    {
+      this.reference = reference;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    @NotNull()
+    public InputStream getInputStream()
+           throws IOException
+    {
+      return new FileInputStream(file);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void valueLoaded()
+    {
+      final TempFileReference r = reference;
+      if (r != null)
+      {
+        r.deleteFile();
+      }
+    }
+  }
+
+
+
+  /**
+   * This class provides a phantom reference to a temporary file value source
+   * that retains the file to delete once the source is no longer reachable.
+   */
+  private static final class TempFileReference
+          extends PhantomReference<TempFileValueSource>
+  {
+    // The file to be deleted.
+    @NotNull private final File file;
+
+    // The set of references for files that have not yet been deleted.
+    @NotNull private final Set<TempFileReference> references;
+
+
+
+    /**
+     * Creates a new temporary file reference with the provided information.
+     *
+     * @param  source          The value source being tracked.
+     * @param  referenceQueue  The queue to notify when the source is no
+     *                         longer reachable.
+     * @param  file            The file to be deleted.
+     * @param  references      The set of references for files that have not
+     *                         yet been deleted.
+     */
+    private TempFileReference(@NotNull final TempFileValueSource source,
+                 @NotNull final ReferenceQueue<TempFileValueSource>
+                      referenceQueue,
+                 @NotNull final File file,
+                 @NotNull final Set<TempFileReference> references)
+    {
+      super(source, referenceQueue);
+
+      this.file = file;
+      this.references = references;
+    }
+
+
+
+    /**
+     * Deletes the file, if that has not already been done.
+     */
+    private void deleteFile()
+    {
+      if (references.remove(this))
+      {
+        clear();
+        TempFileLargeAttributeValueSink.deleteFile(file);
+      }
+    }
+  }
+}
@@ -159,6 +159,12 @@ final class AuthRateThread
   // The search request to generate.
   @Nullable private final SearchRequest searchRequest;
 
+  // The template to use for simple bind requests.
+  @NotNull private final ValuePatternRequestTemplate bindRequestTemplate;
+
+  // The template to use for search requests.
+  @NotNull private final ValuePatternRequestTemplate searchRequestTemplate;
+
   // The password to use to authenticate.
   @NotNull private final String userPassword;
 
@@ -268,6 +274,7 @@ final class AuthRateThread
     authThread    = new AtomicReference<>(null);
     stopRequested = new AtomicBoolean(false);
 
+    searchRequestTemplate = new ValuePatternRequestTemplate();
     if (bindOnly)
     {
       searchRequest = null;
@@ -277,6 +284,24 @@ final class AuthRateThread
       searchRequest = new SearchRequest("", scope,
            Filter.createPresenceFilter("objectClass"), attributes);
       searchRequest.setControls(searchControls);
+
+      final String templateBaseDN =
+           searchRequestTemplate.addValue(baseDN, false);
+      final String templateFilter =
+           searchRequestTemplate.addValue(filter, true);
+      try
+      {
+        final SearchRequest templateRequest = new SearchRequest(templateBaseDN,
+             scope, Filter.create(templateFilter), attributes);
+        templateRequest.setControls(searchControls);
+        searchRequestTemplate.createTemplate(templateRequest);
+      }
+      catch (final LDAPException le)
+      {
+        // The filter can't be used in a template, so search requests will be
+        // created in the normal manner.
+        Debug.debugException(le);
+      }
     }
 
     if (bindControls.isEmpty())
@@ -288,6 +313,15 @@ final class AuthRateThread
       this.bindControls =
            bindControls.toArray(new Control[bindControls.size()]);
     }
+
+    bindRequestTemplate = new ValuePatternRequestTemplate();
+    if (this.authType == AUTH_TYPE_SIMPLE)
+    {
+      final String templateBindDN =
+           bindRequestTemplate.addValue((bindOnly ? baseDN : null), false);
+      bindRequestTemplate.createTemplate(new SimpleBindRequest(templateBindDN,
+           userPassword, this.bindControls));
+    }
   }
 
 
@@ -364,12 +398,21 @@ final class AuthRateThread
           }
         }
 
+        SearchRequest request = searchRequest;
         if (! bindOnly)
         {
           try
           {
-            searchRequest.setBaseDN(baseDN.nextValue());
-            searchRequest.setFilter(filter.nextValue());
+            final String baseDNValue = baseDN.nextValue();
+            final String filterValue = filter.nextValue();
+            request = (SearchRequest)
+                 searchRequestTemplate.createRequest(baseDNValue, filterValue);
+            if (request == null)
+            {
+              request = searchRequest;
+              searchRequest.setBaseDN(baseDNValue);
+              searchRequest.setFilter(filterValue);
+            }
           }
           catch (final LDAPException le)
           {
@@ -401,7 +444,7 @@ final class AuthRateThread
           }
           else
           {
-            final SearchResult r = searchConnection.search(searchRequest);
+            final SearchResult r = searchConnection.search(request);
             switch (r.getEntryCount())
             {
               case 0:
@@ -429,7 +472,12 @@ final class AuthRateThread
           {
             case AUTH_TYPE_SIMPLE:
               bindRequest =
-                   new SimpleBindRequest(bindDN, userPassword, bindControls);
+                   (BindRequest) bindRequestTemplate.createRequest(bindDN);
+              if (bindRequest == null)
+              {
+                bindRequest =
+                     new SimpleBindRequest(bindDN, userPassword, bindControls);
+              }
               break;
 
             case AUTH_TYPE_CRAM_MD5:
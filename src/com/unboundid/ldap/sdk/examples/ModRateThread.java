@@ -278,6 +278,41 @@ final class ModRateThread
 
       final ModifyRequest modifyRequest = new ModifyRequest("", mods);
 
+
+      // Try to create a template so that each modify request will only need
+      // to have the generated DN and values written into it.
+      final ValuePatternRequestTemplate modifyRequestTemplate =
+           new ValuePatternRequestTemplate();
+      final String templateDN = modifyRequestTemplate.addValue(entryDN, false);
+      final String[] templateValues;
+      if (increment)
+      {
+        modifyRequestTemplate.createTemplate(
+             new ModifyRequest(templateDN, mods));
+        templateValues = new String[1];
+      }
+      else
+      {
+        final String[] templateModValues = new String[valueCount];
+        for (int i=0; i < valueCount; i++)
+        {
+          templateModValues[i] =
+               modifyRequestTemplate.addValue(valuePattern, false);
+        }
+
+        final Modification[] templateMods =
+             new Modification[attributes.length];
+        for (int i=0; i < attributes.length; i++)
+        {
+          templateMods[i] = new Modification(ModificationType.REPLACE,
+               attributes[i], templateModValues);
+        }
+
+        modifyRequestTemplate.createTemplate(
+             new ModifyRequest(templateDN, templateMods));
+        templateValues = new String[valueCount + 1];
+      }
+
       try
       {
         startBarrier.await();
@@ -325,27 +360,38 @@ final class ModRateThread
           }
         }
 
-        modifyRequest.setDN(entryDN.nextValue());
-
+        templateValues[0] = entryDN.nextValue();
         if (! increment)
         {
           for (int i=0; i < valueCount; i++)
           {
             values[i] = valuePattern.nextValue();
+            templateValues[i+1] = values[i];
           }
+        }
+
+        ModifyRequest request = (ModifyRequest)
+             modifyRequestTemplate.createRequest(templateValues);
+        if (request == null)
+        {
+          request = modifyRequest;
+          modifyRequest.setDN(templateValues[0]);
 
-          for (int i=0; i < attributes.length; i++)
+          if (! increment)
           {
-            mods[i] = new Modification(ModificationType.REPLACE, attributes[i],
-                 values);
+            for (int i=0; i < attributes.length; i++)
+            {
+              mods[i] = new Modification(ModificationType.REPLACE,
+                   attributes[i], values);
+            }
+            modifyRequest.setModifications(mods);
           }
-          modifyRequest.setModifications(mods);
         }
 
-        modifyRequest.setControls(modifyControls);
+        request.setControls(modifyControls);
         if (authzID != null)
         {
-          modifyRequest.addControl(new ProxiedAuthorizationV2RequestControl(
+          request.addControl(new ProxiedAuthorizationV2RequestControl(
                authzID.nextValue()));
         }
 
@@ -360,7 +406,7 @@ final class ModRateThread
         final long startTime = System.nanoTime();
         try
         {
-          connection.modify(modifyRequest);
+          connection.modify(request);
         }
         catch (final LDAPException le)
         {
@@ -144,6 +144,10 @@ final class SearchRateThread
   // The search request to generate.
   @NotNull private final SearchRequest searchRequest;
 
+  // The template that may be used to create search requests without needing
+  // to encode each of them in full.
+  @NotNull private final ValuePatternRequestTemplate searchRequestTemplate;
+
   // The scope to use for search requests.
   @NotNull private final SearchScope scope;
 
@@ -303,6 +307,29 @@ final class SearchRateThread
     searchRequest = new SearchRequest(this, "", scope, dereferencePolicy,
          sizeLimit, timeLimitSeconds, typesOnly,
          Filter.createPresenceFilter("objectClass"), attributes);
+
+    // If the base DN and filter are generated from value patterns, then try to
+    // create a template so that each search request will only need to have
+    // the generated values written into it.
+    searchRequestTemplate = new ValuePatternRequestTemplate();
+    if ((ldapURL == null) && (! async))
+    {
+      final String templateBaseDN =
+           searchRequestTemplate.addValue(baseDN, false);
+      final String templateFilter =
+           searchRequestTemplate.addValue(filter, true);
+      try
+      {
+        searchRequestTemplate.createTemplate(new SearchRequest(this,
+             templateBaseDN, scope, dereferencePolicy, sizeLimit,
+             timeLimitSeconds, typesOnly, Filter.create(templateFilter),
+             attributes));
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+      }
+    }
   }
 
 
@@ -448,12 +475,25 @@ final class SearchRateThread
         }
         else
         {
+          SearchRequest request = searchRequest;
           try
           {
             if (ldapURL == null)
             {
-              searchRequest.setBaseDN(baseDN.nextValue());
-              searchRequest.setFilter(filter.nextValue());
+              final String baseDNValue = baseDN.nextValue();
+              final String filterValue = filter.nextValue();
+              final SearchRequest preparedRequest = (SearchRequest)
+                   searchRequestTemplate.createRequest(baseDNValue,
+                        filterValue);
+              if (preparedRequest == null)
+              {
+                searchRequest.setBaseDN(baseDNValue);
+                searchRequest.setFilter(filterValue);
+              }
+              else
+              {
+                request = preparedRequest;
+              }
             }
             else
             {
@@ -464,11 +504,11 @@ final class SearchRateThread
               searchRequest.setAttributes(url.getAttributes());
             }
 
-            searchRequest.setControls(requestControls);
+            request.setControls(requestControls);
 
             if (simplePageSize != null)
             {
-              searchRequest.addControl(
+              request.addControl(
                    new SimplePagedResultsControl(simplePageSize));
             }
 
@@ -476,7 +516,7 @@ final class SearchRateThread
             {
               proxyControl = new ProxiedAuthorizationV2RequestControl(
                    authzID.nextValue());
-              searchRequest.addControl(proxyControl);
+              request.addControl(proxyControl);
             }
           }
           catch (final LDAPException le)
@@ -498,7 +538,7 @@ final class SearchRateThread
             SearchResult r;
             try
             {
-              r = connection.search(searchRequest);
+              r = connection.search(request);
               entriesReturned += r.getEntryCount();
             }
             catch (final LDAPSearchException lse)
@@ -538,17 +578,17 @@ final class SearchRateThread
                 break;
               }
 
-              searchRequest.setControls(requestControls);
+              request.setControls(requestControls);
 
               if (simplePageSize != null)
               {
-                searchRequest.addControl(new SimplePagedResultsControl(
+                request.addControl(new SimplePagedResultsControl(
                      simplePageSize, sprResponse.getCookie()));
               }
 
               if (proxyControl != null)
               {
-                searchRequest.addControl(proxyControl);
+                request.addControl(proxyControl);
               }
             }
             catch (final Exception e)
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk.examples;
+
+
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPRequest;
+import com.unboundid.ldap.sdk.LDAPRequestTemplate;
+import com.unboundid.util.Debug;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.ValuePattern;
+
+
+
+/**
+ * This class provides support for using an {@link LDAPRequestTemplate} to send
+ * requests whose values are generated from value patterns.  Each value that may
+ * change is represented in the template request by a placeholder surrounded by
+ * the static text at the beginning and end of the associated value pattern, so
+ * that only the variable portion of each generated value needs to be written
+ * into the pre-encoded request.  If a generated value cannot be safely used
+ * with the template (for example, because it contains characters that would
+ * change the structure of a search filter), then no request will be created
+ * and the caller should create the request in the normal manner.
+ * <BR><BR>
+ * Instances of this class are not threadsafe, and each instance should only be
+ * used by a single tool thread.
+ */
+final class ValuePatternRequestTemplate
+       implements Serializable
+{
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = 4176913278861544190L;
+
+
+
+  /**
+   * The string that will appear at the beginning of each placeholder.
+   */
+  @NotNull private static final String PLACEHOLDER_PREFIX =
+       "{ldap-sdk-template-value-";
+
+
+
+  /**
+   * The string that will appear at the end of each placeholder.
+   */
+  @NotNull private static final String PLACEHOLDER_SUFFIX = "}";
+
+
+
+  /**
+   * The characters that will not be allowed in the variable portion of a value
+   * that will be used in a search filter.
+   */
+  @NotNull private static final String UNSAFE_FILTER_CHARACTERS =
+       "()*\\&|!=<>~:\u0000";
+
+
+
+  // The placeholders for the values that may change.
+  @NotNull private final ArrayList<String> placeholders;
+
+  // The information about each of the values that have been added.
+  @NotNull private final ArrayList<TemplateValue> templateValues;
+
+  // The template that will be used to create requests.
+  @Nullable private LDAPRequestTemplate template;
+
+
+
+  /**
+   * Creates a new value pattern request template.  Values should be added with
+   * the {@link #addValue} method, and then the template should be created with
+   * the {@link #createTemplate} method.
+   */
+  ValuePatternRequestTemplate()
+  {
+    placeholders = new ArrayList<>(5);
+    templateValues = new ArrayList<>(5);
+    template = null;
+  }
+
+
+
+  /**
+   * Adds a value to this template and retrieves the string that should be used
+   * for that value in the request used to create the template.
+   *
+   * @param  pattern      The value pattern that will be used to generate the
+   *                      value.  It may be {@code null} if the value will not
+   *                      be generated from a value pattern, in which case the
+   *                      entire value may change.
+   * @param  filterValue  Indicates whether the value will be used as a search
+   *                      filter.
+   *
+   * @return  The string that should be used for the value in the request used
+   *          to create the template.
+   */
+  @NotNull()
+  String addValue(@Nullable final ValuePattern pattern,
+                  final boolean filterValue)
+  {
+    if ((pattern != null) && pattern.isConstant())
+    {
+      templateValues.add(new TemplateValue(-1, 0, 0, filterValue));
+      return pattern.getConstantPrefix();
+    }
+
+    final int slot = placeholders.size();
+    final String placeholder = PLACEHOLDER_PREFIX + slot + PLACEHOLDER_SUFFIX;
+    placeholders.add(placeholder);
+
+    if (pattern == null)
+    {
+      templateValues.add(new TemplateValue(slot, 0, 0, filterValue));
+      return placeholder;
+    }
+    else
+    {
+      final String prefix = pattern.getConstantPrefix();
+      final String suffix = pattern.getConstantSuffix();
+      templateValues.add(new TemplateValue(slot, prefix.length(),
+           suffix.length(), filterValue));
+      return prefix + placeholder + suffix;
+    }
+  }
+
+
+
+  /**
+   * Attempts to create the request template from the provided request, which
+   * should have been created using the strings returned by the
+   * {@link #addValue} method.
+   *
+   * @param  request  The request from which to create the template.
+   *
+   * @return  {@code true} if the template was created, or {@code false} if not.
+   */
+  boolean createTemplate(@NotNull final LDAPRequest request)
+  {
+    try
+    {
+      template = new LDAPRequestTemplate(request,
+           placeholders.toArray(new String[placeholders.size()]));
+      return true;
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      template = null;
+      return false;
+    }
+  }
+
+
+
+  /**
+   * Creates a request from the template using the provided generated values.
+   *
+   * @param  values  The values that were generated, in the same order that
+   *                 they were added to this template.
+   *
+   * @return  The request that was created, or {@code null} if the template
+   *          could not be created or if any of the values cannot be used with
+   *          the template.
+   */
+  @Nullable()
+  LDAPRequest createRequest(@NotNull final String... values)
+  {
+    if (template == null)
+    {
+      return null;
+    }
+
+    final String[] slotValues = new String[placeholders.size()];
+    for (int i=0; i < values.length; i++)
+    {
+      final TemplateValue v = templateValues.get(i);
+      if (v.slot < 0)
+      {
+        continue;
+      }
+
+      final String value = values[i];
+      final int endPos = value.length() - v.suffixLength;
+      if (endPos < v.prefixLength)
+      {
+        return null;
+      }
+
+      final String slotValue = value.substring(v.prefixLength, endPos);
+      if (v.filterValue && (! isSafeForFilter(slotValue)))
+      {
+        return null;
+      }
+
+      slotValues[v.slot] = slotValue;
+    }
+
+    return template.createRequest(slotValues);
+  }
+
+
+
+  /**
+   * Indicates whether the provided string may be used as the variable portion
+   * of a search filter in a request created from the template.
+   *
+   * @param  s  The string for which to make the determination.
+   *
+   * @return  {@code true} if the provided string may be used in a search
+   *          filter, or {@code false} if not.
+   */
+  static boolean isSafeForFilter(@NotNull final String s)
+  {
+    // An empty value could change the type of the filter (for example, from a
+    // substring filter to a presence filter).
+    if (s.isEmpty())
+    {
+      return false;
+    }
+
+    for (int i=0; i < s.length(); i++)
+    {
+      if (UNSAFE_FILTER_CHARACTERS.indexOf(s.charAt(i)) >= 0)
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+
+
+  /**
+   * This class holds information about a value added to the template.
+   */
+  private static final class TemplateValue
+          implements Serializable
+  {
+    /**
+     * The serial version UID for this serializable class.
+     */
+    private static final long serialVersionUID = -2735480187649305212L;
+
+
+
+    // Indicates whether the value will be used as a search filter.
+    private final boolean filterValue;
+
+    // The number of characters of static text at the beginning of the value.
+    private final int prefixLength;
+
+    // The index of the placeholder for the value, or -1 if the value will not
+    // change.
+    private final int slot;
+
+    // The number of characters of static text at the end of the value.
+    private final int suffixLength;
+
+
+
+    /**
+     * Creates a new template value with the provided information.
+     *
+     * @param  slot          The index of the placeholder for the value, or -1
+     *                       if the value will not change.
+     * @param  prefixLength  The number of characters of static text at the
+     *                       beginning of the value.
+     * @param  suffixLength  The number of characters of static text at the end
+     *                       of the value.
+     * @param  filterValue   Indicates whether the value will be used as a
+     *                       search filter.
+     */
+    private TemplateValue(final int slot, final int prefixLength,
+                          final int suffixLength, final boolean filterValue)
+    {
+      this.slot = slot;
+      this.prefixLength = prefixLength;
+      this.suffixLength = suffixLength;
+      this.filterValue = filterValue;
+    }
+  }
+}
@@ -126,6 +126,11 @@ public final class StartTLSExtendedRequest
 
 
 
+  // The SSL context used to perform the negotiation, if available.  It will be
+  // used to create an SSL engine for connections that are read by a shared
+  // selector thread.
+  @Nullable private final transient SSLContext sslContext;
+
   // The SSL socket factory used to perform the negotiation.
   @Nullable private final SSLSocketFactory sslSocketFactory;
 
@@ -226,6 +231,7 @@ public final class StartTLSExtendedRequest
         final SSLContext ctx =
              CryptoHelper.getSSLContext(SSLUtil.getDefaultSSLProtocol());
         ctx.init(null, null, null);
+        this.sslContext = ctx;
         sslSocketFactory = ctx.getSocketFactory();
       }
       catch (final Exception e)
@@ -237,6 +243,7 @@ public final class StartTLSExtendedRequest
     }
     else
     {
+      this.sslContext = sslContext;
       sslSocketFactory = sslContext.getSocketFactory();
     }
   }
@@ -269,6 +276,7 @@ public final class StartTLSExtendedRequest
         final SSLContext ctx =
              CryptoHelper.getSSLContext(SSLUtil.getDefaultSSLProtocol());
         ctx.init(null, null, null);
+        sslContext = ctx;
         this.sslSocketFactory = ctx.getSocketFactory();
       }
       catch (final Exception e)
@@ -280,6 +288,7 @@ public final class StartTLSExtendedRequest
     }
     else
     {
+      sslContext = null;
       this.sslSocketFactory = sslSocketFactory;
     }
   }
@@ -324,6 +333,26 @@ public final class StartTLSExtendedRequest
 
 
 
+  /**
+   * Retrieves the SSL context that this extended request will use for
+   * performing TLS negotiation, if available.  An SSL context will be available
+   * if this request was created with an SSL context or with a default SSL
+   * context, but not if it was created with an SSL socket factory.  If it is
+   * available, then it will be used to perform non-blocking TLS negotiation on
+   * connections that are read by a shared selector thread.
+   *
+   * @return  The SSL context that this extended request will use for
+   *          performing TLS negotiation, or {@code null} if it is not
+   *          available.
+   */
+  @Nullable()
+  public SSLContext getSSLContext()
+  {
+    return sslContext;
+  }
+
+
+
   /**
    * Sends this StartTLS request to the server and performs the necessary
    * client-side security processing if the operation is processed successfully.
@@ -356,7 +385,8 @@ public final class StartTLSExtendedRequest
     final ExtendedResult result = super.process(connection, depth);
     if (result.getResultCode() == ResultCode.SUCCESS)
     {
-      InternalSDKHelper.convertToTLS(connection, sslSocketFactory);
+      InternalSDKHelper.convertToTLS(connection, sslSocketFactory,
+           sslContext);
     }
     else
     {
@@ -389,8 +419,16 @@ public final class StartTLSExtendedRequest
   {
     try
     {
-      final StartTLSExtendedRequest r =
-           new StartTLSExtendedRequest(sslSocketFactory, controls);
+      final StartTLSExtendedRequest r;
+      if (sslContext == null)
+      {
+        r = new StartTLSExtendedRequest(sslSocketFactory, controls);
+      }
+      else
+      {
+        r = new StartTLSExtendedRequest(sslContext, controls);
+      }
+
       r.setResponseTimeoutMillis(getResponseTimeoutMillis(null));
       r.setIntermediateResponseListener(getIntermediateResponseListener());
       r.setReferralDepth(getReferralDepth());
@@ -782,12 +782,49 @@ public final class StaticUtils
    */
   public static boolean isASCIIString(@NotNull final byte[] b)
   {
-    for (final byte by : b)
+    return isASCIIString(b, 0, b.length);
+  }
+
+
+
+  /**
+   * Indicates whether the specified portion of the provided byte array
+   * represents an ASCII string.  Eight bytes will be examined at a time, so
+   * that only a single comparison is needed for each group of eight bytes.
+   *
+   * @param  b       The byte array for which to make the determination.  It
+   *                 must not be {@code null}.
+   * @param  offset  The position in the array at which the value begins.
+   * @param  length  The number of bytes in the value.
+   *
+   * @return  {@code true} if the specified portion of the provided array
+   *          represents an ASCII string, or {@code false} if not.
+   */
+  public static boolean isASCIIString(@NotNull final byte[] b,
+                                      final int offset, final int length)
+  {
+    int pos = offset;
+    final int end = offset + length;
+    final int lastWordStart = end - 7;
+    while (pos < lastWordStart)
     {
-      if ((by & 0x80) == 0x80)
+      if (((b[pos] | b[pos+1] | b[pos+2] | b[pos+3] | b[pos+4] | b[pos+5] |
+           b[pos+6] | b[pos+7]) & 0x80) != 0)
+      {
+        return false;
+      }
+
+      pos += 8;
+    }
+
+    while (pos < end)
+    {
+      if ((b[pos] & 0x80) != 0)
       {
         return false;
       }
+
+      pos++;
     }
 
     return true;
@@ -809,7 +846,16 @@ public final class StaticUtils
    */
   public static boolean isASCIIString(@NotNull final String s)
   {
-    return isASCIIString(getBytes(s));
+    final int length = s.length();
+    for (int i=0; i < length; i++)
+    {
+      if (s.charAt(i) > 0x7F)
+      {
+        return false;
+      }
+    }
+
+    return true;
   }
 
 
@@ -1331,6 +1377,14 @@ public final class StaticUtils
   {
     try
     {
+      // ASCII is a subset of both UTF-8 and ISO-8859-1, and decoding a
+      // Latin-1 string is a simple copy that doesn't need to go through the
+      // UTF-8 decoder.
+      if (isASCIIString(b, 0, b.length))
+      {
+        return new String(b, StandardCharsets.ISO_8859_1);
+      }
+
       return new String(b, StandardCharsets.UTF_8);
     }
     catch (final Exception e)
@@ -1360,6 +1414,11 @@ public final class StaticUtils
   {
     try
     {
+      if (isASCIIString(b, offset, length))
+      {
+        return new String(b, offset, length, StandardCharsets.ISO_8859_1);
+      }
+
       return new String(b, offset, length, StandardCharsets.UTF_8);
     }
     catch (final Exception e)
@@ -245,6 +245,17 @@ public final class ValuePattern
   // back-references.
   private final boolean hasBackReference;
 
+  // Indicates whether the value pattern will always generate the same value.
+  private final boolean isConstant;
+
+  // The static text at the beginning of every value generated from this
+  // pattern.
+  @NotNull private final String constantPrefix;
+
+  // The static text at the end of every value generated from this pattern that
+  // is not already included in the constant prefix.
+  @NotNull private final String constantSuffix;
+
   // The string that was originally used to create this value pattern.
   @NotNull private final String pattern;
 
@@ -338,6 +349,34 @@ public final class ValuePattern
 
     components = new ValuePatternComponent[l.size()];
     l.toArray(components);
+
+    final StringBuilder prefixBuffer = new StringBuilder();
+    int firstVariableComponent = 0;
+    while ((firstVariableComponent < components.length) &&
+         (components[firstVariableComponent] instanceof
+              StringValuePatternComponent))
+    {
+      components[firstVariableComponent].append(prefixBuffer);
+      firstVariableComponent++;
+    }
+
+    int lastVariableComponent = components.length - 1;
+    while ((lastVariableComponent >= firstVariableComponent) &&
+         (components[lastVariableComponent] instanceof
+              StringValuePatternComponent))
+    {
+      lastVariableComponent--;
+    }
+
+    final StringBuilder suffixBuffer = new StringBuilder();
+    for (int i=(lastVariableComponent + 1); i < components.length; i++)
+    {
+      components[i].append(suffixBuffer);
+    }
+
+    isConstant = (firstVariableComponent >= components.length);
+    constantPrefix = prefixBuffer.toString();
+    constantSuffix = suffixBuffer.toString();
   }
 
 
@@ -1005,6 +1044,55 @@ incrementLoop:
 
 
 
+  /**
+   * Indicates whether this value pattern will always generate the same value
+   * because it does not have any components other than static text.
+   *
+   * @return  {@code true} if this value pattern will always generate the same
+   *          value, or {@code false} if it may generate different values.
+   */
+  public boolean isConstant()
+  {
+    return isConstant;
+  }
+
+
+
+  /**
+   * Retrieves the static text that will appear at the beginning of every value
+   * generated from this pattern.  If the pattern is constant, then this will be
+   * the entire value.
+   *
+   * @return  The static text that will appear at the beginning of every value
+   *          generated from this pattern, or an empty string if the first
+   *          component of the pattern is not static text.
+   */
+  @NotNull()
+  public String getConstantPrefix()
+  {
+    return constantPrefix;
+  }
+
+
+
+  /**
+   * Retrieves the static text that will appear at the end of every value
+   * generated from this pattern, after the variable portion of the value.  It
+   * will not overlap with the text returned by the {@link #getConstantPrefix}
+   * method, and it will always be empty if the pattern is constant.
+   *
+   * @return  The static text that will appear at the end of every value
+   *          generated from this pattern, or an empty string if the last
+   *          component of the pattern is not static text.
+   */
+  @NotNull()
+  public String getConstantSuffix()
+  {
+    return constantSuffix;
+  }
+
+
+
   /**
    * Retrieves a string representation of this value pattern, which will be the
    * original pattern string used to create it.
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.util;
+
+
+
+import java.lang.reflect.Method;
+import java.util.logging.Level;
+
+
+
+/**
+ * This class provides a set of utility methods for working with virtual
+ * threads in Java runtimes that support them (Java 21 and later).  Virtual
+ * threads are accessed through reflection so that the LDAP SDK can continue to
+ * be built for and run on older Java versions.  On a JVM that does not support
+ * virtual threads, all of the methods in this class that would create a
+ * virtual thread will fall back to using platform threads.
+ */
+@NotMutable()
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+public final class VirtualThreadSupport
+{
+  /**
+   * The name of the system property that may be used to indicate that the LDAP
+   * SDK should never attempt to use virtual threads, even if the JVM supports
+   * them.
+   */
+  @NotNull public static final String PROPERTY_DISABLE_VIRTUAL_THREADS =
+       VirtualThreadSupport.class.getName() + ".disableVirtualThreads";
+
+
+
+  /**
+   * The {@code Thread.ofVirtual} method, if available.
+   */
+  @Nullable private static final Method OF_VIRTUAL_METHOD;
+
+
+
+  /**
+   * The {@code Thread.Builder.name(String)} method, if available.
+   */
+  @Nullable private static final Method BUILDER_NAME_METHOD;
+
+
+
+  /**
+   * The {@code Thread.Builder.unstarted(Runnable)} method, if available.
+   */
+  @Nullable private static final Method BUILDER_UNSTARTED_METHOD;
+
+
+
+  /**
+   * The {@code Thread.isVirtual} method, if available.
+   */
+  @Nullable private static final Method IS_VIRTUAL_METHOD;
+
+
+
+  static
+  {
+    Method ofVirtualMethod = null;
+    Method builderNameMethod = null;
+    Method builderUnstartedMethod = null;
+    Method isVirtualMethod = null;
+
+    if (! PropertyManager.getBoolean(PROPERTY_DISABLE_VIRTUAL_THREADS, false))
+    {
+      try
+      {
+        final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+        ofVirtualMethod = Thread.class.getMethod("ofVirtual");
+        builderNameMethod = builderClass.getMethod("name", String.class);
+        builderUnstartedMethod =
+             builderClass.getMethod("unstarted", Runnable.class);
+        isVirtualMethod = Thread.class.getMethod("isVirtual");
+
+        // Make sure that we can actually create a virtual thread.  In Java 19
+        // and 20, virtual threads are a preview feature, and attempting to use
+        // them without enabling preview features will throw an exception.
+        final Object builder = ofVirtualMethod.invoke(null);
+        builderUnstartedMethod.invoke(builder, new Runnable()
+        {
+          @Override()
+          public void run()
+          {
+            // No implementation is required.
+          }
+        });
+      }
+      catch (final Throwable t)
+      {
+        // This is expected on JVMs that don't support virtual threads.
+        Debug.debugException(Level.FINEST, t);
+        ofVirtualMethod = null;
+        builderNameMethod = null;
+        builderUnstartedMethod = null;
+        isVirtualMethod = null;
+      }
+    }
+
+    OF_VIRTUAL_METHOD = ofVirtualMethod;
+    BUILDER_NAME_METHOD = builderNameMethod;
+    BUILDER_UNSTARTED_METHOD = builderUnstartedMethod;
+    IS_VIRTUAL_METHOD = isVirtualMethod;
+  }
+
+
+
+  /**
+   * Prevents this utility class from being instantiated.
+   */
+  private VirtualThreadSupport()
+  {
+    // No implementation is required.
+  }
+
+
+
+  /**
+   * Indicates whether the JVM supports virtual threads.
+   *
+   * @return  {@code true} if the JVM supports virtual threads, or
+   *          {@code false} if not.
+   */
+  public static boolean virtualThreadsAvailable()
+  {
+    return (OF_VIRTUAL_METHOD != null);
+  }
+
+
+
+  /**
+   * Indicates whether the provided thread is a virtual thread.
+   *
+   * @param  thread  The thread for which to make the determination.  It must
+   *                 not be {@code null}.
+   *
+   * @return  {@code true} if the provided thread is a virtual thread, or
+   *          {@code false} if not.
+   */
+  public static boolean isVirtual(@NotNull final Thread thread)
+  {
+    if (IS_VIRTUAL_METHOD == null)
+    {
+      return false;
+    }
+
+    try
+    {
+      return (Boolean) IS_VIRTUAL_METHOD.invoke(thread);
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      return false;
+    }
+  }
+
+
+
+  /**
+   * Creates a new virtual thread with the provided name that will invoke the
+   * given {@code Runnable} when it is started.  The thread will not be
+   * started.
+   *
+   * @param  name      The name to use for the thread.  It must not be
+   *                   {@code null}.
+   * @param  runnable  The {@code Runnable} that will be invoked by the thread.
+   *                   It must not be {@code null}.
+   *
+   * @return  The virtual thread that was created, or {@code null} if the JVM
+   *          does not support virtual threads.
+   */
+  @Nullable()
+  public static Thread newVirtualThread(@NotNull final String name,
+                                        @NotNull final Runnable runnable)
+  {
+    if (OF_VIRTUAL_METHOD == null)
+    {
+      return null;
+    }
+
+    try
+    {
+      final Object builder =
+           BUILDER_NAME_METHOD.invoke(OF_VIRTUAL_METHOD.invoke(null), name);
+      return (Thread) BUILDER_UNSTARTED_METHOD.invoke(builder, runnable);
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      return null;
+    }
+  }
+
+
+
+  /**
+   * Starts processing for the provided thread.  If {@code useVirtualThread} is
+   * {@code true} and the JVM supports virtual threads, then the provided
+   * thread will not itself be started, but its {@code run} method will instead
+   * be invoked by a new virtual thread with the same name.  Otherwise, the
+   * provided thread will be started normally.
+   * <BR><BR>
+   * Note that when a virtual thread is used, methods like {@code isAlive},
+   * {@code join}, and {@code interrupt} must be invoked on the returned thread
+   * rather than on the provided thread.
+   *
+   * @param  thread            The thread to start.  It must not be
+   *                           {@code null}, and it must not have already been
+   *                           started.
+   * @param  useVirtualThread  Indicates whether to use a virtual thread, if
+   *                           possible.
+   *
+   * @return  The thread that is actually running the provided thread's logic.
+   *          This will either be a newly-created virtual thread or the provided
+   *          thread.
+   */
+  @NotNull()
+  public static Thread start(@NotNull final Thread thread,
+                             final boolean useVirtualThread)
+  {
+    if (useVirtualThread)
+    {
+      final Thread virtualThread = newVirtualThread(thread.getName(), thread);
+      if (virtualThread != null)
+      {
+        virtualThread.start();
+        return virtualThread;
+      }
+    }
+
+    thread.start();
+    return thread;
+  }
+}
@@ -44,6 +44,7 @@ import java.util.List;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
 import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocket;
 import javax.security.auth.x500.X500Principal;
@@ -195,6 +196,31 @@ public final class HostNameSSLSocketVerifier
 
 
 
+  /**
+   * Verifies that the TLS session negotiated by the provided {@code SSLEngine}
+   * is acceptable and the connection should be allowed to remain established.
+   *
+   * @param  host       The address to which the client intended the connection
+   *                    to be established.
+   * @param  port       The port to which the client intended the connection to
+   *                    be established.
+   * @param  sslEngine  The {@code SSLEngine} that was used to complete TLS
+   *                    negotiation and should be verified.
+   *
+   * @throws  LDAPException  If a problem is identified that should prevent the
+   *                         connection secured by the provided
+   *                         {@code SSLEngine} from remaining established.
+   */
+  @Override()
+  public void verifySSLEngine(@NotNull final String host, final int port,
+                              @NotNull final SSLEngine sslEngine)
+         throws LDAPException
+  {
+    verifySSLSession(host, port, sslEngine.getSession());
+  }
+
+
+
   /**
    * Verifies that the provided {@code SSLSession} is acceptable and the
    * connection should be allowed to remain established.
@@ -0,0 +1,394 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.util.ssl;
+
+
+
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+
+import com.unboundid.util.InternalUseOnly;
+import com.unboundid.util.NotNull;
+import com.unboundid.util.Nullable;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides an SSL socket implementation that is only intended for
+ * use by the default implementation of the
+ * {@link SSLSocketVerifier#verifySSLEngine} method.  It is not connected, and
+ * it cannot be used to send or receive any data, but it exposes the TLS
+ * session and the protocol and cipher suite settings of an
+ * {@code SSLEngine} whose handshake has already completed so that
+ * {@code SSLSocketVerifier} implementations that only know how to examine an
+ * {@code SSLSocket} can still be used to verify it.
+ */
+@InternalUseOnly()
+@ThreadSafety(level=ThreadSafetyLevel.NOT_THREADSAFE)
+final class SSLEngineSocketAdapter
+      extends SSLSocket
+{
+  // The SSL engine to which processing will be delegated.
+  @NotNull private final SSLEngine engine;
+
+
+
+  /**
+   * Creates a new instance of this socket that will delegate to the provided
+   * SSL engine.
+   *
+   * @param  engine  The SSL engine to which processing will be delegated.
+   */
+  SSLEngineSocketAdapter(@NotNull final SSLEngine engine)
+  {
+    super();
+
+    this.engine = engine;
+  }
+
+
+
+  /**
+   * Retrieves the set of supported cipher suites for this socket.
+   *
+   * @return  The set of supported cipher suites for this socket.
+   */
+  @Override()
+  @NotNull()
+  public String[] getSupportedCipherSuites()
+  {
+    return engine.getSupportedCipherSuites();
+  }
+
+
+
+  /**
+   * Retrieves the set of enabled cipher suites for this socket.
+   *
+   * @return  The set of enabled cipher suites for this socket.
+   */
+  @Override()
+  @NotNull()
+  public String[] getEnabledCipherSuites()
+  {
+    return engine.getEnabledCipherSuites();
+  }
+
+
+
+  /**
+   * Specifies the set of enabled cipher suites for this socket.
+   *
+   * @param  suites  The set of enabled cipher suites for this socket.
+   */
+  @Override()
+  public void setEnabledCipherSuites(@NotNull final String[] suites)
+  {
+    engine.setEnabledCipherSuites(suites);
+  }
+
+
+
+  /**
+   * Retrieves the set of supported protocols for this socket.
+   *
+   * @return  The set of supported protocols for this socket.
+   */
+  @Override()
+  @NotNull()
+  public String[] getSupportedProtocols()
+  {
+    return engine.getSupportedProtocols();
+  }
+
+
+
+  /**
+   * Retrieves the set of enabled protocols for this socket.
+   *
+   * @return  The set of enabled protocols for this socket.
+   */
+  @Override()
+  @NotNull()
+  public String[] getEnabledProtocols()
+  {
+    return engine.getEnabledProtocols();
+  }
+
+
+
+  /**
+   * Specifies the set of enabled protocols for this socket.
+   *
+   * @param  protocols  The set of enabled protocols for this socket.
+   */
+  @Override()
+  public void setEnabledProtocols(@NotNull final String[] protocols)
+  {
+    engine.setEnabledProtocols(protocols);
+  }
+
+
+
+  /**
+   * Retrieves the SSL session for this socket.
+   *
+   * @return  The SSL session for this socket.
+   */
+  @Override()
+  @NotNull()
+  public SSLSession getSession()
+  {
+    return engine.getSession();
+  }
+
+
+
+  /**
+   * Retrieves the SSL session that is being negotiated for this socket, if
+   * any.
+   *
+   * @return  The SSL session that is being negotiated for this socket, or
+   *          {@code null} if no handshake is in progress.
+   */
+  @Override()
+  @Nullable()
+  public SSLSession getHandshakeSession()
+  {
+    return engine.getHandshakeSession();
+  }
+
+
+
+  /**
+   * Retrieves the SSL parameters for this socket.
+   *
+   * @return  The SSL parameters for this socket.
+   */
+  @Override()
+  @NotNull()
+  public SSLParameters getSSLParameters()
+  {
+    return engine.getSSLParameters();
+  }
+
+
+
+  /**
+   * Specifies the SSL parameters for this socket.
+   *
+   * @param  params  The SSL parameters for this socket.
+   */
+  @Override()
+  public void setSSLParameters(@NotNull final SSLParameters params)
+  {
+    engine.setSSLParameters(params);
+  }
+
+
+
+  /**
+   * Adds the provided handshake completed listener to this socket.  This will
+   * have no effect, because the handshake has already been completed by the
+   * SSL engine.
+   *
+   * @param  listener  The handshake completed listener to add to this socket.
+   */
+  @Override()
+  public void addHandshakeCompletedListener(
+                   @NotNull final HandshakeCompletedListener listener)
+  {
+    // No implementation is required.
+  }
+
+
+
+  /**
+   * Removes the provided handshake completed listener from this socket.  This
+   * will have no effect, because listeners cannot be added to this socket.
+   *
+   * @param  listener  The handshake completed listener to remove from this
+   *                   socket.
+   */
+  @Override()
+  public void removeHandshakeCompletedListener(
+                   @NotNull final HandshakeCompletedListener listener)
+  {
+    // No implementation is required.
+  }
+
+
+
+  /**
+   * Initiates an SSL handshake on this connection.  This will have no effect,
+   * because the handshake has already been completed by the SSL engine.
+   */
+  @Override()
+  public void startHandshake()
+  {
+    // No implementation is required.
+  }
+
+
+
+  /**
+   * Specifies whether to use client mode when handshaking.
+   *
+   * @param  mode  Indicates whether to use client mode when handshaking.
+   */
+  @Override()
+  public void setUseClientMode(final boolean mode)
+  {
+    engine.setUseClientMode(mode);
+  }
+
+
+
+  /**
+   * Indicates whether to use client mode when handshaking.
+   *
+   * @return  {@code true} if client mode should be used, or {@code false} if
+   *          server mode should be used.
+   */
+  @Override()
+  public boolean getUseClientMode()
+  {
+    return engine.getUseClientMode();
+  }
+
+
+
+  /**
+   * Specifies whether to require client authentication for this socket.
+   *
+   * @param  need  Indicates whether to require client authentication for this
+   *               socket.
+   */
+  @Override()
+  public void setNeedClientAuth(final boolean need)
+  {
+    engine.setNeedClientAuth(need);
+  }
+
+
+
+  /**
+   * Indicates whether to require client authentication for this socket.
+   *
+   * @return  {@code true} if client authentication is required, or
+   *          {@code false} if not.
+   */
+  @Override()
+  public boolean getNeedClientAuth()
+  {
+    return engine.getNeedClientAuth();
+  }
+
+
+
+  /**
+   * Specifies whether to request client authentication for this socket.
+   *
+   * @param  want  Indicates whether to request client authentication for this
+   *               socket.
+   */
+  @Override()
+  public void setWantClientAuth(final boolean want)
+  {
+    engine.setWantClientAuth(want);
+  }
+
+
+
+  /**
+   * Indicates whether to request client authentication for this socket.
+   *
+   * @return  {@code true} if client authentication should be requested, or
+   *          {@code false} if not.
+   */
+  @Override()
+  public boolean getWantClientAuth()
+  {
+    return engine.getWantClientAuth();
+  }
+
+
+
+  /**
+   * Specifies whether new SSL sessions may be created by this socket.
+   *
+   * @param  flag  Indicates whether new SSL sessions may be created by this
+   *               socket.
+   */
+  @Override()
+  public void setEnableSessionCreation(final boolean flag)
+  {
+    engine.setEnableSessionCreation(flag);
+  }
+
+
+
+  /**
+   * Indicates whether new SSL sessions may be created by this socket.
+   *
+   * @return  {@code true} if new SSL sessions may be created by this socket,
+   *          or {@code false} if not.
+   */
+  @Override()
+  public boolean getEnableSessionCreation()
+  {
+    return engine.getEnableSessionCreation();
+  }
+
+
+
+  /**
+   * Retrieves a string representation of this socket.
+   *
+   * @return  A string representation of this socket.
+   */
+  @Override()
+  @NotNull()
+  public String toString()
+  {
+    return "SSLEngineSocketAdapter(" + engine.toString() + ')';
+  }
+}
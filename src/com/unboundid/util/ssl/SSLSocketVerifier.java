@@ -37,6 +37,7 @@ package com.unboundid.util.ssl;
 
 
 
+import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLSocket;
 
 import com.unboundid.ldap.sdk.LDAPException;
@@ -53,6 +54,14 @@ import com.unboundid.util.ThreadSafetyLevel;
  * that is initially secure or by wrapping an existing insecure connection in an
  * {@code SSLSocket}).  It may be used to terminate the connection if it is
  * determined that the connection should not be trusted for some reason.
+ * <BR><BR>
+ * It will also be invoked after completing TLS negotiation with an
+ * {@code SSLEngine} rather than an {@code SSLSocket}, as may be the case when
+ * processing a StartTLS extended operation on a connection that is read by a
+ * shared selector thread.  By default, the {@link #verifySSLEngine} method will
+ * invoke the {@link #verifySSLSocket} method with an unconnected
+ * {@code SSLSocket} that exposes the engine's session and settings, but
+ * subclasses may override it to examine the engine directly.
  */
 @Extensible()
 @ThreadSafety(level=ThreadSafetyLevel.INTERFACE_THREADSAFE)
@@ -76,4 +85,32 @@ public abstract class SSLSocketVerifier
   public abstract void verifySSLSocket(@NotNull String host, int port,
                                        @NotNull SSLSocket sslSocket)
          throws LDAPException;
+
+
+
+  /**
+   * Verifies that the TLS session negotiated by the provided {@code SSLEngine}
+   * is acceptable and the connection should be allowed to remain established.
+   * The default implementation will invoke the {@link #verifySSLSocket} method
+   * with an {@code SSLSocket} that is not connected but that delegates its
+   * {@code getSession} method and its protocol, cipher suite, and client
+   * authentication settings to the provided engine.
+   *
+   * @param  host       The address to which the client intended the connection
+   *                    to be established.
+   * @param  port       The port to which the client intended the connection to
+   *                    be established.
+   * @param  sslEngine  The {@code SSLEngine} that was used to complete TLS
+   *                    negotiation and should be verified.
+   *
+   * @throws  LDAPException  If a problem is identified that should prevent the
+   *                         connection secured by the provided
+   *                         {@code SSLEngine} from remaining established.
+   */
+  public void verifySSLEngine(@NotNull final String host, final int port,
+                              @NotNull final SSLEngine sslEngine)
+         throws LDAPException
+  {
+    verifySSLSocket(host, port, new SSLEngineSocketAdapter(sslEngine));
+  }
 }
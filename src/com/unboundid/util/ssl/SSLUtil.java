@@ -49,12 +49,15 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.SSLServerSocketFactory;
@@ -467,6 +470,24 @@ public final class SSLUtil
   // manager.
   private final boolean usingPKCS11KeyManager;
 
+  // Indicates whether SSL contexts should be shared across calls that create
+  // SSL contexts or socket factories with the same protocol and provider.
+  private volatile boolean useSharedSSLContext = false;
+
+  // The maximum number of entries to hold in the client session cache for SSL
+  // contexts created by this class, or -1 to use the JVM default.
+  private volatile int clientSessionCacheSize = -1;
+
+  // The length of time in seconds that sessions may be held in the client
+  // session cache for SSL contexts created by this class, or -1 to use the JVM
+  // default.
+  private volatile int clientSessionTimeoutSeconds = -1;
+
+  // The SSL contexts that have been created for sharing, indexed by protocol
+  // and provider.
+  @NotNull private final Map<String,SSLContext> sharedSSLContexts =
+       new ConcurrentHashMap<>(10);
+
   // The set of key managers to be used.
   @Nullable private final KeyManager[] keyManagers;
 
@@ -709,6 +730,42 @@ public final class SSLUtil
   {
     Validator.ensureNotNull(protocol);
 
+    if (! useSharedSSLContext)
+    {
+      return createNewSSLContext(protocol);
+    }
+
+    synchronized (sharedSSLContexts)
+    {
+      SSLContext sslContext = sharedSSLContexts.get(protocol);
+      if (sslContext == null)
+      {
+        sslContext = createNewSSLContext(protocol);
+        sharedSSLContexts.put(protocol, sslContext);
+      }
+
+      return sslContext;
+    }
+  }
+
+
+
+  /**
+   * Creates a new initialized SSL context with the configured key and trust
+   * managers, regardless of whether shared SSL contexts should be used.  It
+   * will use a default provider.
+   *
+   * @param  protocol  The SSL protocol to use.  It must not be {@code null}.
+   *
+   * @return  The created SSL context.
+   *
+   * @throws  GeneralSecurityException  If a problem occurs while creating or
+   *                                    initializing the SSL context.
+   */
+  @NotNull()
+  private SSLContext createNewSSLContext(@NotNull final String protocol)
+          throws GeneralSecurityException
+  {
     SSLContext sslContext = null;
     if (usingPKCS11KeyManager)
     {
@@ -739,6 +796,7 @@ public final class SSLUtil
     }
 
     sslContext.init(keyManagers, trustManagers, ThreadLocalSecureRandom.get());
+    configureClientSessionContext(sslContext);
     return sslContext;
   }
 
@@ -768,6 +826,45 @@ public final class SSLUtil
   {
     Validator.ensureNotNull(protocol, provider);
 
+    if (! useSharedSSLContext)
+    {
+      return createNewSSLContext(protocol, provider);
+    }
+
+    final String key = protocol + '/' + provider;
+    synchronized (sharedSSLContexts)
+    {
+      SSLContext sslContext = sharedSSLContexts.get(key);
+      if (sslContext == null)
+      {
+        sslContext = createNewSSLContext(protocol, provider);
+        sharedSSLContexts.put(key, sslContext);
+      }
+
+      return sslContext;
+    }
+  }
+
+
+
+  /**
+   * Creates a new initialized SSL context with the configured key and trust
+   * managers, regardless of whether shared SSL contexts should be used.
+   *
+   * @param  protocol  The SSL protocol to use.  It must not be {@code null}.
+   * @param  provider  The name of the provider to use for cryptographic
+   *                   operations.  It must not be {@code null}.
+   *
+   * @return  The created SSL context.
+   *
+   * @throws  GeneralSecurityException  If a problem occurs while creating or
+   *                                    initializing the SSL context.
+   */
+  @NotNull()
+  private SSLContext createNewSSLContext(@NotNull final String protocol,
+                                         @NotNull final String provider)
+          throws GeneralSecurityException
+  {
     if (JVM_SSL_DEBUGGING_ENABLED)
     {
       System.err.println("SSLUtil.createSSLContext creating an SSLContext " +
@@ -777,11 +874,194 @@ public final class SSLUtil
     final SSLContext sslContext =
          CryptoHelper.getSSLContext(protocol, provider);
     sslContext.init(keyManagers, trustManagers, null);
+    configureClientSessionContext(sslContext);
     return sslContext;
   }
 
 
 
+  /**
+   * Applies the configured client session cache size and timeout, if any, to
+   * the provided SSL context.
+   *
+   * @param  sslContext  The SSL context to configure.
+   */
+  private void configureClientSessionContext(
+                    @NotNull final SSLContext sslContext)
+  {
+    final SSLSessionContext sessionContext =
+         sslContext.getClientSessionContext();
+    if (sessionContext == null)
+    {
+      return;
+    }
+
+    final int cacheSize = clientSessionCacheSize;
+    if (cacheSize >= 0)
+    {
+      sessionContext.setSessionCacheSize(cacheSize);
+    }
+
+    final int timeoutSeconds = clientSessionTimeoutSeconds;
+    if (timeoutSeconds >= 0)
+    {
+      sessionContext.setSessionTimeout(timeoutSeconds);
+    }
+  }
+
+
+
+  /**
+   * Indicates whether this SSL utility will share SSL contexts across calls to
+   * create SSL contexts or socket factories.  If so, then all contexts and
+   * socket factories created with the same protocol and provider will share a
+   * single TLS session cache, which allows a new connection (including one
+   * created by a connection pool to replace a failed or expired connection, or
+   * one created when re-establishing a connection after a failover) to resume
+   * a session previously negotiated with the same server, avoiding the cost of
+   * a full TLS handshake on both the client and the server.
+   * <BR><BR>
+   * Note that all connections created with a single socket factory already
+   * share a session cache, so this is primarily useful when multiple socket
+   * factories are created (for example, one per server in a failover server
+   * set, or one per connection pool).
+   *
+   * @return  {@code true} if this SSL utility will share SSL contexts across
+   *          calls, or {@code false} if a new SSL context will be created for
+   *          each call.
+   */
+  public boolean useSharedSSLContext()
+  {
+    return useSharedSSLContext;
+  }
+
+
+
+  /**
+   * Specifies whether this SSL utility should share SSL contexts across calls
+   * to create SSL contexts or socket factories.  This will only affect
+   * contexts and socket factories created after this method is called.  See
+   * the {@link #useSharedSSLContext()} method for details.
+   *
+   * @param  useSharedSSLContext  Indicates whether this SSL utility should
+   *                              share SSL contexts across calls.
+   */
+  public void setUseSharedSSLContext(final boolean useSharedSSLContext)
+  {
+    this.useSharedSSLContext = useSharedSSLContext;
+  }
+
+
+
+  /**
+   * Retrieves the maximum number of sessions that may be held in the client
+   * session cache for SSL contexts created by this SSL utility.
+   *
+   * @return  The maximum number of sessions that may be held in the client
+   *          session cache for SSL contexts created by this SSL utility, zero
+   *          if there is no limit, or -1 if the JVM-default size will be
+   *          used.
+   */
+  public int getClientSessionCacheSize()
+  {
+    return clientSessionCacheSize;
+  }
+
+
+
+  /**
+   * Specifies the maximum number of sessions that may be held in the client
+   * session cache for SSL contexts created by this SSL utility.  The new value
+   * will be applied to any shared SSL contexts that have already been created,
+   * and to any SSL contexts that are created in the future.
+   *
+   * @param  clientSessionCacheSize  The maximum number of sessions that may be
+   *                                 held in the client session cache.  A value
+   *                                 of zero indicates that there should be no
+   *                                 limit, and a negative value indicates that
+   *                                 the JVM-default size should be used.
+   */
+  public void setClientSessionCacheSize(final int clientSessionCacheSize)
+  {
+    if (clientSessionCacheSize < 0)
+    {
+      this.clientSessionCacheSize = -1;
+    }
+    else
+    {
+      this.clientSessionCacheSize = clientSessionCacheSize;
+    }
+
+    reconfigureSharedSSLContexts();
+  }
+
+
+
+  /**
+   * Retrieves the length of time in seconds that sessions may be held in the
+   * client session cache for SSL contexts created by this SSL utility.  A
+   * session that has been in the cache for longer than this cannot be resumed,
+   * and a full handshake will be required.
+   *
+   * @return  The length of time in seconds that sessions may be held in the
+   *          client session cache, zero if there is no limit, or -1 if the
+   *          JVM-default timeout will be used.
+   */
+  public int getClientSessionTimeoutSeconds()
+  {
+    return clientSessionTimeoutSeconds;
+  }
+
+
+
+  /**
+   * Specifies the length of time in seconds that sessions may be held in the
+   * client session cache for SSL contexts created by this SSL utility.  The new
+   * value will be applied to any shared SSL contexts that have already been
+   * created, and to any SSL contexts that are created in the future.
+   *
+   * @param  clientSessionTimeoutSeconds  The length of time in seconds that
+   *                                      sessions may be held in the client
+   *                                      session cache.  A value of zero
+   *                                      indicates that there should be no
+   *                                      limit, and a negative value indicates
+   *                                      that the JVM-default timeout should
+   *                                      be used.
+   */
+  public void setClientSessionTimeoutSeconds(
+                   final int clientSessionTimeoutSeconds)
+  {
+    if (clientSessionTimeoutSeconds < 0)
+    {
+      this.clientSessionTimeoutSeconds = -1;
+    }
+    else
+    {
+      this.clientSessionTimeoutSeconds = clientSessionTimeoutSeconds;
+    }
+
+    reconfigureSharedSSLContexts();
+  }
+
+
+
+  /**
+   * Applies the current client session cache settings to all shared SSL
+   * contexts that have already been created.
+   */
+  private void reconfigureSharedSSLContexts()
+  {
+    synchronized (sharedSSLContexts)
+    {
+      for (final SSLContext sslContext : sharedSSLContexts.values())
+      {
+        configureClientSessionContext(sslContext);
+      }
+    }
+  }
+
+
+
   /**
    * Creates an SSL socket factory using the configured key and trust manager
    * providers.  It will use the protocol returned by the
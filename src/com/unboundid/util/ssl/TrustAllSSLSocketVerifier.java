@@ -38,6 +38,7 @@ package com.unboundid.util.ssl;
 
 
 import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocket;
 
@@ -115,6 +116,31 @@ public final class TrustAllSSLSocketVerifier
 
 
 
+  /**
+   * Verifies that the TLS session negotiated by the provided {@code SSLEngine}
+   * is acceptable and the connection should be allowed to remain established.
+   *
+   * @param  host       The address to which the client intended the connection
+   *                    to be established.
+   * @param  port       The port to which the client intended the connection to
+   *                    be established.
+   * @param  sslEngine  The {@code SSLEngine} that should be verified.
+   *
+   * @throws LDAPException  If a problem is identified that should prevent the
+   *                         connection secured by the provided
+   *                         {@code SSLEngine} from remaining established.
+   */
+  @Override()
+  public void verifySSLEngine(@NotNull final String host, final int port,
+                              @NotNull final SSLEngine sslEngine)
+       throws LDAPException
+  {
+    // No implementation is required.  The SSLEngine will be considered
+    // acceptable as long as this method does not throw an exception.
+  }
+
+
+
   /**
    * Verifies that the provided hostname is acceptable for use with the
    * negotiated SSL session.
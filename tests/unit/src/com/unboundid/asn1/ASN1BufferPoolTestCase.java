@@ -0,0 +1,304 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.asn1;
+
+
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.sdk.LDAPSDKTestCase;
+import com.unboundid.util.LDAPSDKUsageException;
+
+
+
+/**
+ * This class provides a set of test cases for the {@code ASN1BufferPool}
+ * class.
+ */
+public final class ASN1BufferPoolTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the basic behavior when getting and releasing buffers.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testGetAndRelease()
+         throws Exception
+  {
+    final ASN1BufferPool pool = new ASN1BufferPool(2, 1024);
+    assertEquals(pool.getMaxPooledBuffers(), 2);
+    assertEquals(pool.getAvailableBufferCount(), 0);
+    assertNotNull(pool.toString());
+
+    final ASN1Buffer b1 = pool.get();
+    final ASN1Buffer b2 = pool.get();
+    final ASN1Buffer b3 = pool.get();
+    assertNotSame(b1, b2);
+    assertNotSame(b2, b3);
+
+    b1.addOctetString("foo");
+    assertTrue(b1.length() > 0);
+
+    pool.release(b1);
+    assertEquals(b1.length(), 0);
+    assertEquals(pool.getAvailableBufferCount(), 1);
+
+    pool.release(b2);
+    assertEquals(pool.getAvailableBufferCount(), 2);
+
+    // The pool is full, so this buffer should be discarded.
+    pool.release(b3);
+    assertEquals(pool.getAvailableBufferCount(), 2);
+
+    final ASN1Buffer b4 = pool.get();
+    assertTrue((b4 == b1) || (b4 == b2));
+    assertEquals(b4.length(), 0);
+    assertEquals(pool.getAvailableBufferCount(), 1);
+
+    pool.clear();
+    assertEquals(pool.getAvailableBufferCount(), 0);
+    assertNotNull(pool.get());
+  }
+
+
+
+  /**
+   * Tests the behavior of the pool with buffers in different size classes.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSizeClasses()
+         throws Exception
+  {
+    final ASN1BufferPool pool = new ASN1BufferPool(4, 1_048_576);
+    assertEquals(pool.getMaxBufferSize(), 1_048_576);
+
+    final ASN1Buffer small = pool.get();
+    final ASN1Buffer large = pool.get();
+    large.addOctetString(new byte[100_000]);
+    assertTrue(large.capacity() > 65_536);
+
+    pool.release(large);
+    pool.release(small);
+    assertEquals(pool.getAvailableBufferCount(), 2);
+
+    // A request with no expected size should prefer the small buffer, and a
+    // request for a large buffer should get the large one.
+    final ASN1Buffer b1 = pool.get();
+    assertSame(b1, small);
+    pool.release(b1);
+
+    final ASN1Buffer b2 = pool.get(50_000);
+    assertSame(b2, large);
+
+    // If there isn't a buffer in the preferred size class, then a buffer from
+    // a smaller class should be used rather than creating a new one.
+    final ASN1Buffer b3 = pool.get(50_000);
+    assertSame(b3, small);
+
+    assertEquals(pool.getAvailableBufferCount(), 0);
+    assertEquals(pool.getInUseBufferCount(), 2);
+    pool.release(b2);
+    pool.release(b3);
+  }
+
+
+
+  /**
+   * Tests to ensure that buffers larger than the maximum size are shrunk when
+   * they are released.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testShrinkOnRelease()
+         throws Exception
+  {
+    final ASN1BufferPool pool = new ASN1BufferPool(4, 8_192);
+
+    final ASN1Buffer b = pool.get();
+    b.addOctetString(new byte[1_000_000]);
+    assertTrue(b.capacity() >= 1_000_000);
+
+    pool.release(b);
+    assertTrue(b.capacity() <= 8_192);
+    assertSame(pool.get(8_192), b);
+  }
+
+
+
+  /**
+   * Tests the statistics maintained by the pool and the behavior when trimming
+   * the pool.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testStatisticsAndTrim()
+         throws Exception
+  {
+    final ASN1BufferPool pool = new ASN1BufferPool(3, 1024);
+
+    final ASN1Buffer[] buffers = new ASN1Buffer[4];
+    for (int i=0; i < buffers.length; i++)
+    {
+      buffers[i] = pool.get();
+    }
+
+    assertEquals(pool.getHighWaterMark(), 4);
+    assertEquals(pool.getInUseBufferCount(), 4);
+
+    for (final ASN1Buffer b : buffers)
+    {
+      pool.release(b);
+    }
+
+    assertEquals(pool.getInUseBufferCount(), 0);
+    assertEquals(pool.getAvailableBufferCount(), 3);
+    assertEquals(pool.getBufferRequestCount(), 4L);
+    assertEquals(pool.getBufferCreateCount(), 4L);
+    assertEquals(pool.getBufferReuseCount(), 0L);
+    assertEquals(pool.getBufferReleaseCount(), 4L);
+    assertEquals(pool.getBufferDiscardCount(), 1L);
+    assertEquals(pool.getBufferTrimCount(), 0L);
+
+    // Trimming now should not discard anything, because all of the available
+    // buffers were needed to satisfy the high-water mark.
+    pool.trim();
+    assertEquals(pool.getAvailableBufferCount(), 3);
+    assertEquals(pool.getHighWaterMark(), 0);
+
+    // Only use one buffer at a time, and then trim again.  Only one buffer
+    // should be retained.
+    pool.release(pool.get());
+    assertEquals(pool.getHighWaterMark(), 1);
+    assertEquals(pool.getBufferReuseCount(), 1L);
+
+    pool.trim();
+    assertEquals(pool.getAvailableBufferCount(), 1);
+    assertEquals(pool.getBufferTrimCount(), 2L);
+
+    // If nothing was used since the last trim, then all available buffers
+    // should be discarded.
+    pool.trim();
+    assertEquals(pool.getAvailableBufferCount(), 0);
+    assertEquals(pool.getBufferTrimCount(), 3L);
+
+    assertNotNull(pool.toString());
+  }
+
+
+
+  /**
+   * Tests the behavior when many threads use the pool concurrently.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConcurrentUse()
+         throws Exception
+  {
+    final ASN1BufferPool pool = new ASN1BufferPool(8, 65_536);
+    final AtomicInteger failures = new AtomicInteger(0);
+
+    final Thread[] threads = new Thread[16];
+    for (int i=0; i < threads.length; i++)
+    {
+      final int threadNumber = i;
+      threads[i] = new Thread()
+      {
+        @Override()
+        public void run()
+        {
+          for (int j=0; j < 2_000; j++)
+          {
+            final ASN1Buffer b = pool.get();
+            if (b.length() != 0)
+            {
+              failures.incrementAndGet();
+            }
+
+            b.addInteger(threadNumber);
+            b.addOctetString(new byte[(j % 10) * 1_000]);
+            final byte[] expected = b.toByteArray();
+            Thread.yield();
+            if (! Arrays.equals(b.toByteArray(), expected))
+            {
+              failures.incrementAndGet();
+            }
+
+            pool.release(b);
+          }
+        }
+      };
+      threads[i].start();
+    }
+
+    for (final Thread t : threads)
+    {
+      t.join();
+    }
+
+    assertEquals(failures.get(), 0);
+    assertEquals(pool.getInUseBufferCount(), 0);
+    assertTrue(pool.getAvailableBufferCount() <= 8);
+    assertEquals(pool.getBufferRequestCount(), 32_000L);
+    assertEquals(pool.getBufferReleaseCount(), 32_000L);
+    assertEquals(
+         (pool.getBufferReuseCount() + pool.getBufferCreateCount()), 32_000L);
+  }
+
+
+
+  /**
+   * Tests to ensure that a pool cannot be created with a non-positive maximum
+   * number of buffers.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPSDKUsageException.class })
+  public void testInvalidMaxPooledBuffers()
+         throws Exception
+  {
+    new ASN1BufferPool(0, 1024);
+  }
+}
@@ -1001,6 +1001,198 @@ public class ASN1BufferTestCase
 
 
 
+  /**
+   * Tests the behavior when writing sequences and sets whose value lengths are
+   * provided when they are begun.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testPrecomputedSequenceAndSetElements()
+         throws Exception
+  {
+    final Object[][] genericElementsArray = getGenericElements();
+    final ASN1Element[] genericElements =
+         new ASN1Element[genericElementsArray.length];
+    int totalSize = 0;
+    for (int i=0; i < genericElements.length; i++)
+    {
+      genericElements[i] = (ASN1Element) genericElementsArray[i][0];
+      assertEquals(ASN1Buffer.getEncodedSize(genericElements[i]),
+           genericElements[i].encode().length);
+      totalSize += ASN1Buffer.getEncodedSize(genericElements[i]);
+    }
+
+    final ASN1Buffer b = new ASN1Buffer();
+    final ASN1BufferSequence bufferSequence = b.beginSequence((byte) 0x30,
+         totalSize);
+    for (final ASN1Element e : genericElements)
+    {
+      b.addElement(e);
+    }
+    bufferSequence.end();
+    byte[] elementBytes = new ASN1Sequence(genericElements).encode();
+    assertEquals(ASN1Buffer.getEncodedElementSize(totalSize),
+         elementBytes.length);
+    assertTrue(Arrays.equals(b.toByteArray(), elementBytes));
+
+    b.clear();
+    final ASN1BufferSet bufferSet = b.beginSet((byte) 0xA0, totalSize);
+    for (final ASN1Element e : genericElements)
+    {
+      b.addElement(e);
+    }
+    bufferSet.end();
+    elementBytes = new ASN1Set((byte) 0xA0, genericElements).encode();
+    assertTrue(Arrays.equals(b.toByteArray(), elementBytes));
+
+    for (final ASN1Element e : genericElements)
+    {
+      b.clear();
+      final ASN1BufferSequence s =
+           b.beginSequence((byte) 0x30, ASN1Buffer.getEncodedSize(e));
+      final ASN1BufferSet innerSet =
+           b.beginSet((byte) 0x31, ASN1Buffer.getEncodedSize(e));
+      b.addElement(e);
+      innerSet.end();
+      s.end();
+
+      elementBytes = new ASN1Sequence(new ASN1Set(e)).encode();
+      assertTrue(Arrays.equals(b.toByteArray(), elementBytes));
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that a sequence or set is still properly encoded if the
+   * value length provided when it was begun does not match the length of the
+   * elements that were added.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testPrecomputedLengthMismatch()
+         throws Exception
+  {
+    final ASN1OctetString small = new ASN1OctetString("small");
+    final ASN1OctetString large = new ASN1OctetString(new byte[300]);
+
+    final ASN1Buffer b = new ASN1Buffer();
+    ASN1BufferSequence s = b.beginSequence((byte) 0x30, 5);
+    b.addElement(large);
+    s.end();
+    assertTrue(Arrays.equals(b.toByteArray(),
+         new ASN1Sequence(large).encode()));
+
+    b.clear();
+    s = b.beginSequence((byte) 0x30, 500);
+    b.addElement(small);
+    s.end();
+    assertTrue(Arrays.equals(b.toByteArray(),
+         new ASN1Sequence(small).encode()));
+
+    b.clear();
+    final ASN1BufferSet set = b.beginSet((byte) 0x31, 0);
+    b.addElement(small);
+    b.addElement(large);
+    set.end();
+    assertTrue(Arrays.equals(b.toByteArray(),
+         new ASN1Set(small, large).encode()));
+  }
+
+
+
+  /**
+   * Tests the methods used to determine the encoded size of an octet string
+   * without encoding it.
+   *
+   * @param  stringValue  The string value to test.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="encodedSizeStringValues")
+  public void testGetEncodedOctetStringSize(final String stringValue)
+         throws Exception
+  {
+    final ASN1OctetString element = new ASN1OctetString(stringValue);
+    final int expectedSize = new ASN1OctetString(stringValue).encode().length;
+
+    assertEquals(ASN1Buffer.getEncodedOctetStringSize(stringValue),
+         expectedSize);
+    assertEquals(ASN1Buffer.getEncodedSize(element), expectedSize);
+    // Retrieving the value will cause the element to be backed by a byte
+    // array rather than a string.
+    assertEquals(ASN1Buffer.getEncodedOctetStringSize(element.getValue()),
+         expectedSize);
+    assertEquals(ASN1Buffer.getEncodedSize(element), expectedSize);
+
+    final ASN1Buffer b = new ASN1Buffer();
+    b.addOctetString(stringValue);
+    assertEquals(b.length(), expectedSize);
+  }
+
+
+
+  /**
+   * Provides a set of string values for testing the encoded size of octet
+   * string elements, including values with multi-byte characters and values
+   * whose lengths fall on the boundaries between encoded length sizes.
+   *
+   * @return  The string values to use for testing.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @DataProvider(name="encodedSizeStringValues")
+  public Object[][] getEncodedSizeStringValues()
+         throws Exception
+  {
+    final ArrayList<Object[]> values = new ArrayList<Object[]>();
+    for (final Object[] o : getStringValues())
+    {
+      values.add(o);
+    }
+
+    values.add(new Object[] { "\u0080\u07FF\u0800\uFFFF" });
+    values.add(new Object[] { "\uD83D\uDE00" });
+    values.add(new Object[] { "a\uD83Da" });
+    values.add(new Object[] { "a\uDE00a" });
+    values.add(new Object[] { "a\uD83D" });
+    values.add(new Object[] { "\uDE00\uD83D" });
+
+    for (final int length : new int[] { 127, 128, 255, 256, 65535, 65536 })
+    {
+      final char[] chars = new char[length];
+      Arrays.fill(chars, 'a');
+      values.add(new Object[] { new String(chars) });
+
+      chars[0] = '\u00e9';
+      values.add(new Object[] { new String(chars) });
+    }
+
+    return values.toArray(new Object[values.size()][]);
+  }
+
+
+
+  /**
+   * Tests the method used to determine the encoded size of an integer element
+   * without encoding it.
+   *
+   * @param  intValue  The integer value to test.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="integerValues")
+  public void testGetEncodedIntegerSize(final int intValue)
+         throws Exception
+  {
+    assertEquals(ASN1Buffer.getEncodedIntegerSize(intValue),
+         new ASN1Integer(intValue).encode().length);
+  }
+
+
+
   /**
    * Performs a set of tests with UTC time elements.
    *
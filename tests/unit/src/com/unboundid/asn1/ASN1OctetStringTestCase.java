@@ -37,12 +37,20 @@ package com.unboundid.asn1;
 
 
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import com.unboundid.util.ByteStringBuffer;
+import com.unboundid.util.StaticUtils;
 
 import static com.unboundid.asn1.ASN1Constants.*;
 
@@ -892,4 +900,214 @@ public class ASN1OctetStringTestCase
                             (byte) 0x00 };
     ASN1OctetString.decodeAsOctetString(elementBytes);
   }
+
+
+
+  /**
+   * Tests the behavior of an octet string whose value is read from a value
+   * source.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testValueSource()
+         throws Exception
+  {
+    final byte[] valueBytes = StaticUtils.getBytes("lazily-loaded value");
+    final TestValueSource source = new TestValueSource(valueBytes);
+    final ASN1OctetString s =
+         new ASN1OctetString(valueBytes.length, source);
+
+    assertEquals(s.getType(), UNIVERSAL_OCTET_STRING_TYPE);
+    assertFalse(s.isValueLoaded());
+    assertEquals(s.getValueLength(), valueBytes.length);
+    assertEquals(source.openCount.get(), 0);
+    assertEquals(source.loadedCount.get(), 0);
+
+    // Reading the value as a stream should not load it.
+    try (InputStream inputStream = s.getValueInputStream())
+    {
+      assertEquals(readFully(inputStream), valueBytes);
+    }
+    assertFalse(s.isValueLoaded());
+    assertEquals(source.openCount.get(), 1);
+    assertEquals(source.loadedCount.get(), 0);
+
+    // Retrieving the value as a string should load it once, and the source
+    // should be notified that it will no longer be used.
+    assertEquals(s.stringValue(), "lazily-loaded value");
+    assertTrue(s.isValueLoaded());
+    assertEquals(source.openCount.get(), 2);
+    assertEquals(source.loadedCount.get(), 1);
+
+    assertEquals(s.getValue(), valueBytes);
+    assertEquals(s.encode(),
+         new ASN1OctetString("lazily-loaded value").encode());
+    assertEquals(s, new ASN1OctetString("lazily-loaded value"));
+    try (InputStream inputStream = s.getValueInputStream())
+    {
+      assertEquals(readFully(inputStream), valueBytes);
+    }
+    assertEquals(source.openCount.get(), 2);
+    assertEquals(source.loadedCount.get(), 1);
+  }
+
+
+
+  /**
+   * Tests that an octet string whose value has not yet been loaded from a
+   * value source can be encoded and serialized.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testValueSourceEncodeAndSerialize()
+         throws Exception
+  {
+    final byte[] valueBytes = StaticUtils.getBytes("serialized value");
+    final ASN1OctetString expected = new ASN1OctetString(valueBytes);
+
+    ASN1OctetString s = new ASN1OctetString(valueBytes.length,
+         new TestValueSource(valueBytes));
+    final ByteStringBuffer buffer = new ByteStringBuffer();
+    s.encodeTo(buffer);
+    assertEquals(buffer.toByteArray(), expected.encode());
+
+    s = new ASN1OctetString(valueBytes.length,
+         new TestValueSource(valueBytes));
+    assertEquals(ASN1Buffer.getEncodedSize(s), expected.encode().length);
+    assertFalse(s.isValueLoaded());
+
+    final ASN1Buffer asn1Buffer = new ASN1Buffer();
+    asn1Buffer.addElement(s);
+    assertEquals(asn1Buffer.toByteArray(), expected.encode());
+
+    s = new ASN1OctetString(valueBytes.length,
+         new TestValueSource(valueBytes));
+    final ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+    try (ObjectOutputStream outputStream = new ObjectOutputStream(byteStream))
+    {
+      outputStream.writeObject(s);
+    }
+
+    try (ObjectInputStream inputStream = new ObjectInputStream(
+              new ByteArrayInputStream(byteStream.toByteArray())))
+    {
+      final ASN1OctetString deserialized =
+           (ASN1OctetString) inputStream.readObject();
+      assertTrue(deserialized.isValueLoaded());
+      assertEquals(deserialized.getValue(), valueBytes);
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior when the value source provides fewer bytes than
+   * expected.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testValueSourceTruncated()
+         throws Exception
+  {
+    final TestValueSource source = new TestValueSource(new byte[5]);
+    final ASN1OctetString s = new ASN1OctetString(10, source);
+    try
+    {
+      s.getValue();
+      fail("Expected an exception for a truncated value source");
+    }
+    catch (final ASN1RuntimeException e)
+    {
+      assertNotNull(e.getMessage());
+    }
+
+    assertFalse(s.isValueLoaded());
+    assertEquals(source.loadedCount.get(), 0);
+  }
+
+
+
+  /**
+   * Reads all of the data from the provided input stream.
+   *
+   * @param  inputStream  The input stream to read.
+   *
+   * @return  The data that was read.
+   *
+   * @throws  IOException  If a problem occurs while reading.
+   */
+  private static byte[] readFully(final InputStream inputStream)
+          throws IOException
+  {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[7];
+    while (true)
+    {
+      final int bytesRead = inputStream.read(buffer);
+      if (bytesRead < 0)
+      {
+        return outputStream.toByteArray();
+      }
+
+      outputStream.write(buffer, 0, bytesRead);
+    }
+  }
+
+
+
+  /**
+   * A value source that reads from a byte array and counts the number of
+   * times that it has been opened.
+   */
+  private static final class TestValueSource
+          implements ASN1OctetStringValueSource
+  {
+    // The number of times that the source has been opened.
+    private final AtomicInteger openCount = new AtomicInteger(0);
+
+    // The number of times that the source has been notified that the value
+    // was loaded.
+    private final AtomicInteger loadedCount = new AtomicInteger(0);
+
+    // The value to provide.
+    private final byte[] value;
+
+
+
+    /**
+     * Creates a new test value source.
+     *
+     * @param  value  The value to provide.
+     */
+    private TestValueSource(final byte[] value)
+    {
+      this.value = value;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public InputStream getInputStream()
+    {
+      openCount.incrementAndGet();
+      return new ByteArrayInputStream(value);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void valueLoaded()
+    {
+      loadedCount.incrementAndGet();
+    }
+  }
 }
@@ -42,6 +42,7 @@ import java.io.IOException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -1600,4 +1601,110 @@ public class ASN1StreamReaderTestCase
 
     reader.readUTCTime();
   }
+
+
+
+  /**
+   * Tests the methods that may be used to read an element header and value
+   * separately.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testReadElementHeaderAndValue()
+         throws Exception
+  {
+    final byte[] largeValue = new byte[1000];
+    for (int i=0; i < largeValue.length; i++)
+    {
+      largeValue[i] = (byte) i;
+    }
+
+    final ASN1Sequence sequence = new ASN1Sequence(
+         new ASN1OctetString("small"),
+         new ASN1OctetString(largeValue),
+         new ASN1OctetString(largeValue),
+         new ASN1OctetString("last"));
+    final byte[] encodedSequence = sequence.encode();
+
+    final ASN1StreamReader reader =
+         new ASN1StreamReader(new ByteArrayInputStream(encodedSequence));
+    final ASN1StreamReaderSequence s = reader.beginSequence();
+
+    assertTrue(s.hasMoreElements());
+    int length = reader.readElementHeader();
+    assertEquals(length, 5);
+    assertEquals(reader.readElementValue(length),
+         StaticUtils.getBytes("small"));
+
+    // Read the first large value completely through a stream.
+    assertTrue(s.hasMoreElements());
+    length = reader.readElementHeader();
+    assertEquals(length, largeValue.length);
+    try (InputStream inputStream = reader.getElementValueInputStream(length))
+    {
+      final byte[] buffer = new byte[largeValue.length + 10];
+      int pos = 0;
+      assertEquals(inputStream.read(), 0);
+      pos++;
+      while (true)
+      {
+        final int bytesRead =
+             inputStream.read(buffer, pos, (buffer.length - pos));
+        if (bytesRead < 0)
+        {
+          break;
+        }
+
+        pos += bytesRead;
+      }
+
+      assertEquals(pos, largeValue.length);
+      assertEquals(Arrays.copyOfRange(buffer, 1, pos),
+           Arrays.copyOfRange(largeValue, 1, largeValue.length));
+      assertEquals(inputStream.read(), -1);
+    }
+
+    // Read only part of the second large value, and make sure that closing the
+    // stream skips the rest.
+    assertTrue(s.hasMoreElements());
+    length = reader.readElementHeader();
+    assertEquals(length, largeValue.length);
+    try (InputStream inputStream = reader.getElementValueInputStream(length))
+    {
+      assertEquals(inputStream.read(new byte[10]), 10);
+    }
+
+    assertTrue(s.hasMoreElements());
+    assertEquals(reader.readString(), "last");
+    assertFalse(s.hasMoreElements());
+
+    assertEquals(reader.readElementHeader(), -1);
+    assertEquals(reader.getTotalBytesRead(), (long) encodedSequence.length);
+    reader.close();
+  }
+
+
+
+  /**
+   * Tests the behavior when the end of the input stream is reached before
+   * the entire value has been read through a value input stream.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { IOException.class })
+  public void testElementValueInputStreamTruncated()
+         throws Exception
+  {
+    final byte[] elementBytes = { (byte) 0x04, (byte) 0x05, (byte) 0x01 };
+
+    final ASN1StreamReader reader =
+         new ASN1StreamReader(new ByteArrayInputStream(elementBytes));
+    final int length = reader.readElementHeader();
+    assertEquals(length, 5);
+
+    final InputStream inputStream = reader.getElementValueInputStream(length);
+    assertEquals(inputStream.read(), 0x01);
+    inputStream.read();
+  }
 }
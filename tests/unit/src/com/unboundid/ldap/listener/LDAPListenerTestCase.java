@@ -43,6 +43,7 @@ import java.net.InetAddress;
 import org.testng.annotations.Test;
 
 import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPConnectionOptions;
 import com.unboundid.ldap.sdk.LDAPSDKTestCase;
 import com.unboundid.util.ThrowsOnAcceptServerSocketFactory;
 import com.unboundid.util.ThrowsOnCreateServerSocketFactory;
@@ -158,4 +159,45 @@ public final class LDAPListenerTestCase
 
     listener.shutDown(true);
   }
+
+
+
+  /**
+   * Tests the behavior when using a listener and connections that are
+   * configured to use virtual threads.  On JVMs that do not support virtual
+   * threads, this should transparently fall back to using platform threads.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testUseVirtualThreads()
+         throws Exception
+  {
+    final LDAPListenerConfig config = new LDAPListenerConfig(0,
+         new CannedResponseRequestHandler());
+    config.setListenAddress(InetAddress.getByName("127.0.0.1"));
+    config.setUseVirtualThreads(true);
+
+    final LDAPListener listener = new LDAPListener(config);
+    listener.startListening();
+
+    try
+    {
+      final LDAPConnectionOptions options = new LDAPConnectionOptions();
+      options.setUseVirtualThreads(true);
+
+      final LDAPConnection conn = new LDAPConnection(options,
+           listener.getListenAddress().getHostAddress(),
+           listener.getListenPort());
+      for (int i=0; i < 10; i++)
+      {
+        assertNull(conn.getEntry(""));
+      }
+      conn.close();
+    }
+    finally
+    {
+      listener.shutDown(true);
+    }
+  }
 }
@@ -42,6 +42,7 @@ import org.testng.annotations.Test;
 
 import com.unboundid.asn1.ASN1OctetString;
 import com.unboundid.ldap.sdk.LDAPSDKTestCase;
+import com.unboundid.util.StaticUtils;
 
 
 
@@ -105,6 +106,20 @@ public final class TelephoneNumberComparisonPolicyTestCase
          TelephoneNumberComparisonPolicy.IGNORE_ONLY_SPACES_AND_DASHES.
               normalizeValue(valueOctetString).stringValue(),
          expectedNormalizedIgnoreOnlySpacesAndDashes);
+
+
+    // Make sure that we get the same results for a value that hasn't been
+    // decoded to a string.
+    final byte[] valueBytes = StaticUtils.getBytes(value);
+    assertEquals(
+         TelephoneNumberComparisonPolicy.IGNORE_ALL_NON_NUMERIC_CHARACTERS.
+              normalizeValue(new ASN1OctetString(valueBytes)).stringValue(),
+         expectedNormalizedIgnoreAllNonNumeric);
+
+    assertEquals(
+         TelephoneNumberComparisonPolicy.IGNORE_ONLY_SPACES_AND_DASHES.
+              normalizeValue(new ASN1OctetString(valueBytes)).stringValue(),
+         expectedNormalizedIgnoreOnlySpacesAndDashes);
   }
 
 
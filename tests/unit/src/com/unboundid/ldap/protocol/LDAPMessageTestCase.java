@@ -39,6 +39,8 @@ package com.unboundid.ldap.protocol;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 
 import org.testng.annotations.Test;
@@ -49,6 +51,7 @@ import com.unboundid.asn1.ASN1Integer;
 import com.unboundid.asn1.ASN1OctetString;
 import com.unboundid.asn1.ASN1Sequence;
 import com.unboundid.asn1.ASN1StreamReader;
+import com.unboundid.ldap.sdk.AddRequest;
 import com.unboundid.ldap.sdk.Attribute;
 import com.unboundid.ldap.sdk.Control;
 import com.unboundid.ldap.sdk.DereferencePolicy;
@@ -56,6 +59,7 @@ import com.unboundid.ldap.sdk.Filter;
 import com.unboundid.ldap.sdk.LDAPException;
 import com.unboundid.ldap.sdk.LDAPSDKTestCase;
 import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.ModifyRequest;
 import com.unboundid.ldap.sdk.ModificationType;
 import com.unboundid.ldap.sdk.SearchScope;
 import com.unboundid.util.TestInputStream;
@@ -1687,4 +1691,98 @@ public class LDAPMessageTestCase
          new ASN1Integer(1),
          new ASN1OctetString()));
   }
+
+
+
+  /**
+   * Tests to ensure that messages whose lengths are computed before they are
+   * written are encoded identically to messages encoded as ASN.1 elements, for
+   * a variety of entry and value sizes (including sizes that fall on the
+   * boundaries between encoded length sizes) and values with multi-byte
+   * characters.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testPrecomputedMessageLengths()
+         throws Exception
+  {
+    final Control[][] controlSets =
+    {
+      new Control[0],
+      new Control[]
+      {
+        new Control("1.2.3.4"),
+        new Control("1.2.3.5", true),
+        new Control("1.2.3.6", false, new ASN1OctetString("foo")),
+        new Control("1.2.3.7", true, new ASN1OctetString(new byte[300]))
+      }
+    };
+
+    for (final int valueLength :
+         new int[] { 0, 1, 100, 127, 128, 255, 256, 65535, 65536, 200000 })
+    {
+      final char[] chars = new char[valueLength];
+      Arrays.fill(chars, 'x');
+      final String asciiValue = new String(chars);
+      if (valueLength > 0)
+      {
+        chars[0] = '\u00e9';
+      }
+      final String nonASCIIValue = new String(chars);
+
+      final ArrayList<Attribute> attrs = new ArrayList<Attribute>();
+      attrs.add(new Attribute("objectClass", "top", "person"));
+      attrs.add(new Attribute("description", asciiValue));
+      attrs.add(new Attribute("displayName", nonASCIIValue,
+           "\uD83D\uDE00", "a\uD83D"));
+      attrs.add(new Attribute("jpegPhoto", new byte[valueLength]));
+
+      final ArrayList<Modification> mods = new ArrayList<Modification>();
+      mods.add(new Modification(ModificationType.REPLACE, "description",
+           asciiValue, nonASCIIValue));
+      mods.add(new Modification(ModificationType.DELETE, "displayName"));
+      mods.add(new Modification(ModificationType.INCREMENT, "counter", "1"));
+
+      final String dn = "cn=\u00e9" + valueLength + ",dc=example,dc=com";
+      final ProtocolOp[] ops =
+      {
+        new SearchResultEntryProtocolOp(dn, attrs),
+        new AddRequestProtocolOp(dn, attrs),
+        new ModifyRequestProtocolOp(dn, mods),
+        new AddRequest(dn, attrs),
+        new ModifyRequest(dn, mods)
+      };
+
+      for (final ProtocolOp op : ops)
+      {
+        for (final Control[] controls : controlSets)
+        {
+          for (final int messageID : new int[] { 1, 128, 65536, 16777216 })
+          {
+            final LDAPMessage m = new LDAPMessage(messageID, op, controls);
+
+            final ASN1Buffer b = new ASN1Buffer();
+            m.writeTo(b);
+            assertTrue(Arrays.equals(b.toByteArray(), m.encode().encode()),
+                 "Encoding mismatch for message " + m);
+          }
+        }
+      }
+
+      assertEquals(new SearchResultEntryProtocolOp(dn, attrs).getEncodedSize(),
+           new SearchResultEntryProtocolOp(dn, attrs).encodeProtocolOp().
+                encode().length);
+      assertEquals(new AddRequestProtocolOp(dn, attrs).getEncodedSize(),
+           new AddRequestProtocolOp(dn, attrs).encodeProtocolOp().
+                encode().length);
+      assertEquals(new ModifyRequestProtocolOp(dn, mods).getEncodedSize(),
+           new ModifyRequestProtocolOp(dn, mods).encodeProtocolOp().
+                encode().length);
+      assertEquals(new AddRequest(dn, attrs).getEncodedProtocolOpSize(),
+           new AddRequest(dn, attrs).encodeProtocolOp().encode().length);
+      assertEquals(new ModifyRequest(dn, mods).getEncodedProtocolOpSize(),
+           new ModifyRequest(dn, mods).encodeProtocolOp().encode().length);
+    }
+  }
 }
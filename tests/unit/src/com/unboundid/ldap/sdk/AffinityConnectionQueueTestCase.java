@@ -0,0 +1,430 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+
+
+/**
+ * This class provides a set of test cases for the
+ * {@code AffinityConnectionQueue} class.
+ */
+public class AffinityConnectionQueueTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the basic behavior of the queue when used by a single thread.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSingleThread()
+         throws Exception
+  {
+    final AffinityConnectionQueue queue = new AffinityConnectionQueue(3);
+    assertEquals(queue.size(), 0);
+    assertEquals(queue.remainingCapacity(), 3);
+    assertNull(queue.poll());
+    assertNull(queue.peek());
+    assertNull(queue.poll(10L, TimeUnit.MILLISECONDS));
+    assertFalse(queue.iterator().hasNext());
+
+    final LDAPConnection c1 = new LDAPConnection();
+    final LDAPConnection c2 = new LDAPConnection();
+    final LDAPConnection c3 = new LDAPConnection();
+    final LDAPConnection c4 = new LDAPConnection();
+
+    assertTrue(queue.offer(c1));
+    assertTrue(queue.offer(c2));
+    assertTrue(queue.offer(c3));
+    assertFalse(queue.offer(c4));
+    assertFalse(queue.offer(c4, 10L, TimeUnit.MILLISECONDS));
+    assertEquals(queue.size(), 3);
+    assertEquals(queue.remainingCapacity(), 0);
+    assertSame(queue.peek(), c3);
+
+    final List<LDAPConnection> iterated = new ArrayList<>();
+    final Iterator<LDAPConnection> iterator = queue.iterator();
+    while (iterator.hasNext())
+    {
+      iterated.add(iterator.next());
+    }
+    assertEquals(iterated.size(), 3);
+    assertSame(iterated.get(0), c3);
+    assertSame(iterated.get(1), c2);
+    assertSame(iterated.get(2), c1);
+
+    // Connections should be returned in last-in, first-out order.
+    assertSame(queue.poll(), c3);
+    assertSame(queue.poll(), c2);
+    assertSame(queue.poll(), c1);
+    assertNull(queue.poll());
+    assertEquals(queue.size(), 0);
+
+    // The connection most recently released by this thread should be returned
+    // first, even if it's not at the top of the stack.
+    assertTrue(queue.offer(c1));
+    assertTrue(queue.offer(c2));
+    assertSame(queue.poll(), c2);
+    assertSame(queue.poll(), c1);
+
+    queue.put(c1);
+    queue.put(c2);
+    assertSame(queue.take(), c2);
+
+    final List<LDAPConnection> drained = new ArrayList<>();
+    assertEquals(queue.drainTo(drained), 1);
+    assertEquals(drained.size(), 1);
+    assertSame(drained.get(0), c1);
+    assertEquals(queue.size(), 0);
+  }
+
+
+
+  /**
+   * Tests that a connection released by one thread will be preferred by that
+   * thread rather than by a different thread.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testThreadAffinity()
+         throws Exception
+  {
+    final AffinityConnectionQueue queue = new AffinityConnectionQueue(2);
+    final LDAPConnection mine = new LDAPConnection();
+    final LDAPConnection theirs = new LDAPConnection();
+
+    assertTrue(queue.offer(mine));
+
+    final Thread t = new Thread()
+    {
+      @Override()
+      public void run()
+      {
+        queue.offer(theirs);
+      }
+    };
+    t.start();
+    t.join();
+
+    // The other thread's connection is at the top of the stack, but this
+    // thread should get its own connection back.
+    assertSame(queue.peek(), theirs);
+    assertSame(queue.poll(), mine);
+    assertSame(queue.poll(), theirs);
+  }
+
+
+
+  /**
+   * Tests that a thread waiting for a connection will be given one when it is
+   * released by another thread.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testWaitForConnection()
+         throws Exception
+  {
+    final AffinityConnectionQueue queue = new AffinityConnectionQueue(1);
+    final LDAPConnection conn = new LDAPConnection();
+
+    final AtomicReference<LDAPConnection> received = new AtomicReference<>();
+    final Thread waiter = new Thread()
+    {
+      @Override()
+      public void run()
+      {
+        try
+        {
+          received.set(queue.poll(30L, TimeUnit.SECONDS));
+        }
+        catch (final InterruptedException e)
+        {
+          // The assertion below will fail.
+        }
+      }
+    };
+    waiter.start();
+
+    Thread.sleep(100L);
+    assertTrue(queue.offer(conn));
+    waiter.join(30_000L);
+    assertSame(received.get(), conn);
+    assertEquals(queue.size(), 0);
+  }
+
+
+
+  /**
+   * Tests that entries claimed through thread affinity are eventually purged
+   * from the stack if no other thread pops them.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testStaleEntriesPurged()
+         throws Exception
+  {
+    final AffinityConnectionQueue queue = new AffinityConnectionQueue(2);
+    final LDAPConnection c1 = new LDAPConnection();
+    final LDAPConnection c2 = new LDAPConnection();
+    assertTrue(queue.offer(c2));
+
+    for (int i=0; i < 1000; i++)
+    {
+      assertTrue(queue.offer(c1));
+      assertSame(queue.poll(), c1);
+    }
+
+    final List<LDAPConnection> available = new ArrayList<>();
+    final Iterator<LDAPConnection> iterator = queue.iterator();
+    while (iterator.hasNext())
+    {
+      available.add(iterator.next());
+    }
+    assertEquals(available, Collections.singletonList(c2));
+
+    assertSame(queue.poll(), c2);
+    assertNull(queue.poll());
+  }
+
+
+
+  /**
+   * Tests that purging stale entries while other threads are using the queue
+   * never hides connections that are available.  One thread repeatedly
+   * releases and reclaims its own connection, which leaves a stale entry in
+   * the stack each time and regularly triggers a purge, while another thread
+   * makes sure that it can always get a connection from the stack.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testPurgeDoesNotHideAvailableConnections()
+         throws Exception
+  {
+    final AffinityConnectionQueue queue = new AffinityConnectionQueue(3);
+    assertTrue(queue.offer(new LDAPConnection()));
+    assertTrue(queue.offer(new LDAPConnection()));
+
+    final AtomicInteger errors = new AtomicInteger(0);
+    final CountDownLatch doneLatch = new CountDownLatch(1);
+    final Thread churnThread = new Thread()
+    {
+      @Override()
+      public void run()
+      {
+        LDAPConnection connection = new LDAPConnection();
+        while (doneLatch.getCount() > 0L)
+        {
+          if (! queue.offer(connection))
+          {
+            errors.incrementAndGet();
+          }
+
+          connection = queue.poll();
+          if (connection == null)
+          {
+            errors.incrementAndGet();
+            connection = new LDAPConnection();
+          }
+        }
+
+        queue.offer(connection);
+      }
+    };
+    churnThread.start();
+
+    try
+    {
+      for (int i=0; i < 200_000; i++)
+      {
+        // The first poll will return the connection most recently released
+        // by this thread, so the second must come from the stack.  At most
+        // one of the three connections is ever held by the other thread, so
+        // both must succeed.
+        final LDAPConnection affine = queue.poll();
+        final LDAPConnection fromStack = queue.poll();
+        assertNotNull(affine);
+        assertNotNull(fromStack,
+             "No connection was available from the stack on iteration " + i);
+
+        assertTrue(queue.offer(fromStack));
+        assertTrue(queue.offer(affine));
+      }
+    }
+    finally
+    {
+      doneLatch.countDown();
+      churnThread.join();
+    }
+
+    assertEquals(errors.get(), 0);
+    assertEquals(queue.size(), 3);
+  }
+
+
+
+  /**
+   * Compares the affinity queue with a {@code LinkedBlockingQueue} when a large
+   * number of threads repeatedly check out and release connections from a
+   * small pool, and makes sure that no connection is ever handed to more than
+   * one thread at a time.  The elapsed time for each queue is included in the
+   * assertion message so that it will be visible if the test fails, but is
+   * not otherwise checked because it depends on the system on which the test
+   * is run.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testContention()
+         throws Exception
+  {
+    final int numConnections = 16;
+    final int numThreads = 64;
+    final int iterationsPerThread = 2_000;
+
+    final long affinityNanos = runContentionTest(
+         new AffinityConnectionQueue(numConnections), numConnections,
+         numThreads, iterationsPerThread);
+    final long linkedNanos = runContentionTest(
+         new LinkedBlockingQueue<LDAPConnection>(numConnections),
+         numConnections, numThreads, iterationsPerThread);
+
+    assertTrue((affinityNanos > 0L) && (linkedNanos > 0L),
+         "AffinityConnectionQueue: " + affinityNanos +
+              "ns; LinkedBlockingQueue: " + linkedNanos + "ns");
+  }
+
+
+
+  /**
+   * Runs a contention test against the provided queue.
+   *
+   * @param  queue                The queue to test.
+   * @param  numConnections       The number of connections to use.
+   * @param  numThreads           The number of threads to use.
+   * @param  iterationsPerThread  The number of checkouts for each thread.
+   *
+   * @return  The length of time in nanoseconds required to complete the test.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static long runContentionTest(
+               final BlockingQueue<LDAPConnection> queue,
+               final int numConnections, final int numThreads,
+               final int iterationsPerThread)
+          throws Exception
+  {
+    for (int i=0; i < numConnections; i++)
+    {
+      assertTrue(queue.offer(new LDAPConnection()));
+    }
+
+    final Set<LDAPConnection> inUse = Collections.synchronizedSet(
+         Collections.newSetFromMap(
+              new IdentityHashMap<LDAPConnection,Boolean>()));
+    final AtomicInteger errors = new AtomicInteger(0);
+    final CountDownLatch startLatch = new CountDownLatch(1);
+    final CountDownLatch doneLatch = new CountDownLatch(numThreads);
+
+    for (int i=0; i < numThreads; i++)
+    {
+      final Thread t = new Thread()
+      {
+        @Override()
+        public void run()
+        {
+          try
+          {
+            startLatch.await();
+            for (int j=0; j < iterationsPerThread; j++)
+            {
+              final LDAPConnection conn = queue.poll(30L, TimeUnit.SECONDS);
+              if ((conn == null) || (! inUse.add(conn)))
+              {
+                errors.incrementAndGet();
+                continue;
+              }
+
+              inUse.remove(conn);
+              if (! queue.offer(conn))
+              {
+                errors.incrementAndGet();
+              }
+            }
+          }
+          catch (final Exception e)
+          {
+            errors.incrementAndGet();
+          }
+          finally
+          {
+            doneLatch.countDown();
+          }
+        }
+      };
+      t.start();
+    }
+
+    final long startTime = System.nanoTime();
+    startLatch.countDown();
+    assertTrue(doneLatch.await(120L, TimeUnit.SECONDS));
+    final long elapsedNanos = System.nanoTime() - startTime;
+
+    assertEquals(errors.get(), 0);
+    assertEquals(queue.size(), numConnections);
+    return Math.max(1L, elapsedNanos);
+  }
+}
@@ -0,0 +1,582 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.interceptor.
+            InMemoryInterceptedSearchRequest;
+import com.unboundid.ldap.listener.interceptor.
+            InMemoryInterceptedSimpleBindRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import com.unboundid.ldap.sdk.extensions.StartTLSExtendedRequest;
+import com.unboundid.ldap.sdk.extensions.WhoAmIExtendedRequest;
+import com.unboundid.ldap.sdk.extensions.WhoAmIExtendedResult;
+
+
+
+/**
+ * This class provides a set of test cases for the CompletionStage-based
+ * asynchronous operation methods.
+ */
+public class AsyncCompletionHelperTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Retrieves a set of boolean values that indicate whether connections
+   * should operate in synchronous mode.
+   *
+   * @return  A set of boolean values that indicate whether connections should
+   *          operate in synchronous mode.
+   */
+  @DataProvider(name="synchronousMode")
+  public Object[][] getSynchronousMode()
+  {
+    return new Object[][]
+    {
+      new Object[] { false },
+      new Object[] { true }
+    };
+  }
+
+
+
+  /**
+   * Tests the CompletionStage-based methods for all operation types on a
+   * single connection.
+   *
+   * @param  synchronousMode  Indicates whether the connection should operate
+   *                          in synchronous mode.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="synchronousMode")
+  public void testConnectionOperations(final boolean synchronousMode)
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final ExecutorService executorService = Executors.newFixedThreadPool(2);
+    final CountingExecutor executor = new CountingExecutor(executorService);
+
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUseSynchronousMode(synchronousMode);
+    options.setCompletionExecutor(executor);
+
+    final LDAPConnection conn =
+         new LDAPConnection(options, "127.0.0.1", ds.getListenPort());
+
+    try
+    {
+      final BindResult bindResult = await(conn.bindAsync(
+           new SimpleBindRequest("cn=Directory Manager", "password")));
+      assertEquals(bindResult.getResultCode(), ResultCode.SUCCESS);
+
+      final LDAPResult addResult = await(conn.addAsync(new AddRequest(
+           "dn: ou=async,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: async")));
+      assertEquals(addResult.getResultCode(), ResultCode.SUCCESS);
+
+      final CompareResult compareTrue = await(conn.compareAsync(
+           new CompareRequest("ou=async,dc=example,dc=com", "ou", "async")));
+      assertTrue(compareTrue.compareMatched());
+
+      final CompareResult compareFalse = await(conn.compareAsync(
+           new CompareRequest("ou=async,dc=example,dc=com", "ou", "other")));
+      assertFalse(compareFalse.compareMatched());
+
+      final LDAPResult modifyResult = await(conn.modifyAsync(
+           new ModifyRequest("ou=async,dc=example,dc=com",
+                new Modification(ModificationType.REPLACE, "description",
+                     "foo"))));
+      assertEquals(modifyResult.getResultCode(), ResultCode.SUCCESS);
+
+      final LDAPResult modifyDNResult = await(conn.modifyDNAsync(
+           new ModifyDNRequest("ou=async,dc=example,dc=com", "ou=async2",
+                true)));
+      assertEquals(modifyDNResult.getResultCode(), ResultCode.SUCCESS);
+
+      final SearchResult searchResult = await(conn.searchAsync(
+           new SearchRequest("dc=example,dc=com", SearchScope.SUB,
+                "(ou=async2)")));
+      assertEquals(searchResult.getResultCode(), ResultCode.SUCCESS);
+      assertEquals(searchResult.getEntryCount(), 1);
+      assertEquals(searchResult.getSearchEntries().size(), 1);
+      assertEquals(searchResult.getSearchEntries().get(0).getDN(),
+           "ou=async2,dc=example,dc=com");
+      assertEquals(
+           searchResult.getSearchEntries().get(0).getAttributeValue(
+                "description"),
+           "foo");
+
+      final TestSearchResultListener listener =
+           new TestSearchResultListener();
+      final SearchResult listenerSearchResult = await(conn.searchAsync(
+           new SearchRequest(listener,
+                "dc=example,dc=com", SearchScope.SUB,
+                Filter.createPresenceFilter("objectClass"))));
+      assertEquals(listenerSearchResult.getEntryCount(), 4);
+      assertNull(listenerSearchResult.getSearchEntries());
+      assertEquals(listener.getNumEntries(), 4);
+
+      final ExtendedResult extendedResult = await(
+           conn.processExtendedOperationAsync(new WhoAmIExtendedRequest()));
+      assertEquals(extendedResult.getResultCode(), ResultCode.SUCCESS);
+      assertTrue(extendedResult instanceof WhoAmIExtendedResult);
+      assertEquals(
+           ((WhoAmIExtendedResult) extendedResult).getAuthorizationID(),
+           "dn:cn=Directory Manager");
+
+      final LDAPResult deleteResult = await(conn.deleteAsync(
+           new DeleteRequest("ou=async2,dc=example,dc=com")));
+      assertEquals(deleteResult.getResultCode(), ResultCode.SUCCESS);
+
+      assertTrue(executor.getExecutionCount() > 0);
+    }
+    finally
+    {
+      conn.close();
+      executorService.shutdown();
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior of the CompletionStage-based methods for operations
+   * that do not complete successfully.
+   *
+   * @param  synchronousMode  Indicates whether the connection should operate
+   *                          in synchronous mode.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="synchronousMode")
+  public void testConnectionOperationFailures(final boolean synchronousMode)
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUseSynchronousMode(synchronousMode);
+
+    final LDAPConnection conn =
+         new LDAPConnection(options, "127.0.0.1", ds.getListenPort());
+
+    try
+    {
+      LDAPException le = awaitFailure(conn.addAsync(new AddRequest(
+           "dn: dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: domain",
+           "dc: example")));
+      assertEquals(le.getResultCode(), ResultCode.ENTRY_ALREADY_EXISTS);
+
+      le = awaitFailure(conn.bindAsync(new SimpleBindRequest(
+           "uid=test.user,ou=People,dc=example,dc=com", "wrong")));
+      assertEquals(le.getResultCode(), ResultCode.INVALID_CREDENTIALS);
+
+      le = awaitFailure(conn.compareAsync(new CompareRequest(
+           "ou=missing,dc=example,dc=com", "ou", "missing")));
+      assertEquals(le.getResultCode(), ResultCode.NO_SUCH_OBJECT);
+
+      le = awaitFailure(conn.deleteAsync(
+           new DeleteRequest("ou=People,dc=example,dc=com")));
+      assertEquals(le.getResultCode(), ResultCode.NOT_ALLOWED_ON_NONLEAF);
+
+      le = awaitFailure(conn.modifyAsync(new ModifyRequest(
+           "ou=missing,dc=example,dc=com",
+           new Modification(ModificationType.REPLACE, "description",
+                "foo"))));
+      assertEquals(le.getResultCode(), ResultCode.NO_SUCH_OBJECT);
+
+      le = awaitFailure(conn.modifyDNAsync(new ModifyDNRequest(
+           "ou=missing,dc=example,dc=com", "ou=other", true)));
+      assertEquals(le.getResultCode(), ResultCode.NO_SUCH_OBJECT);
+
+      le = awaitFailure(conn.searchAsync(new SearchRequest(
+           "ou=missing,dc=example,dc=com", SearchScope.BASE,
+           "(objectClass=*)")));
+      assertTrue(le instanceof LDAPSearchException);
+      assertEquals(le.getResultCode(), ResultCode.NO_SUCH_OBJECT);
+    }
+    finally
+    {
+      conn.close();
+    }
+
+    final LDAPException le = awaitFailure(conn.searchAsync(new SearchRequest(
+         "dc=example,dc=com", SearchScope.BASE, "(objectClass=*)")));
+    assertTrue(le instanceof LDAPSearchException);
+    assertEquals(le.getResultCode(), ResultCode.SERVER_DOWN);
+  }
+
+
+
+  /**
+   * Tests the CompletionStage-based methods for a connection pool.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConnectionPoolOperations()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPConnectionPool pool = ds.getConnectionPool(1);
+
+    try
+    {
+      final LDAPResult addResult = await(pool.addAsync(new AddRequest(
+           "dn: ou=pool,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: pool")));
+      assertEquals(addResult.getResultCode(), ResultCode.SUCCESS);
+      assertEquals(pool.getCurrentAvailableConnections(), 1);
+
+      final CompareResult compareResult = await(pool.compareAsync(
+           new CompareRequest("ou=pool,dc=example,dc=com", "ou", "pool")));
+      assertTrue(compareResult.compareMatched());
+
+      await(pool.modifyAsync(new ModifyRequest("ou=pool,dc=example,dc=com",
+           new Modification(ModificationType.REPLACE, "description",
+                "foo"))));
+      await(pool.modifyDNAsync(new ModifyDNRequest(
+           "ou=pool,dc=example,dc=com", "ou=pool2", true)));
+
+      final SearchResult searchResult = await(pool.searchAsync(
+           new SearchRequest("dc=example,dc=com", SearchScope.SUB,
+                "(ou=pool2)")));
+      assertEquals(searchResult.getSearchEntries().size(), 1);
+
+      final ExtendedResult extendedResult = await(
+           pool.processExtendedOperationAsync(new WhoAmIExtendedRequest()));
+      assertEquals(extendedResult.getResultCode(), ResultCode.SUCCESS);
+
+      await(pool.deleteAsync(new DeleteRequest("ou=pool2,dc=example,dc=com")));
+
+      final LDAPException le = awaitFailure(pool.deleteAsync(
+           new DeleteRequest("ou=pool2,dc=example,dc=com")));
+      assertEquals(le.getResultCode(), ResultCode.NO_SUCH_OBJECT);
+
+      final LDAPException startTLSException = awaitFailure(
+           pool.processExtendedOperationAsync(new StartTLSExtendedRequest()));
+      assertEquals(startTLSException.getResultCode(),
+           ResultCode.NOT_SUPPORTED);
+
+      final BindResult bindResult = await(pool.bindAsync(
+           new SimpleBindRequest("cn=Directory Manager", "password")));
+      assertEquals(bindResult.getResultCode(), ResultCode.SUCCESS);
+      assertEquals(pool.getCurrentAvailableConnections(), 1);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests that cancelling a completion stage returned by a connection pool
+   * abandons the operation and releases the connection back to the pool.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConnectionPoolCancellation()
+         throws Exception
+  {
+    final CountDownLatch searchReceivedLatch = new CountDownLatch(1);
+    final CountDownLatch releaseSearchLatch = new CountDownLatch(1);
+
+    final InMemoryDirectoryServerConfig config =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    config.addInMemoryOperationInterceptor(new InMemoryOperationInterceptor()
+    {
+      @Override()
+      public void processSearchRequest(
+                       final InMemoryInterceptedSearchRequest request)
+      {
+        searchReceivedLatch.countDown();
+        try
+        {
+          releaseSearchLatch.await(30L, TimeUnit.SECONDS);
+        }
+        catch (final InterruptedException e)
+        {
+          // Ignore this.
+        }
+      }
+    });
+
+    final InMemoryDirectoryServer ds = new InMemoryDirectoryServer(config);
+    ds.add(generateDomainEntry("example", "dc=com"));
+    ds.startListening();
+
+    final LDAPConnectionPool pool = ds.getConnectionPool(1);
+    try
+    {
+      final CompletableFuture<SearchResult> future = pool.searchAsync(
+           new SearchRequest("dc=example,dc=com", SearchScope.BASE,
+                "(objectClass=*)")).toCompletableFuture();
+      assertTrue(searchReceivedLatch.await(30L, TimeUnit.SECONDS));
+      assertEquals(pool.getCurrentAvailableConnections(), 0);
+
+      assertTrue(future.cancel(false));
+      assertTrue(future.isCancelled());
+      assertEquals(pool.getCurrentAvailableConnections(), 1);
+
+      final LDAPConnection conn = pool.getConnection();
+      try
+      {
+        assertEquals(
+             conn.getConnectionStatistics().getNumAbandonRequests(), 1L);
+      }
+      finally
+      {
+        pool.releaseConnection(conn);
+      }
+    }
+    finally
+    {
+      releaseSearchLatch.countDown();
+      pool.close();
+      ds.shutDown(true);
+    }
+  }
+
+
+
+  /**
+   * Tests that bind operations, which block the thread that processes them,
+   * are not processed by a thread from the common fork-join pool even if it
+   * has been configured as the completion executor.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testBlockingOperationsAvoidCommonPool()
+         throws Exception
+  {
+    final CountDownLatch bindReceivedLatch = new CountDownLatch(1);
+    final CountDownLatch releaseBindLatch = new CountDownLatch(1);
+
+    final InMemoryDirectoryServerConfig config =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    config.addAdditionalBindCredentials("cn=Directory Manager", "password");
+    config.addInMemoryOperationInterceptor(new InMemoryOperationInterceptor()
+    {
+      @Override()
+      public void processSimpleBindRequest(
+                       final InMemoryInterceptedSimpleBindRequest request)
+      {
+        bindReceivedLatch.countDown();
+        try
+        {
+          releaseBindLatch.await(30L, TimeUnit.SECONDS);
+        }
+        catch (final InterruptedException e)
+        {
+          // Ignore this.
+        }
+      }
+    });
+
+    final InMemoryDirectoryServer ds = new InMemoryDirectoryServer(config);
+    ds.startListening();
+
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setCompletionExecutor(ForkJoinPool.commonPool());
+
+    final LDAPConnection conn =
+         new LDAPConnection(options, "127.0.0.1", ds.getListenPort());
+    try
+    {
+      final CompletableFuture<BindResult> bindFuture = conn.bindAsync(
+           new SimpleBindRequest("cn=Directory Manager", "password")).
+           toCompletableFuture();
+      assertTrue(bindReceivedLatch.await(30L, TimeUnit.SECONDS));
+
+      final CompletableFuture<String> threadNameFuture = bindFuture.thenApply(
+           new Function<BindResult,String>()
+           {
+             @Override()
+             public String apply(final BindResult result)
+             {
+               return Thread.currentThread().getName();
+             }
+           });
+      releaseBindLatch.countDown();
+
+      assertEquals(await(bindFuture).getResultCode(), ResultCode.SUCCESS);
+      assertTrue(
+           await(threadNameFuture).startsWith("LDAP SDK Completion Executor"),
+           await(threadNameFuture));
+    }
+    finally
+    {
+      releaseBindLatch.countDown();
+      conn.close();
+      ds.shutDown(true);
+    }
+  }
+
+
+
+  /**
+   * Waits for the provided completion stage to complete normally and returns
+   * its result.
+   *
+   * @param  <T>    The type of result for the completion stage.
+   * @param  stage  The completion stage for which to wait.
+   *
+   * @return  The result of the completion stage.
+   *
+   * @throws  Exception  If the completion stage completes exceptionally.
+   */
+  private static <T> T await(final CompletionStage<T> stage)
+          throws Exception
+  {
+    return stage.toCompletableFuture().get(30L, TimeUnit.SECONDS);
+  }
+
+
+
+  /**
+   * Waits for the provided completion stage to complete exceptionally and
+   * returns the LDAP exception with which it completed.
+   *
+   * @param  stage  The completion stage for which to wait.
+   *
+   * @return  The LDAP exception with which the completion stage completed.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static LDAPException awaitFailure(final CompletionStage<?> stage)
+          throws Exception
+  {
+    try
+    {
+      stage.toCompletableFuture().get(30L, TimeUnit.SECONDS);
+      fail("Expected the completion stage to complete exceptionally");
+      return null;
+    }
+    catch (final ExecutionException e)
+    {
+      assertTrue(e.getCause() instanceof LDAPException,
+           String.valueOf(e.getCause()));
+      return (LDAPException) e.getCause();
+    }
+  }
+
+
+
+  /**
+   * This class provides an executor that counts the number of tasks that it
+   * has been asked to run.
+   */
+  private static final class CountingExecutor
+          implements Executor
+  {
+    // The number of tasks that this executor has been asked to run.
+    private final AtomicInteger executionCount;
+
+    // The executor that will be used to run the tasks.
+    private final Executor delegate;
+
+
+
+    /**
+     * Creates a new counting executor that will use the provided executor to
+     * run the tasks.
+     *
+     * @param  delegate  The executor that will be used to run the tasks.
+     */
+    private CountingExecutor(final Executor delegate)
+    {
+      this.delegate = delegate;
+      executionCount = new AtomicInteger(0);
+    }
+
+
+
+    /**
+     * Runs the provided task.
+     *
+     * @param  task  The task to be run.
+     */
+    @Override()
+    public void execute(final Runnable task)
+    {
+      executionCount.incrementAndGet();
+      delegate.execute(task);
+    }
+
+
+
+    /**
+     * Retrieves the number of tasks that this executor has been asked to run.
+     *
+     * @return  The number of tasks that this executor has been asked to run.
+     */
+    private int getExecutionCount()
+    {
+      return executionCount.get();
+    }
+  }
+}
@@ -37,6 +37,11 @@ package com.unboundid.ldap.sdk;
 
 
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.LinkedHashMap;
@@ -48,6 +53,8 @@ import org.testng.annotations.Test;
 
 import com.unboundid.asn1.ASN1Integer;
 import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.asn1.ASN1OctetStringValueSource;
+import com.unboundid.asn1.ASN1StreamReader;
 import com.unboundid.asn1.ASN1Sequence;
 import com.unboundid.ldap.matchingrules.IntegerMatchingRule;
 import com.unboundid.ldap.matchingrules.CaseExactStringMatchingRule;
@@ -2117,4 +2124,82 @@ public class AttributeTestCase
       new Object[] { "a\r\nb", true },
     };
   }
+
+
+
+  /**
+   * Tests the ability to read an attribute from an ASN.1 stream reader with a
+   * large attribute value sink.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testReadFromWithLargeValueSink()
+         throws Exception
+  {
+    final byte[] largeValue = new byte[5000];
+    Arrays.fill(largeValue, (byte) 'x');
+
+    final Attribute attr = new Attribute("description",
+         new ASN1OctetString("small"), new ASN1OctetString(largeValue));
+
+    final ArrayList<String> storedNames = new ArrayList<>(1);
+    final LargeAttributeValueSink sink = new LargeAttributeValueSink()
+    {
+      @Override()
+      public ASN1OctetStringValueSource storeValue(final String attributeName,
+                                                   final int valueLength,
+                                                   final InputStream in)
+             throws IOException
+      {
+        storedNames.add(attributeName);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        while (true)
+        {
+          final int bytesRead = in.read(buffer);
+          if (bytesRead < 0)
+          {
+            break;
+          }
+
+          out.write(buffer, 0, bytesRead);
+        }
+
+        final byte[] storedValue = out.toByteArray();
+        return new ASN1OctetStringValueSource()
+        {
+          @Override()
+          public InputStream getInputStream()
+          {
+            return new ByteArrayInputStream(storedValue);
+          }
+
+          @Override()
+          public void valueLoaded()
+          {
+            // No action is required.
+          }
+        };
+      }
+    };
+
+    final ASN1StreamReader reader = new ASN1StreamReader(
+         new ByteArrayInputStream(attr.encode().encode()));
+    final Attribute decoded = Attribute.readFrom(reader, null, sink, 1000);
+    assertEquals(reader.peek(), -1);
+
+    assertEquals(storedNames.size(), 1);
+    assertEquals(storedNames.get(0), "description");
+
+    final ASN1OctetString[] values = decoded.getRawValues();
+    assertEquals(values.length, 2);
+    assertTrue(values[0].isValueLoaded());
+    assertFalse(values[1].isValueLoaded());
+    assertEquals(values[1].getValueLength(), largeValue.length);
+
+    assertEquals(decoded, attr);
+    assertTrue(values[1].isValueLoaded());
+  }
 }
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.sdk.controls.EntryChangeNotificationControl;
+import com.unboundid.ldap.sdk.controls.PersistentSearchChangeType;
+
+
+
+/**
+ * This class provides a set of test cases for the caching LDAP interface.
+ */
+public final class CachingLDAPInterfaceTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * The DN of the test user entry.
+   */
+  private static final String USER_DN =
+       "uid=test.user,ou=People,dc=example,dc=com";
+
+
+
+  /**
+   * Tests the basic caching behavior, including the use of normalized cache
+   * keys and the conditions under which results will not be cached.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testBasicCaching()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    try (LDAPConnection conn = ds.getConnection())
+    {
+      final CachingLDAPInterface cache =
+           new CachingLDAPInterface(conn, 10, 60_000L);
+      assertSame(cache.getWrappedInterface(), conn);
+      assertEquals(cache.getMaxCachedResults(), 10);
+      assertEquals(cache.getTimeToLiveMillis(), 60_000L);
+      assertEquals(cache.getMaxEntriesPerCachedResult(),
+           CachingLDAPInterface.DEFAULT_MAX_ENTRIES_PER_CACHED_RESULT);
+      assertEquals(cache.getNumCachedResults(), 0);
+
+      final SearchResultEntry e1 = cache.searchForEntry("dc=example,dc=com",
+           SearchScope.SUB, "(uid=test.user)", "givenName");
+      assertNotNull(e1);
+      assertEquals(e1.getAttributeValue("givenName"), "Test");
+      assertEquals(cache.getNumCacheHits(), 0L);
+      assertEquals(cache.getNumCacheMisses(), 1L);
+      assertEquals(cache.getNumCachedResults(), 1);
+
+      // The same search with a base DN and filter that differ only in
+      // capitalization should be satisfied from the cache.
+      final SearchResultEntry e2 = cache.searchForEntry("DC=Example,DC=COM",
+           SearchScope.SUB, "(UID=Test.User)", "GIVENNAME");
+      assertSame(e2, e1);
+      assertEquals(cache.getNumCacheHits(), 1L);
+      assertEquals(cache.getNumCacheMisses(), 1L);
+
+      // A search with a different set of attributes should not be satisfied
+      // from the cache.
+      assertNotNull(cache.searchForEntry("dc=example,dc=com", SearchScope.SUB,
+           "(uid=test.user)", "sn"));
+      assertEquals(cache.getNumCacheHits(), 1L);
+      assertEquals(cache.getNumCacheMisses(), 2L);
+      assertEquals(cache.getNumCachedResults(), 2);
+
+      // A change made directly in the server will not be visible until the
+      // cached result is invalidated.
+      ds.modify(USER_DN, new Modification(ModificationType.REPLACE,
+           "givenName", "Changed"));
+      assertEquals(cache.searchForEntry("dc=example,dc=com", SearchScope.SUB,
+           "(uid=test.user)", "givenName").getAttributeValue("givenName"),
+           "Test");
+
+      cache.invalidate(USER_DN);
+      assertEquals(cache.searchForEntry("dc=example,dc=com", SearchScope.SUB,
+           "(uid=test.user)", "givenName").getAttributeValue("givenName"),
+           "Changed");
+
+      // Searches that use a search result listener should not be cached.
+      final long numMisses = cache.getNumCacheMisses();
+      final TestSearchResultListener listener = new TestSearchResultListener();
+      cache.search(listener, "dc=example,dc=com", SearchScope.SUB,
+           "(objectClass=*)");
+      cache.search(listener, "dc=example,dc=com", SearchScope.SUB,
+           "(objectClass=*)");
+      assertEquals(listener.getNumEntries(), 6);
+      assertEquals(cache.getNumCacheMisses(), numMisses);
+
+      // Results with too many entries should not be cached.
+      cache.clear();
+      assertEquals(cache.getNumCachedResults(), 0);
+      cache.setMaxEntriesPerCachedResult(2);
+      assertEquals(cache.search("dc=example,dc=com", SearchScope.SUB,
+           "(objectClass=*)").getEntryCount(), 3);
+      assertEquals(cache.getNumCachedResults(), 0);
+
+      // Unsuccessful searches should not be cached.
+      for (int i=0; i < 2; i++)
+      {
+        assertNull(cache.getEntry("ou=missing,dc=example,dc=com"));
+      }
+      assertEquals(cache.getNumCachedResults(), 0);
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior of the cache with regard to its size and time to live
+   * limits.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testEviction()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    try (LDAPConnection conn = ds.getConnection())
+    {
+      final CachingLDAPInterface cache =
+           new CachingLDAPInterface(conn, 2, 60_000L);
+
+      assertNotNull(cache.getEntry("dc=example,dc=com"));
+      assertNotNull(cache.getEntry("ou=People,dc=example,dc=com"));
+      assertNotNull(cache.getEntry("dc=example,dc=com"));
+      assertEquals(cache.getNumCacheHits(), 1L);
+
+      // Adding a third result should evict the least recently used one, which
+      // is the People entry.
+      assertNotNull(cache.getEntry(USER_DN));
+      assertEquals(cache.getNumCachedResults(), 2);
+
+      assertNotNull(cache.getEntry("dc=example,dc=com"));
+      assertEquals(cache.getNumCacheHits(), 2L);
+
+      assertNotNull(cache.getEntry("ou=People,dc=example,dc=com"));
+      assertEquals(cache.getNumCacheHits(), 2L);
+      assertEquals(cache.getNumCacheMisses(), 4L);
+
+
+      // Results should not be returned after they have expired.
+      final CachingLDAPInterface shortLivedCache =
+           new CachingLDAPInterface(conn, 10, 50L);
+      assertNotNull(shortLivedCache.getEntry(USER_DN));
+      assertNotNull(shortLivedCache.getEntry(USER_DN));
+      assertEquals(shortLivedCache.getNumCacheHits(), 1L);
+
+      Thread.sleep(100L);
+      assertNotNull(shortLivedCache.getEntry(USER_DN));
+      assertEquals(shortLivedCache.getNumCacheHits(), 1L);
+      assertEquals(shortLivedCache.getNumCacheMisses(), 2L);
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that write operations processed through the cache will
+   * invalidate the appropriate cached results.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testInvalidationOnWrite()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+    ds.add(
+         "dn: ou=Groups,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: organizationalUnit",
+         "ou: Groups");
+
+    try (LDAPConnection conn = ds.getConnection())
+    {
+      final CachingLDAPInterface cache =
+           new CachingLDAPInterface(conn, 10, 60_000L);
+
+      assertNotNull(cache.getEntry(USER_DN));
+      assertEquals(cache.search("ou=Groups,dc=example,dc=com", SearchScope.SUB,
+           "(objectClass=*)").getEntryCount(), 1);
+      assertEquals(cache.search("ou=People,dc=example,dc=com", SearchScope.ONE,
+           "(objectClass=*)").getEntryCount(), 1);
+      assertEquals(cache.getNumCachedResults(), 3);
+
+      // Modifying the user entry should invalidate the results for the entry
+      // itself and for the one-level search below its parent, but not for the
+      // search below the Groups entry.
+      cache.modify(USER_DN, new Modification(ModificationType.REPLACE,
+           "description", "foo"));
+      assertEquals(cache.getNumCachedResults(), 1);
+      assertEquals(
+           cache.getEntry(USER_DN, "description").getAttributeValue(
+                "description"),
+           "foo");
+
+      // Adding an entry below the Groups entry should invalidate the search
+      // below that entry.
+      cache.add(
+           "dn: cn=Test Group,ou=Groups,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: groupOfNames",
+           "cn: Test Group",
+           "member: " + USER_DN);
+      assertEquals(cache.search("ou=Groups,dc=example,dc=com", SearchScope.SUB,
+           "(objectClass=*)").getEntryCount(), 2);
+
+      // Renaming the user entry should invalidate results for both the old
+      // and new DNs.
+      final String newUserDN = "uid=renamed.user,ou=People,dc=example,dc=com";
+      assertNull(cache.getEntry(newUserDN));
+      cache.modifyDN(USER_DN, "uid=renamed.user", true);
+      assertNull(cache.getEntry(USER_DN));
+      assertNotNull(cache.getEntry(newUserDN));
+
+      // Deleting the entry should invalidate the result for that entry.
+      cache.delete(newUserDN);
+      assertNull(cache.getEntry(newUserDN));
+
+      // An invalid DN should cause the entire cache to be cleared.
+      assertTrue(cache.getNumCachedResults() > 0);
+      cache.invalidate("malformed");
+      assertEquals(cache.getNumCachedResults(), 0);
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that requests created from a template will not be cached,
+   * and that write operations created from a template will clear the cache.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testTemplatedRequests()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    try (LDAPConnection conn = ds.getConnection())
+    {
+      final CachingLDAPInterface cache =
+           new CachingLDAPInterface(conn, 10, 60_000L);
+
+      final LDAPRequestTemplate searchTemplate = new LDAPRequestTemplate(
+           new SearchRequest("dc=example,dc=com", SearchScope.SUB,
+                "(uid={uid})"),
+           "{uid}");
+
+      // Searches created from the same template share the same base DN and
+      // filter, but must not be satisfied from each other's cached results.
+      assertEquals(cache.search((SearchRequest)
+           searchTemplate.createRequest("test.user")).getEntryCount(), 1);
+      assertEquals(cache.search((SearchRequest)
+           searchTemplate.createRequest("nonexistent")).getEntryCount(), 0);
+      assertNotNull(cache.searchForEntry((SearchRequest)
+           searchTemplate.createRequest("test.user")));
+      assertNull(cache.searchForEntry((SearchRequest)
+           searchTemplate.createRequest("nonexistent")));
+      assertEquals(cache.getNumCachedResults(), 0);
+      assertEquals(cache.getNumCacheHits(), 0L);
+      assertEquals(cache.getNumCacheMisses(), 0L);
+
+      // A write created from a template should clear the cache, since its DN
+      // does not reflect the entry that was actually targeted.
+      assertNotNull(cache.getEntry(USER_DN));
+      assertEquals(cache.getNumCachedResults(), 1);
+
+      final LDAPRequestTemplate modifyTemplate = new LDAPRequestTemplate(
+           new ModifyRequest("uid={uid},ou=People,dc=example,dc=com",
+                new Modification(ModificationType.REPLACE, "description",
+                     "{value}")),
+           "{uid}", "{value}");
+      assertResultCodeEquals(
+           cache.modify((ModifyRequest)
+                modifyTemplate.createRequest("test.user", "templated")),
+           ResultCode.SUCCESS);
+      assertEquals(cache.getNumCachedResults(), 0);
+      assertEquals(
+           cache.getEntry(USER_DN, "description").getAttributeValue(
+                "description"),
+           "templated");
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior of the change notification listener.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testChangeNotificationListener()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    try (LDAPConnection conn = ds.getConnection())
+    {
+      final CachingLDAPInterface cache =
+           new CachingLDAPInterface(conn, 10, 60_000L);
+      final AsyncSearchResultListener listener =
+           cache.createChangeNotificationListener();
+
+      assertNotNull(cache.getEntry(USER_DN));
+      assertNotNull(cache.getEntry("ou=People,dc=example,dc=com"));
+      assertEquals(cache.getNumCachedResults(), 2);
+
+      listener.searchEntryReturned(
+           new SearchResultEntry(USER_DN, new Attribute[0]));
+      assertEquals(cache.getNumCachedResults(), 1);
+
+      // An entry with an entry change notification control should also cause
+      // results for the previous DN to be invalidated.
+      assertNotNull(cache.getEntry(USER_DN));
+      assertEquals(cache.getNumCachedResults(), 2);
+      listener.searchEntryReturned(new SearchResultEntry(
+           "uid=renamed.user,dc=example,dc=com", new Attribute[0],
+           new EntryChangeNotificationControl(
+                PersistentSearchChangeType.MODIFY_DN, USER_DN, 1L)));
+      assertEquals(cache.getNumCachedResults(), 1);
+
+      // The end of the search should cause all results to be removed.
+      listener.searchResultReceived(new AsyncRequestID(1, conn),
+           new SearchResult(1, ResultCode.SUCCESS, null, null, null, 0, 0,
+                null));
+      assertEquals(cache.getNumCachedResults(), 0);
+    }
+  }
+}
@@ -838,4 +838,133 @@ public final class CachingNameResolverTestCase
     assertEquals(nameResolver.getCanonicalHostName(address),
          "dummy.example.com");
   }
+
+
+
+  /**
+   * Tests the behavior of a resolver configured to serve stale records while
+   * they are refreshed in the background.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testStaleWhileRevalidate()
+         throws Exception
+  {
+    final CachingNameResolver nameResolver =
+         new CachingNameResolver(3_600_000, 0L, 60_000L);
+    assertEquals(nameResolver.getRefreshAheadMillis(), 0L);
+    assertEquals(nameResolver.getMaxStalenessMillis(), 60_000L);
+    assertNotNull(nameResolver.toString());
+
+    final InetAddress dummyAddress =
+         InetAddress.getByAddress(new byte[] { 1, 2, 3, 4 });
+
+
+    // Put a recently expired record in the cache.  It should be returned
+    // immediately, and a background refresh should replace it.
+    nameResolver.getNameToAddressMap().put("localhost",
+         new ObjectPair<Long,InetAddress[]>(
+              (System.currentTimeMillis() - 1_000L),
+              new InetAddress[] { dummyAddress }));
+
+    assertEquals(nameResolver.getByName("localhost"), dummyAddress);
+    assertEquals(nameResolver.getNumStaleCacheHits(), 1L);
+    assertEquals(nameResolver.getNumCacheMisses(), 0L);
+
+    waitForBackgroundRefreshes(nameResolver, 1L);
+    assertEquals(nameResolver.getNumFailedBackgroundRefreshes(), 0L);
+    assertTrue(nameResolver.getMaxBackgroundRefreshDurationMillis() >= 0.0d);
+    assertTrue(nameResolver.getAverageBackgroundRefreshDurationMillis() >=
+         0.0d);
+
+    assertFalse(nameResolver.getByName("localhost").equals(dummyAddress));
+    assertEquals(nameResolver.getNumCacheHits(), 1L);
+
+
+    // Put a record in the cache that expired longer ago than the maximum
+    // staleness.  The caller should wait for a new lookup.
+    nameResolver.getNameToAddressMap().put("localhost",
+         new ObjectPair<Long,InetAddress[]>(
+              (System.currentTimeMillis() - 120_000L),
+              new InetAddress[] { dummyAddress }));
+
+    assertFalse(nameResolver.getByName("localhost").equals(dummyAddress));
+    assertEquals(nameResolver.getNumCacheMisses(), 1L);
+    assertEquals(nameResolver.getNumStaleCacheHits(), 1L);
+  }
+
+
+
+  /**
+   * Tests the behavior of a resolver configured to refresh records in the
+   * background before they expire.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testRefreshAhead()
+         throws Exception
+  {
+    final CachingNameResolver nameResolver =
+         new CachingNameResolver(3_600_000, 60_000L, 0L);
+    assertEquals(nameResolver.getRefreshAheadMillis(), 60_000L);
+    assertEquals(nameResolver.getMaxStalenessMillis(), 0L);
+
+    final InetAddress dummyAddress =
+         InetAddress.getByAddress(new byte[] { 1, 2, 3, 4 });
+
+
+    // A record that isn't close to expiring should not be refreshed.
+    nameResolver.getNameToAddressMap().put("localhost",
+         new ObjectPair<Long,InetAddress[]>(
+              (System.currentTimeMillis() + 3_600_000L),
+              new InetAddress[] { dummyAddress }));
+
+    assertEquals(nameResolver.getByName("localhost"), dummyAddress);
+    assertEquals(nameResolver.getNumCacheHits(), 1L);
+    assertEquals(nameResolver.getNumBackgroundRefreshes(), 0L);
+
+
+    // A record that is about to expire should be returned, but should also be
+    // refreshed in the background.
+    nameResolver.getNameToAddressMap().put("localhost",
+         new ObjectPair<Long,InetAddress[]>(
+              (System.currentTimeMillis() + 30_000L),
+              new InetAddress[] { dummyAddress }));
+
+    assertEquals(nameResolver.getByName("localhost"), dummyAddress);
+    assertEquals(nameResolver.getNumCacheHits(), 2L);
+
+    waitForBackgroundRefreshes(nameResolver, 1L);
+    assertFalse(nameResolver.getByName("localhost").equals(dummyAddress));
+    assertEquals(nameResolver.getNumCacheMisses(), 0L);
+  }
+
+
+
+  /**
+   * Waits for the provided name resolver to complete the specified number of
+   * background refreshes.
+   *
+   * @param  nameResolver  The name resolver to examine.
+   * @param  count         The number of background refreshes to wait for.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static void waitForBackgroundRefreshes(
+               final CachingNameResolver nameResolver, final long count)
+          throws Exception
+  {
+    final long stopWaitingTime = System.currentTimeMillis() + 30_000L;
+    while ((nameResolver.getNumBackgroundRefreshes() +
+         nameResolver.getNumFailedBackgroundRefreshes()) < count)
+    {
+      assertTrue(System.currentTimeMillis() < stopWaitingTime,
+           "Timed out waiting for a background refresh");
+      Thread.sleep(10L);
+    }
+
+    assertEquals(nameResolver.getNumBackgroundRefreshes(), count);
+  }
 }
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.asn1.ASN1StreamReader;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.util.StaticUtils;
+
+
+
+/**
+ * This class provides a set of test cases for the
+ * {@code CoalescingMessageWriter} class.
+ */
+public final class CoalescingMessageWriterTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the behavior when a single thread writes a number of messages.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSingleThread()
+         throws Exception
+  {
+    final CountingOutputStream os = new CountingOutputStream();
+    final CoalescingMessageWriter writer = new CoalescingMessageWriter();
+
+    for (int i=0; i < 10; i++)
+    {
+      writer.write(os, new ASN1OctetString("message " + i).encode());
+      assertEquals(os.getFlushCount(), (i+1));
+    }
+
+    final ASN1StreamReader reader = new ASN1StreamReader(
+         new ByteArrayInputStream(os.toByteArray()));
+    for (int i=0; i < 10; i++)
+    {
+      assertEquals(reader.readString(), "message " + i);
+    }
+    assertNull(reader.readElement());
+  }
+
+
+
+  /**
+   * Tests the behavior when many threads concurrently write messages.  All
+   * messages must be written intact, and there should never be more flushes
+   * than messages.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConcurrentThreads()
+         throws Exception
+  {
+    final int numThreads = 20;
+    final int messagesPerThread = 200;
+
+    final CountingOutputStream os = new CountingOutputStream();
+    final CoalescingMessageWriter writer = new CoalescingMessageWriter();
+    final CountDownLatch startLatch = new CountDownLatch(1);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    final List<Thread> threads = new ArrayList<>(numThreads);
+    for (int i=0; i < numThreads; i++)
+    {
+      final int threadNumber = i;
+      final Thread t = new Thread()
+      {
+        @Override()
+        public void run()
+        {
+          try
+          {
+            startLatch.await();
+            for (int j=0; j < messagesPerThread; j++)
+            {
+              writer.write(os, new ASN1OctetString(
+                   threadNumber + "-" + j).encode());
+            }
+          }
+          catch (final Throwable e)
+          {
+            failure.compareAndSet(null, e);
+          }
+        }
+      };
+      t.start();
+      threads.add(t);
+    }
+
+    startLatch.countDown();
+    for (final Thread t : threads)
+    {
+      t.join();
+    }
+
+    assertNull(failure.get(), String.valueOf(failure.get()));
+    assertTrue(os.getFlushCount() <= (numThreads * messagesPerThread));
+
+    final int[] nextExpected = new int[numThreads];
+    final ASN1StreamReader reader = new ASN1StreamReader(
+         new ByteArrayInputStream(os.toByteArray()));
+    for (int i=0; i < (numThreads * messagesPerThread); i++)
+    {
+      final String s = reader.readString();
+      final int dashPos = s.indexOf('-');
+      final int threadNumber = Integer.parseInt(s.substring(0, dashPos));
+      final int messageNumber = Integer.parseInt(s.substring(dashPos+1));
+      assertEquals(messageNumber, nextExpected[threadNumber]);
+      nextExpected[threadNumber]++;
+    }
+    assertNull(reader.readElement());
+  }
+
+
+
+  /**
+   * Tests the behavior when the attempt to write to the output stream fails.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testWriteFailure()
+         throws Exception
+  {
+    final OutputStream os = new OutputStream()
+    {
+      @Override()
+      public void write(final int b)
+             throws IOException
+      {
+        throw new IOException("write failed");
+      }
+    };
+
+    final CoalescingMessageWriter writer = new CoalescingMessageWriter();
+    for (int i=0; i < 3; i++)
+    {
+      try
+      {
+        writer.write(os, StaticUtils.getBytes("foo"));
+        fail("Expected an exception when writing to a failing stream");
+      }
+      catch (final IOException e)
+      {
+        assertEquals(e.getMessage(), "write failed");
+      }
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior when using a connection configured to use write
+   * coalescing with many threads sending requests at the same time.
+   *
+   * @param  useSharedSelectorReaders  Indicates whether the connection should
+   *                                   also use a shared selector reader.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="testBooleans")
+  public void testConnectionWithWriteCoalescing(
+                   final boolean useSharedSelectorReaders)
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, false);
+
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUseWriteCoalescing(true);
+    options.setUseSharedSelectorReaders(useSharedSelectorReaders);
+
+    final LDAPConnection conn = new LDAPConnection(options, "127.0.0.1",
+         ds.getListenPort());
+
+    try
+    {
+      final List<AsyncRequestID> requestIDs = new ArrayList<>(500);
+      for (int i=0; i < 500; i++)
+      {
+        requestIDs.add(conn.asyncCompare(
+             new CompareRequest("dc=example,dc=com", "dc", "example"),
+             new TestAsyncListener()));
+      }
+
+      for (final AsyncRequestID requestID : requestIDs)
+      {
+        assertEquals(requestID.get().getResultCode(), ResultCode.COMPARE_TRUE);
+      }
+
+      final int numThreads = 10;
+      final CountDownLatch startLatch = new CountDownLatch(1);
+      final AtomicReference<Throwable> failure = new AtomicReference<>();
+      final List<Thread> threads = new ArrayList<>(numThreads);
+      for (int i=0; i < numThreads; i++)
+      {
+        final Thread t = new Thread()
+        {
+          @Override()
+          public void run()
+          {
+            try
+            {
+              startLatch.await();
+              for (int j=0; j < 100; j++)
+              {
+                assertNotNull(conn.getEntry("dc=example,dc=com"));
+              }
+            }
+            catch (final Throwable e)
+            {
+              failure.compareAndSet(null, e);
+            }
+          }
+        };
+        t.start();
+        threads.add(t);
+      }
+
+      startLatch.countDown();
+      for (final Thread t : threads)
+      {
+        t.join();
+      }
+
+      assertNull(failure.get(), String.valueOf(failure.get()));
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Retrieves a set of boolean values for testing.
+   *
+   * @return  A set of boolean values for testing.
+   */
+  @DataProvider(name="testBooleans")
+  public Object[][] getTestBooleans()
+  {
+    return new Object[][]
+    {
+      new Object[] { false },
+      new Object[] { true }
+    };
+  }
+
+
+
+  /**
+   * An output stream that keeps track of the number of times it is flushed.
+   */
+  private static final class CountingOutputStream
+          extends ByteArrayOutputStream
+  {
+    // The number of times the stream has been flushed.
+    private final AtomicInteger flushCount = new AtomicInteger(0);
+
+
+
+    /**
+     * Increments the flush count.
+     */
+    @Override()
+    public void flush()
+    {
+      flushCount.incrementAndGet();
+    }
+
+
+
+    /**
+     * Retrieves the number of times the stream has been flushed.
+     *
+     * @return  The number of times the stream has been flushed.
+     */
+    int getFlushCount()
+    {
+      return flushCount.get();
+    }
+  }
+}
@@ -267,4 +267,75 @@ public final class DNSSRVRecordServerSetTestCase
     ds1.shutDown(true);
     ds2.shutDown(true);
   }
+
+
+
+  /**
+   * Tests the behavior of a server set that is configured to continue using
+   * expired SRV records while they are retrieved again in the background.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testStaleWhileRevalidate()
+         throws Exception
+  {
+    final InMemoryDirectoryServerConfig cfg =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    final InMemoryDirectoryServer ds = new InMemoryDirectoryServer(cfg);
+    ds.startListening();
+    final int port = ds.getListenPort();
+
+
+    // The test DNS server will only respond to a single request, so any
+    // background refresh will fail, and the stale records should continue to
+    // be used.
+    final TestDNSSRVRecordServer dnsServer =
+         new TestDNSSRVRecordServer(port, port);
+    dnsServer.start();
+    final int dnsPort = dnsServer.getListenPort();
+
+    final Properties jndiProperties = new Properties();
+    jndiProperties.setProperty("com.sun.jndi.dns.timeout.initial", "100");
+    jndiProperties.setProperty("com.sun.jndi.dns.timeout.retries", "1");
+
+    final DNSSRVRecordServerSet serverSet = new DNSSRVRecordServerSet(
+         "_ldap._tcp.example.com", "dns://localhost:" + dnsPort,
+         jndiProperties, 1L, 0L, 3_600_000L, null, null, null, null);
+    assertEquals(serverSet.getTTLMillis(), 1L);
+    assertEquals(serverSet.getRefreshAheadMillis(), 0L);
+    assertEquals(serverSet.getMaxStalenessMillis(), 3_600_000L);
+    assertNotNull(serverSet.toString());
+
+    LDAPConnection conn = serverSet.getConnection();
+    conn.close();
+    assertEquals(serverSet.getNumCacheMisses(), 1L);
+    assertEquals(serverSet.getNumStaleCacheHits(), 0L);
+
+    Thread.sleep(10L);
+    conn = serverSet.getConnection();
+    conn.close();
+    assertEquals(serverSet.getNumCacheMisses(), 1L);
+    assertEquals(serverSet.getNumStaleCacheHits(), 1L);
+
+    final long stopWaitingTime = System.currentTimeMillis() + 30_000L;
+    while (serverSet.getNumFailedBackgroundRefreshes() == 0L)
+    {
+      assertTrue(System.currentTimeMillis() < stopWaitingTime,
+           "Timed out waiting for a background refresh");
+      Thread.sleep(10L);
+    }
+
+    assertEquals(serverSet.getNumBackgroundRefreshes(), 0L);
+    assertEquals(serverSet.getMaxBackgroundRefreshDurationMillis(), 0.0d);
+    assertEquals(serverSet.getAverageBackgroundRefreshDurationMillis(), 0.0d);
+
+    conn = serverSet.getConnection();
+    conn.close();
+    assertEquals(serverSet.getNumCacheMisses(), 1L);
+    assertEquals(serverSet.getNumStaleCacheHits(), 2L);
+    assertEquals(serverSet.getNumCacheHits(), 0L);
+
+    ds.shutDown(true);
+  }
 }
@@ -46,6 +46,7 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.util.ObjectPair;
 
 
 
@@ -687,4 +688,64 @@ public final class FewestConnectionsServerSetTestCase
            "' or ds2 port of '" + ds2.getListenPort() + "'.");
     }
   }
+
+
+
+  /**
+   * Tests the behavior when all of the servers are blacklisted and another
+   * thread already holds the probe permit for each of them, so that no
+   * connection attempt can be made.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testAllBlacklistedServersBeingProbed()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds =
+         new InMemoryDirectoryServer("dc=example,dc=com");
+    ds.startListening();
+    final int port = ds.getListenPort();
+    ds.shutDown(true);
+
+    final FewestConnectionsServerSet serverSet = new FewestConnectionsServerSet(
+         new String[] { "localhost" }, new int[] { port });
+    final ServerSetBlacklistManager blacklistManager =
+         serverSet.getBlacklistManager();
+    assertNotNull(blacklistManager);
+
+    final ObjectPair<String,Integer> hostPort =
+         new ObjectPair<>("localhost", port);
+    try
+    {
+      blacklistManager.addToBlacklist(hostPort, null);
+      assertTrue(blacklistManager.tryAcquireProbePermit(hostPort));
+
+      try
+      {
+        serverSet.getConnection();
+        fail("Expected an exception when all servers are being probed");
+      }
+      catch (final LDAPException le)
+      {
+        assertEquals(le.getResultCode(), ResultCode.CONNECT_ERROR);
+      }
+
+      // Once the permit is released, the server should be tried again.
+      blacklistManager.probeFailed(hostPort, null);
+      try
+      {
+        serverSet.getConnection();
+        fail("Expected an exception when the server is down");
+      }
+      catch (final LDAPException le)
+      {
+        assertEquals(le.getResultCode(), ResultCode.CONNECT_ERROR);
+      }
+    }
+    finally
+    {
+      serverSet.shutDown();
+    }
+  }
 }
@@ -0,0 +1,457 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.interceptor.
+            InMemoryInterceptedSearchRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+
+
+
+/**
+ * This class provides a set of test cases for the hashed-wheel timer.
+ */
+public class HashedWheelTimerTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the shared timer instance.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSharedInstance()
+         throws Exception
+  {
+    final HashedWheelTimer timer = HashedWheelTimer.getInstance();
+    assertNotNull(timer);
+    assertSame(HashedWheelTimer.getInstance(), timer);
+    assertEquals(timer.getTickMillis(), HashedWheelTimer.DEFAULT_TICK_MILLIS);
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    final HashedWheelTimer.Timeout timeout =
+         timer.newTimeout(new LatchTask(latch), 10L);
+    assertTrue(latch.await(10L, TimeUnit.SECONDS));
+    assertTrue(timeout.isExpired());
+    assertFalse(timeout.isCancelled());
+  }
+
+
+
+  /**
+   * Tests that a timeout expires, and that it does not expire before the
+   * requested delay.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testTimeoutExpires()
+         throws Exception
+  {
+    final HashedWheelTimer timer = new HashedWheelTimer("Test Timer", 5L);
+    assertFalse(timer.isWorkerRunning());
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    final long startTime = System.nanoTime();
+    final HashedWheelTimer.Timeout timeout =
+         timer.newTimeout(new LatchTask(latch), 50L);
+    assertTrue(timer.isWorkerRunning());
+    assertFalse(timeout.isExpired());
+
+    assertTrue(latch.await(10L, TimeUnit.SECONDS));
+    assertTrue((System.nanoTime() - startTime) >=
+         TimeUnit.MILLISECONDS.toNanos(50L));
+    assertTrue(timeout.isExpired());
+    assertFalse(timeout.cancel());
+
+    waitForIdle(timer);
+  }
+
+
+
+  /**
+   * Tests that a timeout with a delay longer than a full revolution of the
+   * wheel expires at the right time.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testTimeoutLongerThanWheel()
+         throws Exception
+  {
+    final HashedWheelTimer timer = new HashedWheelTimer("Test Timer", 1L);
+    final long delayMillis = HashedWheelTimer.WHEEL_SIZE + 200L;
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    final long startTime = System.nanoTime();
+    timer.newTimeout(new LatchTask(latch), delayMillis);
+
+    assertTrue(latch.await(10L, TimeUnit.SECONDS));
+    assertTrue((System.nanoTime() - startTime) >=
+         TimeUnit.MILLISECONDS.toNanos(delayMillis));
+
+    waitForIdle(timer);
+  }
+
+
+
+  /**
+   * Tests that a cancelled timeout does not expire.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testCancel()
+         throws Exception
+  {
+    final HashedWheelTimer timer = new HashedWheelTimer("Test Timer", 5L);
+
+    final AtomicInteger counter = new AtomicInteger(0);
+    final HashedWheelTimer.Timeout timeout =
+         timer.newTimeout(new CountingTask(counter), 50L);
+    assertTrue(timeout.cancel());
+    assertTrue(timeout.isCancelled());
+    assertFalse(timeout.cancel());
+
+    waitForIdle(timer);
+    Thread.sleep(100L);
+    assertEquals(counter.get(), 0);
+    assertFalse(timeout.isExpired());
+  }
+
+
+
+  /**
+   * Tests to ensure that closing a connection cancels the timeouts for any of
+   * its asynchronous operations that are still outstanding, and that the
+   * timeouts for completed operations are no longer tracked.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConnectionCloseCancelsAsyncTimeouts()
+         throws Exception
+  {
+    final CountDownLatch releaseLatch = new CountDownLatch(1);
+    final InMemoryDirectoryServerConfig config =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    config.addInMemoryOperationInterceptor(new InMemoryOperationInterceptor()
+    {
+      @Override()
+      public void processSearchRequest(
+                       final InMemoryInterceptedSearchRequest request)
+      {
+        if (request.getRequest().getFilter().equals(
+             Filter.createPresenceFilter("description")))
+        {
+          try
+          {
+            releaseLatch.await(30L, TimeUnit.SECONDS);
+          }
+          catch (final InterruptedException e)
+          {
+            // Ignore this.
+          }
+        }
+      }
+    });
+
+    final InMemoryDirectoryServer ds = new InMemoryDirectoryServer(config);
+    ds.add(generateDomainEntry("example", "dc=com"));
+    ds.startListening();
+
+    try
+    {
+      final LDAPConnection conn = ds.getConnection();
+
+      // A completed operation should not leave its timeout behind.
+      final TestAsyncListener listener = new TestAsyncListener();
+      final SearchRequest completedRequest = new SearchRequest(listener,
+           "dc=example,dc=com", SearchScope.BASE, "(objectClass=*)");
+      completedRequest.setResponseTimeoutMillis(60_000L);
+      conn.asyncSearch(completedRequest).get(30L, TimeUnit.SECONDS);
+      assertEquals(conn.getNumAsyncTimeoutsScheduled(), 0);
+
+      // An outstanding operation should have its timeout cancelled when the
+      // connection is closed.
+      final SearchRequest blockedRequest = new SearchRequest(
+           new TestAsyncListener(), "dc=example,dc=com", SearchScope.BASE,
+           "(description=*)");
+      blockedRequest.setResponseTimeoutMillis(60_000L);
+      conn.asyncSearch(blockedRequest);
+      assertEquals(conn.getNumAsyncTimeoutsScheduled(), 1);
+
+      conn.close();
+      assertEquals(conn.getNumAsyncTimeoutsScheduled(), 0);
+    }
+    finally
+    {
+      releaseLatch.countDown();
+      ds.shutDown(true);
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior with a large number of timeouts, half of which are
+   * cancelled.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testManyTimeouts()
+         throws Exception
+  {
+    final HashedWheelTimer timer = new HashedWheelTimer("Test Timer", 1L);
+
+    final AtomicInteger counter = new AtomicInteger(0);
+    final List<HashedWheelTimer.Timeout> timeouts = new ArrayList<>(10_000);
+    for (int i=0; i < 10_000; i++)
+    {
+      timeouts.add(timer.newTimeout(new CountingTask(counter), (i % 200)));
+    }
+
+    int numCancelled = 0;
+    for (int i=0; i < timeouts.size(); i += 2)
+    {
+      if (timeouts.get(i).cancel())
+      {
+        numCancelled++;
+      }
+    }
+
+    waitForIdle(timer);
+
+    // Expired tasks are invoked asynchronously, so wait for all of them.
+    final long stopWaitingTime = System.currentTimeMillis() + 10_000L;
+    while ((counter.get() < (10_000 - numCancelled)) &&
+         (System.currentTimeMillis() < stopWaitingTime))
+    {
+      Thread.sleep(1L);
+    }
+
+    Thread.sleep(50L);
+    assertEquals(counter.get(), (10_000 - numCancelled));
+
+    for (final HashedWheelTimer.Timeout t : timeouts)
+    {
+      assertTrue(t.isExpired() != t.isCancelled());
+    }
+
+    // Make sure that the timer can be used again after its worker has exited.
+    final CountDownLatch latch = new CountDownLatch(1);
+    timer.newTimeout(new LatchTask(latch), 1L);
+    assertTrue(latch.await(10L, TimeUnit.SECONDS));
+    waitForIdle(timer);
+  }
+
+
+
+  /**
+   * Tests that a burst of expired tasks that block does not cause the timer to
+   * use more than a fixed number of threads to invoke them.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testBlockingTasksUseBoundedThreads()
+         throws Exception
+  {
+    final HashedWheelTimer timer = new HashedWheelTimer("Test Timer", 1L);
+
+    final int numTasks = HashedWheelTimer.MAX_TASK_THREADS * 5;
+    final CountDownLatch releaseLatch = new CountDownLatch(1);
+    final CountDownLatch completedLatch = new CountDownLatch(numTasks);
+    final AtomicInteger running = new AtomicInteger(0);
+    final AtomicInteger maxRunning = new AtomicInteger(0);
+    for (int i=0; i < numTasks; i++)
+    {
+      timer.newTimeout(new Runnable()
+      {
+        @Override()
+        public void run()
+        {
+          final int r = running.incrementAndGet();
+          while (true)
+          {
+            final int max = maxRunning.get();
+            if ((r <= max) || maxRunning.compareAndSet(max, r))
+            {
+              break;
+            }
+          }
+
+          try
+          {
+            releaseLatch.await(10L, TimeUnit.SECONDS);
+          }
+          catch (final InterruptedException e)
+          {
+            // Ignore this.
+          }
+
+          running.decrementAndGet();
+          completedLatch.countDown();
+        }
+      }, 1L);
+    }
+
+    final long stopWaitingTime = System.currentTimeMillis() + 10_000L;
+    while ((maxRunning.get() < HashedWheelTimer.MAX_TASK_THREADS) &&
+         (System.currentTimeMillis() < stopWaitingTime))
+    {
+      Thread.sleep(1L);
+    }
+
+    Thread.sleep(100L);
+    assertEquals(maxRunning.get(), HashedWheelTimer.MAX_TASK_THREADS);
+
+    releaseLatch.countDown();
+    assertTrue(completedLatch.await(10L, TimeUnit.SECONDS));
+    waitForIdle(timer);
+  }
+
+
+
+  /**
+   * Waits for the provided timer to have no active timeouts and for its worker
+   * thread to exit.
+   *
+   * @param  timer  The timer for which to wait.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static void waitForIdle(final HashedWheelTimer timer)
+          throws Exception
+  {
+    final long stopWaitingTime = System.currentTimeMillis() + 10_000L;
+    while (System.currentTimeMillis() < stopWaitingTime)
+    {
+      if ((timer.getActiveTimeoutCount() == 0) && (! timer.isWorkerRunning()))
+      {
+        return;
+      }
+
+      Thread.sleep(1L);
+    }
+
+    fail("The timer did not become idle.  Active timeouts:  " +
+         timer.getActiveTimeoutCount());
+  }
+
+
+
+  /**
+   * A task that counts down a latch when it is invoked.
+   */
+  private static final class LatchTask
+          implements Runnable
+  {
+    // The latch to count down.
+    private final CountDownLatch latch;
+
+
+
+    /**
+     * Creates a new instance of this task.
+     *
+     * @param  latch  The latch to count down.
+     */
+    private LatchTask(final CountDownLatch latch)
+    {
+      this.latch = latch;
+    }
+
+
+
+    /**
+     * Counts down the latch.
+     */
+    @Override()
+    public void run()
+    {
+      latch.countDown();
+    }
+  }
+
+
+
+  /**
+   * A task that increments a counter when it is invoked.
+   */
+  private static final class CountingTask
+          implements Runnable
+  {
+    // The counter to increment.
+    private final AtomicInteger counter;
+
+
+
+    /**
+     * Creates a new instance of this task.
+     *
+     * @param  counter  The counter to increment.
+     */
+    private CountingTask(final AtomicInteger counter)
+    {
+      this.counter = counter;
+    }
+
+
+
+    /**
+     * Increments the counter.
+     */
+    @Override()
+    public void run()
+    {
+      counter.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,639 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.concurrent.CompletionException;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.interceptor.
+            InMemoryInterceptedCompareRequest;
+import com.unboundid.ldap.listener.interceptor.
+            InMemoryInterceptedSearchRequest;
+import com.unboundid.ldap.listener.interceptor.
+            InMemoryInterceptedSimpleBindRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import com.unboundid.util.LDAPSDKUsageException;
+
+
+
+/**
+ * This class provides a set of test cases for hedged operations processed
+ * through an LDAP connection pool.
+ */
+public final class HedgedRequestProcessorTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * The length of time in milliseconds that the slow server will delay its
+   * responses.
+   */
+  private static final long SLOW_RESPONSE_DELAY_MILLIS = 1_000L;
+
+
+
+  // A directory server instance that responds quickly.
+  private InMemoryDirectoryServer fastDS = null;
+
+  // A directory server instance that delays its responses.
+  private InMemoryDirectoryServer slowDS = null;
+
+
+
+  /**
+   * Prepares a couple of directory server instances to use in the testing.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @BeforeClass()
+  public void setUp()
+       throws Exception
+  {
+    final InMemoryDirectoryServerConfig fastConfig =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    fastConfig.addAdditionalBindCredentials("cn=Directory Manager",
+         "password");
+    fastDS = new InMemoryDirectoryServer(fastConfig);
+    fastDS.add(generateDomainEntry("example", "dc=com"));
+    fastDS.startListening();
+
+    final InMemoryDirectoryServerConfig slowConfig =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    slowConfig.addAdditionalBindCredentials("cn=Directory Manager",
+         "password");
+    slowConfig.addInMemoryOperationInterceptor(
+         new InMemoryOperationInterceptor()
+         {
+           @Override()
+           public void processSimpleBindRequest(
+                            final InMemoryInterceptedSimpleBindRequest request)
+           {
+             delay();
+           }
+
+           @Override()
+           public void processCompareRequest(
+                            final InMemoryInterceptedCompareRequest request)
+           {
+             delay();
+           }
+
+           @Override()
+           public void processSearchRequest(
+                            final InMemoryInterceptedSearchRequest request)
+           {
+             delay();
+           }
+         });
+    slowDS = new InMemoryDirectoryServer(slowConfig);
+    slowDS.add(generateDomainEntry("example", "dc=com"));
+    slowDS.startListening();
+  }
+
+
+
+  /**
+   * Cleans up after testing has completed.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @AfterClass()
+  public void cleanUp()
+       throws Exception
+  {
+    fastDS.shutDown(true);
+    slowDS.shutDown(true);
+  }
+
+
+
+  /**
+   * Sleeps for the slow response delay.
+   */
+  private static void delay()
+  {
+    try
+    {
+      Thread.sleep(SLOW_RESPONSE_DELAY_MILLIS);
+    }
+    catch (final InterruptedException e)
+    {
+      // Ignore this.
+    }
+  }
+
+
+
+  /**
+   * Creates a connection pool with one connection to the slow server and one
+   * connection to the fast server.
+   *
+   * @return  The connection pool that was created.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  private LDAPConnectionPool createPool()
+          throws Exception
+  {
+    final RoundRobinServerSet serverSet = new RoundRobinServerSet(
+         new String[] { "localhost", "localhost" },
+         new int[] { slowDS.getListenPort(), fastDS.getListenPort() });
+    final LDAPConnectionPool pool =
+         new LDAPConnectionPool(serverSet, null, 2, 2);
+    pool.setMinimumHedgeDelayMillis(50L);
+    return pool;
+  }
+
+
+
+  /**
+   * Tests the methods used to get and set the hedge delay.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test()
+  public void testHedgeDelaySettings()
+       throws Exception
+  {
+    final LDAPConnectionPool pool = fastDS.getConnectionPool(1);
+    try
+    {
+      assertEquals(pool.getHedgeDelayPercentile(),
+           HedgedRequestProcessor.DEFAULT_HEDGE_DELAY_PERCENTILE);
+      assertEquals(pool.getMinimumHedgeDelayMillis(),
+           HedgedRequestProcessor.DEFAULT_MINIMUM_HEDGE_DELAY_MILLIS);
+
+      pool.setHedgeDelayPercentile(99.9d);
+      assertEquals(pool.getHedgeDelayPercentile(), 99.9d);
+
+      pool.setHedgeDelayPercentile(100.0d);
+      assertEquals(pool.getHedgeDelayPercentile(), 100.0d);
+
+      try
+      {
+        pool.setHedgeDelayPercentile(0.0d);
+        fail("Expected an exception for a zero percentile");
+      }
+      catch (final LDAPSDKUsageException e)
+      {
+        // This was expected.
+      }
+
+      try
+      {
+        pool.setHedgeDelayPercentile(100.1d);
+        fail("Expected an exception for a percentile above 100");
+      }
+      catch (final LDAPSDKUsageException e)
+      {
+        // This was expected.
+      }
+
+      assertEquals(pool.getHedgeDelayPercentile(), 100.0d);
+
+      pool.setMinimumHedgeDelayMillis(1234L);
+      assertEquals(pool.getMinimumHedgeDelayMillis(), 1234L);
+
+      pool.setMinimumHedgeDelayMillis(-1L);
+      assertEquals(pool.getMinimumHedgeDelayMillis(), 0L);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests the way that the hedge delay is computed from the response times
+   * recorded in the pool statistics.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test()
+  public void testHedgeDelayComputation()
+       throws Exception
+  {
+    final LDAPConnectionPool pool = fastDS.getConnectionPool(1);
+    try
+    {
+      final HedgedRequestProcessor processor =
+           new HedgedRequestProcessor(pool);
+      processor.setMinimumHedgeDelayMillis(5_000L);
+
+      // Without enough response times, the minimum delay should be used.
+      assertEquals(processor.getHedgeDelayNanos(OperationType.SEARCH),
+           5_000_000_000L);
+
+      for (int i=0;
+           i < HedgedRequestProcessor.MINIMUM_RESPONSE_TIMES_FOR_PERCENTILE;
+           i++)
+      {
+        assertNotNull(pool.getEntry("dc=example,dc=com"));
+      }
+
+      // The recorded response times will all be well under the minimum, so
+      // the minimum should still be used.
+      processor.setMinimumHedgeDelayMillis(5_000L);
+      assertEquals(processor.getHedgeDelayNanos(OperationType.SEARCH),
+           5_000_000_000L);
+
+      // With no minimum, the percentile should be used.
+      processor.setMinimumHedgeDelayMillis(0L);
+      final long delayNanos =
+           processor.getHedgeDelayNanos(OperationType.SEARCH);
+      assertTrue(delayNanos > 0L);
+      assertTrue(delayNanos < 5_000_000_000L);
+
+      // Compare operations have no response times, so they should use the
+      // minimum.
+      assertEquals(processor.getHedgeDelayNanos(OperationType.COMPARE), 0L);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests the method used to determine whether the outcome of a request
+   * completes a hedged operation.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test()
+  public void testCompletesOperation()
+       throws Exception
+  {
+    assertTrue(HedgedRequestProcessor.completesOperation(null));
+
+    assertTrue(HedgedRequestProcessor.completesOperation(
+         new LDAPException(ResultCode.NO_SUCH_OBJECT)));
+    assertTrue(HedgedRequestProcessor.completesOperation(
+         new CompletionException(
+              new LDAPException(ResultCode.INVALID_CREDENTIALS))));
+
+    assertFalse(HedgedRequestProcessor.completesOperation(
+         new LDAPException(ResultCode.SERVER_DOWN)));
+    assertFalse(HedgedRequestProcessor.completesOperation(
+         new CompletionException(
+              new LDAPException(ResultCode.TIMEOUT))));
+    assertFalse(HedgedRequestProcessor.completesOperation(
+         new RuntimeException()));
+  }
+
+
+
+  /**
+   * Tests hedged search operations when one of the servers is slow.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test()
+  public void testHedgedSearch()
+       throws Exception
+  {
+    final LDAPConnectionPool pool = createPool();
+    try
+    {
+      // Each search should complete well before the slow server would have
+      // returned a response, regardless of which connection is used first.
+      for (int i=0; i < 4; i++)
+      {
+        final long startTime = System.currentTimeMillis();
+        final SearchResult searchResult = pool.hedgedSearch(
+             new SearchRequest("dc=example,dc=com", SearchScope.BASE,
+                  "(objectClass=*)"));
+        final long elapsedTime = System.currentTimeMillis() - startTime;
+
+        assertResultCodeEquals(searchResult, ResultCode.SUCCESS);
+        assertEquals(searchResult.getEntryCount(), 1);
+        assertTrue(elapsedTime < SLOW_RESPONSE_DELAY_MILLIS,
+             "Hedged search took " + elapsedTime + "ms");
+      }
+
+      final LDAPConnectionPoolStatistics stats =
+           pool.getConnectionPoolStatistics();
+      assertTrue(stats.getNumHedgedRequests() > 0L);
+      assertTrue(stats.getNumHedgedRequestsWon() > 0L);
+      assertTrue(stats.getNumHedgedRequestsWon() <=
+           stats.getNumHedgedRequests());
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests hedged search operations using requests created from a template, to
+   * ensure that the hedged requests include the values used in place of the
+   * placeholders.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test()
+  public void testHedgedTemplatedSearch()
+       throws Exception
+  {
+    final LDAPRequestTemplate template = new LDAPRequestTemplate(
+         new SearchRequest("dc={dc},dc=com", SearchScope.BASE,
+              "(objectClass={oc})"),
+         "{dc}", "{oc}");
+
+    final LDAPConnectionPool pool = createPool();
+    try
+    {
+      for (int i=0; i < 4; i++)
+      {
+        final long startTime = System.currentTimeMillis();
+        final SearchResult searchResult = pool.hedgedSearch(
+             (SearchRequest) template.createRequest("example", "domain"));
+        final long elapsedTime = System.currentTimeMillis() - startTime;
+
+        assertResultCodeEquals(searchResult, ResultCode.SUCCESS);
+        assertEquals(searchResult.getEntryCount(), 1);
+        assertTrue(elapsedTime < SLOW_RESPONSE_DELAY_MILLIS,
+             "Hedged search took " + elapsedTime + "ms");
+      }
+
+      assertTrue(pool.getConnectionPoolStatistics().getNumHedgedRequests() >
+           0L);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests a hedged search operation that returns an authoritative error.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test()
+  public void testHedgedSearchNoSuchObject()
+       throws Exception
+  {
+    final LDAPConnectionPool pool = fastDS.getConnectionPool(2);
+    try
+    {
+      pool.hedgedSearch(new SearchRequest("ou=missing,dc=example,dc=com",
+           SearchScope.BASE, "(objectClass=*)"));
+      fail("Expected an exception for a missing search base");
+    }
+    catch (final LDAPSearchException lse)
+    {
+      assertResultCodeEquals(lse, ResultCode.NO_SUCH_OBJECT);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests a hedged search that uses a search result listener, which should
+   * not be hedged.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test()
+  public void testHedgedSearchWithListener()
+       throws Exception
+  {
+    final LDAPConnectionPool pool = fastDS.getConnectionPool(2);
+    try
+    {
+      final TestSearchResultListener listener =
+           new TestSearchResultListener();
+      final SearchResult searchResult = pool.hedgedSearch(new SearchRequest(
+           listener, "dc=example,dc=com", SearchScope.BASE,
+           "(objectClass=*)"));
+      assertResultCodeEquals(searchResult, ResultCode.SUCCESS);
+      assertEquals(listener.getNumEntries(), 1);
+      assertEquals(
+           pool.getConnectionPoolStatistics().getNumHedgedRequests(), 0L);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests hedged compare operations when one of the servers is slow.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test()
+  public void testHedgedCompare()
+       throws Exception
+  {
+    final LDAPConnectionPool pool = createPool();
+    try
+    {
+      for (int i=0; i < 4; i++)
+      {
+        final long startTime = System.currentTimeMillis();
+        final CompareResult compareResult = pool.hedgedCompare(
+             new CompareRequest("dc=example,dc=com", "dc", "example"));
+        final long elapsedTime = System.currentTimeMillis() - startTime;
+
+        assertTrue(compareResult.compareMatched());
+        assertTrue(elapsedTime < SLOW_RESPONSE_DELAY_MILLIS,
+             "Hedged compare took " + elapsedTime + "ms");
+      }
+
+      assertTrue(
+           pool.getConnectionPoolStatistics().getNumHedgedRequestsWon() > 0L);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests hedged bind operations when one of the servers is slow.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test()
+  public void testHedgedBind()
+       throws Exception
+  {
+    final LDAPConnectionPool pool = createPool();
+    try
+    {
+      for (int i=0; i < 2; i++)
+      {
+        final BindResult bindResult = pool.hedgedBind(
+             new SimpleBindRequest("cn=Directory Manager", "password"));
+        assertResultCodeEquals(bindResult, ResultCode.SUCCESS);
+      }
+
+      try
+      {
+        pool.hedgedBind(
+             new SimpleBindRequest("cn=Directory Manager", "wrong"));
+        fail("Expected an exception for a bind with the wrong password");
+      }
+      catch (final LDAPException le)
+      {
+        assertResultCodeEquals(le, ResultCode.INVALID_CREDENTIALS);
+      }
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests hedged operations for a pool with connections to a single server,
+   * in which case the hedged request should be sent on a different connection
+   * to the same server.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test()
+  public void testHedgedSearchSingleServer()
+       throws Exception
+  {
+    final LDAPConnectionPool pool =
+         slowDS.getConnectionPool(null, null, 2, 2);
+    try
+    {
+      pool.setMinimumHedgeDelayMillis(50L);
+
+      final SearchResult searchResult = pool.hedgedSearch(new SearchRequest(
+           "dc=example,dc=com", SearchScope.BASE, "(objectClass=*)"));
+      assertResultCodeEquals(searchResult, ResultCode.SUCCESS);
+      assertEquals(searchResult.getEntryCount(), 1);
+      assertEquals(
+           pool.getConnectionPoolStatistics().getNumHedgedRequests(), 1L);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests hedged search operations for a pool whose connections operate in
+   * synchronous mode.  Those operations cannot be abandoned, so the connection
+   * used for the losing request must not be released back to the pool until
+   * that request has actually completed.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test()
+  public void testHedgedSearchSynchronousMode()
+       throws Exception
+  {
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUseSynchronousMode(true);
+
+    final RoundRobinServerSet serverSet = new RoundRobinServerSet(
+         new String[] { "localhost", "localhost" },
+         new int[] { slowDS.getListenPort(), fastDS.getListenPort() },
+         options);
+    final LDAPConnectionPool pool =
+         new LDAPConnectionPool(serverSet, null, 2, 2);
+    try
+    {
+      pool.setMinimumHedgeDelayMillis(50L);
+
+      final LDAPConnectionPoolStatistics stats =
+           pool.getConnectionPoolStatistics();
+      for (int i=0; i < 4; i++)
+      {
+        final long numHedgedRequests = stats.getNumHedgedRequests();
+        final SearchResult searchResult = pool.hedgedSearch(
+             new SearchRequest("dc=example,dc=com", SearchScope.BASE,
+                  "(objectClass=*)"));
+        assertResultCodeEquals(searchResult, ResultCode.SUCCESS);
+        assertEquals(searchResult.getEntryCount(), 1);
+
+        if (stats.getNumHedgedRequests() > numHedgedRequests)
+        {
+          // The original request is still in progress on the slow server, so
+          // only the connection used for the hedged request should have been
+          // released.
+          assertEquals(pool.getCurrentAvailableConnections(), 1);
+
+          final long stopWaitingTime = System.currentTimeMillis() + 30_000L;
+          while ((pool.getCurrentAvailableConnections() < 2) &&
+               (System.currentTimeMillis() < stopWaitingTime))
+          {
+            Thread.sleep(10L);
+          }
+          assertEquals(pool.getCurrentAvailableConnections(), 2);
+        }
+      }
+
+      assertTrue(stats.getNumHedgedRequests() > 0L);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+}
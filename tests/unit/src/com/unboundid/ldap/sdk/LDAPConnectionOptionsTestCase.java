@@ -40,6 +40,7 @@ package com.unboundid.ldap.sdk;
 import java.io.File;
 import java.net.InetAddress;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 import javax.net.ssl.SSLSocketFactory;
 
 import org.testng.annotations.Test;
@@ -108,6 +109,13 @@ public class LDAPConnectionOptionsTestCase
     assertEquals(opts.getLingerTimeoutSeconds(), 5);
     assertTrue(opts.useReuseAddress());
     assertFalse(opts.useSynchronousMode());
+    assertFalse(opts.useSharedSelectorReaders());
+    assertFalse(opts.useVirtualThreads());
+    assertFalse(opts.useWriteCoalescing());
+    assertFalse(opts.usePoolConnectionAffinity());
+    assertFalse(opts.useLazySearchEntryDecoding());
+    assertSame(opts.getCompletionExecutor(),
+         AsyncCompletionHelper.getDefaultCompletionExecutor());
     assertTrue(opts.useTCPNoDelay());
     assertEquals(opts.getConnectTimeoutMillis(), 10_000L);
     assertEquals(opts.getResponseTimeoutMillis(), 300_000L);
@@ -208,6 +216,12 @@ public class LDAPConnectionOptionsTestCase
     opts.setReceiveBufferSize(1234);
     opts.setSendBufferSize(1234);
     opts.setUseSynchronousMode(true);
+    opts.setUseSharedSelectorReaders(true);
+    opts.setUseVirtualThreads(true);
+    opts.setUseWriteCoalescing(true);
+    opts.setUsePoolConnectionAffinity(true);
+    opts.setUseLazySearchEntryDecoding(true);
+    opts.setCompletionExecutor(new ForkJoinPool(1));
     opts.setUseSchema(true);
     opts.setAllowConcurrentSocketFactoryUse(false);
     opts.setSSLSocketVerifier(new HostNameSSLSocketVerifier(true));
@@ -239,6 +253,15 @@ public class LDAPConnectionOptionsTestCase
     assertEquals(dup.getReceiveBufferSize(), 1234);
     assertEquals(dup.getSendBufferSize(), 1234);
     assertEquals(dup.useSynchronousMode(), opts.useSynchronousMode());
+    assertEquals(dup.useSharedSelectorReaders(),
+         opts.useSharedSelectorReaders());
+    assertEquals(dup.useVirtualThreads(), opts.useVirtualThreads());
+    assertEquals(dup.useWriteCoalescing(), opts.useWriteCoalescing());
+    assertEquals(dup.usePoolConnectionAffinity(),
+         opts.usePoolConnectionAffinity());
+    assertEquals(dup.useLazySearchEntryDecoding(),
+         opts.useLazySearchEntryDecoding());
+    assertSame(dup.getCompletionExecutor(), opts.getCompletionExecutor());
     assertEquals(dup.useSchema(), opts.useSchema());
     assertEquals(dup.usePooledSchema(), opts.usePooledSchema());
     assertEquals(dup.allowConcurrentSocketFactoryUse(),
@@ -1013,6 +1036,191 @@ public class LDAPConnectionOptionsTestCase
 
 
 
+  /**
+   * Tests the ability to get and set the flag that controls whether to use
+   * shared selector reader threads.
+   */
+  @Test()
+  public void testUseSharedSelectorReaders()
+  {
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+
+    assertFalse(opts.useSharedSelectorReaders());
+    assertNotNull(opts.toString());
+
+    opts.setUseSharedSelectorReaders(true);
+    assertTrue(opts.useSharedSelectorReaders());
+    assertTrue(opts.toString().contains("useSharedSelectorReaders=true"));
+
+    opts.setUseSharedSelectorReaders(false);
+    assertFalse(opts.useSharedSelectorReaders());
+    assertNotNull(opts.toString());
+  }
+
+
+
+  /**
+   * Tests the ability to get and set the flag that controls whether to use
+   * virtual threads.
+   */
+  @Test()
+  public void testUseVirtualThreads()
+  {
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+
+    assertFalse(opts.useVirtualThreads());
+    assertNotNull(opts.toString());
+
+    opts.setUseVirtualThreads(true);
+    assertTrue(opts.useVirtualThreads());
+    assertTrue(opts.toString().contains("useVirtualThreads=true"));
+
+    opts.setUseVirtualThreads(false);
+    assertFalse(opts.useVirtualThreads());
+    assertNotNull(opts.toString());
+  }
+
+
+
+  /**
+   * Tests the ability to get and set the flag that controls whether to use
+   * write coalescing.
+   */
+  @Test()
+  public void testUseWriteCoalescing()
+  {
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+
+    assertFalse(opts.useWriteCoalescing());
+    assertNotNull(opts.toString());
+
+    opts.setUseWriteCoalescing(true);
+    assertTrue(opts.useWriteCoalescing());
+    assertTrue(opts.toString().contains("useWriteCoalescing=true"));
+
+    opts.setUseWriteCoalescing(false);
+    assertFalse(opts.useWriteCoalescing());
+    assertNotNull(opts.toString());
+  }
+
+
+
+  /**
+   * Tests the ability to get and set the flag that controls whether connection
+   * pools should prefer to reuse recently released connections.
+   */
+  @Test()
+  public void testUsePoolConnectionAffinity()
+  {
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+
+    assertFalse(opts.usePoolConnectionAffinity());
+    assertNotNull(opts.toString());
+
+    opts.setUsePoolConnectionAffinity(true);
+    assertTrue(opts.usePoolConnectionAffinity());
+    assertTrue(opts.toString().contains("usePoolConnectionAffinity=true"));
+
+    opts.setUsePoolConnectionAffinity(false);
+    assertFalse(opts.usePoolConnectionAffinity());
+    assertNotNull(opts.toString());
+  }
+
+
+
+  /**
+   * Tests the ability to get and set the flag that controls whether to lazily
+   * decode search result entries.
+   */
+  @Test()
+  public void testUseLazySearchEntryDecoding()
+  {
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+
+    assertFalse(opts.useLazySearchEntryDecoding());
+    assertNotNull(opts.toString());
+
+    opts.setUseLazySearchEntryDecoding(true);
+    assertTrue(opts.useLazySearchEntryDecoding());
+    assertTrue(opts.toString().contains("useLazySearchEntryDecoding=true"));
+
+    opts.setUseLazySearchEntryDecoding(false);
+    assertFalse(opts.useLazySearchEntryDecoding());
+    assertNotNull(opts.toString());
+  }
+
+
+
+  /**
+   * Tests the ability to get and set the large attribute value sink and
+   * threshold.
+   */
+  @Test()
+  public void testLargeAttributeValueSink()
+  {
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+    assertNull(opts.getLargeAttributeValueSink());
+    assertEquals(opts.getLargeAttributeValueThresholdBytes(), 1_048_576);
+    assertFalse(opts.toString().contains("largeAttributeValueSink"));
+
+    final TempFileLargeAttributeValueSink sink =
+         new TempFileLargeAttributeValueSink();
+    opts.setLargeAttributeValueSink(sink);
+    opts.setLargeAttributeValueThresholdBytes(4096);
+    assertSame(opts.getLargeAttributeValueSink(), sink);
+    assertEquals(opts.getLargeAttributeValueThresholdBytes(), 4096);
+    assertTrue(opts.toString().contains("largeAttributeValueSinkClass=" +
+         TempFileLargeAttributeValueSink.class.getName()));
+    assertTrue(opts.toString().contains(
+         "largeAttributeValueThresholdBytes=4096"));
+
+    final LDAPConnectionOptions duplicate = opts.duplicate();
+    assertSame(duplicate.getLargeAttributeValueSink(), sink);
+    assertEquals(duplicate.getLargeAttributeValueThresholdBytes(), 4096);
+
+    opts.setLargeAttributeValueThresholdBytes(-1);
+    assertEquals(opts.getLargeAttributeValueThresholdBytes(), 0);
+
+    opts.setLargeAttributeValueSink(null);
+    assertNull(opts.getLargeAttributeValueSink());
+  }
+
+
+
+  /**
+   * Tests the ability to get and set the executor that will be used to
+   * complete the completion stages for CompletionStage-based asynchronous
+   * operations.
+   */
+  @Test()
+  public void testCompletionExecutor()
+  {
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+    assertSame(opts.getCompletionExecutor(),
+         AsyncCompletionHelper.getDefaultCompletionExecutor());
+    assertNotNull(opts.toString());
+
+    final ForkJoinPool executor = new ForkJoinPool(1);
+    try
+    {
+      opts.setCompletionExecutor(executor);
+      assertSame(opts.getCompletionExecutor(), executor);
+      assertTrue(opts.toString().contains(
+           "completionExecutorClass=java.util.concurrent.ForkJoinPool"));
+
+      opts.setCompletionExecutor(null);
+      assertSame(opts.getCompletionExecutor(),
+           AsyncCompletionHelper.getDefaultCompletionExecutor());
+      assertNotNull(opts.toString());
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+  }
+
+
+
   /**
    * Tests the ability to get and set the flag that controls whether to use
    * schema information when reading data from the server.
@@ -41,6 +41,8 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+
 
 
 /**
@@ -160,6 +162,22 @@ public class LDAPConnectionPoolStatisticsTestCase
     stats.incrementNumReleasedValid();
     assertEquals(stats.getNumReleasedValid(), 1L);
 
+    assertEquals(stats.getNumHedgedRequests(), 0L);
+    stats.incrementNumHedgedRequests();
+    assertEquals(stats.getNumHedgedRequests(), 1L);
+
+    assertEquals(stats.getNumHedgedRequestsWon(), 0L);
+    stats.incrementNumHedgedRequestsWon();
+    assertEquals(stats.getNumHedgedRequestsWon(), 1L);
+
+    assertEquals(stats.getNumAuthenticatedConnectionReuseHits(), 0L);
+    stats.incrementNumAuthenticatedConnectionReuseHits();
+    assertEquals(stats.getNumAuthenticatedConnectionReuseHits(), 1L);
+
+    assertEquals(stats.getNumAuthenticatedConnectionReuseMisses(), 0L);
+    stats.incrementNumAuthenticatedConnectionReuseMisses();
+    assertEquals(stats.getNumAuthenticatedConnectionReuseMisses(), 1L);
+
 
     stats.reset();
 
@@ -175,6 +193,11 @@ public class LDAPConnectionPoolStatisticsTestCase
     assertEquals(stats.getNumFailedCheckouts(), 0L);
 
     assertEquals(stats.getNumReleasedValid(), 0L);
+
+    assertEquals(stats.getNumHedgedRequests(), 0L);
+    assertEquals(stats.getNumHedgedRequestsWon(), 0L);
+    assertEquals(stats.getNumAuthenticatedConnectionReuseHits(), 0L);
+    assertEquals(stats.getNumAuthenticatedConnectionReuseMisses(), 0L);
   }
 
 
@@ -291,4 +314,77 @@ public class LDAPConnectionPoolStatisticsTestCase
 
     assertNotNull(stats.toString());
   }
+
+
+
+  /**
+   * Tests the response time histograms maintained for the pool and for the
+   * connections in it.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testResponseTimeHistograms()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPConnectionPool pool = ds.getConnectionPool(2);
+    try
+    {
+      final LDAPConnectionPoolStatistics stats =
+           pool.getConnectionPoolStatistics();
+      stats.reset();
+
+      for (int i=0; i < 10; i++)
+      {
+        pool.search("dc=example,dc=com", SearchScope.BASE, "(objectClass=*)");
+        pool.compare("dc=example,dc=com", "dc", "example");
+      }
+
+      LatencyHistogramSnapshot searchHistogram =
+           stats.getResponseTimeHistogram(OperationType.SEARCH);
+      assertEquals(searchHistogram.getCount(), 10L);
+      assertTrue(searchHistogram.getMinimumNanos() > 0L);
+      assertTrue(searchHistogram.getPercentileNanos(99.0d) <=
+           searchHistogram.getMaximumNanos());
+      assertEquals(
+           stats.getResponseTimeHistogram(OperationType.COMPARE).getCount(),
+           10L);
+      assertEquals(
+           stats.getResponseTimeHistogram(OperationType.ADD).getCount(), 0L);
+      assertEquals(
+           stats.getResponseTimeHistogram(OperationType.UNBIND).getCount(),
+           0L);
+
+      // The histograms for the individual connections should add up to the
+      // histogram for the pool.
+      final LDAPConnection conn = pool.getConnection();
+      final LDAPConnectionStatistics connStats =
+           conn.getConnectionStatistics();
+      assertTrue(connStats.getResponseTimeHistogram(
+           OperationType.SEARCH).getCount() <= 10L);
+      pool.releaseConnection(conn);
+
+      // Retrieving the histogram with a reset should leave it empty.
+      searchHistogram =
+           stats.getResponseTimeHistogram(OperationType.SEARCH, true);
+      assertEquals(searchHistogram.getCount(), 10L);
+      assertEquals(
+           stats.getResponseTimeHistogram(OperationType.SEARCH).getCount(),
+           0L);
+      assertEquals(
+           stats.getResponseTimeHistogram(OperationType.COMPARE).getCount(),
+           10L);
+
+      stats.reset();
+      assertEquals(
+           stats.getResponseTimeHistogram(OperationType.COMPARE).getCount(),
+           0L);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
 }
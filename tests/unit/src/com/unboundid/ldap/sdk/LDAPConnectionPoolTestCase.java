@@ -38,8 +38,11 @@ package com.unboundid.ldap.sdk;
 
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -3324,4 +3327,648 @@ public class LDAPConnectionPoolTestCase
     pool.close();
     ds.shutDown(true);
   }
+
+
+
+  /**
+   * Tests the behavior of a connection pool that is configured to prefer
+   * reusing recently released connections.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testPoolConnectionAffinity()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUsePoolConnectionAffinity(true);
+
+    final LDAPConnectionPool pool = new LDAPConnectionPool(
+         new SingleServerSet("localhost", ds.getListenPort(), options),
+         new SimpleBindRequest("cn=Directory Manager", "password"), 3, 3);
+    try
+    {
+      pool.setCreateIfNecessary(false);
+      pool.setMaxWaitTimeMillis(10_000L);
+      assertEquals(pool.getCurrentAvailableConnections(), 3);
+
+      // A thread that releases a connection should get the same connection
+      // back the next time it asks for one.
+      final LDAPConnection c1 = pool.getConnection();
+      pool.releaseConnection(c1);
+      for (int i=0; i < 5; i++)
+      {
+        final LDAPConnection c = pool.getConnection();
+        assertSame(c, c1);
+        pool.releaseConnection(c);
+      }
+
+      // Check out all of the connections and make sure that a thread that has
+      // to wait for a connection gets one when it is released.
+      final LDAPConnection a = pool.getConnection();
+      final LDAPConnection b = pool.getConnection();
+      final LDAPConnection c = pool.getConnection();
+      assertEquals(pool.getCurrentAvailableConnections(), 0);
+
+      final AtomicReference<LDAPConnection> waiterConnection =
+           new AtomicReference<>();
+      final Thread waiter = new Thread()
+      {
+        @Override()
+        public void run()
+        {
+          try
+          {
+            waiterConnection.set(pool.getConnection());
+          }
+          catch (final Exception e)
+          {
+            // The assertion below will fail.
+          }
+        }
+      };
+      waiter.start();
+
+      Thread.sleep(100L);
+      pool.releaseConnection(b);
+      waiter.join(10_000L);
+      assertSame(waiterConnection.get(), b);
+
+      pool.releaseConnection(waiterConnection.get());
+      pool.releaseConnection(a);
+      pool.releaseConnection(c);
+      assertEquals(pool.getCurrentAvailableConnections(), 3);
+
+      // Make sure that the pool can be used to process operations from
+      // multiple threads at the same time.
+      final AtomicInteger failures = new AtomicInteger(0);
+      final Thread[] threads = new Thread[16];
+      for (int i=0; i < threads.length; i++)
+      {
+        threads[i] = new Thread()
+        {
+          @Override()
+          public void run()
+          {
+            for (int j=0; j < 20; j++)
+            {
+              try
+              {
+                pool.getEntry("dc=example,dc=com");
+              }
+              catch (final Exception e)
+              {
+                failures.incrementAndGet();
+              }
+            }
+          }
+        };
+        threads[i].start();
+      }
+
+      for (final Thread t : threads)
+      {
+        t.join();
+      }
+
+      assertEquals(failures.get(), 0);
+      assertEquals(pool.getCurrentAvailableConnections(), 3);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that operations that scan the available connections, like
+   * health checking and retrieving a connection to a specific server, examine
+   * every available connection when the pool is configured to prefer reusing
+   * recently released connections.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testPoolConnectionAffinityScansAllConnections()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUsePoolConnectionAffinity(true);
+
+    final LDAPConnectionPool pool = new LDAPConnectionPool(
+         new SingleServerSet("localhost", ds.getListenPort(), options),
+         new SimpleBindRequest("cn=Directory Manager", "password"), 4, 4);
+    try
+    {
+      pool.setCreateIfNecessary(false);
+
+      final ConcurrencyTrackingHealthCheck healthCheck =
+           new ConcurrencyTrackingHealthCheck(0L);
+      pool.setHealthCheck(healthCheck);
+
+      // Check out and release a connection so that it will be associated with
+      // the current thread.
+      final LDAPConnection affineConnection = pool.getConnection();
+      pool.releaseConnection(affineConnection);
+
+      LDAPConnectionPoolHealthCheckResult result =
+           pool.invokeHealthCheck(null, false, false);
+      assertEquals(result.getNumExamined(), 4);
+      assertEquals(result.getNumDefunct(), 0);
+      assertEquals(pool.getCurrentAvailableConnections(), 4);
+
+      // Make sure that a connection that fails the health check is replaced,
+      // and that the rest are still examined.
+      pool.releaseConnection(pool.getConnection());
+      healthCheck.reset(1);
+      result = pool.invokeHealthCheck(null, false, false);
+      assertEquals(result.getNumExamined(), 4);
+      assertEquals(result.getNumDefunct(), 1);
+      assertEquals(pool.getCurrentAvailableConnections(), 4);
+
+      // Make sure that idle connections are expired by the health check.
+      pool.setMaxConnectionAgeMillis(1L);
+      Thread.sleep(10L);
+      pool.releaseConnection(pool.getConnection());
+      result = pool.invokeHealthCheck(null, true, false);
+      assertEquals(result.getNumExamined(), 4);
+      assertEquals(result.getNumExpired(), 4);
+      assertEquals(pool.getCurrentAvailableConnections(), 4);
+      pool.setMaxConnectionAgeMillis(0L);
+
+      // The same should be true when examining connections in parallel.
+      pool.setHealthCheckParallelism(2);
+      pool.releaseConnection(pool.getConnection());
+      result = pool.invokeHealthCheck(null, false, false);
+      assertEquals(result.getNumExamined(), 4);
+      assertEquals(pool.getCurrentAvailableConnections(), 4);
+
+      // Make sure that each connection can be retrieved by server address
+      // even after the connection associated with this thread was examined.
+      final HashSet<LDAPConnection> connections = new HashSet<>(10);
+      for (int i=0; i < 4; i++)
+      {
+        final LDAPConnection conn =
+             pool.getConnection("localhost", ds.getListenPort());
+        assertNotNull(conn);
+        connections.add(conn);
+      }
+      assertEquals(connections.size(), 4);
+      assertNull(pool.getConnection("localhost", ds.getListenPort()));
+
+      for (final LDAPConnection conn : connections)
+      {
+        pool.releaseConnection(conn);
+      }
+
+      assertEquals(pool.getCurrentAvailableConnections(), 4);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior of the getAuthenticatedConnection method, both with
+   * and without reusing authenticated connections.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testGetAuthenticatedConnection()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+    ds.add(
+         "dn: uid=test.user,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: person",
+         "objectClass: organizationalPerson",
+         "objectClass: inetOrgPerson",
+         "uid: test.user",
+         "givenName: Test",
+         "sn: User",
+         "cn: Test User",
+         "userPassword: userPassword");
+
+    final String userAuthzID = "dn:uid=test.user,dc=example,dc=com";
+    final String managerAuthzID = "dn:cn=Directory Manager";
+
+    final LDAPConnectionPool pool = new LDAPConnectionPool(
+         new SingleServerSet("localhost", ds.getListenPort()),
+         new SimpleBindRequest("cn=Directory Manager", "password"), 1, 1);
+    try
+    {
+      pool.setCreateIfNecessary(false);
+      pool.setMaxWaitTimeMillis(10_000L);
+
+      assertFalse(pool.reuseAuthenticatedConnections());
+      assertEquals(pool.getMaxAuthenticatedConnectionReuseAgeMillis(),
+           LDAPConnectionPool.
+                DEFAULT_MAX_AUTHENTICATED_CONNECTION_REUSE_AGE_MILLIS);
+
+      final LDAPConnectionPoolStatistics stats =
+           pool.getConnectionPoolStatistics();
+
+
+      // Without reuse, each request should require a bind, and the pool's
+      // identity should be restored for other uses.
+      LDAPConnection conn = pool.getAuthenticatedConnection(
+           new SimpleBindRequest("uid=test.user,dc=example,dc=com",
+                "userPassword"));
+      assertEquals(getAuthorizationID(conn), userAuthzID);
+      pool.releaseConnection(conn);
+
+      conn = pool.getConnection();
+      assertEquals(getAuthorizationID(conn), managerAuthzID);
+      pool.releaseConnection(conn);
+
+      assertEquals(stats.getNumAuthenticatedConnectionReuseHits(), 0L);
+      assertEquals(stats.getNumAuthenticatedConnectionReuseMisses(), 0L);
+
+
+      // With reuse, the second request for the same identity should not need
+      // a bind, even if the DN is formatted differently.
+      pool.setReuseAuthenticatedConnections(true);
+      assertTrue(pool.reuseAuthenticatedConnections());
+
+      final LDAPConnection conn1 = pool.getAuthenticatedConnection(
+           new SimpleBindRequest("uid=test.user,dc=example,dc=com",
+                "userPassword"));
+      assertEquals(getAuthorizationID(conn1), userAuthzID);
+      pool.releaseConnection(conn1);
+      assertEquals(stats.getNumAuthenticatedConnectionReuseHits(), 0L);
+      assertEquals(stats.getNumAuthenticatedConnectionReuseMisses(), 1L);
+
+      final LDAPConnection conn2 = pool.getAuthenticatedConnection(
+           new SimpleBindRequest("UID=Test.User, DC=Example, DC=Com",
+                "userPassword"));
+      assertSame(conn2, conn1);
+      assertEquals(getAuthorizationID(conn2), userAuthzID);
+      pool.releaseConnection(conn2);
+      assertEquals(stats.getNumAuthenticatedConnectionReuseHits(), 1L);
+      assertEquals(stats.getNumAuthenticatedConnectionReuseMisses(), 1L);
+
+
+      // A different password should not match, and the bind should fail.
+      try
+      {
+        pool.getAuthenticatedConnection(
+             new SimpleBindRequest("uid=test.user,dc=example,dc=com",
+                  "wrongPassword"));
+        fail("Expected an exception when binding with the wrong password");
+      }
+      catch (final LDAPException le)
+      {
+        assertEquals(le.getResultCode(), ResultCode.INVALID_CREDENTIALS);
+      }
+      assertEquals(stats.getNumAuthenticatedConnectionReuseHits(), 1L);
+      assertEquals(stats.getNumAuthenticatedConnectionReuseMisses(), 2L);
+
+      conn = pool.getConnection();
+      assertEquals(getAuthorizationID(conn), managerAuthzID);
+      pool.releaseConnection(conn);
+
+
+      // A connection that has been re-authenticated by the caller should not
+      // be reused.
+      conn = pool.getAuthenticatedConnection(
+           new SimpleBindRequest("uid=test.user,dc=example,dc=com",
+                "userPassword"));
+      conn.bind("cn=Directory Manager", "password");
+      pool.releaseConnection(conn);
+
+      conn = pool.getAuthenticatedConnection(
+           new SimpleBindRequest("uid=test.user,dc=example,dc=com",
+                "userPassword"));
+      assertEquals(getAuthorizationID(conn), userAuthzID);
+      pool.releaseConnection(conn);
+      assertEquals(stats.getNumAuthenticatedConnectionReuseHits(), 1L);
+      assertEquals(stats.getNumAuthenticatedConnectionReuseMisses(), 4L);
+
+
+      // With a maximum reuse age of zero, connections should never be reused.
+      pool.setMaxAuthenticatedConnectionReuseAgeMillis(-1L);
+      assertEquals(pool.getMaxAuthenticatedConnectionReuseAgeMillis(), 0L);
+
+      conn = pool.getAuthenticatedConnection(
+           new SimpleBindRequest("uid=test.user,dc=example,dc=com",
+                "userPassword"));
+      pool.releaseConnection(conn);
+      assertEquals(stats.getNumAuthenticatedConnectionReuseHits(), 1L);
+      assertEquals(stats.getNumAuthenticatedConnectionReuseMisses(), 5L);
+
+
+      // The bindAndRevertAuthentication method should leave the connection
+      // authenticated as the pool's identity.
+      pool.bindAndRevertAuthentication("uid=test.user,dc=example,dc=com",
+           "userPassword");
+      conn = pool.getConnection();
+      assertEquals(getAuthorizationID(conn), managerAuthzID);
+      pool.releaseConnection(conn);
+    }
+    finally
+    {
+      pool.close();
+      ds.delete("uid=test.user,dc=example,dc=com");
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior of health check processing when it is configured to
+   * examine connections in parallel.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testParallelHealthCheck()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS();
+    final LDAPConnectionPool pool = ds.getConnectionPool(null, null, 12, 12);
+
+    try
+    {
+      assertEquals(pool.getHealthCheckParallelism(), 1);
+
+      pool.setHealthCheckParallelism(0);
+      assertEquals(pool.getHealthCheckParallelism(), 1);
+
+      final ConcurrencyTrackingHealthCheck healthCheck =
+           new ConcurrencyTrackingHealthCheck(50L);
+      pool.setHealthCheck(healthCheck);
+
+      final LDAPConnectionPoolStatistics stats =
+           pool.getConnectionPoolStatistics();
+      assertEquals(stats.getNumHealthCheckPasses(), 0L);
+      assertEquals(stats.getLastHealthCheckPassDurationMillis(), 0L);
+
+
+      // With the default parallelism, connections should be examined one at a
+      // time.
+      LDAPConnectionPoolHealthCheckResult result =
+           pool.invokeHealthCheck(null, false, false);
+      assertEquals(result.getNumExamined(), 12);
+      assertEquals(result.getNumDefunct(), 0);
+      assertEquals(healthCheck.getMaxConcurrentChecks(), 1);
+      assertEquals(pool.getCurrentAvailableConnections(), 12);
+      assertEquals(stats.getNumHealthCheckPasses(), 1L);
+      assertTrue(stats.getLastHealthCheckPassDurationMillis() >= 500L);
+
+
+      // With a parallelism of four, up to four connections should be examined
+      // at once, and a connection that fails the health check should still be
+      // replaced.
+      pool.setHealthCheckParallelism(4);
+      assertEquals(pool.getHealthCheckParallelism(), 4);
+
+      healthCheck.reset(1);
+      result = pool.invokeHealthCheck(null, false, false);
+      assertEquals(result.getNumExamined(), 12);
+      assertEquals(result.getNumDefunct(), 1);
+      assertTrue(healthCheck.getMaxConcurrentChecks() > 1);
+      assertTrue(healthCheck.getMaxConcurrentChecks() <= 4);
+      assertEquals(pool.getCurrentAvailableConnections(), 12);
+
+      // The additional threads should have come from the shared worker
+      // executor, which keeps them around for reuse by later passes.
+      boolean foundWorkerThread = false;
+      for (final Thread t : Thread.getAllStackTraces().keySet())
+      {
+        if (t.getName().startsWith("Health Check Worker "))
+        {
+          assertTrue(t.isDaemon());
+          foundWorkerThread = true;
+        }
+      }
+      assertTrue(foundWorkerThread);
+
+      assertEquals(stats.getNumHealthCheckPasses(), 2L);
+      assertTrue(stats.getLastHealthCheckPassDurationMillis() > 0L);
+      assertTrue(stats.getMaxHealthCheckPassDurationMillis() >=
+           stats.getLastHealthCheckPassDurationMillis());
+      assertTrue(stats.getTotalHealthCheckPassDurationMillis() >=
+           stats.getMaxHealthCheckPassDurationMillis());
+
+
+      // The connections should all still be usable.
+      for (int i=0; i < 12; i++)
+      {
+        pool.getRootDSE();
+      }
+
+      stats.reset();
+      assertEquals(stats.getNumHealthCheckPasses(), 0L);
+      assertEquals(stats.getMaxHealthCheckPassDurationMillis(), 0L);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * A health check that waits for a specified length of time when examining a
+   * connection for continued use, and that keeps track of the maximum number of
+   * connections examined at the same time.
+   */
+  private static final class ConcurrencyTrackingHealthCheck
+          extends LDAPConnectionPoolHealthCheck
+  {
+    // The number of connections currently being examined.
+    private final AtomicInteger currentChecks;
+
+    // The maximum number of connections examined at the same time.
+    private final AtomicInteger maxConcurrentChecks;
+
+    // The number of remaining connections that should fail the check.
+    private final AtomicInteger remainingFailures;
+
+    // The length of time to wait when examining each connection.
+    private final long delayMillis;
+
+
+
+    /**
+     * Creates a new instance of this health check.
+     *
+     * @param  delayMillis  The length of time in milliseconds to wait when
+     *                      examining each connection.
+     */
+    private ConcurrencyTrackingHealthCheck(final long delayMillis)
+    {
+      this.delayMillis = delayMillis;
+
+      currentChecks = new AtomicInteger(0);
+      maxConcurrentChecks = new AtomicInteger(0);
+      remainingFailures = new AtomicInteger(0);
+    }
+
+
+
+    /**
+     * Resets the maximum concurrency and specifies the number of connections
+     * that should fail the check.
+     *
+     * @param  numFailures  The number of connections that should fail the
+     *                      check.
+     */
+    private void reset(final int numFailures)
+    {
+      maxConcurrentChecks.set(0);
+      remainingFailures.set(numFailures);
+    }
+
+
+
+    /**
+     * Retrieves the maximum number of connections examined at the same time.
+     *
+     * @return  The maximum number of connections examined at the same time.
+     */
+    private int getMaxConcurrentChecks()
+    {
+      return maxConcurrentChecks.get();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void ensureConnectionValidForContinuedUse(
+                     final LDAPConnection connection)
+           throws LDAPException
+    {
+      final int concurrentChecks = currentChecks.incrementAndGet();
+      try
+      {
+        while (true)
+        {
+          final int max = maxConcurrentChecks.get();
+          if ((concurrentChecks <= max) ||
+               maxConcurrentChecks.compareAndSet(max, concurrentChecks))
+          {
+            break;
+          }
+        }
+
+        Thread.sleep(delayMillis);
+
+        if (remainingFailures.getAndDecrement() > 0)
+        {
+          throw new LDAPException(ResultCode.SERVER_DOWN);
+        }
+      }
+      catch (final InterruptedException e)
+      {
+        throw new LDAPException(ResultCode.LOCAL_ERROR, e);
+      }
+      finally
+      {
+        currentChecks.decrementAndGet();
+      }
+    }
+  }
+
+
+
+  /**
+   * Retrieves the authorization ID for the provided connection.
+   *
+   * @param  conn  The connection for which to retrieve the authorization ID.
+   *
+   * @return  The authorization ID for the provided connection.
+   *
+   * @throws  LDAPException  If a problem occurs while making the
+   *                         determination.
+   */
+  private static String getAuthorizationID(final LDAPConnection conn)
+          throws LDAPException
+  {
+    final WhoAmIExtendedResult result = (WhoAmIExtendedResult)
+         conn.processExtendedOperation(new WhoAmIExtendedRequest());
+    assertEquals(result.getResultCode(), ResultCode.SUCCESS);
+    return result.getAuthorizationID();
+  }
+
+
+
+  /**
+   * Tests the ability to resume TLS sessions when establishing pooled
+   * connections with socket factories that share an SSL context.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testTLSSessionResumption()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDSWithSSL();
+
+    final SSLUtil sslUtil = new SSLUtil(new TrustAllTrustManager());
+    sslUtil.setUseSharedSSLContext(true);
+    sslUtil.setClientSessionCacheSize(100);
+    sslUtil.setClientSessionTimeoutSeconds(300);
+
+
+    // The first connection will require a full handshake.
+    final LDAPConnection conn = new LDAPConnection(
+         sslUtil.createSSLSocketFactory(), "localhost", ds.getListenPort());
+    assertNotNull(conn.getRootDSE());
+    assertEquals(conn.getConnectionStatistics().getNumFullTLSHandshakes(), 1L);
+    assertEquals(conn.getConnectionStatistics().getNumResumedTLSHandshakes(),
+         0L);
+    conn.close();
+
+    Thread.sleep(10L);
+
+
+    // Connections created for a pool with a different socket factory from the
+    // same SSL utility should be able to resume the session.
+    final LDAPConnectionPool pool = new LDAPConnectionPool(
+         new SingleServerSet("localhost", ds.getListenPort(),
+              sslUtil.createSSLSocketFactory()),
+         null, 2, 2);
+    assertNotNull(pool.getRootDSE());
+
+    final LDAPConnectionPoolStatistics stats =
+         pool.getConnectionPoolStatistics();
+    assertEquals(
+         stats.getNumFullTLSHandshakes() + stats.getNumResumedTLSHandshakes(),
+         2L);
+    assertTrue(stats.getNumResumedTLSHandshakes() > 0L,
+         String.valueOf(stats));
+    assertTrue(stats.toString().contains("numResumedTLSHandshakes="));
+
+    pool.close();
+
+
+    // Connections created with an SSL utility that doesn't share its SSL
+    // context will require a full handshake.
+    final SSLUtil nonSharingSSLUtil = new SSLUtil(new TrustAllTrustManager());
+    assertFalse(nonSharingSSLUtil.useSharedSSLContext());
+    final LDAPConnection conn2 = new LDAPConnection(
+         nonSharingSSLUtil.createSSLSocketFactory(), "localhost",
+         ds.getListenPort());
+    assertEquals(conn2.getConnectionStatistics().getNumFullTLSHandshakes(),
+         1L);
+    assertEquals(conn2.getConnectionStatistics().getNumResumedTLSHandshakes(),
+         0L);
+    conn2.close();
+  }
 }
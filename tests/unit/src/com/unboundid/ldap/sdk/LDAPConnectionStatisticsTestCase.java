@@ -845,4 +845,65 @@ public class LDAPConnectionStatisticsTestCase
 
     conn.close();
   }
+
+
+
+  /**
+   * Tests the response time histograms maintained for a connection.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testResponseTimeHistograms()
+         throws Exception
+  {
+    final LDAPConnectionStatistics stats = new LDAPConnectionStatistics();
+    for (final OperationType t : OperationType.values())
+    {
+      assertEquals(stats.getResponseTimeHistogram(t).getCount(), 0L);
+    }
+
+    stats.incrementNumAddResponses(1_000L);
+    stats.incrementNumBindResponses(2_000L);
+    stats.incrementNumCompareResponses(3_000L);
+    stats.incrementNumDeleteResponses(4_000L);
+    stats.incrementNumExtendedResponses(5_000L);
+    stats.incrementNumModifyResponses(6_000L);
+    stats.incrementNumModifyDNResponses(7_000L);
+    stats.incrementNumSearchResponses(1, 0, 8_000L);
+    stats.incrementNumSearchResponses(1, 0, 8_000L);
+
+    assertEquals(stats.getResponseTimeHistogram(OperationType.ADD).
+         getMaximumNanos(), 1_000L);
+    assertEquals(stats.getResponseTimeHistogram(OperationType.BIND).
+         getMaximumNanos(), 2_000L);
+    assertEquals(stats.getResponseTimeHistogram(OperationType.COMPARE).
+         getMaximumNanos(), 3_000L);
+    assertEquals(stats.getResponseTimeHistogram(OperationType.DELETE).
+         getMaximumNanos(), 4_000L);
+    assertEquals(stats.getResponseTimeHistogram(OperationType.EXTENDED).
+         getMaximumNanos(), 5_000L);
+    assertEquals(stats.getResponseTimeHistogram(OperationType.MODIFY).
+         getMaximumNanos(), 6_000L);
+    assertEquals(stats.getResponseTimeHistogram(OperationType.MODIFY_DN).
+         getMaximumNanos(), 7_000L);
+    assertEquals(stats.getResponseTimeHistogram(OperationType.SEARCH).
+         getCount(), 2L);
+    assertEquals(stats.getResponseTimeHistogram(OperationType.ABANDON).
+         getCount(), 0L);
+
+    final LatencyHistogramSnapshot searchHistogram =
+         stats.getResponseTimeHistogram(OperationType.SEARCH, true);
+    assertEquals(searchHistogram.getCount(), 2L);
+    assertEquals(searchHistogram.getTotalNanos(), 16_000L);
+    assertEquals(stats.getResponseTimeHistogram(OperationType.SEARCH).
+         getCount(), 0L);
+
+    // Resetting the search histogram should not have affected the counters.
+    assertEquals(stats.getNumSearchDoneResponses(), 2L);
+
+    stats.reset();
+    assertEquals(stats.getResponseTimeHistogram(OperationType.ADD).
+         getCount(), 0L);
+  }
 }
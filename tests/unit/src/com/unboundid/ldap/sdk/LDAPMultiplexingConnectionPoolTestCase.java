@@ -0,0 +1,518 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.sdk.extensions.WhoAmIExtendedRequest;
+import com.unboundid.ldap.sdk.extensions.WhoAmIExtendedResult;
+
+
+
+/**
+ * This class provides a set of test cases for the
+ * {@code LDAPMultiplexingConnectionPool} class.
+ */
+public class LDAPMultiplexingConnectionPoolTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the basic functionality of the pool, including processing operations
+   * and closing the pool.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testBasicOperations()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPMultiplexingConnectionPool pool = createPool(ds, 2, 4);
+    try
+    {
+      assertFalse(pool.isClosed());
+      assertEquals(pool.getMaximumAvailableConnections(), 2);
+      assertEquals(pool.getCurrentAvailableConnections(), 2);
+      assertEquals(pool.getNumActiveConnections(), 2);
+      assertEquals(pool.getMaxOutstandingOperationsPerConnection(), 4);
+      assertEquals(pool.getNumOutstandingOperations(), 0);
+      assertNotNull(pool.getServerSet());
+      assertNotNull(pool.getHealthCheck());
+
+      pool.setConnectionPoolName("multiplexing");
+      assertEquals(pool.getConnectionPoolName(), "multiplexing");
+      assertTrue(pool.toString().contains(
+           "maxOutstandingOperationsPerConnection=4"));
+
+      assertNotNull(pool.getEntry("dc=example,dc=com"));
+      pool.add(
+           "dn: ou=test,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: test");
+      assertTrue(pool.compare("ou=test,dc=example,dc=com", "ou",
+           "test").compareMatched());
+      pool.delete("ou=test,dc=example,dc=com");
+      assertNull(pool.getEntry("ou=test,dc=example,dc=com"));
+
+      assertEquals(pool.getNumOutstandingOperations(), 0);
+      assertTrue(pool.getConnectionPoolStatistics().
+           getNumSuccessfulCheckouts() >= 5L);
+    }
+    finally
+    {
+      pool.close();
+    }
+
+    assertTrue(pool.isClosed());
+    assertEquals(pool.getNumActiveConnections(), 0);
+
+    try
+    {
+      pool.getConnection();
+      fail("Expected an exception when getting a connection from a closed " +
+           "pool");
+    }
+    catch (final LDAPException le)
+    {
+      assertEquals(le.getResultCode(), ResultCode.CONNECT_ERROR);
+    }
+  }
+
+
+
+  /**
+   * Tests that checked-out connections are routed to the connection with the
+   * fewest outstanding operations and that the per-connection cap is
+   * enforced.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testLeastLoadedRoutingAndCap()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPMultiplexingConnectionPool pool = createPool(ds, 2, 2);
+    try
+    {
+      pool.setMaxWaitTimeMillis(0L);
+      assertEquals(pool.getMaxWaitTimeMillis(), 0L);
+
+      final LDAPConnection c1 = pool.getConnection();
+      final LDAPConnection c2 = pool.getConnection();
+      assertNotSame(c1, c2);
+      assertEquals(pool.getNumOutstandingOperations(), 2);
+      assertEquals(pool.getCurrentAvailableConnections(), 2);
+
+      final LDAPConnection c3 = pool.getConnection();
+      assertTrue((c3 == c1) || (c3 == c2));
+      assertEquals(pool.getCurrentAvailableConnections(), 1);
+
+      final LDAPConnection c4 = pool.getConnection();
+      assertTrue((c4 == c1) || (c4 == c2));
+      assertNotSame(c3, c4);
+      assertEquals(pool.getCurrentAvailableConnections(), 0);
+      assertEquals(pool.getNumOutstandingOperations(), 4);
+
+      try
+      {
+        pool.getConnection();
+        fail("Expected an exception when all connections are at their " +
+             "maximum number of outstanding operations");
+      }
+      catch (final LDAPException le)
+      {
+        assertEquals(le.getResultCode(), ResultCode.CONNECT_ERROR);
+      }
+
+      // Releasing one of the checkouts should make the associated connection
+      // the one chosen for the next request.
+      pool.releaseConnection(c1);
+      assertSame(pool.getConnection(), c1);
+
+      pool.releaseConnection(c1);
+      pool.releaseConnection(c1);
+      pool.releaseConnection(c2);
+      pool.releaseConnection(c2);
+      assertEquals(pool.getNumOutstandingOperations(), 0);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests that a thread will wait for capacity to become available when all
+   * connections are at their maximum number of outstanding operations.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testWaitForCapacity()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPMultiplexingConnectionPool pool = createPool(ds, 1, 1);
+    try
+    {
+      pool.setMaxWaitTimeMillis(30_000L);
+
+      final LDAPConnection conn = pool.getConnection();
+      final Thread releaseThread = new Thread()
+      {
+        @Override()
+        public void run()
+        {
+          try
+          {
+            Thread.sleep(100L);
+          }
+          catch (final InterruptedException e)
+          {
+            // Ignore this.
+          }
+
+          pool.releaseConnection(conn);
+        }
+      };
+      releaseThread.start();
+
+      final LDAPConnection conn2 = pool.getConnection();
+      assertSame(conn2, conn);
+      pool.releaseConnection(conn2);
+      releaseThread.join();
+
+      assertTrue(pool.getConnectionPoolStatistics().
+           getNumSuccessfulCheckoutsAfterWaiting() >= 1L);
+      assertEquals(pool.getNumOutstandingOperations(), 0);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior when many threads share a small number of connections.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testManyThreads()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPMultiplexingConnectionPool pool = createPool(ds, 2, 4);
+    try
+    {
+      final AtomicReference<Throwable> failure = new AtomicReference<>();
+      final List<Thread> threads = new ArrayList<>(16);
+      for (int i=0; i < 16; i++)
+      {
+        final Thread t = new Thread()
+        {
+          @Override()
+          public void run()
+          {
+            try
+            {
+              for (int j=0; j < 50; j++)
+              {
+                final SearchResult result = pool.search("dc=example,dc=com",
+                     SearchScope.BASE, "(objectClass=*)");
+                assertEquals(result.getEntryCount(), 1);
+              }
+            }
+            catch (final Throwable e)
+            {
+              failure.compareAndSet(null, e);
+            }
+          }
+        };
+        threads.add(t);
+        t.start();
+      }
+
+      for (final Thread t : threads)
+      {
+        t.join();
+      }
+
+      assertNull(failure.get());
+      assertEquals(pool.getNumOutstandingOperations(), 0);
+      assertEquals(pool.getNumActiveConnections(), 2);
+      assertEquals(pool.getConnectionPoolStatistics().
+           getNumSuccessfulConnectionAttempts(), 2L);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests that bind operations are processed on a dedicated connection so that
+   * they do not alter the identity used for other operations.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testBind()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPMultiplexingConnectionPool pool = createPool(ds, 1, 4);
+    try
+    {
+      final long closedBefore = pool.getConnectionPoolStatistics().
+           getNumConnectionsClosedUnneeded();
+
+      assertResultCodeEquals(pool.bind("", ""), ResultCode.SUCCESS);
+
+      try
+      {
+        pool.bind("cn=Directory Manager", "wrong");
+        fail("Expected a bind failure with the wrong password");
+      }
+      catch (final LDAPException le)
+      {
+        assertEquals(le.getResultCode(), ResultCode.INVALID_CREDENTIALS);
+      }
+
+      assertTrue(pool.getConnectionPoolStatistics().
+           getNumConnectionsClosedUnneeded() >= (closedBefore + 1L));
+
+      final WhoAmIExtendedResult whoAmIResult = (WhoAmIExtendedResult)
+           pool.processExtendedOperation(new WhoAmIExtendedRequest());
+      assertEquals(whoAmIResult.getAuthorizationID(),
+           "dn:cn=Directory Manager");
+      assertEquals(pool.getNumActiveConnections(), 1);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior when connections are released or replaced as defunct.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testDefunctConnections()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPMultiplexingConnectionPool pool = createPool(ds, 2, 4);
+    try
+    {
+      final LDAPConnection c1 = pool.getConnection();
+      pool.releaseDefunctConnection(c1);
+      assertFalse(c1.isConnected());
+      assertEquals(pool.getNumActiveConnections(), 2);
+      assertEquals(pool.getNumOutstandingOperations(), 0);
+
+      final LDAPConnection c2 = pool.getConnection();
+      assertNotSame(c2, c1);
+      final LDAPConnection c3 = pool.replaceDefunctConnection(c2);
+      assertFalse(c2.isConnected());
+      assertTrue(c3.isConnected());
+      assertNotNull(c3.getEntry("dc=example,dc=com"));
+      assertEquals(pool.getNumOutstandingOperations(), 1);
+      pool.releaseConnection(c3);
+
+      assertEquals(pool.getNumActiveConnections(), 2);
+      assertEquals(pool.getNumOutstandingOperations(), 0);
+      assertNotNull(pool.getEntry("dc=example,dc=com"));
+      assertEquals(pool.getConnectionPoolStatistics().
+           getNumConnectionsClosedDefunct(), 2L);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that a problem that only affects a single operation does
+   * not cause other operations in progress on the same connection to fail,
+   * while a failure of the connection itself causes it to be closed
+   * immediately.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testOperationFailureDoesNotCloseSharedConnection()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPMultiplexingConnectionPool pool = createPool(ds, 1, 2);
+    try
+    {
+      // Check out the same connection for two operations, and simulate a
+      // client-side timeout for one of them.  The other operation should still
+      // be able to use the connection, but it should be closed and replaced
+      // once that operation has completed.
+      final LDAPConnection c1 = pool.getConnection();
+      final LDAPConnection c2 = pool.getConnection();
+      assertSame(c2, c1);
+
+      pool.releaseConnectionAfterException(c1,
+           new LDAPException(ResultCode.TIMEOUT, "Simulated timeout"));
+      assertTrue(c2.isConnected());
+      assertNotNull(c2.getEntry("dc=example,dc=com"));
+      assertEquals(pool.getNumActiveConnections(), 1);
+
+      final LDAPConnection c3 = pool.getConnection();
+      assertNotSame(c3, c1);
+      pool.releaseConnection(c3);
+
+      pool.releaseConnection(c2);
+      assertFalse(c2.isConnected());
+      assertEquals(pool.getNumActiveConnections(), 1);
+      assertEquals(pool.getNumOutstandingOperations(), 0);
+
+
+      // The same should be true for a result that indicates that the server is
+      // too busy to process an operation.
+      final LDAPConnection c4 = pool.getConnection();
+      final LDAPConnection c5 = pool.getConnection();
+      assertSame(c5, c4);
+
+      pool.releaseConnectionAfterException(c4,
+           new LDAPException(ResultCode.BUSY, "Simulated busy result"));
+      assertTrue(c5.isConnected());
+      assertNotNull(c5.getEntry("dc=example,dc=com"));
+      pool.releaseConnection(c5);
+      assertFalse(c5.isConnected());
+
+
+      // If the connection itself has failed, then it should be closed right
+      // away, even if other operations are in progress on it.
+      final LDAPConnection c6 = pool.getConnection();
+      final LDAPConnection c7 = pool.getConnection();
+      assertSame(c7, c6);
+
+      pool.releaseConnectionAfterException(c6,
+           new LDAPException(ResultCode.SERVER_DOWN, "Simulated failure"));
+      assertFalse(c7.isConnected());
+      pool.releaseConnection(c7);
+
+      assertEquals(pool.getNumActiveConnections(), 1);
+      assertEquals(pool.getNumOutstandingOperations(), 0);
+      assertNotNull(pool.getEntry("dc=example,dc=com"));
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Tests that connections configured to operate in synchronous mode are
+   * rejected.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testSynchronousModeRejected()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUseSynchronousMode(true);
+
+    new LDAPMultiplexingConnectionPool(
+         new SingleServerSet("localhost", ds.getListenPort(), options),
+         new SimpleBindRequest("cn=Directory Manager", "password"), 2, 4);
+  }
+
+
+
+  /**
+   * Creates a multiplexing connection pool for the provided server.
+   *
+   * @param  ds              The server to which the connections should be
+   *                         established.
+   * @param  numConnections  The number of connections to maintain.
+   * @param  maxOutstanding  The maximum number of outstanding operations per
+   *                         connection.
+   *
+   * @return  The connection pool that was created.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static LDAPMultiplexingConnectionPool createPool(
+                      final InMemoryDirectoryServer ds,
+                      final int numConnections, final int maxOutstanding)
+          throws Exception
+  {
+    return new LDAPMultiplexingConnectionPool(
+         new SingleServerSet("localhost", ds.getListenPort()),
+         new SimpleBindRequest("cn=Directory Manager", "password"),
+         numConnections, maxOutstanding);
+  }
+}
@@ -0,0 +1,534 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+import com.unboundid.asn1.ASN1Buffer;
+import com.unboundid.ldap.protocol.LDAPMessage;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.protocol.ProtocolOp;
+import com.unboundid.ldap.sdk.controls.ManageDsaITRequestControl;
+import com.unboundid.util.LDAPSDKUsageException;
+
+
+
+/**
+ * This class provides a set of test cases for the LDAPRequestTemplate class.
+ */
+public class LDAPRequestTemplateTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests a search request template with placeholders in the base DN and in
+   * the assertion value of the filter.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSearchRequestTemplate()
+         throws Exception
+  {
+    final SearchRequest templateRequest = new SearchRequest(
+         "ou={dn},dc=example,dc=com", SearchScope.SUB,
+         "(&(objectClass=person)(uid=user.{uid}))", "cn", "mail");
+    templateRequest.addControl(new ManageDsaITRequestControl());
+
+    final LDAPRequestTemplate template =
+         new LDAPRequestTemplate(templateRequest, "{dn}", "{uid}");
+
+    assertNotNull(template.getRequest());
+    assertTrue(template.getRequest() instanceof SearchRequest);
+    assertEquals(template.getPlaceholders(), Arrays.asList("{dn}", "{uid}"));
+    assertNotNull(template.toString());
+
+    final SearchRequest expectedRequest = new SearchRequest(
+         "ou=People,dc=example,dc=com", SearchScope.SUB,
+         "(&(objectClass=person)(uid=user.12345))", "cn", "mail");
+    expectedRequest.addControl(new ManageDsaITRequestControl());
+
+    final LDAPRequest r = template.createRequest("People", "12345");
+    assertTrue(r instanceof SearchRequest);
+    assertEquals(r.getControls().length, 1);
+    assertEncodingsEqual(r, expectedRequest);
+
+    // Make sure that the template can be reused with values of different
+    // lengths.
+    final SearchRequest longerRequest = new SearchRequest(
+         "ou=Some Much Longer Value " + getLongString() +
+              ",dc=example,dc=com",
+         SearchScope.SUB, "(&(objectClass=person)(uid=user.1))", "cn",
+         "mail");
+    longerRequest.addControl(new ManageDsaITRequestControl());
+    assertEncodingsEqual(
+         template.createRequest(
+              "Some Much Longer Value " + getLongString(), "1"),
+         longerRequest);
+  }
+
+
+
+  /**
+   * Tests a modify request template with placeholders in the DN and in
+   * multiple attribute values, including a placeholder that appears more than
+   * once.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testModifyRequestTemplate()
+         throws Exception
+  {
+    final ModifyRequest templateRequest = new ModifyRequest(
+         "uid={uid},ou=People,dc=example,dc=com",
+         new Modification(ModificationType.REPLACE, "description",
+              "value-{v1}-{v1}", "{v2}"),
+         new Modification(ModificationType.DELETE, "displayName"));
+
+    final LDAPRequestTemplate template =
+         new LDAPRequestTemplate(templateRequest, "{uid}", "{v1}", "{v2}");
+
+    final ModifyRequest expectedRequest = new ModifyRequest(
+         "uid=test.user,ou=People,dc=example,dc=com",
+         new Modification(ModificationType.REPLACE, "description",
+              "value-a-a", getLongString()),
+         new Modification(ModificationType.DELETE, "displayName"));
+
+    assertEncodingsEqual(
+         template.createRequest("test.user", "a", getLongString()),
+         expectedRequest);
+  }
+
+
+
+  /**
+   * Tests templates for the other supported request types.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testOtherRequestTemplates()
+         throws Exception
+  {
+    LDAPRequestTemplate template = new LDAPRequestTemplate(
+         new AddRequest(
+              "dn: uid=[uid],ou=People,dc=example,dc=com",
+              "objectClass: top",
+              "objectClass: person",
+              "uid: [uid]",
+              "sn: [sn]",
+              "cn: Test [sn]"),
+         "[uid]", "[sn]");
+    assertEncodingsEqual(template.createRequest("test.user", "User"),
+         new AddRequest(
+              "dn: uid=test.user,ou=People,dc=example,dc=com",
+              "objectClass: top",
+              "objectClass: person",
+              "uid: test.user",
+              "sn: User",
+              "cn: Test User"));
+
+    template = new LDAPRequestTemplate(
+         new DeleteRequest("uid=[uid],ou=People,dc=example,dc=com"), "[uid]");
+    assertEncodingsEqual(template.createRequest("test.user"),
+         new DeleteRequest("uid=test.user,ou=People,dc=example,dc=com"));
+
+    template = new LDAPRequestTemplate(
+         new CompareRequest("uid=[uid],ou=People,dc=example,dc=com", "cn",
+              "[cn]"),
+         "[uid]", "[cn]");
+    assertEncodingsEqual(template.createRequest("test.user", "Test User"),
+         new CompareRequest("uid=test.user,ou=People,dc=example,dc=com", "cn",
+              "Test User"));
+
+    template = new LDAPRequestTemplate(
+         new ModifyDNRequest("uid=[old],ou=People,dc=example,dc=com",
+              "uid=[new]", true),
+         "[old]", "[new]");
+    assertEncodingsEqual(template.createRequest("test.user", "renamed"),
+         new ModifyDNRequest("uid=test.user,ou=People,dc=example,dc=com",
+              "uid=renamed", true));
+
+    template = new LDAPRequestTemplate(
+         new SimpleBindRequest("[dn]", "password"), "[dn]");
+    assertEncodingsEqual(
+         template.createRequest("uid=test.user,ou=People,dc=example,dc=com"),
+         new SimpleBindRequest("uid=test.user,ou=People,dc=example,dc=com",
+              "password"));
+  }
+
+
+
+  /**
+   * Tests the behavior when using requests created from templates to process
+   * operations in a directory server.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testProcessTemplateRequests()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    try (LDAPConnection conn = ds.getConnection())
+    {
+      final LDAPRequestTemplate bindTemplate = new LDAPRequestTemplate(
+           new SimpleBindRequest("uid={uid},ou=People,dc=example,dc=com",
+                "password"),
+           "{uid}");
+      final BindResult bindResult = conn.bind(
+           (SimpleBindRequest) bindTemplate.createRequest("test.user"));
+      assertResultCodeEquals(bindResult, ResultCode.SUCCESS);
+
+      final LDAPRequestTemplate searchTemplate = new LDAPRequestTemplate(
+           new SearchRequest("dc=example,dc=com", SearchScope.SUB,
+                "(uid={uid})"),
+           "{uid}");
+
+      SearchResult searchResult = conn.search(
+           (SearchRequest) searchTemplate.createRequest("test.user"));
+      assertEquals(searchResult.getEntryCount(), 1);
+      assertEquals(searchResult.getSearchEntries().get(0).getParsedDN(),
+           new DN("uid=test.user,ou=People,dc=example,dc=com"));
+
+      searchResult = conn.search(
+           (SearchRequest) searchTemplate.createRequest("nonexistent"));
+      assertEquals(searchResult.getEntryCount(), 0);
+
+      final LDAPRequestTemplate modifyTemplate = new LDAPRequestTemplate(
+           new ModifyRequest("uid=test.user,ou=People,dc=example,dc=com",
+                new Modification(ModificationType.REPLACE, "description",
+                     "{value}")),
+           "{value}");
+      for (int i=0; i < 5; i++)
+      {
+        final LDAPResult modifyResult = conn.modify(
+             (ModifyRequest) modifyTemplate.createRequest("value " + i));
+        assertResultCodeEquals(modifyResult, ResultCode.SUCCESS);
+
+        ds.assertValueExists("uid=test.user,ou=People,dc=example,dc=com",
+             "description", "value " + i);
+      }
+    }
+  }
+
+
+
+  /**
+   * Tests that altering a property that is part of the encoded request
+   * discards the values used in place of the template placeholders, including
+   * for a duplicate of the request like the ones used to follow referrals.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSettersDiscardTemplateValues()
+         throws Exception
+  {
+    final LDAPRequestTemplate searchTemplate = new LDAPRequestTemplate(
+         new SearchRequest("dc=example,dc=com", SearchScope.SUB,
+              "(uid={uid})"),
+         "{uid}");
+
+    final SearchRequest searchRequest =
+         ((SearchRequest) searchTemplate.createRequest("test.user")).
+              duplicate();
+    assertNotNull(searchRequest.getPreparedProtocolOp());
+    searchRequest.setBaseDN("ou=People,dc=example,dc=com");
+    searchRequest.setFilter("(uid=other.user)");
+    assertNull(searchRequest.getPreparedProtocolOp());
+    assertEncodingsEqual(searchRequest,
+         new SearchRequest("ou=People,dc=example,dc=com", SearchScope.SUB,
+              "(uid=other.user)"));
+
+    final SearchRequest scopeRequest =
+         (SearchRequest) searchTemplate.createRequest("test.user");
+    scopeRequest.setControls(new ManageDsaITRequestControl());
+    assertNotNull(scopeRequest.getPreparedProtocolOp());
+    scopeRequest.setScope(SearchScope.ONE);
+    assertNull(scopeRequest.getPreparedProtocolOp());
+
+    final LDAPRequestTemplate deleteTemplate = new LDAPRequestTemplate(
+         new DeleteRequest("uid=[uid],ou=People,dc=example,dc=com"),
+         "[uid]");
+    final DeleteRequest deleteRequest =
+         (DeleteRequest) deleteTemplate.createRequest("test.user");
+    deleteRequest.setDN("uid=other.user,ou=People,dc=example,dc=com");
+    assertNull(deleteRequest.getPreparedProtocolOp());
+    assertEncodingsEqual(deleteRequest,
+         new DeleteRequest("uid=other.user,ou=People,dc=example,dc=com"));
+  }
+
+
+
+  /**
+   * Tests to ensure that duplicates of requests created from a template are
+   * sent with the values used in place of the placeholders, and that the
+   * string representations of those requests include those values.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testDuplicateAndToString()
+         throws Exception
+  {
+    final LDAPRequestTemplate searchTemplate = new LDAPRequestTemplate(
+         new SearchRequest("dc=example,dc=com", SearchScope.SUB,
+              "(uid={uid})"),
+         "{uid}");
+    final SearchRequest searchRequest =
+         (SearchRequest) searchTemplate.createRequest("test.user");
+    final SearchRequest expectedSearchRequest = new SearchRequest(
+         "dc=example,dc=com", SearchScope.SUB, "(uid=test.user)");
+    assertEncodingsEqual(searchRequest.duplicate(), expectedSearchRequest);
+    assertEncodingsEqual(
+         searchRequest.duplicate(
+              new Control[] { new ManageDsaITRequestControl() }),
+         expectedSearchRequest.duplicate(
+              new Control[] { new ManageDsaITRequestControl() }));
+    assertTrue(searchRequest.toString().contains(
+         "templateValues={'{uid}'='test.user'}"),
+         searchRequest.toString());
+    assertFalse(searchTemplate.getRequest().toString().contains(
+         "templateValues"));
+
+    LDAPRequestTemplate template = new LDAPRequestTemplate(
+         new AddRequest(
+              "dn: uid=[uid],ou=People,dc=example,dc=com",
+              "objectClass: top",
+              "objectClass: person",
+              "uid: [uid]",
+              "sn: User",
+              "cn: Test User"),
+         "[uid]");
+    LDAPRequest r = template.createRequest("test.user");
+    assertEncodingsEqual(r.duplicate(),
+         new AddRequest(
+              "dn: uid=test.user,ou=People,dc=example,dc=com",
+              "objectClass: top",
+              "objectClass: person",
+              "uid: test.user",
+              "sn: User",
+              "cn: Test User"));
+    assertTrue(r.toString().contains("templateValues="));
+
+    template = new LDAPRequestTemplate(
+         new DeleteRequest("uid=[uid],ou=People,dc=example,dc=com"), "[uid]");
+    r = template.createRequest("test.user");
+    assertEncodingsEqual(r.duplicate(),
+         new DeleteRequest("uid=test.user,ou=People,dc=example,dc=com"));
+    assertTrue(r.toString().contains("templateValues="));
+
+    template = new LDAPRequestTemplate(
+         new CompareRequest("uid=[uid],ou=People,dc=example,dc=com", "cn",
+              "Test User"),
+         "[uid]");
+    r = template.createRequest("test.user");
+    assertEncodingsEqual(r.duplicate(),
+         new CompareRequest("uid=test.user,ou=People,dc=example,dc=com", "cn",
+              "Test User"));
+    assertTrue(r.toString().contains("templateValues="));
+
+    template = new LDAPRequestTemplate(
+         new ModifyRequest("uid=[uid],ou=People,dc=example,dc=com",
+              new Modification(ModificationType.DELETE, "description")),
+         "[uid]");
+    r = template.createRequest("test.user");
+    assertEncodingsEqual(r.duplicate(),
+         new ModifyRequest("uid=test.user,ou=People,dc=example,dc=com",
+              new Modification(ModificationType.DELETE, "description")));
+    assertTrue(r.toString().contains("templateValues="));
+
+    template = new LDAPRequestTemplate(
+         new ModifyDNRequest("uid=[uid],ou=People,dc=example,dc=com",
+              "uid=renamed", true),
+         "[uid]");
+    r = template.createRequest("test.user");
+    assertEncodingsEqual(r.duplicate(),
+         new ModifyDNRequest("uid=test.user,ou=People,dc=example,dc=com",
+              "uid=renamed", true));
+    assertTrue(r.toString().contains("templateValues="));
+
+    // Values used in place of placeholders in a bind password must not be
+    // included in the string representation.
+    template = new LDAPRequestTemplate(
+         new SimpleBindRequest("[dn]", "[password]"), "[dn]", "[password]");
+    final SimpleBindRequest bindRequest = (SimpleBindRequest)
+         template.createRequest("uid=test.user,ou=People,dc=example,dc=com",
+              "secret");
+    final SimpleBindRequest expectedBindRequest = new SimpleBindRequest(
+         "uid=test.user,ou=People,dc=example,dc=com", "secret");
+    assertEncodingsEqual(bindRequest.duplicate(), expectedBindRequest);
+    assertEncodingsEqual(bindRequest.getRebindRequest("localhost", 389),
+         expectedBindRequest);
+    assertTrue(bindRequest.toString().contains(
+         "'[password]'='---redacted-password---'"),
+         bindRequest.toString());
+    assertFalse(bindRequest.toString().contains("secret"));
+  }
+
+
+
+  /**
+   * Tests the behavior when trying to create a template from an unsupported
+   * type of request.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testUnsupportedRequestType()
+         throws Exception
+  {
+    new LDAPRequestTemplate(new PLAINBindRequest("u:{user}", "password"),
+         "{user}");
+  }
+
+
+
+  /**
+   * Tests the behavior when trying to create a template with an empty
+   * placeholder.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testEmptyPlaceholder()
+         throws Exception
+  {
+    new LDAPRequestTemplate(new DeleteRequest("dc=example,dc=com"), "");
+  }
+
+
+
+  /**
+   * Tests the behavior when trying to create a template with a duplicate
+   * placeholder.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testDuplicatePlaceholder()
+         throws Exception
+  {
+    new LDAPRequestTemplate(new DeleteRequest("uid={uid},dc=example,dc=com"),
+         "{uid}", "{uid}");
+  }
+
+
+
+  /**
+   * Tests the behavior when trying to create a template with a placeholder
+   * that does not appear in the request.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testMissingPlaceholder()
+         throws Exception
+  {
+    new LDAPRequestTemplate(new DeleteRequest("uid={uid},dc=example,dc=com"),
+         "{uid}", "{missing}");
+  }
+
+
+
+  /**
+   * Tests the behavior when trying to create a request with the wrong number
+   * of values.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPSDKUsageException.class })
+  public void testCreateRequestWrongNumberOfValues()
+         throws Exception
+  {
+    final LDAPRequestTemplate template = new LDAPRequestTemplate(
+         new DeleteRequest("uid={uid},dc=example,dc=com"), "{uid}");
+    template.createRequest("a", "b");
+  }
+
+
+
+  /**
+   * Ensures that the provided requests will be encoded identically, both with
+   * an ASN.1 buffer and as an ASN.1 element.
+   *
+   * @param  templateRequest  A request created from a template.
+   * @param  expectedRequest  The request that is expected to have the same
+   *                          encoding.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static void assertEncodingsEqual(final LDAPRequest templateRequest,
+                                           final LDAPRequest expectedRequest)
+          throws Exception
+  {
+    final LDAPMessage templateMessage = new LDAPMessage(123,
+         templateRequest.getProtocolOpToSend((ProtocolOp) templateRequest),
+         templateRequest.getControls());
+    final LDAPMessage expectedMessage = new LDAPMessage(123,
+         (ProtocolOp) expectedRequest, expectedRequest.getControls());
+
+    final ASN1Buffer templateBuffer = new ASN1Buffer();
+    templateMessage.writeTo(templateBuffer);
+
+    final ASN1Buffer expectedBuffer = new ASN1Buffer();
+    expectedMessage.writeTo(expectedBuffer);
+
+    assertEquals(templateBuffer.toByteArray(), expectedBuffer.toByteArray());
+    assertEquals(templateMessage.encode().encode(),
+         expectedBuffer.toByteArray());
+  }
+
+
+
+  /**
+   * Retrieves a string that is long enough to require a multi-byte length.
+   *
+   * @return  A string that is long enough to require a multi-byte length.
+   */
+  private static String getLongString()
+  {
+    final char[] chars = new char[300];
+    Arrays.fill(chars, 'x');
+    return new String(chars);
+  }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.interceptor.
+            InMemoryInterceptedSearchRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import com.unboundid.util.ObjectPair;
+
+
+
+/**
+ * This class provides a set of test cases for the latency-aware server set.
+ */
+public final class LatencyAwareServerSetTestCase
+       extends LDAPSDKTestCase
+{
+  // A directory server instance that responds quickly.
+  private InMemoryDirectoryServer fastDS = null;
+
+  // A directory server instance that delays its search responses.
+  private InMemoryDirectoryServer slowDS = null;
+
+  // The ports of the directory server instances.
+  private final int[] ports = new int[2];
+
+  // The addresses of the directory server instances.
+  private final String[] addresses = new String[2];
+
+
+
+  /**
+   * Prepares a couple of directory server instances to use in the testing.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @BeforeClass()
+  public void setUp()
+       throws Exception
+  {
+    fastDS = new InMemoryDirectoryServer("dc=example,dc=com");
+    fastDS.add(generateDomainEntry("example", "dc=com"));
+    fastDS.startListening();
+
+    final InMemoryDirectoryServerConfig slowConfig =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    slowConfig.addInMemoryOperationInterceptor(
+         new InMemoryOperationInterceptor()
+         {
+           @Override()
+           public void processSearchRequest(
+                            final InMemoryInterceptedSearchRequest request)
+           {
+             try
+             {
+               Thread.sleep(100L);
+             }
+             catch (final InterruptedException e)
+             {
+               // Ignore this.
+             }
+           }
+         });
+    slowDS = new InMemoryDirectoryServer(slowConfig);
+    slowDS.add(generateDomainEntry("example", "dc=com"));
+    slowDS.startListening();
+
+    addresses[0] = "localhost";
+    addresses[1] = "localhost";
+
+    ports[0] = fastDS.getListenPort();
+    ports[1] = slowDS.getListenPort();
+
+    // Process a search against the fast server so that any one-time
+    // initialization costs won't be included in its response times.
+    final LDAPConnection conn = fastDS.getConnection();
+    assertNotNull(conn.getEntry("dc=example,dc=com"));
+    conn.close();
+  }
+
+
+
+  /**
+   * Cleans up after testing has completed.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @AfterClass()
+  public void cleanUp()
+       throws Exception
+  {
+    fastDS.shutDown(true);
+    slowDS.shutDown(true);
+  }
+
+
+
+  /**
+   * Tests the constructors and getter methods.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConstructorsAndGetters()
+       throws Exception
+  {
+    LatencyAwareServerSet serverSet =
+         new LatencyAwareServerSet(addresses, ports);
+    assertEquals(serverSet.getAddresses(), addresses);
+    assertTrue(Arrays.equals(serverSet.getPorts(), ports));
+    assertNotNull(serverSet.getSocketFactory());
+    assertNotNull(serverSet.getConnectionOptions());
+    assertNotNull(serverSet.getBlacklistManager());
+    assertFalse(serverSet.includesAuthentication());
+    assertFalse(serverSet.includesPostConnectProcessing());
+    assertEquals(serverSet.getResponseTimeHalfLifeMillis(),
+         LatencyAwareServerSet.DEFAULT_RESPONSE_TIME_HALF_LIFE_MILLIS);
+    assertTrue(Double.isNaN(
+         serverSet.getAverageResponseTimeMillis("localhost", ports[0])));
+    assertTrue(Double.isNaN(
+         serverSet.getAverageResponseTimeMillis("nonexistent", 389)));
+    assertNotNull(serverSet.toString());
+    serverSet.shutDown();
+
+    serverSet = new LatencyAwareServerSet(addresses, ports, null, null,
+         new SimpleBindRequest(), null, 0L, 5_000L);
+    assertNull(serverSet.getBlacklistManager());
+    assertTrue(serverSet.includesAuthentication());
+    assertEquals(serverSet.getResponseTimeHalfLifeMillis(), 5_000L);
+    assertTrue(serverSet.toString().contains(
+         "responseTimeHalfLifeMillis=5000"));
+
+    final LDAPConnection conn = serverSet.getConnection();
+    assertTrue(conn.isConnected());
+    conn.close();
+  }
+
+
+
+  /**
+   * Tests that new connections are preferentially established to the server
+   * with the lower response time.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test()
+  public void testPrefersFasterServer()
+       throws Exception
+  {
+    final LatencyAwareServerSet serverSet = new LatencyAwareServerSet(
+         addresses, ports, null, null, null, null, 0L, 1_000L);
+
+    final List<LDAPConnection> connections = new ArrayList<>(12);
+    try
+    {
+      // With no response time information, the first two connections should
+      // go to different servers because of the connection counts.
+      final LDAPConnection c1 = serverSet.getConnection();
+      final LDAPConnection c2 = serverSet.getConnection();
+      connections.add(c1);
+      connections.add(c2);
+      assertTrue(c1.getConnectedPort() != c2.getConnectedPort());
+
+      for (int i=0; i < 10; i++)
+      {
+        assertNotNull(c1.getEntry("dc=example,dc=com"));
+        assertNotNull(c2.getEntry("dc=example,dc=com"));
+      }
+
+      int numFast = 0;
+      for (int i=0; i < 10; i++)
+      {
+        final LDAPConnection conn = serverSet.getConnection();
+        connections.add(conn);
+        if (conn.getConnectedPort() == ports[0])
+        {
+          numFast++;
+        }
+      }
+
+      assertTrue((numFast >= 8),
+           "Only " + numFast + " connections went to the fast server");
+
+      final double fastAverage =
+           serverSet.getAverageResponseTimeMillis("localhost", ports[0]);
+      final double slowAverage =
+           serverSet.getAverageResponseTimeMillis("localhost", ports[1]);
+      assertFalse(Double.isNaN(fastAverage));
+      assertTrue(slowAverage >= 100.0d, "Slow average is " + slowAverage);
+      assertTrue(fastAverage < slowAverage);
+      assertTrue(serverSet.toString().contains("connections=11"));
+    }
+    finally
+    {
+      for (final LDAPConnection conn : connections)
+      {
+        conn.close();
+      }
+    }
+
+    assertFalse(serverSet.toString().contains("connections=11"));
+  }
+
+
+
+  /**
+   * Tests the behavior when one of the servers is unavailable.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test()
+  public void testServerUnavailable()
+       throws Exception
+  {
+    final InMemoryDirectoryServer ds =
+         new InMemoryDirectoryServer("dc=example,dc=com");
+    ds.startListening();
+    final int downPort = ds.getListenPort();
+    ds.shutDown(true);
+
+    final LatencyAwareServerSet serverSet = new LatencyAwareServerSet(
+         new String[] { "localhost", "localhost" },
+         new int[] { downPort, ports[0] });
+    try
+    {
+      for (int i=0; i < 5; i++)
+      {
+        final LDAPConnection conn = serverSet.getConnection();
+        assertEquals(conn.getConnectedPort(), ports[0]);
+        conn.close();
+      }
+
+      assertFalse(serverSet.getBlacklistManager().isBlacklisted(
+           "localhost", ports[0]));
+    }
+    finally
+    {
+      serverSet.shutDown();
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior when all of the servers are blacklisted and another
+   * thread already holds the probe permit for each of them, so that no
+   * connection attempt can be made.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testAllBlacklistedServersBeingProbed()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds =
+         new InMemoryDirectoryServer("dc=example,dc=com");
+    ds.startListening();
+    final int port = ds.getListenPort();
+    ds.shutDown(true);
+
+    final LatencyAwareServerSet serverSet = new LatencyAwareServerSet(
+         new String[] { "localhost" }, new int[] { port });
+    final ServerSetBlacklistManager blacklistManager =
+         serverSet.getBlacklistManager();
+    assertNotNull(blacklistManager);
+
+    final ObjectPair<String,Integer> hostPort =
+         new ObjectPair<>("localhost", port);
+    try
+    {
+      blacklistManager.addToBlacklist(hostPort, null);
+      assertTrue(blacklistManager.tryAcquireProbePermit(hostPort));
+
+      try
+      {
+        serverSet.getConnection();
+        fail("Expected an exception when all servers are being probed");
+      }
+      catch (final LDAPException le)
+      {
+        assertEquals(le.getResultCode(), ResultCode.CONNECT_ERROR);
+      }
+
+      // Once the permit is released, the server should be tried again.
+      blacklistManager.probeFailed(hostPort, null);
+      try
+      {
+        serverSet.getConnection();
+        fail("Expected an exception when the server is down");
+      }
+      catch (final LDAPException le)
+      {
+        assertEquals(le.getResultCode(), ResultCode.CONNECT_ERROR);
+      }
+    }
+    finally
+    {
+      serverSet.shutDown();
+    }
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import org.testng.annotations.Test;
+
+import com.unboundid.util.LDAPSDKUsageException;
+
+
+
+/**
+ * This class provides a set of test cases for the
+ * {@code LatencyHistogramSnapshot} class.
+ */
+public class LatencyHistogramSnapshotTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the behavior of an empty snapshot.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testEmptySnapshot()
+         throws Exception
+  {
+    final LatencyHistogramSnapshot s = new LatencyHistogram().getSnapshot();
+
+    assertEquals(s.getCount(), 0L);
+    assertEquals(s.getTotalNanos(), 0L);
+    assertEquals(s.getMinimumNanos(), 0L);
+    assertEquals(s.getMaximumNanos(), 0L);
+    assertTrue(Double.isNaN(s.getAverageNanos()));
+    assertEquals(s.getPercentileNanos(50.0d), 0L);
+    assertEquals(s.getPercentileNanos(100.0d), 0L);
+    assertEquals(s.toString(), "LatencyHistogramSnapshot(count=0)");
+  }
+
+
+
+  /**
+   * Tests the behavior of a snapshot with values whose distribution has a
+   * long tail.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testPercentiles()
+         throws Exception
+  {
+    final LatencyHistogram h = new LatencyHistogram();
+    for (int i=0; i < 990; i++)
+    {
+      h.record(100_000L);
+    }
+    for (int i=0; i < 9; i++)
+    {
+      h.record(5_000_000L);
+    }
+    h.record(250_000_000L);
+
+    final LatencyHistogramSnapshot s = h.getSnapshot();
+    assertEquals(s.getCount(), 1000L);
+    assertEquals(s.getMinimumNanos(), 100_000L);
+    assertEquals(s.getMaximumNanos(), 250_000_000L);
+    assertEquals(s.getAverageNanos(),
+         (990.0d * 100_000L + 9.0d * 5_000_000L + 250_000_000L) / 1000.0d);
+
+    assertWithin(s.getPercentileNanos(50.0d), 100_000L);
+    assertWithin(s.getPercentileNanos(99.0d), 100_000L);
+    assertWithin(s.getPercentileNanos(99.5d), 5_000_000L);
+    assertWithin(s.getPercentileNanos(99.9d), 5_000_000L);
+    assertEquals(s.getPercentileNanos(100.0d), 250_000_000L);
+
+    final String str = s.toString();
+    assertTrue(str.startsWith("LatencyHistogramSnapshot(count=1000, "));
+    assertTrue(str.contains("p99Nanos="));
+  }
+
+
+
+  /**
+   * Tests that an invalid percentile is rejected.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPSDKUsageException.class })
+  public void testInvalidPercentile()
+         throws Exception
+  {
+    final LatencyHistogram h = new LatencyHistogram();
+    h.record(1L);
+    h.getSnapshot().getPercentileNanos(0.0d);
+  }
+
+
+
+  /**
+   * Tests the behavior when merging snapshots.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testMerge()
+         throws Exception
+  {
+    final LatencyHistogramSnapshot empty = new LatencyHistogram().getSnapshot();
+
+    final LatencyHistogram h1 = new LatencyHistogram();
+    h1.record(1_000L);
+    h1.record(2_000L);
+    final LatencyHistogramSnapshot s1 = h1.getSnapshot();
+
+    final LatencyHistogram h2 = new LatencyHistogram();
+    h2.record(500L);
+    h2.record(8_000L);
+    final LatencyHistogramSnapshot s2 = h2.getSnapshot();
+
+    assertSame(s1.merge(empty), s1);
+    assertSame(empty.merge(s1), s1);
+
+    final LatencyHistogramSnapshot merged = s1.merge(s2);
+    assertEquals(merged.getCount(), 4L);
+    assertEquals(merged.getTotalNanos(), 11_500L);
+    assertEquals(merged.getMinimumNanos(), 500L);
+    assertEquals(merged.getMaximumNanos(), 8_000L);
+    assertWithin(merged.getPercentileNanos(50.0d), 1_000L);
+    assertWithin(merged.getPercentileNanos(75.0d), 2_000L);
+
+    // The original snapshots should not have been altered.
+    assertEquals(s1.getCount(), 2L);
+    assertEquals(s2.getCount(), 2L);
+  }
+
+
+
+  /**
+   * Ensures that the provided value is within about three percent of the
+   * expected value.
+   *
+   * @param  value     The value to check.
+   * @param  expected  The expected value.
+   */
+  private static void assertWithin(final long value, final long expected)
+  {
+    final long tolerance = Math.max(1L, expected / 32L);
+    assertTrue(Math.abs(value - expected) <= tolerance,
+         "Value " + value + " is not within " + tolerance + " of " + expected);
+  }
+}
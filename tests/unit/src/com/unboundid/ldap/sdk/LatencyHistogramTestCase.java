@@ -0,0 +1,287 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+
+
+/**
+ * This class provides a set of test cases for the {@code LatencyHistogram}
+ * class.
+ */
+public class LatencyHistogramTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the behavior of the methods used to map values to buckets and
+   * buckets back to values.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testBuckets()
+         throws Exception
+  {
+    for (long v=0L; v < 16L; v++)
+    {
+      final int index = LatencyHistogram.getBucketIndex(v);
+      assertEquals(index, (int) v);
+      assertEquals(LatencyHistogram.getBucketLowerBound(index), v);
+      assertEquals(LatencyHistogram.getBucketUpperBound(index), v);
+    }
+
+    // Every bucket should immediately follow the previous one, and each value
+    // should map to the bucket whose bounds contain it.
+    long expectedLowerBound = 0L;
+    for (int i=0; i < LatencyHistogram.NUM_BUCKETS; i++)
+    {
+      final long lower = LatencyHistogram.getBucketLowerBound(i);
+      final long upper = LatencyHistogram.getBucketUpperBound(i);
+      assertEquals(lower, expectedLowerBound);
+      assertTrue(upper >= lower);
+      assertEquals(LatencyHistogram.getBucketIndex(lower), i);
+      assertEquals(
+           LatencyHistogram.getBucketIndex(lower + ((upper - lower) / 2L)), i);
+
+      if (i < (LatencyHistogram.NUM_BUCKETS - 1))
+      {
+        assertEquals(LatencyHistogram.getBucketIndex(upper), i);
+      }
+
+      // The width of each bucket should be no more than 1/16 of its lower
+      // bound.
+      if (lower >= 16L)
+      {
+        assertTrue((upper - lower + 1L) <= (lower / 16L));
+      }
+
+      expectedLowerBound = upper + 1L;
+    }
+
+    assertEquals(LatencyHistogram.getBucketIndex(Long.MAX_VALUE),
+         LatencyHistogram.NUM_BUCKETS - 1);
+    assertEquals(LatencyHistogram.getBucketIndex(1L << 38),
+         LatencyHistogram.NUM_BUCKETS - 1);
+  }
+
+
+
+  /**
+   * Tests the behavior when recording values and retrieving snapshots.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testRecordAndSnapshot()
+         throws Exception
+  {
+    final LatencyHistogram h = new LatencyHistogram();
+    assertNotNull(h.toString());
+
+    LatencyHistogramSnapshot s = h.getSnapshot();
+    assertEquals(s.getCount(), 0L);
+
+    for (long v=1L; v <= 1000L; v++)
+    {
+      h.record(v * 1000L);
+    }
+    h.record(-5L);
+
+    s = h.getSnapshot();
+    assertEquals(s.getCount(), 1001L);
+    assertEquals(s.getMinimumNanos(), 0L);
+    assertEquals(s.getMaximumNanos(), 1_000_000L);
+    assertEquals(s.getTotalNanos(), 500_500_000L);
+
+    final long p50 = s.getPercentileNanos(50.0d);
+    assertTrue((p50 >= 485_000L) && (p50 <= 515_000L), String.valueOf(p50));
+
+    final long p99 = s.getPercentileNanos(99.0d);
+    assertTrue((p99 >= 960_000L) && (p99 <= 1_000_000L), String.valueOf(p99));
+
+    assertEquals(s.getPercentileNanos(100.0d), 1_000_000L);
+
+    // Taking a snapshot without resetting should not affect the histogram.
+    assertEquals(h.getSnapshot().getCount(), 1001L);
+
+    // Taking a snapshot with a reset should return the same values, but the
+    // next snapshot should be empty.
+    s = h.getSnapshot(true);
+    assertEquals(s.getCount(), 1001L);
+    assertEquals(h.getSnapshot().getCount(), 0L);
+
+    h.record(12_345L);
+    s = h.getSnapshot();
+    assertEquals(s.getCount(), 1L);
+    assertEquals(s.getMinimumNanos(), 12_345L);
+    assertEquals(s.getMaximumNanos(), 12_345L);
+    assertEquals(s.getPercentileNanos(50.0d), 12_345L);
+
+    h.reset();
+    assertEquals(h.getSnapshot().getCount(), 0L);
+  }
+
+
+
+  /**
+   * Retrieves the values to use for the striped argument of tests that cover
+   * both striped and unstriped histograms.
+   *
+   * @return  The values to use for the striped argument.
+   */
+  @DataProvider(name="stripedValues")
+  public Object[][] getStripedValues()
+  {
+    return new Object[][]
+    {
+      new Object[] { false },
+      new Object[] { true }
+    };
+  }
+
+
+
+  /**
+   * Tests the behavior when recording values from multiple threads at the
+   * same time.
+   *
+   * @param  striped  Indicates whether to use a striped histogram.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="stripedValues")
+  public void testConcurrentRecording(final boolean striped)
+         throws Exception
+  {
+    final LatencyHistogram h = new LatencyHistogram(striped);
+    final int numThreads = 8;
+    final int valuesPerThread = 10_000;
+    final CountDownLatch startLatch = new CountDownLatch(1);
+
+    final List<Thread> threads = new ArrayList<>(numThreads);
+    for (int i=0; i < numThreads; i++)
+    {
+      final Thread t = new Thread()
+      {
+        @Override()
+        public void run()
+        {
+          try
+          {
+            startLatch.await();
+          }
+          catch (final InterruptedException e)
+          {
+            return;
+          }
+
+          for (int j=1; j <= valuesPerThread; j++)
+          {
+            h.record(j);
+          }
+        }
+      };
+
+      t.start();
+      threads.add(t);
+    }
+
+    startLatch.countDown();
+    for (final Thread t : threads)
+    {
+      t.join();
+    }
+
+    final LatencyHistogramSnapshot s = h.getSnapshot();
+    assertEquals(s.getCount(), (long) numThreads * valuesPerThread);
+    assertEquals(s.getMinimumNanos(), 1L);
+    assertEquals(s.getMaximumNanos(), (long) valuesPerThread);
+    assertEquals(s.getTotalNanos(),
+         numThreads * ((long) valuesPerThread * (valuesPerThread + 1) / 2L));
+  }
+
+
+
+  /**
+   * Tests the methods used to maintain a set of histograms for each operation
+   * type.
+   *
+   * @param  striped  Indicates whether to use striped histograms.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="stripedValues")
+  public void testOperationHistograms(final boolean striped)
+         throws Exception
+  {
+    final LatencyHistogram[] histograms =
+         LatencyHistogram.createOperationHistograms(striped);
+    assertEquals(histograms.length, OperationType.values().length);
+
+    for (final OperationType t : OperationType.values())
+    {
+      LatencyHistogram.recordOperation(histograms, t, 1000L);
+
+      final long expectedCount;
+      if ((t == OperationType.ABANDON) || (t == OperationType.UNBIND))
+      {
+        expectedCount = 0L;
+      }
+      else
+      {
+        expectedCount = 1L;
+      }
+
+      assertEquals(LatencyHistogram.getOperationSnapshot(histograms, t,
+           false).getCount(), expectedCount);
+    }
+
+    LatencyHistogram.resetOperations(histograms);
+    for (final OperationType t : OperationType.values())
+    {
+      assertEquals(LatencyHistogram.getOperationSnapshot(histograms, t,
+           false).getCount(), 0L);
+    }
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.testng.annotations.Test;
+
+import com.unboundid.util.ByteStringBuffer;
+
+
+
+/**
+ * This class provides a set of test cases for the
+ * {@code LazilyDecodedAttributeMap} class.
+ */
+public class LazilyDecodedAttributeMapTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests to ensure that each of the default methods of the {@code Map}
+   * interface decodes the attributes before it is used, so that it behaves
+   * the same as it would for an eagerly populated map.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testDefaultMethodsDecodeAttributes()
+         throws Exception
+  {
+    final Attribute cn = new Attribute("cn", "Test User");
+    final Attribute sn = new Attribute("sn", "User");
+    final Attribute description = new Attribute("description", "foo");
+
+    assertEquals(createMap().getOrDefault("cn", description), cn);
+
+    Map<String,Attribute> m = createMap();
+    assertEquals(m.putIfAbsent("cn", description), cn);
+    assertEquals(m.get("cn"), cn);
+    assertEquals(m.size(), 2);
+
+    m = createMap();
+    assertFalse(m.remove("cn", description));
+    assertTrue(m.remove("cn", cn));
+    assertEquals(m.keySet(), Collections.singleton("sn"));
+
+    m = createMap();
+    assertTrue(m.replace("cn", cn, description));
+    assertEquals(m.get("cn"), description);
+
+    m = createMap();
+    assertEquals(m.replace("sn", description), sn);
+    assertEquals(m.get("sn"), description);
+
+    m = createMap();
+    m.replaceAll(new BiFunction<String,Attribute,Attribute>()
+    {
+      @Override()
+      public Attribute apply(final String k, final Attribute v)
+      {
+        return description;
+      }
+    });
+    assertEquals(m.size(), 2);
+    assertEquals(m.get("cn"), description);
+    assertEquals(m.get("sn"), description);
+
+    m = createMap();
+    assertEquals(m.computeIfAbsent("cn",
+         new Function<String,Attribute>()
+         {
+           @Override()
+           public Attribute apply(final String k)
+           {
+             return description;
+           }
+         }),
+         cn);
+
+    final BiFunction<Attribute,Attribute,Attribute> replaceFunction =
+         new BiFunction<Attribute,Attribute,Attribute>()
+         {
+           @Override()
+           public Attribute apply(final Attribute oldValue,
+                                  final Attribute newValue)
+           {
+             return newValue;
+           }
+         };
+    final BiFunction<String,Attribute,Attribute> computeFunction =
+         new BiFunction<String,Attribute,Attribute>()
+         {
+           @Override()
+           public Attribute apply(final String k, final Attribute v)
+           {
+             return (v == null) ? null : description;
+           }
+         };
+
+    m = createMap();
+    assertEquals(m.computeIfPresent("cn", computeFunction), description);
+    assertEquals(m.get("cn"), description);
+
+    m = createMap();
+    assertEquals(m.compute("sn", computeFunction), description);
+    assertEquals(m.size(), 2);
+
+    m = createMap();
+    assertEquals(m.merge("cn", description, replaceFunction), description);
+    assertEquals(m.size(), 2);
+    assertEquals(m.get("sn"), sn);
+  }
+
+
+
+  /**
+   * Tests the behavior when cloning a map whose attributes have not yet been
+   * decoded.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testClone()
+         throws Exception
+  {
+    final LazilyDecodedAttributeMap m = createMap();
+
+    @SuppressWarnings("unchecked")
+    final Map<String,Attribute> clone = (Map<String,Attribute>) m.clone();
+    assertEquals(clone.getClass(), LazilyDecodedAttributeMap.class);
+    assertEquals(clone.keySet(), m.keySet());
+    assertEquals(clone.get("cn"), new Attribute("cn", "Test User"));
+
+    clone.remove("cn");
+    assertEquals(m.size(), 2);
+    assertEquals(Arrays.asList(clone.keySet().toArray()),
+         Collections.singletonList("sn"));
+  }
+
+
+
+  /**
+   * Creates a lazily decoded attribute map with attributes cn and sn that have
+   * not yet been decoded.
+   *
+   * @return  The lazily decoded attribute map that was created.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static LazilyDecodedAttributeMap createMap()
+          throws Exception
+  {
+    final ByteStringBuffer buffer = new ByteStringBuffer();
+    buffer.append(new Attribute("cn", "Test User").encode().encode());
+    buffer.append(new Attribute("sn", "User").encode().encode());
+
+    final byte[] encodedAttributes = buffer.toByteArray();
+    return new LazilyDecodedAttributeMap(encodedAttributes,
+         LazilyDecodedAttributeMap.validate(encodedAttributes), null);
+  }
+}
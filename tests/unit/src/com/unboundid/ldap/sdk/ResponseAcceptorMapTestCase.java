@@ -0,0 +1,303 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.protocol.LDAPResponse;
+
+
+
+/**
+ * This class provides a set of test cases for the response acceptor map.
+ */
+public class ResponseAcceptorMapTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the basic behavior of the map.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testBasicOperations()
+         throws Exception
+  {
+    final ResponseAcceptorMap map = new ResponseAcceptorMap();
+    assertEquals(map.size(), 0);
+    assertEquals(map.getMessageIDs().length, 0);
+    assertNull(map.get(1));
+    assertNull(map.remove(1));
+
+    final TestAcceptor a1 = new TestAcceptor();
+    final TestAcceptor a2 = new TestAcceptor();
+    final TestAcceptor a17 = new TestAcceptor();
+
+    assertNull(map.putIfAbsent(1, a1));
+    assertNull(map.putIfAbsent(2, a2));
+    assertNull(map.putIfAbsent(17, a17));
+    assertEquals(map.size(), 3);
+
+    assertSame(map.putIfAbsent(1, a2), a1);
+    assertSame(map.putIfAbsent(17, a1), a17);
+    assertEquals(map.size(), 3);
+
+    assertSame(map.get(1), a1);
+    assertSame(map.get(2), a2);
+    assertSame(map.get(17), a17);
+    assertNull(map.get(33));
+    assertNull(map.get(0));
+
+    final int[] messageIDs = map.getMessageIDs();
+    Arrays.sort(messageIDs);
+    assertTrue(Arrays.equals(messageIDs, new int[] { 1, 2, 17 }));
+
+    assertSame(map.remove(1), a1);
+    assertNull(map.get(1));
+    assertSame(map.get(17), a17);
+    assertNull(map.remove(1));
+    assertEquals(map.size(), 2);
+
+    assertSame(map.remove(17), a17);
+    assertSame(map.remove(2), a2);
+    assertEquals(map.size(), 0);
+    assertEquals(map.getMessageIDs().length, 0);
+  }
+
+
+
+  /**
+   * Tests the behavior of the map when a large number of operations are
+   * outstanding at the same time, and then when they are completed.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testGrowAndShrink()
+         throws Exception
+  {
+    final ResponseAcceptorMap map = new ResponseAcceptorMap();
+    final TestAcceptor acceptor = new TestAcceptor();
+
+    for (int i=1; i <= 10_000; i++)
+    {
+      assertNull(map.putIfAbsent(i, acceptor));
+    }
+
+    assertEquals(map.size(), 10_000);
+    assertTrue(map.getCapacity() > 10_000);
+    assertEquals(map.getMessageIDs().length, 10_000);
+
+    for (int i=1; i <= 10_000; i++)
+    {
+      assertSame(map.get(i), acceptor);
+    }
+
+    for (int i=1; i <= 10_000; i++)
+    {
+      assertSame(map.remove(i), acceptor);
+      assertNull(map.get(i));
+    }
+
+    assertEquals(map.size(), 0);
+    assertEquals(map.getCapacity(), ResponseAcceptorMap.MIN_CAPACITY);
+  }
+
+
+
+  /**
+   * Tests the behavior of the map when one operation remains outstanding while
+   * a large number of other operations are processed, including when the
+   * message ID wraps around.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testLongRunningOperation()
+         throws Exception
+  {
+    final ResponseAcceptorMap map = new ResponseAcceptorMap();
+    final TestAcceptor longRunningAcceptor = new TestAcceptor();
+    final TestAcceptor acceptor = new TestAcceptor();
+
+    assertNull(map.putIfAbsent(Integer.MAX_VALUE - 50_000,
+         longRunningAcceptor));
+
+    int messageID = Integer.MAX_VALUE - 49_999;
+    for (int i=0; i < 100_000; i++)
+    {
+      assertNull(map.putIfAbsent(messageID, acceptor));
+      assertNull(map.putIfAbsent(messageID + 1, acceptor));
+      assertSame(map.get(messageID), acceptor);
+      assertSame(map.remove(messageID), acceptor);
+      assertSame(map.remove(messageID + 1), acceptor);
+
+      if (messageID == Integer.MAX_VALUE)
+      {
+        messageID = 1;
+      }
+      else
+      {
+        messageID++;
+      }
+    }
+
+    assertEquals(map.size(), 1);
+    assertEquals(map.getCapacity(), ResponseAcceptorMap.MIN_CAPACITY);
+    assertSame(map.get(Integer.MAX_VALUE - 50_000), longRunningAcceptor);
+    assertTrue(Arrays.equals(map.getMessageIDs(),
+         new int[] { Integer.MAX_VALUE - 50_000 }));
+  }
+
+
+
+  /**
+   * Tests the behavior of the map when it is accessed concurrently by multiple
+   * threads registering and removing acceptors, and another thread performing
+   * lookups.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConcurrentAccess()
+         throws Exception
+  {
+    final ResponseAcceptorMap map = new ResponseAcceptorMap();
+    final int numThreads = 8;
+    final int operationsPerThread = 20_000;
+
+    final CountDownLatch startLatch = new CountDownLatch(1);
+    final AtomicBoolean stopReader = new AtomicBoolean(false);
+    final AtomicReference<String> failure = new AtomicReference<>();
+
+    final List<Thread> threads = new ArrayList<>(numThreads);
+    for (int t=0; t < numThreads; t++)
+    {
+      final int threadNumber = t;
+      final Thread thread = new Thread()
+      {
+        @Override()
+        public void run()
+        {
+          final TestAcceptor acceptor = new TestAcceptor();
+          try
+          {
+            startLatch.await();
+            for (int i=0; i < operationsPerThread; i++)
+            {
+              final int messageID = (i * numThreads) + threadNumber + 1;
+              if (map.putIfAbsent(messageID, acceptor) != null)
+              {
+                failure.compareAndSet(null, "Duplicate ID " + messageID);
+              }
+
+              if (map.get(messageID) != acceptor)
+              {
+                failure.compareAndSet(null, "Missing ID " + messageID);
+              }
+
+              if (map.remove(messageID) != acceptor)
+              {
+                failure.compareAndSet(null, "Not removed " + messageID);
+              }
+            }
+          }
+          catch (final Exception e)
+          {
+            failure.compareAndSet(null, String.valueOf(e));
+          }
+        }
+      };
+
+      thread.start();
+      threads.add(thread);
+    }
+
+    final Thread readerThread = new Thread()
+    {
+      @Override()
+      public void run()
+      {
+        int messageID = 1;
+        while (! stopReader.get())
+        {
+          map.get(messageID);
+          messageID = (messageID % (numThreads * operationsPerThread)) + 1;
+        }
+      }
+    };
+    readerThread.start();
+
+    startLatch.countDown();
+    for (final Thread t : threads)
+    {
+      t.join();
+    }
+
+    stopReader.set(true);
+    readerThread.join();
+
+    assertNull(failure.get(), failure.get());
+    assertEquals(map.size(), 0);
+  }
+
+
+
+  /**
+   * A response acceptor that may be used for testing purposes.
+   */
+  private static final class TestAcceptor
+          implements ResponseAcceptor
+  {
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void responseReceived(final LDAPResponse response)
+    {
+      // No implementation required.
+    }
+  }
+}
@@ -0,0 +1,621 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+
+
+
+/**
+ * This class provides a set of test cases for the search entry publisher.
+ */
+public class SearchEntryPublisherTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * The number of user entries that will be added to the test server.
+   */
+  private static final int NUM_USERS = 500;
+
+
+
+  /**
+   * Retrieves a set of boolean values that indicate whether connections
+   * should use shared selector readers.
+   *
+   * @return  A set of boolean values that indicate whether connections should
+   *          use shared selector readers.
+   */
+  @DataProvider(name="sharedSelectorReaders")
+  public Object[][] getSharedSelectorReaders()
+  {
+    return new Object[][]
+    {
+      new Object[] { false },
+      new Object[] { true }
+    };
+  }
+
+
+
+  /**
+   * Tests the behavior of a subscriber that requests one entry at a time.
+   *
+   * @param  useSharedSelectorReaders  Indicates whether the connection should
+   *                                   use a shared selector reader.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="sharedSelectorReaders")
+  public void testRequestOneAtATime(final boolean useSharedSelectorReaders)
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getPopulatedDS();
+    final LDAPConnection conn = getConnection(ds, useSharedSelectorReaders);
+
+    try
+    {
+      final TestSubscriber subscriber = new TestSubscriber(1L, true);
+      conn.searchPublisher(new SearchRequest("ou=People,dc=example,dc=com",
+           SearchScope.ONE, "(objectClass=person)")).subscribe(subscriber);
+
+      final SearchResult searchResult = subscriber.awaitResult();
+      assertEquals(searchResult.getResultCode(), ResultCode.SUCCESS);
+      assertEquals(searchResult.getEntryCount(), NUM_USERS);
+      assertNull(searchResult.getSearchEntries());
+      assertEquals(subscriber.getEntries().size(), NUM_USERS);
+      assertFalse(getReader(conn).isReadingSuspended());
+
+      // Make sure that the connection is still usable.
+      assertNotNull(conn.getEntry("dc=example,dc=com"));
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that the connection stops reading from the server when the
+   * subscriber has not requested any more entries, and that it starts reading
+   * again when more entries are requested.
+   *
+   * @param  useSharedSelectorReaders  Indicates whether the connection should
+   *                                   use a shared selector reader.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="sharedSelectorReaders")
+  public void testBackpressure(final boolean useSharedSelectorReaders)
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getPopulatedDS();
+    final LDAPConnection conn = getConnection(ds, useSharedSelectorReaders);
+
+    try
+    {
+      final TestSubscriber subscriber = new TestSubscriber(5L, false);
+      conn.searchPublisher(new SearchRequest("ou=People,dc=example,dc=com",
+           SearchScope.ONE, "(objectClass=person)")).subscribe(subscriber);
+
+      final LDAPConnectionReader reader = getReader(conn);
+      final long stopTime = System.currentTimeMillis() + 30_000L;
+      while ((! reader.isReadingSuspended()) &&
+           (System.currentTimeMillis() < stopTime))
+      {
+        Thread.sleep(1L);
+      }
+
+      assertTrue(reader.isReadingSuspended());
+      assertEquals(subscriber.getEntries().size(), 5);
+      assertFalse(subscriber.isDone());
+
+      Thread.sleep(50L);
+      assertEquals(subscriber.getEntries().size(), 5);
+      assertTrue(reader.isReadingSuspended());
+
+      subscriber.getSubscription().request(Long.MAX_VALUE);
+      final SearchResult searchResult = subscriber.awaitResult();
+      assertEquals(searchResult.getEntryCount(), NUM_USERS);
+      assertEquals(subscriber.getEntries().size(), NUM_USERS);
+      assertFalse(reader.isReadingSuspended());
+
+      assertNotNull(conn.getEntry("dc=example,dc=com"));
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior when the subscriber cancels the subscription.
+   *
+   * @param  useSharedSelectorReaders  Indicates whether the connection should
+   *                                   use a shared selector reader.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="sharedSelectorReaders")
+  public void testCancel(final boolean useSharedSelectorReaders)
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getPopulatedDS();
+    final LDAPConnection conn = getConnection(ds, useSharedSelectorReaders);
+
+    try
+    {
+      final TestSubscriber subscriber = new TestSubscriber(1L, false);
+      conn.searchPublisher(new SearchRequest("ou=People,dc=example,dc=com",
+           SearchScope.ONE, "(objectClass=person)")).subscribe(subscriber);
+
+      final LDAPConnectionReader reader = getReader(conn);
+      final long stopTime = System.currentTimeMillis() + 30_000L;
+      while ((! reader.isReadingSuspended()) &&
+           (System.currentTimeMillis() < stopTime))
+      {
+        Thread.sleep(1L);
+      }
+      assertTrue(reader.isReadingSuspended());
+
+      subscriber.getSubscription().cancel();
+      assertFalse(reader.isReadingSuspended());
+      assertEquals(subscriber.getEntries().size(), 1);
+
+      // Additional requests should not have any effect.
+      subscriber.getSubscription().request(10L);
+      assertEquals(subscriber.getEntries().size(), 1);
+      assertFalse(subscriber.isDone());
+
+      assertNotNull(conn.getEntry("dc=example,dc=com"));
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior for a search that does not complete successfully.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSearchFailure()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+    final LDAPConnection conn = ds.getConnection();
+
+    try
+    {
+      final TestSubscriber subscriber = new TestSubscriber(1L, true);
+      conn.searchPublisher(new SearchRequest("ou=missing,dc=example,dc=com",
+           SearchScope.SUB, "(objectClass=*)")).subscribe(subscriber);
+
+      final LDAPSearchException lse = subscriber.awaitException();
+      assertEquals(lse.getResultCode(), ResultCode.NO_SUCH_OBJECT);
+      assertTrue(subscriber.getEntries().isEmpty());
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior when the subscriber requests an invalid number of
+   * entries.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testInvalidDemand()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+    final LDAPConnection conn = ds.getConnection();
+
+    try
+    {
+      final TestSubscriber subscriber = new TestSubscriber(0L, false);
+      conn.searchPublisher(new SearchRequest("dc=example,dc=com",
+           SearchScope.SUB, "(objectClass=*)")).subscribe(subscriber);
+
+      final LDAPSearchException lse = subscriber.awaitException();
+      assertEquals(lse.getResultCode(), ResultCode.PARAM_ERROR);
+      assertTrue(subscriber.getEntries().isEmpty());
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that a publisher only allows a single subscriber.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testMultipleSubscribers()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+    final LDAPConnection conn = ds.getConnection();
+
+    try
+    {
+      final SearchEntryPublisher publisher = conn.searchPublisher(
+           new SearchRequest("dc=example,dc=com", SearchScope.SUB,
+                "(objectClass=*)"));
+
+      final TestSubscriber subscriber1 = new TestSubscriber(1L, true);
+      publisher.subscribe(subscriber1);
+      assertEquals(subscriber1.awaitResult().getEntryCount(), 3);
+      assertEquals(subscriber1.getEntries().size(), 3);
+
+      final TestSubscriber subscriber2 = new TestSubscriber(1L, true);
+      publisher.subscribe(subscriber2);
+      assertEquals(subscriber2.awaitException().getResultCode(),
+           ResultCode.LOCAL_ERROR);
+      assertTrue(subscriber2.getEntries().isEmpty());
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior for a connection operating in synchronous mode.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSynchronousMode()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUseSynchronousMode(true);
+    final LDAPConnection conn =
+         new LDAPConnection(options, "127.0.0.1", ds.getListenPort());
+
+    try
+    {
+      final TestSubscriber subscriber = new TestSubscriber(1L, true);
+      conn.searchPublisher(new SearchRequest("dc=example,dc=com",
+           SearchScope.SUB, "(objectClass=*)")).subscribe(subscriber);
+      assertEquals(subscriber.awaitException().getResultCode(),
+           ResultCode.NOT_SUPPORTED);
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Retrieves the test directory server populated with a number of user
+   * entries.
+   *
+   * @return  The populated test directory server.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static InMemoryDirectoryServer getPopulatedDS()
+          throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+    ds.delete("uid=test.user,ou=People,dc=example,dc=com");
+
+    final StringBuilder description = new StringBuilder();
+    for (int i=0; i < 1000; i++)
+    {
+      description.append('x');
+    }
+
+    for (int i=0; i < NUM_USERS; i++)
+    {
+      ds.add(
+           "dn: uid=user." + i + ",ou=People,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: person",
+           "objectClass: organizationalPerson",
+           "objectClass: inetOrgPerson",
+           "uid: user." + i,
+           "givenName: User",
+           "sn: " + i,
+           "cn: User " + i,
+           "description: " + description);
+    }
+
+    return ds;
+  }
+
+
+
+  /**
+   * Creates a connection to the provided server.
+   *
+   * @param  ds                        The server to which the connection
+   *                                   should be established.
+   * @param  useSharedSelectorReaders  Indicates whether the connection should
+   *                                   use a shared selector reader.
+   *
+   * @return  The connection that was created.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static LDAPConnection getConnection(
+                      final InMemoryDirectoryServer ds,
+                      final boolean useSharedSelectorReaders)
+          throws Exception
+  {
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUseSharedSelectorReaders(useSharedSelectorReaders);
+    options.setResponseTimeoutMillis(0L);
+
+    final LDAPConnection conn =
+         new LDAPConnection(options, "127.0.0.1", ds.getListenPort());
+    assertEquals(getReader(conn).usingSharedSelectorReader(),
+         useSharedSelectorReaders);
+    return conn;
+  }
+
+
+
+  /**
+   * Retrieves the connection reader for the provided connection.
+   *
+   * @param  conn  The connection for which to retrieve the reader.
+   *
+   * @return  The connection reader for the provided connection.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static LDAPConnectionReader getReader(final LDAPConnection conn)
+          throws Exception
+  {
+    return conn.getConnectionInternals(true).getConnectionReader();
+  }
+
+
+
+  /**
+   * This class provides a search entry subscriber for testing purposes.
+   */
+  private static final class TestSubscriber
+          implements SearchEntrySubscriber
+  {
+    // Indicates whether to request another entry each time one is received.
+    private final boolean requestMore;
+
+    // A latch that will be released when the subscription is complete.
+    private final CountDownLatch doneLatch;
+
+    // The entries that have been received.
+    private final List<SearchResultEntry> entries;
+
+    // The number of entries to request when subscribing.
+    private final long initialRequest;
+
+    // The exception provided to the onError method.
+    private volatile LDAPSearchException exception;
+
+    // The search result provided to the onComplete method.
+    private volatile SearchResult result;
+
+    // The subscription provided to the onSubscribe method.
+    private volatile SearchEntrySubscription subscription;
+
+
+
+    /**
+     * Creates a new test subscriber.
+     *
+     * @param  initialRequest  The number of entries to request when
+     *                         subscribing.
+     * @param  requestMore     Indicates whether to request another entry each
+     *                         time one is received.
+     */
+    private TestSubscriber(final long initialRequest,
+                           final boolean requestMore)
+    {
+      this.initialRequest = initialRequest;
+      this.requestMore = requestMore;
+
+      doneLatch = new CountDownLatch(1);
+      entries =
+           Collections.synchronizedList(new ArrayList<SearchResultEntry>());
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void onSubscribe(final SearchEntrySubscription subscription)
+    {
+      assertNull(this.subscription);
+      this.subscription = subscription;
+      subscription.request(initialRequest);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void onNext(final SearchResultEntry searchEntry)
+    {
+      assertFalse(isDone());
+      entries.add(searchEntry);
+      if (requestMore)
+      {
+        subscription.request(1L);
+      }
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void onComplete(final SearchResult searchResult)
+    {
+      assertFalse(isDone());
+      result = searchResult;
+      doneLatch.countDown();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void onError(final LDAPSearchException exception)
+    {
+      assertFalse(isDone());
+      this.exception = exception;
+      doneLatch.countDown();
+    }
+
+
+
+    /**
+     * Retrieves the subscription provided to this subscriber.
+     *
+     * @return  The subscription provided to this subscriber.
+     */
+    private SearchEntrySubscription getSubscription()
+    {
+      return subscription;
+    }
+
+
+
+    /**
+     * Retrieves the entries that have been received.
+     *
+     * @return  The entries that have been received.
+     */
+    private List<SearchResultEntry> getEntries()
+    {
+      return entries;
+    }
+
+
+
+    /**
+     * Indicates whether the subscription has been completed.
+     *
+     * @return  {@code true} if the subscription has been completed, or
+     *          {@code false} if not.
+     */
+    private boolean isDone()
+    {
+      return (doneLatch.getCount() == 0L);
+    }
+
+
+
+    /**
+     * Waits for the subscription to complete successfully.
+     *
+     * @return  The search result provided to the onComplete method.
+     *
+     * @throws  Exception  If an unexpected problem occurs.
+     */
+    private SearchResult awaitResult()
+            throws Exception
+    {
+      assertTrue(doneLatch.await(30L, TimeUnit.SECONDS));
+      assertNull(exception, String.valueOf(exception));
+      assertNotNull(result);
+      return result;
+    }
+
+
+
+    /**
+     * Waits for the subscription to complete with an error.
+     *
+     * @return  The exception provided to the onError method.
+     *
+     * @throws  Exception  If an unexpected problem occurs.
+     */
+    private LDAPSearchException awaitException()
+            throws Exception
+    {
+      assertTrue(doneLatch.await(30L, TimeUnit.SECONDS));
+      assertNull(result);
+      assertNotNull(exception);
+      return exception;
+    }
+  }
+}
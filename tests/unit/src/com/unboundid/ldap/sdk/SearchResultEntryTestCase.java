@@ -38,13 +38,19 @@ package com.unboundid.ldap.sdk;
 
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Arrays;
+import java.util.List;
 
 import org.testng.annotations.Test;
 
 import com.unboundid.asn1.ASN1Buffer;
 import com.unboundid.asn1.ASN1BufferSequence;
+import com.unboundid.asn1.ASN1BufferSet;
 import com.unboundid.asn1.ASN1StreamReader;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
 import com.unboundid.ldap.protocol.LDAPMessage;
 
 
@@ -963,4 +969,232 @@ public class SearchResultEntryTestCase
 
     LDAPMessage.readLDAPResponseFrom(reader, true);
   }
+
+
+
+  /**
+   * Tests the ability to read a search result entry with lazy decoding and
+   * ensures that it is equivalent to the same entry read without lazy decoding.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testReadSearchEntryLazy()
+         throws Exception
+  {
+    final ASN1Buffer b = new ASN1Buffer();
+
+    final ASN1BufferSequence msgSequence = b.beginSequence();
+    b.addInteger(1);
+
+    final ASN1BufferSequence opSequence =
+         b.beginSequence(LDAPMessage.PROTOCOL_OP_TYPE_SEARCH_RESULT_ENTRY);
+    b.addOctetString("dc=example,dc=com");
+
+    final ASN1BufferSequence attrsSequence = b.beginSequence();
+    addAttribute(b, "objectClass", "top");
+    addAttribute(b, "objectClass", "domain");
+    addAttribute(b, "dc", "example");
+    addAttribute(b, "description", new String(new char[500]).replace('\0',
+         'x'));
+    addAttribute(b, "emptyAttr");
+    addAttribute(b, "multiValued", "a", "b", "c");
+    attrsSequence.end();
+    opSequence.end();
+
+    final ASN1BufferSequence controlsSequence =
+         b.beginSequence(LDAPMessage.MESSAGE_TYPE_CONTROLS);
+    new Control("1.2.3.4").writeTo(b);
+    controlsSequence.end();
+    msgSequence.end();
+
+    final byte[] messageBytes = b.toByteArray();
+
+    final SearchResultEntry eagerEntry =
+         (SearchResultEntry) LDAPMessage.readLDAPResponseFrom(
+              new ASN1StreamReader(new ByteArrayInputStream(messageBytes)),
+              true, null, false);
+    final SearchResultEntry lazyEntry =
+         (SearchResultEntry) LDAPMessage.readLDAPResponseFrom(
+              new ASN1StreamReader(new ByteArrayInputStream(messageBytes)),
+              true, null, true);
+
+    assertEquals(lazyEntry.getMessageID(), 1);
+    assertEquals(lazyEntry.getDN(), "dc=example,dc=com");
+    assertEquals(lazyEntry.getControls().length, 1);
+
+    assertTrue(lazyEntry.hasAttributeValue("dc", "example"));
+    assertEquals(lazyEntry.getAttributeValues("objectClass").length, 2);
+    assertEquals(lazyEntry.getAttributeValue("description").length(), 500);
+    assertTrue(lazyEntry.hasAttribute("emptyAttr"));
+    assertEquals(lazyEntry.getAttribute("emptyAttr").size(), 0);
+    assertEquals(lazyEntry.getAttribute("multiValued").size(), 3);
+    assertEquals(lazyEntry.getAttributes().size(), 5);
+
+    assertEquals(lazyEntry, eagerEntry);
+    assertEquals(eagerEntry, lazyEntry);
+    assertEquals(lazyEntry.hashCode(), eagerEntry.hashCode());
+    assertEquals(lazyEntry.toString(), eagerEntry.toString());
+    assertEquals(lazyEntry.toLDIFString(), eagerEntry.toLDIFString());
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final ObjectOutputStream oos = new ObjectOutputStream(baos);
+    oos.writeObject(
+         LDAPMessage.readLDAPResponseFrom(
+              new ASN1StreamReader(new ByteArrayInputStream(messageBytes)),
+              true, null, true));
+    oos.close();
+
+    final ObjectInputStream ois = new ObjectInputStream(
+         new ByteArrayInputStream(baos.toByteArray()));
+    final SearchResultEntry deserializedEntry =
+         (SearchResultEntry) ois.readObject();
+    ois.close();
+
+    assertEquals(deserializedEntry, eagerEntry);
+    assertEquals(deserializedEntry.getAttributes().size(), 5);
+  }
+
+
+
+  /**
+   * Tests the behavior when trying to lazily read a search result entry with a
+   * malformed attribute.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testReadSearchEntryLazyMalformedAttribute()
+         throws Exception
+  {
+    final ASN1Buffer b = new ASN1Buffer();
+
+    final ASN1BufferSequence msgSequence = b.beginSequence();
+    b.addInteger(1);
+
+    final ASN1BufferSequence opSequence =
+         b.beginSequence(LDAPMessage.PROTOCOL_OP_TYPE_SEARCH_RESULT_ENTRY);
+    b.addOctetString("dc=example,dc=com");
+
+    final ASN1BufferSequence attrSequence = b.beginSequence();
+    b.addEnumerated(1);
+    attrSequence.end();
+
+    opSequence.end();
+    msgSequence.end();
+
+    final ASN1StreamReader reader = new ASN1StreamReader(
+         new ByteArrayInputStream(b.toByteArray()));
+    LDAPMessage.readLDAPResponseFrom(reader, true, null, true);
+  }
+
+
+
+  /**
+   * Tests the behavior when trying to lazily read a search result entry with
+   * an attribute whose values extend beyond the end of the attribute.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testReadSearchEntryLazyTruncatedAttribute()
+         throws Exception
+  {
+    final ASN1Buffer b = new ASN1Buffer();
+
+    final ASN1BufferSequence msgSequence = b.beginSequence();
+    b.addInteger(1);
+
+    final ASN1BufferSequence opSequence =
+         b.beginSequence(LDAPMessage.PROTOCOL_OP_TYPE_SEARCH_RESULT_ENTRY);
+    b.addOctetString("dc=example,dc=com");
+
+    // An attribute sequence with a value set that claims to hold more data
+    // than the attribute sequence contains.
+    b.addOctetString((byte) 0x30, new byte[]
+    {
+      0x30, 0x0D,
+      0x04, 0x02, 'd', 'c',
+      0x31, 0x09, 0x04, 0x05, 'e', 'x', 'a', 'm', 'p'
+    });
+
+    opSequence.end();
+    msgSequence.end();
+
+    final ASN1StreamReader reader = new ASN1StreamReader(
+         new ByteArrayInputStream(b.toByteArray()));
+    LDAPMessage.readLDAPResponseFrom(reader, true, null, true);
+  }
+
+
+
+  /**
+   * Tests the use of lazy search entry decoding for entries returned by a
+   * directory server.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testLazySearchEntryDecodingWithServer()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUseLazySearchEntryDecoding(true);
+
+    final LDAPConnection lazyConn =
+         new LDAPConnection(options, "127.0.0.1", ds.getListenPort());
+    final LDAPConnection eagerConn = ds.getConnection();
+
+    try
+    {
+      final List<SearchResultEntry> lazyEntries = lazyConn.search(
+           "dc=example,dc=com", SearchScope.SUB,
+           "(objectClass=*)").getSearchEntries();
+      final List<SearchResultEntry> eagerEntries = eagerConn.search(
+           "dc=example,dc=com", SearchScope.SUB,
+           "(objectClass=*)").getSearchEntries();
+
+      assertFalse(lazyEntries.isEmpty());
+      assertEquals(lazyEntries, eagerEntries);
+
+      final SearchResultEntry lazyEntry =
+           lazyConn.getEntry("dc=example,dc=com");
+      assertNotNull(lazyEntry);
+      assertTrue(lazyEntry.hasObjectClass("domain"));
+      assertEquals(lazyEntry,
+           eagerConn.getEntry("dc=example,dc=com"));
+    }
+    finally
+    {
+      lazyConn.close();
+      eagerConn.close();
+    }
+  }
+
+
+
+  /**
+   * Writes an encoded attribute with the provided name and values to the given
+   * buffer.
+   *
+   * @param  b       The buffer to which the attribute should be written.
+   * @param  name    The name for the attribute.
+   * @param  values  The values for the attribute.
+   */
+  private static void addAttribute(final ASN1Buffer b, final String name,
+                                   final String... values)
+  {
+    final ASN1BufferSequence attrSequence = b.beginSequence();
+    b.addOctetString(name);
+
+    final ASN1BufferSet valueSet = b.beginSet();
+    for (final String value : values)
+    {
+      b.addOctetString(value);
+    }
+    valueSet.end();
+    attrSequence.end();
+  }
 }
@@ -43,6 +43,7 @@ import org.testng.annotations.Test;
 
 import com.unboundid.ldap.listener.InMemoryDirectoryServer;
 import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.util.LDAPSDKUsageException;
 import com.unboundid.util.ObjectPair;
 
 
@@ -621,4 +622,233 @@ public final class ServerSetBlacklistManagerTestCase
 
     blacklistManager.shutDown();
   }
+
+
+
+  /**
+   * Tests the methods used to get and set the circuit breaker settings.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testCircuitBreakerSettings()
+         throws Exception
+  {
+    final RoundRobinServerSet serverSet = new RoundRobinServerSet(
+         new String[] { "localhost" }, new int[] { 389 });
+    final ServerSetBlacklistManager blacklistManager =
+         new ServerSetBlacklistManager(serverSet, null, null, null, null,
+              60_000L);
+
+    assertEquals(blacklistManager.getFailureRateThreshold(),
+         ServerSetBlacklistManager.DEFAULT_FAILURE_RATE_THRESHOLD);
+    assertEquals(blacklistManager.getSlidingWindowSize(),
+         ServerSetBlacklistManager.DEFAULT_SLIDING_WINDOW_SIZE);
+    assertEquals(blacklistManager.getMinimumAttemptsForFailureRate(),
+         ServerSetBlacklistManager.DEFAULT_MINIMUM_ATTEMPTS_FOR_FAILURE_RATE);
+    assertEquals(blacklistManager.getMaximumBackoffMillis(),
+         ServerSetBlacklistManager.DEFAULT_MAXIMUM_BACKOFF_MILLIS);
+
+    blacklistManager.setFailureRateThreshold(0.25d);
+    assertEquals(blacklistManager.getFailureRateThreshold(), 0.25d);
+
+    blacklistManager.setSlidingWindowSize(20);
+    assertEquals(blacklistManager.getSlidingWindowSize(), 20);
+
+    blacklistManager.setMinimumAttemptsForFailureRate(5);
+    assertEquals(blacklistManager.getMinimumAttemptsForFailureRate(), 5);
+
+    blacklistManager.setMaximumBackoffMillis(1_234L);
+    assertEquals(blacklistManager.getMaximumBackoffMillis(), 1_234L);
+
+    assertTrue(blacklistManager.toString().contains(
+         "failureRateThreshold=0.25"));
+
+    try
+    {
+      blacklistManager.setFailureRateThreshold(1.5d);
+      fail("Expected an exception for a failure rate threshold above one");
+    }
+    catch (final LDAPSDKUsageException e)
+    {
+      // This was expected.
+    }
+
+    try
+    {
+      blacklistManager.setSlidingWindowSize(0);
+      fail("Expected an exception for a sliding window size of zero");
+    }
+    catch (final LDAPSDKUsageException e)
+    {
+      // This was expected.
+    }
+
+    try
+    {
+      blacklistManager.setMinimumAttemptsForFailureRate(0);
+      fail("Expected an exception for a minimum number of attempts of zero");
+    }
+    catch (final LDAPSDKUsageException e)
+    {
+      // This was expected.
+    }
+
+    try
+    {
+      blacklistManager.setMaximumBackoffMillis(0L);
+      fail("Expected an exception for a maximum backoff of zero");
+    }
+    catch (final LDAPSDKUsageException e)
+    {
+      // This was expected.
+    }
+
+    blacklistManager.shutDown();
+  }
+
+
+
+  /**
+   * Tests the behavior of the failure rate threshold over the sliding window.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testFailureRateThreshold()
+         throws Exception
+  {
+    final RoundRobinServerSet serverSet = new RoundRobinServerSet(
+         new String[] { "localhost" }, new int[] { 389 });
+    final ServerSetBlacklistManager blacklistManager =
+         new ServerSetBlacklistManager(serverSet, null, null, null, null,
+              60_000L);
+    final ObjectPair<String,Integer> hostPort =
+         new ObjectPair<>("localhost", 389);
+
+    // With the default settings, any failure should blacklist the server.
+    blacklistManager.connectionAttemptSucceeded(hostPort);
+    blacklistManager.connectionAttemptSucceeded(hostPort);
+    blacklistManager.connectionAttemptFailed(hostPort, null);
+    assertTrue(blacklistManager.isBlacklisted(hostPort));
+
+    blacklistManager.removeFromBlacklist(hostPort);
+    assertFalse(blacklistManager.isBlacklisted(hostPort));
+
+
+    // Require half of the last four attempts to fail.
+    blacklistManager.setFailureRateThreshold(0.5d);
+    blacklistManager.setSlidingWindowSize(4);
+    blacklistManager.setMinimumAttemptsForFailureRate(4);
+
+    // Not enough attempts have been made.
+    blacklistManager.connectionAttemptFailed(hostPort, null);
+    blacklistManager.connectionAttemptFailed(hostPort, null);
+    blacklistManager.connectionAttemptFailed(hostPort, null);
+    assertFalse(blacklistManager.isBlacklisted(hostPort));
+
+    // The fourth failure should be enough.
+    blacklistManager.connectionAttemptFailed(hostPort, null);
+    assertTrue(blacklistManager.isBlacklisted(hostPort));
+
+    blacklistManager.removeFromBlacklist(hostPort);
+    assertFalse(blacklistManager.isBlacklisted(hostPort));
+
+    // Three successes and one failure is below the threshold.
+    blacklistManager.connectionAttemptSucceeded(hostPort);
+    blacklistManager.connectionAttemptSucceeded(hostPort);
+    blacklistManager.connectionAttemptSucceeded(hostPort);
+    blacklistManager.connectionAttemptFailed(hostPort, null);
+    assertFalse(blacklistManager.isBlacklisted(hostPort));
+
+    // The oldest success will drop out of the window, so two successes and two
+    // failures should reach the threshold.
+    blacklistManager.connectionAttemptFailed(hostPort, null);
+    assertTrue(blacklistManager.isBlacklisted(hostPort));
+
+    blacklistManager.shutDown();
+  }
+
+
+
+  /**
+   * Tests the behavior of the backoff period and the half-open probe permit.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testBackoffAndProbePermit()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = new InMemoryDirectoryServer(
+         new InMemoryDirectoryServerConfig("dc=example,dc=com"));
+    ds.startListening();
+    final int port = ds.getListenPort();
+    ds.shutDown(true);
+
+    final RoundRobinServerSet serverSet = new RoundRobinServerSet(
+         new String[] { "localhost" }, new int[] { port });
+    final ServerSetBlacklistManager blacklistManager =
+         new ServerSetBlacklistManager(serverSet, null, null, null, null,
+              60_000L);
+    final ObjectPair<String,Integer> hostPort =
+         new ObjectPair<>("localhost", port);
+
+    try
+    {
+      assertEquals(blacklistManager.getNumConsecutiveTrips(hostPort), 0);
+
+      blacklistManager.addToBlacklist(hostPort, null);
+      assertTrue(blacklistManager.isBlacklisted(hostPort));
+      assertEquals(blacklistManager.getNumConsecutiveTrips(hostPort), 1);
+
+      // Adding the server again while it's already on the blacklist should not
+      // extend its backoff.
+      blacklistManager.addToBlacklist(hostPort, null);
+      assertEquals(blacklistManager.getNumConsecutiveTrips(hostPort), 1);
+
+      // Only one probe should be permitted at a time.
+      assertTrue(blacklistManager.tryAcquireProbePermit(hostPort));
+      assertFalse(blacklistManager.tryAcquireProbePermit(hostPort));
+
+      // A failed probe should release the permit and extend the backoff.
+      blacklistManager.probeFailed(hostPort, null);
+      assertTrue(blacklistManager.isBlacklisted(hostPort));
+      assertEquals(blacklistManager.getNumConsecutiveTrips(hostPort), 2);
+      assertTrue(blacklistManager.tryAcquireProbePermit(hostPort));
+
+      // A server that is removed from the blacklist and quickly added back
+      // should have a longer backoff.
+      blacklistManager.removeFromBlacklist(hostPort);
+      assertFalse(blacklistManager.isBlacklisted(hostPort));
+      assertTrue(blacklistManager.tryAcquireProbePermit(hostPort));
+      blacklistManager.probeFailed(hostPort, null);
+      assertTrue(blacklistManager.isBlacklisted(hostPort));
+      assertEquals(blacklistManager.getNumConsecutiveTrips(hostPort), 3);
+
+      // The backoff period has not elapsed, so a periodic check should not
+      // probe the server.
+      blacklistManager.checkBlacklistedServers(false);
+      assertTrue(blacklistManager.isBlacklisted(hostPort));
+      assertEquals(blacklistManager.getNumConsecutiveTrips(hostPort), 3);
+
+      // A forced check should probe the server, and because it is still
+      // down, it should remain on the blacklist with a longer backoff.
+      blacklistManager.checkBlacklistedServers();
+      assertTrue(blacklistManager.isBlacklisted(hostPort));
+      assertEquals(blacklistManager.getNumConsecutiveTrips(hostPort), 4);
+
+      // Once the server is back, a forced check should remove it from the
+      // blacklist.
+      ds.startListening();
+      blacklistManager.checkBlacklistedServers();
+      assertFalse(blacklistManager.isBlacklisted(hostPort));
+      assertTrue(blacklistManager.isEmpty());
+    }
+    finally
+    {
+      blacklistManager.shutDown();
+      ds.shutDown(true);
+    }
+  }
 }
@@ -0,0 +1,646 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.net.ssl.SSLSocket;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.sdk.extensions.StartTLSExtendedRequest;
+import com.unboundid.util.ssl.KeyStoreKeyManager;
+import com.unboundid.util.ssl.SSLSocketVerifier;
+import com.unboundid.util.ssl.SSLUtil;
+import com.unboundid.util.ssl.TrustAllTrustManager;
+
+
+
+/**
+ * This class provides a set of test cases for connections that use shared
+ * selector reader threads rather than dedicated reader threads.
+ */
+public final class SharedSelectorReaderThreadTestCase
+       extends LDAPSDKTestCase
+{
+  // The in-memory directory server instance to use for testing.
+  private InMemoryDirectoryServer ds = null;
+
+
+
+  /**
+   * Creates an in-memory directory server instance that supports StartTLS.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @BeforeClass()
+  public void setUp()
+         throws Exception
+  {
+    final File resourceDir = new File(System.getProperty("unit.resource.dir"));
+    final File serverKeyStore   = new File(resourceDir, "server.keystore");
+    final SSLUtil serverSSLUtil = new SSLUtil(
+         new KeyStoreKeyManager(serverKeyStore, "password".toCharArray(),
+              "JKS", "server-cert"), new TrustAllTrustManager());
+
+    final InMemoryDirectoryServerConfig cfg =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    cfg.addAdditionalBindCredentials("cn=Directory Manager", "password");
+    cfg.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig(
+         "LDAP+StartTLS", null, 0, serverSSLUtil.createSSLSocketFactory()));
+
+    ds = new InMemoryDirectoryServer(cfg);
+    ds.startListening();
+    ds.add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+  }
+
+
+
+  /**
+   * Shuts down the in-memory directory server instance.
+   */
+  @AfterClass()
+  public void tearDown()
+  {
+    if (ds != null)
+    {
+      ds.shutDown(true);
+    }
+  }
+
+
+
+  /**
+   * Creates a new connection to the test server that is configured to use a
+   * shared selector reader thread.
+   *
+   * @return  The connection that was created.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private LDAPConnection createConnection()
+          throws Exception
+  {
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUseSharedSelectorReaders(true);
+
+    final LDAPConnection conn = new LDAPConnection(options, "127.0.0.1",
+         ds.getListenPort(), "cn=Directory Manager", "password");
+    assertTrue(conn.getConnectionInternals(true).getConnectionReader().
+         usingSharedSelectorReader());
+    return conn;
+  }
+
+
+
+  /**
+   * Tests the behavior when processing a variety of operations over a
+   * connection that uses a shared selector reader.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testBasicOperations()
+         throws Exception
+  {
+    final LDAPConnection conn = createConnection();
+
+    try
+    {
+      assertNotNull(conn.getRootDSE());
+
+      conn.add(
+           "dn: ou=Selector Test,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: Selector Test");
+
+      // Add a large value to ensure that messages that don't fit in the
+      // default read buffer are handled properly.
+      final StringBuilder buffer = new StringBuilder();
+      for (int i=0; i < 50_000; i++)
+      {
+        buffer.append('x');
+      }
+
+      conn.modify(new ModifyRequest("ou=Selector Test,dc=example,dc=com",
+           new Modification(ModificationType.REPLACE, "description",
+                buffer.toString())));
+
+      final SearchResultEntry entry =
+           conn.getEntry("ou=Selector Test,dc=example,dc=com");
+      assertNotNull(entry);
+      assertEquals(entry.getAttributeValue("description"), buffer.toString());
+
+      final SearchResult searchResult = conn.search("dc=example,dc=com",
+           SearchScope.SUB, "(objectClass=*)");
+      assertEquals(searchResult.getEntryCount(), 2);
+
+      conn.delete("ou=Selector Test,dc=example,dc=com");
+    }
+    finally
+    {
+      conn.close();
+    }
+
+    assertFalse(conn.isConnected());
+  }
+
+
+
+  /**
+   * Tests the behavior when processing a number of concurrent asynchronous
+   * operations across several connections that use shared selector readers.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConcurrentAsynchronousOperations()
+         throws Exception
+  {
+    final List<LDAPConnection> connections = new ArrayList<>(10);
+    try
+    {
+      for (int i=0; i < 10; i++)
+      {
+        connections.add(createConnection());
+      }
+
+      final List<AsyncRequestID> requestIDs = new ArrayList<>(100);
+      for (int i=0; i < 10; i++)
+      {
+        for (final LDAPConnection conn : connections)
+        {
+          requestIDs.add(conn.asyncCompare(
+               new CompareRequest("dc=example,dc=com", "dc", "example"),
+               new TestAsyncListener()));
+        }
+      }
+
+      for (final AsyncRequestID requestID : requestIDs)
+      {
+        final LDAPResult result = requestID.get();
+        assertEquals(result.getResultCode(), ResultCode.COMPARE_TRUE);
+      }
+    }
+    finally
+    {
+      for (final LDAPConnection conn : connections)
+      {
+        conn.close();
+      }
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior when using StartTLS with an SSL context on a connection
+   * that uses a shared selector reader, which should allow the connection to
+   * continue using the shared selector reader with an SSL engine.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testStartTLSWithSSLEngine()
+         throws Exception
+  {
+    final LDAPConnection conn = createConnection();
+
+    try
+    {
+      final SSLUtil clientSSLUtil = new SSLUtil(new TrustAllTrustManager());
+      final ExtendedResult startTLSResult =
+           conn.processExtendedOperation(new StartTLSExtendedRequest(
+                clientSSLUtil.createSSLContext()));
+      assertEquals(startTLSResult.getResultCode(), ResultCode.SUCCESS);
+      assertNotNull(conn.getSSLSession());
+      assertNotNull(conn.getSSLSession().getCipherSuite());
+      assertEquals(conn.getConnectionStatistics().getNumFullTLSHandshakes(),
+           1L);
+
+      assertTrue(conn.getConnectionInternals(true).getConnectionReader().
+           usingSharedSelectorReader());
+      assertFalse(conn.getConnectionInternals(true).getSocket() instanceof
+           SSLSocket);
+
+      assertNotNull(conn.getRootDSE());
+      assertNotNull(conn.getEntry("dc=example,dc=com"));
+
+      // Add and retrieve an entry that is large enough to require multiple TLS
+      // records and an expanded read buffer.
+      final StringBuilder description = new StringBuilder();
+      for (int i=0; i < 100_000; i++)
+      {
+        description.append((char) ('a' + (i % 26)));
+      }
+
+      conn.add(
+           "dn: ou=Large,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: Large",
+           "description: " + description);
+      try
+      {
+        final SearchResultEntry e =
+             conn.getEntry("ou=Large,dc=example,dc=com");
+        assertNotNull(e);
+        assertEquals(e.getAttributeValue("description"),
+             description.toString());
+
+        final List<AsyncRequestID> requestIDs = new ArrayList<>(20);
+        for (int i=0; i < 20; i++)
+        {
+          requestIDs.add(conn.asyncSearch(new SearchRequest(
+               new BasicAsyncSearchResultListener(), "dc=example,dc=com",
+               SearchScope.SUB, "(objectClass=*)")));
+        }
+
+        for (final AsyncRequestID requestID : requestIDs)
+        {
+          final SearchResult result = (SearchResult) requestID.get();
+          assertEquals(result.getResultCode(), ResultCode.SUCCESS);
+          assertEquals(result.getEntryCount(), 2);
+        }
+      }
+      finally
+      {
+        conn.delete("ou=Large,dc=example,dc=com");
+      }
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior when using StartTLS with an SSL socket factory on a
+   * connection that uses a shared selector reader, which requires switching to
+   * a dedicated reader thread.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testStartTLSWithSSLSocketFactory()
+         throws Exception
+  {
+    final LDAPConnection conn = createConnection();
+
+    try
+    {
+      final SSLUtil clientSSLUtil = new SSLUtil(new TrustAllTrustManager());
+      final ExtendedResult startTLSResult =
+           conn.processExtendedOperation(new StartTLSExtendedRequest(
+                clientSSLUtil.createSSLSocketFactory()));
+      assertEquals(startTLSResult.getResultCode(), ResultCode.SUCCESS);
+      assertNotNull(conn.getSSLSession());
+
+      assertFalse(conn.getConnectionInternals(true).getConnectionReader().
+           usingSharedSelectorReader());
+
+      assertNotNull(conn.getRootDSE());
+      assertNotNull(conn.getEntry("dc=example,dc=com"));
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that an SSL socket verifier that only knows how to examine
+   * an {@code SSLSocket} is invoked for TLS sessions negotiated with an SSL
+   * engine, and that the connection is closed if the verifier rejects the
+   * session.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testStartTLSWithSSLEngineVerifierRejects()
+         throws Exception
+  {
+    final RejectingSSLSocketVerifier verifier =
+         new RejectingSSLSocketVerifier();
+
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUseSharedSelectorReaders(true);
+    options.setSSLSocketVerifier(verifier);
+
+    final LDAPConnection conn =
+         new LDAPConnection(options, "127.0.0.1", ds.getListenPort());
+
+    try
+    {
+      final SSLUtil clientSSLUtil = new SSLUtil(new TrustAllTrustManager());
+      conn.processExtendedOperation(new StartTLSExtendedRequest(
+           clientSSLUtil.createSSLContext()));
+      fail("Expected an exception when the SSL socket verifier rejects the " +
+           "TLS session");
+    }
+    catch (final LDAPException le)
+    {
+      assertEquals(le.getResultCode(), ResultCode.SERVER_DOWN);
+      assertNotNull(verifier.cipherSuite);
+      assertFalse(conn.isConnected());
+      assertEquals(conn.getDisconnectType(), DisconnectType.SECURITY_PROBLEM);
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior when the server closes a connection that uses a shared
+   * selector reader.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testServerClosesConnection()
+         throws Exception
+  {
+    final LDAPConnection conn = createConnection();
+
+    try
+    {
+      assertNotNull(conn.getRootDSE());
+
+      ds.closeAllConnections(false);
+
+      final long stopWaitingTime = System.currentTimeMillis() + 10_000L;
+      while (conn.isConnected() &&
+           (System.currentTimeMillis() < stopWaitingTime))
+      {
+        Thread.sleep(10L);
+      }
+
+      assertFalse(conn.isConnected());
+      assertEquals(conn.getDisconnectType(),
+           DisconnectType.SERVER_CLOSED_WITHOUT_NOTICE);
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior when the selector used by a shared selector reader
+   * thread is closed out from under it.  The thread should stop rather than
+   * spinning, the connections registered with it should be closed, and new
+   * connections should be assigned to a replacement thread.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSelectorClosed()
+         throws Exception
+  {
+    final LDAPConnection conn = createConnection();
+
+    try
+    {
+      assertNotNull(conn.getRootDSE());
+
+      final SharedSelectorReaderThread selectorThread =
+           getSelectorThread(conn);
+      final Field selectorField =
+           SharedSelectorReaderThread.class.getDeclaredField("selector");
+      selectorField.setAccessible(true);
+      ((Selector) selectorField.get(selectorThread)).close();
+
+      selectorThread.join(10_000L);
+      assertFalse(selectorThread.isAlive());
+
+      final long stopWaitingTime = System.currentTimeMillis() + 10_000L;
+      while (conn.isConnected() &&
+           (System.currentTimeMillis() < stopWaitingTime))
+      {
+        Thread.sleep(10L);
+      }
+      assertFalse(conn.isConnected());
+
+      final LDAPConnection[] newConns = new LDAPConnection[8];
+      try
+      {
+        for (int i=0; i < newConns.length; i++)
+        {
+          newConns[i] = createConnection();
+          assertNotSame(getSelectorThread(newConns[i]), selectorThread);
+          assertNotNull(newConns[i].getRootDSE());
+        }
+      }
+      finally
+      {
+        for (final LDAPConnection c : newConns)
+        {
+          if (c != null)
+          {
+            c.close();
+          }
+        }
+      }
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Retrieves the shared selector reader thread used by the provided
+   * connection.
+   *
+   * @param  conn  The connection for which to retrieve the thread.
+   *
+   * @return  The shared selector reader thread used by the provided
+   *          connection.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static SharedSelectorReaderThread getSelectorThread(
+                      final LDAPConnection conn)
+          throws Exception
+  {
+    final Field threadField =
+         LDAPConnectionReader.class.getDeclaredField("selectorThread");
+    threadField.setAccessible(true);
+
+    final AtomicReference<?> threadRef = (AtomicReference<?>)
+         threadField.get(conn.getConnectionInternals(true).
+              getConnectionReader());
+    return (SharedSelectorReaderThread) threadRef.get();
+  }
+
+
+
+  /**
+   * Tests that a write with a time limit to a channel whose peer has stopped
+   * reading will fail rather than blocking indefinitely.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testChannelWriteTimeout()
+         throws Exception
+  {
+    try (ServerSocketChannel serverChannel = ServerSocketChannel.open())
+    {
+      serverChannel.bind(new InetSocketAddress("127.0.0.1", 0));
+
+      try (SocketChannel clientChannel = SocketChannel.open(
+                serverChannel.getLocalAddress());
+           SocketChannel acceptedChannel = serverChannel.accept())
+      {
+        assertNotNull(acceptedChannel);
+        clientChannel.configureBlocking(false);
+
+        final SocketChannelOutputStream outputStream =
+             new SocketChannelOutputStream(clientChannel);
+        final long startTime = System.currentTimeMillis();
+        try
+        {
+          outputStream.write((startTime + 500L),
+               ByteBuffer.allocate(64 * 1024 * 1024));
+          fail("Expected the write to time out");
+        }
+        catch (final SocketTimeoutException e)
+        {
+          // This was expected.
+        }
+
+        assertTrue((System.currentTimeMillis() - startTime) < 10_000L);
+        outputStream.close();
+      }
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that the selector reader option is ignored for
+   * connections operating in synchronous mode.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSynchronousModeIgnoresSelectorOption()
+         throws Exception
+  {
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUseSharedSelectorReaders(true);
+    options.setUseSynchronousMode(true);
+
+    final LDAPConnection conn =
+         new LDAPConnection(options, "127.0.0.1", ds.getListenPort());
+
+    try
+    {
+      assertNull(conn.getConnectionInternals(true).getSocket().getChannel());
+      assertNotNull(conn.getRootDSE());
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * An SSL socket verifier that records the cipher suite for the socket it is
+   * asked to verify and then rejects it.
+   */
+  private static final class RejectingSSLSocketVerifier
+          extends SSLSocketVerifier
+  {
+    // The cipher suite for the socket that was verified.
+    private volatile String cipherSuite = null;
+
+
+
+    /**
+     * Records the cipher suite for the provided socket and rejects it.
+     *
+     * @param  host       The address of the server.
+     * @param  port       The port of the server.
+     * @param  sslSocket  The socket to verify.
+     *
+     * @throws  LDAPException  Always.
+     */
+    @Override()
+    public void verifySSLSocket(final String host, final int port,
+                                final SSLSocket sslSocket)
+           throws LDAPException
+    {
+      cipherSuite = sslSocket.getSession().getCipherSuite();
+      throw new LDAPException(ResultCode.CONNECT_ERROR, "Rejected");
+    }
+  }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+
+import org.testng.annotations.Test;
+
+import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.asn1.ASN1OctetStringValueSource;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.util.StaticUtils;
+
+
+
+/**
+ * This class provides a set of test cases for the
+ * {@code TempFileLargeAttributeValueSink} class.
+ */
+public final class TempFileLargeAttributeValueSinkTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the ability to store a value in a temporary file in a specified
+   * directory and read it back.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testStoreValue()
+         throws Exception
+  {
+    final File directory = createTempDir();
+    try
+    {
+      final TempFileLargeAttributeValueSink sink =
+           new TempFileLargeAttributeValueSink(directory);
+      assertEquals(sink.getDirectory(), directory);
+      assertTrue(sink.toString().contains(directory.getAbsolutePath()));
+
+      final byte[] value = createValue(100_000);
+      final ASN1OctetStringValueSource source = sink.storeValue("description",
+           value.length, new ByteArrayInputStream(value));
+
+      File[] files = directory.listFiles();
+      assertNotNull(files);
+      assertEquals(files.length, 1);
+      assertEquals(files[0].length(), (long) value.length);
+      assertEquals(sink.getNumStoredValues(), 1);
+
+      assertEquals(readFully(source.getInputStream()), value);
+      assertEquals(readFully(source.getInputStream()), value);
+
+      // Once the value has been loaded, the file should be deleted.
+      source.valueLoaded();
+      files = directory.listFiles();
+      assertNotNull(files);
+      assertEquals(files.length, 0);
+      assertEquals(sink.getNumStoredValues(), 0);
+
+      source.valueLoaded();
+      assertEquals(sink.getNumStoredValues(), 0);
+    }
+    finally
+    {
+      delete(directory);
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior of a sink that uses the default temporary directory.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testDefaultDirectory()
+         throws Exception
+  {
+    final TempFileLargeAttributeValueSink sink =
+         new TempFileLargeAttributeValueSink();
+    assertNull(sink.getDirectory());
+    assertEquals(sink.toString(), "TempFileLargeAttributeValueSink()");
+
+    final ASN1OctetStringValueSource source = sink.storeValue("description",
+         0, new ByteArrayInputStream(StaticUtils.NO_BYTES));
+    assertEquals(readFully(source.getInputStream()), StaticUtils.NO_BYTES);
+  }
+
+
+
+  /**
+   * Tests to ensure that closing the sink will delete the files for values
+   * that have not been loaded.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testClose()
+         throws Exception
+  {
+    final File directory = createTempDir();
+    try
+    {
+      final TempFileLargeAttributeValueSink sink =
+           new TempFileLargeAttributeValueSink(directory);
+
+      final byte[] value = createValue(10_000);
+      final ASN1OctetString loaded = new ASN1OctetString(value.length,
+           sink.storeValue("description", value.length,
+                new ByteArrayInputStream(value)));
+      final ASN1OctetString notLoaded = new ASN1OctetString(value.length,
+           sink.storeValue("description", value.length,
+                new ByteArrayInputStream(value)));
+      assertEquals(sink.getNumStoredValues(), 2);
+      assertEquals(directory.listFiles().length, 2);
+
+      assertEquals(loaded.getValue(), value);
+      assertEquals(sink.getNumStoredValues(), 1);
+      assertEquals(directory.listFiles().length, 1);
+
+      sink.close();
+      assertEquals(sink.getNumStoredValues(), 0);
+      assertEquals(directory.listFiles().length, 0);
+      assertFalse(notLoaded.isValueLoaded());
+      assertEquals(loaded.getValue(), value);
+
+      // The sink may still be used after it has been closed.
+      final ASN1OctetString afterClose = new ASN1OctetString(value.length,
+           sink.storeValue("description", value.length,
+                new ByteArrayInputStream(value)));
+      assertEquals(sink.getNumStoredValues(), 1);
+      assertEquals(afterClose.getValue(), value);
+      assertEquals(sink.getNumStoredValues(), 0);
+    }
+    finally
+    {
+      delete(directory);
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior when reading search result entries with a large
+   * attribute value sink configured, both with a dedicated reader thread and
+   * in synchronous mode.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSearchWithLargeValueSink()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+    final String largeValue = StaticUtils.toUTF8String(createValue(50_000));
+    ds.modify("uid=test.user,ou=People,dc=example,dc=com",
+         new Modification(ModificationType.REPLACE, "description",
+              "small", largeValue));
+
+    final File directory = createTempDir();
+    try
+    {
+      for (final boolean synchronousMode : new boolean[] { false, true })
+      {
+        final LDAPConnectionOptions options = new LDAPConnectionOptions();
+        options.setUseSynchronousMode(synchronousMode);
+        options.setLargeAttributeValueSink(
+             new TempFileLargeAttributeValueSink(directory));
+        options.setLargeAttributeValueThresholdBytes(1_000);
+
+        try (LDAPConnection conn = ds.getConnection(options))
+        {
+          final SearchResultEntry entry = conn.getEntry(
+               "uid=test.user,ou=People,dc=example,dc=com");
+          assertNotNull(entry);
+          assertEquals(entry.getAttributeValue("uid"), "test.user");
+
+          final Attribute description = entry.getAttribute("description");
+          assertNotNull(description);
+
+          ASN1OctetString small = null;
+          ASN1OctetString large = null;
+          for (final ASN1OctetString value : description.getRawValues())
+          {
+            if (value.getValueLength() > 1_000)
+            {
+              large = value;
+            }
+            else
+            {
+              small = value;
+            }
+          }
+
+          assertNotNull(small);
+          assertTrue(small.isValueLoaded());
+          assertEquals(small.stringValue(), "small");
+
+          assertNotNull(large);
+          assertFalse(large.isValueLoaded());
+          assertEquals(large.getValueLength(), largeValue.length());
+          assertEquals(readFully(large.getValueInputStream()),
+               StaticUtils.getBytes(largeValue));
+          assertFalse(large.isValueLoaded());
+
+          assertTrue(description.hasValue(largeValue));
+          assertTrue(large.isValueLoaded());
+        }
+      }
+
+      // The files should have been deleted when the values were loaded.
+      final File[] files = directory.listFiles();
+      assertNotNull(files);
+      assertEquals(files.length, 0);
+    }
+    finally
+    {
+      delete(directory);
+    }
+  }
+
+
+
+  /**
+   * Creates a value with the specified number of printable ASCII bytes.
+   *
+   * @param  length  The number of bytes to include in the value.
+   *
+   * @return  The value that was created.
+   */
+  private static byte[] createValue(final int length)
+  {
+    final byte[] value = new byte[length];
+    for (int i=0; i < length; i++)
+    {
+      value[i] = (byte) ('a' + (i % 26));
+    }
+
+    return value;
+  }
+
+
+
+  /**
+   * Reads all of the data from the provided input stream and closes it.
+   *
+   * @param  inputStream  The input stream to read.
+   *
+   * @return  The data that was read.
+   *
+   * @throws  Exception  If a problem occurs while reading.
+   */
+  private static byte[] readFully(final InputStream inputStream)
+          throws Exception
+  {
+    try
+    {
+      final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[8192];
+      while (true)
+      {
+        final int bytesRead = inputStream.read(buffer);
+        if (bytesRead < 0)
+        {
+          return outputStream.toByteArray();
+        }
+
+        outputStream.write(buffer, 0, bytesRead);
+      }
+    }
+    finally
+    {
+      inputStream.close();
+    }
+  }
+}
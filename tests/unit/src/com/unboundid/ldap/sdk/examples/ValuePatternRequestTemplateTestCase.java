@@ -0,0 +1,130 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk.examples;
+
+
+
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.sdk.Filter;
+import com.unboundid.ldap.sdk.LDAPRequest;
+import com.unboundid.ldap.sdk.LDAPSDKTestCase;
+import com.unboundid.ldap.sdk.SearchRequest;
+import com.unboundid.ldap.sdk.SearchScope;
+import com.unboundid.util.ValuePattern;
+
+
+
+/**
+ * This class provides a set of test cases for the ValuePatternRequestTemplate
+ * class.
+ */
+public class ValuePatternRequestTemplateTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the behavior when creating search requests from value patterns.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSearchRequests()
+         throws Exception
+  {
+    final ValuePatternRequestTemplate t = new ValuePatternRequestTemplate();
+    final String baseDN =
+         t.addValue(new ValuePattern("dc=example,dc=com"), false);
+    assertEquals(baseDN, "dc=example,dc=com");
+
+    final String filter =
+         t.addValue(new ValuePattern("(uid=user.[1-10])"), true);
+    assertTrue(filter.startsWith("(uid=user."));
+    assertTrue(filter.endsWith(")"));
+
+    assertTrue(t.createTemplate(new SearchRequest(baseDN, SearchScope.SUB,
+         Filter.create(filter))));
+
+    final LDAPRequest r =
+         t.createRequest("dc=example,dc=com", "(uid=user.5)");
+    assertNotNull(r);
+    assertTrue(r instanceof SearchRequest);
+
+    // Values that would change the structure of the filter must not be
+    // used with the template.
+    assertNull(t.createRequest("dc=example,dc=com", "(uid=user.*)"));
+    assertNull(t.createRequest("dc=example,dc=com", "(uid=user.)"));
+    assertNull(t.createRequest("dc=example,dc=com", "(uid=)"));
+  }
+
+
+
+  /**
+   * Tests the behavior when the template cannot be created.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testCannotCreateTemplate()
+         throws Exception
+  {
+    final ValuePatternRequestTemplate t = new ValuePatternRequestTemplate();
+    assertNull(t.createRequest());
+
+    t.addValue(null, false);
+    assertFalse(t.createTemplate(new SearchRequest("dc=example,dc=com",
+         SearchScope.BASE, Filter.createPresenceFilter("objectClass"))));
+    assertNull(t.createRequest("dc=example,dc=com"));
+  }
+
+
+
+  /**
+   * Tests the isSafeForFilter method.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testIsSafeForFilter()
+         throws Exception
+  {
+    assertTrue(ValuePatternRequestTemplate.isSafeForFilter("abc"));
+    assertTrue(ValuePatternRequestTemplate.isSafeForFilter("user.123"));
+    assertFalse(ValuePatternRequestTemplate.isSafeForFilter(""));
+    assertFalse(ValuePatternRequestTemplate.isSafeForFilter("a*"));
+    assertFalse(ValuePatternRequestTemplate.isSafeForFilter("a)(b=c"));
+    assertFalse(ValuePatternRequestTemplate.isSafeForFilter("a\\2a"));
+  }
+}
@@ -138,7 +138,11 @@ public class StartTLSExtendedRequestTestCase
     sslContext.init(null, null, null);
 
     StartTLSExtendedRequest r = new StartTLSExtendedRequest(sslContext);
+    assertSame(r.getSSLContext(), sslContext);
+    assertSame(r.duplicate().getSSLContext(), sslContext);
+
     r = new StartTLSExtendedRequest(r);
+    assertNotNull(r.getSSLContext());
     r = r.duplicate();
 
     assertNotNull(r.getOID());
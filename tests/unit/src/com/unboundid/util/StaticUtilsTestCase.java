@@ -2158,6 +2158,76 @@ public class StaticUtilsTestCase
 
 
 
+  /**
+   * Tests the isASCIIString method that takes a portion of a byte array, with
+   * a single non-ASCII byte at every possible position in arrays of a range of
+   * lengths to ensure that it is found whether it is examined as part of a
+   * group of eight bytes or individually.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testIsASCIIStringByteArrayPortion()
+         throws Exception
+  {
+    for (int length=0; length <= 20; length++)
+    {
+      final byte[] b = new byte[length + 4];
+      Arrays.fill(b, (byte) 'a');
+      b[0] = (byte) 0x80;
+      b[b.length - 1] = (byte) 0xFF;
+
+      assertTrue(StaticUtils.isASCIIString(b, 2, length));
+
+      for (int i=0; i < length; i++)
+      {
+        b[i+2] = (byte) 0xC3;
+        assertFalse(StaticUtils.isASCIIString(b, 2, length));
+        b[i+2] = (byte) 'a';
+      }
+    }
+  }
+
+
+
+  /**
+   * Tests the toUTF8String methods with ASCII values and values that contain
+   * characters from a mix of scripts.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testToUTF8StringASCIIAndMixedScripts()
+         throws Exception
+  {
+    final String[] strings =
+    {
+      "",
+      "a",
+      "uid=test.user,ou=People,dc=example,dc=com",
+      "\u0000\u007F",
+      "Jalape\u00f1o",
+      "\u65e5\u672c\u8a9e",
+      "cn=\u041f\u0440\u0438\u0432\u0435\u0442,dc=example,dc=com",
+      "prefix \ud83d\ude00 suffix"
+    };
+
+    for (final String s : strings)
+    {
+      final byte[] b = s.getBytes(StandardCharsets.UTF_8);
+      assertEquals(StaticUtils.toUTF8String(b), s);
+
+      final byte[] padded = new byte[b.length + 6];
+      Arrays.fill(padded, (byte) 0xFF);
+      System.arraycopy(b, 0, padded, 3, b.length);
+      assertEquals(StaticUtils.toUTF8String(padded, 3, b.length), s);
+
+      assertEquals(StaticUtils.getBytes(s), b);
+    }
+  }
+
+
+
   /**
    * Retrieves a set of data that may be used by the testIsASCIIString method.
    *
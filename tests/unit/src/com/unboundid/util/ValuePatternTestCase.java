@@ -2310,4 +2310,43 @@ public class ValuePatternTestCase
          new BackReferenceValuePatternComponent(1);
     c.append(new StringBuilder());
   }
+
+
+
+  /**
+   * Tests the methods used to retrieve the static text at the beginning and
+   * end of every value generated from a pattern.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConstantPrefixAndSuffix()
+         throws Exception
+  {
+    ValuePattern p = new ValuePattern("uid=user.[1-10],ou=People");
+    assertFalse(p.isConstant());
+    assertEquals(p.getConstantPrefix(), "uid=user.");
+    assertEquals(p.getConstantSuffix(), ",ou=People");
+
+    p = new ValuePattern("[1-10]");
+    assertFalse(p.isConstant());
+    assertEquals(p.getConstantPrefix(), "");
+    assertEquals(p.getConstantSuffix(), "");
+
+    p = new ValuePattern("[1-10]:[ref:1]x");
+    assertFalse(p.isConstant());
+    assertEquals(p.getConstantPrefix(), "");
+    assertEquals(p.getConstantSuffix(), "x");
+
+    p = new ValuePattern("constant value");
+    assertTrue(p.isConstant());
+    assertEquals(p.getConstantPrefix(), "constant value");
+    assertEquals(p.getConstantSuffix(), "");
+    assertEquals(p.nextValue(), "constant value");
+
+    p = new ValuePattern("a[[b");
+    assertTrue(p.isConstant());
+    assertEquals(p.getConstantPrefix(), "a[b");
+    assertEquals(p.getConstantSuffix(), "");
+  }
 }
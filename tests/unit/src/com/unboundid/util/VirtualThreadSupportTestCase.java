@@ -0,0 +1,138 @@
+/*
+ * Copyright 2024 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright 2024 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Copyright (C) 2024 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.util;
+
+
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.sdk.LDAPSDKTestCase;
+
+
+
+/**
+ * This class provides a set of test cases for the {@code VirtualThreadSupport}
+ * class.
+ */
+public final class VirtualThreadSupportTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the behavior of the methods used to create virtual threads.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testNewVirtualThread()
+         throws Exception
+  {
+    final CountDownLatch latch = new CountDownLatch(1);
+    final Thread t = VirtualThreadSupport.newVirtualThread("Test Thread",
+         new Runnable()
+         {
+           @Override()
+           public void run()
+           {
+             latch.countDown();
+           }
+         });
+
+    if (VirtualThreadSupport.virtualThreadsAvailable())
+    {
+      assertNotNull(t);
+      assertTrue(VirtualThreadSupport.isVirtual(t));
+      assertEquals(t.getName(), "Test Thread");
+
+      t.start();
+      assertTrue(latch.await(10L, TimeUnit.SECONDS));
+    }
+    else
+    {
+      assertNull(t);
+    }
+
+    assertFalse(VirtualThreadSupport.isVirtual(Thread.currentThread()));
+  }
+
+
+
+  /**
+   * Tests the behavior of the method used to start a thread, both with and
+   * without a request to use a virtual thread.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testStart()
+         throws Exception
+  {
+    for (final boolean useVirtualThread : new boolean[] { false, true })
+    {
+      final AtomicReference<Thread> runningThread = new AtomicReference<>();
+      final Thread thread = new Thread("Test Thread " + useVirtualThread)
+      {
+        @Override()
+        public void run()
+        {
+          runningThread.set(Thread.currentThread());
+        }
+      };
+
+      final Thread startedThread =
+           VirtualThreadSupport.start(thread, useVirtualThread);
+      startedThread.join(10_000L);
+
+      assertNotNull(runningThread.get());
+      assertSame(runningThread.get(), startedThread);
+      assertEquals(startedThread.getName(), thread.getName());
+
+      if (useVirtualThread && VirtualThreadSupport.virtualThreadsAvailable())
+      {
+        assertNotSame(startedThread, thread);
+        assertTrue(VirtualThreadSupport.isVirtual(startedThread));
+      }
+      else
+      {
+        assertSame(startedThread, thread);
+        assertFalse(VirtualThreadSupport.isVirtual(startedThread));
+      }
+    }
+  }
+}
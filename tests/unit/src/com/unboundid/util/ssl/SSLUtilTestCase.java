@@ -1455,4 +1455,57 @@ public class SSLUtilTestCase
       s.close();
     }
   }
+
+
+
+  /**
+   * Tests the methods that control whether SSL contexts are shared, and the
+   * client session cache settings.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSharedSSLContextAndSessionCacheSettings()
+         throws Exception
+  {
+    final SSLUtil sslUtil = new SSLUtil(new TrustAllTrustManager());
+    assertFalse(sslUtil.useSharedSSLContext());
+    assertEquals(sslUtil.getClientSessionCacheSize(), -1);
+    assertEquals(sslUtil.getClientSessionTimeoutSeconds(), -1);
+
+    assertNotSame(sslUtil.createSSLContext(), sslUtil.createSSLContext());
+
+    sslUtil.setUseSharedSSLContext(true);
+    assertTrue(sslUtil.useSharedSSLContext());
+
+    final SSLContext sharedContext = sslUtil.createSSLContext();
+    assertSame(sslUtil.createSSLContext(), sharedContext);
+    assertNotSame(sslUtil.createSSLContext("TLSv1.2"),
+         sslUtil.createSSLContext("TLSv1.3"));
+    assertSame(sslUtil.createSSLContext("TLSv1.2"),
+         sslUtil.createSSLContext("TLSv1.2"));
+
+    sslUtil.setClientSessionCacheSize(123);
+    assertEquals(sslUtil.getClientSessionCacheSize(), 123);
+    assertEquals(
+         sharedContext.getClientSessionContext().getSessionCacheSize(), 123);
+
+    sslUtil.setClientSessionTimeoutSeconds(456);
+    assertEquals(sslUtil.getClientSessionTimeoutSeconds(), 456);
+    assertEquals(
+         sharedContext.getClientSessionContext().getSessionTimeout(), 456);
+
+    sslUtil.setUseSharedSSLContext(false);
+    final SSLContext newContext = sslUtil.createSSLContext();
+    assertNotSame(newContext, sharedContext);
+    assertEquals(newContext.getClientSessionContext().getSessionCacheSize(),
+         123);
+    assertEquals(newContext.getClientSessionContext().getSessionTimeout(),
+         456);
+
+    sslUtil.setClientSessionCacheSize(-5);
+    assertEquals(sslUtil.getClientSessionCacheSize(), -1);
+    sslUtil.setClientSessionTimeoutSeconds(-5);
+    assertEquals(sslUtil.getClientSessionTimeoutSeconds(), -1);
+  }
 }